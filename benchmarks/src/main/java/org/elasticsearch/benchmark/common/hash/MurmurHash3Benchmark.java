@@ -0,0 +1,58 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.hash;
+
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link MurmurHash3#hash128} for keys of different lengths, from the size of a
+ * numeric value to the size of a long string.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class MurmurHash3Benchmark {
+
+    @Param({"8", "15", "64", "1024"})
+    public int length;
+
+    private byte[] key;
+    private MurmurHash3.Hash128 hash;
+
+    @Setup
+    public void setUp() {
+        key = new byte[length];
+        new Random(0).nextBytes(key);
+        hash = new MurmurHash3.Hash128();
+    }
+
+    @Benchmark
+    public long hash128() {
+        MurmurHash3.hash128(key, 0, length, 0, hash);
+        return hash.h1 ^ hash.h2;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.io.stream;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the variable length encodings of {@link org.elasticsearch.common.io.stream.StreamOutput}
+ * and {@link StreamInput} which most of the transport messages are made of.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StreamBenchmark {
+
+    /**
+     * The maximum number of bits of the encoded values, small values are the common case.
+     */
+    @Param({"7", "28", "63"})
+    public int bits;
+
+    @Param({"10000"})
+    public int numValues;
+
+    private int[] ints;
+    private long[] longs;
+    private BytesReference encodedInts;
+    private BytesReference encodedLongs;
+    private BytesStreamOutput out;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(0);
+        ints = new int[numValues];
+        longs = new long[numValues];
+        for (int i = 0; i < numValues; i++) {
+            long value = random.nextLong() >>> (64 - bits);
+            longs[i] = value;
+            ints[i] = (int) (value & Integer.MAX_VALUE);
+        }
+        BytesStreamOutput intsOut = new BytesStreamOutput();
+        BytesStreamOutput longsOut = new BytesStreamOutput();
+        for (int i = 0; i < numValues; i++) {
+            intsOut.writeVInt(ints[i]);
+            longsOut.writeVLong(longs[i]);
+        }
+        encodedInts = intsOut.bytes();
+        encodedLongs = longsOut.bytes();
+        out = new BytesStreamOutput();
+    }
+
+    @Benchmark
+    public long writeVInt() throws IOException {
+        out.reset();
+        for (int value : ints) {
+            out.writeVInt(value);
+        }
+        return out.position();
+    }
+
+    @Benchmark
+    public long writeVLong() throws IOException {
+        out.reset();
+        for (long value : longs) {
+            out.writeVLong(value);
+        }
+        return out.position();
+    }
+
+    @Benchmark
+    public long readVInt() throws IOException {
+        StreamInput in = encodedInts.streamInput();
+        long sum = 0;
+        for (int i = 0; i < numValues; i++) {
+            sum += in.readVInt();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long readVLong() throws IOException {
+        StreamInput in = encodedLongs.streamInput();
+        long sum = 0;
+        for (int i = 0; i < numValues; i++) {
+            sum += in.readVLong();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.util;
+
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures allocating, growing and accessing {@link LongArray}s, with and without page recycling.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BigArraysBenchmark {
+
+    @Param({"true", "false"})
+    public boolean recycling;
+
+    @Param({"1000", "1000000"})
+    public int size;
+
+    private ThreadPool threadPool;
+    private PageCacheRecycler recycler;
+    private BigArrays bigArrays;
+    private LongArray array;
+
+    @Setup
+    public void setUp() {
+        if (recycling) {
+            threadPool = new ThreadPool("benchmark");
+            recycler = new PageCacheRecycler(ImmutableSettings.EMPTY, threadPool);
+            bigArrays = new BigArrays(ImmutableSettings.EMPTY, recycler, null);
+        } else {
+            bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
+        }
+        array = bigArrays.newLongArray(size);
+        for (int i = 0; i < size; i++) {
+            array.set(i, i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        array.close();
+        if (recycler != null) {
+            recycler.close();
+        }
+        if (threadPool != null) {
+            ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Benchmark
+    public long allocateAndRelease() {
+        LongArray newArray = bigArrays.newLongArray(size);
+        try {
+            return newArray.size();
+        } finally {
+            newArray.close();
+        }
+    }
+
+    @Benchmark
+    public long grow() {
+        LongArray newArray = bigArrays.newLongArray(1, false);
+        try {
+            for (int i = 0; i < size; i++) {
+                newArray = bigArrays.grow(newArray, i + 1);
+                newArray.set(i, i);
+            }
+            return newArray.size();
+        } finally {
+            newArray.close();
+        }
+    }
+
+    @Benchmark
+    public long sequentialGet() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += array.get(i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long sequentialIncrement() {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += array.increment(i, 1);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.util;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding and looking up terms in a {@link BytesRefHash}, the way the terms and
+ * cardinality aggregations use it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BytesRefHashBenchmark {
+
+    /**
+     * Number of distinct terms, the terms that are added are drawn from them.
+     */
+    @Param({"100", "100000"})
+    public int cardinality;
+
+    @Param({"1000000"})
+    public int numTerms;
+
+    @Param({"16"})
+    public int termLength;
+
+    private BytesRef[] terms;
+    private BytesRefHash hash;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(0);
+        final BytesRef[] distinct = new BytesRef[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            byte[] bytes = new byte[termLength];
+            random.nextBytes(bytes);
+            distinct[i] = new BytesRef(bytes);
+        }
+        terms = new BytesRef[numTerms];
+        for (int i = 0; i < numTerms; i++) {
+            terms[i] = distinct[random.nextInt(cardinality)];
+        }
+        hash = new BytesRefHash(cardinality, BigArrays.NON_RECYCLING_INSTANCE);
+        for (BytesRef term : distinct) {
+            hash.add(term);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hash.close();
+    }
+
+    @Benchmark
+    public long add() {
+        long sum = 0;
+        try (BytesRefHash newHash = new BytesRefHash(1, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (BytesRef term : terms) {
+                sum += newHash.add(term);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long find() {
+        long sum = 0;
+        for (BytesRef term : terms) {
+            sum += hash.find(term);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.util;
+
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongHash;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding and looking up keys in a {@link LongHash}, the way bucket ordinals of numeric
+ * terms and histogram aggregations are tracked.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class LongHashBenchmark {
+
+    /**
+     * Number of distinct keys, the keys that are added are drawn from them.
+     */
+    @Param({"100", "100000"})
+    public int cardinality;
+
+    @Param({"1000000"})
+    public int numKeys;
+
+    private long[] keys;
+    private LongHash hash;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(0);
+        final long[] distinct = new long[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            distinct[i] = random.nextLong();
+        }
+        keys = new long[numKeys];
+        for (int i = 0; i < numKeys; i++) {
+            keys[i] = distinct[random.nextInt(cardinality)];
+        }
+        hash = new LongHash(cardinality, BigArrays.NON_RECYCLING_INSTANCE);
+        for (long key : distinct) {
+            hash.add(key);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        hash.close();
+    }
+
+    @Benchmark
+    public long add() {
+        long sum = 0;
+        try (LongHash newHash = new LongHash(1, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (long key : keys) {
+                sum += newHash.add(key);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long find() {
+        long sum = 0;
+        for (long key : keys) {
+            sum += hash.find(key);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.xcontent;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a small document, similar to a search hit or a stats entry, with
+ * {@link XContentBuilder} in the different content types.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class XContentBuilderBenchmark {
+
+    @Param({"JSON", "SMILE", "CBOR"})
+    public XContentType type;
+
+    @Param({"10"})
+    public int numObjects;
+
+    private String[] names;
+
+    @Setup
+    public void setUp() {
+        names = new String[numObjects];
+        for (int i = 0; i < numObjects; i++) {
+            names[i] = "name_" + i;
+        }
+    }
+
+    @Benchmark
+    public BytesReference build() throws IOException {
+        XContentBuilder builder = XContentFactory.contentBuilder(type);
+        builder.startObject();
+        builder.field("took", 12l);
+        builder.field("timed_out", false);
+        builder.startArray("hits");
+        for (int i = 0; i < numObjects; i++) {
+            builder.startObject()
+                    .field("_index", "index")
+                    .field("_type", "type")
+                    .field("_id", names[i])
+                    .field("_score", 1.5f)
+                    .startObject("_source")
+                    .field("name", names[i])
+                    .field("count", i)
+                    .field("value", i * 0.5d)
+                    .array("tags", "red", "green", "blue")
+                    .endObject()
+                    .endObject();
+        }
+        builder.endArray();
+        builder.endObject();
+        return builder.bytes();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collecting hashes into and merging {@link HyperLogLogPlusPlus} sketches, both while
+ * they are in linear counting mode (low cardinality) and after they switched to HyperLogLog.
+ * With many buckets each bucket only sees a few hashes, as with a cardinality under a fine grained
+ * date histogram: <tt>write</tt> and <tt>reduce</tt> then measure serializing the buckets of a shard
+ * and reducing the buckets of several shards.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class HyperLogLogPlusPlusBenchmark {
+
+    @Param({"14"})
+    public int precision;
+
+    @Param({"1000", "1000000"})
+    public int cardinality;
+
+    @Param({"1", "1000", "20000"})
+    public int numBuckets;
+
+    @Param({"20"})
+    public int numShards;
+
+    private long[] hashes;
+    private HyperLogLogPlusPlus other;
+    private BytesReference serialized;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(0);
+        hashes = new long[cardinality];
+        for (int i = 0; i < cardinality; i++) {
+            // values are hashed before they are collected, so uniformly distributed longs are representative
+            hashes[i] = random.nextLong();
+        }
+        other = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, numBuckets);
+        for (int i = 0; i < hashes.length; i++) {
+            other.collect(i % numBuckets, hashes[i]);
+        }
+        serialized = write();
+    }
+
+    @TearDown
+    public void tearDown() {
+        other.close();
+    }
+
+    @Benchmark
+    public long collect() {
+        HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, numBuckets);
+        try {
+            for (int i = 0; i < hashes.length; i++) {
+                counts.collect(i % numBuckets, hashes[i]);
+            }
+            return counts.cardinality(0);
+        } finally {
+            counts.close();
+        }
+    }
+
+    @Benchmark
+    public long merge() {
+        HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, numBuckets);
+        try {
+            for (long bucket = 0; bucket < numBuckets; bucket++) {
+                counts.merge(bucket, other, bucket);
+            }
+            return counts.cardinality(0);
+        } finally {
+            counts.close();
+        }
+    }
+
+    @Benchmark
+    public long cardinality() {
+        long sum = 0;
+        for (long bucket = 0; bucket < numBuckets; bucket++) {
+            sum += other.cardinality(bucket);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public BytesReference write() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        for (long bucket = 0; bucket < numBuckets; bucket++) {
+            other.writeTo(bucket, out);
+        }
+        return out.bytes();
+    }
+
+    @Benchmark
+    public long reduce() throws IOException {
+        // every shard returns the same buckets, the counts of each bucket are reduced together
+        StreamInput[] shards = new StreamInput[numShards];
+        for (int shard = 0; shard < numShards; shard++) {
+            shards[shard] = serialized.streamInput();
+        }
+        long sum = 0;
+        for (long bucket = 0; bucket < numBuckets; bucket++) {
+            HyperLogLogPlusPlus reduced = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, 1);
+            try {
+                for (StreamInput shard : shards) {
+                    HyperLogLogPlusPlus shardCounts = HyperLogLogPlusPlus.readFrom(shard, BigArrays.NON_RECYCLING_INSTANCE);
+                    try {
+                        reduced.merge(0, shardCounts, 0);
+                    } finally {
+                        shardCounts.close();
+                    }
+                }
+                sum += reduced.cardinality(0);
+            } finally {
+                reduced.close();
+            }
+        }
+        return sum;
+    }
+}
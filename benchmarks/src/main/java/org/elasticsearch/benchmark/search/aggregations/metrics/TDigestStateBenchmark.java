@@ -0,0 +1,150 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.metrics;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.search.aggregations.metrics.percentiles.hdr.HdrHistogram;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestState;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link TDigestState} used by the percentiles aggregations: adding values, computing
+ * quantiles, merging and the wire format. The <tt>hdr</tt> benchmarks measure the same operations on
+ * the {@link HdrHistogram} of the <tt>hdr</tt> percentiles method, for comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(2)
+@State(Scope.Benchmark)
+public class TDigestStateBenchmark {
+
+    @Param({"100"})
+    public double compression;
+
+    @Param({"3"})
+    public int significantDigits;
+
+    @Param({"100000"})
+    public int numValues;
+
+    private double[] values;
+    private TDigestState state;
+    private BytesReference serialized;
+    private HdrHistogram histogram;
+    private BytesReference serializedHistogram;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(0);
+        values = new double[numValues];
+        for (int i = 0; i < numValues; i++) {
+            // a skewed distribution, like latencies
+            values[i] = Math.exp(random.nextGaussian());
+        }
+        state = new TDigestState(compression);
+        for (double value : values) {
+            state.add(value);
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        TDigestState.write(state, out);
+        serialized = out.bytes();
+
+        histogram = new HdrHistogram(significantDigits);
+        for (double value : values) {
+            histogram.collect(value);
+        }
+        out = new BytesStreamOutput();
+        histogram.writeTo(out);
+        serializedHistogram = out.bytes();
+    }
+
+    @Benchmark
+    public double add() {
+        TDigestState newState = new TDigestState(compression);
+        for (double value : values) {
+            newState.add(value);
+        }
+        return newState.quantile(0.5);
+    }
+
+    @Benchmark
+    public double quantiles() {
+        return state.quantile(0.5) + state.quantile(0.95) + state.quantile(0.99) + state.quantile(0.999);
+    }
+
+    @Benchmark
+    public double merge() {
+        TDigestState merged = new TDigestState(compression);
+        merged.add(state);
+        return merged.quantile(0.99);
+    }
+
+    @Benchmark
+    public BytesReference write() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        TDigestState.write(state, out);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public TDigestState read() throws IOException {
+        return TDigestState.read(serialized.streamInput());
+    }
+
+    @Benchmark
+    public double hdrAdd() {
+        HdrHistogram newHistogram = new HdrHistogram(significantDigits);
+        for (double value : values) {
+            newHistogram.collect(value);
+        }
+        return newHistogram.quantile(0.5);
+    }
+
+    @Benchmark
+    public double hdrQuantiles() {
+        return histogram.quantile(0.5) + histogram.quantile(0.95) + histogram.quantile(0.99) + histogram.quantile(0.999);
+    }
+
+    @Benchmark
+    public double hdrMerge() {
+        HdrHistogram merged = new HdrHistogram(significantDigits);
+        merged.merge(histogram);
+        return merged.quantile(0.99);
+    }
+
+    @Benchmark
+    public BytesReference hdrWrite() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        histogram.writeTo(out);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public HdrHistogram hdrRead() throws IOException {
+        return HdrHistogram.readFrom(serializedHistogram.streamInput());
+    }
+}
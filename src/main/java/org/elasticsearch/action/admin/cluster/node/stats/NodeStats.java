@@ -21,6 +21,7 @@ package org.elasticsearch.action.admin.cluster.node.stats;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.action.support.nodes.NodeOperationResponse;
+import org.elasticsearch.cache.recycler.DirectPageCacheStats;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
@@ -32,6 +33,7 @@ import org.elasticsearch.http.HttpStats;
 import org.elasticsearch.indices.NodeIndicesStats;
 import org.elasticsearch.indices.breaker.AllCircuitBreakerStats;
 import org.elasticsearch.indices.breaker.CircuitBreakerStats;
+import org.elasticsearch.indices.cluster.ClusterStateApplyStats;
 import org.elasticsearch.monitor.fs.FsStats;
 import org.elasticsearch.monitor.jvm.JvmStats;
 import org.elasticsearch.monitor.network.NetworkStats;
@@ -80,13 +82,20 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
     @Nullable
     private AllCircuitBreakerStats breaker;
 
+    @Nullable
+    private DirectPageCacheStats directPages;
+
+    @Nullable
+    private ClusterStateApplyStats clusterStateApply;
+
     NodeStats() {
     }
 
     public NodeStats(DiscoveryNode node, long timestamp, @Nullable NodeIndicesStats indices,
                      @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool,
                      @Nullable NetworkStats network, @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http,
-                     @Nullable AllCircuitBreakerStats breaker) {
+                     @Nullable AllCircuitBreakerStats breaker, @Nullable DirectPageCacheStats directPages,
+                     @Nullable ClusterStateApplyStats clusterStateApply) {
         super(node);
         this.timestamp = timestamp;
         this.indices = indices;
@@ -99,6 +108,8 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         this.transport = transport;
         this.http = http;
         this.breaker = breaker;
+        this.directPages = directPages;
+        this.clusterStateApply = clusterStateApply;
     }
 
     public long getTimestamp() {
@@ -181,6 +192,22 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         return this.breaker;
     }
 
+    /**
+     * Statistics about the pages of direct memory used by big arrays, <tt>null</tt> unless they are stored off-heap.
+     */
+    @Nullable
+    public DirectPageCacheStats getDirectPages() {
+        return this.directPages;
+    }
+
+    /**
+     * Statistics about the time spent in each step of applying cluster states on the node.
+     */
+    @Nullable
+    public ClusterStateApplyStats getClusterStateApply() {
+        return this.clusterStateApply;
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -219,6 +246,12 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
             http = HttpStats.readHttpStats(in);
         }
         breaker = AllCircuitBreakerStats.readOptionalAllCircuitBreakerStats(in);
+        if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+            directPages = DirectPageCacheStats.readDirectPageCacheStats(in);
+        }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+            clusterStateApply = ClusterStateApplyStats.readClusterStateApplyStats(in);
+        }
 
     }
 
@@ -281,6 +314,10 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
             http.writeTo(out);
         }
         out.writeOptionalStreamable(breaker);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalStreamable(directPages);
+            out.writeOptionalStreamable(clusterStateApply);
+        }
     }
 
     @Override
@@ -331,6 +368,12 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         if (getBreaker() != null) {
             getBreaker().toXContent(builder, params);
         }
+        if (getDirectPages() != null) {
+            getDirectPages().toXContent(builder, params);
+        }
+        if (getClusterStateApply() != null) {
+            getClusterStateApply().toXContent(builder, params);
+        }
 
         return builder;
     }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
 import org.elasticsearch.action.support.nodes.NodesOperationRequest;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -41,6 +42,7 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
     private boolean transport;
     private boolean http;
     private boolean breaker;
+    private boolean clusterStateApply;
 
     protected NodesStatsRequest() {
     }
@@ -67,6 +69,7 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         this.transport = true;
         this.http = true;
         this.breaker = true;
+        this.clusterStateApply = true;
         return this;
     }
 
@@ -84,6 +87,7 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         this.transport = false;
         this.http = false;
         this.breaker = false;
+        this.clusterStateApply = false;
         return this;
     }
 
@@ -240,6 +244,18 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         return this;
     }
 
+    public boolean clusterStateApply() {
+        return this.clusterStateApply;
+    }
+
+    /**
+     * Should the time spent in each step of applying cluster states be returned.
+     */
+    public NodesStatsRequest clusterStateApply(boolean clusterStateApply) {
+        this.clusterStateApply = clusterStateApply;
+        return this;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -253,6 +269,9 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         transport = in.readBoolean();
         http = in.readBoolean();
         breaker = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            clusterStateApply = in.readBoolean();
+        }
     }
 
     @Override
@@ -268,6 +287,9 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         out.writeBoolean(transport);
         out.writeBoolean(http);
         out.writeBoolean(breaker);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeBoolean(clusterStateApply);
+        }
     }
 
 }
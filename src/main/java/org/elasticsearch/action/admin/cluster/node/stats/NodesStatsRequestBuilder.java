@@ -62,6 +62,14 @@ public class NodesStatsRequestBuilder extends NodesOperationRequestBuilder<Nodes
         return this;
     }
 
+    /**
+     * Should the time spent in each step of applying cluster states be returned.
+     */
+    public NodesStatsRequestBuilder setClusterStateApply(boolean clusterStateApply) {
+        request.clusterStateApply(clusterStateApply);
+        return this;
+    }
+
     /**
      * Should the node indices stats be returned.
      */
@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.admin.cluster.node.tasks.cancel;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.support.nodes.NodesOperationRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.tasks.Task;
+
+import java.io.IOException;
+
+import static org.elasticsearch.action.ValidateActions.addValidationError;
+
+/**
+ * A request to cancel either a single task, along with the tasks it started on the other nodes, or all the tasks
+ * executing the given actions. Only cancellable tasks are cancelled.
+ */
+public class CancelTasksRequest extends NodesOperationRequest<CancelTasksRequest> {
+
+    public static final String DEFAULT_REASON = "by user request";
+
+    private String taskNode;
+
+    private long taskId = -1L;
+
+    private String[] actions = Strings.EMPTY_ARRAY;
+
+    private String reason = DEFAULT_REASON;
+
+    public CancelTasksRequest() {
+    }
+
+    /**
+     * Cancels the task with the given id on the given node, and the tasks it started.
+     */
+    public CancelTasksRequest taskId(String taskNode, long taskId) {
+        this.taskNode = taskNode;
+        this.taskId = taskId;
+        return this;
+    }
+
+    @Nullable
+    public String taskNode() {
+        return taskNode;
+    }
+
+    public long taskId() {
+        return taskId;
+    }
+
+    /**
+     * Cancels the tasks executing the given actions, wildcards are supported.
+     */
+    public CancelTasksRequest actions(String... actions) {
+        this.actions = actions;
+        return this;
+    }
+
+    public String[] actions() {
+        return actions;
+    }
+
+    /**
+     * The reason the tasks are cancelled for, reported by the requests they were executing.
+     */
+    public CancelTasksRequest reason(String reason) {
+        this.reason = reason;
+        return this;
+    }
+
+    public String reason() {
+        return reason;
+    }
+
+    /**
+     * Returns whether the given task of the given node must be cancelled.
+     */
+    public boolean match(String nodeId, Task task) {
+        if (taskNode != null) {
+            return (taskNode.equals(nodeId) && taskId == task.getId()) || task.isChildOf(taskNode, taskId);
+        }
+        return Regex.simpleMatch(actions, task.getAction());
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        ActionRequestValidationException validationException = super.validate();
+        if (taskNode == null && actions.length == 0) {
+            validationException = addValidationError("a task id or actions are required", validationException);
+        }
+        if (taskNode != null && actions.length > 0) {
+            validationException = addValidationError("a task id and actions can't be set together", validationException);
+        }
+        if (reason == null) {
+            validationException = addValidationError("a reason is required", validationException);
+        }
+        return validationException;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        taskNode = in.readOptionalString();
+        taskId = in.readLong();
+        actions = in.readStringArray();
+        reason = in.readString();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeOptionalString(taskNode);
+        out.writeLong(taskId);
+        out.writeStringArray(actions);
+        out.writeString(reason);
+    }
+}
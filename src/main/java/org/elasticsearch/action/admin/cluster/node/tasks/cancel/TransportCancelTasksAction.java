@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.admin.cluster.node.tasks.cancel;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.NodeTasks;
+import org.elasticsearch.action.support.ActionFilters;
+import org.elasticsearch.action.support.nodes.NodeOperationRequest;
+import org.elasticsearch.action.support.nodes.TransportNodesOperationAction;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskInfo;
+import org.elasticsearch.tasks.TaskManager;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Cancels the matching tasks on every node. Cancelling a task also cancels the tasks it started on the other nodes, the
+ * request is sent to all the nodes for that reason.
+ */
+public class TransportCancelTasksAction extends TransportNodesOperationAction<CancelTasksRequest, CancelTasksResponse, TransportCancelTasksAction.NodeRequest, NodeTasks> {
+
+    @Inject
+    public TransportCancelTasksAction(Settings settings, ClusterName clusterName, ThreadPool threadPool,
+                                      ClusterService clusterService, TransportService transportService, ActionFilters actionFilters) {
+        super(settings, CancelTasksAction.NAME, clusterName, threadPool, clusterService, transportService, actionFilters);
+    }
+
+    @Override
+    protected String executor() {
+        return ThreadPool.Names.MANAGEMENT;
+    }
+
+    @Override
+    protected CancelTasksResponse newResponse(CancelTasksRequest request, AtomicReferenceArray responses) {
+        final List<NodeTasks> nodes = new ArrayList<>();
+        for (int i = 0; i < responses.length(); i++) {
+            Object resp = responses.get(i);
+            if (resp instanceof NodeTasks) {
+                nodes.add((NodeTasks) resp);
+            }
+        }
+        return new CancelTasksResponse(clusterName, nodes.toArray(new NodeTasks[nodes.size()]));
+    }
+
+    @Override
+    protected CancelTasksRequest newRequest() {
+        return new CancelTasksRequest();
+    }
+
+    @Override
+    protected NodeRequest newNodeRequest() {
+        return new NodeRequest();
+    }
+
+    @Override
+    protected NodeRequest newNodeRequest(String nodeId, CancelTasksRequest request) {
+        return new NodeRequest(nodeId, request);
+    }
+
+    @Override
+    protected NodeTasks newNodeResponse() {
+        return new NodeTasks();
+    }
+
+    @Override
+    protected NodeTasks nodeOperation(NodeRequest request) throws ElasticsearchException {
+        final DiscoveryNode localNode = clusterService.localNode();
+        final TaskManager taskManager = transportService.getTaskManager();
+        List<TaskInfo> cancelled = new ArrayList<>();
+        for (Task task : taskManager.getTasks().values()) {
+            if (task instanceof CancellableTask && request.request.match(localNode.id(), task)) {
+                if (taskManager.cancel((CancellableTask) task, request.request.reason())) {
+                    cancelled.add(task.taskInfo(localNode));
+                }
+                // the tasks started locally on behalf of a cancelled one are not needed anymore either
+                for (CancellableTask child : taskManager.cancelChildren(localNode.id(), task.getId(), request.request.reason())) {
+                    cancelled.add(child.taskInfo(localNode));
+                }
+            }
+        }
+        return new NodeTasks(localNode, cancelled);
+    }
+
+    @Override
+    protected boolean accumulateExceptions() {
+        return false;
+    }
+
+    static class NodeRequest extends NodeOperationRequest {
+
+        CancelTasksRequest request;
+
+        NodeRequest() {
+        }
+
+        NodeRequest(String nodeId, CancelTasksRequest request) {
+            super(request, nodeId);
+            this.request = request;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            request = new CancelTasksRequest();
+            request.readFrom(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            request.writeTo(out);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.admin.cluster.node.tasks.list;
+
+import org.elasticsearch.action.support.nodes.NodesOperationRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.tasks.Task;
+
+import java.io.IOException;
+
+/**
+ * A request to get the tasks executed on the nodes, optionally only the ones executing the given actions or the ones
+ * started by a given task.
+ */
+public class ListTasksRequest extends NodesOperationRequest<ListTasksRequest> {
+
+    private String[] actions = Strings.EMPTY_ARRAY;
+
+    private String parentNode;
+
+    private long parentTaskId = -1L;
+
+    /**
+     * Get the tasks of the nodes based on the nodes ids specified. If none are passed, the tasks of all the nodes are
+     * returned.
+     */
+    public ListTasksRequest(String... nodesIds) {
+        super(nodesIds);
+    }
+
+    /**
+     * Only returns the tasks executing the given actions, wildcards are supported.
+     */
+    public ListTasksRequest actions(String... actions) {
+        this.actions = actions;
+        return this;
+    }
+
+    public String[] actions() {
+        return actions;
+    }
+
+    /**
+     * Only returns the tasks started by the given task.
+     */
+    public ListTasksRequest parentTask(String parentNode, long parentTaskId) {
+        this.parentNode = parentNode;
+        this.parentTaskId = parentTaskId;
+        return this;
+    }
+
+    @Nullable
+    public String parentNode() {
+        return parentNode;
+    }
+
+    public long parentTaskId() {
+        return parentTaskId;
+    }
+
+    /**
+     * Returns whether the given task matches the request.
+     */
+    public boolean match(Task task) {
+        if (actions.length > 0 && Regex.simpleMatch(actions, task.getAction()) == false) {
+            return false;
+        }
+        if (parentNode != null && task.isChildOf(parentNode, parentTaskId) == false) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        actions = in.readStringArray();
+        parentNode = in.readOptionalString();
+        parentTaskId = in.readLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeStringArray(actions);
+        out.writeOptionalString(parentNode);
+        out.writeLong(parentTaskId);
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.admin.cluster.node.tasks.list;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.nodes.NodesOperationRequestBuilder;
+import org.elasticsearch.client.ClusterAdminClient;
+
+/**
+ * Builder for the request to retrieve the tasks executed on the nodes of the cluster.
+ */
+public class ListTasksRequestBuilder extends NodesOperationRequestBuilder<ListTasksRequest, ListTasksResponse, ListTasksRequestBuilder> {
+
+    public ListTasksRequestBuilder(ClusterAdminClient clusterClient) {
+        super(clusterClient, new ListTasksRequest());
+    }
+
+    /**
+     * Only returns the tasks executing the given actions, wildcards are supported.
+     */
+    public ListTasksRequestBuilder setActions(String... actions) {
+        request.actions(actions);
+        return this;
+    }
+
+    /**
+     * Only returns the tasks started by the given task.
+     */
+    public ListTasksRequestBuilder setParentTask(String parentNode, long parentTaskId) {
+        request.parentTask(parentNode, parentTaskId);
+        return this;
+    }
+
+    @Override
+    protected void doExecute(ActionListener<ListTasksResponse> listener) {
+        client.listTasks(request, listener);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.admin.cluster.node.tasks.list;
+
+import org.elasticsearch.action.support.nodes.NodesOperationResponse;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.tasks.TaskInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tasks executed on the nodes, grouped by node.
+ */
+public class ListTasksResponse extends NodesOperationResponse<NodeTasks> implements ToXContent {
+
+    protected ListTasksResponse() {
+    }
+
+    public ListTasksResponse(ClusterName clusterName, NodeTasks[] nodes) {
+        super(clusterName, nodes);
+    }
+
+    /**
+     * Returns the tasks of all the nodes.
+     */
+    public List<TaskInfo> getTasks() {
+        List<TaskInfo> tasks = new ArrayList<>();
+        for (NodeTasks node : nodes) {
+            tasks.addAll(node.getTasks());
+        }
+        return tasks;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        nodes = new NodeTasks[in.readVInt()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = NodeTasks.readNodeTasks(in);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(nodes.length);
+        for (NodeTasks node : nodes) {
+            node.writeTo(out);
+        }
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.NODES);
+        for (NodeTasks node : nodes) {
+            builder.startObject(node.getNode().id(), XContentBuilder.FieldCaseConversion.NONE);
+            builder.field(Fields.NAME, node.getNode().name(), XContentBuilder.FieldCaseConversion.NONE);
+            builder.field(Fields.TRANSPORT_ADDRESS, node.getNode().address().toString());
+            builder.startObject(Fields.TASKS);
+            for (TaskInfo task : node.getTasks()) {
+                task.toXContent(builder, params);
+            }
+            builder.endObject();
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString NODES = new XContentBuilderString("nodes");
+        static final XContentBuilderString NAME = new XContentBuilderString("name");
+        static final XContentBuilderString TRANSPORT_ADDRESS = new XContentBuilderString("transport_address");
+        static final XContentBuilderString TASKS = new XContentBuilderString("tasks");
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.admin.cluster.node.tasks.list;
+
+import org.elasticsearch.action.support.nodes.NodeOperationResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.tasks.TaskInfo;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The tasks of a node, as returned by the task management APIs.
+ */
+public class NodeTasks extends NodeOperationResponse {
+
+    private List<TaskInfo> tasks;
+
+    public NodeTasks() {
+    }
+
+    public NodeTasks(DiscoveryNode node, List<TaskInfo> tasks) {
+        super(node);
+        this.tasks = tasks;
+    }
+
+    public List<TaskInfo> getTasks() {
+        return tasks;
+    }
+
+    public static NodeTasks readNodeTasks(StreamInput in) throws IOException {
+        NodeTasks nodeTasks = new NodeTasks();
+        nodeTasks.readFrom(in);
+        return nodeTasks;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        int size = in.readVInt();
+        tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(TaskInfo.readTaskInfo(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        out.writeVInt(tasks.size());
+        for (TaskInfo task : tasks) {
+            task.writeTo(out);
+        }
+    }
+}
@@ -95,6 +95,7 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
             builder.field(Fields.EXECUTING, pendingClusterTask.isExecuting());
             builder.field(Fields.TIME_IN_QUEUE_MILLIS, pendingClusterTask.getTimeInQueueInMillis());
             builder.field(Fields.TIME_IN_QUEUE, pendingClusterTask.getTimeInQueue());
+            builder.field(Fields.BATCH_SIZE, pendingClusterTask.getBatchSize());
             builder.endObject();
         }
         builder.endArray();
@@ -110,6 +111,7 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
         static final XContentBuilderString SOURCE = new XContentBuilderString("source");
         static final XContentBuilderString TIME_IN_QUEUE_MILLIS = new XContentBuilderString("time_in_queue_millis");
         static final XContentBuilderString TIME_IN_QUEUE = new XContentBuilderString("time_in_queue");
+        static final XContentBuilderString BATCH_SIZE = new XContentBuilderString("batch_size");
 
     }
 
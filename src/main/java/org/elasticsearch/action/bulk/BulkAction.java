@@ -49,7 +49,9 @@ public class BulkAction extends ClientAction<BulkRequest, BulkResponse, BulkRequ
     public TransportRequestOptions transportOptions(Settings settings) {
         return TransportRequestOptions.options()
                 .withType(TransportRequestOptions.Type.BULK)
-                .withCompress(settings.getAsBoolean("action.bulk.compress", true)
-                );
+                // compressing copies the sources of the items, which zero copy avoids
+                .withCompress(settings.getAsBoolean("action.bulk.compress", false))
+                // the sources of the items are slices of the bulk request and don't change until the shard requests are sent
+                .withZeroCopy(true);
     }
 }
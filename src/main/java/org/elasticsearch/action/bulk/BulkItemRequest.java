@@ -25,6 +25,8 @@ import org.elasticsearch.action.IndicesRequest;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -40,6 +42,7 @@ public class BulkItemRequest implements Streamable {
     private ActionRequest request;
     private volatile BulkItemResponse primaryResponse;
     private volatile boolean ignoreOnReplica;
+    private BytesReference parsedDocument;
 
     BulkItemRequest() {
 
@@ -84,6 +87,18 @@ public class BulkItemRequest implements Streamable {
         return ignoreOnReplica;
     }
 
+    /**
+     * Sets the documents the primary indexed for this request, so replicas don't have to parse the source again.
+     */
+    void parsedDocument(@Nullable BytesReference parsedDocument) {
+        this.parsedDocument = parsedDocument;
+    }
+
+    @Nullable
+    BytesReference parsedDocument() {
+        return parsedDocument;
+    }
+
     public static BulkItemRequest readBulkItem(StreamInput in) throws IOException {
         BulkItemRequest item = new BulkItemRequest();
         item.readFrom(in);
@@ -106,6 +121,9 @@ public class BulkItemRequest implements Streamable {
             primaryResponse = BulkItemResponse.readBulkItem(in);
         }
         ignoreOnReplica = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+            parsedDocument = in.readBytesReference();
+        }
     }
 
     @Override
@@ -121,5 +139,11 @@ public class BulkItemRequest implements Streamable {
         request.writeTo(out);
         out.writeOptionalStreamable(primaryResponse);
         out.writeBoolean(ignoreOnReplica);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeBoolean(parsedDocument != null);
+            if (parsedDocument != null) {
+                out.writeBytesReference(parsedDocument);
+            }
+        }
     }
 }
@@ -37,6 +37,8 @@ import org.elasticsearch.common.xcontent.XContent;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.VersionType;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -471,6 +473,16 @@ public class BulkRequest extends ActionRequest<BulkRequest> implements Composite
         return validationException;
     }
 
+    @Override
+    public Task createTask(long id, String type, String action) {
+        return new CancellableTask(id, type, action, getDescription(), getParentTaskNode(), getParentTaskId());
+    }
+
+    @Override
+    public String getDescription() {
+        return "requests[" + requests.size() + "]";
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
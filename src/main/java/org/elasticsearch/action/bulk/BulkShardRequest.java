@@ -24,6 +24,8 @@ import org.elasticsearch.action.support.replication.ShardReplicationOperationReq
 import org.elasticsearch.action.support.single.instance.InstanceShardOperationRequest;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -110,6 +112,20 @@ public class BulkShardRequest extends ShardReplicationOperationRequest<BulkShard
         out.writeBoolean(refresh);
     }
 
+    @Override
+    public Task createTask(long id, String type, String action) {
+        if (action.endsWith("[r]")) {
+            // the replicas apply whatever the primary applied, only the primary stops early on cancellation
+            return super.createTask(id, type, action);
+        }
+        return new CancellableTask(id, type, action, getDescription(), getParentTaskNode(), getParentTaskId());
+    }
+
+    @Override
+    public String getDescription() {
+        return "shard[" + index + "][" + shardId + "], requests[" + items.length + "]";
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
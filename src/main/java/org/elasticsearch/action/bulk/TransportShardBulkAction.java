@@ -25,6 +25,7 @@ import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.ElasticsearchWrapperException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.DocumentRequest;
 import org.elasticsearch.action.RoutingMissingException;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
@@ -53,15 +54,22 @@ import org.elasticsearch.index.engine.DocumentAlreadyExistsException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.mapper.ParsedDocumentSerializer;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskManager;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.Set;
 
@@ -78,6 +86,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
     private final MappingUpdatedAction mappingUpdatedAction;
     private final UpdateHelper updateHelper;
     private final boolean allowIdGeneration;
+    private final boolean shipParsedDocuments;
 
     @Inject
     public TransportShardBulkAction(Settings settings, TransportService transportService, ClusterService clusterService,
@@ -87,6 +96,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         this.mappingUpdatedAction = mappingUpdatedAction;
         this.updateHelper = updateHelper;
         this.allowIdGeneration = settings.getAsBoolean("action.allow_id_generation", true);
+        this.shipParsedDocuments = settings.getAsBoolean("action.bulk.ship_parsed_documents", false);
     }
 
     @Override
@@ -136,11 +146,18 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         IndexShard indexShard = indexService.shardSafe(shardRequest.shardId.id());
         Engine.IndexingOperation[] ops = null;
         final Set<String> mappingTypesToUpdate = Sets.newHashSet();
+        Translog.Location location = null;
 
         long[] preVersions = new long[request.items().length];
         VersionType[] preVersionTypes = new VersionType[request.items().length];
+        final Task task = TaskManager.task(request);
         for (int requestIndex = 0; requestIndex < request.items().length; requestIndex++) {
             BulkItemRequest item = request.items()[requestIndex];
+            if (task instanceof CancellableTask && ((CancellableTask) task).isCancelled()) {
+                // the items executed so far still go to the replicas, the remaining ones fail
+                failCancelledItem(request, item, (CancellableTask) task);
+                continue;
+            }
             if (item.request() instanceof IndexRequest) {
                 IndexRequest indexRequest = (IndexRequest) item.request();
                 preVersions[requestIndex] = indexRequest.version();
@@ -148,9 +165,11 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 try {
                     try {
                         WriteResult result = shardIndexOperation(request, indexRequest, clusterState, indexShard, true);
+                        location = locationToSync(location, result.location);
                         // add the response
                         IndexResponse indexResponse = result.response();
                         setResponse(item, new BulkItemResponse(item.id(), indexRequest.opType().lowercase(), indexResponse));
+                        item.parsedDocument(result.parsedDocument);
                         if (result.mappingTypeToUpdate != null) {
                             mappingTypesToUpdate.add(result.mappingTypeToUpdate);
                         }
@@ -203,7 +222,9 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
 
                 try {
                     // add the response
-                    DeleteResponse deleteResponse = shardDeleteOperation(request, deleteRequest, indexShard).response();
+                    WriteResult result = shardDeleteOperation(request, deleteRequest, indexShard);
+                    location = locationToSync(location, result.location);
+                    DeleteResponse deleteResponse = result.response();
                     setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_DELETE, deleteResponse));
                 } catch (Throwable e) {
                     // rethrow the failure if we are going to retry on primary and let parent failure to handle it
@@ -242,6 +263,9 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                         updateResult = new UpdateResult(null, null, false, t, null);
                     }
                     if (updateResult.success()) {
+                        if (updateResult.writeResult != null) {
+                            location = locationToSync(location, updateResult.writeResult.location);
+                        }
 
                         switch (updateResult.result.operation()) {
                             case UPSERT:
@@ -258,6 +282,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                                 }
                                 item = request.items()[requestIndex] = new BulkItemRequest(request.items()[requestIndex].id(), indexRequest);
                                 setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_UPDATE, updateResponse));
+                                item.parsedDocument(result.parsedDocument);
                                 if (result.mappingTypeToUpdate != null) {
                                     mappingTypesToUpdate.add(result.mappingTypeToUpdate);
                                 }
@@ -353,6 +378,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             }
         }
 
+        indexShard.sync(location);
+
         if (request.refresh()) {
             try {
                 indexShard.refresh("refresh_flag_bulk", false);
@@ -369,6 +396,21 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         return new PrimaryResponse<>(shardRequest.request, response, ops);
     }
 
+    private void failCancelledItem(BulkShardRequest request, BulkItemRequest item, CancellableTask task) {
+        final String opType;
+        if (item.request() instanceof IndexRequest) {
+            opType = ((IndexRequest) item.request()).opType().lowercase();
+        } else if (item.request() instanceof DeleteRequest) {
+            opType = OP_TYPE_DELETE;
+        } else {
+            opType = OP_TYPE_UPDATE;
+        }
+        DocumentRequest<?> documentRequest = (DocumentRequest<?>) item.request();
+        TaskCancelledException e = new TaskCancelledException("task cancelled [" + task.getReasonCancelled() + "]");
+        setResponse(item, new BulkItemResponse(item.id(), opType,
+                new BulkItemResponse.Failure(request.index(), documentRequest.type(), documentRequest.id(), e)));
+    }
+
     private void setResponse(BulkItemRequest request, BulkItemResponse response) {
         request.setPrimaryResponse(response);
         if (response.isFailed()) {
@@ -381,11 +423,20 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         final Object response;
         final String mappingTypeToUpdate;
         final Engine.IndexingOperation op;
+        final Translog.Location location;
+        final BytesReference parsedDocument;
+
+        WriteResult(Object response, String mappingTypeToUpdate, Engine.IndexingOperation op, Translog.Location location) {
+            this(response, mappingTypeToUpdate, op, location, null);
+        }
 
-        WriteResult(Object response, String mappingTypeToUpdate, Engine.IndexingOperation op) {
+        WriteResult(Object response, String mappingTypeToUpdate, Engine.IndexingOperation op, Translog.Location location,
+                    @Nullable BytesReference parsedDocument) {
             this.response = response;
             this.mappingTypeToUpdate = mappingTypeToUpdate;
             this.op = op;
+            this.location = location;
+            this.parsedDocument = parsedDocument;
         }
 
         @SuppressWarnings("unchecked")
@@ -451,18 +502,28 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 op = create;
                 created = true;
             }
-            // update the version on request so it will happen on the replicas
+            // update the version and the sequence number on request so it will happen on the replicas
             indexRequest.versionType(indexRequest.versionType().versionTypeForReplicationAndRecovery());
             indexRequest.version(version);
+            indexRequest.seqNo(op.seqNo());
         } catch (Throwable t) {
             throw new WriteFailure(t, mappingTypeToUpdate);
         }
 
         assert indexRequest.versionType().validateVersionForWrites(indexRequest.version());
 
+        // serialize the indexed documents now, the mappers reuse some of their fields for the next document
+        BytesReference parsedDocument = null;
+        if (shipParsedDocuments) {
+            try {
+                parsedDocument = ParsedDocumentSerializer.serialize(op.parsedDoc(), indexRequest.source());
+            } catch (IOException e) {
+                logger.debug("[{}][{}] failed to serialize parsed document [{}][{}], replicas will parse its source", e, request.index(), request.shardId(), indexRequest.type(), indexRequest.id());
+            }
+        }
 
         IndexResponse indexResponse = new IndexResponse(request.index(), indexRequest.type(), indexRequest.id(), version, created);
-        return new WriteResult(indexResponse, mappingTypeToUpdate, op);
+        return new WriteResult(indexResponse, mappingTypeToUpdate, op, op.getTranslogLocation(), parsedDocument);
     }
 
     private WriteResult shardDeleteOperation(BulkShardRequest request, DeleteRequest deleteRequest, IndexShard indexShard) {
@@ -471,11 +532,12 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         // update the request with the version so it will go to the replicas
         deleteRequest.versionType(delete.versionType().versionTypeForReplicationAndRecovery());
         deleteRequest.version(delete.version());
+        deleteRequest.seqNo(delete.seqNo());
 
         assert deleteRequest.versionType().validateVersionForWrites(deleteRequest.version());
 
         DeleteResponse deleteResponse = new DeleteResponse(request.index(), deleteRequest.type(), deleteRequest.id(), delete.version(), delete.found());
-        return new WriteResult(deleteResponse, null, null);
+        return new WriteResult(deleteResponse, null, null, delete.getTranslogLocation());
     }
 
     static class UpdateResult {
@@ -574,6 +636,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
     protected void shardOperationOnReplica(ReplicaOperationRequest shardRequest) {
         IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.shardId.getIndex()).shardSafe(shardRequest.shardId.id());
         final BulkShardRequest request = shardRequest.request;
+        Translog.Location location = null;
         for (int i = 0; i < request.items().length; i++) {
             BulkItemRequest item = request.items()[i];
             if (item == null || item.isIgnoreOnReplica()) {
@@ -586,13 +649,17 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                             .routing(indexRequest.routing()).parent(indexRequest.parent()).timestamp(indexRequest.timestamp()).ttl(indexRequest.ttl());
 
                     if (indexRequest.opType() == IndexRequest.OpType.INDEX) {
-                        Engine.Index index = indexShard.prepareIndex(sourceToParse, indexRequest.version(), indexRequest.versionType(), Engine.Operation.Origin.REPLICA, request.canHaveDuplicates() || indexRequest.canHaveDuplicates());
+                        Engine.Index index = indexShard.prepareIndex(sourceToParse, item.parsedDocument(), indexRequest.version(), indexRequest.versionType(), Engine.Operation.Origin.REPLICA, request.canHaveDuplicates() || indexRequest.canHaveDuplicates());
+                        index.updateSeqNo(indexRequest.seqNo());
                         indexShard.index(index);
+                        location = locationToSync(location, index.getTranslogLocation());
                     } else {
-                        Engine.Create create = indexShard.prepareCreate(sourceToParse,
+                        Engine.Create create = indexShard.prepareCreate(sourceToParse, item.parsedDocument(),
                                 indexRequest.version(), indexRequest.versionType(),
                                 Engine.Operation.Origin.REPLICA, request.canHaveDuplicates() || indexRequest.canHaveDuplicates(), indexRequest.autoGeneratedId());
+                        create.updateSeqNo(indexRequest.seqNo());
                         indexShard.create(create);
+                        location = locationToSync(location, create.getTranslogLocation());
                     }
                 } catch (Throwable e) {
                     // if its not an ignore replica failure, we need to make sure to bubble up the failure
@@ -605,7 +672,9 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 DeleteRequest deleteRequest = (DeleteRequest) item.request();
                 try {
                     Engine.Delete delete = indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version(), deleteRequest.versionType(), Engine.Operation.Origin.REPLICA);
+                    delete.updateSeqNo(deleteRequest.seqNo());
                     indexShard.delete(delete);
+                    location = locationToSync(location, delete.getTranslogLocation());
                 } catch (Throwable e) {
                     // if its not an ignore replica failure, we need to make sure to bubble up the failure
                     // so we will fail the shard
@@ -616,6 +685,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             }
         }
 
+        indexShard.sync(location);
+
         if (request.refresh()) {
             try {
                 indexShard.refresh("refresh_flag_bulk", false);
@@ -625,6 +696,14 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         }
     }
 
+    /**
+     * Operations of a bulk are written to the translog one after the other, so syncing up to the last
+     * location also covers all the previous ones.
+     */
+    private static Translog.Location locationToSync(Translog.Location current, Translog.Location next) {
+        return next != null ? next : current;
+    }
+
     private void applyVersion(BulkItemRequest item, long version, VersionType versionType) {
         if (item.request() instanceof IndexRequest) {
             ((IndexRequest) item.request()).version(version).versionType(versionType);
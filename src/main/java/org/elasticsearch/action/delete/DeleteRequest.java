@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.delete;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.DocumentRequest;
@@ -28,6 +29,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 
 import java.io.IOException;
 
@@ -53,6 +55,7 @@ public class DeleteRequest extends ShardReplicationOperationRequest<DeleteReques
     private boolean refresh;
     private long version = Versions.MATCH_ANY;
     private VersionType versionType = VersionType.INTERNAL;
+    private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
 
     public DeleteRequest() {
     }
@@ -97,6 +100,7 @@ public class DeleteRequest extends ShardReplicationOperationRequest<DeleteReques
         this.refresh = request.refresh();
         this.version = request.version();
         this.versionType = request.versionType();
+        this.seqNo = request.seqNo();
     }
 
     /**
@@ -220,6 +224,21 @@ public class DeleteRequest extends ShardReplicationOperationRequest<DeleteReques
         return this.versionType;
     }
 
+    /**
+     * Sets the sequence number the primary assigned to the operation, used when the request is executed on replicas.
+     */
+    public void seqNo(long seqNo) {
+        this.seqNo = seqNo;
+    }
+
+    /**
+     * Returns the sequence number the primary assigned to the operation, {@link SequenceNumbers#UNASSIGNED_SEQ_NO}
+     * if the request was not executed on the primary yet.
+     */
+    public long seqNo() {
+        return this.seqNo;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -229,6 +248,9 @@ public class DeleteRequest extends ShardReplicationOperationRequest<DeleteReques
         refresh = in.readBoolean();
         version = in.readLong();
         versionType = VersionType.fromValue(in.readByte());
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            seqNo = in.readLong();
+        }
     }
 
     @Override
@@ -240,6 +262,9 @@ public class DeleteRequest extends ShardReplicationOperationRequest<DeleteReques
         out.writeBoolean(refresh);
         out.writeLong(version);
         out.writeByte(versionType.getValue());
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeLong(seqNo);
+        }
     }
 
     @Override
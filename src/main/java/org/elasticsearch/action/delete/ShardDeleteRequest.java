@@ -25,6 +25,7 @@ import org.elasticsearch.action.support.replication.ShardReplicationOperationReq
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 
 import java.io.IOException;
 
@@ -40,6 +41,7 @@ public class ShardDeleteRequest extends ShardReplicationOperationRequest<ShardDe
     private String id;
     private boolean refresh = false;
     private long version;
+    private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
     private String originalIndex;
 
     ShardDeleteRequest(IndexDeleteRequest request, int shardId) {
@@ -95,6 +97,21 @@ public class ShardDeleteRequest extends ShardReplicationOperationRequest<ShardDe
         return this.version;
     }
 
+    /**
+     * Sets the sequence number the primary assigned to the operation, used when the request is executed on replicas.
+     */
+    public void seqNo(long seqNo) {
+        this.seqNo = seqNo;
+    }
+
+    /**
+     * Returns the sequence number the primary assigned to the operation, {@link SequenceNumbers#UNASSIGNED_SEQ_NO}
+     * if the request was not executed on the primary yet.
+     */
+    public long seqNo() {
+        return this.seqNo;
+    }
+
     @Override
     public String[] indices() {
         return new String[]{originalIndex};
@@ -109,6 +126,9 @@ public class ShardDeleteRequest extends ShardReplicationOperationRequest<ShardDe
         refresh = in.readBoolean();
         version = in.readLong();
         originalIndex = in.readOptionalString();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            seqNo = in.readLong();
+        }
     }
 
     @Override
@@ -120,5 +140,8 @@ public class ShardDeleteRequest extends ShardReplicationOperationRequest<ShardDe
         out.writeBoolean(refresh);
         out.writeLong(version);
         out.writeOptionalString(originalIndex);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeLong(seqNo);
+        }
     }
 }
@@ -171,9 +171,11 @@ public class TransportDeleteAction extends TransportShardReplicationOperationAct
         IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.shardId.getIndex()).shardSafe(shardRequest.shardId.id());
         Engine.Delete delete = indexShard.prepareDelete(request.type(), request.id(), request.version(), request.versionType(), Engine.Operation.Origin.PRIMARY);
         indexShard.delete(delete);
+        indexShard.sync(delete.getTranslogLocation());
         // update the request with teh version so it will go to the replicas
         request.versionType(delete.versionType().versionTypeForReplicationAndRecovery());
         request.version(delete.version());
+        request.seqNo(delete.seqNo());
 
         assert request.versionType().validateVersionForWrites(request.version());
 
@@ -194,8 +196,10 @@ public class TransportDeleteAction extends TransportShardReplicationOperationAct
         DeleteRequest request = shardRequest.request;
         IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.shardId.getIndex()).shardSafe(shardRequest.shardId.id());
         Engine.Delete delete = indexShard.prepareDelete(request.type(), request.id(), request.version(), request.versionType(), Engine.Operation.Origin.REPLICA);
+        delete.updateSeqNo(request.seqNo());
 
         indexShard.delete(delete);
+        indexShard.sync(delete.getTranslogLocation());
 
         if (request.refresh()) {
             try {
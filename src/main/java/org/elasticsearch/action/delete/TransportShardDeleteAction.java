@@ -86,8 +86,10 @@ public class TransportShardDeleteAction extends TransportShardReplicationOperati
         IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.shardId.getIndex()).shardSafe(shardRequest.shardId.id());
         Engine.Delete delete = indexShard.prepareDelete(request.type(), request.id(), request.version(), VersionType.INTERNAL, Engine.Operation.Origin.PRIMARY);
         indexShard.delete(delete);
+        indexShard.sync(delete.getTranslogLocation());
         // update the version to happen on the replicas
         request.version(delete.version());
+        request.seqNo(delete.seqNo());
 
         if (request.refresh()) {
             try {
@@ -110,10 +112,12 @@ public class TransportShardDeleteAction extends TransportShardReplicationOperati
 
         // IndexDeleteAction doesn't support version type at the moment. Hard coded for the INTERNAL version
         delete = new Engine.Delete(delete, VersionType.INTERNAL.versionTypeForReplicationAndRecovery());
+        delete.updateSeqNo(request.seqNo());
 
         assert delete.versionType().validateVersionForWrites(delete.version());
 
         indexShard.delete(delete);
+        indexShard.sync(delete.getTranslogLocation());
 
         if (request.refresh()) {
             try {
@@ -39,6 +39,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.xcontent.*;
 import org.elasticsearch.index.VersionType;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.internal.TimestampFieldMapper;
 
@@ -147,6 +148,7 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
     private boolean refresh = false;
     private long version = Versions.MATCH_ANY;
     private VersionType versionType = VersionType.INTERNAL;
+    private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
 
     private XContentType contentType = Requests.INDEX_CONTENT_TYPE;
 
@@ -180,6 +182,7 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         this.refresh = indexRequest.refresh;
         this.version = indexRequest.version;
         this.versionType = indexRequest.versionType;
+        this.seqNo = indexRequest.seqNo;
         this.contentType = indexRequest.contentType;
     }
 
@@ -581,6 +584,21 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         return this.versionType;
     }
 
+    /**
+     * Sets the sequence number the primary assigned to the operation, used when the request is executed on replicas.
+     */
+    public void seqNo(long seqNo) {
+        this.seqNo = seqNo;
+    }
+
+    /**
+     * Returns the sequence number the primary assigned to the operation, {@link SequenceNumbers#UNASSIGNED_SEQ_NO}
+     * if the request was not executed on the primary yet.
+     */
+    public long seqNo() {
+        return this.seqNo;
+    }
+
     /**
      * Has the id been auto generated?
      */
@@ -689,6 +707,9 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         version = in.readLong();
         versionType = VersionType.fromValue(in.readByte());
         autoGeneratedId = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            seqNo = in.readLong();
+        }
     }
 
     @Override
@@ -706,6 +727,9 @@ public class IndexRequest extends ShardReplicationOperationRequest<IndexRequest>
         out.writeLong(version);
         out.writeByte(versionType.getValue());
         out.writeBoolean(autoGeneratedId);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeLong(seqNo);
+        }
     }
 
     @Override
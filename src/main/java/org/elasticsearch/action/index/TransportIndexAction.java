@@ -205,6 +205,7 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
             op = create;
             created = true;
         }
+        indexShard.sync(op.getTranslogLocation());
         if (request.refresh()) {
             try {
                 indexShard.refresh("refresh_flag_index", false);
@@ -213,9 +214,10 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
             }
         }
 
-        // update the version on the request, so it will be used for the replicas
+        // update the version and the sequence number on the request, so it will be used for the replicas
         request.version(version);
         request.versionType(request.versionType().versionTypeForReplicationAndRecovery());
+        request.seqNo(op.seqNo());
 
         assert request.versionType().validateVersionForWrites(request.version());
 
@@ -229,14 +231,20 @@ public class TransportIndexAction extends TransportShardReplicationOperationActi
         IndexRequest request = shardRequest.request;
         SourceToParse sourceToParse = SourceToParse.source(SourceToParse.Origin.REPLICA, request.source()).type(request.type()).id(request.id())
                 .routing(request.routing()).parent(request.parent()).timestamp(request.timestamp()).ttl(request.ttl());
+        final Engine.IndexingOperation op;
         if (request.opType() == IndexRequest.OpType.INDEX) {
             Engine.Index index = indexShard.prepareIndex(sourceToParse, request.version(), request.versionType(), Engine.Operation.Origin.REPLICA, request.canHaveDuplicates());
+            index.updateSeqNo(request.seqNo());
             indexShard.index(index);
+            op = index;
         } else {
             Engine.Create create = indexShard.prepareCreate(sourceToParse,
                     request.version(), request.versionType(), Engine.Operation.Origin.REPLICA, request.canHaveDuplicates(), request.autoGeneratedId());
+            create.updateSeqNo(request.seqNo());
             indexShard.create(create);
+            op = create;
         }
+        indexShard.sync(op.getTranslogLocation());
         if (request.refresh()) {
             try {
                 indexShard.refresh("refresh_flag_index", false);
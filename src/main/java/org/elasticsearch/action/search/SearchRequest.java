@@ -21,6 +21,7 @@ package org.elasticsearch.action.search;
 
 import org.elasticsearch.ElasticsearchGenerationException;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.IndicesRequest;
@@ -38,11 +39,15 @@ import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 
+import static org.elasticsearch.action.ValidateActions.addValidationError;
 import static org.elasticsearch.search.Scroll.readScroll;
 
 /**
@@ -60,6 +65,10 @@ import static org.elasticsearch.search.Scroll.readScroll;
  */
 public class SearchRequest extends ActionRequest<SearchRequest> implements IndicesRequest.Replaceable {
 
+    public static final int DEFAULT_BATCHED_REDUCE_SIZE = 512;
+
+    public static final int DEFAULT_PRE_FILTER_SHARD_SIZE = 128;
+
     private SearchType searchType = SearchType.DEFAULT;
 
     private String[] indices;
@@ -82,6 +91,10 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
     private boolean extraSourceUnsafe;
     private Boolean queryCache;
 
+    private int batchedReduceSize = DEFAULT_BATCHED_REDUCE_SIZE;
+
+    private int preFilterShardSize = DEFAULT_PRE_FILTER_SHARD_SIZE;
+
     private Scroll scroll;
 
     private String[] types = Strings.EMPTY_ARRAY;
@@ -113,6 +126,8 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         this.extraSource = searchRequest.extraSource;
         this.extraSourceUnsafe = searchRequest.extraSourceUnsafe;
         this.queryCache = searchRequest.queryCache;
+        this.batchedReduceSize = searchRequest.batchedReduceSize;
+        this.preFilterShardSize = searchRequest.preFilterShardSize;
         this.scroll = searchRequest.scroll;
         this.types = searchRequest.types;
         this.indicesOptions = searchRequest.indicesOptions;
@@ -149,6 +164,12 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
 //        if (source == null && extraSource == null) {
 //            validationException = addValidationError("search source is missing", validationException);
 //        }
+        if (batchedReduceSize < 2) {
+            validationException = addValidationError("batchedReduceSize must be >= 2", validationException);
+        }
+        if (preFilterShardSize < 1) {
+            validationException = addValidationError("preFilterShardSize must be >= 1", validationException);
+        }
         return validationException;
     }
 
@@ -541,6 +562,51 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         return this.queryCache;
     }
 
+    /**
+     * Sets the number of shard results that should be reduced at once on the coordinating node. This value should be
+     * used as a protection mechanism to reduce the memory overhead per search request if the potential number of shards
+     * in the request can be large. Defaults to <tt>512</tt>.
+     */
+    public SearchRequest batchedReduceSize(int batchedReduceSize) {
+        this.batchedReduceSize = batchedReduceSize;
+        return this;
+    }
+
+    /**
+     * Returns the number of shard results that should be reduced at once on the coordinating node.
+     */
+    public int batchedReduceSize() {
+        return this.batchedReduceSize;
+    }
+
+    /**
+     * Sets the number of shards above which the shards are first asked whether they can have matching documents, the
+     * ones that can't are not searched. This round trip can limit the number of searched shards significantly, for
+     * instance when a range filter on a date field is mandatory and most shards have no value in the range.
+     * Defaults to <tt>128</tt>.
+     */
+    public SearchRequest preFilterShardSize(int preFilterShardSize) {
+        this.preFilterShardSize = preFilterShardSize;
+        return this;
+    }
+
+    /**
+     * Returns the number of shards above which the shards are pre-filtered before being searched.
+     */
+    public int preFilterShardSize() {
+        return this.preFilterShardSize;
+    }
+
+    @Override
+    public Task createTask(long id, String type, String action) {
+        return new CancellableTask(id, type, action, getDescription(), getParentTaskNode(), getParentTaskId());
+    }
+
+    @Override
+    public String getDescription() {
+        return "indices" + Arrays.toString(indices) + ", types" + Arrays.toString(types) + ", search_type[" + searchType + "]";
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -575,6 +641,10 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
             templateParams = (Map<String, Object>) in.readGenericValue();
         }
         queryCache = in.readOptionalBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            batchedReduceSize = in.readVInt();
+            preFilterShardSize = in.readVInt();
+        }
     }
 
     @Override
@@ -611,5 +681,9 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         }
 
         out.writeOptionalBoolean(queryCache);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVInt(batchedReduceSize);
+            out.writeVInt(preFilterShardSize);
+        }
     }
 }
@@ -37,6 +37,7 @@ import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.innerhits.InnerHitsBuilder;
 import org.elasticsearch.search.highlight.HighlightBuilder;
 import org.elasticsearch.search.rescore.RescoreBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.search.suggest.SuggestBuilder;
@@ -138,6 +139,32 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * The maximum number of slices of the segments of a shard that are searched concurrently, defaults
+     * to <tt>1</tt>, which searches the segments sequentially.
+     */
+    public SearchRequestBuilder setMaxConcurrentSlices(int maxConcurrentSlices) {
+        sourceBuilder().maxConcurrentSlices(maxConcurrentSlices);
+        return this;
+    }
+
+    /**
+     * Whether the total hits must count all the matching documents, defaults to <tt>true</tt>. When <tt>false</tt>, a
+     * search sorted on a prefix of the index sort may terminate early and the total hits are then a lower bound.
+     */
+    public SearchRequestBuilder setTrackTotalHits(boolean trackTotalHits) {
+        sourceBuilder().trackTotalHits(trackTotalHits);
+        return this;
+    }
+
+    /**
+     * Reads only the given slice of the documents of the scroll, see {@link SliceBuilder}.
+     */
+    public SearchRequestBuilder slice(SliceBuilder sliceBuilder) {
+        sourceBuilder().slice(sliceBuilder);
+        return this;
+    }
+
     /**
      * A comma separated list of routing values to control the shards the search will be executed on.
      */
@@ -328,6 +355,15 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Should the query phase be profiled, returning per shard the time spent in the
+     * queries, collectors and aggregators it executed.
+     */
+    public SearchRequestBuilder setProfile(boolean profile) {
+        sourceBuilder().profile(profile);
+        return this;
+    }
+
     /**
      * Should each {@link org.elasticsearch.search.SearchHit} be returned with its
      * version.
@@ -989,6 +1025,25 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Sets the number of shard results that should be reduced at once on the coordinating node. This value should be
+     * used as a protection mechanism to reduce the memory overhead per search request if the potential number of shards
+     * in the request can be large.
+     */
+    public SearchRequestBuilder setBatchedReduceSize(int batchedReduceSize) {
+        request.batchedReduceSize(batchedReduceSize);
+        return this;
+    }
+
+    /**
+     * Sets the number of shards above which the shards are first asked whether they can have matching documents, the
+     * ones that can't are not searched.
+     */
+    public SearchRequestBuilder setPreFilterShardSize(int preFilterShardSize) {
+        request.preFilterShardSize(preFilterShardSize);
+        return this;
+    }
+
     /**
      * Sets the source builder to be used with this request. Note, any operations done
      * on this require builder before are discarded as this internal builder replaces
@@ -31,9 +31,11 @@ import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
+import java.util.Map;
 
 import static org.elasticsearch.action.search.ShardSearchFailure.readShardSearchFailure;
 import static org.elasticsearch.search.internal.InternalSearchResponse.readInternalSearchResponse;
@@ -104,6 +106,13 @@ public class SearchResponse extends ActionResponse implements StatusToXContent {
         return internalResponse.suggest();
     }
 
+    /**
+     * The profiled timings of the query phase keyed by shard, <tt>null</tt> if the request was not profiled.
+     */
+    public Map<String, ProfileShardResult> getProfileResults() {
+        return internalResponse.profileResults();
+    }
+
     /**
      * Has the search operation timed out.
      */
@@ -119,6 +128,13 @@ public class SearchResponse extends ActionResponse implements StatusToXContent {
         return internalResponse.terminatedEarly();
     }
 
+    /**
+     * The number of times the aggregations were reduced, more than one if the shard results were reduced in batches.
+     */
+    public int getNumReducePhases() {
+        return internalResponse.numReducePhases();
+    }
+
     /**
      * How long the search took.
      */
@@ -189,6 +205,7 @@ public class SearchResponse extends ActionResponse implements StatusToXContent {
         static final XContentBuilderString TOOK = new XContentBuilderString("took");
         static final XContentBuilderString TIMED_OUT = new XContentBuilderString("timed_out");
         static final XContentBuilderString TERMINATED_EARLY = new XContentBuilderString("terminated_early");
+        static final XContentBuilderString NUM_REDUCE_PHASES = new XContentBuilderString("num_reduce_phases");
     }
 
     @Override
@@ -201,6 +218,9 @@ public class SearchResponse extends ActionResponse implements StatusToXContent {
         if (isTerminatedEarly() != null) {
             builder.field(Fields.TERMINATED_EARLY, isTerminatedEarly());
         }
+        if (getNumReducePhases() != 1) {
+            builder.field(Fields.NUM_REDUCE_PHASES, getNumReducePhases());
+        }
         builder.startObject(Fields._SHARDS);
         builder.field(Fields.TOTAL, getTotalShards());
         builder.field(Fields.SUCCESSFUL, getSuccessfulShards());
@@ -25,6 +25,8 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.search.Scroll;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
 
 import java.io.IOException;
 
@@ -96,6 +98,16 @@ public class SearchScrollRequest extends ActionRequest<SearchScrollRequest> {
         return scroll(new Scroll(TimeValue.parseTimeValue(keepAlive, null)));
     }
 
+    @Override
+    public Task createTask(long id, String type, String action) {
+        return new CancellableTask(id, type, action, getDescription(), getParentTaskNode(), getParentTaskId());
+    }
+
+    @Override
+    public String getDescription() {
+        return "scroll[" + (scroll == null || scroll.keepAlive() == null ? "" : scroll.keepAlive()) + "]";
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
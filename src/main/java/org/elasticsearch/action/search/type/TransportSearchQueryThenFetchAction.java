@@ -35,6 +35,7 @@ import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.QueryPhaseResultConsumer;
 import org.elasticsearch.search.controller.SearchPhaseController;
 import org.elasticsearch.search.fetch.ShardFetchSearchRequest;
 import org.elasticsearch.search.fetch.FetchSearchResult;
@@ -66,11 +67,13 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
 
         final AtomicArray<FetchSearchResult> fetchResults;
         final AtomicArray<IntArrayList> docIdsToLoad;
+        final QueryPhaseResultConsumer queryResultConsumer;
 
         private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             super(request, listener);
             fetchResults = new AtomicArray<>(firstResults.length());
             docIdsToLoad = new AtomicArray<>(firstResults.length());
+            queryResultConsumer = searchPhaseController.newQueryPhaseResultConsumer(request);
         }
 
         @Override
@@ -83,10 +86,15 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
             searchService.sendExecuteQuery(node, request, listener);
         }
 
+        @Override
+        protected void consumeFirstPhaseResult(int shardIndex, QuerySearchResultProvider result) {
+            queryResultConsumer.consumeResult(shardIndex, result);
+        }
+
         @Override
         protected void moveToSecondPhase() throws Exception {
             boolean useScroll = request.scroll() != null;
-            sortedShardList = searchPhaseController.sortDocs(useScroll, firstResults);
+            sortedShardList = queryResultConsumer.sortDocs(useScroll, firstResults);
             searchPhaseController.fillDocIdsToLoad(docIdsToLoad, sortedShardList);
 
             if (docIdsToLoad.asList().isEmpty()) {
@@ -141,7 +149,7 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
             threadPool.executor(ThreadPool.Names.SEARCH).execute(new ActionRunnable<SearchResponse>(listener) {
                 @Override
                 public void doRun() throws IOException {
-                    final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, firstResults, fetchResults);
+                    final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, firstResults, fetchResults, queryResultConsumer);
                     String scrollId = null;
                     if (request.scroll() != null) {
                         scrollId = TransportSearchHelper.buildScrollId(request.searchType(), firstResults, null);
@@ -49,6 +49,8 @@ import org.elasticsearch.search.internal.InternalSearchResponse;
 import org.elasticsearch.search.internal.ShardSearchTransportRequest;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.query.QuerySearchResultProvider;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskManager;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.List;
@@ -131,9 +133,74 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
                 return;
             }
             request.beforeStart();
+            if (shardsIts.size() > request.preFilterShardSize()) {
+                performCanMatchPhase();
+            } else {
+                performFirstPhase(null);
+            }
+        }
+
+        /**
+         * Asks the first copy of every shard whether it can have documents matching the request, the shards that can't are
+         * skipped by the first phase. A shard that fails to answer is searched, the first phase reports its failure if any.
+         */
+        void performCanMatchPhase() {
+            final AtomicArray<Boolean> skippedShards = new AtomicArray<>(shardsIts.size());
+            final AtomicInteger counter = new AtomicInteger(shardsIts.size());
             int shardIndex = -1;
             for (final ShardIterator shardIt : shardsIts) {
                 shardIndex++;
+                final int index = shardIndex;
+                final ShardRouting shard = shardIt.nextOrNull();
+                // the first phase iterates over the shard copies from the start
+                shardIt.reset();
+                final DiscoveryNode node = shard == null ? null : nodes.get(shard.currentNodeId());
+                if (node == null) {
+                    onCanMatchResult(index, true, skippedShards, counter);
+                    continue;
+                }
+                String[] filteringAliases = clusterState.metaData().filteringAliases(shard.index(), request.indices());
+                try {
+                    searchService.sendCanMatch(node, internalSearchRequest(shard, shardsIts.size(), request, filteringAliases, startTime()), new SearchServiceListener<Boolean>() {
+                        @Override
+                        public void onResult(Boolean canMatch) {
+                            onCanMatchResult(index, canMatch, skippedShards, counter);
+                        }
+
+                        @Override
+                        public void onFailure(Throwable t) {
+                            logger.trace("{}: failed to check whether [{}] can match", t, shard, request);
+                            onCanMatchResult(index, true, skippedShards, counter);
+                        }
+                    });
+                } catch (Throwable t) {
+                    logger.trace("{}: failed to check whether [{}] can match", t, shard, request);
+                    onCanMatchResult(index, true, skippedShards, counter);
+                }
+            }
+        }
+
+        void onCanMatchResult(int shardIndex, boolean canMatch, AtomicArray<Boolean> skippedShards, AtomicInteger counter) {
+            if (canMatch == false) {
+                skippedShards.set(shardIndex, Boolean.TRUE);
+            }
+            if (counter.decrementAndGet() == 0) {
+                if (skippedShards.asList().size() == shardsIts.size()) {
+                    // search one of the shards anyway, so that the response has the aggregations and everything else requested
+                    skippedShards.set(0, null);
+                }
+                performFirstPhase(skippedShards);
+            }
+        }
+
+        void performFirstPhase(@Nullable AtomicArray<Boolean> skippedShards) {
+            int shardIndex = -1;
+            for (final ShardIterator shardIt : shardsIts) {
+                shardIndex++;
+                if (skippedShards != null && skippedShards.get(shardIndex) != null) {
+                    onShardSkipped(shardIt);
+                    continue;
+                }
                 final ShardRouting shard = shardIt.nextOrNull();
                 if (shard != null) {
                     performFirstPhase(shardIndex, shardIt, shard);
@@ -153,6 +220,13 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
                 if (node == null) {
                     onFirstPhaseResult(shardIndex, shard, null, shardIt, new NoShardAvailableActionException(shardIt.shardId()));
                 } else {
+                    // the search was cancelled, don't send any more shard requests
+                    try {
+                        TaskManager.ensureNotCancelled(request);
+                    } catch (TaskCancelledException e) {
+                        onFirstPhaseResult(shardIndex, shard, node.id(), shardIt, e);
+                        return;
+                    }
                     String[] filteringAliases = clusterState.metaData().filteringAliases(shard.index(), request.indices());
                     sendExecuteFirstPhase(node, internalSearchRequest(shard, shardsIts.size(), request, filteringAliases, startTime()), new SearchServiceListener<FirstResult>() {
                         @Override
@@ -179,6 +253,19 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
             // increment all the "future" shards to update the total ops since we some may work and some may not...
             // and when that happens, we break on total ops, so we must maintain them
             final int xTotalOps = totalOps.addAndGet(shardIt.remaining() + 1);
+            onSuccessfulOps(xTotalOps, shardIt);
+        }
+
+        /**
+         * A shard that can't match the request is not searched, it counts as a successful shard without any result.
+         */
+        void onShardSkipped(ShardIterator shardIt) {
+            successfulOps.incrementAndGet();
+            final int xTotalOps = totalOps.addAndGet(shardIt.remaining());
+            onSuccessfulOps(xTotalOps, shardIt);
+        }
+
+        private void onSuccessfulOps(int xTotalOps, ShardIterator shardIt) {
             if (xTotalOps == expectedTotalOps) {
                 try {
                     innerMoveToSecondPhase();
@@ -347,6 +434,7 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
 
         protected final void processFirstPhaseResult(int shardIndex, ShardRouting shard, FirstResult result) {
             firstResults.set(shardIndex, result);
+            consumeFirstPhaseResult(shardIndex, result);
 
             if (logger.isTraceEnabled()) {
                 logger.trace("got first-phase result from {}", result != null ? result.shardTarget() : null);
@@ -383,6 +471,12 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
             moveToSecondPhase();
         }
 
+        /**
+         * Called once the first phase result of the shard at the given index is available, before moving to the second phase.
+         */
+        protected void consumeFirstPhaseResult(int shardIndex, FirstResult result) {
+        }
+
         protected abstract void moveToSecondPhase() throws Exception;
 
         protected abstract String firstPhaseName();
@@ -0,0 +1,151 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cache.recycler;
+
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.logging.Loggers;
+import org.elasticsearch.common.recycler.AbstractRecyclerC;
+import org.elasticsearch.common.recycler.Recycler;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.elasticsearch.common.recycler.Recyclers.concurrentDeque;
+
+/**
+ * A recycler of fixed-size pages of direct memory. Unlike {@link PageCacheRecycler}, which needs to keep a pool per data
+ * type, a page of direct memory can be read as bytes, ints, longs or doubles, so all arrays share a single pool.
+ * <p/>
+ * Pages that are released while the pool is full are dropped and their memory is freed right away through the buffer's
+ * cleaner, rather than once they are garbage collected: the JVM only reclaims direct memory on a full collection, which
+ * {@code -XX:+DisableExplicitGC} keeps the allocation of new direct buffers from triggering. Only if the cleaner is not
+ * accessible on this JVM are dropped pages left to the garbage collector. The pool should be large enough to hold the
+ * pages that are commonly in use, so that they are reused instead of being allocated again.
+ */
+public class DirectPageCacheRecycler extends AbstractComponent {
+
+    public static final String LIMIT = "direct_page.limit";
+
+    private static final int PAGE_SIZE = BigArrays.PAGE_SIZE_IN_BYTES;
+
+    private static final Method CLEANER_METHOD;
+    private static final Method CLEAN_METHOD;
+
+    /** Whether pages that are dropped from the pool can be freed explicitly on this JVM. */
+    public static final boolean FREE_SUPPORTED;
+
+    static {
+        Method cleanerMethod = null;
+        Method cleanMethod = null;
+        try {
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(1);
+            cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            final Object cleaner = cleanerMethod.invoke(buffer);
+            cleanMethod = cleaner.getClass().getMethod("clean");
+            cleanMethod.setAccessible(true);
+            cleanMethod.invoke(cleaner);
+        } catch (Throwable t) {
+            Loggers.getLogger(DirectPageCacheRecycler.class).debug("direct buffers can't be freed explicitly, dropped pages are left to the garbage collector", t);
+            cleanerMethod = null;
+            cleanMethod = null;
+        }
+        CLEANER_METHOD = cleanerMethod;
+        CLEAN_METHOD = cleanMethod;
+        FREE_SUPPORTED = cleanMethod != null;
+    }
+
+    private final Recycler<ByteBuffer> pages;
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    @Inject
+    public DirectPageCacheRecycler(Settings settings) {
+        super(settings);
+        final long limit = componentSettings.getAsMemory(LIMIT, "10%").bytes();
+        pages = concurrentDeque(new AbstractRecyclerC<ByteBuffer>() {
+            @Override
+            public ByteBuffer newInstance(int sizing) {
+                allocatedBytes.addAndGet(PAGE_SIZE);
+                return ByteBuffer.allocateDirect(PAGE_SIZE).order(ByteOrder.nativeOrder());
+            }
+
+            @Override
+            public void recycle(ByteBuffer value) {
+                pooledBytes.addAndGet(PAGE_SIZE);
+            }
+
+            @Override
+            public void destroy(ByteBuffer value) {
+                allocatedBytes.addAndGet(-PAGE_SIZE);
+                free(value);
+            }
+        }, (int) (limit / PAGE_SIZE));
+    }
+
+    /**
+     * Returns a page of {@link BigArrays#PAGE_SIZE_IN_BYTES} bytes in the native byte order.
+     *
+     * @param clear whether a page that was used before should be filled with zeros, new pages always are
+     */
+    public Recycler.V<ByteBuffer> page(boolean clear) {
+        final Recycler.V<ByteBuffer> v = pages.obtain();
+        if (v.isRecycled()) {
+            pooledBytes.addAndGet(-PAGE_SIZE);
+            if (clear) {
+                final ByteBuffer page = v.v();
+                for (int i = 0; i < PAGE_SIZE; i += 8) {
+                    page.putLong(i, 0L);
+                }
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Frees the memory of a page that is not going to be used anymore.
+     */
+    private static void free(ByteBuffer page) {
+        if (FREE_SUPPORTED) {
+            try {
+                final Object cleaner = CLEANER_METHOD.invoke(page);
+                if (cleaner != null) {
+                    CLEAN_METHOD.invoke(cleaner);
+                }
+            } catch (Exception e) {
+                // the memory is still freed once the page is garbage collected
+            }
+        }
+    }
+
+    public DirectPageCacheStats stats() {
+        return new DirectPageCacheStats(allocatedBytes.get(), pooledBytes.get());
+    }
+
+    public void close() {
+        pages.close();
+        pooledBytes.set(0);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cache.recycler;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+
+/**
+ * Statistics about the pages of direct memory of the {@link DirectPageCacheRecycler}.
+ */
+public class DirectPageCacheStats implements Streamable, ToXContent {
+
+    private long allocated;
+    private long pooled;
+
+    DirectPageCacheStats() {
+
+    }
+
+    public DirectPageCacheStats(long allocated, long pooled) {
+        this.allocated = allocated;
+        this.pooled = pooled;
+    }
+
+    /**
+     * The direct memory held by the pages, whether they are in use or pooled.
+     */
+    public ByteSizeValue getAllocated() {
+        return new ByteSizeValue(allocated);
+    }
+
+    /**
+     * The direct memory held by the pages that are waiting in the pool to be reused.
+     */
+    public ByteSizeValue getPooled() {
+        return new ByteSizeValue(pooled);
+    }
+
+    /**
+     * The direct memory held by the pages that are in use by arrays.
+     */
+    public ByteSizeValue getUsed() {
+        return new ByteSizeValue(Math.max(0, allocated - pooled));
+    }
+
+    public static DirectPageCacheStats readDirectPageCacheStats(StreamInput in) throws IOException {
+        DirectPageCacheStats stats = new DirectPageCacheStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        allocated = in.readVLong();
+        pooled = in.readVLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(allocated);
+        out.writeVLong(pooled);
+    }
+
+    static final class Fields {
+        static final XContentBuilderString DIRECT_PAGES = new XContentBuilderString("direct_pages");
+        static final XContentBuilderString ALLOCATED = new XContentBuilderString("allocated");
+        static final XContentBuilderString ALLOCATED_IN_BYTES = new XContentBuilderString("allocated_in_bytes");
+        static final XContentBuilderString USED = new XContentBuilderString("used");
+        static final XContentBuilderString USED_IN_BYTES = new XContentBuilderString("used_in_bytes");
+        static final XContentBuilderString POOLED = new XContentBuilderString("pooled");
+        static final XContentBuilderString POOLED_IN_BYTES = new XContentBuilderString("pooled_in_bytes");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.DIRECT_PAGES);
+        builder.byteSizeField(Fields.ALLOCATED_IN_BYTES, Fields.ALLOCATED, allocated);
+        builder.byteSizeField(Fields.USED_IN_BYTES, Fields.USED, getUsed().bytes());
+        builder.byteSizeField(Fields.POOLED_IN_BYTES, Fields.POOLED, pooled);
+        builder.endObject();
+        return builder;
+    }
+}
@@ -38,6 +38,12 @@ import org.elasticsearch.action.admin.cluster.node.shutdown.NodesShutdownRespons
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequest;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequestBuilder;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequest;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequestBuilder;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksResponse;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksRequest;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksRequestBuilder;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksResponse;
 import org.elasticsearch.action.admin.cluster.repositories.delete.DeleteRepositoryRequest;
 import org.elasticsearch.action.admin.cluster.repositories.delete.DeleteRepositoryRequestBuilder;
 import org.elasticsearch.action.admin.cluster.repositories.delete.DeleteRepositoryResponse;
@@ -251,6 +257,36 @@ public interface ClusterAdminClient extends ElasticsearchClient<ClusterAdminClie
      */
     NodesHotThreadsRequestBuilder prepareNodesHotThreads(String... nodesIds);
 
+    /**
+     * Lists the tasks executed on the nodes of the cluster.
+     */
+    ActionFuture<ListTasksResponse> listTasks(ListTasksRequest request);
+
+    /**
+     * Lists the tasks executed on the nodes of the cluster.
+     */
+    void listTasks(ListTasksRequest request, ActionListener<ListTasksResponse> listener);
+
+    /**
+     * Lists the tasks executed on the given nodes, or on all the nodes if none is given.
+     */
+    ListTasksRequestBuilder prepareListTasks(String... nodesIds);
+
+    /**
+     * Cancels running tasks, the tasks stop their execution as soon as they can.
+     */
+    ActionFuture<CancelTasksResponse> cancelTasks(CancelTasksRequest request);
+
+    /**
+     * Cancels running tasks, the tasks stop their execution as soon as they can.
+     */
+    void cancelTasks(CancelTasksRequest request, ActionListener<CancelTasksResponse> listener);
+
+    /**
+     * Cancels running tasks, the tasks stop their execution as soon as they can.
+     */
+    CancelTasksRequestBuilder prepareCancelTasks();
+
     /**
      * Shutdown nodes in the cluster.
      *
@@ -21,6 +21,7 @@ package org.elasticsearch.client.node;
 
 import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.action.*;
+import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.action.support.TransportAction;
 import org.elasticsearch.client.AdminClient;
 import org.elasticsearch.client.Client;
@@ -29,7 +30,10 @@ import org.elasticsearch.client.support.Headers;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskManager;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
 
 import java.util.Map;
 
@@ -38,6 +42,8 @@ import java.util.Map;
  */
 public class NodeClient extends AbstractClient {
 
+    static final String TASK_TYPE = "direct";
+
     private final Settings settings;
     private final ThreadPool threadPool;
 
@@ -47,9 +53,13 @@ public class NodeClient extends AbstractClient {
 
     private final Headers headers;
 
+    private final TaskManager taskManager;
+
     @Inject
-    public NodeClient(Settings settings, ThreadPool threadPool, NodeAdminClient admin, Map<GenericAction, TransportAction> actions, Headers headers) {
+    public NodeClient(Settings settings, ThreadPool threadPool, NodeAdminClient admin, Map<GenericAction, TransportAction> actions, Headers headers,
+                      TransportService transportService) {
         this.settings = settings;
+        this.taskManager = transportService.getTaskManager();
         this.threadPool = threadPool;
         this.admin = admin;
         this.headers = headers;
@@ -85,9 +95,12 @@ public class NodeClient extends AbstractClient {
     @SuppressWarnings("unchecked")
     @Override
     public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder, Client>> ActionFuture<Response> execute(Action<Request, Response, RequestBuilder, Client> action, Request request) {
-        headers.applyTo(request);
-        TransportAction<Request, Response> transportAction = actions.get((ClientAction)action);
-        return transportAction.execute(request);
+        PlainActionFuture<Response> future = PlainActionFuture.newFuture();
+        // since we don't have a listener, and we release a possible lock with the future
+        // there is no need to execute it under a listener thread
+        request.listenerThreaded(false);
+        execute(action, request, future);
+        return future;
     }
 
     @SuppressWarnings("unchecked")
@@ -95,6 +108,41 @@ public class NodeClient extends AbstractClient {
     public <Request extends ActionRequest, Response extends ActionResponse, RequestBuilder extends ActionRequestBuilder<Request, Response, RequestBuilder, Client>> void execute(Action<Request, Response, RequestBuilder, Client> action, Request request, ActionListener<Response> listener) {
         headers.applyTo(request);
         TransportAction<Request, Response> transportAction = actions.get((ClientAction)action);
-        transportAction.execute(request, listener);
+        final Task task = taskManager.register(TASK_TYPE, action.name(), request);
+        boolean success = false;
+        try {
+            transportAction.execute(request, new TaskActionListener<>(task, listener));
+            success = true;
+        } finally {
+            if (success == false) {
+                taskManager.unregister(task);
+            }
+        }
+    }
+
+    /**
+     * Unregisters the task of the request once it completed.
+     */
+    private class TaskActionListener<Response> implements ActionListener<Response> {
+
+        private final Task task;
+        private final ActionListener<Response> listener;
+
+        TaskActionListener(Task task, ActionListener<Response> listener) {
+            this.task = task;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onResponse(Response response) {
+            taskManager.unregister(task);
+            listener.onResponse(response);
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            taskManager.unregister(task);
+            listener.onFailure(e);
+        }
     }
 }
@@ -45,6 +45,14 @@ import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsAction;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequest;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequestBuilder;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksAction;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequest;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksRequestBuilder;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksResponse;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksAction;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksRequest;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksRequestBuilder;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksResponse;
 import org.elasticsearch.action.admin.cluster.repositories.delete.DeleteRepositoryAction;
 import org.elasticsearch.action.admin.cluster.repositories.delete.DeleteRepositoryRequest;
 import org.elasticsearch.action.admin.cluster.repositories.delete.DeleteRepositoryRequestBuilder;
@@ -237,6 +245,36 @@ public abstract class AbstractClusterAdminClient implements ClusterAdminClient {
         return new NodesHotThreadsRequestBuilder(this).setNodesIds(nodesIds);
     }
 
+    @Override
+    public ActionFuture<ListTasksResponse> listTasks(ListTasksRequest request) {
+        return execute(ListTasksAction.INSTANCE, request);
+    }
+
+    @Override
+    public void listTasks(ListTasksRequest request, ActionListener<ListTasksResponse> listener) {
+        execute(ListTasksAction.INSTANCE, request, listener);
+    }
+
+    @Override
+    public ListTasksRequestBuilder prepareListTasks(String... nodesIds) {
+        return new ListTasksRequestBuilder(this).setNodesIds(nodesIds);
+    }
+
+    @Override
+    public ActionFuture<CancelTasksResponse> cancelTasks(CancelTasksRequest request) {
+        return execute(CancelTasksAction.INSTANCE, request);
+    }
+
+    @Override
+    public void cancelTasks(CancelTasksRequest request, ActionListener<CancelTasksResponse> listener) {
+        execute(CancelTasksAction.INSTANCE, request, listener);
+    }
+
+    @Override
+    public CancelTasksRequestBuilder prepareCancelTasks() {
+        return new CancelTasksRequestBuilder(this);
+    }
+
     @Override
     public ActionFuture<NodesRestartResponse> nodesRestart(final NodesRestartRequest request) {
         return execute(NodesRestartAction.INSTANCE, request);
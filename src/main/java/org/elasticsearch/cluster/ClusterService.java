@@ -108,6 +108,12 @@ public interface ClusterService extends LifecycleComponent<ClusterService> {
      */
     void submitStateUpdateTask(final String source, final ClusterStateUpdateTask updateTask);
 
+    /**
+     * Submits a task that will update the cluster state in a batch with all the other queued tasks of the
+     * same executor, see {@link ClusterStateTaskExecutor}.
+     */
+    <T> void submitStateUpdateTask(final String source, Priority priority, final T task, final ClusterStateTaskExecutor<T> executor, final ClusterStateTaskListener listener);
+
     /**
      * Returns the tasks that are pending.
      */
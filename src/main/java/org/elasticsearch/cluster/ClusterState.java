@@ -117,8 +117,12 @@ public class ClusterState implements ToXContent {
 
     public static final long UNKNOWN_VERSION = -1;
 
+    public static final String UNKNOWN_UUID = "_na_";
+
     private final long version;
 
+    private final String uuid;
+
     private final RoutingTable routingTable;
 
     private final DiscoveryNodes nodes;
@@ -139,11 +143,12 @@ public class ClusterState implements ToXContent {
     private volatile ClusterStateStatus status;
 
     public ClusterState(long version, ClusterState state) {
-        this(state.clusterName, version, state.metaData(), state.routingTable(), state.nodes(), state.blocks(), state.customs());
+        this(state.clusterName, version, state.uuid(), state.metaData(), state.routingTable(), state.nodes(), state.blocks(), state.customs());
     }
 
-    public ClusterState(ClusterName clusterName, long version, MetaData metaData, RoutingTable routingTable, DiscoveryNodes nodes, ClusterBlocks blocks, ImmutableOpenMap<String, Custom> customs) {
+    public ClusterState(ClusterName clusterName, long version, String uuid, MetaData metaData, RoutingTable routingTable, DiscoveryNodes nodes, ClusterBlocks blocks, ImmutableOpenMap<String, Custom> customs) {
         this.version = version;
+        this.uuid = uuid;
         this.clusterName = clusterName;
         this.metaData = metaData;
         this.routingTable = routingTable;
@@ -170,6 +175,18 @@ public class ClusterState implements ToXContent {
         return version();
     }
 
+    /**
+     * This uuid is automatically generated for each version of cluster state. It is used to make sure that
+     * a cluster state diff is applied to exactly the same cluster state it was calculated against.
+     */
+    public String uuid() {
+        return this.uuid;
+    }
+
+    public String getUuid() {
+        return uuid();
+    }
+
     public DiscoveryNodes nodes() {
         return this.nodes;
     }
@@ -242,6 +259,7 @@ public class ClusterState implements ToXContent {
     public String prettyPrint() {
         StringBuilder sb = new StringBuilder();
         sb.append("version: ").append(version).append("\n");
+        sb.append("uuid: ").append(uuid).append("\n");
         sb.append("meta data version: ").append(metaData.version()).append("\n");
         sb.append(nodes().prettyPrint());
         sb.append(routingTable().prettyPrint());
@@ -522,6 +540,7 @@ public class ClusterState implements ToXContent {
 
         private final ClusterName clusterName;
         private long version = 0;
+        private String uuid = UNKNOWN_UUID;
         private MetaData metaData = MetaData.EMPTY_META_DATA;
         private RoutingTable routingTable = RoutingTable.EMPTY_ROUTING_TABLE;
         private DiscoveryNodes nodes = DiscoveryNodes.EMPTY_NODES;
@@ -532,6 +551,7 @@ public class ClusterState implements ToXContent {
         public Builder(ClusterState state) {
             this.clusterName = state.clusterName;
             this.version = state.version();
+            this.uuid = state.uuid();
             this.nodes = state.nodes();
             this.routingTable = state.routingTable();
             this.metaData = state.metaData();
@@ -590,6 +610,20 @@ public class ClusterState implements ToXContent {
             return this;
         }
 
+        /**
+         * Increments the version of the cluster state and resets its uuid, so a new one is generated on build.
+         */
+        public Builder incrementVersion() {
+            this.version = version + 1;
+            this.uuid = UNKNOWN_UUID;
+            return this;
+        }
+
+        public Builder uuid(String uuid) {
+            this.uuid = uuid;
+            return this;
+        }
+
         public Custom getCustom(String type) {
             return customs.get(type);
         }
@@ -605,7 +639,10 @@ public class ClusterState implements ToXContent {
         }
 
         public ClusterState build() {
-            return new ClusterState(clusterName, version, metaData, routingTable, nodes, blocks, customs.build());
+            if (UNKNOWN_UUID.equals(uuid)) {
+                uuid = Strings.randomBase64UUID();
+            }
+            return new ClusterState(clusterName, version, uuid, metaData, routingTable, nodes, blocks, customs.build());
         }
 
         public static byte[] toBytes(ClusterState state) throws IOException {
@@ -630,10 +667,46 @@ public class ClusterState implements ToXContent {
                 state.clusterName.writeTo(out);
             }
             out.writeLong(state.version());
+            if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+                out.writeString(state.uuid());
+            }
             MetaData.Builder.writeTo(state.metaData(), out);
             RoutingTable.Builder.writeTo(state.routingTable(), out);
             DiscoveryNodes.Builder.writeTo(state.nodes(), out);
             ClusterBlocks.Builder.writeClusterBlocks(state.blocks(), out);
+            writeCustoms(state, out);
+        }
+
+        /**
+         * Writes the difference between the given cluster state and the previous one it was derived from. Meta data
+         * and routing tables are only sent if they changed, and then only the indices, templates and mappings that
+         * changed are sent. Nodes, blocks and customs are small and always sent in full.
+         *
+         * @see #readDiffFrom(StreamInput, ClusterState, DiscoveryNode)
+         */
+        public static void writeDiffTo(ClusterState previousState, ClusterState state, StreamOutput out) throws IOException {
+            out.writeString(previousState.uuid());
+            out.writeLong(previousState.version());
+            out.writeLong(state.version());
+            out.writeString(state.uuid());
+            if (previousState.metaData() == state.metaData()) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                MetaData.Builder.writeDiffTo(previousState.metaData(), state.metaData(), out);
+            }
+            if (previousState.routingTable() == state.routingTable()) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                RoutingTable.Builder.writeDiffTo(previousState.routingTable(), state.routingTable(), out);
+            }
+            DiscoveryNodes.Builder.writeTo(state.nodes(), out);
+            ClusterBlocks.Builder.writeClusterBlocks(state.blocks(), out);
+            writeCustoms(state, out);
+        }
+
+        private static void writeCustoms(ClusterState state, StreamOutput out) throws IOException {
             out.writeVInt(state.customs().size());
             for (ObjectObjectCursor<String, Custom> cursor : state.customs()) {
                 out.writeString(cursor.key);
@@ -654,17 +727,58 @@ public class ClusterState implements ToXContent {
             }
             Builder builder = new Builder(clusterName);
             builder.version = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+                builder.uuid = in.readString();
+            }
             builder.metaData = MetaData.Builder.readFrom(in);
             builder.routingTable = RoutingTable.Builder.readFrom(in);
             builder.nodes = DiscoveryNodes.Builder.readFrom(in, localNode);
             builder.blocks = ClusterBlocks.Builder.readClusterBlocks(in);
+            readCustoms(in, builder);
+            return builder.build();
+        }
+
+        /**
+         * Reads a cluster state diff written by {@link #writeDiffTo(ClusterState, ClusterState, StreamOutput)} and
+         * applies it to the given previous cluster state.
+         *
+         * @param in            input stream
+         * @param previousState the cluster state the diff is applied to
+         * @param localNode     used to set the local node in the cluster state. can be null.
+         * @throws IncompatibleClusterStateVersionException if the diff was not calculated against the given previous state
+         */
+        public static ClusterState readDiffFrom(StreamInput in, ClusterState previousState, @Nullable DiscoveryNode localNode) throws IOException {
+            String fromUuid = in.readString();
+            long fromVersion = in.readLong();
+            if (!fromUuid.equals(previousState.uuid())) {
+                throw new IncompatibleClusterStateVersionException(previousState.version(), previousState.uuid(), fromVersion, fromUuid);
+            }
+            Builder builder = new Builder(previousState.getClusterName());
+            builder.version = in.readLong();
+            builder.uuid = in.readString();
+            if (in.readBoolean()) {
+                builder.metaData = MetaData.Builder.readDiffFrom(in, previousState.metaData());
+            } else {
+                builder.metaData = previousState.metaData();
+            }
+            if (in.readBoolean()) {
+                builder.routingTable = RoutingTable.Builder.readDiffFrom(in, previousState.routingTable());
+            } else {
+                builder.routingTable = previousState.routingTable();
+            }
+            builder.nodes = DiscoveryNodes.Builder.readFrom(in, localNode);
+            builder.blocks = ClusterBlocks.Builder.readClusterBlocks(in);
+            readCustoms(in, builder);
+            return builder.build();
+        }
+
+        private static void readCustoms(StreamInput in, Builder builder) throws IOException {
             int customSize = in.readVInt();
             for (int i = 0; i < customSize; i++) {
                 String type = in.readString();
                 Custom customIndexMetaData = lookupFactorySafe(type).readFrom(in);
                 builder.putCustom(type, customIndexMetaData);
             }
-            return builder.build();
         }
     }
 }
@@ -49,8 +49,10 @@ import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.warmer.IndexWarmersMetaData;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -763,6 +765,74 @@ public class IndexMetaData {
             return builder.build();
         }
 
+        /**
+         * Writes the changes between two versions of the same index meta data. Mappings are usually what makes index
+         * meta data large, so only the mappings that were added, changed or removed are written.
+         */
+        public static void writeDiffTo(IndexMetaData previousIndexMetaData, IndexMetaData indexMetaData, StreamOutput out) throws IOException {
+            out.writeLong(indexMetaData.version());
+            out.writeByte(indexMetaData.state().id());
+            writeSettingsToStream(indexMetaData.settings(), out);
+            List<String> removedMappings = new ArrayList<>();
+            for (ObjectCursor<String> cursor : previousIndexMetaData.mappings().keys()) {
+                if (!indexMetaData.mappings().containsKey(cursor.value)) {
+                    removedMappings.add(cursor.value);
+                }
+            }
+            out.writeStringArray(removedMappings.toArray(new String[removedMappings.size()]));
+            List<MappingMetaData> changedMappings = new ArrayList<>();
+            for (ObjectCursor<MappingMetaData> cursor : indexMetaData.mappings().values()) {
+                MappingMetaData previousMapping = previousIndexMetaData.mappings().get(cursor.value.type());
+                if (previousMapping != cursor.value && !cursor.value.equals(previousMapping)) {
+                    changedMappings.add(cursor.value);
+                }
+            }
+            out.writeVInt(changedMappings.size());
+            for (MappingMetaData mappingMd : changedMappings) {
+                MappingMetaData.writeTo(mappingMd, out);
+            }
+            out.writeVInt(indexMetaData.aliases().size());
+            for (ObjectCursor<AliasMetaData> cursor : indexMetaData.aliases().values()) {
+                AliasMetaData.Builder.writeTo(cursor.value, out);
+            }
+            out.writeVInt(indexMetaData.customs().size());
+            for (ObjectObjectCursor<String, Custom> cursor : indexMetaData.customs()) {
+                out.writeString(cursor.key);
+                lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
+            }
+        }
+
+        /**
+         * Reads an index meta data diff written by {@link #writeDiffTo(IndexMetaData, IndexMetaData, StreamOutput)}
+         * and applies it to the previous index meta data.
+         */
+        public static IndexMetaData readDiffFrom(StreamInput in, IndexMetaData previousIndexMetaData) throws IOException {
+            Builder builder = new Builder(previousIndexMetaData);
+            builder.version(in.readLong());
+            builder.state(State.fromId(in.readByte()));
+            builder.settings(readSettingsFromStream(in));
+            for (String type : in.readStringArray()) {
+                builder.removeMapping(type);
+            }
+            int mappingsSize = in.readVInt();
+            for (int i = 0; i < mappingsSize; i++) {
+                builder.putMapping(MappingMetaData.readFrom(in));
+            }
+            builder.removeAllAliases();
+            int aliasesSize = in.readVInt();
+            for (int i = 0; i < aliasesSize; i++) {
+                builder.putAlias(AliasMetaData.Builder.readFrom(in));
+            }
+            builder.customs.clear();
+            int customSize = in.readVInt();
+            for (int i = 0; i < customSize; i++) {
+                String type = in.readString();
+                Custom customIndexMetaData = lookupFactorySafe(type).readFrom(in);
+                builder.putCustom(type, customIndexMetaData);
+            }
+            return builder.build();
+        }
+
         public static void writeTo(IndexMetaData indexMetaData, StreamOutput out) throws IOException {
             out.writeString(indexMetaData.index());
             out.writeLong(indexMetaData.version());
@@ -27,6 +27,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.*;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.block.ClusterBlock;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.common.Nullable;
@@ -1405,6 +1406,114 @@ public class MetaData implements Iterable<IndexMetaData> {
             return builder.build();
         }
 
+        /**
+         * Writes the changes between the previous and the current meta data. Only indices and templates that were
+         * added, changed or removed are written, changed indices are written as a diff of their own.
+         */
+        public static void writeDiffTo(MetaData previousMetaData, MetaData metaData, StreamOutput out) throws IOException {
+            out.writeLong(metaData.version);
+            out.writeString(metaData.uuid);
+            writeSettingsToStream(metaData.transientSettings(), out);
+            writeSettingsToStream(metaData.persistentSettings(), out);
+
+            List<String> removedIndices = Lists.newArrayList();
+            for (ObjectCursor<String> cursor : previousMetaData.indices.keys()) {
+                if (!metaData.indices.containsKey(cursor.value)) {
+                    removedIndices.add(cursor.value);
+                }
+            }
+            out.writeStringArray(removedIndices.toArray(new String[removedIndices.size()]));
+            List<IndexMetaData> changedIndices = Lists.newArrayList();
+            for (IndexMetaData indexMetaData : metaData) {
+                if (previousMetaData.indices.get(indexMetaData.index()) != indexMetaData) {
+                    changedIndices.add(indexMetaData);
+                }
+            }
+            out.writeVInt(changedIndices.size());
+            for (IndexMetaData indexMetaData : changedIndices) {
+                IndexMetaData previousIndexMetaData = previousMetaData.indices.get(indexMetaData.index());
+                out.writeString(indexMetaData.index());
+                if (previousIndexMetaData == null) {
+                    out.writeBoolean(false);
+                    IndexMetaData.Builder.writeTo(indexMetaData, out);
+                } else {
+                    out.writeBoolean(true);
+                    IndexMetaData.Builder.writeDiffTo(previousIndexMetaData, indexMetaData, out);
+                }
+            }
+
+            List<String> removedTemplates = Lists.newArrayList();
+            for (ObjectCursor<String> cursor : previousMetaData.templates.keys()) {
+                if (!metaData.templates.containsKey(cursor.value)) {
+                    removedTemplates.add(cursor.value);
+                }
+            }
+            out.writeStringArray(removedTemplates.toArray(new String[removedTemplates.size()]));
+            List<IndexTemplateMetaData> changedTemplates = Lists.newArrayList();
+            for (ObjectCursor<IndexTemplateMetaData> cursor : metaData.templates.values()) {
+                IndexTemplateMetaData previousTemplate = previousMetaData.templates.get(cursor.value.name());
+                if (previousTemplate != cursor.value && !cursor.value.equals(previousTemplate)) {
+                    changedTemplates.add(cursor.value);
+                }
+            }
+            out.writeVInt(changedTemplates.size());
+            for (IndexTemplateMetaData template : changedTemplates) {
+                IndexTemplateMetaData.Builder.writeTo(template, out);
+            }
+
+            out.writeVInt(metaData.customs().size());
+            for (ObjectObjectCursor<String, Custom> cursor : metaData.customs()) {
+                out.writeString(cursor.key);
+                lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
+            }
+        }
+
+        /**
+         * Reads a meta data diff written by {@link #writeDiffTo(MetaData, MetaData, StreamOutput)} and applies it
+         * to the previous meta data. Unchanged indices and templates are reused from the previous meta data.
+         */
+        public static MetaData readDiffFrom(StreamInput in, MetaData previousMetaData) throws IOException {
+            Builder builder = new Builder(previousMetaData);
+            builder.version = in.readLong();
+            builder.uuid = in.readString();
+            builder.transientSettings(readSettingsFromStream(in));
+            builder.persistentSettings(readSettingsFromStream(in));
+
+            for (String index : in.readStringArray()) {
+                builder.remove(index);
+            }
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                String index = in.readString();
+                if (in.readBoolean()) {
+                    IndexMetaData previousIndexMetaData = previousMetaData.index(index);
+                    if (previousIndexMetaData == null) {
+                        throw new IncompatibleClusterStateVersionException("received a diff for index [" + index + "] which does not exist in the previous meta data");
+                    }
+                    builder.put(IndexMetaData.Builder.readDiffFrom(in, previousIndexMetaData), false);
+                } else {
+                    builder.put(IndexMetaData.Builder.readFrom(in), false);
+                }
+            }
+
+            for (String template : in.readStringArray()) {
+                builder.removeTemplate(template);
+            }
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.put(IndexTemplateMetaData.Builder.readFrom(in));
+            }
+
+            builder.customs.clear();
+            int customSize = in.readVInt();
+            for (int i = 0; i < customSize; i++) {
+                String type = in.readString();
+                Custom customIndexMetaData = lookupFactorySafe(type).readFrom(in);
+                builder.putCustom(type, customIndexMetaData);
+            }
+            return builder.build();
+        }
+
         public static void writeTo(MetaData metaData, StreamOutput out) throws IOException {
             out.writeLong(metaData.version);
             out.writeString(metaData.uuid);
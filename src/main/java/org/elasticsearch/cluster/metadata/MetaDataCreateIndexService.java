@@ -26,6 +26,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
@@ -63,6 +64,7 @@ import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.query.IndexQueryParserService;
 import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.sort.IndexSort;
 import org.elasticsearch.indices.IndexAlreadyExistsException;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.InvalidIndexNameException;
@@ -399,6 +401,13 @@ public class MetaDataCreateIndexService extends AbstractComponent {
                             throw new MapperParsingException("mapping [" + entry.getKey() + "]", e);
                         }
                     }
+                    // the sort fields of the index need to be mapped now, the shards resolve the sort when they start
+                    try {
+                        IndexSort.parse(actualIndexSettings, mapperService);
+                    } catch (ElasticsearchIllegalArgumentException e) {
+                        removalReason = "failed on parsing the index sort on index creation";
+                        throw e;
+                    }
 
                     IndexQueryParserService indexQueryParserService = indexService.queryParserService();
                     for (Alias alias : request.aliases()) {
@@ -24,6 +24,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.UnmodifiableIterator;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -279,6 +280,22 @@ public class IndexShardRoutingTable implements Iterable<ShardRouting> {
         return new PlainShardIterator(shardId, ordered);
     }
 
+    /**
+     * Returns an iterator over active and initializing shards. The active shards are ordered by the rank of the nodes
+     * they are allocated on, see {@link ResponseCollectorService#rankShards(List, int)}, and randomly between nodes of
+     * the same rank. The initializing shards are the last to iterate through.
+     */
+    public ShardIterator activeInitializingShardsRankedIt(ResponseCollectorService collector, int clientCount) {
+        List<ShardRouting> ranked = collector.rankShards(shuffler.shuffle(activeShards), clientCount);
+        if (allInitializingShards.isEmpty()) {
+            return new PlainShardIterator(shardId, ranked);
+        }
+        ArrayList<ShardRouting> ordered = new ArrayList<>(activeShards.size() + allInitializingShards.size());
+        ordered.addAll(ranked);
+        ordered.addAll(allInitializingShards);
+        return new PlainShardIterator(shardId, ordered);
+    }
+
     /**
      * Returns an iterator only on the primary shard.
      */
@@ -466,6 +466,76 @@ public class RoutingTable implements Iterable<IndexRoutingTable> {
             return builder.build();
         }
 
+        /**
+         * Writes the changes between the previous and the current routing table. Only the routing tables of indices
+         * that were added, changed or removed are written.
+         */
+        public static void writeDiffTo(RoutingTable previousTable, RoutingTable table, StreamOutput out) throws IOException {
+            out.writeLong(table.version);
+            List<String> removedIndices = newArrayList();
+            for (String index : previousTable.indicesRouting.keySet()) {
+                if (!table.indicesRouting.containsKey(index)) {
+                    removedIndices.add(index);
+                }
+            }
+            out.writeStringArray(removedIndices.toArray(new String[removedIndices.size()]));
+            List<IndexRoutingTable> changedIndices = newArrayList();
+            for (IndexRoutingTable index : table.indicesRouting.values()) {
+                if (!sameRouting(previousTable.indicesRouting.get(index.index()), index)) {
+                    changedIndices.add(index);
+                }
+            }
+            out.writeVInt(changedIndices.size());
+            for (IndexRoutingTable index : changedIndices) {
+                IndexRoutingTable.Builder.writeTo(index, out);
+            }
+        }
+
+        /**
+         * Reads a routing table diff written by {@link #writeDiffTo(RoutingTable, RoutingTable, StreamOutput)} and
+         * applies it to the previous routing table.
+         */
+        public static RoutingTable readDiffFrom(StreamInput in, RoutingTable previousTable) throws IOException {
+            Builder builder = new Builder(previousTable);
+            builder.version = in.readLong();
+            for (String index : in.readStringArray()) {
+                builder.remove(index);
+            }
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.add(IndexRoutingTable.Builder.readFrom(in));
+            }
+            return builder.build();
+        }
+
+        /**
+         * Routing tables are rebuilt on every reroute, so this compares the shard routings (including their
+         * versions) rather than relying on identity.
+         */
+        private static boolean sameRouting(IndexRoutingTable previous, IndexRoutingTable current) {
+            if (previous == current) {
+                return true;
+            }
+            if (previous == null || previous.shards().size() != current.shards().size()) {
+                return false;
+            }
+            for (IndexShardRoutingTable indexShard : current) {
+                IndexShardRoutingTable previousIndexShard = previous.shard(indexShard.shardId().id());
+                if (previousIndexShard == null || previousIndexShard.primaryAllocatedPostApi() != indexShard.primaryAllocatedPostApi()
+                        || previousIndexShard.size() != indexShard.size()) {
+                    return false;
+                }
+                for (int i = 0; i < indexShard.size(); i++) {
+                    ShardRouting shard = indexShard.shards().get(i);
+                    ShardRouting previousShard = previousIndexShard.shards().get(i);
+                    if (!shard.equals(previousShard) || shard.version() != previousShard.version()) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
         public static void writeTo(RoutingTable table, StreamOutput out) throws IOException {
             out.writeLong(table.version);
             out.writeVInt(table.indicesRouting.size());
@@ -46,5 +46,6 @@ public class OperationRoutingModule extends AbstractModule implements SpawnModul
 
     @Override
     protected void configure() {
+        bind(ResponseCollectorService.class).asEagerSingleton();
     }
 }
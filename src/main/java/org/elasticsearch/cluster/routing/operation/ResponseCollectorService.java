@@ -0,0 +1,247 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.operation;
+
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects, on the coordinating node, statistics about the search requests sent to each node: a moving average of the
+ * response time seen by this node, and of the service time and search queue size reported by the node along with its
+ * responses. The shard copies of a search are ranked by these statistics when adaptive replica selection is enabled,
+ * so that a node that is slow to answer, for example because of a long GC or a full search queue, gets fewer requests.
+ * <p/>
+ * The rank of a node follows the C3 replica selection algorithm, it is its response time minus its service time, plus
+ * its service time multiplied by the cube of the estimated length of its queue. The length of the queue is estimated from
+ * the queue size reported by the node and from the requests still waiting for an answer from it, which are multiplied by
+ * the number of nodes since each of them may also send requests to it.
+ */
+public class ResponseCollectorService extends AbstractComponent {
+
+    /**
+     * The smoothing constant of the moving averages of the node statistics.
+     */
+    public static final double ALPHA = 0.3;
+
+    private final ConcurrentMap<String, NodeStatistics> nodeStatistics = ConcurrentCollections.newConcurrentMap();
+
+    private volatile DiscoveryNodes lastNodes;
+
+    @Inject
+    public ResponseCollectorService(Settings settings) {
+        super(settings);
+    }
+
+    /**
+     * Records that a search request was sent to the node.
+     */
+    public void onRequestSent(String nodeId) {
+        statistics(nodeId).outstandingRequests.incrementAndGet();
+    }
+
+    /**
+     * Records the answer to a search request sent to the node, the response time is the time it took from sending the
+     * request to getting its response, the service time and queue size are the ones reported by the node, or <tt>-1</tt>
+     * if the node did not report them.
+     */
+    public void onResponse(String nodeId, long responseTimeNanos, long serviceTimeNanos, int queueSize) {
+        NodeStatistics statistics = statistics(nodeId);
+        statistics.outstandingRequests.decrementAndGet();
+        if (serviceTimeNanos >= 0 && queueSize >= 0) {
+            statistics.addResponse(responseTimeNanos, serviceTimeNanos, queueSize);
+        }
+    }
+
+    /**
+     * Records that a search request sent to the node failed.
+     */
+    public void onFailure(String nodeId) {
+        statistics(nodeId).outstandingRequests.decrementAndGet();
+    }
+
+    /**
+     * Returns the statistics of the node, or <tt>null</tt> if no response was received from it yet.
+     */
+    @Nullable
+    public NodeStatistics nodeStatistics(String nodeId) {
+        NodeStatistics statistics = nodeStatistics.get(nodeId);
+        if (statistics == null || statistics.hasResponses() == false) {
+            return null;
+        }
+        return statistics;
+    }
+
+    /**
+     * Drops the statistics of the nodes that are no longer part of the cluster.
+     */
+    public void retainNodes(DiscoveryNodes nodes) {
+        if (nodes == lastNodes) {
+            return;
+        }
+        lastNodes = nodes;
+        for (String nodeId : nodeStatistics.keySet()) {
+            if (nodes.nodeExists(nodeId) == false) {
+                nodeStatistics.remove(nodeId);
+            }
+        }
+    }
+
+    /**
+     * Orders the shard copies by the rank of the nodes they are allocated on, from the best ranked to the worst ranked.
+     * The nodes that did not answer any request yet go first so they get a chance to be ranked, and the order of the
+     * copies with the same rank is kept.
+     * <p/>
+     * The nodes that are not selected have their statistics moved towards the ones of the selected node, so a node that
+     * was ranked low during a slowdown gets requests again after a while and its statistics reflect its actual state.
+     *
+     * @param clientCount the number of nodes that may send requests to the ranked nodes
+     */
+    public List<ShardRouting> rankShards(List<ShardRouting> shards, int clientCount) {
+        if (shards.size() < 2) {
+            return shards;
+        }
+        List<RankedShard> rankedShards = new ArrayList<>(shards.size());
+        for (ShardRouting shard : shards) {
+            NodeStatistics statistics = nodeStatistics(shard.currentNodeId());
+            double rank = statistics == null ? Double.NEGATIVE_INFINITY : statistics.rank(clientCount);
+            rankedShards.add(new RankedShard(shard, statistics, rank));
+        }
+        Collections.sort(rankedShards, RANK_COMPARATOR);
+
+        List<ShardRouting> ordered = new ArrayList<>(shards.size());
+        NodeStatistics selected = rankedShards.get(0).statistics;
+        for (RankedShard rankedShard : rankedShards) {
+            ordered.add(rankedShard.shard);
+            if (selected != null && rankedShard.statistics != null && rankedShard.statistics != selected) {
+                rankedShard.statistics.moveTowards(selected);
+            }
+        }
+        return ordered;
+    }
+
+    private NodeStatistics statistics(String nodeId) {
+        NodeStatistics statistics = nodeStatistics.get(nodeId);
+        if (statistics == null) {
+            statistics = new NodeStatistics();
+            NodeStatistics existing = nodeStatistics.putIfAbsent(nodeId, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+        return statistics;
+    }
+
+    private static final Comparator<RankedShard> RANK_COMPARATOR = new Comparator<RankedShard>() {
+        @Override
+        public int compare(RankedShard o1, RankedShard o2) {
+            return Double.compare(o1.rank, o2.rank);
+        }
+    };
+
+    private static class RankedShard {
+        final ShardRouting shard;
+        final NodeStatistics statistics;
+        final double rank;
+
+        RankedShard(ShardRouting shard, NodeStatistics statistics, double rank) {
+            this.shard = shard;
+            this.statistics = statistics;
+            this.rank = rank;
+        }
+    }
+
+    /**
+     * The search statistics of a node, as seen by the coordinating node.
+     */
+    public static class NodeStatistics {
+
+        private final ExponentiallyWeightedMovingAverage responseTime = new ExponentiallyWeightedMovingAverage(ALPHA);
+        private final ExponentiallyWeightedMovingAverage serviceTime = new ExponentiallyWeightedMovingAverage(ALPHA);
+        private final ExponentiallyWeightedMovingAverage queueSize = new ExponentiallyWeightedMovingAverage(ALPHA);
+        private final AtomicInteger outstandingRequests = new AtomicInteger();
+        private volatile boolean hasResponses = false;
+
+        void addResponse(long responseTimeNanos, long serviceTimeNanos, int queueSize) {
+            this.responseTime.addValue(responseTimeNanos);
+            this.serviceTime.addValue(serviceTimeNanos);
+            this.queueSize.addValue(queueSize);
+            hasResponses = true;
+        }
+
+        boolean hasResponses() {
+            return hasResponses;
+        }
+
+        void moveTowards(NodeStatistics other) {
+            responseTime.addValue((responseTime.getAverage() + other.responseTime.getAverage()) / 2);
+            serviceTime.addValue((serviceTime.getAverage() + other.serviceTime.getAverage()) / 2);
+        }
+
+        /**
+         * The moving average of the response time of the node, in nanoseconds.
+         */
+        public double responseTime() {
+            return responseTime.getAverage();
+        }
+
+        /**
+         * The moving average of the service time reported by the node, in nanoseconds.
+         */
+        public double serviceTime() {
+            return serviceTime.getAverage();
+        }
+
+        /**
+         * The moving average of the search queue size reported by the node.
+         */
+        public double queueSize() {
+            return queueSize.getAverage();
+        }
+
+        /**
+         * The number of search requests sent to the node that are still waiting for an answer.
+         */
+        public int outstandingRequests() {
+            return outstandingRequests.get();
+        }
+
+        /**
+         * The rank of the node, the lower the better.
+         */
+        public double rank(int clientCount) {
+            double serviceTime = serviceTime();
+            double estimatedQueueSize = 1 + Math.max(0, outstandingRequests()) * clientCount + queueSize();
+            return responseTime() - serviceTime + Math.pow(estimatedQueueSize, 3) * serviceTime;
+        }
+    }
+}
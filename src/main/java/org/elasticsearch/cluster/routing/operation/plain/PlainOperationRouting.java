@@ -31,6 +31,7 @@ import org.elasticsearch.cluster.routing.IndexShardRoutingTable;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.cluster.routing.allocation.decider.AwarenessAllocationDecider;
 import org.elasticsearch.cluster.routing.operation.OperationRouting;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.cluster.routing.operation.hash.HashFunction;
 import org.elasticsearch.cluster.routing.operation.hash.djb.DjbHashFunction;
 import org.elasticsearch.common.Nullable;
@@ -43,6 +44,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexShardMissingException;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndexMissingException;
+import org.elasticsearch.node.settings.NodeSettingsService;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -54,14 +56,42 @@ import java.util.Set;
  */
 public class PlainOperationRouting extends AbstractComponent implements OperationRouting {
 
-
+    /**
+     * Whether the shard copies of a search are selected by ranking the nodes they are allocated on by their response
+     * time, service time and search queue size, see {@link ResponseCollectorService}, instead of round-robin. Only used
+     * when no preference is set and no awareness attributes are configured.
+     */
+    public static final String USE_ADAPTIVE_REPLICA_SELECTION = "cluster.routing.use_adaptive_replica_selection";
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            boolean useAdaptiveReplicaSelection = settings.getAsBoolean(USE_ADAPTIVE_REPLICA_SELECTION, PlainOperationRouting.this.useAdaptiveReplicaSelection);
+            if (useAdaptiveReplicaSelection != PlainOperationRouting.this.useAdaptiveReplicaSelection) {
+                logger.info("updating [{}] from [{}] to [{}]", USE_ADAPTIVE_REPLICA_SELECTION, PlainOperationRouting.this.useAdaptiveReplicaSelection, useAdaptiveReplicaSelection);
+                PlainOperationRouting.this.useAdaptiveReplicaSelection = useAdaptiveReplicaSelection;
+            }
+        }
+    }
 
     private final AwarenessAllocationDecider awarenessAllocationDecider;
 
-    @Inject
+    private final ResponseCollectorService responseCollectorService;
+
+    private volatile boolean useAdaptiveReplicaSelection;
+
     public PlainOperationRouting(Settings settings, AwarenessAllocationDecider awarenessAllocationDecider) {
+        this(settings, awarenessAllocationDecider, new NodeSettingsService(settings), new ResponseCollectorService(settings));
+    }
+
+    @Inject
+    public PlainOperationRouting(Settings settings, AwarenessAllocationDecider awarenessAllocationDecider, NodeSettingsService nodeSettingsService,
+                                 ResponseCollectorService responseCollectorService) {
         super(settings);
         this.awarenessAllocationDecider = awarenessAllocationDecider;
+        this.responseCollectorService = responseCollectorService;
+        this.useAdaptiveReplicaSelection = settings.getAsBoolean(USE_ADAPTIVE_REPLICA_SELECTION, false);
+        nodeSettingsService.addListener(new ApplySettings());
     }
 
     @Override
@@ -76,12 +106,12 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
 
     @Override
     public ShardIterator getShards(ClusterState clusterState, String index, String type, String id, @Nullable String routing, @Nullable String preference) throws IndexMissingException, IndexShardMissingException {
-        return preferenceActiveShardIterator(shards(clusterState, index, type, id, routing), clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+        return preferenceActiveShardIterator(shards(clusterState, index, type, id, routing), clusterState.nodes().localNodeId(), clusterState.nodes(), preference, null);
     }
 
     @Override
     public ShardIterator getShards(ClusterState clusterState, String index, int shardId, @Nullable String preference) throws IndexMissingException, IndexShardMissingException {
-        return preferenceActiveShardIterator(shards(clusterState, index, shardId), clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+        return preferenceActiveShardIterator(shards(clusterState, index, shardId), clusterState.nodes().localNodeId(), clusterState.nodes(), preference, null);
     }
 
     @Override
@@ -119,8 +149,13 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
     public GroupShardsIterator searchShards(ClusterState clusterState, String[] indices, String[] concreteIndices, @Nullable Map<String, Set<String>> routing, @Nullable String preference) throws IndexMissingException {
         final Set<IndexShardRoutingTable> shards = computeTargetedShards(clusterState, concreteIndices, routing);
         final Set<ShardIterator> set = new HashSet<>(shards.size());
+        ResponseCollectorService collector = null;
+        if (useAdaptiveReplicaSelection) {
+            collector = responseCollectorService;
+            collector.retainNodes(clusterState.nodes());
+        }
         for (IndexShardRoutingTable shard : shards) {
-            ShardIterator iterator = preferenceActiveShardIterator(shard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+            ShardIterator iterator = preferenceActiveShardIterator(shard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference, collector);
             if (iterator != null) {
                 set.add(iterator);
             }
@@ -156,14 +191,14 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
         return set;
     }
 
-    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference) {
+    /**
+     * Returns the shard copies to try, in order, for the given preference. The copies are ranked by the given collector
+     * when no preference is set, if it is not <tt>null</tt>.
+     */
+    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference,
+                                                        @Nullable ResponseCollectorService collector) {
         if (preference == null || preference.isEmpty()) {
-            String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
-            if (awarenessAttributes.length == 0) {
-                return indexShard.activeInitializingShardsRandomIt();
-            } else {
-                return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
-            }
+            return defaultActiveShardIterator(indexShard, nodes, collector);
         }
         if (preference.charAt(0) == '_') {
             Preference preferenceType = Preference.parse(preference);
@@ -190,12 +225,7 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
                 }
                 // no more preference
                 if (index == -1 || index == preference.length() - 1) {
-                    String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
-                    if (awarenessAttributes.length == 0) {
-                        return indexShard.activeInitializingShardsRandomIt();
-                    } else {
-                        return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
-                    }
+                    return defaultActiveShardIterator(indexShard, nodes, collector);
                 } else {
                     // update the preference and continue
                     preference = preference.substring(index + 1);
@@ -230,6 +260,18 @@ public class PlainOperationRouting extends AbstractComponent implements Operatio
         }
     }
 
+    private ShardIterator defaultActiveShardIterator(IndexShardRoutingTable indexShard, DiscoveryNodes nodes, @Nullable ResponseCollectorService collector) {
+        String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
+        if (awarenessAttributes.length == 0) {
+            if (collector != null) {
+                return indexShard.activeInitializingShardsRankedIt(collector, nodes.size());
+            }
+            return indexShard.activeInitializingShardsRandomIt();
+        } else {
+            return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
+        }
+    }
+
     public IndexMetaData indexMetaData(ClusterState clusterState, String index) {
         IndexMetaData indexMetaData = clusterState.metaData().index(index);
         if (indexMetaData == null) {
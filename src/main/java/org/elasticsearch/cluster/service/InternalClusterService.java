@@ -94,6 +94,9 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
 
     private final Queue<NotifyTimeout> onGoingTimeouts = ConcurrentCollections.newQueue();
 
+    // the queued tasks of each task executor, the map is the mutex for the processed flag of the tasks as well
+    private final Map<ClusterStateTaskExecutor<?>, List<BatchedTask<?>>> batchedTasks = new IdentityHashMap<>();
+
     private volatile ClusterState clusterState;
 
     private final ClusterBlocks.Builder initialBlocks;
@@ -154,6 +157,7 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         final String nodeId = DiscoveryService.generateNodeId(settings);
         DiscoveryNode localNode = new DiscoveryNode(settings.get("name"), nodeId, transportService.boundAddress().publishAddress(), nodeAttributes, version);
         DiscoveryNodes.Builder nodeBuilder = DiscoveryNodes.builder().put(localNode).localNodeId(localNode.id());
+        transportService.getTaskManager().setLocalNode(localNode);
         this.clusterState = ClusterState.builder(clusterState).nodes(nodeBuilder).blocks(initialBlocks).build();
 
     }
@@ -289,6 +293,64 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         }
     }
 
+    @Override
+    public <T> void submitStateUpdateTask(final String source, Priority priority, final T task, final ClusterStateTaskExecutor<T> executor, final ClusterStateTaskListener listener) {
+        if (!lifecycle.started()) {
+            return;
+        }
+        final BatchedTask<T> batchedTask = new BatchedTask<>(source, task, executor, listener);
+        synchronized (batchedTasks) {
+            List<BatchedTask<?>> pending = batchedTasks.get(executor);
+            if (pending == null) {
+                pending = new ArrayList<>();
+                batchedTasks.put(executor, pending);
+            }
+            pending.add(batchedTask);
+        }
+        try {
+            submitStateUpdateTask(source, priority, new BatchedUpdateTask<>(batchedTask));
+        } catch (EsRejectedExecutionException e) {
+            removeBatchedTask(batchedTask);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes and returns all the queued tasks of the executor of the given task, or an empty list if the task was
+     * already processed as part of an earlier batch.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<BatchedTask<T>> drainBatch(BatchedTask<T> batchedTask) {
+        synchronized (batchedTasks) {
+            if (batchedTask.processed) {
+                return Collections.emptyList();
+            }
+            List<BatchedTask<T>> batch = (List) batchedTasks.remove(batchedTask.executor);
+            for (BatchedTask<T> task : batch) {
+                task.processed = true;
+            }
+            return batch;
+        }
+    }
+
+    /**
+     * Removes the given task from the queued tasks of its executor, returns <tt>false</tt> if it was already processed.
+     */
+    private boolean removeBatchedTask(BatchedTask<?> batchedTask) {
+        synchronized (batchedTasks) {
+            if (batchedTask.processed) {
+                return false;
+            }
+            batchedTask.processed = true;
+            List<BatchedTask<?>> pending = batchedTasks.get(batchedTask.executor);
+            pending.remove(batchedTask);
+            if (pending.isEmpty()) {
+                batchedTasks.remove(batchedTask.executor);
+            }
+            return true;
+        }
+    }
+
     @Override
     public List<PendingClusterTask> pendingTasks() {
         long now = System.currentTimeMillis();
@@ -297,16 +359,20 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         for (PrioritizedEsThreadPoolExecutor.Pending pending : pendings) {
             final String source;
             final long timeInQueue;
+            int batchSize = 1;
             if (pending.task instanceof UpdateTask) {
                 UpdateTask updateTask = (UpdateTask) pending.task;
                 source = updateTask.source;
                 timeInQueue = now - updateTask.addedAt;
+                if (updateTask.updateTask instanceof BatchedUpdateTask) {
+                    batchSize = ((BatchedUpdateTask) updateTask.updateTask).batchSize();
+                }
             } else {
                 source = "unknown";
                 timeInQueue = -1;
             }
 
-            pendingClusterTasks.add(new PendingClusterTask(pending.insertionOrder, pending.priority, new StringText(source), timeInQueue, pending.executing));
+            pendingClusterTasks.add(new PendingClusterTask(pending.insertionOrder, pending.priority, new StringText(source), timeInQueue, pending.executing, batchSize));
         }
         return pendingClusterTasks;
     }
@@ -367,7 +433,7 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
                 Discovery.AckListener ackListener = new NoOpAckListener();
                 if (newClusterState.nodes().localNodeMaster()) {
                     // only the master controls the version numbers
-                    Builder builder = ClusterState.builder(newClusterState).version(newClusterState.version() + 1);
+                    Builder builder = ClusterState.builder(newClusterState).incrementVersion();
                     if (previousClusterState.routingTable() != newClusterState.routingTable()) {
                         builder.routingTable(RoutingTable.builder(newClusterState.routingTable()).version(newClusterState.routingTable().version() + 1));
                     }
@@ -489,6 +555,99 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         }
     }
 
+    static class BatchedTask<T> {
+
+        final String source;
+        final T task;
+        final ClusterStateTaskExecutor<T> executor;
+        final ClusterStateTaskListener listener;
+
+        boolean processed; // guarded by batchedTasks
+
+        BatchedTask(String source, T task, ClusterStateTaskExecutor<T> executor, ClusterStateTaskListener listener) {
+            this.source = source;
+            this.task = task;
+            this.executor = executor;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * The update task submitted for each batched task. The first one to run executes all the queued tasks of
+     * its executor, the update tasks of the tasks it processed leave the cluster state unchanged.
+     */
+    class BatchedUpdateTask<T> extends ProcessedClusterStateUpdateTask {
+
+        private final BatchedTask<T> batchedTask;
+        private volatile List<BatchedTask<T>> batch = Collections.emptyList();
+
+        BatchedUpdateTask(BatchedTask<T> batchedTask) {
+            this.batchedTask = batchedTask;
+        }
+
+        @Override
+        public boolean runOnlyOnMaster() {
+            return batchedTask.executor.runOnlyOnMaster();
+        }
+
+        @Override
+        public ClusterState execute(ClusterState currentState) throws Exception {
+            batch = drainBatch(batchedTask);
+            if (batch.isEmpty()) {
+                // already executed as part of an earlier batch
+                return currentState;
+            }
+            logger.debug("processing [{}]: executing a batch of [{}] tasks", batchedTask.source, batch.size());
+            List<T> tasks = new ArrayList<>(batch.size());
+            for (BatchedTask<T> task : batch) {
+                tasks.add(task.task);
+            }
+            return batchedTask.executor.execute(currentState, tasks);
+        }
+
+        @Override
+        public void onFailure(String source, Throwable t) {
+            for (BatchedTask<T> task : batch) {
+                try {
+                    task.listener.onFailure(task.source, t);
+                } catch (Throwable e) {
+                    logger.warn("failed to notify the failure of [{}]", e, task.source);
+                }
+            }
+        }
+
+        @Override
+        public void onNoLongerMaster(String source) {
+            // nothing got drained yet, the other queued tasks are failed by their own update tasks
+            if (removeBatchedTask(batchedTask)) {
+                batchedTask.listener.onFailure(source, new EsRejectedExecutionException("no longer master. source: [" + source + "]"));
+            }
+        }
+
+        @Override
+        public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+            for (BatchedTask<T> task : batch) {
+                try {
+                    task.listener.clusterStateProcessed(task.source, oldState, newState);
+                } catch (Throwable t) {
+                    logger.warn("failed to notify the processing of [{}]", t, task.source);
+                }
+            }
+        }
+
+        int batchSize() {
+            synchronized (batchedTasks) {
+                if (!batch.isEmpty()) {
+                    return batch.size();
+                }
+                if (batchedTask.processed) {
+                    return 0;
+                }
+                return batchedTasks.get(batchedTask.executor).size();
+            }
+        }
+    }
+
     class NotifyTimeout implements Runnable {
         final TimeoutClusterStateListener listener;
         final TimeValue timeout;
@@ -38,6 +38,7 @@ public class PendingClusterTask implements Streamable {
     private Text source;
     private long timeInQueue;
     private boolean executing;
+    private int batchSize = 1;
 
     public PendingClusterTask() {
     }
@@ -50,6 +51,11 @@ public class PendingClusterTask implements Streamable {
         this.executing = executing;
     }
 
+    public PendingClusterTask(long insertOrder, Priority priority, Text source, long timeInQueue, boolean executing, int batchSize) {
+        this(insertOrder, priority, source, timeInQueue, executing);
+        this.batchSize = batchSize;
+    }
+
     public long getInsertOrder() {
         return insertOrder;
     }
@@ -74,6 +80,15 @@ public class PendingClusterTask implements Streamable {
         return executing;
     }
 
+    /**
+     * The number of queued tasks of the same kind that will be executed in one batch together with this task,
+     * <tt>1</tt> for tasks that are not batched and <tt>0</tt> for tasks that were already executed as part of
+     * an earlier batch.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         insertOrder = in.readVLong();
@@ -81,6 +96,9 @@ public class PendingClusterTask implements Streamable {
         source = in.readText();
         timeInQueue = in.readLong();
         executing = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            batchSize = in.readVInt();
+        }
     }
 
     @Override
@@ -90,5 +108,8 @@ public class PendingClusterTask implements Streamable {
         out.writeText(source);
         out.writeLong(timeInQueue);
         out.writeBoolean(executing);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVInt(batchSize);
+        }
     }
 }
\ No newline at end of file
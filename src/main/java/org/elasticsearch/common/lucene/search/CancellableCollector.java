@@ -0,0 +1,69 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.LeafCollector;
+import org.elasticsearch.tasks.CancellableTask;
+
+import java.io.IOException;
+
+/**
+ * A collector that stops the collection with a {@link org.elasticsearch.tasks.TaskCancelledException} once the task it
+ * collects for is cancelled. The task is checked on every segment and every {@link #CHECK_INTERVAL} collected documents.
+ */
+public class CancellableCollector implements XCollector {
+
+    static final int CHECK_INTERVAL = 1 << 10;
+
+    private final Collector collector;
+    private final CancellableTask task;
+
+    public CancellableCollector(Collector collector, CancellableTask task) {
+        this.collector = collector;
+        this.task = task;
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        if (collector instanceof XCollector) {
+            ((XCollector) collector).postCollection();
+        }
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        task.ensureNotCancelled();
+        return new FilterLeafCollector(collector.getLeafCollector(context)) {
+
+            private int count;
+
+            @Override
+            public void collect(int doc) throws IOException {
+                if ((++count & (CHECK_INTERVAL - 1)) == 0) {
+                    task.ensureNotCancelled();
+                }
+                in.collect(doc);
+            }
+        };
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterCollector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Sort;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.index.sort.IndexSort;
+
+import java.io.IOException;
+
+/**
+ * A collector that stops collecting a segment sorted with the index sort once it collected <tt>numDocsToCollect</tt>
+ * documents, the following documents of the segment can't compete since they come after in the sort. The wrapped
+ * collector must sort the hits on a prefix of the index sort, see {@link IndexSort#canEarlyTerminate(Sort, Sort)}.
+ * <p/>
+ * The segments that aren't sorted, those written by a flush, are collected fully. The total hits of the wrapped collector
+ * only count the collected documents once a segment was terminated early, see {@link #terminatedEarly()}.
+ */
+public class EarlyTerminatingSortedSegmentCollector extends FilterCollector {
+
+    private final Sort indexSort;
+    private final int numDocsToCollect;
+    private boolean terminatedEarly = false;
+
+    public EarlyTerminatingSortedSegmentCollector(Collector in, Sort indexSort, int numDocsToCollect) {
+        super(in);
+        if (numDocsToCollect <= 0) {
+            throw new ElasticsearchIllegalArgumentException("numDocsToCollect must always be > 0, got " + numDocsToCollect);
+        }
+        this.indexSort = indexSort;
+        this.numDocsToCollect = numDocsToCollect;
+    }
+
+    /**
+     * Whether the collection of at least one segment was terminated early.
+     */
+    public boolean terminatedEarly() {
+        return terminatedEarly;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        final LeafCollector leafCollector = super.getLeafCollector(context);
+        if (!IndexSort.isSorted(indexSort, context.reader())) {
+            return leafCollector;
+        }
+        return new FilterLeafCollector(leafCollector) {
+
+            private int numCollected;
+
+            @Override
+            public void collect(int doc) throws IOException {
+                super.collect(doc);
+                if (++numCollected >= numDocsToCollect) {
+                    terminatedEarly = true;
+                    throw new CollectionTerminatedException();
+                }
+            }
+
+            @Override
+            public boolean acceptsDocsOutOfOrder() {
+                // the documents need to come in the order of the segment
+                return false;
+            }
+        };
+    }
+}
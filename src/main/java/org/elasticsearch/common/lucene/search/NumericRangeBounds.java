@@ -0,0 +1,99 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.lucene.search;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Compares a numeric range with the minimum and maximum values a numeric field has in an index, as recorded in the terms
+ * dictionary of each segment, so that ranges that can't match any document are detected without running them.
+ */
+public final class NumericRangeBounds {
+
+    private NumericRangeBounds() {
+    }
+
+    /**
+     * Returns <code>true</code> if the given range may match documents of the reader, <code>false</code> if none of the
+     * values indexed for the field fall in the range. The type of the range (int, long, float or double) is the type of
+     * its bounds, a range without bounds always intersects.
+     */
+    public static boolean intersects(IndexReader reader, String field, @Nullable Number min, @Nullable Number max,
+                                     boolean includeMin, boolean includeMax) throws IOException {
+        final Number type = min != null ? min : max;
+        if (type == null) {
+            return true;
+        }
+        final boolean intEncoded = type instanceof Integer || type instanceof Float;
+        long lower = min == null ? Long.MIN_VALUE : sortableLong(min);
+        long upper = max == null ? Long.MAX_VALUE : sortableLong(max);
+        if (min != null && includeMin == false) {
+            if (lower == Long.MAX_VALUE) {
+                return false;
+            }
+            lower++;
+        }
+        if (max != null && includeMax == false) {
+            if (upper == Long.MIN_VALUE) {
+                return false;
+            }
+            upper--;
+        }
+        if (lower > upper) {
+            return false;
+        }
+        for (LeafReaderContext leaf : reader.leaves()) {
+            Terms terms = leaf.reader().terms(field);
+            if (terms == null) {
+                continue;
+            }
+            final long leafMin;
+            final long leafMax;
+            if (intEncoded) {
+                leafMin = NumericUtils.getMinInt(terms);
+                leafMax = NumericUtils.getMaxInt(terms);
+            } else {
+                leafMin = NumericUtils.getMinLong(terms);
+                leafMax = NumericUtils.getMaxLong(terms);
+            }
+            if (leafMin <= upper && leafMax >= lower) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long sortableLong(Number value) {
+        if (value instanceof Double) {
+            return NumericUtils.doubleToSortableLong(value.doubleValue());
+        } else if (value instanceof Float) {
+            return NumericUtils.floatToSortableInt(value.floatValue());
+        } else if (value instanceof Integer) {
+            return value.intValue();
+        }
+        return value.longValue();
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.common.lucene.search;
 
+import org.apache.lucene.queries.FilterClause;
 import org.apache.lucene.search.*;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.query.QueryParseContext;
@@ -50,6 +51,76 @@ public class Queries {
         return new MatchNoDocsQuery();
     }
 
+    /**
+     * Returns <code>true</code> if the query is known to match no document, for instance because it requires a clause
+     * that was rewritten to a {@link MatchNoDocsQuery} or a {@link MatchNoDocsFilter} at parse time. A <code>false</code>
+     * return value doesn't mean that the query matches documents.
+     */
+    public static boolean matchesNoDocs(Query query) {
+        if (query instanceof MatchNoDocsQuery) {
+            return true;
+        } else if (query instanceof BooleanQuery) {
+            boolean hasShouldClause = false;
+            boolean allShouldClausesMatchNoDocs = true;
+            for (BooleanClause clause : ((BooleanQuery) query).clauses()) {
+                if (clause.isRequired()) {
+                    if (matchesNoDocs(clause.getQuery())) {
+                        return true;
+                    }
+                    // the should clauses don't need to match if there is a required clause
+                    allShouldClausesMatchNoDocs = false;
+                } else if (clause.isProhibited() == false) {
+                    hasShouldClause = true;
+                    allShouldClausesMatchNoDocs &= matchesNoDocs(clause.getQuery());
+                }
+            }
+            return hasShouldClause && allShouldClausesMatchNoDocs;
+        } else if (query instanceof FilteredQuery) {
+            FilteredQuery filteredQuery = (FilteredQuery) query;
+            return matchesNoDocs(filteredQuery.getQuery()) || matchesNoDocs(filteredQuery.getFilter());
+        } else if (query instanceof ConstantScoreQuery) {
+            ConstantScoreQuery constantScoreQuery = (ConstantScoreQuery) query;
+            if (constantScoreQuery.getQuery() != null) {
+                return matchesNoDocs(constantScoreQuery.getQuery());
+            }
+            return matchesNoDocs(constantScoreQuery.getFilter());
+        }
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if the filter is known to match no document, see {@link #matchesNoDocs(Query)}.
+     */
+    public static boolean matchesNoDocs(Filter filter) {
+        if (filter instanceof MatchNoDocsFilter) {
+            return true;
+        } else if (filter instanceof XBooleanFilter) {
+            boolean hasShouldClause = false;
+            boolean allShouldClausesMatchNoDocs = true;
+            for (FilterClause clause : (XBooleanFilter) filter) {
+                if (clause.getOccur() == BooleanClause.Occur.MUST) {
+                    if (matchesNoDocs(clause.getFilter())) {
+                        return true;
+                    }
+                    allShouldClausesMatchNoDocs = false;
+                } else if (clause.getOccur() == BooleanClause.Occur.SHOULD) {
+                    hasShouldClause = true;
+                    allShouldClausesMatchNoDocs &= matchesNoDocs(clause.getFilter());
+                }
+            }
+            return hasShouldClause && allShouldClausesMatchNoDocs;
+        } else if (filter instanceof AndFilter) {
+            for (Filter clause : ((AndFilter) filter).filters()) {
+                if (matchesNoDocs(clause)) {
+                    return true;
+                }
+            }
+        } else if (filter instanceof CustomQueryWrappingFilter) {
+            return matchesNoDocs(((CustomQueryWrappingFilter) filter).getQuery());
+        }
+        return false;
+    }
+
     public static boolean isNegativeQuery(Query q) {
         if (!(q instanceof BooleanQuery)) {
             return false;
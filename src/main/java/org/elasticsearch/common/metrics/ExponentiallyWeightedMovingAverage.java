@@ -0,0 +1,76 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.metrics;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An exponentially weighted moving average of the values added to it. Unlike {@link EWMA}, which computes a rate and
+ * expects to be ticked at a fixed interval, each added value is a sample, for example the latency of a request.
+ * <p/>
+ * The first added value initializes the average, it is updated without locking afterwards.
+ */
+public class ExponentiallyWeightedMovingAverage implements Metric {
+
+    private final double alpha;
+    private final AtomicLong averageBits;
+    private volatile boolean initialized = false;
+
+    /**
+     * Creates a new average with the given smoothing constant, the higher it is the faster older values are discounted.
+     *
+     * @param alpha the smoothing constant, between 0 and 1
+     */
+    public ExponentiallyWeightedMovingAverage(double alpha) {
+        if (alpha < 0 || alpha > 1) {
+            throw new ElasticsearchIllegalArgumentException("alpha must be greater or equal to 0 and less than or equal to 1, got [" + alpha + "]");
+        }
+        this.alpha = alpha;
+        this.averageBits = new AtomicLong(Double.doubleToLongBits(0.0));
+    }
+
+    /**
+     * Adds a value to the average.
+     */
+    public void addValue(double value) {
+        if (initialized == false) {
+            averageBits.set(Double.doubleToLongBits(value));
+            initialized = true;
+            return;
+        }
+        while (true) {
+            long currentBits = averageBits.get();
+            double current = Double.longBitsToDouble(currentBits);
+            double updated = alpha * value + (1 - alpha) * current;
+            if (averageBits.compareAndSet(currentBits, Double.doubleToLongBits(updated))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the current average.
+     */
+    public double getAverage() {
+        return Double.longBitsToDouble(averageBits.get());
+    }
+}
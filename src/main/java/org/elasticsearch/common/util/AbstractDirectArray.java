@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import com.google.common.base.Preconditions;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.cache.recycler.DirectPageCacheRecycler;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.recycler.Recycler;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.elasticsearch.common.util.BigArrays.PAGE_SIZE_IN_BYTES;
+
+/** Common implementation for arrays that store their values in pages of direct memory, see {@link OffHeapBigArrays}. */
+abstract class AbstractDirectArray extends AbstractArray {
+
+    private final DirectPageCacheRecycler recycler;
+    private final int elementShift;
+    private final int pageShift;
+    private final int pageMask;
+
+    protected ByteBuffer[] pages;
+    private Recycler.V<?>[] cache;
+    private long size;
+
+    protected AbstractDirectArray(long size, OffHeapBigArrays bigArrays, int numBytesPerElement, boolean clearOnResize) {
+        super(bigArrays, clearOnResize);
+        Preconditions.checkArgument((numBytesPerElement & (numBytesPerElement - 1)) == 0, "numBytesPerElement must be a power of two");
+        this.recycler = bigArrays.directRecycler;
+        this.elementShift = Integer.numberOfTrailingZeros(numBytesPerElement);
+        final int pageSize = PAGE_SIZE_IN_BYTES >>> elementShift;
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+        this.pageMask = pageSize - 1;
+        this.size = size;
+        pages = new ByteBuffer[numPages(size)];
+        cache = new Recycler.V<?>[pages.length];
+        for (int i = 0; i < pages.length; ++i) {
+            newPage(i);
+        }
+    }
+
+    final int numPages(long capacity) {
+        final long numPages = (capacity + pageMask) >>> pageShift;
+        Preconditions.checkArgument(numPages <= Integer.MAX_VALUE, "pageSize=" + (pageMask + 1) + " is too small for such as capacity: " + capacity);
+        return (int) numPages;
+    }
+
+    final int pageIndex(long index) {
+        return (int) (index >>> pageShift);
+    }
+
+    /** Returns the offset in bytes of the value at the given index in its page. */
+    final int offsetInPage(long index) {
+        return ((int) index & pageMask) << elementShift;
+    }
+
+    public final long size() {
+        return size;
+    }
+
+    @Override
+    public final long ramBytesUsed() {
+        // the pages live out of the heap, but they are accounted like heap pages so that the circuit breaker still applies
+        return (long) numPages(size) * PAGE_SIZE_IN_BYTES;
+    }
+
+    /** Change the size of this array. Content between indexes <code>0</code> and <code>min(size(), newSize)</code> will be preserved. */
+    public final void resize(long newSize) {
+        final int numPages = numPages(newSize);
+        if (numPages > pages.length) {
+            pages = Arrays.copyOf(pages, ArrayUtil.oversize(numPages, RamUsageEstimator.NUM_BYTES_OBJECT_REF));
+            cache = Arrays.copyOf(cache, pages.length);
+        }
+        for (int i = numPages - 1; i >= 0 && pages[i] == null; --i) {
+            newPage(i);
+        }
+        for (int i = numPages; i < pages.length && pages[i] != null; ++i) {
+            pages[i] = null;
+            cache[i].close();
+            cache[i] = null;
+        }
+        this.size = newSize;
+    }
+
+    private void newPage(int page) {
+        final Recycler.V<ByteBuffer> v = recycler.page(clearOnResize);
+        assert cache[page] == null;
+        cache[page] = v;
+        pages[page] = v.v();
+    }
+
+    @Override
+    protected final void doClose() {
+        Releasables.close(cache);
+        cache = null;
+        pages = null;
+    }
+}
@@ -385,7 +385,7 @@ public class BigArrays extends AbstractComponent {
      * negative, or checkBreaker is false, the breaker will be adjusted
      * without tripping
      */
-    void adjustBreaker(long delta) {
+    public void adjustBreaker(long delta) {
         if (this.breakerService != null) {
             CircuitBreaker breaker = this.breakerService.getBreaker(CircuitBreaker.Name.REQUEST);
             if (this.checkBreaker == true) {
@@ -427,7 +427,7 @@ public class BigArrays extends AbstractComponent {
         return array;
     }
 
-    private <T extends BigArray> T validate(T array) {
+    <T extends BigArray> T validate(T array) {
         boolean success = false;
         try {
             adjustBreaker(array.ramBytesUsed());
@@ -45,6 +45,6 @@ public class BigArraysModule extends AbstractModule implements SpawnModules {
 
     @Override
     public Iterable<? extends Module> spawnModules() {
-        return ImmutableList.of(createModule(settings.getAsClass(IMPL, DefaultBigArraysModule.class), settings));
+        return ImmutableList.of(createModule(settings.getAsClass(IMPL, DefaultBigArraysModule.class, "org.elasticsearch.common.util.", "BigArraysModule"), settings));
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import com.google.common.base.Preconditions;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+
+import java.nio.ByteBuffer;
+
+import static org.elasticsearch.common.util.BigArrays.BYTE_PAGE_SIZE;
+
+/**
+ * Byte array backed by pages of direct memory, see {@link OffHeapBigArrays}.
+ */
+final class DirectByteArray extends AbstractDirectArray implements ByteArray {
+
+    DirectByteArray(long size, OffHeapBigArrays bigArrays, boolean clearOnResize) {
+        super(size, bigArrays, RamUsageEstimator.NUM_BYTES_BYTE, clearOnResize);
+    }
+
+    @Override
+    public byte get(long index) {
+        return pages[pageIndex(index)].get(offsetInPage(index));
+    }
+
+    @Override
+    public byte set(long index, byte value) {
+        final ByteBuffer page = pages[pageIndex(index)];
+        final int offset = offsetInPage(index);
+        final byte ret = page.get(offset);
+        page.put(offset, value);
+        return ret;
+    }
+
+    @Override
+    public boolean get(long index, int len, BytesRef ref) {
+        assert index + len <= size();
+        // the bytes are not on the heap, so they are always copied
+        ref.bytes = new byte[len];
+        ref.offset = 0;
+        ref.length = len;
+        int pageIndex = pageIndex(index);
+        int offset = offsetInPage(index);
+        int copied = 0;
+        while (copied < len) {
+            final int copyLength = Math.min(BYTE_PAGE_SIZE - offset, len - copied);
+            final ByteBuffer page = pages[pageIndex].duplicate();
+            page.position(offset);
+            page.get(ref.bytes, copied, copyLength);
+            copied += copyLength;
+            ++pageIndex;
+            offset = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public void set(long index, byte[] buf, int offset, int len) {
+        assert index + len <= size();
+        int pageIndex = pageIndex(index);
+        int offsetInPage = offsetInPage(index);
+        while (len > 0) {
+            final int copyLength = Math.min(BYTE_PAGE_SIZE - offsetInPage, len);
+            final ByteBuffer page = pages[pageIndex].duplicate();
+            page.position(offsetInPage);
+            page.put(buf, offset, copyLength);
+            offset += copyLength;
+            len -= copyLength;
+            ++pageIndex;
+            offsetInPage = 0;
+        }
+    }
+
+    @Override
+    public void fill(long fromIndex, long toIndex, byte value) {
+        Preconditions.checkArgument(fromIndex <= toIndex);
+        for (long i = fromIndex; i < toIndex; ++i) {
+            pages[pageIndex(i)].put(offsetInPage(i), value);
+        }
+    }
+}
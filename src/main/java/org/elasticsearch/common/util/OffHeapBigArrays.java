@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.cache.recycler.DirectPageCacheRecycler;
+import org.elasticsearch.cache.recycler.DirectPageCacheStats;
+import org.elasticsearch.cache.recycler.PageCacheRecycler;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+
+/**
+ * {@link BigArrays} that store the values of the byte, int, long and double arrays that span more than one page in pooled
+ * pages of direct memory, see {@link DirectPageCacheRecycler}. Large aggregations then no longer fill the old generation
+ * with pages, which makes garbage collections shorter on large heaps. Smaller arrays, as well as float and object arrays,
+ * are still allocated on the heap.
+ * <p/>
+ * The direct memory held by the arrays is accounted by the circuit breaker the same way heap memory is. It is used
+ * instead of heap memory when the <tt>common.util.big_arrays_impl</tt> setting is set to <tt>off_heap</tt>, in which
+ * case <tt>-XX:MaxDirectMemorySize</tt> needs to leave room for the <tt>cache.recycler.direct_page.limit</tt> pool.
+ */
+public class OffHeapBigArrays extends BigArrays {
+
+    final DirectPageCacheRecycler directRecycler;
+
+    @Inject
+    public OffHeapBigArrays(Settings settings, PageCacheRecycler recycler, @Nullable CircuitBreakerService breakerService, DirectPageCacheRecycler directRecycler) {
+        // Checking the breaker is disabled if not specified
+        this(settings, recycler, breakerService, directRecycler, false);
+    }
+
+    public OffHeapBigArrays(Settings settings, PageCacheRecycler recycler, @Nullable CircuitBreakerService breakerService, DirectPageCacheRecycler directRecycler,
+                            boolean checkBreaker) {
+        super(settings, recycler, breakerService, checkBreaker);
+        this.directRecycler = directRecycler;
+    }
+
+    @Override
+    public BigArrays withCircuitBreaking() {
+        return new OffHeapBigArrays(this.settings, this.recycler, this.breakerService, this.directRecycler, true);
+    }
+
+    /**
+     * Returns statistics about the pages of direct memory.
+     */
+    public DirectPageCacheStats stats() {
+        return directRecycler.stats();
+    }
+
+    private <T extends AbstractDirectArray> T resizeInPlace(T array, long newSize) {
+        final long oldMemSize = array.ramBytesUsed();
+        array.resize(newSize);
+        adjustBreaker(array.ramBytesUsed() - oldMemSize);
+        return array;
+    }
+
+    @Override
+    public ByteArray newByteArray(long size, boolean clearOnResize) {
+        if (size > BYTE_PAGE_SIZE) {
+            return validate(new DirectByteArray(size, this, clearOnResize));
+        }
+        return super.newByteArray(size, clearOnResize);
+    }
+
+    @Override
+    public ByteArray resize(ByteArray array, long size) {
+        if (array instanceof DirectByteArray) {
+            return resizeInPlace((DirectByteArray) array, size);
+        }
+        return super.resize(array, size);
+    }
+
+    @Override
+    public IntArray newIntArray(long size, boolean clearOnResize) {
+        if (size > INT_PAGE_SIZE) {
+            return validate(new DirectIntArray(size, this, clearOnResize));
+        }
+        return super.newIntArray(size, clearOnResize);
+    }
+
+    @Override
+    public IntArray resize(IntArray array, long size) {
+        if (array instanceof DirectIntArray) {
+            return resizeInPlace((DirectIntArray) array, size);
+        }
+        return super.resize(array, size);
+    }
+
+    @Override
+    public LongArray newLongArray(long size, boolean clearOnResize) {
+        if (size > LONG_PAGE_SIZE) {
+            return validate(new DirectLongArray(size, this, clearOnResize));
+        }
+        return super.newLongArray(size, clearOnResize);
+    }
+
+    @Override
+    public LongArray resize(LongArray array, long size) {
+        if (array instanceof DirectLongArray) {
+            return resizeInPlace((DirectLongArray) array, size);
+        }
+        return super.resize(array, size);
+    }
+
+    @Override
+    public DoubleArray newDoubleArray(long size, boolean clearOnResize) {
+        if (size > DOUBLE_PAGE_SIZE) {
+            return validate(new DirectDoubleArray(size, this, clearOnResize));
+        }
+        return super.newDoubleArray(size, clearOnResize);
+    }
+
+    @Override
+    public DoubleArray resize(DoubleArray array, long size) {
+        if (array instanceof DirectDoubleArray) {
+            return resizeInPlace((DirectDoubleArray) array, size);
+        }
+        return super.resize(array, size);
+    }
+}
@@ -20,9 +20,11 @@
 package org.elasticsearch.discovery.zen.publish;
 
 import com.google.common.collect.Maps;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractComponent;
@@ -39,6 +41,7 @@ import org.elasticsearch.discovery.zen.DiscoveryNodesProvider;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -67,6 +70,13 @@ public class PublishClusterStateAction extends AbstractComponent {
     private final DiscoverySettings discoverySettings;
     private final ClusterName clusterName;
 
+    // the last cluster state this node published as master, used to calculate diffs
+    private volatile ClusterState lastPublishedState;
+
+    // the last cluster state this node received, incoming diffs are applied to it
+    private final Object lastSeenClusterStateMutex = new Object();
+    private ClusterState lastSeenClusterState;
+
     public PublishClusterStateAction(Settings settings, TransportService transportService, DiscoveryNodesProvider nodesProvider,
                                      NewClusterStateListener listener, DiscoverySettings discoverySettings, ClusterName clusterName) {
         super(settings);
@@ -90,7 +100,14 @@ public class PublishClusterStateAction extends AbstractComponent {
 
         DiscoveryNode localNode = nodesProvider.nodes().localNode();
 
+        // the diff is calculated against the last cluster state we published, nodes that did not receive it
+        // (or a newer master that took over in between) will reject the diff and get the full state instead
+        final ClusterState previousState = lastPublishedState;
+        lastPublishedState = clusterState;
+        final boolean sendDiffs = discoverySettings.getPublishDiff() && previousState != null;
+
         Map<Version, BytesReference> serializedStates = Maps.newHashMap();
+        Map<Version, BytesReference> serializedDiffs = Maps.newHashMap();
 
         final AtomicBoolean timedOutWaitingForNodes = new AtomicBoolean(false);
         final TimeValue publishTimeout = discoverySettings.getPublishTimeout();
@@ -101,50 +118,24 @@ public class PublishClusterStateAction extends AbstractComponent {
             }
             // try and serialize the cluster state once (or per version), so we don't serialize it
             // per node when we send it over the wire, compress it while we are at it...
-            BytesReference bytes = serializedStates.get(node.version());
+            final boolean sendDiff = sendDiffs && node.version().onOrAfter(Version.V_2_0_0) && previousState.nodes().nodeExists(node.id());
+            Map<Version, BytesReference> serializedCache = sendDiff ? serializedDiffs : serializedStates;
+            BytesReference bytes = serializedCache.get(node.version());
             if (bytes == null) {
                 try {
-                    BytesStreamOutput bStream = new BytesStreamOutput();
-                    StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
-                    stream.setVersion(node.version());
-                    ClusterState.Builder.writeTo(clusterState, stream);
-                    stream.close();
-                    bytes = bStream.bytes();
-                    serializedStates.put(node.version(), bytes);
+                    if (sendDiff) {
+                        bytes = serializeDiffClusterState(previousState, clusterState, node.version());
+                    } else {
+                        bytes = serializeFullClusterState(clusterState, node.version());
+                    }
+                    serializedCache.put(node.version(), bytes);
                 } catch (Throwable e) {
                     logger.warn("failed to serialize cluster_state before publishing it to node {}", e, node);
                     publishResponseHandler.onFailure(node, e);
                     continue;
                 }
             }
-            try {
-                TransportRequestOptions options = TransportRequestOptions.options().withType(TransportRequestOptions.Type.STATE).withCompress(false);
-                // no need to put a timeout on the options here, because we want the response to eventually be received
-                // and not log an error if it arrives after the timeout
-                transportService.sendRequest(node, ACTION_NAME,
-                        new BytesTransportRequest(bytes, node.version()),
-                        options, // no need to compress, we already compressed the bytes
-
-                        new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
-
-                            @Override
-                            public void handleResponse(TransportResponse.Empty response) {
-                                if (timedOutWaitingForNodes.get()) {
-                                    logger.debug("node {} responded for cluster state [{}] (took longer than [{}])", node, clusterState.version(), publishTimeout);
-                                }
-                                publishResponseHandler.onResponse(node);
-                            }
-
-                            @Override
-                            public void handleException(TransportException exp) {
-                                logger.debug("failed to send cluster state to {}", exp, node);
-                                publishResponseHandler.onFailure(node, exp);
-                            }
-                        });
-            } catch (Throwable t) {
-                logger.debug("error sending cluster state to {}", t, node);
-                publishResponseHandler.onFailure(node, t);
-            }
+            sendClusterStateToNode(clusterState, node, bytes, sendDiff, timedOutWaitingForNodes, publishTimeout, publishResponseHandler);
         }
 
         if (publishTimeout.millis() > 0) {
@@ -161,6 +152,79 @@ public class PublishClusterStateAction extends AbstractComponent {
         }
     }
 
+    private void sendClusterStateToNode(final ClusterState clusterState, final DiscoveryNode node, BytesReference bytes, final boolean sendDiff,
+                                        final AtomicBoolean timedOutWaitingForNodes, final TimeValue publishTimeout,
+                                        final ClusterStatePublishResponseHandler publishResponseHandler) {
+        try {
+            TransportRequestOptions options = TransportRequestOptions.options().withType(TransportRequestOptions.Type.STATE).withCompress(false);
+            // no need to put a timeout on the options here, because we want the response to eventually be received
+            // and not log an error if it arrives after the timeout
+            transportService.sendRequest(node, ACTION_NAME,
+                    new BytesTransportRequest(bytes, node.version()),
+                    options, // no need to compress, we already compressed the bytes
+
+                    new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+
+                        @Override
+                        public void handleResponse(TransportResponse.Empty response) {
+                            if (timedOutWaitingForNodes.get()) {
+                                logger.debug("node {} responded for cluster state [{}] (took longer than [{}])", node, clusterState.version(), publishTimeout);
+                            }
+                            publishResponseHandler.onResponse(node);
+                        }
+
+                        @Override
+                        public void handleException(TransportException exp) {
+                            if (sendDiff && ExceptionsHelper.unwrapCause(exp) instanceof IncompatibleClusterStateVersionException) {
+                                logger.debug("resending full cluster state to node {} reason {}", node, exp.getDetailedMessage());
+                                sendFullClusterState(clusterState, node, timedOutWaitingForNodes, publishTimeout, publishResponseHandler);
+                            } else {
+                                logger.debug("failed to send cluster state to {}", exp, node);
+                                publishResponseHandler.onFailure(node, exp);
+                            }
+                        }
+                    });
+        } catch (Throwable t) {
+            logger.debug("error sending cluster state to {}", t, node);
+            publishResponseHandler.onFailure(node, t);
+        }
+    }
+
+    private void sendFullClusterState(ClusterState clusterState, DiscoveryNode node, AtomicBoolean timedOutWaitingForNodes, TimeValue publishTimeout,
+                                      ClusterStatePublishResponseHandler publishResponseHandler) {
+        BytesReference bytes;
+        try {
+            bytes = serializeFullClusterState(clusterState, node.version());
+        } catch (Throwable e) {
+            logger.warn("failed to serialize cluster_state before publishing it to node {}", e, node);
+            publishResponseHandler.onFailure(node, e);
+            return;
+        }
+        sendClusterStateToNode(clusterState, node, bytes, false, timedOutWaitingForNodes, publishTimeout, publishResponseHandler);
+    }
+
+    public static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        BytesStreamOutput bStream = new BytesStreamOutput();
+        StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
+        stream.setVersion(nodeVersion);
+        if (nodeVersion.onOrAfter(Version.V_2_0_0)) {
+            stream.writeBoolean(false);
+        }
+        ClusterState.Builder.writeTo(clusterState, stream);
+        stream.close();
+        return bStream.bytes();
+    }
+
+    public static BytesReference serializeDiffClusterState(ClusterState previousState, ClusterState clusterState, Version nodeVersion) throws IOException {
+        BytesStreamOutput bStream = new BytesStreamOutput();
+        StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
+        stream.setVersion(nodeVersion);
+        stream.writeBoolean(true);
+        ClusterState.Builder.writeDiffTo(previousState, clusterState, stream);
+        stream.close();
+        return bStream.bytes();
+    }
+
     private class PublishClusterStateRequestHandler extends BaseTransportRequestHandler<BytesTransportRequest> {
 
         @Override
@@ -178,9 +242,22 @@ public class PublishClusterStateAction extends AbstractComponent {
                 in = CachedStreamInput.cachedHandles(request.bytes().streamInput());
             }
             in.setVersion(request.version());
-            ClusterState clusterState = ClusterState.Builder.readFrom(in, nodesProvider.nodes().localNode(), clusterName);
+            ClusterState clusterState;
+            synchronized (lastSeenClusterStateMutex) {
+                // nodes before 2.0 don't send the diff marker and always send the full cluster state
+                if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+                    if (lastSeenClusterState == null) {
+                        throw new IncompatibleClusterStateVersionException("have no local cluster state to apply the received diff to");
+                    }
+                    clusterState = ClusterState.Builder.readDiffFrom(in, lastSeenClusterState, nodesProvider.nodes().localNode());
+                    logger.debug("received diff cluster state version {} with uuid {}, diff size {}", clusterState.version(), clusterState.uuid(), request.bytes().length());
+                } else {
+                    clusterState = ClusterState.Builder.readFrom(in, nodesProvider.nodes().localNode(), clusterName);
+                    logger.debug("received full cluster state version {} with uuid {}, size {}", clusterState.version(), clusterState.uuid(), request.bytes().length());
+                }
+                lastSeenClusterState = clusterState;
+            }
             clusterState.status(ClusterState.ClusterStateStatus.RECEIVED);
-            logger.debug("received cluster state version {}", clusterState.version());
             listener.onNewClusterState(clusterState, new NewClusterStateListener.NewStateProcessed() {
                 @Override
                 public void onNewClusterStateProcessed() {
@@ -65,6 +65,12 @@ public class HttpRequestHandler extends SimpleChannelUpstreamHandler {
         super.messageReceived(ctx, e);
     }
 
+    @Override
+    public void channelInterestChanged(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        NettyHttpChannel.channelInterestChanged(ctx.getChannel());
+        super.channelInterestChanged(ctx, e);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
         serverTransport.exceptionCaught(ctx, e);
@@ -40,6 +40,7 @@ import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.ParseContext.Document;
 import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.translog.Translog;
 
 import java.util.List;
@@ -140,6 +141,34 @@ public interface Engine extends CloseableComponent {
     /** fail engine due to some error. the engine will also be closed. */
     void failEngine(String reason, Throwable failure);
 
+    /**
+     * Returns the local checkpoint of this shard copy, see {@link org.elasticsearch.index.seqno.LocalCheckpointTracker}.
+     */
+    long getLocalCheckpoint();
+
+    /**
+     * Returns the highest sequence number issued or seen by this shard copy.
+     */
+    long getMaxSeqNo();
+
+    /**
+     * Returns the sequence number above which all operations are guaranteed to be in the current translog,
+     * <tt>Long.MAX_VALUE</tt> if this is not known (yet).
+     */
+    long getTranslogStartSeqNo();
+
+    /**
+     * Returns the id of the history of operations this shard copy holds. Two copies with the same history
+     * differ only by operations that can be replayed from the translog.
+     */
+    String getHistoryUUID();
+
+    /**
+     * Marks all sequence numbers up to the given one as processed. Called once a recovery made sure this
+     * shard copy holds all operations up to it.
+     */
+    void markSeqNosAsCompletedUpTo(long seqNo);
+
     static interface FailedEngineListener {
         void onFailedEngine(ShardId shardId, String reason, @Nullable Throwable t);
     }
@@ -300,6 +329,13 @@ public interface Engine extends CloseableComponent {
         Type opType();
 
         Origin origin();
+
+        /**
+         * Returns the sequence number of this operation, {@link SequenceNumbers#UNASSIGNED_SEQ_NO} if it was not assigned one.
+         */
+        long seqNo();
+
+        void updateSeqNo(long seqNo);
     }
 
     static abstract class IndexingOperation implements Operation {
@@ -311,6 +347,8 @@ public interface Engine extends CloseableComponent {
         private final VersionType versionType;
         private final Origin origin;
         private final boolean canHaveDuplicates;
+        private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+        private Translog.Location translogLocation;
 
         private final long startTime;
         private long endTime;
@@ -376,6 +414,16 @@ public interface Engine extends CloseableComponent {
             this.doc.version().setLongValue(version);
         }
 
+        @Override
+        public long seqNo() {
+            return this.seqNo;
+        }
+
+        @Override
+        public void updateSeqNo(long seqNo) {
+            this.seqNo = seqNo;
+        }
+
         public VersionType versionType() {
             return this.versionType;
         }
@@ -384,6 +432,17 @@ public interface Engine extends CloseableComponent {
             return this.canHaveDuplicates;
         }
 
+        public void setTranslogLocation(Translog.Location translogLocation) {
+            this.translogLocation = translogLocation;
+        }
+
+        /**
+         * Returns the location of this operation in the translog, <tt>null</tt> if it was not added to the translog (yet).
+         */
+        public Translog.Location getTranslogLocation() {
+            return this.translogLocation;
+        }
+
         public String parent() {
             return this.doc.parent();
         }
@@ -487,6 +546,8 @@ public interface Engine extends CloseableComponent {
         private final VersionType versionType;
         private final Origin origin;
         private boolean found;
+        private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
+        private Translog.Location translogLocation;
 
         private final long startTime;
         private long endTime;
@@ -508,6 +569,7 @@ public interface Engine extends CloseableComponent {
 
         public Delete(Delete template, VersionType versionType) {
             this(template.type(), template.id(), template.uid(), template.version(), versionType, template.origin(), template.startTime(), template.found());
+            this.seqNo = template.seqNo();
         }
 
         @Override
@@ -537,6 +599,16 @@ public interface Engine extends CloseableComponent {
             this.found = found;
         }
 
+        @Override
+        public long seqNo() {
+            return this.seqNo;
+        }
+
+        @Override
+        public void updateSeqNo(long seqNo) {
+            this.seqNo = seqNo;
+        }
+
         /**
          * before delete execution this is the version to be deleted. After this is the version of the "delete" transaction record.
          */
@@ -552,6 +624,17 @@ public interface Engine extends CloseableComponent {
             return this.found;
         }
 
+        public void setTranslogLocation(Translog.Location translogLocation) {
+            this.translogLocation = translogLocation;
+        }
+
+        /**
+         * Returns the location of this operation in the translog, <tt>null</tt> if it was not added to the translog (yet).
+         */
+        public Translog.Location getTranslogLocation() {
+            return this.translogLocation;
+        }
+
         /**
          * Returns operation start time in nanoseconds.
          */
@@ -35,6 +35,7 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.cluster.routing.operation.hash.djb.DjbHashFunction;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Preconditions;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.logging.ESLogger;
@@ -59,10 +60,13 @@ import org.elasticsearch.index.merge.policy.ElasticsearchMergePolicy;
 import org.elasticsearch.index.merge.policy.MergePolicyProvider;
 import org.elasticsearch.index.merge.scheduler.MergeSchedulerProvider;
 import org.elasticsearch.index.search.nested.IncludeNestedDocsQuery;
+import org.elasticsearch.index.seqno.LocalCheckpointTracker;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogException;
 import org.elasticsearch.indices.warmer.IndicesWarmer;
 import org.elasticsearch.indices.warmer.InternalIndicesWarmer;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -100,6 +104,7 @@ public class InternalEngine implements Engine {
     private volatile boolean enableGcDeletes = true;
     private volatile String codecName;
     private final boolean optimizeAutoGenerateId;
+    private final Sort indexSort;
 
     private final ThreadPool threadPool;
 
@@ -137,6 +142,11 @@ public class InternalEngine implements Engine {
     // we use flushNeeded here, since if there are no changes, then the commit won't write
     // will not really happen, and then the commitUserData and the new translog will not be reflected
     private volatile boolean flushNeeded = false;
+
+    private volatile LocalCheckpointTracker seqNoTracker;
+    // all operations with a higher sequence number are in the current translog
+    private volatile long translogStartSeqNo = Long.MAX_VALUE;
+    private volatile String historyUUID;
     private final AtomicInteger flushing = new AtomicInteger();
     private final Lock flushLock = new ReentrantLock();
 
@@ -169,7 +179,7 @@ public class InternalEngine implements Engine {
                           AnalysisService analysisService, SimilarityService similarityService,
                           boolean enableGcDeletes, long gcDeletesInMillis, ByteSizeValue indexingBufferSize, String codecName,
                           boolean compoundOnFlush, int indexConcurrency, boolean optimizeAutoGenerateId, boolean failEngineOnCorruption,
-                          FailedEngineListener failedEngineListener) throws EngineException {
+                          @Nullable Sort indexSort, FailedEngineListener failedEngineListener) throws EngineException {
         Preconditions.checkNotNull(store, "Store must be provided to the engine");
         Preconditions.checkNotNull(deletionPolicy, "Snapshot deletion policy must be provided to the engine");
         Preconditions.checkNotNull(translog, "Translog must be provided to the engine");
@@ -180,6 +190,7 @@ public class InternalEngine implements Engine {
         this.enableGcDeletes = enableGcDeletes;
         this.indexingBufferSize = indexingBufferSize;
         this.codecName = codecName;
+        this.indexSort = indexSort;
 
         this.threadPool = threadPool;
         this.lastDeleteVersionPruneTimeMSec = threadPool.estimatedTimeInMillis();
@@ -284,16 +295,34 @@ public class InternalEngine implements Engine {
                 // we rely on that for the commit data translog id key
                 final long translogId = Math.max(0, translog.findLargestPresentTranslogId()) + 1;
                 boolean mustCommitTranslogId = true;
+                String historyUUID = null;
+                long localCheckpoint = SequenceNumbers.NO_OPS_PERFORMED;
+                long maxSeqNo = SequenceNumbers.NO_OPS_PERFORMED;
+                long translogStartSeqNo = SequenceNumbers.NO_OPS_PERFORMED;
                 if (Lucene.indexExists(store.directory())) {
                     final Map<String, String> commitUserData = Lucene.readSegmentInfos(store.directory()).getUserData();
                     mustCommitTranslogId = !commitUserData.containsKey(Translog.TRANSLOG_ID_KEY);
+                    historyUUID = commitUserData.get(SequenceNumbers.HISTORY_UUID_KEY);
+                    localCheckpoint = Math.max(localCheckpoint, SequenceNumbers.readLocalCheckpoint(commitUserData));
+                    maxSeqNo = Math.max(localCheckpoint, SequenceNumbers.readMaxSeqNo(commitUserData));
+                    // we don't know which operations the translog that is replayed on top of this commit holds
+                    translogStartSeqNo = Long.MAX_VALUE;
+                }
+                if (historyUUID == null) {
+                    // a new index or an index that predates sequence numbers, operations based recovery
+                    // is only possible between copies that share the same history
+                    historyUUID = Strings.randomBase64UUID();
+                    mustCommitTranslogId = true;
                 }
+                this.historyUUID = historyUUID;
+                this.seqNoTracker = new LocalCheckpointTracker(maxSeqNo, localCheckpoint);
                 if (mustCommitTranslogId) { // translog id is not in the metadata - fix this inconsistency some code relies on this and old indices might not have it.
-                    indexWriter.setCommitData(Collections.singletonMap(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)));
+                    indexWriter.setCommitData(commitData(translogId));
                     indexWriter.commit();
                 }
 
                 translog.newTranslog(translogId);
+                this.translogStartSeqNo = translogStartSeqNo;
                 final SearcherManager searcherManager = buildSearchManager(indexWriter);
                 closeOnFailure.add(searcherManager);
                 versionMap.setManager(searcherManager);
@@ -447,6 +476,9 @@ public class InternalEngine implements Engine {
             dirty = true;
             possibleMergeNeeded = true;
             flushNeeded = true;
+        } catch (TranslogException t) {
+            failEngineOnLostSeqNo(create, t);
+            throw t;
         } catch (OutOfMemoryError | IllegalStateException | IOException t) {
             maybeFailEngine(t, "create");
             throw new CreateFailedEngineException(shardId, create, t);
@@ -484,6 +516,7 @@ public class InternalEngine implements Engine {
         long updatedVersion;
         long expectedVersion = create.version();
         if (create.versionType().isVersionConflictForWrites(currentVersion, expectedVersion)) {
+            markStaleSeqNoAsCompleted(create);
             if (create.origin() == Operation.Origin.RECOVERY) {
                 return;
             } else {
@@ -496,6 +529,7 @@ public class InternalEngine implements Engine {
         boolean doUpdate = false;
         if ((versionValue != null && versionValue.delete() == false) || (versionValue == null && currentVersion != Versions.NOT_FOUND)) {
             if (create.origin() == Operation.Origin.RECOVERY) {
+                markStaleSeqNoAsCompleted(create);
                 return;
             } else if (create.origin() == Operation.Origin.REPLICA) {
                 // #7142: the primary already determined it's OK to index this document, and we confirmed above that the version doesn't
@@ -523,7 +557,9 @@ public class InternalEngine implements Engine {
                 writer.addDocument(create.docs().get(0), create.analyzer());
             }
         }
-        Translog.Location translogLocation = translog.add(new Translog.Create(create));
+        assignSeqNo(create);
+        Translog.Location translogLocation = addToTranslog(create, new Translog.Create(create));
+        create.setTranslogLocation(translogLocation);
 
         versionMap.putUnderLock(create.uid().bytes(), new VersionValue(updatedVersion, translogLocation));
 
@@ -541,6 +577,9 @@ public class InternalEngine implements Engine {
             dirty = true;
             possibleMergeNeeded = true;
             flushNeeded = true;
+        } catch (TranslogException t) {
+            failEngineOnLostSeqNo(index, t);
+            throw t;
         } catch (OutOfMemoryError | IllegalStateException | IOException t) {
             maybeFailEngine(t, "index");
             throw new IndexFailedEngineException(shardId, index, t);
@@ -577,54 +616,61 @@ public class InternalEngine implements Engine {
 
     private void innerIndex(Index index, IndexWriter writer) throws IOException {
         synchronized (dirtyLock(index.uid())) {
-            final long currentVersion;
-            VersionValue versionValue = versionMap.getUnderLock(index.uid().bytes());
-            if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(index.uid());
+            innerIndexUnderLock(index, writer);
+        }
+    }
+
+    private void innerIndexUnderLock(Index index, IndexWriter writer) throws IOException {
+        final long currentVersion;
+        VersionValue versionValue = versionMap.getUnderLock(index.uid().bytes());
+        if (versionValue == null) {
+            currentVersion = loadCurrentVersionFromIndex(index.uid());
+        } else {
+            if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
+                currentVersion = Versions.NOT_FOUND; // deleted, and GC
             } else {
-                if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
-                    currentVersion = Versions.NOT_FOUND; // deleted, and GC
-                } else {
-                    currentVersion = versionValue.version();
-                }
+                currentVersion = versionValue.version();
             }
+        }
 
-            long updatedVersion;
-            long expectedVersion = index.version();
-            if (index.versionType().isVersionConflictForWrites(currentVersion, expectedVersion)) {
-                if (index.origin() == Operation.Origin.RECOVERY) {
-                    return;
-                } else {
-                    throw new VersionConflictEngineException(shardId, index.type(), index.id(), currentVersion, expectedVersion);
-                }
+        long updatedVersion;
+        long expectedVersion = index.version();
+        if (index.versionType().isVersionConflictForWrites(currentVersion, expectedVersion)) {
+            markStaleSeqNoAsCompleted(index);
+            if (index.origin() == Operation.Origin.RECOVERY) {
+                return;
+            } else {
+                throw new VersionConflictEngineException(shardId, index.type(), index.id(), currentVersion, expectedVersion);
             }
-            updatedVersion = index.versionType().updateVersion(currentVersion, expectedVersion);
-
-            index.updateVersion(updatedVersion);
-            if (currentVersion == Versions.NOT_FOUND) {
-                // document does not exists, we can optimize for create
-                index.created(true);
-                if (index.docs().size() > 1) {
-                    writer.addDocuments(index.docs(), index.analyzer());
-                } else {
-                    writer.addDocument(index.docs().get(0), index.analyzer());
-                }
+        }
+        updatedVersion = index.versionType().updateVersion(currentVersion, expectedVersion);
+
+        index.updateVersion(updatedVersion);
+        if (currentVersion == Versions.NOT_FOUND) {
+            // document does not exists, we can optimize for create
+            index.created(true);
+            if (index.docs().size() > 1) {
+                writer.addDocuments(index.docs(), index.analyzer());
             } else {
-                if (versionValue != null) {
-                    index.created(versionValue.delete()); // we have a delete which is not GC'ed...
-                }
-                if (index.docs().size() > 1) {
-                    writer.updateDocuments(index.uid(), index.docs(), index.analyzer());
-                } else {
-                    writer.updateDocument(index.uid(), index.docs().get(0), index.analyzer());
-                }
+                writer.addDocument(index.docs().get(0), index.analyzer());
+            }
+        } else {
+            if (versionValue != null) {
+                index.created(versionValue.delete()); // we have a delete which is not GC'ed...
             }
-            Translog.Location translogLocation = translog.add(new Translog.Index(index));
+            if (index.docs().size() > 1) {
+                writer.updateDocuments(index.uid(), index.docs(), index.analyzer());
+            } else {
+                writer.updateDocument(index.uid(), index.docs().get(0), index.analyzer());
+            }
+        }
+        assignSeqNo(index);
+        Translog.Location translogLocation = addToTranslog(index, new Translog.Index(index));
+        index.setTranslogLocation(translogLocation);
 
-            versionMap.putUnderLock(index.uid().bytes(), new VersionValue(updatedVersion, translogLocation));
+        versionMap.putUnderLock(index.uid().bytes(), new VersionValue(updatedVersion, translogLocation));
 
-            indexingService.postIndexUnderLock(index);
-        }
+        indexingService.postIndexUnderLock(index);
     }
 
     @Override
@@ -638,6 +684,9 @@ public class InternalEngine implements Engine {
             dirty = true;
             possibleMergeNeeded = true;
             flushNeeded = true;
+        } catch (TranslogException t) {
+            failEngineOnLostSeqNo(delete, t);
+            throw t;
         } catch (OutOfMemoryError | IllegalStateException | IOException t) {
             maybeFailEngine(t, "delete");
             throw new DeleteFailedEngineException(shardId, delete, t);
@@ -656,47 +705,54 @@ public class InternalEngine implements Engine {
 
     private void innerDelete(Delete delete, IndexWriter writer) throws IOException {
         synchronized (dirtyLock(delete.uid())) {
-            final long currentVersion;
-            VersionValue versionValue = versionMap.getUnderLock(delete.uid().bytes());
-            if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(delete.uid());
+            innerDeleteUnderLock(delete, writer);
+        }
+    }
+
+    private void innerDeleteUnderLock(Delete delete, IndexWriter writer) throws IOException {
+        final long currentVersion;
+        VersionValue versionValue = versionMap.getUnderLock(delete.uid().bytes());
+        if (versionValue == null) {
+            currentVersion = loadCurrentVersionFromIndex(delete.uid());
+        } else {
+            if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
+                currentVersion = Versions.NOT_FOUND; // deleted, and GC
             } else {
-                if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
-                    currentVersion = Versions.NOT_FOUND; // deleted, and GC
-                } else {
-                    currentVersion = versionValue.version();
-                }
+                currentVersion = versionValue.version();
             }
+        }
 
-            long updatedVersion;
-            long expectedVersion = delete.version();
-            if (delete.versionType().isVersionConflictForWrites(currentVersion, expectedVersion)) {
-                if (delete.origin() == Operation.Origin.RECOVERY) {
-                    return;
-                } else {
-                    throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), currentVersion, expectedVersion);
-                }
-            }
-            updatedVersion = delete.versionType().updateVersion(currentVersion, expectedVersion);
-            final boolean found;
-            if (currentVersion == Versions.NOT_FOUND) {
-                // doc does not exist and no prior deletes
-                found = false;
-            } else if (versionValue != null && versionValue.delete()) {
-                // a "delete on delete", in this case, we still increment the version, log it, and return that version
-                found = false;
+        long updatedVersion;
+        long expectedVersion = delete.version();
+        if (delete.versionType().isVersionConflictForWrites(currentVersion, expectedVersion)) {
+            markStaleSeqNoAsCompleted(delete);
+            if (delete.origin() == Operation.Origin.RECOVERY) {
+                return;
             } else {
-                // we deleted a currently existing document
-                writer.deleteDocuments(delete.uid());
-                found = true;
+                throw new VersionConflictEngineException(shardId, delete.type(), delete.id(), currentVersion, expectedVersion);
             }
+        }
+        updatedVersion = delete.versionType().updateVersion(currentVersion, expectedVersion);
+        final boolean found;
+        if (currentVersion == Versions.NOT_FOUND) {
+            // doc does not exist and no prior deletes
+            found = false;
+        } else if (versionValue != null && versionValue.delete()) {
+            // a "delete on delete", in this case, we still increment the version, log it, and return that version
+            found = false;
+        } else {
+            // we deleted a currently existing document
+            writer.deleteDocuments(delete.uid());
+            found = true;
+        }
 
-            delete.updateVersion(updatedVersion, found);
-            Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
-            versionMap.putUnderLock(delete.uid().bytes(), new DeleteVersionValue(updatedVersion, threadPool.estimatedTimeInMillis(), translogLocation));
+        delete.updateVersion(updatedVersion, found);
+        assignSeqNo(delete);
+        Translog.Location translogLocation = addToTranslog(delete, new Translog.Delete(delete));
+        delete.setTranslogLocation(translogLocation);
+        versionMap.putUnderLock(delete.uid().bytes(), new DeleteVersionValue(updatedVersion, threadPool.estimatedTimeInMillis(), translogLocation));
 
-            indexingService.postDeleteUnderLock(delete);
-        }
+        indexingService.postDeleteUnderLock(delete);
     }
 
     @Override
@@ -880,7 +936,7 @@ public class InternalEngine implements Engine {
                     try {
                         { // commit and close the current writer - we write the current tanslog ID just in case
                             final long translogId = translog.currentId();
-                            indexWriter.setCommitData(Collections.singletonMap(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)));
+                            indexWriter.setCommitData(commitData(translogId));
                             indexWriter.commit();
                             indexWriter.rollback();
                         }
@@ -890,9 +946,11 @@ public class InternalEngine implements Engine {
                         if (flushNeeded || force) {
                             flushNeeded = false;
                             long translogId = translogIdGenerator.incrementAndGet();
-                            indexWriter.setCommitData(Collections.singletonMap(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)));
+                            indexWriter.setCommitData(commitData(translogId));
                             indexWriter.commit();
                             translog.newTranslog(translogId);
+                            // we hold the write lock, no operation is in flight
+                            translogStartSeqNo = seqNoTracker.getMaxSeqNo();
                         }
 
                         SearcherManager current = this.searcherManager;
@@ -923,7 +981,11 @@ public class InternalEngine implements Engine {
                         try {
                             long translogId = translogIdGenerator.incrementAndGet();
                             translog.newTransientTranslog(translogId);
-                            indexWriter.setCommitData(Collections.singletonMap(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)));
+                            // operations that get a sequence number from now on are added to the transient translog,
+                            // operations with a lower one are either part of the commit below or in flight, in which
+                            // case they end up in the transient translog as well
+                            final long newTranslogStartSeqNo = seqNoTracker.getMaxSeqNo();
+                            indexWriter.setCommitData(commitData(translogId));
                             indexWriter.commit();
                             // we need to refresh in order to clear older version values
                             refresh("version_table_flush", true);
@@ -931,6 +993,7 @@ public class InternalEngine implements Engine {
                             // so items added to current will still be around for realtime get
                             // when tans overrides it
                             translog.makeTransientCurrent();
+                            translogStartSeqNo = newTranslogStartSeqNo;
 
                         } catch (Throwable e) {
                             try {
@@ -960,7 +1023,7 @@ public class InternalEngine implements Engine {
                     // other flushes use flushLock
                     try {
                         long translogId = translog.currentId();
-                        indexWriter.setCommitData(Collections.singletonMap(Translog.TRANSLOG_ID_KEY, Long.toString(translogId)));
+                        indexWriter.setCommitData(commitData(translogId));
                         indexWriter.commit();
                     } catch (Throwable e) {
                         throw new FlushFailedEngineException(shardId, e);
@@ -1200,6 +1263,91 @@ public class InternalEngine implements Engine {
         }
     }
 
+    private Map<String, String> commitData(long translogId) {
+        final Map<String, String> commitData = new HashMap<>();
+        commitData.put(Translog.TRANSLOG_ID_KEY, Long.toString(translogId));
+        commitData.put(SequenceNumbers.HISTORY_UUID_KEY, historyUUID);
+        // read the checkpoint first, all operations below it are in the index writer and make it into the commit
+        commitData.put(SequenceNumbers.LOCAL_CHECKPOINT_KEY, Long.toString(seqNoTracker.getCheckpoint()));
+        commitData.put(SequenceNumbers.MAX_SEQ_NO_KEY, Long.toString(seqNoTracker.getMaxSeqNo()));
+        return commitData;
+    }
+
+    /**
+     * Operations on the primary get their sequence number once they made it into the index writer, right
+     * before they are added to the translog, so that a failing operation never takes a sequence number that
+     * is not replicated. All others carry the sequence number the primary assigned.
+     */
+    private void assignSeqNo(Operation op) {
+        if (op.origin() == Operation.Origin.PRIMARY) {
+            op.updateSeqNo(seqNoTracker.generateSeqNo());
+        }
+    }
+
+    /**
+     * Adds the operation to the translog and only then marks its sequence number as completed.
+     */
+    private Translog.Location addToTranslog(Operation op, Translog.Operation translogOp) {
+        final Translog.Location location = translog.add(translogOp);
+        markSeqNoAsCompleted(op.seqNo());
+        return location;
+    }
+
+    /**
+     * A replica or recovery operation that is skipped because a newer version was already processed is
+     * done as well, it must not hold back the local checkpoint. Primary operations didn't get a sequence
+     * number yet at this point.
+     */
+    private void markStaleSeqNoAsCompleted(Operation op) {
+        if (op.origin() != Operation.Origin.PRIMARY) {
+            markSeqNoAsCompleted(op.seqNo());
+        }
+    }
+
+    private void markSeqNoAsCompleted(long seqNo) {
+        if (seqNo != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+            seqNoTracker.markSeqNoAsCompleted(seqNo);
+        }
+    }
+
+    /**
+     * An operation that got a sequence number but could not be added to the translog is neither durable nor
+     * replicated, the local checkpoint can't move past it anymore and the shard has to be recovered.
+     */
+    private void failEngineOnLostSeqNo(Operation op, TranslogException failure) {
+        if (op.seqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+            failEngine("operation with seq_no [" + op.seqNo() + "] could not be added to the translog", failure);
+        }
+    }
+
+    @Override
+    public long getLocalCheckpoint() {
+        ensureOpen();
+        return seqNoTracker.getCheckpoint();
+    }
+
+    @Override
+    public long getMaxSeqNo() {
+        ensureOpen();
+        return seqNoTracker.getMaxSeqNo();
+    }
+
+    @Override
+    public long getTranslogStartSeqNo() {
+        return translogStartSeqNo;
+    }
+
+    @Override
+    public String getHistoryUUID() {
+        return historyUUID;
+    }
+
+    @Override
+    public void markSeqNosAsCompletedUpTo(long seqNo) {
+        ensureOpen();
+        seqNoTracker.markSeqNosAsCompletedUpTo(seqNo);
+    }
+
     private boolean maybeFailEngine(Throwable t, String source) {
         if (Lucene.isCorruptionException(t)) {
             if (this.failEngineOnCorruption) {
@@ -1449,8 +1597,8 @@ public class InternalEngine implements Engine {
             config.setMergeScheduler(mergeScheduler.newMergeScheduler());
             MergePolicy mergePolicy = mergePolicyProvider.getMergePolicy();
             // Give us the opportunity to upgrade old segments while performing
-            // background merges
-            mergePolicy = new ElasticsearchMergePolicy(mergePolicy);
+            // background merges, or to sort the merged segments if the index is sorted
+            mergePolicy = new ElasticsearchMergePolicy(mergePolicy, indexSort);
             config.setMergePolicy(mergePolicy);
             config.setSimilarity(similarityService.similarity());
             config.setRAMBufferSizeMB(indexingBufferSize.mbFrac());
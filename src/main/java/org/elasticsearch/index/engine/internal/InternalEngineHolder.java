@@ -20,6 +20,7 @@ package org.elasticsearch.index.engine.internal;
 
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.search.Sort;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Preconditions;
@@ -37,6 +38,7 @@ import org.elasticsearch.index.deletionpolicy.SnapshotDeletionPolicy;
 import org.elasticsearch.index.deletionpolicy.SnapshotIndexCommit;
 import org.elasticsearch.index.engine.*;
 import org.elasticsearch.index.indexing.ShardIndexingService;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.merge.OnGoingMerge;
 import org.elasticsearch.index.merge.policy.MergePolicyProvider;
 import org.elasticsearch.index.merge.scheduler.MergeSchedulerProvider;
@@ -46,6 +48,7 @@ import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.IndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.index.sort.IndexSort;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.warmer.IndicesWarmer;
@@ -91,6 +94,7 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
     protected final AnalysisService analysisService;
     protected final SimilarityService similarityService;
     protected final CodecService codecService;
+    protected final MapperService mapperService;
 
     private final AtomicReference<InternalEngine> currentEngine = new AtomicReference<>();
     private volatile boolean closed = false;
@@ -110,7 +114,8 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
                                 IndexSettingsService indexSettingsService, ShardIndexingService indexingService, @Nullable IndicesWarmer warmer,
                                 Store store, SnapshotDeletionPolicy deletionPolicy, Translog translog,
                                 MergePolicyProvider mergePolicyProvider, MergeSchedulerProvider mergeScheduler,
-                                AnalysisService analysisService, SimilarityService similarityService, CodecService codecService) throws EngineException {
+                                AnalysisService analysisService, SimilarityService similarityService, CodecService codecService,
+                                MapperService mapperService) throws EngineException {
         super(shardId, indexSettings);
         Preconditions.checkNotNull(store, "Store must be provided to the engine");
         Preconditions.checkNotNull(deletionPolicy, "Snapshot deletion policy must be provided to the engine");
@@ -132,6 +137,7 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
         this.analysisService = analysisService;
         this.similarityService = similarityService;
         this.codecService = codecService;
+        this.mapperService = mapperService;
         this.compoundOnFlush = indexSettings.getAsBoolean(INDEX_COMPOUND_ON_FLUSH, this.compoundOnFlush);
         this.indexConcurrency = indexSettings.getAsInt(INDEX_INDEX_CONCURRENCY, Math.max(IndexWriterConfig.DEFAULT_MAX_THREAD_STATES, (int) (EsExecutors.boundedNumberOfProcessors(indexSettings) * 0.65)));
         this.optimizeAutoGenerateId = indexSettings.getAsBoolean("index.optimize_auto_generated_id", true);
@@ -232,10 +238,13 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
     }
 
     protected InternalEngine createEngine() {
+        // the sort fields are mapped on index creation, so the sort is resolved once the mappings are there
+        final Sort indexSort = IndexSort.parse(indexSettings, mapperService);
         return new InternalEngine(shardId, logger, codecService, threadPool, indexingService,
                 warmer, store, deletionPolicy, translog, mergePolicyProvider, mergeScheduler, analysisService, similarityService,
                 enableGcDeletes, gcDeletesInMillis,
-                indexingBufferSize, codecName, compoundOnFlush, indexConcurrency, optimizeAutoGenerateId, failEngineOnCorruption, this);
+                indexingBufferSize, codecName, compoundOnFlush, indexConcurrency, optimizeAutoGenerateId, failEngineOnCorruption,
+                indexSort, this);
     }
 
     @Override
@@ -313,6 +322,31 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
         engineSafe().recover(recoveryHandler);
     }
 
+    @Override
+    public long getLocalCheckpoint() {
+        return engineSafe().getLocalCheckpoint();
+    }
+
+    @Override
+    public long getMaxSeqNo() {
+        return engineSafe().getMaxSeqNo();
+    }
+
+    @Override
+    public long getTranslogStartSeqNo() {
+        return engineSafe().getTranslogStartSeqNo();
+    }
+
+    @Override
+    public String getHistoryUUID() {
+        return engineSafe().getHistoryUUID();
+    }
+
+    @Override
+    public void markSeqNosAsCompletedUpTo(long seqNo) {
+        engineSafe().markSeqNosAsCompletedUpTo(seqNo);
+    }
+
     @Override
     public void failEngine(String reason, Throwable failure) {
         engineSafe().failEngine(reason, failure);
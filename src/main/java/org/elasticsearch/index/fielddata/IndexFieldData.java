@@ -222,6 +222,19 @@ public interface IndexFieldData<FD extends AtomicFieldData> extends IndexCompone
         }
 
         public abstract SortField.Type reducedType();
+
+        /**
+         * Whether documents are compared on the default value for the given order, that is the minimum value of the field
+         * ascending and its maximum value descending, with missing values last and not on nested documents.
+         */
+        public boolean hasDefaultOptions(boolean reversed) {
+            return false;
+        }
+
+        protected static boolean hasDefaultOptions(@Nullable Object missingValue, MultiValueMode sortMode, @Nullable Nested nested, boolean reversed) {
+            return nested == null && (missingValue == null || "_last".equals(missingValue))
+                    && sortMode == (reversed ? MultiValueMode.MAX : MultiValueMode.MIN);
+        }
     }
 
     interface Builder {
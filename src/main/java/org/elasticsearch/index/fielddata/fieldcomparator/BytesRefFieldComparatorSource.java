@@ -58,6 +58,11 @@ public class BytesRefFieldComparatorSource extends IndexFieldData.XFieldComparat
         return SortField.Type.STRING;
     }
 
+    @Override
+    public boolean hasDefaultOptions(boolean reversed) {
+        return hasDefaultOptions(missingValue, sortMode, nested, reversed);
+    }
+
     protected SortedBinaryDocValues getValues(LeafReaderContext context) {
         return indexFieldData.load(context).getBytesValues();
     }
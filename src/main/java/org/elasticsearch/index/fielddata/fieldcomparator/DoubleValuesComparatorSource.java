@@ -56,6 +56,11 @@ public class DoubleValuesComparatorSource extends IndexFieldData.XFieldComparato
         return SortField.Type.DOUBLE;
     }
 
+    @Override
+    public boolean hasDefaultOptions(boolean reversed) {
+        return hasDefaultOptions(missingValue, sortMode, nested, reversed);
+    }
+
     protected SortedNumericDoubleValues getValues(LeafReaderContext context) {
         return indexFieldData.load(context).getDoubleValues();
     }
@@ -54,6 +54,11 @@ public class FloatValuesComparatorSource extends IndexFieldData.XFieldComparator
         return SortField.Type.FLOAT;
     }
 
+    @Override
+    public boolean hasDefaultOptions(boolean reversed) {
+        return hasDefaultOptions(missingValue, sortMode, nested, reversed);
+    }
+
     @Override
     public FieldComparator<?> newComparator(String fieldname, int numHits, int sortPos, boolean reversed) throws IOException {
         assert indexFieldData == null || fieldname.equals(indexFieldData.getFieldNames().indexName());
@@ -53,6 +53,11 @@ public class LongValuesComparatorSource extends IndexFieldData.XFieldComparatorS
         return SortField.Type.LONG;
     }
 
+    @Override
+    public boolean hasDefaultOptions(boolean reversed) {
+        return hasDefaultOptions(missingValue, sortMode, nested, reversed);
+    }
+
     @Override
     public FieldComparator<?> newComparator(String fieldname, int numHits, int sortPos, boolean reversed) throws IOException {
         assert indexFieldData == null || fieldname.equals(indexFieldData.getFieldNames().indexName());
@@ -296,6 +296,9 @@ public class LocalIndexShardGateway extends AbstractIndexShardComponent implemen
             } finally {
                 IOUtils.closeWhileHandlingException(in);
             }
+            // only primaries recover from the local store, every operation this copy acknowledged is either in its commit
+            // or was replayed from the translog, so a sequence number without an operation belongs to a write that failed
+            indexShard.engine().markSeqNosAsCompletedUpTo(indexShard.engine().getMaxSeqNo());
             indexShard.performRecoveryFinalization(true);
 
             try {
@@ -0,0 +1,455 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.all.AllEntries;
+import org.elasticsearch.common.lucene.all.AllField;
+import org.elasticsearch.index.mapper.core.ByteFieldMapper;
+import org.elasticsearch.index.mapper.core.DoubleFieldMapper;
+import org.elasticsearch.index.mapper.core.FloatFieldMapper;
+import org.elasticsearch.index.mapper.core.IntegerFieldMapper;
+import org.elasticsearch.index.mapper.core.LongFieldMapper;
+import org.elasticsearch.index.mapper.core.NumberFieldMapper;
+import org.elasticsearch.index.mapper.core.ShortFieldMapper;
+import org.elasticsearch.index.mapper.internal.AllFieldMapper;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.mapper.internal.VersionFieldMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializes the Lucene documents of a {@link ParsedDocument} so that a replica can index them without parsing the
+ * source again. Only the fields built by the core mappers can be rebuilt, a document holding any other field (for
+ * example a field with a custom token stream) is not serialized and the replica parses its source as usual.
+ * <p/>
+ * The documents must be serialized right after they were indexed, since the mappers reuse some of their fields from
+ * one document to the next.
+ */
+public final class ParsedDocumentSerializer {
+
+    private static final byte FIELD = 0;
+    private static final byte STORED_NUMBER = 1;
+    private static final byte NUMERIC_DOC_VALUES = 2;
+    private static final byte SORTED_NUMERIC_DOC_VALUES = 3;
+    private static final byte SORTED_DOC_VALUES = 4;
+    private static final byte SORTED_SET_DOC_VALUES = 5;
+    private static final byte BINARY_DOC_VALUES = 6;
+    private static final byte NUMBER = 7;
+    private static final byte ALL = 8;
+
+    private static final byte STRING_VALUE = 0;
+    private static final byte BYTES_VALUE = 1;
+    // the value is the source of the parsed document, which is sent anyway
+    private static final byte SOURCE_VALUE = 2;
+
+    private static final byte LONG_NUMBER = 0;
+    private static final byte INT_NUMBER = 1;
+    private static final byte SHORT_NUMBER = 2;
+    private static final byte BYTE_NUMBER = 3;
+    private static final byte FLOAT_NUMBER = 4;
+    private static final byte DOUBLE_NUMBER = 5;
+
+    private ParsedDocumentSerializer() {
+    }
+
+    /**
+     * Serializes the documents of the given parsed document, or returns <tt>null</tt> if they can't be rebuilt on another
+     * shard copy without parsing the source.
+     *
+     * @param requestSource the source of the request the document was parsed from, the source of the parsed document is
+     *                      only serialized if it differs from it
+     */
+    @Nullable
+    public static BytesReference serialize(ParsedDocument doc, BytesReference requestSource) throws IOException {
+        if (doc.mappingsModified() || doc.analyzer() != null) {
+            // the replica has to resolve the new mappings, or the document uses its own analyzer
+            return null;
+        }
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.writeString(doc.id());
+        BytesReference source = doc.source();
+        boolean requestSourceUsed = source == requestSource || (source != null && source.equals(requestSource));
+        out.writeBoolean(requestSourceUsed);
+        if (!requestSourceUsed) {
+            out.writeBytesReference(source);
+        }
+        out.writeVInt(doc.docs().size());
+        for (ParseContext.Document document : doc.docs()) {
+            List<IndexableField> fields = document.getFields();
+            out.writeVInt(fields.size());
+            for (IndexableField field : fields) {
+                if (!writeField(field, source, out)) {
+                    return null;
+                }
+            }
+        }
+        return out.bytes();
+    }
+
+    /**
+     * Rebuilds the parsed document serialized by {@link #serialize(ParsedDocument, BytesReference)}, or returns
+     * <tt>null</tt> if the given document mapper can't index one of its fields the same way as the mapper of the shard
+     * copy it was parsed on, in which case the source must be parsed.
+     */
+    @Nullable
+    public static ParsedDocument deserialize(BytesReference bytes, DocumentMapper docMapper, SourceToParse source) throws IOException {
+        StreamInput in = bytes.streamInput();
+        String id = in.readString();
+        BytesReference docSource = in.readBoolean() ? source.source() : in.readBytesReference();
+        BytesRef sourceRef = docSource == null ? null : docSource.toBytesRef();
+        int numDocs = in.readVInt();
+        List<ParseContext.Document> docs = new ArrayList<>(numDocs);
+        for (int i = 0; i < numDocs; i++) {
+            ParseContext.Document document = new ParseContext.Document();
+            int numFields = in.readVInt();
+            for (int j = 0; j < numFields; j++) {
+                IndexableField field = readField(in, docMapper, sourceRef);
+                if (field == null) {
+                    return null;
+                }
+                document.add(field);
+            }
+            docs.add(document);
+        }
+        // the root document is the last one, the uid and version are updated when indexing
+        ParseContext.Document rootDoc = docs.get(docs.size() - 1);
+        IndexableField uid = rootDoc.getField(UidFieldMapper.NAME);
+        IndexableField version = rootDoc.getField(VersionFieldMapper.NAME);
+        if (!(uid instanceof Field) || !(version instanceof Field)) {
+            return null;
+        }
+        return new ParsedDocument((Field) uid, (Field) version, id, docMapper.type(), source.routing(), source.timestamp(), source.ttl(),
+                docs, null, docSource, false).parent(source.parent());
+    }
+
+    private static boolean writeField(IndexableField field, BytesReference source, StreamOutput out) throws IOException {
+        Class<?> clazz = field.getClass();
+        if (clazz == Field.class || clazz == StringField.class || clazz == TextField.class || clazz == StoredField.class) {
+            Field f = (Field) field;
+            if (f.tokenStreamValue() != null || f.readerValue() != null) {
+                return false;
+            }
+            if (f.numericValue() != null) {
+                if (clazz != StoredField.class) {
+                    return false;
+                }
+                out.writeByte(STORED_NUMBER);
+                out.writeString(f.name());
+                return writeNumber(f.numericValue(), out);
+            }
+            out.writeByte(FIELD);
+            out.writeString(f.name());
+            writeFieldType(f.fieldType(), out);
+            out.writeFloat(f.boost());
+            if (f.stringValue() != null) {
+                out.writeByte(STRING_VALUE);
+                out.writeString(f.stringValue());
+            } else if (f.binaryValue() != null) {
+                BytesRef value = f.binaryValue();
+                if (source != null && source.length() == value.length && source.equals(new BytesArray(value))) {
+                    out.writeByte(SOURCE_VALUE);
+                } else {
+                    out.writeByte(BYTES_VALUE);
+                    out.writeBytesRef(value);
+                }
+            } else {
+                return false;
+            }
+        } else if (clazz == NumericDocValuesField.class) {
+            out.writeByte(NUMERIC_DOC_VALUES);
+            out.writeString(field.name());
+            out.writeLong(field.numericValue().longValue());
+        } else if (clazz == SortedNumericDocValuesField.class) {
+            out.writeByte(SORTED_NUMERIC_DOC_VALUES);
+            out.writeString(field.name());
+            out.writeLong(field.numericValue().longValue());
+        } else if (clazz == SortedDocValuesField.class) {
+            out.writeByte(SORTED_DOC_VALUES);
+            out.writeString(field.name());
+            out.writeBytesRef(field.binaryValue());
+        } else if (clazz == SortedSetDocValuesField.class) {
+            out.writeByte(SORTED_SET_DOC_VALUES);
+            out.writeString(field.name());
+            out.writeBytesRef(field.binaryValue());
+        } else if (clazz == BinaryDocValuesField.class) {
+            out.writeByte(BINARY_DOC_VALUES);
+            out.writeString(field.name());
+            out.writeBytesRef(field.binaryValue());
+        } else if (field instanceof NumberFieldMapper.CustomNumericField) {
+            NumberFieldMapper.CustomNumericField f = (NumberFieldMapper.CustomNumericField) field;
+            out.writeByte(NUMBER);
+            out.writeString(f.name());
+            writeFieldType(f.fieldType(), out);
+            out.writeFloat(f.boost());
+            if (clazz == LongFieldMapper.CustomLongNumericField.class) {
+                out.writeByte(LONG_NUMBER);
+                out.writeLong(f.numericValue().longValue());
+            } else if (clazz == IntegerFieldMapper.CustomIntegerNumericField.class) {
+                out.writeByte(INT_NUMBER);
+                out.writeInt(f.numericValue().intValue());
+            } else if (clazz == ShortFieldMapper.CustomShortNumericField.class) {
+                out.writeByte(SHORT_NUMBER);
+                out.writeShort(f.numericValue().shortValue());
+            } else if (clazz == ByteFieldMapper.CustomByteNumericField.class) {
+                out.writeByte(BYTE_NUMBER);
+                out.writeByte(f.numericValue().byteValue());
+            } else if (clazz == FloatFieldMapper.CustomFloatNumericField.class) {
+                out.writeByte(FLOAT_NUMBER);
+                out.writeFloat(f.numericValue().floatValue());
+            } else if (clazz == DoubleFieldMapper.CustomDoubleNumericField.class) {
+                out.writeByte(DOUBLE_NUMBER);
+                out.writeDouble(f.numericValue().doubleValue());
+            } else {
+                return false;
+            }
+        } else if (clazz == AllField.class) {
+            AllField f = (AllField) field;
+            out.writeByte(ALL);
+            out.writeString(f.name());
+            writeFieldType(f.fieldType(), out);
+            out.writeFloat(f.boost());
+            List<AllEntries.Entry> entries = f.getAllEntries().entries();
+            out.writeVInt(entries.size());
+            for (AllEntries.Entry entry : entries) {
+                out.writeString(entry.name());
+                out.writeString(entry.reader().toString());
+                out.writeFloat(entry.boost());
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    @Nullable
+    private static IndexableField readField(StreamInput in, DocumentMapper docMapper, BytesRef source) throws IOException {
+        byte kind = in.readByte();
+        String name = in.readString();
+        switch (kind) {
+            case FIELD: {
+                FieldType fieldType = readFieldType(in);
+                float boost = in.readFloat();
+                if (fieldType.tokenized() && docMapper.mappers().indexName(name) == null) {
+                    // the analyzer of the field is not known yet
+                    return null;
+                }
+                Field field;
+                byte valueType = in.readByte();
+                if (valueType == STRING_VALUE) {
+                    field = new Field(name, in.readString(), fieldType);
+                } else if (valueType == BYTES_VALUE) {
+                    field = new Field(name, in.readBytesRef(), fieldType);
+                } else if (valueType == SOURCE_VALUE) {
+                    if (source == null) {
+                        throw new IOException("field [" + name + "] refers to a missing source");
+                    }
+                    field = new Field(name, source, fieldType);
+                } else {
+                    throw new IOException("unknown value type [" + valueType + "]");
+                }
+                return boost(field, boost);
+            }
+            case STORED_NUMBER:
+                switch (in.readByte()) {
+                    case LONG_NUMBER:
+                        return new StoredField(name, in.readLong());
+                    case INT_NUMBER:
+                        return new StoredField(name, in.readInt());
+                    case FLOAT_NUMBER:
+                        return new StoredField(name, in.readFloat());
+                    case DOUBLE_NUMBER:
+                        return new StoredField(name, in.readDouble());
+                    default:
+                        throw new IOException("unknown stored number type");
+                }
+            case NUMERIC_DOC_VALUES:
+                return new NumericDocValuesField(name, in.readLong());
+            case SORTED_NUMERIC_DOC_VALUES:
+                return new SortedNumericDocValuesField(name, in.readLong());
+            case SORTED_DOC_VALUES:
+                return new SortedDocValuesField(name, in.readBytesRef());
+            case SORTED_SET_DOC_VALUES:
+                return new SortedSetDocValuesField(name, in.readBytesRef());
+            case BINARY_DOC_VALUES:
+                return new BinaryDocValuesField(name, in.readBytesRef());
+            case NUMBER: {
+                FieldType fieldType = readFieldType(in);
+                float boost = in.readFloat();
+                byte numberType = in.readByte();
+                FieldMappers mappers = docMapper.mappers().indexName(name);
+                if (mappers == null || !(mappers.mapper() instanceof NumberFieldMapper)) {
+                    // the precision step used to index the number is not known
+                    return null;
+                }
+                NumberFieldMapper mapper = (NumberFieldMapper) mappers.mapper();
+                Field field;
+                switch (numberType) {
+                    case LONG_NUMBER:
+                        field = new LongFieldMapper.CustomLongNumericField(mapper, in.readLong(), fieldType);
+                        break;
+                    case INT_NUMBER:
+                        field = new IntegerFieldMapper.CustomIntegerNumericField(mapper, in.readInt(), fieldType);
+                        break;
+                    case SHORT_NUMBER:
+                        field = new ShortFieldMapper.CustomShortNumericField(mapper, in.readShort(), fieldType);
+                        break;
+                    case BYTE_NUMBER:
+                        field = new ByteFieldMapper.CustomByteNumericField(mapper, in.readByte(), fieldType);
+                        break;
+                    case FLOAT_NUMBER:
+                        field = new FloatFieldMapper.CustomFloatNumericField(mapper, in.readFloat(), fieldType);
+                        break;
+                    case DOUBLE_NUMBER:
+                        field = new DoubleFieldMapper.CustomDoubleNumericField(mapper, in.readDouble(), fieldType);
+                        break;
+                    default:
+                        throw new IOException("unknown number type [" + numberType + "]");
+                }
+                return boost(field, boost);
+            }
+            case ALL: {
+                FieldType fieldType = readFieldType(in);
+                float boost = in.readFloat();
+                AllEntries allEntries = new AllEntries();
+                int numEntries = in.readVInt();
+                for (int i = 0; i < numEntries; i++) {
+                    allEntries.addText(in.readString(), in.readString(), in.readFloat());
+                }
+                allEntries.reset();
+                AllFieldMapper allMapper = docMapper.allFieldMapper();
+                Analyzer analyzer = allMapper.indexAnalyzer();
+                if (analyzer == null) {
+                    analyzer = docMapper.indexAnalyzer();
+                    if (analyzer == null) {
+                        analyzer = Lucene.STANDARD_ANALYZER;
+                    }
+                }
+                return boost(new AllField(name, allEntries, analyzer, fieldType), boost);
+            }
+            default:
+                throw new IOException("unknown field kind [" + kind + "]");
+        }
+    }
+
+    private static Field boost(Field field, float boost) {
+        if (boost != 1.0f) {
+            field.setBoost(boost);
+        }
+        return field;
+    }
+
+    private static boolean writeNumber(Number number, StreamOutput out) throws IOException {
+        if (number instanceof Long) {
+            out.writeByte(LONG_NUMBER);
+            out.writeLong(number.longValue());
+        } else if (number instanceof Integer) {
+            out.writeByte(INT_NUMBER);
+            out.writeInt(number.intValue());
+        } else if (number instanceof Float) {
+            out.writeByte(FLOAT_NUMBER);
+            out.writeFloat(number.floatValue());
+        } else if (number instanceof Double) {
+            out.writeByte(DOUBLE_NUMBER);
+            out.writeDouble(number.doubleValue());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    private static void writeFieldType(FieldType fieldType, StreamOutput out) throws IOException {
+        int flags = 0;
+        if (fieldType.stored()) {
+            flags |= 1;
+        }
+        if (fieldType.tokenized()) {
+            flags |= 1 << 1;
+        }
+        if (fieldType.storeTermVectors()) {
+            flags |= 1 << 2;
+        }
+        if (fieldType.storeTermVectorOffsets()) {
+            flags |= 1 << 3;
+        }
+        if (fieldType.storeTermVectorPositions()) {
+            flags |= 1 << 4;
+        }
+        if (fieldType.storeTermVectorPayloads()) {
+            flags |= 1 << 5;
+        }
+        if (fieldType.omitNorms()) {
+            flags |= 1 << 6;
+        }
+        out.writeByte((byte) flags);
+        out.writeByte((byte) fieldType.indexOptions().ordinal());
+        out.writeByte((byte) fieldType.docValuesType().ordinal());
+        if (fieldType.numericType() == null) {
+            out.writeByte((byte) -1);
+        } else {
+            out.writeByte((byte) fieldType.numericType().ordinal());
+            out.writeVInt(fieldType.numericPrecisionStep());
+        }
+    }
+
+    private static FieldType readFieldType(StreamInput in) throws IOException {
+        FieldType fieldType = new FieldType();
+        int flags = in.readByte();
+        fieldType.setStored((flags & 1) != 0);
+        fieldType.setTokenized((flags & (1 << 1)) != 0);
+        fieldType.setStoreTermVectors((flags & (1 << 2)) != 0);
+        fieldType.setStoreTermVectorOffsets((flags & (1 << 3)) != 0);
+        fieldType.setStoreTermVectorPositions((flags & (1 << 4)) != 0);
+        fieldType.setStoreTermVectorPayloads((flags & (1 << 5)) != 0);
+        fieldType.setOmitNorms((flags & (1 << 6)) != 0);
+        fieldType.setIndexOptions(IndexOptions.values()[in.readByte()]);
+        fieldType.setDocValuesType(DocValuesType.values()[in.readByte()]);
+        byte numericType = in.readByte();
+        if (numericType != -1) {
+            fieldType.setNumericType(FieldType.NumericType.values()[numericType]);
+            fieldType.setNumericPrecisionStep(in.readVInt());
+        }
+        fieldType.freeze();
+        return fieldType;
+    }
+}
@@ -22,12 +22,14 @@ package org.elasticsearch.index.merge.policy;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.apache.lucene.index.*;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.packed.GrowableWriter;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.logging.Loggers;
@@ -51,18 +53,34 @@ import java.util.Map;
  * <p>
  * For now, this {@link MergePolicy} takes care of moving versions that used to
  * be stored as payloads to numeric doc values.
+ * <p>
+ * When the index is sorted, see {@link org.elasticsearch.index.sort.IndexSort},
+ * the merges of the wrapped policy go through a {@link SortingMergePolicy} so
+ * that the documents of the merged segments are sorted. Sorted merges aren't
+ * upgraded, versions are only stored as payloads in segments written before
+ * indices could be sorted.
  */
 public final class ElasticsearchMergePolicy extends MergePolicy {
     
     private static ESLogger logger = Loggers.getLogger(ElasticsearchMergePolicy.class);
 
     private final MergePolicy delegate;
+    private final boolean sorted;
     private volatile boolean upgradeInProgress;
     private static final int MAX_CONCURRENT_UPGRADE_MERGES = 5;
 
     /** @param delegate the merge policy to wrap */
     public ElasticsearchMergePolicy(MergePolicy delegate) {
-        this.delegate = delegate;
+        this(delegate, null);
+    }
+
+    /**
+     * @param delegate the merge policy to wrap
+     * @param indexSort the sort of the documents of the merged segments, or <tt>null</tt> if the index isn't sorted
+     */
+    public ElasticsearchMergePolicy(MergePolicy delegate, @Nullable Sort indexSort) {
+        this.delegate = indexSort == null ? delegate : new SortingMergePolicy(delegate, indexSort);
+        this.sorted = indexSort != null;
     }
 
     /** Return an "upgraded" view of the reader. */
@@ -187,9 +205,10 @@ public final class ElasticsearchMergePolicy extends MergePolicy {
 
     }
 
-    static MergeSpecification upgradedMergeSpecification(MergeSpecification spec) {
-        if (spec == null) {
-            return null;
+    MergeSpecification upgradedMergeSpecification(MergeSpecification spec) {
+        if (spec == null || sorted) {
+            // the merges of the sorting merge policy sort the merged segment, they can't be replaced
+            return spec;
         }
         MergeSpecification upgradedSpec = new IndexUpgraderMergeSpecification();
         for (OneMerge merge : spec.merges) {
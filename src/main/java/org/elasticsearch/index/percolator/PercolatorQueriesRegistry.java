@@ -19,7 +19,12 @@
 
 package org.elasticsearch.index.percolator;
 
+import org.apache.lucene.index.Fields;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.queries.TermFilter;
 import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.Query;
@@ -55,7 +60,9 @@ import org.elasticsearch.indices.IndicesLifecycle;
 import org.elasticsearch.percolator.PercolatorService;
 
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -79,6 +86,9 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
     private final ShardPercolateService shardPercolateService;
 
     private final ConcurrentMap<BytesRef, Query> percolateQueries = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    // the ids of the queries by the terms extracted from them, and of the queries no terms could be extracted from
+    private final ConcurrentMap<Term, Set<BytesRef>> queriesByTerm = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
+    private final Set<BytesRef> unextractedQueries = ConcurrentCollections.newConcurrentSet();
     private final ShardLifecycleListener shardLifecycleListener = new ShardLifecycleListener();
     private final RealTimePercolatorOperationListener realTimePercolatorOperationListener = new RealTimePercolatorOperationListener();
     private final PercolateTypeListener percolateTypeListener = new PercolateTypeListener();
@@ -112,6 +122,34 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
         return percolateQueries;
     }
 
+    /**
+     * Returns the ids of the queries that may match the documents of the given reader, the queries registered under one of
+     * the terms of the documents and the queries no terms could be extracted from, see {@link QueryTermsExtractor}.
+     */
+    public Set<BytesRef> candidateQueries(IndexReader reader) throws IOException {
+        Set<BytesRef> candidates = new HashSet<>(unextractedQueries);
+        for (LeafReaderContext context : reader.leaves()) {
+            Fields fields = context.reader().fields();
+            if (fields == null) {
+                continue;
+            }
+            for (String field : fields) {
+                Terms terms = fields.terms(field);
+                if (terms == null) {
+                    continue;
+                }
+                TermsEnum termsEnum = terms.iterator(null);
+                for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+                    Set<BytesRef> queries = queriesByTerm.get(new Term(field, term));
+                    if (queries != null) {
+                        candidates.addAll(queries);
+                    }
+                }
+            }
+        }
+        return candidates;
+    }
+
     public void close() {
         mapperService.removeTypeListener(percolateTypeListener);
         indicesLifecycle.removeListener(shardLifecycleListener);
@@ -119,8 +157,10 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
         clear();
     }
 
-    public void clear() {
+    public synchronized void clear() {
         percolateQueries.clear();
+        queriesByTerm.clear();
+        unextractedQueries.clear();
     }
 
     void enableRealTimePercolator() {
@@ -138,18 +178,61 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
     public void addPercolateQuery(String idAsString, BytesReference source) {
         Query newquery = parsePercolatorDocument(idAsString, source);
         BytesRef id = new BytesRef(idAsString);
-        Query previousQuery = percolateQueries.put(id, newquery);
-        shardPercolateService.addedQuery(id, previousQuery, newquery);
+        putPercolateQuery(id, newquery);
     }
 
     public void removePercolateQuery(String idAsString) {
         BytesRef id = new BytesRef(idAsString);
         Query query = percolateQueries.remove(id);
         if (query != null) {
+            removeQueryTerms(id, query);
             shardPercolateService.removedQuery(id, query);
         }
     }
 
+    private void putPercolateQuery(BytesRef id, Query query) {
+        Query previousQuery = percolateQueries.put(id, query);
+        if (previousQuery != null) {
+            removeQueryTerms(id, previousQuery);
+        }
+        addQueryTerms(id, query);
+        shardPercolateService.addedQuery(id, previousQuery, query);
+    }
+
+    private synchronized void addQueryTerms(BytesRef id, Query query) {
+        Set<Term> terms = QueryTermsExtractor.extractQueryTerms(query);
+        if (terms == null) {
+            unextractedQueries.add(id);
+            return;
+        }
+        for (Term term : terms) {
+            Set<BytesRef> queries = queriesByTerm.get(term);
+            if (queries == null) {
+                queries = ConcurrentCollections.newConcurrentSet();
+                queriesByTerm.put(term, queries);
+            }
+            queries.add(id);
+        }
+    }
+
+    private synchronized void removeQueryTerms(BytesRef id, Query query) {
+        // the terms extracted from a query are always the same
+        Set<Term> terms = QueryTermsExtractor.extractQueryTerms(query);
+        if (terms == null) {
+            unextractedQueries.remove(id);
+            return;
+        }
+        for (Term term : terms) {
+            Set<BytesRef> queries = queriesByTerm.get(term);
+            if (queries != null) {
+                queries.remove(id);
+                if (queries.isEmpty()) {
+                    queriesByTerm.remove(term);
+                }
+            }
+        }
+    }
+
     Query parsePercolatorDocument(String id, BytesReference source) {
         String type = null;
         BytesReference querySource = null;
@@ -277,8 +360,7 @@ public class PercolatorQueriesRegistry extends AbstractIndexShardComponent {
                 searcher.searcher().search(query, queryCollector);
                 Map<BytesRef, Query> queries = queryCollector.queries();
                 for (Map.Entry<BytesRef, Query> entry : queries.entrySet()) {
-                    Query previousQuery = percolateQueries.put(entry.getKey(), entry.getValue());
-                    shardPercolateService.addedQuery(entry.getKey(), previousQuery, entry.getValue());
+                    putPercolateQuery(entry.getKey(), entry.getValue());
                 }
                 return queries.size();
             } catch (Exception e) {
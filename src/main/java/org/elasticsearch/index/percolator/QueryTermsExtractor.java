@@ -0,0 +1,219 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.FilterClause;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.search.*;
+import org.apache.lucene.search.spans.SpanNearQuery;
+import org.apache.lucene.search.spans.SpanNotQuery;
+import org.apache.lucene.search.spans.SpanOrQuery;
+import org.apache.lucene.search.spans.SpanPositionCheckQuery;
+import org.apache.lucene.search.spans.SpanQuery;
+import org.apache.lucene.search.spans.SpanTermQuery;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lucene.search.AndFilter;
+import org.elasticsearch.common.lucene.search.OrFilter;
+import org.elasticsearch.common.lucene.search.XBooleanFilter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Extracts from a percolator query terms of which a document needs to have at least one in order to match the query, so
+ * that the queries that can't match a document are skipped without running them against it.
+ * <p/>
+ * When several clauses of a query are required the terms of only one of them are extracted, the one with the fewest terms
+ * and then with the longest terms, which are less likely to be in a document.
+ */
+public final class QueryTermsExtractor {
+
+    private QueryTermsExtractor() {
+    }
+
+    /**
+     * Returns the terms of which a document needs to have at least one to match the query, or <tt>null</tt> if they can't
+     * be extracted from the query, in which case the query needs to run against every document.
+     */
+    @Nullable
+    public static Set<Term> extractQueryTerms(Query query) {
+        if (query instanceof TermQuery) {
+            return Collections.singleton(((TermQuery) query).getTerm());
+        } else if (query instanceof ConstantScoreQuery) {
+            ConstantScoreQuery constantScoreQuery = (ConstantScoreQuery) query;
+            if (constantScoreQuery.getQuery() != null) {
+                return extractQueryTerms(constantScoreQuery.getQuery());
+            }
+            return extractFilterTerms(constantScoreQuery.getFilter());
+        } else if (query instanceof FilteredQuery) {
+            FilteredQuery filteredQuery = (FilteredQuery) query;
+            return selectTerms(extractQueryTerms(filteredQuery.getQuery()), extractFilterTerms(filteredQuery.getFilter()));
+        } else if (query instanceof BooleanQuery) {
+            return extractBooleanQueryTerms((BooleanQuery) query);
+        } else if (query instanceof DisjunctionMaxQuery) {
+            return unionTerms(((DisjunctionMaxQuery) query).getDisjuncts());
+        } else if (query instanceof PhraseQuery) {
+            Set<Term> bestTerms = null;
+            for (Term term : ((PhraseQuery) query).getTerms()) {
+                bestTerms = selectTerms(bestTerms, Collections.singleton(term));
+            }
+            return bestTerms;
+        } else if (query instanceof MultiPhraseQuery) {
+            Set<Term> bestTerms = null;
+            for (Term[] terms : ((MultiPhraseQuery) query).getTermArrays()) {
+                bestTerms = selectTerms(bestTerms, new HashSet<>(Arrays.asList(terms)));
+            }
+            return bestTerms;
+        } else if (query instanceof SpanQuery) {
+            return extractSpanQueryTerms((SpanQuery) query);
+        }
+        return null;
+    }
+
+    private static Set<Term> extractBooleanQueryTerms(BooleanQuery query) {
+        boolean hasRequiredClauses = false;
+        Set<Term> requiredTerms = null;
+        for (BooleanClause clause : query.clauses()) {
+            if (clause.isRequired()) {
+                hasRequiredClauses = true;
+                requiredTerms = selectTerms(requiredTerms, extractQueryTerms(clause.getQuery()));
+            }
+        }
+        if (hasRequiredClauses) {
+            return requiredTerms;
+        }
+        // one of the optional clauses has to match
+        Set<Term> optionalTerms = new HashSet<>();
+        for (BooleanClause clause : query.clauses()) {
+            if (!clause.isProhibited()) {
+                Set<Term> clauseTerms = extractQueryTerms(clause.getQuery());
+                if (clauseTerms == null) {
+                    return null;
+                }
+                optionalTerms.addAll(clauseTerms);
+            }
+        }
+        return optionalTerms.isEmpty() ? null : optionalTerms;
+    }
+
+    private static Set<Term> extractSpanQueryTerms(SpanQuery query) {
+        if (query instanceof SpanTermQuery) {
+            return Collections.singleton(((SpanTermQuery) query).getTerm());
+        } else if (query instanceof SpanNearQuery) {
+            Set<Term> bestTerms = null;
+            for (SpanQuery clause : ((SpanNearQuery) query).getClauses()) {
+                bestTerms = selectTerms(bestTerms, extractSpanQueryTerms(clause));
+            }
+            return bestTerms;
+        } else if (query instanceof SpanOrQuery) {
+            return unionTerms(Arrays.asList(((SpanOrQuery) query).getClauses()));
+        } else if (query instanceof SpanPositionCheckQuery) {
+            return extractSpanQueryTerms(((SpanPositionCheckQuery) query).getMatch());
+        } else if (query instanceof SpanNotQuery) {
+            return extractSpanQueryTerms(((SpanNotQuery) query).getInclude());
+        }
+        return null;
+    }
+
+    private static Set<Term> extractFilterTerms(Filter filter) {
+        if (filter instanceof TermFilter) {
+            return Collections.singleton(((TermFilter) filter).getTerm());
+        } else if (filter instanceof QueryWrapperFilter) {
+            return extractQueryTerms(((QueryWrapperFilter) filter).getQuery());
+        } else if (filter instanceof AndFilter) {
+            Set<Term> bestTerms = null;
+            for (Filter clause : ((AndFilter) filter).filters()) {
+                bestTerms = selectTerms(bestTerms, extractFilterTerms(clause));
+            }
+            return bestTerms;
+        } else if (filter instanceof OrFilter) {
+            Set<Term> terms = new HashSet<>();
+            for (Filter clause : ((OrFilter) filter).filters()) {
+                Set<Term> clauseTerms = extractFilterTerms(clause);
+                if (clauseTerms == null) {
+                    return null;
+                }
+                terms.addAll(clauseTerms);
+            }
+            return terms.isEmpty() ? null : terms;
+        } else if (filter instanceof XBooleanFilter) {
+            boolean hasRequiredClauses = false;
+            Set<Term> requiredTerms = null;
+            Set<Term> optionalTerms = new HashSet<>();
+            boolean optionalExtracted = true;
+            for (FilterClause clause : ((XBooleanFilter) filter).clauses()) {
+                if (clause.getOccur() == BooleanClause.Occur.MUST) {
+                    hasRequiredClauses = true;
+                    requiredTerms = selectTerms(requiredTerms, extractFilterTerms(clause.getFilter()));
+                } else if (clause.getOccur() == BooleanClause.Occur.SHOULD && optionalExtracted) {
+                    Set<Term> clauseTerms = extractFilterTerms(clause.getFilter());
+                    if (clauseTerms == null) {
+                        optionalExtracted = false;
+                    } else {
+                        optionalTerms.addAll(clauseTerms);
+                    }
+                }
+            }
+            if (hasRequiredClauses) {
+                return requiredTerms;
+            }
+            return optionalExtracted && !optionalTerms.isEmpty() ? optionalTerms : null;
+        }
+        return null;
+    }
+
+    private static Set<Term> unionTerms(List<? extends Query> queries) {
+        Set<Term> terms = new HashSet<>();
+        for (Query query : queries) {
+            Set<Term> queryTerms = extractQueryTerms(query);
+            if (queryTerms == null) {
+                return null;
+            }
+            terms.addAll(queryTerms);
+        }
+        return terms.isEmpty() ? null : terms;
+    }
+
+    /**
+     * Selects the terms of one of two required clauses, a clause the terms couldn't be extracted from is never selected.
+     */
+    private static Set<Term> selectTerms(@Nullable Set<Term> terms1, @Nullable Set<Term> terms2) {
+        if (terms1 == null) {
+            return terms2;
+        } else if (terms2 == null) {
+            return terms1;
+        } else if (terms1.size() != terms2.size()) {
+            return terms1.size() < terms2.size() ? terms1 : terms2;
+        }
+        return shortestTermLength(terms1) >= shortestTermLength(terms2) ? terms1 : terms2;
+    }
+
+    private static int shortestTermLength(Set<Term> terms) {
+        int length = Integer.MAX_VALUE;
+        for (Term term : terms) {
+            length = Math.min(length, term.bytes().length);
+        }
+        return length;
+    }
+}
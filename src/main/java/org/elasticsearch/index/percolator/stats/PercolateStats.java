@@ -40,6 +40,8 @@ public class PercolateStats implements Streamable, ToXContent {
     private long current;
     private long memorySizeInBytes = -1;
     private long numQueries;
+    private long numCandidates;
+    private long numMatches;
 
     /**
      * Noop constructor for serialazation purposes.
@@ -47,12 +49,15 @@ public class PercolateStats implements Streamable, ToXContent {
     public PercolateStats() {
     }
 
-    PercolateStats(long percolateCount, long percolateTimeInMillis, long current, long memorySizeInBytes, long numQueries) {
+    PercolateStats(long percolateCount, long percolateTimeInMillis, long current, long memorySizeInBytes, long numQueries,
+                   long numCandidates, long numMatches) {
         this.percolateCount = percolateCount;
         this.percolateTimeInMillis = percolateTimeInMillis;
         this.current = current;
         this.memorySizeInBytes = memorySizeInBytes;
         this.numQueries = numQueries;
+        this.numCandidates = numCandidates;
+        this.numMatches = numMatches;
     }
 
     /**
@@ -90,6 +95,21 @@ public class PercolateStats implements Streamable, ToXContent {
         return numQueries;
     }
 
+    /**
+     * @return The total number of percolate queries that were selected by their terms to be verified against the
+     * percolated documents.
+     */
+    public long getNumCandidates() {
+        return numCandidates;
+    }
+
+    /**
+     * @return The total number of percolate queries that matched the percolated documents.
+     */
+    public long getNumMatches() {
+        return numMatches;
+    }
+
     /**
      * @return Temporarily returns <code>-1</code>, but this used to return the total size the loaded queries take in
      * memory, but this is disabled now because the size estimation was too expensive cpu wise. This will be enabled
@@ -115,6 +135,8 @@ public class PercolateStats implements Streamable, ToXContent {
         builder.field(Fields.MEMORY_SIZE_IN_BYTES, memorySizeInBytes);
         builder.field(Fields.MEMORY_SIZE, getMemorySize());
         builder.field(Fields.QUERIES, getNumQueries());
+        builder.field(Fields.CANDIDATES, getNumCandidates());
+        builder.field(Fields.MATCHES, getNumMatches());
         builder.endObject();
         return builder;
     }
@@ -128,6 +150,8 @@ public class PercolateStats implements Streamable, ToXContent {
         percolateTimeInMillis += percolate.getTimeInMillis();
         current += percolate.getCurrent();
         numQueries += percolate.getNumQueries();
+        numCandidates += percolate.getNumCandidates();
+        numMatches += percolate.getNumMatches();
     }
 
     static final class Fields {
@@ -139,6 +163,8 @@ public class PercolateStats implements Streamable, ToXContent {
         static final XContentBuilderString MEMORY_SIZE_IN_BYTES = new XContentBuilderString("memory_size_in_bytes");
         static final XContentBuilderString MEMORY_SIZE = new XContentBuilderString("memory_size");
         static final XContentBuilderString QUERIES = new XContentBuilderString("queries");
+        static final XContentBuilderString CANDIDATES = new XContentBuilderString("candidates");
+        static final XContentBuilderString MATCHES = new XContentBuilderString("matches");
     }
 
     public static PercolateStats readPercolateStats(StreamInput in) throws IOException {
@@ -158,6 +184,10 @@ public class PercolateStats implements Streamable, ToXContent {
             in.readLong();
         }
         numQueries = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            numCandidates = in.readVLong();
+            numMatches = in.readVLong();
+        }
     }
 
     @Override
@@ -171,5 +201,9 @@ public class PercolateStats implements Streamable, ToXContent {
             out.writeLong(-1);
         }
         out.writeVLong(numQueries);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVLong(numCandidates);
+            out.writeVLong(numMatches);
+        }
     }
 }
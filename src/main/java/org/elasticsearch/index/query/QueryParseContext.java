@@ -35,6 +35,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.lucene.search.NoCacheFilter;
 import org.elasticsearch.common.lucene.search.NoCacheQuery;
+import org.elasticsearch.common.lucene.search.NumericRangeBounds;
 import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.lucene.search.ResolvableFilter;
 import org.elasticsearch.common.xcontent.XContentParser;
@@ -419,6 +420,18 @@ public class QueryParseContext {
         return lookup;
     }
 
+    /**
+     * Returns <code>false</code> if the given numeric range can't match any document of the shard the current search
+     * runs on, because the field has no indexed value in the range. Always returns <code>true</code> outside of a search.
+     */
+    public boolean numericRangeMayMatch(String field, Number min, Number max, boolean includeMin, boolean includeMax) throws IOException {
+        SearchContext current = SearchContext.current();
+        if (current == null) {
+            return true;
+        }
+        return NumericRangeBounds.intersects(current.searcher().getIndexReader(), field, min, max, includeMin, includeMax);
+    }
+
     public long nowInMillis() {
         SearchContext current = SearchContext.current();
         if (current != null) {
@@ -20,11 +20,13 @@
 package org.elasticsearch.index.query;
 
 import org.apache.lucene.search.Filter;
+import org.apache.lucene.search.NumericRangeFilter;
 import org.apache.lucene.search.TermRangeFilter;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.joda.DateMathParser;
 import org.elasticsearch.common.joda.Joda;
 import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.cache.filter.support.CacheKeyFilter;
 import org.elasticsearch.index.mapper.FieldMapper;
@@ -174,6 +176,14 @@ public class RangeFilterParser implements FilterParser {
             }
         }
 
+        if (filter instanceof NumericRangeFilter && filterName == null) {
+            // skip the range if the shard has no value in it, which lets time based indices be filtered out cheaply
+            NumericRangeFilter<?> rangeFilter = (NumericRangeFilter<?>) filter;
+            if (parseContext.numericRangeMayMatch(rangeFilter.getField(), rangeFilter.getMin(), rangeFilter.getMax(),
+                    rangeFilter.includesMin(), rangeFilter.includesMax()) == false) {
+                return Queries.MATCH_NO_FILTER;
+            }
+        }
         if (filter == null) {
             if (cache == null) {
                 cache = true;
@@ -19,12 +19,14 @@
 
 package org.elasticsearch.index.query;
 
+import org.apache.lucene.search.NumericRangeQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermRangeQuery;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.joda.DateMathParser;
 import org.elasticsearch.common.joda.Joda;
 import org.elasticsearch.common.lucene.BytesRefs;
+import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.index.mapper.MapperService;
@@ -139,6 +141,14 @@ public class RangeQueryParser implements QueryParser {
 
             }
         }
+        if (query instanceof NumericRangeQuery && queryName == null) {
+            // skip the range if the shard has no value in it, which lets time based indices be filtered out cheaply
+            NumericRangeQuery<?> rangeQuery = (NumericRangeQuery<?>) query;
+            if (parseContext.numericRangeMayMatch(rangeQuery.getField(), rangeQuery.getMin(), rangeQuery.getMax(),
+                    rangeQuery.includesMin(), rangeQuery.includesMax()) == false) {
+                return Queries.newMatchNoDocsQuery();
+            }
+        }
         if (query == null) {
             query = new TermRangeQuery(fieldName, BytesRefs.toBytesRef(from), BytesRefs.toBytesRef(to), includeLower, includeUpper);
         }
@@ -40,6 +40,7 @@ import org.elasticsearch.index.query.QueryParseContext;
 import org.elasticsearch.index.query.QueryParser;
 import org.elasticsearch.index.query.QueryParsingException;
 import org.elasticsearch.index.query.functionscore.factor.FactorParser;
+import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -154,6 +155,11 @@ public class FunctionScoreQueryParser implements QueryParser {
         if (filterFunctions.isEmpty()) {
             return query;
         }
+        SearchContext searchContext = SearchContext.current();
+        if (searchContext != null) {
+            // score functions are moved from segment to segment by the scorers of the query, which share them
+            searchContext.requireSequentialSearch();
+        }
         // handle cases where only one score function and no filter was
         // provided. In this case we create a FunctionScoreQuery.
         if (filterFunctions.size() == 1 && (filterFunctions.get(0).filter == null || filterFunctions.get(0).filter instanceof MatchAllDocsFilter)) {
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.seqno;
+
+import com.carrotsearch.hppc.LongOpenHashSet;
+import com.carrotsearch.hppc.predicates.LongPredicate;
+
+/**
+ * Generates sequence numbers on the primary and tracks the local checkpoint of a shard copy, the highest
+ * sequence number for which all lower (and equal) sequence numbers have been processed. Operations can
+ * complete out of order, completed sequence numbers above the checkpoint are kept until the gap below
+ * them is filled.
+ */
+public class LocalCheckpointTracker {
+
+    private final LongOpenHashSet completedAboveCheckpoint = new LongOpenHashSet();
+
+    private long nextSeqNo;
+
+    private volatile long checkpoint;
+
+    public LocalCheckpointTracker(long maxSeqNo, long checkpoint) {
+        assert checkpoint <= maxSeqNo : "checkpoint [" + checkpoint + "] is above max_seq_no [" + maxSeqNo + "]";
+        this.nextSeqNo = maxSeqNo + 1;
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Issues the next sequence number, to be used on the primary only.
+     */
+    public synchronized long generateSeqNo() {
+        return nextSeqNo++;
+    }
+
+    /**
+     * Makes sure the given sequence number, which was assigned somewhere else (on the primary
+     * or when the operation was first executed), is never issued by {@link #generateSeqNo()}.
+     */
+    public synchronized void advanceMaxSeqNo(long seqNo) {
+        if (seqNo >= nextSeqNo) {
+            nextSeqNo = seqNo + 1;
+        }
+    }
+
+    /**
+     * Marks the operation with the given sequence number as processed, moving the checkpoint
+     * forward if this filled the gap above it.
+     */
+    public synchronized void markSeqNoAsCompleted(long seqNo) {
+        advanceMaxSeqNo(seqNo);
+        if (seqNo <= checkpoint) {
+            // already covered, for example an operation that is replayed during recovery
+            return;
+        }
+        if (seqNo != checkpoint + 1) {
+            completedAboveCheckpoint.add(seqNo);
+            return;
+        }
+        long newCheckpoint = seqNo;
+        while (completedAboveCheckpoint.remove(newCheckpoint + 1)) {
+            newCheckpoint++;
+        }
+        checkpoint = newCheckpoint;
+    }
+
+    /**
+     * Marks all sequence numbers up to the given one as processed. Only safe to call when the shard copy
+     * is known to contain all operations up to it, like when the source of a recovery confirmed it.
+     */
+    public synchronized void markSeqNosAsCompletedUpTo(final long seqNo) {
+        advanceMaxSeqNo(seqNo);
+        if (seqNo <= checkpoint) {
+            return;
+        }
+        completedAboveCheckpoint.removeAll(new LongPredicate() {
+            @Override
+            public boolean apply(long value) {
+                return value <= seqNo;
+            }
+        });
+        long newCheckpoint = seqNo;
+        while (completedAboveCheckpoint.remove(newCheckpoint + 1)) {
+            newCheckpoint++;
+        }
+        checkpoint = newCheckpoint;
+    }
+
+    /**
+     * Returns the local checkpoint.
+     */
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Returns the highest sequence number that was issued or seen so far.
+     */
+    public synchronized long getMaxSeqNo() {
+        return nextSeqNo - 1;
+    }
+}
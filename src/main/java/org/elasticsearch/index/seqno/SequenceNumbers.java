@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.seqno;
+
+import java.util.Map;
+
+/**
+ * Constants and helpers for the per-shard sequence numbers that the primary assigns to every
+ * index, create and delete operation.
+ */
+public final class SequenceNumbers {
+
+    /**
+     * Commit user data key for the local checkpoint: all operations with a sequence number
+     * lower or equal to it are contained in the commit.
+     */
+    public static final String LOCAL_CHECKPOINT_KEY = "local_checkpoint";
+
+    /**
+     * Commit user data key for the highest sequence number that was assigned when the commit was made.
+     */
+    public static final String MAX_SEQ_NO_KEY = "max_seq_no";
+
+    /**
+     * Commit user data key for the id of the history of operations a shard copy holds. It is generated when a
+     * new index (or an index that predates sequence numbers) is first opened and copies inherit it through
+     * file based recovery, so sequence numbers are only comparable between copies with the same history.
+     */
+    public static final String HISTORY_UUID_KEY = "history_uuid";
+
+    /**
+     * The sequence number of an operation that was not assigned one (yet), for example operations
+     * coming from nodes or translogs that predate sequence numbers.
+     */
+    public static final long UNASSIGNED_SEQ_NO = -2l;
+
+    /**
+     * The local checkpoint / max sequence number of a shard that has not processed any operation.
+     */
+    public static final long NO_OPS_PERFORMED = -1l;
+
+    private SequenceNumbers() {
+    }
+
+    /**
+     * Reads the local checkpoint from the given commit user data, {@link #UNASSIGNED_SEQ_NO} if the commit
+     * does not carry one.
+     */
+    public static long readLocalCheckpoint(Map<String, String> commitUserData) {
+        return readSeqNo(commitUserData, LOCAL_CHECKPOINT_KEY);
+    }
+
+    /**
+     * Reads the max sequence number from the given commit user data, {@link #UNASSIGNED_SEQ_NO} if the commit
+     * does not carry one.
+     */
+    public static long readMaxSeqNo(Map<String, String> commitUserData) {
+        return readSeqNo(commitUserData, MAX_SEQ_NO_KEY);
+    }
+
+    private static long readSeqNo(Map<String, String> commitUserData, String key) {
+        final String value = commitUserData.get(key);
+        return value == null ? UNASSIGNED_SEQ_NO : Long.parseLong(value);
+    }
+}
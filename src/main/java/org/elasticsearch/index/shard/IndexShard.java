@@ -74,6 +74,7 @@ import org.elasticsearch.index.indexing.ShardIndexingService;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.ParsedDocument;
+import org.elasticsearch.index.mapper.ParsedDocumentSerializer;
 import org.elasticsearch.index.mapper.SourceToParse;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.mapper.internal.ParentFieldMapper;
@@ -95,6 +96,7 @@ import org.elasticsearch.index.suggest.stats.ShardSuggestService;
 import org.elasticsearch.index.suggest.stats.SuggestStats;
 import org.elasticsearch.index.termvectors.ShardTermVectorsService;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogException;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
@@ -386,9 +388,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndexShar
     }
 
     public Engine.Create prepareCreate(SourceToParse source, long version, VersionType versionType, Engine.Operation.Origin origin, boolean canHaveDuplicates, boolean autoGeneratedId) throws ElasticsearchException {
+        return prepareCreate(source, null, version, versionType, origin, canHaveDuplicates, autoGeneratedId);
+    }
+
+    /**
+     * Same as {@link #prepareCreate(SourceToParse, long, VersionType, Engine.Operation.Origin, boolean, boolean)}, but
+     * indexes the given documents serialized by {@link ParsedDocumentSerializer} instead of parsing the source when possible.
+     */
+    public Engine.Create prepareCreate(SourceToParse source, @Nullable BytesReference parsedDocument, long version, VersionType versionType, Engine.Operation.Origin origin, boolean canHaveDuplicates, boolean autoGeneratedId) throws ElasticsearchException {
         long startTime = System.nanoTime();
         Tuple<DocumentMapper, Boolean> docMapper = mapperService.documentMapperWithAutoCreate(source.type());
-        ParsedDocument doc = docMapper.v1().parse(source).setMappingsModified(docMapper);
+        ParsedDocument doc = parse(docMapper, source, parsedDocument);
         return new Engine.Create(docMapper.v1(), docMapper.v1().uidMapper().term(doc.uid().stringValue()), doc, version, versionType, origin, startTime, state != IndexShardState.STARTED || canHaveDuplicates, autoGeneratedId);
     }
 
@@ -410,12 +420,35 @@ public class IndexShard extends AbstractIndexShardComponent implements IndexShar
     }
 
     public Engine.Index prepareIndex(SourceToParse source, long version, VersionType versionType, Engine.Operation.Origin origin, boolean canHaveDuplicates) throws ElasticsearchException {
+        return prepareIndex(source, null, version, versionType, origin, canHaveDuplicates);
+    }
+
+    /**
+     * Same as {@link #prepareIndex(SourceToParse, long, VersionType, Engine.Operation.Origin, boolean)}, but indexes the
+     * given documents serialized by {@link ParsedDocumentSerializer} instead of parsing the source when possible.
+     */
+    public Engine.Index prepareIndex(SourceToParse source, @Nullable BytesReference parsedDocument, long version, VersionType versionType, Engine.Operation.Origin origin, boolean canHaveDuplicates) throws ElasticsearchException {
         long startTime = System.nanoTime();
         Tuple<DocumentMapper, Boolean> docMapper = mapperService.documentMapperWithAutoCreate(source.type());
-        ParsedDocument doc = docMapper.v1().parse(source).setMappingsModified(docMapper);
+        ParsedDocument doc = parse(docMapper, source, parsedDocument);
         return new Engine.Index(docMapper.v1(), docMapper.v1().uidMapper().term(doc.uid().stringValue()), doc, version, versionType, origin, startTime, state != IndexShardState.STARTED || canHaveDuplicates);
     }
 
+    private ParsedDocument parse(Tuple<DocumentMapper, Boolean> docMapper, SourceToParse source, @Nullable BytesReference parsedDocument) {
+        // a mapping that was just created doesn't know about the fields of the parsed document yet
+        if (parsedDocument != null && !docMapper.v2()) {
+            try {
+                ParsedDocument doc = ParsedDocumentSerializer.deserialize(parsedDocument, docMapper.v1(), source);
+                if (doc != null) {
+                    return doc;
+                }
+            } catch (IOException e) {
+                logger.debug("failed to read parsed document [{}][{}], parsing its source", e, source.type(), source.id());
+            }
+        }
+        return docMapper.v1().parse(source).setMappingsModified(docMapper);
+    }
+
     public ParsedDocument index(Engine.Index index) throws ElasticsearchException {
         writeAllowed(index.origin());
         index = indexingService.preIndex(index);
@@ -572,6 +605,21 @@ public class IndexShard extends AbstractIndexShardComponent implements IndexShar
         return translog.stats();
     }
 
+    /**
+     * Syncs the translog up to (and including) the given location if the translog durability is set to
+     * {@link Translog.Durability#REQUEST}. Does nothing for async durability or a <tt>null</tt> location.
+     */
+    public void sync(@Nullable Translog.Location location) throws ElasticsearchException {
+        if (location == null || translog.getDurability() != Translog.Durability.REQUEST) {
+            return;
+        }
+        try {
+            translog.ensureSynced(location);
+        } catch (IOException e) {
+            throw new TranslogException(shardId, "failed to sync translog up to " + location, e);
+        }
+    }
+
     public SuggestStats suggestStats() {
         return shardSuggestService.stats();
     }
@@ -711,6 +759,25 @@ public class IndexShard extends AbstractIndexShardComponent implements IndexShar
         this.recoveryState = recoveryState;
     }
 
+    /**
+     * Brings the local checkpoint of this shard copy to the one of its peer recovery source, taken while the source
+     * blocked indexing after it sent all its operations. If this copy recovered the last commit of the source, the
+     * operations of that commit and the replayed ones make up all operations up to that checkpoint, but the ones in
+     * the commit can't be told apart from gaps, so they are filled. If this copy kept its own commit, all operations
+     * above its checkpoint were replayed and nothing is filled. Either way a checkpoint still below the source's one
+     * means operations are missing and fails the recovery.
+     */
+    public void recoverLocalCheckpoint(long sourceLocalCheckpoint, boolean recoveredSourceCommit) throws ElasticsearchException {
+        if (recoveredSourceCommit) {
+            engine.markSeqNosAsCompletedUpTo(sourceLocalCheckpoint);
+        }
+        final long localCheckpoint = engine.getLocalCheckpoint();
+        if (localCheckpoint < sourceLocalCheckpoint) {
+            throw new IllegalIndexShardStateException(shardId, state, "missing operations after recovery, local checkpoint ["
+                    + localCheckpoint + "] is below the local checkpoint of the recovery source [" + sourceLocalCheckpoint + "]");
+        }
+    }
+
     public void performRecoveryFinalization(boolean withFlush) throws ElasticsearchException {
         if (withFlush) {
             engine.flush(Engine.FlushType.COMMIT_TRANSLOG, false, false);
@@ -743,6 +810,7 @@ public class IndexShard extends AbstractIndexShardComponent implements IndexShar
                             source(create.source()).type(create.type()).id(create.id())
                                     .routing(create.routing()).parent(create.parent()).timestamp(create.timestamp()).ttl(create.ttl()),
                             create.version(), create.versionType().versionTypeForReplicationAndRecovery(), Engine.Operation.Origin.RECOVERY, true, false);
+                    engineCreate.updateSeqNo(create.seqNo());
                     engine.create(engineCreate);
                     indexOperation = engineCreate;
                     break;
@@ -751,14 +819,17 @@ public class IndexShard extends AbstractIndexShardComponent implements IndexShar
                     Engine.Index engineIndex = prepareIndex(source(index.source()).type(index.type()).id(index.id())
                                     .routing(index.routing()).parent(index.parent()).timestamp(index.timestamp()).ttl(index.ttl()),
                             index.version(), index.versionType().versionTypeForReplicationAndRecovery(), Engine.Operation.Origin.RECOVERY, true);
+                    engineIndex.updateSeqNo(index.seqNo());
                     engine.index(engineIndex);
                     indexOperation = engineIndex;
                     break;
                 case DELETE:
                     Translog.Delete delete = (Translog.Delete) operation;
                     Uid uid = Uid.createUid(delete.uid().text());
-                    engine.delete(new Engine.Delete(uid.type(), uid.id(), delete.uid(), delete.version(),
-                            delete.versionType().versionTypeForReplicationAndRecovery(), Engine.Operation.Origin.RECOVERY, System.nanoTime(), false));
+                    Engine.Delete engineDelete = new Engine.Delete(uid.type(), uid.id(), delete.uid(), delete.version(),
+                            delete.versionType().versionTypeForReplicationAndRecovery(), Engine.Operation.Origin.RECOVERY, System.nanoTime(), false);
+                    engineDelete.updateSeqNo(delete.seqNo());
+                    engine.delete(engineDelete);
                     break;
                 case DELETE_BY_QUERY:
                     Translog.DeleteByQuery deleteByQuery = (Translog.DeleteByQuery) operation;
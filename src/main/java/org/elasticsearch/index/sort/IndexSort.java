@@ -0,0 +1,162 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.sort;
+
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.SortingMergePolicy;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSelector;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSelector;
+import org.apache.lucene.search.SortedSetSortField;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.fielddata.IndexFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.core.DoubleFieldMapper;
+import org.elasticsearch.index.mapper.core.FloatFieldMapper;
+import org.elasticsearch.index.mapper.core.NumberFieldMapper;
+import org.elasticsearch.index.mapper.core.StringFieldMapper;
+
+import java.util.Map;
+
+/**
+ * The sort the documents of the merged segments of an index are kept in, configured with the
+ * <tt>index.sort.field</tt> and <tt>index.sort.order</tt> settings. The sort fields need to be mapped when the index is
+ * created, and to be numeric or not analyzed string fields with doc values.
+ * <p/>
+ * The documents of each field are compared the way a search request sorts on the field by default, on the minimum value of
+ * the field ascending or its maximum value descending, missing values last. A search request sorted on a prefix of the
+ * index sort can stop collecting a sorted segment once it collected enough documents, see
+ * {@link #canEarlyTerminate(Sort, Sort)} and {@link #isSorted(Sort, LeafReader)}.
+ */
+public final class IndexSort {
+
+    public static final String INDEX_SORT_FIELD = "index.sort.field";
+    public static final String INDEX_SORT_ORDER = "index.sort.order";
+
+    private IndexSort() {
+    }
+
+    /**
+     * Returns the sort of the index, or <tt>null</tt> if the index isn't sorted.
+     */
+    @Nullable
+    public static Sort parse(Settings indexSettings, MapperService mapperService) {
+        String[] fields = indexSettings.getAsArray(INDEX_SORT_FIELD);
+        if (fields.length == 0) {
+            return null;
+        }
+        String[] orders = indexSettings.getAsArray(INDEX_SORT_ORDER);
+        if (orders.length != 0 && orders.length != fields.length) {
+            throw new ElasticsearchIllegalArgumentException("[" + INDEX_SORT_ORDER + "] must have as many orders as [" + INDEX_SORT_FIELD + "] has fields");
+        }
+        SortField[] sortFields = new SortField[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            boolean reverse = false;
+            if (orders.length != 0) {
+                if ("desc".equals(orders[i])) {
+                    reverse = true;
+                } else if (!"asc".equals(orders[i])) {
+                    throw new ElasticsearchIllegalArgumentException("illegal [" + INDEX_SORT_ORDER + "] value [" + orders[i] + "], must be one of [asc, desc]");
+                }
+            }
+            sortFields[i] = sortField(fields[i], reverse, mapperService);
+        }
+        return new Sort(sortFields);
+    }
+
+    private static SortField sortField(String field, boolean reverse, MapperService mapperService) {
+        FieldMapper<?> fieldMapper = mapperService.smartNameFieldMapper(field);
+        if (fieldMapper == null) {
+            throw new ElasticsearchIllegalArgumentException("no mapping found for index sort field [" + field + "]");
+        }
+        if (!fieldMapper.hasDocValues()) {
+            throw new ElasticsearchIllegalArgumentException("index sort field [" + field + "] must have doc values");
+        }
+        String indexName = fieldMapper.names().indexName();
+        if (fieldMapper instanceof NumberFieldMapper) {
+            SortField.Type type;
+            Object missingValue;
+            if (fieldMapper instanceof DoubleFieldMapper) {
+                type = SortField.Type.DOUBLE;
+                missingValue = reverse ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            } else if (fieldMapper instanceof FloatFieldMapper) {
+                type = SortField.Type.FLOAT;
+                missingValue = reverse ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY;
+            } else {
+                type = SortField.Type.LONG;
+                missingValue = reverse ? Long.MIN_VALUE : Long.MAX_VALUE;
+            }
+            SortedNumericSortField sortField = new SortedNumericSortField(indexName, type, reverse,
+                    reverse ? SortedNumericSelector.Type.MAX : SortedNumericSelector.Type.MIN);
+            sortField.setMissingValue(missingValue);
+            return sortField;
+        } else if (fieldMapper instanceof StringFieldMapper) {
+            SortedSetSortField sortField = new SortedSetSortField(indexName, reverse,
+                    reverse ? SortedSetSelector.Type.MAX : SortedSetSelector.Type.MIN);
+            sortField.setMissingValue(reverse ? SortField.STRING_FIRST : SortField.STRING_LAST);
+            return sortField;
+        }
+        throw new ElasticsearchIllegalArgumentException("index sort field [" + field + "] of type [" + fieldMapper.fieldDataType().getType() + "] is not supported");
+    }
+
+    /**
+     * Whether the documents of a segment sorted with the index sort come in the order of the given request sort, that is
+     * if the request sort is a prefix of the index sort and sorts on the default value of its fields.
+     */
+    public static boolean canEarlyTerminate(Sort indexSort, Sort requestSort) {
+        SortField[] indexFields = indexSort.getSort();
+        SortField[] requestFields = requestSort.getSort();
+        if (requestFields.length > indexFields.length) {
+            return false;
+        }
+        for (int i = 0; i < requestFields.length; i++) {
+            SortField requestField = requestFields[i];
+            if (!(requestField.getComparatorSource() instanceof IndexFieldData.XFieldComparatorSource)) {
+                return false;
+            }
+            IndexFieldData.XFieldComparatorSource comparatorSource = (IndexFieldData.XFieldComparatorSource) requestField.getComparatorSource();
+            if (!indexFields[i].getField().equals(requestField.getField())
+                    || indexFields[i].getReverse() != requestField.getReverse()
+                    || !comparatorSource.hasDefaultOptions(requestField.getReverse())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the documents of the given segment are sorted with the index sort, only the segments written by a merge are.
+     */
+    public static boolean isSorted(Sort indexSort, LeafReader reader) {
+        reader = FilterLeafReader.unwrap(reader);
+        if (!(reader instanceof SegmentReader)) {
+            return false;
+        }
+        Map<String, String> diagnostics = ((SegmentReader) reader).getSegmentInfo().info.getDiagnostics();
+        return diagnostics != null && indexSort.toString().equals(diagnostics.get(SortingMergePolicy.SORTER_ID_PROP));
+    }
+}
@@ -79,6 +79,8 @@ public class ChecksummedTranslogStream implements TranslogStream {
         // alternative, but here we choose to use CPU over allocating new
         // byte arrays.
         NoopStreamOutput noopOut = new NoopStreamOutput();
+        // operations are serialized depending on the version of the node we send them to
+        noopOut.setVersion(outStream.getVersion());
         noopOut.writeByte(op.opType().id());
         op.writeTo(noopOut);
         noopOut.writeInt(0); // checksum holder
@@ -88,6 +90,7 @@ public class ChecksummedTranslogStream implements TranslogStream {
         // because closing it closes the underlying stream, which we don't
         // want to do here.
         BufferedChecksumStreamOutput out = new BufferedChecksumStreamOutput(outStream);
+        out.setVersion(outStream.getVersion());
         outStream.writeInt(size); // opSize is not checksummed
         out.writeByte(op.opType().id());
         op.writeTo(out);
@@ -23,6 +23,7 @@ import org.apache.lucene.index.Term;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.common.Nullable;
@@ -37,6 +38,7 @@ import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexShardComponent;
 
 import java.io.Closeable;
@@ -54,6 +56,8 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
 
     public static final String TRANSLOG_ID_KEY = "translog_id";
 
+    public static final String INDEX_TRANSLOG_DURABILITY = "index.translog.durability";
+
     void updateBuffer(ByteSizeValue bufferSize);
 
     /**
@@ -132,6 +136,17 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
 
     void syncOnEachOperation(boolean syncOnEachOperation);
 
+    /**
+     * Ensures that everything up to and including the given location is synced to disk. Concurrent
+     * callers share a single fsync where possible. Returns <tt>true</tt> if this call had to sync.
+     */
+    boolean ensureSynced(Location location) throws IOException;
+
+    /**
+     * Returns the durability of write requests on this translog.
+     */
+    Durability getDurability();
+
     /**
      * Returns all translog locations as absolute paths.
      * These paths don't contain actual translog files they are
@@ -155,6 +170,31 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
      */
     long findLargestPresentTranslogId() throws IOException;
 
+    /**
+     * Controls when write requests are acknowledged in relation to the translog fsync.
+     */
+    public enum Durability {
+        /**
+         * Requests are acknowledged once the operation was written to the translog, which is synced
+         * in the background every <tt>index.gateway.local.sync</tt> interval.
+         */
+        ASYNC,
+        /**
+         * Requests are acknowledged only after the translog was synced up to the request's operations, on
+         * the primary and on all replicas. Concurrent requests are grouped into a single fsync.
+         */
+        REQUEST;
+
+        public static Durability fromString(String durability) throws ElasticsearchIllegalArgumentException {
+            if (ASYNC.name().equalsIgnoreCase(durability)) {
+                return ASYNC;
+            } else if (REQUEST.name().equalsIgnoreCase(durability)) {
+                return REQUEST;
+            }
+            throw new ElasticsearchIllegalArgumentException("No translog durability [" + durability + "]");
+        }
+    }
+
     static class Location implements Accountable {
 
         public final long translogId;
@@ -285,7 +325,7 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
     }
 
     static class Create implements Operation {
-        public static final int SERIALIZATION_FORMAT = 6;
+        public static final int SERIALIZATION_FORMAT = 7;
 
         private String id;
         private String type;
@@ -296,6 +336,7 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
         private long ttl;
         private long version = Versions.MATCH_ANY;
         private VersionType versionType = VersionType.INTERNAL;
+        private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
 
         public Create() {
         }
@@ -310,6 +351,7 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             this.ttl = create.ttl();
             this.version = create.version();
             this.versionType = create.versionType();
+            this.seqNo = create.seqNo();
         }
 
         public Create(String type, String id, byte[] source) {
@@ -364,6 +406,10 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             return versionType;
         }
 
+        public long seqNo() {
+            return this.seqNo;
+        }
+
         @Override
         public Source getSource() {
             return new Source(source, routing, parent, timestamp, ttl);
@@ -397,13 +443,18 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             if (version >= 6) {
                 this.versionType = VersionType.fromValue(in.readByte());
             }
+            if (version >= 7) {
+                this.seqNo = in.readLong();
+            }
 
             assert versionType.validateVersionForWrites(version);
         }
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
-            out.writeVInt(SERIALIZATION_FORMAT);
+            // translog operations are sent to older nodes during recovery, they don't know about sequence numbers
+            final boolean writeSeqNo = out.getVersion().onOrAfter(Version.V_2_0_0);
+            out.writeVInt(writeSeqNo ? SERIALIZATION_FORMAT : 6);
             out.writeString(id);
             out.writeString(type);
             out.writeBytesReference(source);
@@ -423,11 +474,14 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             out.writeLong(timestamp);
             out.writeLong(ttl);
             out.writeByte(versionType.getValue());
+            if (writeSeqNo) {
+                out.writeLong(seqNo);
+            }
         }
     }
 
     static class Index implements Operation {
-        public static final int SERIALIZATION_FORMAT = 6;
+        public static final int SERIALIZATION_FORMAT = 7;
 
         private String id;
         private String type;
@@ -438,6 +492,7 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
         private String parent;
         private long timestamp;
         private long ttl;
+        private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
 
         public Index() {
         }
@@ -452,6 +507,7 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             this.timestamp = index.timestamp();
             this.ttl = index.ttl();
             this.versionType = index.versionType();
+            this.seqNo = index.seqNo();
         }
 
         public Index(String type, String id, byte[] source) {
@@ -506,6 +562,10 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             return versionType;
         }
 
+        public long seqNo() {
+            return this.seqNo;
+        }
+
         @Override
         public Source getSource() {
             return new Source(source, routing, parent, timestamp, ttl);
@@ -540,6 +600,9 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
                 if (version >= 6) {
                     this.versionType = VersionType.fromValue(in.readByte());
                 }
+                if (version >= 7) {
+                    this.seqNo = in.readLong();
+                }
             } catch (Exception e) {
                 throw new ElasticsearchException("failed to read [" + type + "][" + id + "]", e);
             }
@@ -549,7 +612,9 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
-            out.writeVInt(SERIALIZATION_FORMAT);
+            // translog operations are sent to older nodes during recovery, they don't know about sequence numbers
+            final boolean writeSeqNo = out.getVersion().onOrAfter(Version.V_2_0_0);
+            out.writeVInt(writeSeqNo ? SERIALIZATION_FORMAT : 6);
             out.writeString(id);
             out.writeString(type);
             out.writeBytesReference(source);
@@ -569,15 +634,19 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             out.writeLong(timestamp);
             out.writeLong(ttl);
             out.writeByte(versionType.getValue());
+            if (writeSeqNo) {
+                out.writeLong(seqNo);
+            }
         }
     }
 
     static class Delete implements Operation {
-        public static final int SERIALIZATION_FORMAT = 2;
+        public static final int SERIALIZATION_FORMAT = 3;
 
         private Term uid;
         private long version = Versions.MATCH_ANY;
         private VersionType versionType = VersionType.INTERNAL;
+        private long seqNo = SequenceNumbers.UNASSIGNED_SEQ_NO;
 
         public Delete() {
         }
@@ -586,6 +655,7 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             this(delete.uid());
             this.version = delete.version();
             this.versionType = delete.versionType();
+            this.seqNo = delete.seqNo();
         }
 
         public Delete(Term uid) {
@@ -620,6 +690,10 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             return this.versionType;
         }
 
+        public long seqNo() {
+            return this.seqNo;
+        }
+
         @Override
         public Source getSource(){
             throw new ElasticsearchIllegalStateException("trying to read doc source from delete operation");
@@ -635,17 +709,25 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
             if (version >= 2) {
                 this.versionType = VersionType.fromValue(in.readByte());
             }
+            if (version >= 3) {
+                this.seqNo = in.readLong();
+            }
             assert versionType.validateVersionForWrites(version);
 
         }
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
-            out.writeVInt(SERIALIZATION_FORMAT);
+            // translog operations are sent to older nodes during recovery, they don't know about sequence numbers
+            final boolean writeSeqNo = out.getVersion().onOrAfter(Version.V_2_0_0);
+            out.writeVInt(writeSeqNo ? SERIALIZATION_FORMAT : 2);
             out.writeString(uid.field());
             out.writeString(uid.text());
             out.writeLong(version);
             out.writeByte(versionType.getValue());
+            if (writeSeqNo) {
+                out.writeLong(seqNo);
+            }
         }
     }
 
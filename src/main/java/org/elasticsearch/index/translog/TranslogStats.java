@@ -18,9 +18,11 @@
  */
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
@@ -34,12 +36,22 @@ public class TranslogStats implements ToXContent, Streamable {
 
     private long translogSizeInBytes = 0;
     private int estimatedNumberOfOperations = 0;
+    private long syncTotal = 0;
+    private long syncTimeInMillis = 0;
+    private long syncedOperations = 0;
 
     public TranslogStats() {}
 
     public TranslogStats(int estimatedNumberOfOperations, long translogSizeInBytes) {
+        this(estimatedNumberOfOperations, translogSizeInBytes, 0, 0, 0);
+    }
+
+    public TranslogStats(int estimatedNumberOfOperations, long translogSizeInBytes, long syncTotal, long syncTimeInMillis, long syncedOperations) {
         this.estimatedNumberOfOperations = estimatedNumberOfOperations;
         this.translogSizeInBytes = translogSizeInBytes;
+        this.syncTotal = syncTotal;
+        this.syncTimeInMillis = syncTimeInMillis;
+        this.syncedOperations = syncedOperations;
     }
 
     public void add(TranslogStats translogStats) {
@@ -48,7 +60,47 @@ public class TranslogStats implements ToXContent, Streamable {
         }
 
         this.estimatedNumberOfOperations += translogStats.estimatedNumberOfOperations;
-        this.translogSizeInBytes =+ translogStats.translogSizeInBytes;
+        this.translogSizeInBytes += translogStats.translogSizeInBytes;
+        this.syncTotal += translogStats.syncTotal;
+        this.syncTimeInMillis += translogStats.syncTimeInMillis;
+        this.syncedOperations += translogStats.syncedOperations;
+    }
+
+    public int estimatedNumberOfOperations() {
+        return estimatedNumberOfOperations;
+    }
+
+    public long translogSizeInBytes() {
+        return translogSizeInBytes;
+    }
+
+    /**
+     * The total number of fsyncs executed on the translog.
+     */
+    public long getSyncTotal() {
+        return syncTotal;
+    }
+
+    /**
+     * The total time spent fsyncing the translog (in milliseconds).
+     */
+    public long getSyncTimeInMillis() {
+        return syncTimeInMillis;
+    }
+
+    /**
+     * The total time spent fsyncing the translog.
+     */
+    public TimeValue getSyncTime() {
+        return new TimeValue(syncTimeInMillis);
+    }
+
+    /**
+     * The total number of operations made durable by translog fsyncs. Divided by {@link #getSyncTotal()}
+     * this gives the average number of operations covered by a single fsync.
+     */
+    public long getSyncedOperations() {
+        return syncedOperations;
     }
 
     @Override
@@ -56,6 +108,11 @@ public class TranslogStats implements ToXContent, Streamable {
         builder.startObject(Fields.TRANSLOG);
         builder.field(Fields.OPERATIONS, estimatedNumberOfOperations);
         builder.byteSizeField(Fields.SIZE_IN_BYTES, Fields.SIZE, translogSizeInBytes);
+        builder.startObject(Fields.SYNC);
+        builder.field(Fields.TOTAL, syncTotal);
+        builder.timeValueField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, syncTimeInMillis);
+        builder.field(Fields.OPERATIONS, syncedOperations);
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -65,15 +122,31 @@ public class TranslogStats implements ToXContent, Streamable {
         static final XContentBuilderString OPERATIONS = new XContentBuilderString("operations");
         static final XContentBuilderString SIZE = new XContentBuilderString("size");
         static final XContentBuilderString SIZE_IN_BYTES = new XContentBuilderString("size_in_bytes");
+        static final XContentBuilderString SYNC = new XContentBuilderString("sync");
+        static final XContentBuilderString TOTAL = new XContentBuilderString("total");
+        static final XContentBuilderString TOTAL_TIME = new XContentBuilderString("total_time");
+        static final XContentBuilderString TOTAL_TIME_IN_MILLIS = new XContentBuilderString("total_time_in_millis");
     }
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
         estimatedNumberOfOperations = in.readVInt();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            translogSizeInBytes = in.readVLong();
+            syncTotal = in.readVLong();
+            syncTimeInMillis = in.readVLong();
+            syncedOperations = in.readVLong();
+        }
     }
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVInt(estimatedNumberOfOperations);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVLong(translogSizeInBytes);
+            out.writeVLong(syncTotal);
+            out.writeVLong(syncTimeInMillis);
+            out.writeVLong(syncedOperations);
+        }
     }
 }
@@ -53,6 +53,8 @@ public class BufferingFsTranslogFile implements FsTranslogFile {
     private volatile long lastWrittenPosition;
 
     private volatile long lastSyncPosition = 0;
+    private int lastSyncOperationCounter = 0;
+    private final Object syncLock = new Object();
 
     private byte[] buffer;
     private int bufferCount;
@@ -174,18 +176,38 @@ public class BufferingFsTranslogFile implements FsTranslogFile {
     }
 
     @Override
-    public void sync() throws IOException {
-        if (!syncNeeded()) {
-            return;
+    public int sync() throws IOException {
+        return syncUpTo(Long.MAX_VALUE);
+    }
+
+    @Override
+    public int syncUpTo(long position) throws IOException {
+        if (lastSyncPosition >= position || !syncNeeded()) {
+            return 0;
         }
-        rwl.writeLock().lock();
-        try {
-            flushBuffer();
-            lastSyncPosition = lastPosition;
-        } finally {
-            rwl.writeLock().unlock();
+        synchronized (syncLock) {
+            // the sync we waited for might already cover our position
+            if (lastSyncPosition >= position || !syncNeeded()) {
+                return 0;
+            }
+            final long syncPosition;
+            final int syncOperationCounter;
+            rwl.writeLock().lock();
+            try {
+                flushBuffer();
+                syncPosition = lastPosition;
+                syncOperationCounter = operationCounter;
+            } finally {
+                rwl.writeLock().unlock();
+            }
+            // we don't hold the write lock while we fsync, so writers can keep adding operations, they will be
+            // picked up by the next sync
+            channelReference.channel().force(false);
+            lastSyncPosition = syncPosition;
+            int syncedOperations = syncOperationCounter - lastSyncOperationCounter;
+            lastSyncOperationCounter = syncOperationCounter;
+            return syncedOperations;
         }
-        channelReference.channel().force(false);
     }
 
     @Override
@@ -28,6 +28,8 @@ import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
@@ -43,6 +45,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.file.*;
 import java.util.Collections;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
@@ -65,6 +68,11 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
                 logger.info("updating type from [{}] to [{}]", FsTranslog.this.type, type);
                 FsTranslog.this.type = type;
             }
+            Durability durability = Durability.fromString(settings.get(INDEX_TRANSLOG_DURABILITY, FsTranslog.this.durability.name()));
+            if (durability != FsTranslog.this.durability) {
+                logger.info("updating durability from [{}] to [{}]", FsTranslog.this.durability, durability);
+                FsTranslog.this.durability = durability;
+            }
         }
     }
 
@@ -81,6 +89,11 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
 
     private boolean syncOnEachOperation = false;
 
+    private volatile Durability durability;
+
+    private final MeanMetric syncMetric = new MeanMetric();
+    private final CounterMetric syncedOperations = new CounterMetric();
+
     private volatile int bufferSize;
     private volatile int transientBufferSize;
 
@@ -103,6 +116,7 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         this.type = FsTranslogFile.Type.fromString(componentSettings.get("type", FsTranslogFile.Type.BUFFERED.name()));
         this.bufferSize = (int) componentSettings.getAsBytesSize("buffer_size", ByteSizeValue.parseBytesSizeValue("64k")).bytes(); // Not really interesting, updated by IndexingMemoryController...
         this.transientBufferSize = (int) componentSettings.getAsBytesSize("transient_buffer_size", ByteSizeValue.parseBytesSizeValue("8k")).bytes();
+        this.durability = Durability.fromString(indexSettings.get(INDEX_TRANSLOG_DURABILITY, Durability.ASYNC.name()));
 
         indexSettingsService.addListener(applySettings);
     }
@@ -116,6 +130,7 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
 
         this.type = FsTranslogFile.Type.fromString(componentSettings.get("type", FsTranslogFile.Type.BUFFERED.name()));
         this.bufferSize = (int) componentSettings.getAsBytesSize("buffer_size", ByteSizeValue.parseBytesSizeValue("64k")).bytes();
+        this.durability = Durability.fromString(indexSettings.get(INDEX_TRANSLOG_DURABILITY, Durability.ASYNC.name()));
     }
 
     @Override
@@ -347,7 +362,8 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
             ReleasableBytesReference bytes = out.bytes();
             Location location = current.add(bytes);
             if (syncOnEachOperation) {
-                current.sync();
+                final long startTime = System.nanoTime();
+                recordSync(current.sync(), startTime);
             }
 
             assert new BytesArray(current.read(location)).equals(bytes);
@@ -400,7 +416,8 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
             return;
         }
         try {
-            current1.sync();
+            final long startTime = System.nanoTime();
+            recordSync(current1.sync(), startTime);
         } catch (IOException e) {
             // if we switches translots (!=), then this failure is not relevant
             // we are working on a new translog
@@ -410,6 +427,51 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         }
     }
 
+    @Override
+    public boolean ensureSynced(Location location) throws IOException {
+        FsTranslogFile current1 = this.current;
+        FsTranslogFile trans1 = this.trans;
+        try {
+            final long startTime = System.nanoTime();
+            if (trans1 != null && trans1.id() == location.translogId) {
+                // the operation went to both files, the transient one only becomes the source of truth
+                // once it is made current, so both need to be durable
+                int synced = current1.sync();
+                synced = Math.max(synced, trans1.syncUpTo(location.translogLocation + location.size));
+                return recordSync(synced, startTime);
+            } else if (current1 != null && current1.id() == location.translogId) {
+                return recordSync(current1.syncUpTo(location.translogLocation + location.size), startTime);
+            } else if (current1 != null && location.translogId > current1.id()) {
+                // translog ids only grow, so the location points to a transient translog that was reverted or made
+                // current since we looked. Either way the operation is in the file that is current now, but its
+                // position there is unknown, so that file needs to be synced entirely
+                return recordSync(this.current.sync(), startTime);
+            }
+            // the location points to an older translog file, which has been synced when it was closed
+            return false;
+        } catch (IOException e) {
+            // if we switched translogs in the meantime, the file was synced on close
+            if (this.current == current1 && this.trans == trans1) {
+                throw e;
+            }
+            return false;
+        }
+    }
+
+    private boolean recordSync(int syncedOperations, long startTime) {
+        if (syncedOperations == 0) {
+            return false;
+        }
+        syncMetric.inc(System.nanoTime() - startTime);
+        this.syncedOperations.inc(syncedOperations);
+        return true;
+    }
+
+    @Override
+    public Durability getDurability() {
+        return durability;
+    }
+
     @Override
     public boolean syncNeeded() {
         FsTranslogFile current1 = this.current;
@@ -433,7 +495,8 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
 
     @Override
     public TranslogStats stats() {
-        return new TranslogStats(estimatedNumberOfOperations(), translogSizeInBytes());
+        return new TranslogStats(estimatedNumberOfOperations(), translogSizeInBytes(), syncMetric.count(),
+                TimeUnit.NANOSECONDS.toMillis(syncMetric.sum()), syncedOperations.count());
     }
 
     @Override
@@ -75,7 +75,19 @@ public interface FsTranslogFile extends Closeable {
 
     void updateBufferSize(int bufferSize) throws TranslogException;
 
-    void sync() throws IOException;
+    /**
+     * Syncs all operations written so far to disk and returns the number of operations made durable by this call,
+     * <tt>0</tt> if there was nothing to sync.
+     */
+    int sync() throws IOException;
+
+    /**
+     * Makes sure that everything written up to the given position is synced to disk. Concurrent callers are
+     * covered by a single fsync (group commit): callers waiting on an ongoing sync only sync again if their
+     * position was not covered by it. Returns the number of operations made durable by this call, <tt>0</tt>
+     * if the position was already synced.
+     */
+    int syncUpTo(long position) throws IOException;
 
     boolean syncNeeded();
 
@@ -52,6 +52,8 @@ public class SimpleFsTranslogFile implements FsTranslogFile {
     private volatile long lastWrittenPosition = 0;
 
     private volatile long lastSyncPosition = 0;
+    private int lastSyncOperationCounter = 0;
+    private final Object syncLock = new Object();
 
     public SimpleFsTranslogFile(ShardId shardId, long id, ChannelReference channelReference) throws IOException {
         this.shardId = shardId;
@@ -151,17 +153,36 @@ public class SimpleFsTranslogFile implements FsTranslogFile {
         return channelReference.file();
     }
 
-    public void sync() throws IOException {
+    public int sync() throws IOException {
+        return syncUpTo(Long.MAX_VALUE);
+    }
+
+    @Override
+    public int syncUpTo(long position) throws IOException {
         // check if we really need to sync here...
-        if (!syncNeeded()) {
-            return;
+        if (lastSyncPosition >= position || !syncNeeded()) {
+            return 0;
         }
-        rwl.writeLock().lock();
-        try {
-            lastSyncPosition = lastWrittenPosition;
+        synchronized (syncLock) {
+            // the sync we waited for might already cover our position
+            if (lastSyncPosition >= position || !syncNeeded()) {
+                return 0;
+            }
+            final long syncPosition;
+            final int syncOperationCounter;
+            rwl.readLock().lock();
+            try {
+                // operations are written to the channel under the write lock, so this is a consistent point
+                syncPosition = lastWrittenPosition;
+                syncOperationCounter = operationCounter;
+            } finally {
+                rwl.readLock().unlock();
+            }
             channelReference.channel().force(false);
-        } finally {
-            rwl.writeLock().unlock();
+            lastSyncPosition = syncPosition;
+            int syncedOperations = syncOperationCounter - lastSyncOperationCounter;
+            lastSyncOperationCounter = syncOperationCounter;
+            return syncedOperations;
         }
     }
 
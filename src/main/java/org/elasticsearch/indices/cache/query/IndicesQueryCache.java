@@ -32,6 +32,8 @@ import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -45,6 +47,9 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.indices.IndicesLifecycle;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
@@ -70,8 +75,13 @@ import static org.elasticsearch.common.Strings.hasLength;
  * eviction to evict old reader associated cache entries as well as scheduler reaper to clean readers that
  * are no longer used or closed shards.
  * <p/>
- * Currently, the cache is only enabled for {@link SearchType#COUNT}, and can only be opted in on an index
- * level setting that can be dynamically changed and defaults to false.
+ * The cache is enabled for {@link SearchType#COUNT} and non scroll {@link SearchType#QUERY_THEN_FETCH} requests,
+ * in which case the top docs are cached as well. The doc ids they refer to stay valid for the fetch phase since
+ * the search context holds on to the same reader. It can be opted in on an index level setting that can be
+ * dynamically changed and defaults to false, or per request.
+ * <p/>
+ * The memory used by the cached entries is accounted for in the {@link CircuitBreaker.Name#REQUEST} breaker, so
+ * a full cache reduces the memory available to requests rather than being invisible to the parent breaker.
  * <p/>
  * There are still several TODOs left in this class, some easily addressable, some more complex, but the support
  * is functional.
@@ -91,6 +101,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
 
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
+    private final CircuitBreakerService breakerService;
 
     private final TimeValue cleanInterval;
     private final Reaper reaper;
@@ -107,9 +118,11 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
     private volatile Cache<Key, BytesReference> cache;
 
     @Inject
-    public IndicesQueryCache(Settings settings, ClusterService clusterService, ThreadPool threadPool) {
+    public IndicesQueryCache(Settings settings, ClusterService clusterService, ThreadPool threadPool, CircuitBreakerService breakerService,
+                             IndicesLifecycle indicesLifecycle) {
         super(settings);
         this.clusterService = clusterService;
+        this.breakerService = breakerService;
         this.threadPool = threadPool;
         this.cleanInterval = settings.getAsTime(INDICES_CACHE_QUERY_CLEAN_INTERVAL, TimeValue.timeValueSeconds(60));
         // this cache can be very small yet still be very effective
@@ -124,6 +137,15 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
 
         this.reaper = new Reaper();
         threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, reaper);
+
+        // release the entries of closed shards right away instead of waiting for the reaper, they are
+        // accounted for in the request circuit breaker
+        indicesLifecycle.addListener(new IndicesLifecycle.Listener() {
+            @Override
+            public void afterIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard) {
+                clear(indexShard);
+            }
+        });
     }
 
     private void buildCache() {
@@ -144,11 +166,15 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
 
         @Override
         public int weigh(Key key, BytesReference value) {
-            // TODO add sizeInBytes to BytesReference, since it might be paged.... (Accountable)
-            return (int) (key.ramBytesUsed() + value.length());
+            return (int) ramBytesUsed(key, value);
         }
     }
 
+    private static long ramBytesUsed(Key key, BytesReference value) {
+        // TODO add sizeInBytes to BytesReference, since it might be paged.... (Accountable)
+        return key.ramBytesUsed() + value.length();
+    }
+
     public void close() {
         reaper.close();
         cache.invalidateAll();
@@ -168,6 +194,9 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         if (notification.getKey() == null) {
             return;
         }
+        if (notification.getValue() != null) {
+            breakerService.getBreaker(CircuitBreaker.Name.REQUEST).addWithoutBreaking(-ramBytesUsed(notification.getKey(), notification.getValue()));
+        }
         notification.getKey().shard.queryCache().onRemoval(notification);
     }
 
@@ -179,8 +208,16 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         if (hasLength(request.templateSource())) {
             return false;
         }
-        // for now, only enable it for search type count
-        if (context.searchType() != SearchType.COUNT) {
+        // the query phase of the dfs search types depends on the stats collected from all shards, and
+        // scrolls need the state of the context to move on to the next page
+        if (context.searchType() != SearchType.COUNT && context.searchType() != SearchType.QUERY_THEN_FETCH) {
+            return false;
+        }
+        if (request.scroll() != null) {
+            return false;
+        }
+        // profiled timings are only meaningful for the execution that recorded them
+        if (context.profiler() != null) {
             return false;
         }
         IndexMetaData index = clusterService.state().getMetaData().index(request.index());
@@ -215,10 +252,14 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
     public QuerySearchResultProvider load(final ShardSearchRequest request, final SearchContext context, final QueryPhase queryPhase) throws Exception {
         assert canCache(request, context);
         Key key = buildKey(request, context);
-        Loader loader = new Loader(queryPhase, context, key);
+        Loader loader = new Loader(queryPhase, context, key, breakerService);
         BytesReference value = cache.get(key, loader);
         if (loader.isLoaded()) {
             key.shard.queryCache().onMiss();
+            if (context.queryResult().searchTimedOut()) {
+                // partial results must not be served to other requests
+                cache.invalidate(key);
+            }
             // see if its the first time we see this reader, and make sure to register a cleanup key
             CleanupKey cleanupKey = new CleanupKey(context.indexShard(), ((DirectoryReader) context.searcher().getIndexReader()).getVersion());
             if (!registeredClosedListeners.containsKey(cleanupKey)) {
@@ -240,12 +281,14 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         private final QueryPhase queryPhase;
         private final SearchContext context;
         private final IndicesQueryCache.Key key;
+        private final CircuitBreakerService breakerService;
         private boolean loaded;
 
-        Loader(QueryPhase queryPhase, SearchContext context, IndicesQueryCache.Key key) {
+        Loader(QueryPhase queryPhase, SearchContext context, IndicesQueryCache.Key key, CircuitBreakerService breakerService) {
             this.queryPhase = queryPhase;
             this.context = context;
             this.key = key;
+            this.breakerService = breakerService;
         }
 
         public boolean isLoaded() {
@@ -262,6 +305,8 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
             BytesReference value = out.bytes();
             assert verifyCacheSerializationSameAsQueryResult(value, context, context.queryResult());
             loaded = true;
+            // the cache is bounded by its own size, so account for the entry without breaking, the same as cached field data
+            breakerService.getBreaker(CircuitBreaker.Name.REQUEST).addWithoutBreaking(ramBytesUsed(key, value));
             key.shard.queryCache().onCached(key, value);
             return value;
         }
@@ -0,0 +1,165 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.cluster;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Statistics about the time a node spent in each step of applying the cluster states it received.
+ */
+public class ClusterStateApplyStats implements Streamable, ToXContent {
+
+    private StepStats[] steps;
+
+    ClusterStateApplyStats() {
+
+    }
+
+    public ClusterStateApplyStats(StepStats[] steps) {
+        this.steps = steps;
+    }
+
+    public StepStats[] getSteps() {
+        return steps;
+    }
+
+    /**
+     * Returns the stats of the given step, like <tt>new_or_updated_shards</tt>, or <tt>null</tt> if the node doesn't know it.
+     */
+    @Nullable
+    public StepStats getStats(String name) {
+        for (StepStats step : steps) {
+            if (step.getName().equals(name)) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    public static ClusterStateApplyStats readClusterStateApplyStats(StreamInput in) throws IOException {
+        ClusterStateApplyStats stats = new ClusterStateApplyStats();
+        stats.readFrom(in);
+        return stats;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        steps = new StepStats[in.readVInt()];
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = StepStats.readStepStats(in);
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(steps.length);
+        for (StepStats step : steps) {
+            step.writeTo(out);
+        }
+    }
+
+    static final class Fields {
+        static final XContentBuilderString CLUSTER_STATE_APPLY = new XContentBuilderString("cluster_state_apply");
+        static final XContentBuilderString COUNT = new XContentBuilderString("count");
+        static final XContentBuilderString TOTAL_TIME = new XContentBuilderString("total_time");
+        static final XContentBuilderString TOTAL_TIME_IN_MILLIS = new XContentBuilderString("total_time_in_millis");
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.CLUSTER_STATE_APPLY);
+        for (StepStats step : steps) {
+            step.toXContent(builder, params);
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    /**
+     * How many cluster states went through a step, and the time spent in it.
+     */
+    public static class StepStats implements Streamable, ToXContent {
+
+        private String name;
+        private long count;
+        private long totalTimeInNanos;
+
+        StepStats() {
+
+        }
+
+        public StepStats(IndicesClusterStateService.ApplyStep step, long count, long totalTimeInNanos) {
+            this.name = step.name().toLowerCase(Locale.ROOT);
+            this.count = count;
+            this.totalTimeInNanos = totalTimeInNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public TimeValue getTotalTime() {
+            return TimeValue.timeValueNanos(totalTimeInNanos);
+        }
+
+        public static StepStats readStepStats(StreamInput in) throws IOException {
+            StepStats stats = new StepStats();
+            stats.readFrom(in);
+            return stats;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            name = in.readString();
+            count = in.readVLong();
+            totalTimeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVLong(count);
+            out.writeVLong(totalTimeInNanos);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(name);
+            builder.field(Fields.COUNT, count);
+            builder.timeValueField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, getTotalTime().millis());
+            builder.endObject();
+            return builder;
+        }
+    }
+}
@@ -43,9 +43,11 @@ import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.CompressedString;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.IndexShardAlreadyExistsException;
 import org.elasticsearch.index.IndexShardMissingException;
@@ -69,6 +71,10 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.collect.Maps.newHashMap;
@@ -106,12 +112,36 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
         }
     }
 
+    /**
+     * The steps of the application of a cluster state on this node, in the order they are executed.
+     */
+    public static enum ApplyStep {
+        CLEAN_FAILED_SHARDS,
+        CLEAN_MISMATCHED_INDICES,
+        NEW_INDICES,
+        MAPPINGS,
+        ALIASES,
+        NEW_OR_UPDATED_SHARDS,
+        DELETED_INDICES,
+        DELETED_SHARDS,
+        CLEANED_INDICES,
+        SETTINGS,
+        INDEX_LIFECYCLE_EVENTS
+    }
+
     private final Object mutex = new Object();
     private final FailedEngineHandler failedEngineHandler = new FailedEngineHandler();
 
     private final boolean sendRefreshMapping;
     private final AtomicLong recoveryIdGenerator = new AtomicLong();
 
+    // the per index work of a step is applied by at most that many threads, the steps themselves run one after the other
+    private final int applyConcurrency;
+    private final ExecutorService applyExecutor;
+    // set on the threads that apply the per index work of a step while the cluster state thread holds the mutex for them
+    private final ThreadLocal<Boolean> applyingIndex = new ThreadLocal<>();
+    private final EnumMap<ApplyStep, MeanMetric> applyStepTimes = new EnumMap<>(ApplyStep.class);
+
     @Inject
     public IndicesClusterStateService(Settings settings, IndicesService indicesService, ClusterService clusterService,
                                       ThreadPool threadPool, RecoveryTarget recoveryTarget,
@@ -130,6 +160,16 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
 
         this.sendRefreshMapping = componentSettings.getAsBoolean("send_refresh_mapping", true);
         this.nodeEnvironment = nodeEnvironment;
+
+        this.applyConcurrency = componentSettings.getAsInt("apply_concurrency", Math.min(8, EsExecutors.boundedNumberOfProcessors(settings)));
+        if (applyConcurrency > 1) {
+            this.applyExecutor = EsExecutors.newScaling(0, applyConcurrency, 60, TimeUnit.SECONDS, EsExecutors.daemonThreadFactory(settings, "[cluster_state_apply]"));
+        } else {
+            this.applyExecutor = null;
+        }
+        for (ApplyStep step : ApplyStep.values()) {
+            applyStepTimes.put(step, new MeanMetric());
+        }
     }
 
     @Override
@@ -144,6 +184,21 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
 
     @Override
     protected void doClose() throws ElasticsearchException {
+        if (applyExecutor != null) {
+            ThreadPool.terminate(applyExecutor, 10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Returns how many cluster states went through each step of their application on this node, and the time spent in it.
+     */
+    public ClusterStateApplyStats stats() {
+        ClusterStateApplyStats.StepStats[] steps = new ClusterStateApplyStats.StepStats[applyStepTimes.size()];
+        int i = 0;
+        for (Map.Entry<ApplyStep, MeanMetric> entry : applyStepTimes.entrySet()) {
+            steps[i++] = new ClusterStateApplyStats.StepStats(entry.getKey(), entry.getValue().count(), entry.getValue().sum());
+        }
+        return new ClusterStateApplyStats(steps);
     }
 
     @Override
@@ -177,18 +232,90 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
                 return;
             }
 
+            final long startNanos = System.nanoTime();
+            long stepStartNanos = startNanos;
             cleanFailedShards(event);
+            stepStartNanos = stepDone(ApplyStep.CLEAN_FAILED_SHARDS, stepStartNanos);
             cleanMismatchedIndexUUIDs(event);
+            stepStartNanos = stepDone(ApplyStep.CLEAN_MISMATCHED_INDICES, stepStartNanos);
             applyNewIndices(event);
+            stepStartNanos = stepDone(ApplyStep.NEW_INDICES, stepStartNanos);
             applyMappings(event);
+            stepStartNanos = stepDone(ApplyStep.MAPPINGS, stepStartNanos);
             applyAliases(event);
+            stepStartNanos = stepDone(ApplyStep.ALIASES, stepStartNanos);
             applyNewOrUpdatedShards(event);
+            stepStartNanos = stepDone(ApplyStep.NEW_OR_UPDATED_SHARDS, stepStartNanos);
             applyDeletedIndices(event);
+            stepStartNanos = stepDone(ApplyStep.DELETED_INDICES, stepStartNanos);
             applyDeletedShards(event);
+            stepStartNanos = stepDone(ApplyStep.DELETED_SHARDS, stepStartNanos);
             applyCleanedIndices(event);
+            stepStartNanos = stepDone(ApplyStep.CLEANED_INDICES, stepStartNanos);
             applySettings(event);
+            stepStartNanos = stepDone(ApplyStep.SETTINGS, stepStartNanos);
             sendIndexLifecycleEvents(event);
+            stepDone(ApplyStep.INDEX_LIFECYCLE_EVENTS, stepStartNanos);
+            if (logger.isDebugEnabled()) {
+                logger.debug("applied cluster state version [{}] in [{}]", event.state().version(),
+                        TimeValue.timeValueNanos(System.nanoTime() - startNanos));
+            }
+        }
+    }
+
+    private long stepDone(ApplyStep step, long stepStartNanos) {
+        long nowNanos = System.nanoTime();
+        applyStepTimes.get(step).inc(nowNanos - stepStartNanos);
+        if (logger.isTraceEnabled()) {
+            logger.trace("applied step [{}] of the cluster state in [{}]", step, TimeValue.timeValueNanos(nowNanos - stepStartNanos));
+        }
+        return nowNanos;
+    }
+
+    /**
+     * Applies the given per index work, on at most <tt>indices.cluster.apply_concurrency</tt> threads, and waits until all of
+     * it is done. Each index has a single task per step and a step only starts once the previous one is done, so the work
+     * on an index is still applied in order.
+     */
+    private void applyPerIndex(Collection<Runnable> indexTasks) {
+        if (applyExecutor == null || indexTasks.size() <= 1) {
+            for (Runnable indexTask : indexTasks) {
+                indexTask.run();
+            }
+            return;
+        }
+        final CountDownLatch latch = new CountDownLatch(indexTasks.size());
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        for (final Runnable indexTask : indexTasks) {
+            applyExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    applyingIndex.set(Boolean.TRUE);
+                    try {
+                        indexTask.run();
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    } finally {
+                        applyingIndex.remove();
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        // the mutex must not be released while the tasks still run, even if interrupted
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
         }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        ExceptionsHelper.maybeThrowRuntimeAndSuppress(failures);
     }
 
     private void sendIndexLifecycleEvents(final ClusterChangedEvent event) {
@@ -319,7 +446,8 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
         if (!event.metaDataChanged()) {
             return;
         }
-        for (IndexMetaData indexMetaData : event.state().metaData()) {
+        List<Runnable> indexTasks = new ArrayList<>();
+        for (final IndexMetaData indexMetaData : event.state().metaData()) {
             if (!indicesService.hasIndex(indexMetaData.index())) {
                 // we only create / update here
                 continue;
@@ -328,63 +456,80 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
             if (!event.indexMetaDataChanged(indexMetaData)) {
                 continue;
             }
-            String index = indexMetaData.index();
-            IndexService indexService = indicesService.indexServiceSafe(index);
-            IndexSettingsService indexSettingsService = indexService.injector().getInstance(IndexSettingsService.class);
-            indexSettingsService.refreshSettings(indexMetaData.settings());
+            indexTasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    String index = indexMetaData.index();
+                    IndexService indexService = indicesService.indexServiceSafe(index);
+                    IndexSettingsService indexSettingsService = indexService.injector().getInstance(IndexSettingsService.class);
+                    indexSettingsService.refreshSettings(indexMetaData.settings());
+                }
+            });
         }
+        applyPerIndex(indexTasks);
     }
 
 
-    private void applyMappings(ClusterChangedEvent event) {
+    private void applyMappings(final ClusterChangedEvent event) {
         // go over and update mappings
-        for (IndexMetaData indexMetaData : event.state().metaData()) {
+        List<Runnable> indexTasks = new ArrayList<>();
+        for (final IndexMetaData indexMetaData : event.state().metaData()) {
             if (!indicesService.hasIndex(indexMetaData.index())) {
                 // we only create / update here
                 continue;
             }
-            List<String> typesToRefresh = Lists.newArrayList();
-            String index = indexMetaData.index();
-            IndexService indexService = indicesService.indexService(index);
-            if (indexService == null) {
-                // got deleted on us, ignore (closing the node)
-                return;
-            }
-            MapperService mapperService = indexService.mapperService();
-            // first, go over and update the _default_ mapping (if exists)
-            if (indexMetaData.mappings().containsKey(MapperService.DEFAULT_MAPPING)) {
-                boolean requireRefresh = processMapping(index, mapperService, MapperService.DEFAULT_MAPPING, indexMetaData.mapping(MapperService.DEFAULT_MAPPING).source());
-                if (requireRefresh) {
-                    typesToRefresh.add(MapperService.DEFAULT_MAPPING);
+            indexTasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    applyMappings(event, indexMetaData);
                 }
+            });
+        }
+        applyPerIndex(indexTasks);
+    }
+
+    private void applyMappings(ClusterChangedEvent event, IndexMetaData indexMetaData) {
+        List<String> typesToRefresh = Lists.newArrayList();
+        String index = indexMetaData.index();
+        IndexService indexService = indicesService.indexService(index);
+        if (indexService == null) {
+            // got deleted on us, ignore (closing the node)
+            return;
+        }
+        MapperService mapperService = indexService.mapperService();
+        // first, go over and update the _default_ mapping (if exists)
+        if (indexMetaData.mappings().containsKey(MapperService.DEFAULT_MAPPING)) {
+            boolean requireRefresh = processMapping(index, mapperService, MapperService.DEFAULT_MAPPING, indexMetaData.mapping(MapperService.DEFAULT_MAPPING).source());
+            if (requireRefresh) {
+                typesToRefresh.add(MapperService.DEFAULT_MAPPING);
             }
+        }
 
-            // go over and add the relevant mappings (or update them)
-            for (ObjectCursor<MappingMetaData> cursor : indexMetaData.mappings().values()) {
-                MappingMetaData mappingMd = cursor.value;
-                String mappingType = mappingMd.type();
-                CompressedString mappingSource = mappingMd.source();
-                if (mappingType.equals(MapperService.DEFAULT_MAPPING)) { // we processed _default_ first
-                    continue;
-                }
-                boolean requireRefresh = processMapping(index, mapperService, mappingType, mappingSource);
-                if (requireRefresh) {
-                    typesToRefresh.add(mappingType);
-                }
+        // go over and add the relevant mappings (or update them)
+        for (ObjectCursor<MappingMetaData> cursor : indexMetaData.mappings().values()) {
+            MappingMetaData mappingMd = cursor.value;
+            String mappingType = mappingMd.type();
+            CompressedString mappingSource = mappingMd.source();
+            if (mappingType.equals(MapperService.DEFAULT_MAPPING)) { // we processed _default_ first
+                continue;
             }
-            if (!typesToRefresh.isEmpty() && sendRefreshMapping) {
-                nodeMappingRefreshAction.nodeMappingRefresh(event.state(),
-                        new NodeMappingRefreshAction.NodeMappingRefreshRequest(index, indexMetaData.uuid(),
-                                typesToRefresh.toArray(new String[typesToRefresh.size()]), event.state().nodes().localNodeId())
-                );
+            boolean requireRefresh = processMapping(index, mapperService, mappingType, mappingSource);
+            if (requireRefresh) {
+                typesToRefresh.add(mappingType);
             }
-            // go over and remove mappings
-            for (DocumentMapper documentMapper : mapperService.docMappers(true)) {
-                if (seenMappings.containsKey(new Tuple<>(index, documentMapper.type())) && !indexMetaData.mappings().containsKey(documentMapper.type())) {
-                    // we have it in our mappings, but not in the metadata, and we have seen it in the cluster state, remove it
-                    mapperService.remove(documentMapper.type());
-                    seenMappings.remove(new Tuple<>(index, documentMapper.type()));
-                }
+        }
+        if (!typesToRefresh.isEmpty() && sendRefreshMapping) {
+            nodeMappingRefreshAction.nodeMappingRefresh(event.state(),
+                    new NodeMappingRefreshAction.NodeMappingRefreshRequest(index, indexMetaData.uuid(),
+                            typesToRefresh.toArray(new String[typesToRefresh.size()]), event.state().nodes().localNodeId())
+            );
+        }
+        // go over and remove mappings
+        for (DocumentMapper documentMapper : mapperService.docMappers(true)) {
+            if (seenMappings.containsKey(new Tuple<>(index, documentMapper.type())) && !indexMetaData.mappings().containsKey(documentMapper.type())) {
+                // we have it in our mappings, but not in the metadata, and we have seen it in the cluster state, remove it
+                mapperService.remove(documentMapper.type());
+                seenMappings.remove(new Tuple<>(index, documentMapper.type()));
             }
         }
     }
@@ -451,23 +596,30 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
         // check if aliases changed
         if (aliasesChanged(event)) {
             // go over and update aliases
-            for (IndexMetaData indexMetaData : event.state().metaData()) {
-                String index = indexMetaData.index();
-                IndexService indexService = indicesService.indexService(index);
+            List<Runnable> indexTasks = new ArrayList<>();
+            for (final IndexMetaData indexMetaData : event.state().metaData()) {
+                final String index = indexMetaData.index();
+                final IndexService indexService = indicesService.indexService(index);
                 if (indexService == null) {
                     // we only create / update here
                     continue;
                 }
-                IndexAliasesService indexAliasesService = indexService.aliasesService();
-                processAliases(index, indexMetaData.aliases().values(), indexAliasesService);
-                // go over and remove aliases
-                for (IndexAlias indexAlias : indexAliasesService) {
-                    if (!indexMetaData.aliases().containsKey(indexAlias.alias())) {
-                        // we have it in our aliases, but not in the metadata, remove it
-                        indexAliasesService.remove(indexAlias.alias());
+                indexTasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        IndexAliasesService indexAliasesService = indexService.aliasesService();
+                        processAliases(index, indexMetaData.aliases().values(), indexAliasesService);
+                        // go over and remove aliases
+                        for (IndexAlias indexAlias : indexAliasesService) {
+                            if (!indexMetaData.aliases().containsKey(indexAlias.alias())) {
+                                // we have it in our aliases, but not in the metadata, remove it
+                                indexAliasesService.remove(indexAlias.alias());
+                            }
+                        }
                     }
-                }
+                });
             }
+            applyPerIndex(indexTasks);
         }
     }
 
@@ -504,88 +656,112 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
             return;
         }
 
-        RoutingTable routingTable = event.state().routingTable();
+        final RoutingTable routingTable = event.state().routingTable();
         RoutingNodes.RoutingNodeIterator routingNode = event.state().readOnlyRoutingNodes().routingNodeIter(event.state().nodes().localNodeId());
 
         if (routingNode == null) {
             failedShards.clear();
             return;
         }
-        DiscoveryNodes nodes = event.state().nodes();
-
-        for (final ShardRouting shardRouting : routingNode) {
-            final IndexService indexService = indicesService.indexService(shardRouting.index());
-            if (indexService == null) {
-                // got deleted on us, ignore
-                continue;
-            }
-            final IndexMetaData indexMetaData = event.state().metaData().index(shardRouting.index());
-            if (indexMetaData == null) {
-                // the index got deleted on the metadata, we will clean it later in the apply deleted method call
-                continue;
+        final DiscoveryNodes nodes = event.state().nodes();
+
+        // the shards of an index are applied in order by a single task
+        Map<String, List<ShardRouting>> shardsPerIndex = new LinkedHashMap<>();
+        for (ShardRouting shardRouting : routingNode) {
+            List<ShardRouting> indexShards = shardsPerIndex.get(shardRouting.index());
+            if (indexShards == null) {
+                indexShards = new ArrayList<>();
+                shardsPerIndex.put(shardRouting.index(), indexShards);
             }
+            indexShards.add(shardRouting);
+        }
+        List<Runnable> indexTasks = new ArrayList<>(shardsPerIndex.size());
+        for (final List<ShardRouting> indexShards : shardsPerIndex.values()) {
+            indexTasks.add(new Runnable() {
+                @Override
+                public void run() {
+                    for (ShardRouting shardRouting : indexShards) {
+                        applyNewOrUpdatedShard(event, routingTable, nodes, shardRouting);
+                    }
+                }
+            });
+        }
+        applyPerIndex(indexTasks);
+    }
+
+    private void applyNewOrUpdatedShard(final ClusterChangedEvent event, final RoutingTable routingTable, final DiscoveryNodes nodes,
+                                        final ShardRouting shardRouting) {
+        final IndexService indexService = indicesService.indexService(shardRouting.index());
+        if (indexService == null) {
+            // got deleted on us, ignore
+            return;
+        }
+        final IndexMetaData indexMetaData = event.state().metaData().index(shardRouting.index());
+        if (indexMetaData == null) {
+            // the index got deleted on the metadata, we will clean it later in the apply deleted method call
+            return;
+        }
 
-            final int shardId = shardRouting.id();
+        final int shardId = shardRouting.id();
 
-            if (!indexService.hasShard(shardId) && shardRouting.started()) {
-                if (failedShards.containsKey(shardRouting.shardId())) {
-                    if (nodes.masterNode() != null) {
-                        shardStateAction.resendShardFailed(shardRouting, indexMetaData.getUUID(),
-                                "master " + nodes.masterNode() + " marked shard as started, but shard has previous failed. resending shard failure.",
-                                nodes.masterNode()
-                        );
-                    }
-                } else {
-                    // the master thinks we are started, but we don't have this shard at all, mark it as failed
-                    logger.warn("[{}][{}] master [{}] marked shard as started, but shard has not been created, mark shard as failed", shardRouting.index(), shardId, nodes.masterNode());
-                    failedShards.put(shardRouting.shardId(), new FailedShard(shardRouting.version()));
-                    if (nodes.masterNode() != null) {
-                        shardStateAction.shardFailed(shardRouting, indexMetaData.getUUID(),
-                                "master " + nodes.masterNode() + " marked shard as started, but shard has not been created, mark shard as failed",
-                                nodes.masterNode()
-                        );
-                    }
+        if (!indexService.hasShard(shardId) && shardRouting.started()) {
+            if (failedShards.containsKey(shardRouting.shardId())) {
+                if (nodes.masterNode() != null) {
+                    shardStateAction.resendShardFailed(shardRouting, indexMetaData.getUUID(),
+                            "master " + nodes.masterNode() + " marked shard as started, but shard has previous failed. resending shard failure.",
+                            nodes.masterNode()
+                    );
+                }
+            } else {
+                // the master thinks we are started, but we don't have this shard at all, mark it as failed
+                logger.warn("[{}][{}] master [{}] marked shard as started, but shard has not been created, mark shard as failed", shardRouting.index(), shardId, nodes.masterNode());
+                failedShards.put(shardRouting.shardId(), new FailedShard(shardRouting.version()));
+                if (nodes.masterNode() != null) {
+                    shardStateAction.shardFailed(shardRouting, indexMetaData.getUUID(),
+                            "master " + nodes.masterNode() + " marked shard as started, but shard has not been created, mark shard as failed",
+                            nodes.masterNode()
+                    );
                 }
-                continue;
             }
+            return;
+        }
 
-            IndexShard indexShard = indexService.shard(shardId);
-            if (indexShard != null) {
-                ShardRouting currentRoutingEntry = indexShard.routingEntry();
-                // if the current and global routing are initializing, but are still not the same, its a different "shard" being allocated
-                // for example: a shard that recovers from one node and now needs to recover to another node,
-                //              or a replica allocated and then allocating a primary because the primary failed on another node
-                boolean shardHasBeenRemoved = false;
-                if (currentRoutingEntry.initializing() && shardRouting.initializing() && !currentRoutingEntry.equals(shardRouting)) {
-                    logger.debug("[{}][{}] removing shard (different instance of it allocated on this node, current [{}], global [{}])", shardRouting.index(), shardRouting.id(), currentRoutingEntry, shardRouting);
-                    // closing the shard will also cancel any ongoing recovery.
-                    indexService.removeShard(shardRouting.id(), "removing shard (different instance of it allocated on this node)");
-                    shardHasBeenRemoved = true;
-                } else if (isPeerRecovery(shardRouting)) {
-                    // check if there is an existing recovery going, and if so, and the source node is not the same, cancel the recovery to restart it
-                    RecoveryState recoveryState = recoveryTarget.recoveryState(indexShard);
-                    if (recoveryState != null && recoveryState.getStage() != RecoveryState.Stage.DONE) {
-                        // we have an ongoing recovery, find the source based on current routing and compare them
-                        DiscoveryNode sourceNode = findSourceNodeForPeerRecovery(routingTable, nodes, shardRouting);
-                        if (!recoveryState.getSourceNode().equals(sourceNode)) {
-                            logger.debug("[{}][{}] removing shard (recovery source changed), current [{}], global [{}])", shardRouting.index(), shardRouting.id(), currentRoutingEntry, shardRouting);
-                            // closing the shard will also cancel any ongoing recovery.
-                            indexService.removeShard(shardRouting.id(), "removing shard (recovery source node changed)");
-                            shardHasBeenRemoved = true;
-                        }
+        IndexShard indexShard = indexService.shard(shardId);
+        if (indexShard != null) {
+            ShardRouting currentRoutingEntry = indexShard.routingEntry();
+            // if the current and global routing are initializing, but are still not the same, its a different "shard" being allocated
+            // for example: a shard that recovers from one node and now needs to recover to another node,
+            //              or a replica allocated and then allocating a primary because the primary failed on another node
+            boolean shardHasBeenRemoved = false;
+            if (currentRoutingEntry.initializing() && shardRouting.initializing() && !currentRoutingEntry.equals(shardRouting)) {
+                logger.debug("[{}][{}] removing shard (different instance of it allocated on this node, current [{}], global [{}])", shardRouting.index(), shardRouting.id(), currentRoutingEntry, shardRouting);
+                // closing the shard will also cancel any ongoing recovery.
+                indexService.removeShard(shardRouting.id(), "removing shard (different instance of it allocated on this node)");
+                shardHasBeenRemoved = true;
+            } else if (isPeerRecovery(shardRouting)) {
+                // check if there is an existing recovery going, and if so, and the source node is not the same, cancel the recovery to restart it
+                RecoveryState recoveryState = recoveryTarget.recoveryState(indexShard);
+                if (recoveryState != null && recoveryState.getStage() != RecoveryState.Stage.DONE) {
+                    // we have an ongoing recovery, find the source based on current routing and compare them
+                    DiscoveryNode sourceNode = findSourceNodeForPeerRecovery(routingTable, nodes, shardRouting);
+                    if (!recoveryState.getSourceNode().equals(sourceNode)) {
+                        logger.debug("[{}][{}] removing shard (recovery source changed), current [{}], global [{}])", shardRouting.index(), shardRouting.id(), currentRoutingEntry, shardRouting);
+                        // closing the shard will also cancel any ongoing recovery.
+                        indexService.removeShard(shardRouting.id(), "removing shard (recovery source node changed)");
+                        shardHasBeenRemoved = true;
                     }
                 }
-                if (shardHasBeenRemoved == false && !shardRouting.equals(indexShard.routingEntry())) {
-                    // if we happen to remove the shardRouting by id above we don't need to jump in here!
-                    indexShard.routingEntry(shardRouting);
-                    indexService.shardInjectorSafe(shardId).getInstance(IndexShardGatewayService.class).routingStateChanged();
-                }
             }
-
-            if (shardRouting.initializing()) {
-                applyInitializingShard(routingTable, nodes, indexMetaData, routingTable.index(shardRouting.index()).shard(shardRouting.id()), shardRouting);
+            if (shardHasBeenRemoved == false && !shardRouting.equals(indexShard.routingEntry())) {
+                // if we happen to remove the shardRouting by id above we don't need to jump in here!
+                indexShard.routingEntry(shardRouting);
+                indexService.shardInjectorSafe(shardId).getInstance(IndexShardGatewayService.class).routingStateChanged();
             }
         }
+
+        if (shardRouting.initializing()) {
+            applyInitializingShard(routingTable, nodes, indexMetaData, routingTable.index(shardRouting.index()).shard(shardRouting.id()), shardRouting);
+        }
     }
 
     private void cleanFailedShards(final ClusterChangedEvent event) {
@@ -817,28 +993,39 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent<Indic
     }
 
     private void handleRecoveryFailure(IndexService indexService, IndexMetaData indexMetaData, ShardRouting shardRouting, boolean sendShardFailure, Throwable failure) {
-        synchronized (mutex) {
-            if (indexService.hasShard(shardRouting.shardId().id())) {
-                try {
-                    logger.debug("[{}][{}] removing shard on failed recovery [{}]", shardRouting.index(), shardRouting.shardId().id(), failure.getMessage());
-                    indexService.removeShard(shardRouting.shardId().id(), "recovery failure [" + ExceptionsHelper.detailedMessage(failure) + "]");
-                } catch (IndexShardMissingException e) {
-                    // the node got closed on us, ignore it
-                } catch (Throwable e1) {
-                    logger.warn("[{}][{}] failed to delete shard after recovery failure", e1, indexService.index().name(), shardRouting.shardId().id());
-                }
+        if (applyingIndex.get() != null) {
+            // a recovery that fails right away while its index is applied, the cluster state thread already holds the mutex
+            // on behalf of this thread and waits for it
+            doHandleRecoveryFailure(indexService, indexMetaData, shardRouting, sendShardFailure, failure);
+        } else {
+            synchronized (mutex) {
+                doHandleRecoveryFailure(indexService, indexMetaData, shardRouting, sendShardFailure, failure);
             }
-            if (sendShardFailure) {
-                logger.warn("[{}][{}] sending failed shard after recovery failure", failure, indexService.index().name(), shardRouting.shardId().id());
-                try {
-                    failedShards.put(shardRouting.shardId(), new FailedShard(shardRouting.version()));
-                    shardStateAction.shardFailed(shardRouting, indexMetaData.getUUID(), "Failed to start shard, message [" + detailedMessage(failure) + "]");
-                } catch (Throwable e1) {
-                    logger.warn("[{}][{}] failed to mark shard as failed after a failed start", e1, indexService.index().name(), shardRouting.id());
-                }
+        }
+    }
+
+    private void doHandleRecoveryFailure(IndexService indexService, IndexMetaData indexMetaData, ShardRouting shardRouting, boolean sendShardFailure, Throwable failure) {
+        if (indexService.hasShard(shardRouting.shardId().id())) {
+            try {
+                logger.debug("[{}][{}] removing shard on failed recovery [{}]", shardRouting.index(), shardRouting.shardId().id(), failure.getMessage());
+                indexService.removeShard(shardRouting.shardId().id(), "recovery failure [" + ExceptionsHelper.detailedMessage(failure) + "]");
+            } catch (IndexShardMissingException e) {
+                // the node got closed on us, ignore it
+            } catch (Throwable e1) {
+                logger.warn("[{}][{}] failed to delete shard after recovery failure", e1, indexService.index().name(), shardRouting.shardId().id());
+            }
+        }
+        if (sendShardFailure) {
+            logger.warn("[{}][{}] sending failed shard after recovery failure", failure, indexService.index().name(), shardRouting.shardId().id());
+            try {
+                failedShards.put(shardRouting.shardId(), new FailedShard(shardRouting.version()));
+                shardStateAction.shardFailed(shardRouting, indexMetaData.getUUID(), "Failed to start shard, message [" + detailedMessage(failure) + "]");
+            } catch (Throwable e1) {
+                logger.warn("[{}][{}] failed to mark shard as failed after a failed start", e1, indexService.index().name(), shardRouting.id());
             }
         }
     }
+
     private void removeIndex(String index, String reason) {
         try {
             indicesService.removeIndex(index, reason);
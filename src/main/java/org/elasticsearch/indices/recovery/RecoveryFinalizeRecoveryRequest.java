@@ -19,8 +19,10 @@
 
 package org.elasticsearch.indices.recovery;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.transport.TransportRequest;
 
@@ -35,12 +37,18 @@ class RecoveryFinalizeRecoveryRequest extends TransportRequest {
 
     private ShardId shardId;
 
+    private long localCheckpoint = SequenceNumbers.UNASSIGNED_SEQ_NO;
+
+    private boolean sourceCommit;
+
     RecoveryFinalizeRecoveryRequest() {
     }
 
-    RecoveryFinalizeRecoveryRequest(long recoveryId, ShardId shardId) {
+    RecoveryFinalizeRecoveryRequest(long recoveryId, ShardId shardId, long localCheckpoint, boolean sourceCommit) {
         this.recoveryId = recoveryId;
         this.shardId = shardId;
+        this.localCheckpoint = localCheckpoint;
+        this.sourceCommit = sourceCommit;
     }
 
     public long recoveryId() {
@@ -51,11 +59,29 @@ class RecoveryFinalizeRecoveryRequest extends TransportRequest {
         return shardId;
     }
 
+    /**
+     * The local checkpoint of the source once it sent all operations, {@link SequenceNumbers#UNASSIGNED_SEQ_NO} if unknown.
+     */
+    public long localCheckpoint() {
+        return localCheckpoint;
+    }
+
+    /**
+     * Whether the target recovered the last commit of the source, rather than keeping its own.
+     */
+    public boolean sourceCommit() {
+        return sourceCommit;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
         recoveryId = in.readLong();
         shardId = ShardId.readShardId(in);
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            localCheckpoint = in.readLong();
+            sourceCommit = in.readBoolean();
+        }
     }
 
     @Override
@@ -63,5 +89,9 @@ class RecoveryFinalizeRecoveryRequest extends TransportRequest {
         super.writeTo(out);
         out.writeLong(recoveryId);
         shardId.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeLong(localCheckpoint);
+            out.writeBoolean(sourceCommit);
+        }
     }
 }
@@ -36,6 +36,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.index.IndexShardMissingException;
 import org.elasticsearch.index.engine.RecoveryEngineException;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IllegalIndexShardStateException;
 import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardNotStartedException;
@@ -160,8 +161,22 @@ public class RecoveryTarget extends AbstractComponent {
                     new RecoveryFailedException(recoveryStatus.state(), "failed to list local files", e), true);
             return;
         }
+        String historyUUID = null;
+        long localCheckpoint = SequenceNumbers.UNASSIGNED_SEQ_NO;
+        if (existingFiles.isEmpty() == false) {
+            // send the history and checkpoint of our last commit, so the source can skip copying files if it can replay the missing operations
+            try {
+                final Map<String, String> userData = recoveryStatus.store().readLastCommittedSegmentsInfo().getUserData();
+                historyUUID = userData.get(SequenceNumbers.HISTORY_UUID_KEY);
+                localCheckpoint = SequenceNumbers.readLocalCheckpoint(userData);
+            } catch (Exception e) {
+                logger.debug("{} failed to read the last commit's local checkpoint, falling back to file based recovery", e, recoveryStatus.shardId());
+                historyUUID = null;
+                localCheckpoint = SequenceNumbers.UNASSIGNED_SEQ_NO;
+            }
+        }
         StartRecoveryRequest request = new StartRecoveryRequest(recoveryStatus.shardId(), recoveryStatus.sourceNode(), clusterService.localNode(),
-                false, existingFiles, recoveryStatus.state().getType(), recoveryStatus.recoveryId());
+                false, existingFiles, recoveryStatus.state().getType(), recoveryStatus.recoveryId(), historyUUID, localCheckpoint);
 
         try {
             logger.trace("[{}][{}] starting recovery from {}", request.shardId().index().name(), request.shardId().id(), request.sourceNode());
@@ -291,6 +306,9 @@ public class RecoveryTarget extends AbstractComponent {
         public void messageReceived(RecoveryFinalizeRecoveryRequest request, TransportChannel channel) throws Exception {
             try (RecoveriesCollection.StatusRef statusRef = onGoingRecoveries.getStatusSafe(request.recoveryId(), request.shardId())) {
                 final RecoveryStatus recoveryStatus = statusRef.status();
+                if (request.localCheckpoint() != SequenceNumbers.UNASSIGNED_SEQ_NO) {
+                    recoveryStatus.indexShard().recoverLocalCheckpoint(request.localCheckpoint(), request.sourceCommit());
+                }
                 recoveryStatus.indexShard().performRecoveryFinalization(false, recoveryStatus.state());
                 recoveryStatus.state().getTimer().time(System.currentTimeMillis() - recoveryStatus.state().getTimer().startTime());
                 recoveryStatus.stage(RecoveryState.Stage.DONE);
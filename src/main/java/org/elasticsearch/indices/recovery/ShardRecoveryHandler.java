@@ -45,6 +45,7 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.deletionpolicy.SnapshotIndexCommit;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.mapper.DocumentMapper;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IllegalIndexShardStateException;
 import org.elasticsearch.index.shard.IndexShardClosedException;
@@ -88,6 +89,8 @@ public final class ShardRecoveryHandler implements Engine.RecoveryHandler {
     private final MappingUpdatedAction mappingUpdatedAction;
 
     private final RecoveryResponse response;
+    // whether the target keeps its own commit and only gets the translog operations
+    private volatile boolean translogOnly;
     private final CancelableThreads cancelableThreads = new CancelableThreads() {
         @Override
         protected void fail(String reason) {
@@ -136,6 +139,10 @@ public final class ShardRecoveryHandler implements Engine.RecoveryHandler {
      * segments that are missing. Only segments that have the same size and
      * checksum can be reused
      *
+     * If the target's last commit belongs to the same history as this shard and its
+     * local checkpoint is covered by the current translog, no files are copied at all
+     * and the target catches up by replaying the translog operations in phase2 and phase3
+     *
      * {@code InternalEngine#recover} is responsible for snapshotting the index
      * and releasing the snapshot once all 3 phases of recovery are complete
      */
@@ -150,6 +157,34 @@ public final class ShardRecoveryHandler implements Engine.RecoveryHandler {
         store.incRef();
         try {
             StopWatch stopWatch = new StopWatch().start();
+            final Engine engine = shard.engine();
+            translogOnly = canRecoverFromTranslogOnly(request, engine.getHistoryUUID(), engine.getTranslogStartSeqNo());
+            if (translogOnly) {
+                logger.trace("[{}][{}] recovery [phase1] to {}: skipping file copy, target has history [{}] and local checkpoint [{}]",
+                        indexName, shardId, request.targetNode(), request.historyUUID(), request.localCheckpoint());
+                for (StoreFileMetaData md : request.existingFiles().values()) {
+                    response.phase1ExistingFileNames.add(md.name());
+                    response.phase1ExistingFileSizes.add(md.length());
+                    existingTotalSize += md.length();
+                }
+                response.phase1TotalSize = existingTotalSize;
+                response.phase1ExistingTotalSize = existingTotalSize;
+                cancelableThreads.run(new Interruptable() {
+                    @Override
+                    public void run() throws InterruptedException {
+                        // still report the reused files so the recovery state of the target is complete
+                        RecoveryFilesInfoRequest recoveryInfoFilesRequest = new RecoveryFilesInfoRequest(request.recoveryId(), request.shardId(),
+                                response.phase1FileNames, response.phase1FileSizes, response.phase1ExistingFileNames, response.phase1ExistingFileSizes,
+                                response.phase1TotalSize, response.phase1ExistingTotalSize);
+                        transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FILES_INFO, recoveryInfoFilesRequest,
+                                TransportRequestOptions.options().withTimeout(internalActionTimeout),
+                                EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
+                    }
+                });
+                stopWatch.stop();
+                response.phase1Time = stopWatch.totalTime().millis();
+                return;
+            }
             final Store.MetadataSnapshot recoverySourceMetadata = store.getMetadata(snapshot);
             for (String name : snapshot.getFiles()) {
                 final StoreFileMetaData md = recoverySourceMetadata.get(name);
@@ -361,6 +396,19 @@ public final class ShardRecoveryHandler implements Engine.RecoveryHandler {
         }
     }
 
+    /**
+     * Returns <tt>true</tt> if all operations the target is missing are in the current translog of this
+     * shard, which is the case if the target's last commit shares our history and its local checkpoint
+     * is at or above the first sequence number of the current translog. Since flushes are not allowed
+     * while the recovery is ongoing the translog can't be trimmed until phase3 is done.
+     */
+    static boolean canRecoverFromTranslogOnly(StartRecoveryRequest request, String historyUUID, long translogStartSeqNo) {
+        if (request.historyUUID() == null || request.localCheckpoint() == SequenceNumbers.UNASSIGNED_SEQ_NO) {
+            return false;
+        }
+        return request.historyUUID().equals(historyUUID) && request.localCheckpoint() >= translogStartSeqNo;
+    }
+
     /**
      * Perform phase2 of the recovery process
      *
@@ -442,9 +490,10 @@ public final class ShardRecoveryHandler implements Engine.RecoveryHandler {
                 // clears unreferenced translog files, refreshes the engine now that
                 // new segments are available, and enables garbage collection of
                 // tombstone files. The shard is also moved to the POST_RECOVERY phase
-                // during this time
+                // during this time. Indexing is blocked, so our local checkpoint covers
+                // all the operations the target holds now
                 transportService.submitRequest(request.targetNode(), RecoveryTarget.Actions.FINALIZE,
-                        new RecoveryFinalizeRecoveryRequest(request.recoveryId(), request.shardId()),
+                        new RecoveryFinalizeRecoveryRequest(request.recoveryId(), request.shardId(), shard.engine().getLocalCheckpoint(), translogOnly == false),
                         TransportRequestOptions.options().withTimeout(internalActionLongTimeout),
                         EmptyTransportResponseHandler.INSTANCE_SAME).txGet();
             }
@@ -22,8 +22,10 @@ package org.elasticsearch.indices.recovery;
 import com.google.common.collect.Maps;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.transport.TransportRequest;
@@ -50,6 +52,10 @@ public class StartRecoveryRequest extends TransportRequest {
 
     private RecoveryState.Type recoveryType;
 
+    private String historyUUID;
+
+    private long localCheckpoint = SequenceNumbers.UNASSIGNED_SEQ_NO;
+
     StartRecoveryRequest() {
     }
 
@@ -64,6 +70,18 @@ public class StartRecoveryRequest extends TransportRequest {
      */
     public StartRecoveryRequest(ShardId shardId, DiscoveryNode sourceNode, DiscoveryNode targetNode, boolean markAsRelocated, Map<String,
                                 StoreFileMetaData> existingFiles, RecoveryState.Type recoveryType, long recoveryId) {
+        this(shardId, sourceNode, targetNode, markAsRelocated, existingFiles, recoveryType, recoveryId, null, SequenceNumbers.UNASSIGNED_SEQ_NO);
+    }
+
+    /**
+     * Start recovery request.
+     *
+     * @param historyUUID     The history uuid of the last commit on the target, <tt>null</tt> if unknown
+     * @param localCheckpoint The local checkpoint of the last commit on the target
+     */
+    public StartRecoveryRequest(ShardId shardId, DiscoveryNode sourceNode, DiscoveryNode targetNode, boolean markAsRelocated, Map<String,
+                                StoreFileMetaData> existingFiles, RecoveryState.Type recoveryType, long recoveryId,
+                                @Nullable String historyUUID, long localCheckpoint) {
         this.recoveryId = recoveryId;
         this.shardId = shardId;
         this.sourceNode = sourceNode;
@@ -71,6 +89,8 @@ public class StartRecoveryRequest extends TransportRequest {
         this.markAsRelocated = markAsRelocated;
         this.existingFiles = existingFiles;
         this.recoveryType = recoveryType;
+        this.historyUUID = historyUUID;
+        this.localCheckpoint = localCheckpoint;
     }
 
     public long recoveryId() {
@@ -101,6 +121,21 @@ public class StartRecoveryRequest extends TransportRequest {
         return recoveryType;
     }
 
+    /**
+     * The history uuid of the last commit on the target, <tt>null</tt> if unknown.
+     */
+    @Nullable
+    public String historyUUID() {
+        return historyUUID;
+    }
+
+    /**
+     * The local checkpoint of the last commit on the target, {@link SequenceNumbers#UNASSIGNED_SEQ_NO} if unknown.
+     */
+    public long localCheckpoint() {
+        return localCheckpoint;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -116,6 +151,10 @@ public class StartRecoveryRequest extends TransportRequest {
             existingFiles.put(md.name(), md);
         }
         recoveryType = RecoveryState.Type.fromId(in.readByte());
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            historyUUID = in.readOptionalString();
+            localCheckpoint = in.readLong();
+        }
     }
 
     @Override
@@ -131,5 +170,9 @@ public class StartRecoveryRequest extends TransportRequest {
             md.writeTo(out);
         }
         out.writeByte(recoveryType.id());
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalString(historyUUID);
+            out.writeLong(localCheckpoint);
+        }
     }
 }
@@ -25,15 +25,19 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.cluster.node.info.NodeInfo;
 import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
+import org.elasticsearch.cache.recycler.DirectPageCacheStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.OffHeapBigArrays;
 import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.http.HttpServer;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.monitor.MonitorService;
 import org.elasticsearch.plugins.PluginsService;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -51,6 +55,8 @@ public class NodeService extends AbstractComponent {
     private final IndicesService indicesService;
     private final PluginsService pluginService;
     private final CircuitBreakerService circuitBreakerService;
+    private final BigArrays bigArrays;
+    private final IndicesClusterStateService indicesClusterStateService;
     @Nullable
     private HttpServer httpServer;
 
@@ -63,7 +69,8 @@ public class NodeService extends AbstractComponent {
     @Inject
     public NodeService(Settings settings, ThreadPool threadPool, MonitorService monitorService, Discovery discovery,
                        TransportService transportService, IndicesService indicesService,
-                       PluginsService pluginService, CircuitBreakerService circuitBreakerService, Version version) {
+                       PluginsService pluginService, CircuitBreakerService circuitBreakerService, BigArrays bigArrays,
+                       IndicesClusterStateService indicesClusterStateService, Version version) {
         super(settings);
         this.threadPool = threadPool;
         this.monitorService = monitorService;
@@ -74,6 +81,8 @@ public class NodeService extends AbstractComponent {
         this.version = version;
         this.pluginService = pluginService;
         this.circuitBreakerService = circuitBreakerService;
+        this.bigArrays = bigArrays;
+        this.indicesClusterStateService = indicesClusterStateService;
     }
 
     public void setHttpServer(@Nullable HttpServer httpServer) {
@@ -147,12 +156,14 @@ public class NodeService extends AbstractComponent {
                 monitorService.fsService().stats(),
                 transportService.stats(),
                 httpServer == null ? null : httpServer.stats(),
-                circuitBreakerService.stats()
+                circuitBreakerService.stats(),
+                directPageStats(),
+                indicesClusterStateService.stats()
         );
     }
 
     public NodeStats stats(CommonStatsFlags indices, boolean os, boolean process, boolean jvm, boolean threadPool, boolean network,
-                           boolean fs, boolean transport, boolean http, boolean circuitBreaker) {
+                           boolean fs, boolean transport, boolean http, boolean circuitBreaker, boolean clusterStateApply) {
         // for indices stats we want to include previous allocated shards stats as well (it will
         // only be applied to the sensible ones to use, like refresh/merge/flush/indexing stats)
         return new NodeStats(discovery.localNode(), System.currentTimeMillis(),
@@ -165,7 +176,21 @@ public class NodeService extends AbstractComponent {
                 fs ? monitorService.fsService().stats() : null,
                 transport ? transportService.stats() : null,
                 http ? (httpServer == null ? null : httpServer.stats()) : null,
-                circuitBreaker ? circuitBreakerService.stats() : null
+                circuitBreaker ? circuitBreakerService.stats() : null,
+                circuitBreaker ? directPageStats() : null,
+                clusterStateApply ? indicesClusterStateService.stats() : null
         );
     }
+
+    /**
+     * The direct pages of off-heap big arrays are accounted by the circuit breaker, so their stats go along with the
+     * breakers' ones.
+     */
+    @Nullable
+    private DirectPageCacheStats directPageStats() {
+        if (bigArrays instanceof OffHeapBigArrays) {
+            return ((OffHeapBigArrays) bigArrays).stats();
+        }
+        return null;
+    }
 }
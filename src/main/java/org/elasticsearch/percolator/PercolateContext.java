@@ -61,14 +61,19 @@ import org.elasticsearch.search.fetch.source.FetchSourceContext;
 import org.elasticsearch.search.highlight.SearchContextHighlight;
 import org.elasticsearch.search.internal.*;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.search.profile.Profiler;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
 import org.elasticsearch.search.scan.ScanContext;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
+import org.elasticsearch.tasks.Task;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -89,6 +94,7 @@ public class PercolateContext extends SearchContext {
     private final BigArrays bigArrays;
     private final ScriptService scriptService;
     private final ConcurrentMap<BytesRef, Query> percolateQueries;
+    private Set<BytesRef> candidateQueries;
     private final int numberOfShards;
     private String[] types;
 
@@ -133,6 +139,11 @@ public class PercolateContext extends SearchContext {
         this.docSearcher = docSearcher;
 
         IndexReader indexReader = docSearcher.reader();
+        try {
+            this.candidateQueries = indexShard.percolateRegistry().candidateQueries(indexReader);
+        } catch (IOException e) {
+            throw new PercolateException(indexShard.shardId(), "failed to select the candidate queries", e);
+        }
         LeafReaderContext atomicReaderContext = indexReader.leaves().get(0);
         lookup().setNextReader(atomicReaderContext);
         lookup().setNextDocId(0);
@@ -160,6 +171,13 @@ public class PercolateContext extends SearchContext {
         return percolateQueries;
     }
 
+    /**
+     * @return The ids of the percolate queries that may match the percolated document, only these are verified against it.
+     */
+    public Set<BytesRef> candidateQueries() {
+        return candidateQueries;
+    }
+
     public Query percolateQuery() {
         return percolateQuery;
     }
@@ -464,6 +482,46 @@ public class PercolateContext extends SearchContext {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public int maxConcurrentSlices() {
+        return DEFAULT_MAX_CONCURRENT_SLICES;
+    }
+
+    @Override
+    public void maxConcurrentSlices(int maxConcurrentSlices) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void requireSequentialSearch() {
+        // the percolator always searches sequentially
+    }
+
+    @Override
+    public boolean sequentialSearchRequired() {
+        return true;
+    }
+
+    @Override
+    public boolean trackTotalHits() {
+        return true;
+    }
+
+    @Override
+    public void trackTotalHits(boolean trackTotalHits) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SliceBuilder sliceBuilder() {
+        return null;
+    }
+
+    @Override
+    public void sliceBuilder(SliceBuilder sliceBuilder) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public SearchContext minimumScore(float minimumScore) {
         throw new UnsupportedOperationException();
@@ -558,6 +616,26 @@ public class PercolateContext extends SearchContext {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Profiler profiler() {
+        return null;
+    }
+
+    @Override
+    public void profiler(Profiler profiler) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Task task() {
+        return null;
+    }
+
+    @Override
+    public void task(Task task) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public List<String> groupStats() {
         throw new UnsupportedOperationException();
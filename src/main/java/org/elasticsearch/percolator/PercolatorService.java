@@ -233,7 +233,9 @@ public class PercolatorService extends AbstractComponent {
             context.percolatorTypeId = action.id();
 
             percolatorIndex.prepare(context, parsedDocument);
-            return action.doPercolate(request, context, isNested);
+            PercolateShardResponse response = action.doPercolate(request, context, isNested);
+            shardPercolateService.verifiedQueries(context.candidateQueries().size(), response.count());
+            return response;
         } finally {
             context.close();
             shardPercolateService.postPercolate(System.nanoTime() - startTime);
@@ -440,15 +442,19 @@ public class PercolatorService extends AbstractComponent {
         public PercolateShardResponse doPercolate(PercolateShardRequest request, PercolateContext context, boolean isNested) {
             long count = 0;
             Lucene.EarlyTerminatingCollector collector = Lucene.createExistsCollector();
-            for (Map.Entry<BytesRef, Query> entry : context.percolateQueries().entrySet()) {
+            for (BytesRef id : context.candidateQueries()) {
+                Query query = context.percolateQueries().get(id);
+                if (query == null) {
+                    continue;
+                }
                 try {
                     if (isNested) {
-                        Lucene.exists(context.docSearcher(), entry.getValue(), NonNestedDocsFilter.INSTANCE, collector);
+                        Lucene.exists(context.docSearcher(), query, NonNestedDocsFilter.INSTANCE, collector);
                     } else {
-                        Lucene.exists(context.docSearcher(), entry.getValue(), collector);
+                        Lucene.exists(context.docSearcher(), query, collector);
                     }
                 } catch (Throwable e) {
-                    logger.debug("[" + entry.getKey() + "] failed to execute query", e);
+                    logger.debug("[" + id + "] failed to execute query", e);
                     throw new PercolateException(context.indexShard().shardId(), "failed to execute", e);
                 }
 
@@ -536,25 +542,29 @@ public class PercolatorService extends AbstractComponent {
             List<Map<String, HighlightField>> hls = new ArrayList<>();
             Lucene.EarlyTerminatingCollector collector = Lucene.createExistsCollector();
 
-            for (Map.Entry<BytesRef, Query> entry : context.percolateQueries().entrySet()) {
+            for (BytesRef id : context.candidateQueries()) {
+                Query query = context.percolateQueries().get(id);
+                if (query == null) {
+                    continue;
+                }
                 if (context.highlight() != null) {
-                    context.parsedQuery(new ParsedQuery(entry.getValue(), ImmutableMap.<String, Filter>of()));
+                    context.parsedQuery(new ParsedQuery(query, ImmutableMap.<String, Filter>of()));
                     context.hitContext().cache().clear();
                 }
                 try {
                     if (isNested) {
-                        Lucene.exists(context.docSearcher(), entry.getValue(), NonNestedDocsFilter.INSTANCE, collector);
+                        Lucene.exists(context.docSearcher(), query, NonNestedDocsFilter.INSTANCE, collector);
                     } else {
-                        Lucene.exists(context.docSearcher(), entry.getValue(), collector);
+                        Lucene.exists(context.docSearcher(), query, collector);
                     }
                 } catch (Throwable e) {
-                    logger.debug("[" + entry.getKey() + "] failed to execute query", e);
+                    logger.debug("[" + id + "] failed to execute query", e);
                     throw new PercolateException(context.indexShard().shardId(), "failed to execute", e);
                 }
 
                 if (collector.exists()) {
                     if (!context.limit || count < context.size()) {
-                        matches.add(entry.getKey());
+                        matches.add(id);
                         if (context.highlight() != null) {
                             highlightPhase.hitExecute(context, context.hitContext());
                             hls.add(context.hitContext().hit().getHighlightFields());
@@ -830,10 +840,7 @@ public class PercolatorService extends AbstractComponent {
             return null;
         }
 
-        if (shardResults.size() == 1) {
-            return shardResults.get(0).aggregations();
-        }
-
+        // always reduce, even a single shard result, so that pipeline aggregations get applied
         List<InternalAggregations> aggregationsList = new ArrayList<>(shardResults.size());
         for (PercolateShardResponse shardResult : shardResults) {
             aggregationsList.add(shardResult.aggregations());
@@ -43,6 +43,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 
 /**
@@ -52,6 +53,7 @@ abstract class QueryCollector extends SimpleCollector {
     final IndexFieldData<?> idFieldData;
     final IndexSearcher searcher;
     final ConcurrentMap<BytesRef, Query> queries;
+    final Set<BytesRef> candidateQueries;
     final ESLogger logger;
     boolean isNestedDoc = false;
 
@@ -67,6 +69,7 @@ abstract class QueryCollector extends SimpleCollector {
     QueryCollector(ESLogger logger, PercolateContext context, boolean isNestedDoc) {
         this.logger = logger;
         this.queries = context.percolateQueries();
+        this.candidateQueries = context.candidateQueries();
         this.searcher = context.docSearcher();
         final FieldMapper<?> idMapper = context.mapperService().smartNameFieldMapper(IdFieldMapper.NAME);
         this.idFieldData = context.fieldData().getForField(idMapper);
@@ -152,6 +155,10 @@ abstract class QueryCollector extends SimpleCollector {
         }
         assert numValues == 1;
         current = values.valueAt(0);
+        if (!candidateQueries.contains(current)) {
+            // none of the terms of the query are in the percolated document
+            return null;
+        }
         return queries.get(current);
     }
 
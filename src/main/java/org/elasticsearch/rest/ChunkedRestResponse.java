@@ -0,0 +1,41 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.common.bytes.BytesReference;
+
+/**
+ * A response which content is sent in chunks, see {@link RestChannel#startChunkedResponse(RestStatus, String)}.
+ */
+public interface ChunkedRestResponse {
+
+    /**
+     * Writes the next chunk of the content. The listener is notified once the chunk has been written and the
+     * channel can take more, or with a failure if the client went away. The next chunk should only be written
+     * once the listener of the previous one was notified.
+     */
+    void writeChunk(BytesReference content, ActionListener<Void> listener);
+
+    /**
+     * Ends the response.
+     */
+    void finish();
+}
@@ -97,4 +97,13 @@ public abstract class RestChannel {
     }
 
     public abstract void sendResponse(RestResponse response);
+
+    /**
+     * Starts a response which content is sent in chunks, instead of being built in memory before sending it.
+     * Returns <tt>null</tt> if this channel can only send whole responses.
+     */
+    @Nullable
+    public ChunkedRestResponse startChunkedResponse(RestStatus status, String contentType) {
+        return null;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,73 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.admin.cluster.node.tasks;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksRequest;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksResponse;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.rest.*;
+import org.elasticsearch.rest.action.support.RestToXContentListener;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+
+/**
+ */
+public class RestListTasksAction extends BaseRestHandler {
+
+    @Inject
+    public RestListTasksAction(Settings settings, RestController controller, Client client) {
+        super(settings, controller, client);
+        controller.registerHandler(GET, "/_tasks", this);
+        controller.registerHandler(GET, "/_tasks/{nodeId}", this);
+    }
+
+    @Override
+    public void handleRequest(final RestRequest request, final RestChannel channel, final Client client) {
+        String[] nodesIds = Strings.splitStringByCommaToArray(request.param("nodeId"));
+        ListTasksRequest listTasksRequest = new ListTasksRequest(nodesIds);
+        listTasksRequest.actions(Strings.splitStringByCommaToArray(request.param("actions")));
+        String parentTaskId = request.param("parent_task_id");
+        if (parentTaskId != null) {
+            Tuple<String, Long> parentTask = parseTaskId(parentTaskId);
+            listTasksRequest.parentTask(parentTask.v1(), parentTask.v2());
+        }
+        client.admin().cluster().listTasks(listTasksRequest, new RestToXContentListener<ListTasksResponse>(channel));
+    }
+
+    /**
+     * Parses a task id of the form <tt>node_id:task_id</tt>.
+     */
+    static Tuple<String, Long> parseTaskId(String taskId) {
+        int index = taskId.lastIndexOf(':');
+        if (index <= 0 || index == taskId.length() - 1) {
+            throw new ElasticsearchIllegalArgumentException("malformed task id [" + taskId + "], expected [node_id:task_id]");
+        }
+        try {
+            return new Tuple<>(taskId.substring(0, index), Long.parseLong(taskId.substring(index + 1)));
+        } catch (NumberFormatException e) {
+            throw new ElasticsearchIllegalArgumentException("malformed task id [" + taskId + "], expected [node_id:task_id]", e);
+        }
+    }
+}
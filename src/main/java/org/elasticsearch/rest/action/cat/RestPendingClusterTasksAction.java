@@ -66,6 +66,7 @@ public class RestPendingClusterTasksAction extends AbstractCatAction {
         t.addCell("timeInQueue", "alias:t;text-align:right;desc:how long task has been in queue");
         t.addCell("priority", "alias:p;desc:task priority");
         t.addCell("source", "alias:s;desc:task source");
+        t.addCell("batchSize", "alias:b;text-align:right;desc:number of queued tasks of the same kind executed in one batch with this task");
         t.endHeaders();
         return t;
     }
@@ -79,6 +80,7 @@ public class RestPendingClusterTasksAction extends AbstractCatAction {
             t.addCell(task.getTimeInQueue());
             t.addCell(task.getPriority());
             t.addCell(task.getSource());
+            t.addCell(task.getBatchSize());
             t.endRow();
         }
 
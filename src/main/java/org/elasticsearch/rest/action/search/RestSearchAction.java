@@ -107,6 +107,8 @@ public class RestSearchAction extends BaseRestHandler {
         searchRequest.extraSource(parseSearchSource(request));
         searchRequest.searchType(request.param("search_type"));
         searchRequest.queryCache(request.paramAsBoolean("query_cache", null));
+        searchRequest.batchedReduceSize(request.paramAsInt("batched_reduce_size", searchRequest.batchedReduceSize()));
+        searchRequest.preFilterShardSize(request.paramAsInt("pre_filter_shard_size", searchRequest.preFilterShardSize()));
 
         String scroll = request.param("scroll");
         if (scroll != null) {
@@ -192,6 +194,19 @@ public class RestSearchAction extends BaseRestHandler {
                 searchSourceBuilder.terminateAfter(terminateAfter);
             }
         }
+        if (request.hasParam("max_concurrent_slices")) {
+            if (searchSourceBuilder == null) {
+                searchSourceBuilder = new SearchSourceBuilder();
+            }
+            searchSourceBuilder.maxConcurrentSlices(request.paramAsInt("max_concurrent_slices",
+                    SearchContext.DEFAULT_MAX_CONCURRENT_SLICES));
+        }
+        if (request.hasParam("track_total_hits")) {
+            if (searchSourceBuilder == null) {
+                searchSourceBuilder = new SearchSourceBuilder();
+            }
+            searchSourceBuilder.trackTotalHits(request.paramAsBoolean("track_total_hits", true));
+        }
 
         String sField = request.param("fields");
         if (sField != null) {
@@ -0,0 +1,228 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.rest.action.search;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.*;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.*;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+
+import java.io.IOException;
+
+import static org.elasticsearch.rest.RestRequest.Method.GET;
+import static org.elasticsearch.rest.RestRequest.Method.POST;
+
+/**
+ * Exports all the documents matching a search as a chunked response holding one JSON hit per line. The hits are
+ * read with a scan search, and the next scroll request is only sent once the hits of the previous one were written
+ * to the client, so at most one batch of hits is held in memory no matter how slowly the client reads.
+ */
+public class RestSearchExportAction extends BaseRestHandler {
+
+    public static final TimeValue DEFAULT_KEEP_ALIVE = TimeValue.timeValueMinutes(1);
+
+    private static final byte LINE_FEED = '\n';
+
+    @Inject
+    public RestSearchExportAction(Settings settings, RestController controller, Client client) {
+        super(settings, controller, client);
+        controller.registerHandler(GET, "/_search/export", this);
+        controller.registerHandler(POST, "/_search/export", this);
+        controller.registerHandler(GET, "/{index}/_search/export", this);
+        controller.registerHandler(POST, "/{index}/_search/export", this);
+        controller.registerHandler(GET, "/{index}/{type}/_search/export", this);
+        controller.registerHandler(POST, "/{index}/{type}/_search/export", this);
+    }
+
+    @Override
+    public void handleRequest(final RestRequest request, final RestChannel channel, final Client client) {
+        final SearchRequest searchRequest = RestSearchAction.parseSearchRequest(request);
+        searchRequest.searchType(SearchType.SCAN);
+        if (searchRequest.scroll() == null) {
+            searchRequest.scroll(new Scroll(DEFAULT_KEEP_ALIVE));
+        }
+        searchRequest.listenerThreaded(false);
+        client.search(searchRequest, new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse response) {
+                if (response.getFailedShards() > 0) {
+                    // nothing was sent yet, so the export can still fail with a proper status
+                    clearScroll(client, response.getScrollId());
+                    channel.sendResponse(new BytesRestResponse(response.getShardFailures()[0].status(), failedShardsMessage(response)));
+                    return;
+                }
+                ChunkedRestResponse chunkedResponse = channel.startChunkedResponse(RestStatus.OK, XContentType.JSON.restContentType());
+                if (chunkedResponse == null) {
+                    clearScroll(client, response.getScrollId());
+                    channel.sendResponse(new BytesRestResponse(RestStatus.BAD_REQUEST, "search export requires a channel supporting chunked responses"));
+                    return;
+                }
+                new Export(client, request, searchRequest.scroll(), chunkedResponse).next(response.getScrollId());
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                try {
+                    channel.sendResponse(new BytesRestResponse(channel, e));
+                } catch (IOException e1) {
+                    logger.error("failed to send failure response", e1);
+                }
+            }
+        });
+    }
+
+    private static String failedShardsMessage(SearchResponse response) {
+        return "[" + response.getFailedShards() + "] shards failed, first failure: " + response.getShardFailures()[0].reason();
+    }
+
+    private void clearScroll(Client client, String scrollId) {
+        ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.addScrollId(scrollId);
+        client.clearScroll(clearScrollRequest, new ActionListener<ClearScrollResponse>() {
+            @Override
+            public void onResponse(ClearScrollResponse response) {
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                logger.debug("failed to clear the scroll of a search export", e);
+            }
+        });
+    }
+
+    /**
+     * Writes the hits of each scroll response as a chunk, and asks for the next ones once the chunk was written.
+     */
+    class Export implements ActionListener<SearchResponse> {
+
+        private final Client client;
+        private final RestRequest request;
+        private final Scroll scroll;
+        private final ChunkedRestResponse response;
+
+        private volatile String scrollId;
+
+        Export(Client client, RestRequest request, Scroll scroll, ChunkedRestResponse response) {
+            this.client = client;
+            this.request = request;
+            this.scroll = scroll;
+            this.response = response;
+        }
+
+        void next(String scrollId) {
+            this.scrollId = scrollId;
+            SearchScrollRequest searchScrollRequest = new SearchScrollRequest(scrollId);
+            searchScrollRequest.scroll(scroll);
+            searchScrollRequest.listenerThreaded(false);
+            client.searchScroll(searchScrollRequest, this);
+        }
+
+        @Override
+        public void onResponse(SearchResponse searchResponse) {
+            scrollId = searchResponse.getScrollId();
+            if (searchResponse.getFailedShards() > 0) {
+                // the export would silently miss documents
+                fail(failedShardsMessage(searchResponse));
+                return;
+            }
+            SearchHit[] hits = searchResponse.getHits().hits();
+            if (hits.length == 0) {
+                response.finish();
+                clearScroll(client, scrollId);
+                return;
+            }
+            final BytesReference chunk;
+            try {
+                chunk = toChunk(hits);
+            } catch (IOException e) {
+                onFailure(e);
+                return;
+            }
+            response.writeChunk(chunk, new ActionListener<Void>() {
+                @Override
+                public void onResponse(Void aVoid) {
+                    next(scrollId);
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                    logger.debug("search export aborted, failed to write to the client", e);
+                    clearScroll(client, scrollId);
+                }
+            });
+        }
+
+        @Override
+        public void onFailure(Throwable e) {
+            logger.debug("search export failed", e);
+            fail(ExceptionsHelper.detailedMessage(e));
+        }
+
+        /**
+         * The status of the response was sent already, so a failure is reported as the last line of the content.
+         */
+        private void fail(String reason) {
+            clearScroll(client, scrollId);
+            BytesStreamOutput out = new BytesStreamOutput();
+            try {
+                XContentBuilder builder = XContentFactory.jsonBuilder();
+                builder.startObject().field("error", reason).endObject();
+                builder.bytes().writeTo(out);
+                out.writeByte(LINE_FEED);
+            } catch (IOException e) {
+                logger.debug("failed to write the failure of a search export", e);
+                response.finish();
+                return;
+            }
+            response.writeChunk(out.bytes(), new ActionListener<Void>() {
+                @Override
+                public void onResponse(Void aVoid) {
+                    response.finish();
+                }
+
+                @Override
+                public void onFailure(Throwable e) {
+                }
+            });
+        }
+
+        private BytesReference toChunk(SearchHit[] hits) throws IOException {
+            BytesStreamOutput out = new BytesStreamOutput();
+            for (SearchHit hit : hits) {
+                XContentBuilder builder = XContentFactory.jsonBuilder();
+                hit.toXContent(builder, request);
+                builder.bytes().writeTo(out);
+                out.writeByte(LINE_FEED);
+            }
+            return out.bytes();
+        }
+    }
+}
@@ -42,6 +42,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.lucene.search.Queries;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
@@ -79,7 +80,9 @@ import org.elasticsearch.search.internal.*;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
 import org.elasticsearch.search.query.*;
 import org.elasticsearch.search.warmer.IndexWarmersMetaData;
+import org.elasticsearch.tasks.TaskManager;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
 import java.util.HashMap;
@@ -89,6 +92,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.common.Strings.hasLength;
@@ -199,6 +203,26 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         FutureUtils.cancel(keepAliveReaper);
     }
 
+    /**
+     * Returns <tt>false</tt> if the request can't match any document of the shard, in which case the shard doesn't need to
+     * be searched at all. The check only parses the request, it is meant to be much cheaper than the query phase.
+     */
+    public boolean canMatch(ShardSearchRequest request) throws ElasticsearchException {
+        final SearchContext context = createContext(request, null);
+        try {
+            if (context.suggest() != null) {
+                return true;
+            }
+            if (context.aggregations() != null && context.aggregations().factories().mustVisitAllDocs()) {
+                return true;
+            }
+            return Queries.matchesNoDocs(context.query()) == false;
+        } finally {
+            cleanContext(context);
+            context.close();
+        }
+    }
+
     public DfsSearchResult executeDfsPhase(ShardSearchRequest request) throws ElasticsearchException {
         final SearchContext context = createAndPutContext(request);
         try {
@@ -242,7 +266,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public ScrollQueryFetchSearchResult executeScan(InternalScrollSearchRequest request) throws ElasticsearchException {
-        final SearchContext context = findContext(request.id());
+        final SearchContext context = findContext(request.id(), request);
         contextProcessing(context);
         try {
             processScroll(request, context);
@@ -270,6 +294,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public QuerySearchResultProvider executeQueryPhase(ShardSearchRequest request) throws ElasticsearchException {
+        final long startTime = System.nanoTime();
         final SearchContext context = createAndPutContext(request);
         try {
             context.indexShard().searchService().onPreQueryPhase(context);
@@ -292,6 +317,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
             }
             context.indexShard().searchService().onQueryPhase(context, System.nanoTime() - time);
 
+            result.nodeStatistics(System.nanoTime() - startTime, searchQueueSize());
             return result;
         } catch (Throwable e) {
             // execution exception can happen while loading the cache, strip it
@@ -308,7 +334,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public ScrollQuerySearchResult executeQueryPhase(InternalScrollSearchRequest request) throws ElasticsearchException {
-        final SearchContext context = findContext(request.id());
+        final SearchContext context = findContext(request.id(), request);
         try {
             context.indexShard().searchService().onPreQueryPhase(context);
             long time = System.nanoTime();
@@ -329,7 +355,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public QuerySearchResult executeQueryPhase(QuerySearchRequest request) throws ElasticsearchException {
-        final SearchContext context = findContext(request.id());
+        final SearchContext context = findContext(request.id(), request);
         contextProcessing(context);
         try {
             context.searcher().dfSource(new CachedDfSource(context.searcher().getIndexReader(), request.dfs(), context.similarityService().similarity()));
@@ -356,6 +382,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public QueryFetchSearchResult executeFetchPhase(ShardSearchRequest request) throws ElasticsearchException {
+        final long startTime = System.nanoTime();
         final SearchContext context = createAndPutContext(request);
         contextProcessing(context);
         try {
@@ -383,7 +410,9 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
                 throw ExceptionsHelper.convertToRuntime(e);
             }
             context.indexShard().searchService().onFetchPhase(context, System.nanoTime() - time2);
-            return new QueryFetchSearchResult(context.queryResult(), context.fetchResult());
+            QueryFetchSearchResult result = new QueryFetchSearchResult(context.queryResult(), context.fetchResult());
+            result.nodeStatistics(System.nanoTime() - startTime, searchQueueSize());
+            return result;
         } catch (Throwable e) {
             logger.trace("Fetch phase failed", e);
             freeContext(context.id());
@@ -394,7 +423,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public QueryFetchSearchResult executeFetchPhase(QuerySearchRequest request) throws ElasticsearchException {
-        final SearchContext context = findContext(request.id());
+        final SearchContext context = findContext(request.id(), request);
         contextProcessing(context);
         try {
             context.searcher().dfSource(new CachedDfSource(context.searcher().getIndexReader(), request.dfs(), context.similarityService().similarity()));
@@ -439,7 +468,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public ScrollQueryFetchSearchResult executeFetchPhase(InternalScrollSearchRequest request) throws ElasticsearchException {
-        final SearchContext context = findContext(request.id());
+        final SearchContext context = findContext(request.id(), request);
         contextProcessing(context);
         try {
             processScroll(request, context);
@@ -478,7 +507,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     }
 
     public FetchSearchResult executeFetchPhase(ShardFetchRequest request) throws ElasticsearchException {
-        final SearchContext context = findContext(request.id());
+        final SearchContext context = findContext(request.id(), request);
         contextProcessing(context);
         try {
             if (request.lastEmittedDoc() != null) {
@@ -505,12 +534,14 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         }
     }
 
-    private SearchContext findContext(long id) throws SearchContextMissingException {
+    private SearchContext findContext(long id, TransportRequest request) throws SearchContextMissingException {
         SearchContext context = activeContexts.get(id);
         if (context == null) {
             throw new SearchContextMissingException(id);
         }
         SearchContext.setCurrent(context);
+        // every phase is executed for the task of its own request
+        context.task(TaskManager.task(request));
         return context;
     }
 
@@ -539,6 +570,9 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         SearchContext context = new DefaultSearchContext(idGenerator.incrementAndGet(), request, shardTarget, engineSearcher, indexService, indexShard, scriptService, pageCacheRecycler, bigArrays, threadPool.estimatedTimeInMillisCounter());
         SearchContext.setCurrent(context);
         try {
+            if (request instanceof TransportRequest) {
+                context.task(TaskManager.task((TransportRequest) request));
+            }
             context.scroll(request.scroll());
 
             parseTemplate(request);
@@ -612,6 +646,18 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         context.accessed(threadPool.estimatedTimeInMillis());
     }
 
+    /**
+     * Returns the number of requests waiting in the search queue, reported to the coordinating node along with the
+     * query results for adaptive replica selection.
+     */
+    private int searchQueueSize() {
+        Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        return -1;
+    }
+
     private void cleanContext(SearchContext context) {
         assert context == SearchContext.current();
         context.clearReleasables(Lifetime.PHASE);
@@ -28,6 +28,7 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -57,6 +58,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
     public static final String FREE_CONTEXT_SCROLL_ACTION_NAME = "indices:data/read/search[free_context/scroll]";
     public static final String FREE_CONTEXT_ACTION_NAME = "indices:data/read/search[free_context]";
     public static final String CLEAR_SCROLL_CONTEXTS_ACTION_NAME = "indices:data/read/search[clear_scroll_contexts]";
+    public static final String CAN_MATCH_ACTION_NAME = "indices:data/read/search[phase/can_match]";
     public static final String DFS_ACTION_NAME = "indices:data/read/search[phase/dfs]";
     public static final String QUERY_ACTION_NAME = "indices:data/read/search[phase/query]";
     public static final String QUERY_ID_ACTION_NAME = "indices:data/read/search[phase/query/id]";
@@ -102,6 +104,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
     private final TransportService transportService;
     private final ClusterService clusterService;
     private final SearchService searchService;
+    private final ResponseCollectorService responseCollectorService;
     private final FreeContextResponseHandler freeContextResponseHandler = new FreeContextResponseHandler(new ActionListener<Boolean>() {
         @Override
         public void onResponse(Boolean aBoolean) {}
@@ -113,16 +116,19 @@ public class SearchServiceTransportAction extends AbstractComponent {
     });
 
     @Inject
-    public SearchServiceTransportAction(Settings settings, ThreadPool threadPool, TransportService transportService, ClusterService clusterService, SearchService searchService) {
+    public SearchServiceTransportAction(Settings settings, ThreadPool threadPool, TransportService transportService, ClusterService clusterService, SearchService searchService,
+                                        ResponseCollectorService responseCollectorService) {
         super(settings);
         this.threadPool = threadPool;
         this.transportService = transportService;
         this.clusterService = clusterService;
         this.searchService = searchService;
+        this.responseCollectorService = responseCollectorService;
 
         transportService.registerHandler(FREE_CONTEXT_SCROLL_ACTION_NAME, new ScrollFreeContextTransportHandler());
         transportService.registerHandler(FREE_CONTEXT_ACTION_NAME, new SearchFreeContextTransportHandler());
         transportService.registerHandler(CLEAR_SCROLL_CONTEXTS_ACTION_NAME, new ClearScrollContextsTransportHandler());
+        transportService.registerHandler(CAN_MATCH_ACTION_NAME, new SearchCanMatchTransportHandler());
         transportService.registerHandler(DFS_ACTION_NAME, new SearchDfsTransportHandler());
         transportService.registerHandler(QUERY_ACTION_NAME, new SearchQueryTransportHandler());
         transportService.registerHandler(QUERY_ID_ACTION_NAME, new SearchQueryByIdTransportHandler());
@@ -183,6 +189,46 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
+    /**
+     * Checks whether the shard can have documents matching the request, nodes that don't support the check always answer
+     * <tt>true</tt>.
+     */
+    public void sendCanMatch(DiscoveryNode node, final ShardSearchTransportRequest request, final SearchServiceListener<Boolean> listener) {
+        if (clusterService.state().nodes().localNodeId().equals(node.id())) {
+            execute(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return searchService.canMatch(request);
+                }
+            }, listener);
+        } else if (node.version().before(Version.V_2_0_0)) {
+            listener.onResult(true);
+        } else {
+            transportService.sendRequest(node, CAN_MATCH_ACTION_NAME, request, new BaseTransportResponseHandler<CanMatchResponse>() {
+
+                @Override
+                public CanMatchResponse newInstance() {
+                    return new CanMatchResponse();
+                }
+
+                @Override
+                public void handleResponse(CanMatchResponse response) {
+                    listener.onResult(response.canMatch());
+                }
+
+                @Override
+                public void handleException(TransportException exp) {
+                    listener.onFailure(exp);
+                }
+
+                @Override
+                public String executor() {
+                    return ThreadPool.Names.SAME;
+                }
+            });
+        }
+    }
+
     public void sendExecuteDfs(DiscoveryNode node, final ShardSearchTransportRequest request, final SearchServiceListener<DfsSearchResult> listener) {
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
             execute(new Callable<DfsSearchResult>() {
@@ -217,7 +263,8 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    public void sendExecuteQuery(DiscoveryNode node, final ShardSearchTransportRequest request, final SearchServiceListener<QuerySearchResultProvider> listener) {
+    public void sendExecuteQuery(DiscoveryNode node, final ShardSearchTransportRequest request, SearchServiceListener<QuerySearchResultProvider> resultListener) {
+        final SearchServiceListener<QuerySearchResultProvider> listener = new ResponseCollectingListener<>(node.id(), resultListener);
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
             execute(new Callable<QuerySearchResultProvider>() {
                 @Override
@@ -319,7 +366,8 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    public void sendExecuteFetch(DiscoveryNode node, final ShardSearchTransportRequest request, final SearchServiceListener<QueryFetchSearchResult> listener) {
+    public void sendExecuteFetch(DiscoveryNode node, final ShardSearchTransportRequest request, SearchServiceListener<QueryFetchSearchResult> resultListener) {
+        final SearchServiceListener<QueryFetchSearchResult> listener = new ResponseCollectingListener<>(node.id(), resultListener);
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
             execute(new Callable<QueryFetchSearchResult>() {
                 @Override
@@ -560,6 +608,36 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
+    /**
+     * Records the response time of the initial query phase requests, along with the service time and search queue size
+     * reported by the node, for adaptive replica selection.
+     */
+    private class ResponseCollectingListener<T extends QuerySearchResultProvider> implements SearchServiceListener<T> {
+
+        private final String nodeId;
+        private final SearchServiceListener<T> listener;
+        private final long startTime;
+
+        ResponseCollectingListener(String nodeId, SearchServiceListener<T> listener) {
+            this.nodeId = nodeId;
+            this.listener = listener;
+            this.startTime = System.nanoTime();
+            responseCollectorService.onRequestSent(nodeId);
+        }
+
+        @Override
+        public void onResult(T result) {
+            responseCollectorService.onResponse(nodeId, System.nanoTime() - startTime, result.serviceTimeNanos(), result.nodeQueueSize());
+            listener.onResult(result);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            responseCollectorService.onFailure(nodeId);
+            listener.onFailure(t);
+        }
+    }
+
     static class ScrollFreeContextRequest extends TransportRequest {
         private long id;
 
@@ -724,6 +802,53 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
+    static class CanMatchResponse extends TransportResponse {
+
+        private boolean canMatch;
+
+        CanMatchResponse() {
+        }
+
+        CanMatchResponse(boolean canMatch) {
+            this.canMatch = canMatch;
+        }
+
+        public boolean canMatch() {
+            return canMatch;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            canMatch = in.readBoolean();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeBoolean(canMatch);
+        }
+    }
+
+    private class SearchCanMatchTransportHandler extends BaseTransportRequestHandler<ShardSearchTransportRequest> {
+
+        @Override
+        public ShardSearchTransportRequest newInstance() {
+            return new ShardSearchTransportRequest();
+        }
+
+        @Override
+        public void messageReceived(ShardSearchTransportRequest request, TransportChannel channel) throws Exception {
+            boolean canMatch = searchService.canMatch(request);
+            channel.sendResponse(new CanMatchResponse(canMatch));
+        }
+
+        @Override
+        public String executor() {
+            return ThreadPool.Names.SEARCH;
+        }
+    }
+
     private class SearchDfsTransportHandler extends BaseTransportRequestHandler<ShardSearchTransportRequest> {
 
         @Override
@@ -20,6 +20,8 @@ package org.elasticsearch.search.aggregations;
 
 import org.elasticsearch.search.aggregations.bucket.children.Children;
 import org.elasticsearch.search.aggregations.bucket.children.ChildrenBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeBuilder;
 import org.elasticsearch.search.aggregations.bucket.filter.Filter;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.filters.Filters;
@@ -204,6 +206,13 @@ public class AggregationBuilders {
         return new GeoHashGridBuilder(name);
     }
 
+    /**
+     * Create a new {@link CompositeAggregation} aggregation with the given name.
+     */
+    public static CompositeBuilder composite(String name) {
+        return new CompositeBuilder(name);
+    }
+
     /**
      * Create a new {@link SignificantTerms} aggregation with the given name.
      */
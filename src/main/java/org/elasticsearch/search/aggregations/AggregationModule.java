@@ -25,6 +25,7 @@ import org.elasticsearch.common.inject.Module;
 import org.elasticsearch.common.inject.SpawnModules;
 import org.elasticsearch.common.inject.multibindings.Multibinder;
 import org.elasticsearch.search.aggregations.bucket.children.ChildrenParser;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeParser;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterParser;
 import org.elasticsearch.search.aggregations.bucket.filters.FiltersParser;
 import org.elasticsearch.search.aggregations.bucket.geogrid.GeoHashGridParser;
@@ -54,6 +55,15 @@ import org.elasticsearch.search.aggregations.metrics.stats.extended.ExtendedStat
 import org.elasticsearch.search.aggregations.metrics.sum.SumParser;
 import org.elasticsearch.search.aggregations.metrics.tophits.TopHitsParser;
 import org.elasticsearch.search.aggregations.metrics.valuecount.ValueCountParser;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.AvgBucketParser;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.MaxBucketParser;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.MinBucketParser;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.SumBucketParser;
+import org.elasticsearch.search.aggregations.pipeline.bucketscript.BucketScriptParser;
+import org.elasticsearch.search.aggregations.pipeline.cumulativesum.CumulativeSumParser;
+import org.elasticsearch.search.aggregations.pipeline.derivative.DerivativeParser;
+import org.elasticsearch.search.aggregations.pipeline.movavg.MovAvgParser;
 
 import java.util.List;
 
@@ -63,6 +73,7 @@ import java.util.List;
 public class AggregationModule extends AbstractModule implements SpawnModules{
 
     private List<Class<? extends Aggregator.Parser>> parsers = Lists.newArrayList();
+    private List<Class<? extends PipelineAggregator.Parser>> pipelineParsers = Lists.newArrayList();
 
     public AggregationModule() {
         parsers.add(AvgParser.class);
@@ -89,12 +100,22 @@ public class AggregationModule extends AbstractModule implements SpawnModules{
         parsers.add(DateHistogramParser.class);
         parsers.add(GeoDistanceParser.class);
         parsers.add(GeoHashGridParser.class);
+        parsers.add(CompositeParser.class);
         parsers.add(NestedParser.class);
         parsers.add(ReverseNestedParser.class);
         parsers.add(TopHitsParser.class);
         parsers.add(GeoBoundsParser.class);
         parsers.add(ScriptedMetricParser.class);
         parsers.add(ChildrenParser.class);
+
+        pipelineParsers.add(DerivativeParser.class);
+        pipelineParsers.add(CumulativeSumParser.class);
+        pipelineParsers.add(MovAvgParser.class);
+        pipelineParsers.add(BucketScriptParser.class);
+        pipelineParsers.add(AvgBucketParser.class);
+        pipelineParsers.add(MaxBucketParser.class);
+        pipelineParsers.add(MinBucketParser.class);
+        pipelineParsers.add(SumBucketParser.class);
     }
 
     /**
@@ -106,12 +127,25 @@ public class AggregationModule extends AbstractModule implements SpawnModules{
         parsers.add(parser);
     }
 
+    /**
+     * Enabling extending the get module by adding a custom pipeline aggregation parser.
+     *
+     * @param parser The parser for the custom pipeline aggregator.
+     */
+    public void addPipelineAggregatorParser(Class<? extends PipelineAggregator.Parser> parser) {
+        pipelineParsers.add(parser);
+    }
+
     @Override
     protected void configure() {
         Multibinder<Aggregator.Parser> multibinder = Multibinder.newSetBinder(binder(), Aggregator.Parser.class);
         for (Class<? extends Aggregator.Parser> parser : parsers) {
             multibinder.addBinding().to(parser);
         }
+        Multibinder<PipelineAggregator.Parser> pipelineMultibinder = Multibinder.newSetBinder(binder(), PipelineAggregator.Parser.class);
+        for (Class<? extends PipelineAggregator.Parser> parser : pipelineParsers) {
+            pipelineMultibinder.addBinding().to(parser);
+        }
         bind(AggregatorParsers.class).asEagerSingleton();
         bind(AggregationParseElement.class).asEagerSingleton();
         bind(AggregationPhase.class).asEagerSingleton();
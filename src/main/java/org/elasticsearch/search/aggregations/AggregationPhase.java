@@ -33,9 +33,14 @@ import org.elasticsearch.common.lucene.search.XCollector;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.SearchPhase;
 import org.elasticsearch.search.aggregations.bucket.global.GlobalAggregator;
+import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.profile.AggregationTimingType;
+import org.elasticsearch.search.profile.ProfileBreakdown;
+import org.elasticsearch.search.profile.Profiler;
 import org.elasticsearch.search.query.QueryPhaseExecutionException;
+import org.elasticsearch.tasks.CancellableTask;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -88,12 +93,46 @@ public class AggregationPhase implements SearchPhase {
             }
             context.aggregations().aggregators(aggregators);
             if (!collectors.isEmpty()) {
-                context.searcher().addMainQueryCollector(new AggregationsCollector(collectors, aggregationContext));
+                AggregationsCollector collector = new AggregationsCollector(collectors, aggregationContext);
+                if (context.profiler() != null) {
+                    collector.profile(context.profiler());
+                }
+                context.aggregations().collector(collector);
+                context.searcher().addMainQueryCollector(collector);
             }
             aggregationContext.setNextReader(context.searcher().getIndexReader().getContext());
         }
     }
 
+    /**
+     * Returns the collector of the aggregations of a slice of segments searched concurrently by the query phase, or
+     * <tt>null</tt> if there is nothing to collect. The first slice is collected by the aggregators created on
+     * {@link #preProcess(SearchContext)}, every other slice gets its own aggregators, which are reduced with the first
+     * ones on {@link #execute(SearchContext)}.
+     */
+    public AggregationsCollector sliceCollector(SearchContext context, int slice) {
+        SearchContextAggregations aggregations = context.aggregations();
+        if (aggregations == null || aggregations.collector() == null) {
+            return null;
+        }
+        if (slice == 0) {
+            return aggregations.collector();
+        }
+        assert aggregations.factories().supportsConcurrentCollection() : "aggregations can't be collected concurrently";
+        AggregationContext aggregationContext = new AggregationContext(context);
+        List<Aggregator> collectors = new ArrayList<>();
+        Aggregator[] aggregators = aggregations.factories().createTopLevelAggregators(aggregationContext);
+        for (int i = 0; i < aggregators.length; i++) {
+            // the global aggregators are collected once for the whole shard
+            if (!(aggregators[i] instanceof GlobalAggregator) && aggregators[i].shouldCollect()) {
+                collectors.add(aggregators[i]);
+            }
+        }
+        aggregations.addSliceAggregators(aggregators);
+        aggregationContext.setNextReader(context.searcher().getIndexReader().getContext());
+        return new AggregationsCollector(collectors, aggregationContext);
+    }
+
     @Override
     public void execute(SearchContext context) throws ElasticsearchException {
         if (context.aggregations() == null) {
@@ -117,6 +156,9 @@ public class AggregationPhase implements SearchPhase {
         // optimize the global collector based execution
         if (!globals.isEmpty()) {
             AggregationsCollector collector = new AggregationsCollector(globals, context.aggregations().aggregationContext());
+            if (context.profiler() != null) {
+                collector.profile(context.profiler());
+            }
             Query query = new ConstantScoreQuery(Queries.MATCH_ALL_FILTER);
             Filter searchFilter = context.searchFilter(context.types());
             if (searchFilter != null) {
@@ -130,11 +172,43 @@ public class AggregationPhase implements SearchPhase {
             }
         }
 
+        if (context.task() instanceof CancellableTask) {
+            // building the aggregations may replay deferred collections, which is not needed anymore once cancelled
+            ((CancellableTask) context.task()).ensureNotCancelled();
+        }
+
         List<InternalAggregation> aggregations = new ArrayList<>(aggregators.length);
+        Profiler profiler = context.profiler();
         for (Aggregator aggregator : context.aggregations().aggregators()) {
-            aggregations.add(aggregator.buildAggregation(0));
+            if (profiler == null) {
+                aggregations.add(aggregator.buildAggregation(0));
+            } else {
+                ProfileBreakdown<AggregationTimingType> breakdown = profiler.aggregationBreakdown(aggregator);
+                long start = breakdown.start();
+                aggregations.add(aggregator.buildAggregation(0));
+                breakdown.record(AggregationTimingType.BUILD_AGGREGATION, start);
+            }
         }
-        context.queryResult().aggregations(new InternalAggregations(aggregations));
+        List<SiblingPipelineAggregator> pipelineAggregators = context.aggregations().factories().siblingPipelineAggregators();
+        InternalAggregations shardAggregations = new InternalAggregations(aggregations, pipelineAggregators);
+        List<Aggregator[]> sliceAggregators = context.aggregations().sliceAggregators();
+        if (!sliceAggregators.isEmpty()) {
+            // the slices of a concurrent search are reduced the same way the coordinating node reduces shard results
+            List<InternalAggregations> aggregationsList = new ArrayList<>(1 + sliceAggregators.size());
+            aggregationsList.add(shardAggregations);
+            for (Aggregator[] slice : sliceAggregators) {
+                List<InternalAggregation> sliceAggregations = new ArrayList<>(slice.length);
+                for (Aggregator aggregator : slice) {
+                    if (!(aggregator instanceof GlobalAggregator)) {
+                        sliceAggregations.add(aggregator.buildAggregation(0));
+                    }
+                }
+                aggregationsList.add(new InternalAggregations(sliceAggregations, pipelineAggregators));
+            }
+            shardAggregations = InternalAggregations.reduce(aggregationsList,
+                    new InternalAggregation.ReduceContext(null, context.bigArrays(), context.scriptService(), false));
+        }
+        context.queryResult().aggregations(shardAggregations);
 
         // disable aggregations so that they don't run on next pages in case of scrolling
         context.aggregations(null);
@@ -145,12 +219,24 @@ public class AggregationPhase implements SearchPhase {
 
         private final AggregationContext aggregationContext;
         private final Aggregator[] collectors;
+        private ProfileBreakdown<AggregationTimingType>[] breakdowns;
 
         public AggregationsCollector(Collection<Aggregator> collectors, AggregationContext aggregationContext) {
             this.collectors = collectors.toArray(new Aggregator[collectors.size()]);
             this.aggregationContext = aggregationContext;
         }
 
+        /**
+         * Records the time each aggregator spends collecting documents, sub aggregators included.
+         */
+        @SuppressWarnings("unchecked")
+        public void profile(Profiler profiler) {
+            breakdowns = new ProfileBreakdown[collectors.length];
+            for (int i = 0; i < collectors.length; i++) {
+                breakdowns[i] = profiler.aggregationBreakdown(collectors[i]);
+            }
+        }
+
         @Override
         public void setScorer(Scorer scorer) throws IOException {
             aggregationContext.setScorer(scorer);
@@ -158,8 +244,16 @@ public class AggregationPhase implements SearchPhase {
 
         @Override
         public void collect(int doc) throws IOException {
-            for (Aggregator collector : collectors) {
-                collector.collect(doc, 0);
+            if (breakdowns == null) {
+                for (Aggregator collector : collectors) {
+                    collector.collect(doc, 0);
+                }
+            } else {
+                for (int i = 0; i < collectors.length; i++) {
+                    long start = breakdowns[i].start();
+                    collectors[i].collect(doc, 0);
+                    breakdowns[i].record(AggregationTimingType.COLLECT, start);
+                }
             }
         }
 
@@ -175,8 +269,16 @@ public class AggregationPhase implements SearchPhase {
 
         @Override
         public void postCollection() throws IOException {
-            for (Aggregator collector : collectors) {
-                collector.postCollection();
+            if (breakdowns == null) {
+                for (Aggregator collector : collectors) {
+                    collector.postCollection();
+                }
+            } else {
+                for (int i = 0; i < collectors.length; i++) {
+                    long start = breakdowns[i].start();
+                    collectors[i].postCollection();
+                    breakdowns[i].record(AggregationTimingType.POST_COLLECTION, start);
+                }
             }
         }
     }
@@ -94,7 +94,13 @@ public abstract class Aggregator extends BucketCollector implements Releasable {
          * before a second pass over the data when child aggregators are called
          * but only for docs from the top-scoring buckets
          */
-        BREADTH_FIRST(new ParseField("breadth_first"));
+        BREADTH_FIRST(new ParseField("breadth_first")),
+
+        /**
+         * Lets the aggregator pick {@link #BREADTH_FIRST} when it prunes its buckets and expects to see more
+         * buckets than it keeps, and {@link #DEPTH_FIRST} otherwise
+         */
+        AUTO(new ParseField("auto"));
 
         private final ParseField parseField;
 
@@ -172,6 +178,7 @@ public abstract class Aggregator extends BucketCollector implements Releasable {
 
     private Map<String, Aggregator> subAggregatorbyName;
     private DeferringBucketCollector recordingWrapper;
+    private boolean deferredCollectionsRun;
 
     /**
      * Constructs a new Aggregator.
@@ -266,12 +273,32 @@ public abstract class Aggregator extends BucketCollector implements Releasable {
     
     protected void runDeferredCollections(long... bucketOrds){
         // Being lenient here - ignore calls where there are no deferred collections to playback
-        if (recordingWrapper != null) {
+        if (recordingWrapper != null && deferredCollectionsRun == false) {
+            deferredCollectionsRun = true;
             context.setScorer(unavailableScorer);
             recordingWrapper.prepareSelectedBuckets(bucketOrds);
         } 
     }
 
+    /**
+     * Same as {@link #runDeferredCollections(long...)} for aggregators that pick the bucket of each
+     * replayed doc themselves, see {@link RemappingBucketCollector}.
+     */
+    protected void runDeferredCollections(RemappingBucketCollector remapper) {
+        if (recordingWrapper != null && deferredCollectionsRun == false) {
+            deferredCollectionsRun = true;
+            context.setScorer(unavailableScorer);
+            recordingWrapper.prepareRemappedBuckets(remapper);
+        }
+    }
+
+    /**
+     * @return true if sub aggregations were deferred and their collection was not replayed yet
+     */
+    protected final boolean hasPendingDeferredCollections() {
+        return recordingWrapper != null && deferredCollectionsRun == false;
+    }
+
     /**
      * @return  The name of the aggregation.
      */
@@ -377,7 +404,7 @@ public abstract class Aggregator extends BucketCollector implements Releasable {
         for (Aggregator aggregator : subAggregators) {
             aggs.add(aggregator.buildEmptyAggregation());
         }
-        return new InternalAggregations(aggs);
+        return new InternalAggregations(aggs, factories.siblingPipelineAggregators());
     }
 
     /**
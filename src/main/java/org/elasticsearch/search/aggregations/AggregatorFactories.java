@@ -24,10 +24,14 @@ import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.ObjectArray;
 import org.elasticsearch.search.aggregations.Aggregator.BucketAggregationMode;
+import org.elasticsearch.search.aggregations.pipeline.ParentPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -39,14 +43,28 @@ public class AggregatorFactories {
 
     public static final AggregatorFactories EMPTY = new Empty();
 
+    private AggregatorFactory parent;
     private AggregatorFactory[] factories;
+    private List<PipelineAggregator> pipelineAggregators;
+    private List<SiblingPipelineAggregator> siblingPipelineAggregators;
+    private List<ParentPipelineAggregator> parentPipelineAggregators;
 
     public static Builder builder() {
         return new Builder();
     }
 
-    private AggregatorFactories(AggregatorFactory[] factories) {
+    private AggregatorFactories(AggregatorFactory[] factories, List<PipelineAggregator> pipelineAggregators) {
         this.factories = factories;
+        this.pipelineAggregators = pipelineAggregators;
+        this.siblingPipelineAggregators = new ArrayList<>();
+        this.parentPipelineAggregators = new ArrayList<>();
+        for (PipelineAggregator pipelineAggregator : pipelineAggregators) {
+            if (pipelineAggregator instanceof SiblingPipelineAggregator) {
+                siblingPipelineAggregators.add((SiblingPipelineAggregator) pipelineAggregator);
+            } else {
+                parentPipelineAggregators.add((ParentPipelineAggregator) pipelineAggregator);
+            }
+        }
     }
 
     private static Aggregator createAndRegisterContextAware(AggregationContext context, AggregatorFactory factory, Aggregator parent, long estimatedBucketsCount) {
@@ -163,7 +181,47 @@ public class AggregatorFactories {
         return factories.length;
     }
 
+    /**
+     * @return <code>true</code> if one of the aggregations needs to see all the documents of a shard, not only the ones that
+     *         match the query.
+     */
+    public boolean mustVisitAllDocs() {
+        for (AggregatorFactory factory : factories) {
+            if (factory.mustVisitAllDocs()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return <code>true</code> if all the aggregations can be collected concurrently over slices of the segments of a shard.
+     */
+    public boolean supportsConcurrentCollection() {
+        for (AggregatorFactory factory : factories) {
+            if (factory.supportsConcurrentCollection() == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The pipeline aggregators which compute a new aggregation next to the aggregations of this level.
+     */
+    public List<SiblingPipelineAggregator> siblingPipelineAggregators() {
+        return siblingPipelineAggregators;
+    }
+
+    /**
+     * @return The pipeline aggregators which compute a value for every bucket of the parent aggregation.
+     */
+    public List<ParentPipelineAggregator> parentPipelineAggregators() {
+        return parentPipelineAggregators;
+    }
+
     void setParent(AggregatorFactory parent) {
+        this.parent = parent;
         for (AggregatorFactory factory : factories) {
             factory.parent = parent;
         }
@@ -173,6 +231,9 @@ public class AggregatorFactories {
         for (AggregatorFactory factory : factories) {
             factory.validate();
         }
+        for (int i = 0; i < pipelineAggregators.size(); i++) {
+            pipelineAggregators.get(i).validate(parent, factories, pipelineAggregators.subList(0, i));
+        }
     }
 
     private final static class Empty extends AggregatorFactories {
@@ -181,7 +242,7 @@ public class AggregatorFactories {
         private static final Aggregator[] EMPTY_AGGREGATORS = new Aggregator[0];
 
         private Empty() {
-            super(EMPTY_FACTORIES);
+            super(EMPTY_FACTORIES, Collections.<PipelineAggregator>emptyList());
         }
 
         @Override
@@ -200,6 +261,7 @@ public class AggregatorFactories {
 
         private final Set<String> names = new HashSet<>();
         private final List<AggregatorFactory> factories = new ArrayList<>();
+        private final List<PipelineAggregator> pipelineAggregators = new ArrayList<>();
 
         public Builder add(AggregatorFactory factory) {
             if (!names.add(factory.name)) {
@@ -209,11 +271,19 @@ public class AggregatorFactories {
             return this;
         }
 
+        public Builder addPipelineAggregator(PipelineAggregator pipelineAggregator) {
+            if (!names.add(pipelineAggregator.name())) {
+                throw new ElasticsearchIllegalArgumentException("Two sibling aggregations cannot have the same name: [" + pipelineAggregator.name() + "]");
+            }
+            pipelineAggregators.add(pipelineAggregator);
+            return this;
+        }
+
         public AggregatorFactories build() {
-            if (factories.isEmpty()) {
+            if (factories.isEmpty() && pipelineAggregators.isEmpty()) {
                 return EMPTY;
             }
-            return new AggregatorFactories(factories.toArray(new AggregatorFactory[factories.size()]));
+            return new AggregatorFactories(factories.toArray(new AggregatorFactory[factories.size()]), pipelineAggregators);
         }
     }
 }
@@ -65,6 +65,13 @@ public abstract class AggregatorFactory {
         factories.validate();
     }
 
+    /**
+     * @return  The name of the aggregation this factory creates aggregators for.
+     */
+    public String name() {
+        return name;
+    }
+
     /**
      * @return  The parent factory if one exists (will always return {@code null} for top level aggregator factories).
      */
@@ -92,6 +99,22 @@ public abstract class AggregatorFactory {
     public void doValidate() {
     }
 
+    /**
+     * @return <code>true</code> if the aggregation (or one of its sub-aggregations) builds a result out of documents that do
+     *         not match the query, in which case a shard can't be skipped even if the query matches none of its documents.
+     */
+    public boolean mustVisitAllDocs() {
+        return factories.mustVisitAllDocs();
+    }
+
+    /**
+     * @return <code>true</code> if the aggregation (and all its sub-aggregations) can be collected by several aggregators,
+     *         one per slice of segments searched concurrently, whose results are reduced into the result of the shard.
+     */
+    public boolean supportsConcurrentCollection() {
+        return factories.supportsConcurrentCollection();
+    }
+
     public void setMetaData(Map<String, Object> metaData) {
         this.metaData = metaData;
     }
@@ -23,6 +23,7 @@ import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
@@ -38,20 +39,27 @@ public class AggregatorParsers {
 
     public static final Pattern VALID_AGG_NAME = Pattern.compile("[^\\[\\]>]+");
     private final ImmutableMap<String, Aggregator.Parser> parsers;
+    private final ImmutableMap<String, PipelineAggregator.Parser> pipelineParsers;
 
 
     /**
      * Constructs the AggregatorParsers out of all the given parsers
      *
      * @param parsers The available aggregator parsers (dynamically injected by the {@link org.elasticsearch.search.aggregations.AggregationModule}).
+     * @param pipelineParsers The available pipeline aggregator parsers (dynamically injected by the {@link org.elasticsearch.search.aggregations.AggregationModule}).
      */
     @Inject
-    public AggregatorParsers(Set<Aggregator.Parser> parsers) {
+    public AggregatorParsers(Set<Aggregator.Parser> parsers, Set<PipelineAggregator.Parser> pipelineParsers) {
         MapBuilder<String, Aggregator.Parser> builder = MapBuilder.newMapBuilder();
         for (Aggregator.Parser parser : parsers) {
             builder.put(parser.type(), parser);
         }
         this.parsers = builder.immutableMap();
+        MapBuilder<String, PipelineAggregator.Parser> pipelineBuilder = MapBuilder.newMapBuilder();
+        for (PipelineAggregator.Parser parser : pipelineParsers) {
+            pipelineBuilder.put(parser.type(), parser);
+        }
+        this.pipelineParsers = pipelineBuilder.immutableMap();
     }
 
     /**
@@ -64,6 +72,16 @@ public class AggregatorParsers {
         return parsers.get(type);
     }
 
+    /**
+     * Returns the parser that is registered under the given pipeline aggregation type.
+     *
+     * @param type  The pipeline aggregation type
+     * @return      The parser associated with the given pipeline aggregation type.
+     */
+    public PipelineAggregator.Parser pipelineParser(String type) {
+        return pipelineParsers.get(type);
+    }
+
     /**
      * Parses the aggregation request recursively generating aggregator factories in turn.
      *
@@ -99,6 +117,7 @@ public class AggregatorParsers {
             }
 
             AggregatorFactory factory = null;
+            PipelineAggregator pipelineAggregator = null;
             AggregatorFactories subFactories = null;
 
             Map<String, Object> metaData = null;
@@ -129,14 +148,33 @@ public class AggregatorParsers {
                         if (factory != null) {
                             throw new SearchParseException(context, "Found two aggregation type definitions in [" + aggregationName + "]: [" + factory.type + "] and [" + fieldName + "]");
                         }
+                        if (pipelineAggregator != null) {
+                            throw new SearchParseException(context, "Found two aggregation type definitions in [" + aggregationName + "]: [" + pipelineAggregator.type().name() + "] and [" + fieldName + "]");
+                        }
                         Aggregator.Parser aggregatorParser = parser(fieldName);
-                        if (aggregatorParser == null) {
+                        if (aggregatorParser != null) {
+                            factory = aggregatorParser.parse(aggregationName, parser, context);
+                            break;
+                        }
+                        PipelineAggregator.Parser pipelineAggregatorParser = pipelineParser(fieldName);
+                        if (pipelineAggregatorParser == null) {
                             throw new SearchParseException(context, "Could not find aggregator type [" + fieldName + "] in [" + aggregationName + "]");
                         }
-                        factory = aggregatorParser.parse(aggregationName, parser, context);
+                        pipelineAggregator = pipelineAggregatorParser.parse(aggregationName, parser, context);
                 }
             }
 
+            if (pipelineAggregator != null) {
+                if (subFactories != null) {
+                    throw new SearchParseException(context, "Aggregation [" + aggregationName + "] cannot define sub-aggregations: [" + pipelineAggregator.type().name() + "] is a pipeline aggregation");
+                }
+                if (metaData != null) {
+                    pipelineAggregator.setMetaData(metaData);
+                }
+                factories.addPipelineAggregator(pipelineAggregator);
+                continue;
+            }
+
             if (factory == null) {
                 throw new SearchParseException(context, "Missing definition for aggregation [" + aggregationName + "]");
             }
@@ -149,14 +187,14 @@ public class AggregatorParsers {
                 factory.subFactories(subFactories);
             }
 
-            if (level == 0) {
-                factory.validate();
-            }
-
             factories.add(factory);
         }
 
-        return factories.build();
+        AggregatorFactories aggregatorFactories = factories.build();
+        if (level == 0) {
+            aggregatorFactories.validate();
+        }
+        return aggregatorFactories;
     }
 
 }
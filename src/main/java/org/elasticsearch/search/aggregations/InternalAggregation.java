@@ -92,11 +92,17 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
         private final List<InternalAggregation> aggregations;
         private final BigArrays bigArrays;
         private ScriptService scriptService;
+        private final boolean finalReduce;
 
         public ReduceContext(List<InternalAggregation> aggregations, BigArrays bigArrays, ScriptService scriptService) {
+            this(aggregations, bigArrays, scriptService, true);
+        }
+
+        public ReduceContext(List<InternalAggregation> aggregations, BigArrays bigArrays, ScriptService scriptService, boolean finalReduce) {
             this.aggregations = aggregations;
             this.bigArrays = bigArrays;
             this.scriptService = scriptService;
+            this.finalReduce = finalReduce;
         }
 
         public List<InternalAggregation> aggregations() {
@@ -110,6 +116,14 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
         public ScriptService scriptService() {
             return scriptService;
         }
+
+        /**
+         * Returns <code>true</code> if this is the last reduce of the aggregations. A partial reduce (<code>false</code>) may be
+         * reduced again with other shard results, so it must not prune or finalize anything that a later reduce still needs.
+         */
+        public boolean isFinalReduce() {
+            return finalReduce;
+        }
     }
 
 
@@ -26,6 +26,7 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -34,6 +35,8 @@ import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorStreams;
+import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
 
 import java.io.IOException;
@@ -62,6 +65,8 @@ public class InternalAggregations implements Aggregations, ToXContent, Streamabl
 
     private Map<String, InternalAggregation> aggregationsAsMap;
 
+    private List<SiblingPipelineAggregator> pipelineAggregators = ImmutableList.of();
+
     private InternalAggregations() {
     }
 
@@ -72,6 +77,31 @@ public class InternalAggregations implements Aggregations, ToXContent, Streamabl
         this.aggregations = aggregations;
     }
 
+    /**
+     * Constructs a new addAggregation along with the sibling pipeline aggregators to apply to them once they are reduced.
+     */
+    public InternalAggregations(List<InternalAggregation> aggregations, List<SiblingPipelineAggregator> pipelineAggregators) {
+        this.aggregations = aggregations;
+        this.pipelineAggregators = pipelineAggregators;
+    }
+
+    /**
+     * @return The sibling pipeline aggregators that still need to be applied to these aggregations.
+     */
+    public List<SiblingPipelineAggregator> pipelineAggregators() {
+        return pipelineAggregators;
+    }
+
+    /**
+     * Returns a copy of these aggregations with the given aggregation appended, used to add the output of pipeline aggregators.
+     */
+    public InternalAggregations append(InternalAggregation aggregation) {
+        List<InternalAggregation> aggregations = new ArrayList<>(this.aggregations.size() + 1);
+        aggregations.addAll(this.aggregations);
+        aggregations.add(aggregation);
+        return new InternalAggregations(aggregations, pipelineAggregators);
+    }
+
     /**
      * Iterates over the {@link Aggregation}s.
      */
@@ -165,7 +195,19 @@ public class InternalAggregations implements Aggregations, ToXContent, Streamabl
         for (Map.Entry<String, List<InternalAggregation>> entry : aggByName.entrySet()) {
             List<InternalAggregation> aggregations = entry.getValue();
             InternalAggregation first = aggregations.get(0); // the list can't be empty as it's created on demand
-            reducedAggregations.add(first.reduce(new InternalAggregation.ReduceContext(aggregations, context.bigArrays(), context.scriptService())));
+            reducedAggregations.add(first.reduce(new InternalAggregation.ReduceContext(aggregations, context.bigArrays(), context.scriptService(),
+                    context.isFinalReduce())));
+        }
+
+        // the sibling pipeline aggregators can only be applied once the aggregations they refer to are reduced, a pipeline
+        // aggregator may refer to the output of the ones defined before it
+        List<SiblingPipelineAggregator> pipelineAggregators = aggregationsList.get(0).pipelineAggregators;
+        if (context.isFinalReduce() == false) {
+            // a partial reduce keeps the pipeline aggregators around so that the final reduce can apply them
+            return new InternalAggregations(reducedAggregations, pipelineAggregators);
+        }
+        for (SiblingPipelineAggregator pipelineAggregator : pipelineAggregators) {
+            reducedAggregations.add(pipelineAggregator.doReduce(new InternalAggregations(reducedAggregations), context));
         }
         return new InternalAggregations(reducedAggregations);
     }
@@ -219,6 +261,11 @@ public class InternalAggregations implements Aggregations, ToXContent, Streamabl
                 aggregations.add(aggregation);
             }
         }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            pipelineAggregators = PipelineAggregatorStreams.readPipelineAggregators(in);
+        } else {
+            pipelineAggregators = ImmutableList.of();
+        }
     }
 
     @Override
@@ -229,6 +276,9 @@ public class InternalAggregations implements Aggregations, ToXContent, Streamabl
             out.writeBytesReference(internal.type().stream());
             internal.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            PipelineAggregatorStreams.writePipelineAggregators(pipelineAggregators, out);
+        }
     }
 
 }
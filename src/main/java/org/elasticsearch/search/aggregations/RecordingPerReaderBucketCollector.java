@@ -23,6 +23,7 @@ import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.util.packed.PackedInts;
 import org.apache.lucene.util.packed.PackedLongValues;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 
 import java.io.IOException;
@@ -33,17 +34,33 @@ import java.util.List;
  * Records a "collect" stream for subsequent play-back using a per-segment
  * object to collect matches. Playback is fast because each collection
  * contains only the required matches for the current reader.
+ * <p/>
+ * Doc ids are delta-encoded and both doc ids and bucket ordinals are stored in
+ * packed form. The memory used by the recordings is accounted to the request
+ * circuit breaker while collecting, so that a large breadth first collection
+ * trips the breaker instead of running the node out of memory.
  */
 public class RecordingPerReaderBucketCollector extends RecordingBucketCollector  {
 
+    /** How many collected docs to wait for before the recordings are re-accounted to the breaker. */
+    static final int ACCOUNTING_INTERVAL = 4096;
+
     final List<PerSegmentCollects> perSegmentCollections = new ArrayList<>();
+    private final BigArrays bigArrays;
     private PerSegmentCollects currentCollection;
     private boolean recordingComplete;
+    // bytes used by the stowed collections, and bytes currently reported to the breaker
+    private long stowedBytes;
+    private long accountedBytes;
+    private int docsSinceAccounting;
     
     static class PerSegmentCollects {
         LeafReaderContext readerContext;
         PackedLongValues.Builder docs;
         PackedLongValues.Builder buckets;
+        // the compact form of the builders above, once the collection of the segment ended
+        PackedLongValues docValues;
+        PackedLongValues bucketValues;
         int lastDocId = 0;
 
         PerSegmentCollects(LeafReaderContext readerContext) {
@@ -74,11 +91,37 @@ public class RecordingPerReaderBucketCollector extends RecordingBucketCollector
                 buckets.add(owningBucketOrdinal);
             }
         }
+
         void endCollect() {
+            if (docs != null) {
+                docValues = docs.build();
+                docs = null;
+            }
+            if (buckets != null) {
+                bucketValues = buckets.build();
+                buckets = null;
+            }
         }
 
         boolean hasItems() {
-            return docs != null;
+            return docs != null || docValues != null;
+        }
+
+        long ramBytesUsed() {
+            long bytes = 0;
+            if (docs != null) {
+                bytes += docs.ramBytesUsed();
+            }
+            if (buckets != null) {
+                bytes += buckets.ramBytesUsed();
+            }
+            if (docValues != null) {
+                bytes += docValues.ramBytesUsed();
+            }
+            if (bucketValues != null) {
+                bytes += bucketValues.ramBytesUsed();
+            }
+            return bytes;
         }
 
         void replay(BucketCollector collector) throws IOException {
@@ -87,16 +130,17 @@ public class RecordingPerReaderBucketCollector extends RecordingBucketCollector
             if (!hasItems()) {
                 return;
             }
-            if (buckets == null) {
-                final PackedLongValues.Iterator docsIter = docs.build().iterator();
+            assert docs == null && buckets == null : "replaying a collection that did not end";
+            if (bucketValues == null) {
+                final PackedLongValues.Iterator docsIter = docValues.iterator();
                 while (docsIter.hasNext()) {
                     lastDocId += (int) docsIter.next();
                     collector.collect(lastDocId, 0);
                 }
             } else {
-                assert docs.size() == buckets.size();
-                final PackedLongValues.Iterator docsIter = docs.build().iterator();
-                final PackedLongValues.Iterator bucketsIter = buckets.build().iterator();
+                assert docValues.size() == bucketValues.size();
+                final PackedLongValues.Iterator docsIter = docValues.iterator();
+                final PackedLongValues.Iterator bucketsIter = bucketValues.iterator();
                 while (docsIter.hasNext()) {
                     lastDocId += (int) docsIter.next();
                     collector.collect(lastDocId, bucketsIter.next());
@@ -108,6 +152,7 @@ public class RecordingPerReaderBucketCollector extends RecordingBucketCollector
     public RecordingPerReaderBucketCollector(AggregationContext context) {
         // Call this method to achieve better compression in the recorded arrays of matches
         context.ensureScoreDocsInOrder();        
+        this.bigArrays = context.bigArrays();
     }
 
     @Override
@@ -127,14 +172,39 @@ public class RecordingPerReaderBucketCollector extends RecordingBucketCollector
             if (currentCollection.hasItems()) {
                 currentCollection.endCollect();
                 perSegmentCollections.add(currentCollection);
+                stowedBytes += currentCollection.ramBytesUsed();
             }
             currentCollection = null;
+            accountRamBytesUsed();
         }
     }
 
+    /**
+     * Reports the difference between the memory used by the recordings and what was reported so far to the
+     * request circuit breaker, which may trip it.
+     */
+    private void accountRamBytesUsed() {
+        docsSinceAccounting = 0;
+        final long bytesUsed = stowedBytes + (currentCollection == null ? 0 : currentCollection.ramBytesUsed());
+        final long delta = bytesUsed - accountedBytes;
+        // the breaker keeps the estimate even if it trips, so it needs to be released on close either way
+        accountedBytes = bytesUsed;
+        bigArrays.adjustBreaker(delta);
+    }
+
+    /**
+     * @return the number of bytes the recorded doc ids and bucket ordinals currently take
+     */
+    public long ramBytesUsed() {
+        return stowedBytes + (currentCollection == null ? 0 : currentCollection.ramBytesUsed());
+    }
+
     @Override
     public void collect(int doc, long owningBucketOrdinal) throws IOException {
         currentCollection.collect(doc, owningBucketOrdinal);
+        if (++docsSinceAccounting == ACCOUNTING_INTERVAL) {
+            accountRamBytesUsed();
+        }
     }
 
     /*
@@ -157,5 +227,11 @@ public class RecordingPerReaderBucketCollector extends RecordingBucketCollector
 
     @Override
     public void close() throws ElasticsearchException {
+        perSegmentCollections.clear();
+        currentCollection = null;
+        stowedBytes = 0;
+        final long released = accountedBytes;
+        accountedBytes = 0;
+        bigArrays.adjustBreaker(-released);
     }    
 }
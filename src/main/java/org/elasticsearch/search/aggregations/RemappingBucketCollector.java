@@ -0,0 +1,69 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.lease.Releasable;
+
+import java.io.IOException;
+
+/**
+ * Replays a collection stream of docIds to a delegate collector in buckets that are picked by
+ * the implementation, whatever the buckets the docs were recorded with. This is for aggregators
+ * that only know the final bucket of a doc once collection is over and the buckets were pruned.
+ */
+public abstract class RemappingBucketCollector extends BucketCollector implements Releasable {
+
+    private BucketCollector delegate;
+
+    /**
+     * Sets the collector docs are replayed to, called before the replay starts.
+     */
+    public final void setDelegate(BucketCollector delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return the collector docs must be replayed to
+     */
+    protected final BucketCollector delegate() {
+        return delegate;
+    }
+
+    @Override
+    public void setNextReader(LeafReaderContext reader) {
+        delegate.setNextReader(reader);
+    }
+
+    @Override
+    public final void postCollection() throws IOException {
+        delegate.postCollection();
+    }
+
+    @Override
+    public void gatherAnalysis(BucketAnalysisCollector analysisCollector, long bucketOrdinal) {
+        delegate.gatherAnalysis(analysisCollector, bucketOrdinal);
+    }
+
+    @Override
+    public void close() throws ElasticsearchException {
+    }
+}
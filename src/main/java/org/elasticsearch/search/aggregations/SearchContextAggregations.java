@@ -18,8 +18,13 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.search.aggregations.AggregationPhase.AggregationsCollector;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * The aggregation context that is part of the search context.
  */
@@ -28,6 +33,8 @@ public class SearchContextAggregations {
     private final AggregatorFactories factories;
     private Aggregator[] aggregators;
     private AggregationContext aggregationContext;
+    private AggregationsCollector collector;
+    private List<Aggregator[]> sliceAggregators = Collections.emptyList();
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -61,4 +68,30 @@ public class SearchContextAggregations {
         this.aggregators = aggregators;
     }
 
+    /**
+     * The collector of the top level aggregators that collect the documents matching the query, <tt>null</tt> if there is none.
+     */
+    public AggregationsCollector collector() {
+        return collector;
+    }
+
+    public void collector(AggregationsCollector collector) {
+        this.collector = collector;
+    }
+
+    /**
+     * The top level aggregators of the slices of segments searched concurrently, but the first one which uses
+     * {@link #aggregators()}.
+     */
+    public List<Aggregator[]> sliceAggregators() {
+        return sliceAggregators;
+    }
+
+    public void addSliceAggregators(Aggregator[] aggregators) {
+        if (sliceAggregators.isEmpty()) {
+            sliceAggregators = new ArrayList<>();
+        }
+        sliceAggregators.add(aggregators);
+    }
+
 }
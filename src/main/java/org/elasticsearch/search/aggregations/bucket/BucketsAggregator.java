@@ -34,11 +34,71 @@ import java.util.Map;
 public abstract class BucketsAggregator extends Aggregator {
 
     private IntArray docCounts;
+    private SubAggCollectionMode collectMode;
 
     public BucketsAggregator(String name, BucketAggregationMode bucketAggregationMode, AggregatorFactories factories,
                              long estimatedBucketsCount, AggregationContext context, Aggregator parent, Map<String, Object> metaData) {
+        this(name, bucketAggregationMode, factories, estimatedBucketsCount, context, parent, SubAggCollectionMode.DEPTH_FIRST, metaData);
+    }
+
+    public BucketsAggregator(String name, BucketAggregationMode bucketAggregationMode, AggregatorFactories factories,
+                             long estimatedBucketsCount, AggregationContext context, Aggregator parent,
+                             SubAggCollectionMode collectMode, Map<String, Object> metaData) {
         super(name, bucketAggregationMode, factories, estimatedBucketsCount, context, parent, metaData);
         docCounts = bigArrays.newIntArray(estimatedBucketsCount, true);
+        this.collectMode = collectMode == null ? SubAggCollectionMode.DEPTH_FIRST : collectMode;
+    }
+
+    /**
+     * @return the mode sub aggregations are collected with, {@link SubAggCollectionMode#AUTO} is resolved before collection starts
+     */
+    public SubAggCollectionMode collectMode() {
+        return collectMode;
+    }
+
+    @Override
+    protected void preCollection() {
+        if (collectMode == SubAggCollectionMode.AUTO) {
+            collectMode = resolveAutoCollectMode();
+        }
+        super.preCollection();
+    }
+
+    /**
+     * Picks the mode to collect sub aggregations with when {@link SubAggCollectionMode#AUTO} was requested. Deferring
+     * sub aggregations only pays off if buckets are pruned before they are built, so breadth first is picked when this
+     * aggregator keeps at most {@link #maxBucketsToKeep()} buckets and expects more buckets than that, or can't tell.
+     * Scores are not recorded with the deferred docs, so depth first is kept as soon as an aggregation reads them.
+     */
+    protected SubAggCollectionMode resolveAutoCollectMode() {
+        final long maxBucketsToKeep = maxBucketsToKeep();
+        if (maxBucketsToKeep < 0 || context.needsScores()) {
+            return SubAggCollectionMode.DEPTH_FIRST;
+        }
+        final long estimatedCardinality = estimatedCardinality();
+        if (estimatedCardinality < 0 || estimatedCardinality > maxBucketsToKeep) {
+            return SubAggCollectionMode.BREADTH_FIRST;
+        }
+        return SubAggCollectionMode.DEPTH_FIRST;
+    }
+
+    /**
+     * @return the maximum number of buckets this aggregator keeps on a shard, or -1 if it doesn't prune buckets
+     */
+    protected long maxBucketsToKeep() {
+        return -1;
+    }
+
+    /**
+     * @return an estimation of the number of buckets this aggregator will create, or -1 if unknown
+     */
+    protected long estimatedCardinality() {
+        return -1;
+    }
+
+    @Override
+    protected boolean shouldDefer(Aggregator aggregator) {
+        return collectMode == SubAggCollectionMode.BREADTH_FIRST;
     }
 
     /**
@@ -102,6 +162,10 @@ public abstract class BucketsAggregator extends Aggregator {
      * Required method to build the child aggregations of the given bucket (identified by the bucket ordinal).
      */
     protected final InternalAggregations bucketAggregations(long bucketOrd) {
+        if (hasPendingDeferredCollections()) {
+            // the aggregator did not select the buckets to replay, all the buckets that collected docs need their sub aggregations
+            runDeferredCollections(nonEmptyBucketOrds());
+        }
         final ArrayList<InternalAggregation> childAggs = new ArrayList<>();
         final long bucketDocCount = bucketDocCount(bucketOrd);
         if (bucketDocCount == 0L) {
@@ -131,12 +195,29 @@ public abstract class BucketsAggregator extends Aggregator {
             }
         }
 
-        return new InternalAggregations(childAggs);
+        return new InternalAggregations(childAggs, factories.siblingPipelineAggregators());
         
     }
     
     
 
+    private long[] nonEmptyBucketOrds() {
+        int count = 0;
+        for (long i = 0; i < docCounts.size(); i++) {
+            if (docCounts.get(i) > 0) {
+                count++;
+            }
+        }
+        final long[] bucketOrds = new long[count];
+        int upto = 0;
+        for (long i = 0; i < docCounts.size(); i++) {
+            if (docCounts.get(i) > 0) {
+                bucketOrds[upto++] = i;
+            }
+        }
+        return bucketOrds;
+    }
+
     /**
      * Utility method to build empty aggregations of the sub aggregators.
      */
@@ -145,7 +226,7 @@ public abstract class BucketsAggregator extends Aggregator {
         for (int i = 0; i < subAggregators.length; i++) {
             aggregations[i] = subAggregators[i].buildEmptyAggregation();
         }
-        return new InternalAggregations(Arrays.asList(aggregations));
+        return new InternalAggregations(Arrays.asList(aggregations), factories.siblingPipelineAggregators());
     }
 
     @Override
@@ -27,6 +27,7 @@ import org.elasticsearch.search.aggregations.BucketCollector;
 import org.elasticsearch.search.aggregations.FilteringBucketCollector;
 import org.elasticsearch.search.aggregations.RecordingBucketCollector;
 import org.elasticsearch.search.aggregations.RecordingPerReaderBucketCollector;
+import org.elasticsearch.search.aggregations.RemappingBucketCollector;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.query.QueryPhaseExecutionException;
 
@@ -46,7 +47,7 @@ public class DeferringBucketCollector extends BucketCollector implements Releasa
     private final BucketCollector deferred;
     private final RecordingBucketCollector recording;
     private final AggregationContext context;
-    private FilteringBucketCollector filteredCollector;
+    private BucketCollector filteredCollector;
 
 
     public DeferringBucketCollector (BucketCollector deferred, AggregationContext context) {
@@ -79,8 +80,25 @@ public class DeferringBucketCollector extends BucketCollector implements Releasa
      *            attempted
      */
     public void prepareSelectedBuckets(long... survivingBucketOrds) {
-        
-        BucketCollector subs = new BucketCollector() {
+        filteredCollector = new FilteringBucketCollector(survivingBucketOrds, replayCollector(), context.bigArrays());
+        replay();
+    }
+
+    /**
+     * Plays all the data cached from previous collect calls to the deferred
+     * collector, in the buckets picked by the given remapper.
+     *
+     * @param remapper
+     *            chooses the buckets each doc is replayed to
+     */
+    public void prepareRemappedBuckets(RemappingBucketCollector remapper) {
+        remapper.setDelegate(replayCollector());
+        filteredCollector = remapper;
+        replay();
+    }
+
+    private BucketCollector replayCollector() {
+        return new BucketCollector() {
             @Override
             public void setNextReader(LeafReaderContext reader) {
                 // Need to set AggregationContext otherwise ValueSources in aggs
@@ -104,8 +122,9 @@ public class DeferringBucketCollector extends BucketCollector implements Releasa
                 deferred.gatherAnalysis(results, bucketOrdinal);
             }
         };
+    }
 
-        filteredCollector = new FilteringBucketCollector(survivingBucketOrds, subs, context.bigArrays());
+    private void replay() {
         try {
             recording.replayCollection(filteredCollector);
         } catch (IOException e) {
@@ -117,7 +136,7 @@ public class DeferringBucketCollector extends BucketCollector implements Releasa
 
     @Override
     public void close() throws ElasticsearchException {
-        Releasables.close(recording, filteredCollector);
+        Releasables.close(recording, (Releasable) filteredCollector);
     }
 
     @Override
@@ -0,0 +1,61 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@code composite} aggregation. Defines multiple buckets, each representing a unique combination of the values
+ * of its sources. The buckets are sorted by their composite key and can be paged through with the key of the last
+ * bucket of a page, see {@link #afterKey()}.
+ */
+public interface CompositeAggregation extends MultiBucketsAggregation {
+
+    /**
+     * A bucket that is associated with a combination of values, one per source of the aggregation.
+     */
+    public static interface Bucket extends MultiBucketsAggregation.Bucket {
+
+        /**
+         * @return  The values of the key of the bucket by source name, terms are returned as strings
+         */
+        Map<String, Object> getKeyAsMap();
+
+    }
+
+    @Override
+    List<Bucket> getBuckets();
+
+    /**
+     * @return  The bucket whose key renders to the given string, see {@link Bucket#getKey()}
+     */
+    @Override
+    Bucket getBucketByKey(String key);
+
+    /**
+     * @return  The key of the last bucket, to be used as the {@code after} key of the next page, or <tt>null</tt> if
+     *          there are no buckets
+     */
+    Map<String, Object> afterKey();
+
+}
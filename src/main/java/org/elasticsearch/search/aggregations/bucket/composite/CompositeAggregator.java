@@ -0,0 +1,493 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.AggregationInitializationException;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.NonCollectingAggregator;
+import org.elasticsearch.search.aggregations.RemappingBucketCollector;
+import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the {@code size} smallest composite keys that follow the {@code after} key. The value of a source in a
+ * composite key is encoded as a long (see {@link CompositeValuesSource}), each competitive key is held in a slot, and
+ * a max-heap of the slots gives the greatest competitive key, which is evicted when a smaller key comes in. Keys are
+ * mapped to their slot through a {@link LongHash} when the global ordinals of all sources can be packed in a single
+ * long, and through a {@link BytesRefHash} of the encoded values otherwise.
+ * <p/>
+ * The bucket of a doc may be evicted after the doc was collected, so sub aggregations are always deferred: once the
+ * final buckets are known, the recorded docs are replayed in the slots of their keys that survived.
+ */
+public class CompositeAggregator extends BucketsAggregator {
+
+    private final CompositeValuesSource[] sources;
+    private final String[] sourceNames;
+    private final int size;
+    private final Map<String, Object> afterKeyValues;
+
+    // the keys of the slots, one array per source
+    private final LongArray[] slotKeys;
+    private final SlotQueue queue;
+    private int numSlots;
+
+    // the keys in the hash are the slot keys and the keys that were evicted from a slot
+    private final int[] shifts;
+    private LongHash packedKeys;
+    private BytesRefHash encodedKeys;
+    private final BytesRef encodedKey;
+    private LongArray idToSlot;
+    private long numEvictedKeys;
+
+    private final int[] numValues;
+    private final long[] currentKey;
+    private final long[] scratchKey;
+    private long[] afterKey;
+    private boolean[] afterKeyExact;
+    private boolean afterKeyResolved;
+
+    public CompositeAggregator(String name, AggregatorFactories factories, CompositeValuesSource[] sources, int size,
+                               Map<String, Object> afterKeyValues, AggregationContext aggregationContext, Aggregator parent,
+                               Map<String, Object> metaData) {
+        super(name, BucketAggregationMode.MULTI_BUCKETS, factories, size, aggregationContext, parent, SubAggCollectionMode.BREADTH_FIRST, metaData);
+        this.sources = sources;
+        this.size = size;
+        this.afterKeyValues = afterKeyValues;
+        this.sourceNames = new String[sources.length];
+        this.slotKeys = new LongArray[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            sourceNames[i] = sources[i].name();
+            slotKeys[i] = bigArrays.newLongArray(size, false);
+        }
+        this.queue = new SlotQueue(size);
+        this.numValues = new int[sources.length];
+        this.currentKey = new long[sources.length];
+        this.scratchKey = new long[sources.length];
+
+        int totalBits = 0;
+        this.shifts = new int[sources.length];
+        for (int i = sources.length - 1; i >= 0; i--) {
+            shifts[i] = totalBits;
+            totalBits += sources[i].bitsRequired();
+        }
+        if (totalBits <= 63) {
+            packedKeys = new LongHash(size, bigArrays);
+            encodedKey = null;
+        } else {
+            encodedKeys = new BytesRefHash(size, bigArrays);
+            encodedKey = new BytesRef(new byte[8 * sources.length]);
+        }
+        idToSlot = bigArrays.newLongArray(size, false);
+    }
+
+    @Override
+    public boolean shouldCollect() {
+        return true;
+    }
+
+    @Override
+    protected long maxBucketsToKeep() {
+        return size;
+    }
+
+    @Override
+    public void setNextReader(LeafReaderContext reader) {
+        for (CompositeValuesSource source : sources) {
+            source.setNextReader(reader);
+        }
+        if (afterKeyResolved == false) {
+            // global ordinals are the same for all segments, the after key only needs to be resolved once
+            afterKeyResolved = true;
+            resolveAfterKey();
+        }
+    }
+
+    private void resolveAfterKey() {
+        if (afterKeyValues == null) {
+            return;
+        }
+        afterKey = new long[sources.length];
+        afterKeyExact = new boolean[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            afterKeyExact[i] = sources[i].resolveAfter(afterKeyValues.get(sourceNames[i]), afterKey, i);
+        }
+    }
+
+    @Override
+    public void collect(int doc, long owningBucketOrdinal) throws IOException {
+        assert owningBucketOrdinal == 0;
+        if (setDocument(doc) && collectKeys(0)) {
+            collectBucketNoCounts(doc, 0);
+        }
+    }
+
+    private boolean setDocument(int doc) {
+        for (int i = 0; i < sources.length; i++) {
+            numValues[i] = sources[i].setDocument(doc);
+            if (numValues[i] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Visits the keys of all the combinations of values of the current doc, from the given source on.
+     *
+     * @return  <tt>true</tt> if one of the keys is competitive
+     */
+    private boolean collectKeys(int sourceIndex) throws IOException {
+        boolean collected = false;
+        for (int i = 0; i < numValues[sourceIndex]; i++) {
+            final long value = sources[sourceIndex].valueAt(i);
+            if (i > 0 && value == currentKey[sourceIndex]) {
+                continue;
+            }
+            currentKey[sourceIndex] = value;
+            if (sourceIndex + 1 < sources.length) {
+                collected |= collectKeys(sourceIndex + 1);
+            } else {
+                collected |= collectCurrentKey();
+            }
+        }
+        return collected;
+    }
+
+    private boolean collectCurrentKey() throws IOException {
+        if (afterKey != null && compareToAfterKey(currentKey) <= 0) {
+            return false;
+        }
+        final long existingId = findKey(currentKey);
+        if (existingId >= 0 && idToSlot.get(existingId) >= 0) {
+            incrementBucketDocCount(idToSlot.get(existingId), 1);
+            return true;
+        }
+
+        final int slot;
+        if (numSlots < size) {
+            slot = numSlots++;
+            copyToSlot(currentKey, slot);
+            queue.add(slot);
+        } else {
+            slot = queue.top();
+            if (compareToSlot(currentKey, slot) >= 0) {
+                return false;
+            }
+            // the greatest key is not competitive anymore and leaves its slot to the current key
+            copyFromSlot(slot, scratchKey);
+            idToSlot.set(findKey(scratchKey), -1);
+            numEvictedKeys++;
+            copyToSlot(currentKey, slot);
+            getDocCounts().set(slot, 0);
+            queue.updateTop();
+        }
+
+        long id = addKey(currentKey);
+        if (id < 0) {
+            id = -1 - id;
+            numEvictedKeys--;
+        }
+        idToSlot = bigArrays.grow(idToSlot, id + 1);
+        idToSlot.set(id, slot);
+        incrementBucketDocCount(slot, 1);
+        if (numEvictedKeys > size) {
+            rebuildHash();
+        }
+        return true;
+    }
+
+    /**
+     * Drops the evicted keys from the hash, so that its size is bounded by a multiple of {@code size}.
+     */
+    private void rebuildHash() {
+        final LongHash oldPackedKeys = packedKeys;
+        final BytesRefHash oldEncodedKeys = encodedKeys;
+        final LongArray oldIdToSlot = idToSlot;
+        if (oldPackedKeys != null) {
+            packedKeys = new LongHash(numSlots, bigArrays);
+        } else {
+            encodedKeys = new BytesRefHash(numSlots, bigArrays);
+        }
+        idToSlot = bigArrays.newLongArray(numSlots, false);
+        Releasables.close(oldPackedKeys, oldEncodedKeys, oldIdToSlot);
+        for (int slot = 0; slot < numSlots; slot++) {
+            copyFromSlot(slot, scratchKey);
+            final long id = addKey(scratchKey);
+            idToSlot.set(id, slot);
+        }
+        numEvictedKeys = 0;
+    }
+
+    private long findKey(long[] key) {
+        if (packedKeys != null) {
+            return packedKeys.find(pack(key));
+        }
+        return encodedKeys.find(encode(key));
+    }
+
+    private long addKey(long[] key) {
+        if (packedKeys != null) {
+            return packedKeys.add(pack(key));
+        }
+        return encodedKeys.add(encode(key));
+    }
+
+    private long pack(long[] key) {
+        long packed = 0;
+        for (int i = 0; i < key.length; i++) {
+            packed |= key[i] << shifts[i];
+        }
+        return packed;
+    }
+
+    private BytesRef encode(long[] key) {
+        final byte[] bytes = encodedKey.bytes;
+        int upto = 0;
+        for (long value : key) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[upto++] = (byte) (value >>> shift);
+            }
+        }
+        return encodedKey;
+    }
+
+    private void copyToSlot(long[] key, int slot) {
+        for (int i = 0; i < key.length; i++) {
+            slotKeys[i].set(slot, key[i]);
+        }
+    }
+
+    private void copyFromSlot(int slot, long[] key) {
+        for (int i = 0; i < key.length; i++) {
+            key[i] = slotKeys[i].get(slot);
+        }
+    }
+
+    private int compareToSlot(long[] key, int slot) {
+        for (int i = 0; i < key.length; i++) {
+            int cmp = Long.compare(key[i], slotKeys[i].get(slot));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private int compareSlots(int slot1, int slot2) {
+        for (int i = 0; i < slotKeys.length; i++) {
+            int cmp = Long.compare(slotKeys[i].get(slot1), slotKeys[i].get(slot2));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private int compareToAfterKey(long[] key) {
+        for (int i = 0; i < key.length; i++) {
+            int cmp = Long.compare(key[i], afterKey[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+            if (afterKeyExact[i] == false) {
+                // the value of the after key falls between this value and the next one
+                return -1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public InternalAggregation buildAggregation(long owningBucketOrdinal) {
+        assert owningBucketOrdinal == 0;
+        final Integer[] slots = new Integer[numSlots];
+        for (int i = 0; i < numSlots; i++) {
+            slots[i] = i;
+        }
+        Arrays.sort(slots, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer slot1, Integer slot2) {
+                return compareSlots(slot1, slot2);
+            }
+        });
+
+        runDeferredCollections(new SlotRemapper());
+
+        final List<InternalComposite.Bucket> buckets = new ArrayList<>(numSlots);
+        for (int slot : slots) {
+            final Object[] key = new Object[sources.length];
+            for (int i = 0; i < sources.length; i++) {
+                key[i] = sources[i].toValue(slotKeys[i].get(slot));
+            }
+            buckets.add(new InternalComposite.Bucket(sourceNames, key, bucketDocCount(slot), bucketAggregations(slot)));
+        }
+        return new InternalComposite(name, size, sourceNames, buckets, getMetaData());
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalComposite(name, size, sourceNames, Collections.<InternalComposite.Bucket>emptyList(), getMetaData());
+    }
+
+    @Override
+    protected void doClose() {
+        Releasables.close(slotKeys);
+        Releasables.close(packedKeys, encodedKeys, idToSlot);
+    }
+
+    /**
+     * Replays the recorded docs in the slots of their keys that survived the collection.
+     */
+    private class SlotRemapper extends RemappingBucketCollector {
+
+        private int doc;
+
+        @Override
+        public void setNextReader(LeafReaderContext reader) {
+            // moves the values sources to the segment first
+            super.setNextReader(reader);
+            for (CompositeValuesSource source : sources) {
+                source.setNextReader(reader);
+            }
+        }
+
+        @Override
+        public void collect(int doc, long bucketOrdinal) throws IOException {
+            if (setDocument(doc)) {
+                this.doc = doc;
+                replayKeys(0);
+            }
+        }
+
+        private void replayKeys(int sourceIndex) throws IOException {
+            for (int i = 0; i < numValues[sourceIndex]; i++) {
+                final long value = sources[sourceIndex].valueAt(i);
+                if (i > 0 && value == currentKey[sourceIndex]) {
+                    continue;
+                }
+                currentKey[sourceIndex] = value;
+                if (sourceIndex + 1 < sources.length) {
+                    replayKeys(sourceIndex + 1);
+                } else {
+                    final long id = findKey(currentKey);
+                    if (id >= 0 && idToSlot.get(id) >= 0) {
+                        delegate().collect(doc, idToSlot.get(id));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A max-heap of slots, the top is the slot of the greatest key.
+     */
+    private class SlotQueue extends PriorityQueue<Integer> {
+
+        SlotQueue(int size) {
+            super(size);
+        }
+
+        @Override
+        protected boolean lessThan(Integer slot1, Integer slot2) {
+            return compareSlots(slot1, slot2) > 0;
+        }
+    }
+
+    public static class Factory extends AggregatorFactory {
+
+        private final List<ValuesSourceConfig<ValuesSource>> configs;
+        private final String[] sourceNames;
+        private final int size;
+        private final Map<String, Object> afterKey;
+
+        public Factory(String name, String[] sourceNames, List<ValuesSourceConfig<ValuesSource>> configs, int size, Map<String, Object> afterKey) {
+            super(name, InternalComposite.TYPE.name());
+            this.sourceNames = sourceNames;
+            this.configs = configs;
+            this.size = size;
+            this.afterKey = afterKey;
+        }
+
+        @Override
+        public void doValidate() {
+            if (parent != null) {
+                throw new AggregationInitializationException("Aggregator [" + name + "] of type [" + type + "] cannot be nested under another aggregation");
+            }
+        }
+
+        @Override
+        protected Aggregator createInternal(AggregationContext context, Aggregator parent, long expectedBucketsCount, Map<String, Object> metaData) {
+            for (ValuesSourceConfig<ValuesSource> config : configs) {
+                if (config.unmapped()) {
+                    // a doc needs a value for every source to have a key
+                    final InternalAggregation aggregation = new InternalComposite(name, size, sourceNames,
+                            Collections.<InternalComposite.Bucket>emptyList(), metaData);
+                    return new NonCollectingAggregator(name, context, parent, metaData) {
+                        public InternalAggregation buildEmptyAggregation() {
+                            return aggregation;
+                        }
+                    };
+                }
+            }
+            final CompositeValuesSource[] sources = new CompositeValuesSource[configs.size()];
+            for (int i = 0; i < sources.length; i++) {
+                ValuesSource valuesSource = context.valuesSource(configs.get(i), 0);
+                if (valuesSource instanceof ValuesSource.Bytes.WithOrdinals) {
+                    ValuesSource.Bytes.WithOrdinals ordinalsValuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSource;
+                    ordinalsValuesSource.setNeedsGlobalOrdinals(true);
+                    long maxOrd = ordinalsValuesSource.globalMaxOrd(context.searchContext().searcher());
+                    sources[i] = new CompositeValuesSource.GlobalOrdinals(sourceNames[i], ordinalsValuesSource, maxOrd);
+                } else if (valuesSource instanceof ValuesSource.Numeric) {
+                    ValuesSource.Numeric numericValuesSource = (ValuesSource.Numeric) valuesSource;
+                    if (numericValuesSource.isFloatingPoint()) {
+                        sources[i] = new CompositeValuesSource.Doubles(sourceNames[i], numericValuesSource);
+                    } else {
+                        sources[i] = new CompositeValuesSource.Longs(sourceNames[i], numericValuesSource);
+                    }
+                } else {
+                    throw new AggregationExecutionException("source [" + sourceNames[i] + "] of aggregation [" + name
+                            + "] must be a numeric field or a string field with ordinals");
+                }
+            }
+            return new CompositeAggregator(name, factories, sources, size, afterKey, context, parent, metaData);
+        }
+    }
+}
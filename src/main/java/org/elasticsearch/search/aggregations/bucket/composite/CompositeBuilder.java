@@ -0,0 +1,94 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates an aggregation that buckets documents by the combination of the values of several fields, and pages
+ * through the buckets in the order of their composite key.
+ */
+public class CompositeBuilder extends AggregationBuilder<CompositeBuilder> {
+
+    private final List<String> sourceNames = new ArrayList<>();
+    private final List<String> fields = new ArrayList<>();
+    private int size = CompositeParser.DEFAULT_SIZE;
+    private Map<String, Object> after;
+
+    /**
+     * Sole constructor.
+     */
+    public CompositeBuilder(String name) {
+        super(name, InternalComposite.TYPE.name());
+    }
+
+    /**
+     * Adds a source whose value in the composite key is a term of the given field. Sources are compared in the order
+     * they are added.
+     */
+    public CompositeBuilder terms(String sourceName, String field) {
+        sourceNames.add(sourceName);
+        fields.add(field);
+        return this;
+    }
+
+    /**
+     * Set the number of buckets to return.
+     */
+    public CompositeBuilder size(int size) {
+        this.size = size;
+        return this;
+    }
+
+    /**
+     * Set the composite key the returned buckets must follow, usually the {@link CompositeAggregation#afterKey()} of
+     * the previous page.
+     */
+    public CompositeBuilder after(Map<String, Object> after) {
+        this.after = after;
+        return this;
+    }
+
+    @Override
+    protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        if (size != CompositeParser.DEFAULT_SIZE) {
+            builder.field("size", size);
+        }
+        builder.startArray("sources");
+        for (int i = 0; i < sourceNames.size(); i++) {
+            builder.startObject().startObject(sourceNames.get(i)).startObject("terms");
+            builder.field("field", fields.get(i));
+            builder.endObject().endObject().endObject();
+        }
+        builder.endArray();
+        if (after != null) {
+            builder.field("after", after);
+        }
+        return builder.endObject();
+    }
+
+}
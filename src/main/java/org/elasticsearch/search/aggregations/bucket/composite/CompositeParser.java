@@ -0,0 +1,153 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.aggregations.support.ValuesSourceParser;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the {@code composite} aggregation:
+ * <pre>
+ * "composite" : {
+ *     "size" : 10,
+ *     "sources" : [
+ *         { "product" : { "terms" : { "field" : "product" } } },
+ *         { "year" : { "terms" : { "field" : "year" } } }
+ *     ],
+ *     "after" : { "product" : "mad max", "year" : 2015 }
+ * }
+ * </pre>
+ */
+public class CompositeParser implements Aggregator.Parser {
+
+    public static final int DEFAULT_SIZE = 10;
+
+    @Override
+    public String type() {
+        return InternalComposite.TYPE.name();
+    }
+
+    @Override
+    public AggregatorFactory parse(String aggregationName, XContentParser parser, SearchContext context) throws IOException {
+
+        int size = DEFAULT_SIZE;
+        List<String> sourceNames = new ArrayList<>();
+        List<ValuesSourceConfig<ValuesSource>> configs = new ArrayList<>();
+        Map<String, Object> after = null;
+
+        XContentParser.Token token;
+        String currentFieldName = null;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.VALUE_NUMBER) {
+                if ("size".equals(currentFieldName)) {
+                    size = parser.intValue();
+                } else {
+                    throw new SearchParseException(context, "Unknown key for a " + token + " in [" + aggregationName + "]: [" + currentFieldName + "].");
+                }
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                if ("sources".equals(currentFieldName)) {
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                        if (token != XContentParser.Token.START_OBJECT) {
+                            throw new SearchParseException(context, "Expected an object for each source of [" + aggregationName + "] but got " + token + ".");
+                        }
+                        parseSource(aggregationName, parser, context, sourceNames, configs);
+                    }
+                } else {
+                    throw new SearchParseException(context, "Unknown key for a " + token + " in [" + aggregationName + "]: [" + currentFieldName + "].");
+                }
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                if ("after".equals(currentFieldName)) {
+                    after = parser.map();
+                } else {
+                    throw new SearchParseException(context, "Unknown key for a " + token + " in [" + aggregationName + "]: [" + currentFieldName + "].");
+                }
+            } else {
+                throw new SearchParseException(context, "Unexpected token " + token + " in [" + aggregationName + "].");
+            }
+        }
+
+        if (configs.isEmpty()) {
+            throw new SearchParseException(context, "Missing [sources] in [" + aggregationName + "]. At least one source is required.");
+        }
+        if (size <= 0) {
+            throw new SearchParseException(context, "[size] must be greater than 0 in [" + aggregationName + "]. Found [" + size + "].");
+        }
+        if (after != null) {
+            for (String sourceName : sourceNames) {
+                if (after.get(sourceName) == null) {
+                    throw new SearchParseException(context, "Missing value for source [" + sourceName + "] in the [after] key of [" + aggregationName + "].");
+                }
+            }
+        }
+
+        return new CompositeAggregator.Factory(aggregationName, sourceNames.toArray(new String[sourceNames.size()]), configs, size, after);
+    }
+
+    private void parseSource(String aggregationName, XContentParser parser, SearchContext context, List<String> sourceNames,
+                             List<ValuesSourceConfig<ValuesSource>> configs) throws IOException {
+        XContentParser.Token token = parser.nextToken();
+        if (token != XContentParser.Token.FIELD_NAME) {
+            throw new SearchParseException(context, "Expected the name of a source in [" + aggregationName + "] but got " + token + ".");
+        }
+        final String sourceName = parser.currentName();
+        if (sourceNames.contains(sourceName)) {
+            throw new SearchParseException(context, "Duplicate source [" + sourceName + "] in [" + aggregationName + "].");
+        }
+        if (parser.nextToken() != XContentParser.Token.START_OBJECT || parser.nextToken() != XContentParser.Token.FIELD_NAME
+                || "terms".equals(parser.currentName()) == false || parser.nextToken() != XContentParser.Token.START_OBJECT) {
+            throw new SearchParseException(context, "Source [" + sourceName + "] of [" + aggregationName + "] must be a [terms] source.");
+        }
+
+        ValuesSourceParser<ValuesSource> vsParser = ValuesSourceParser.any(aggregationName, InternalComposite.TYPE, context).scriptable(false).build();
+        boolean hasField = false;
+        String currentFieldName = null;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (vsParser.token(currentFieldName, token, parser)) {
+                hasField |= "field".equals(currentFieldName);
+            } else {
+                throw new SearchParseException(context, "Unknown key for a " + token + " in source [" + sourceName + "] of [" + aggregationName + "]: [" + currentFieldName + "].");
+            }
+        }
+        if (hasField == false) {
+            throw new SearchParseException(context, "Missing [field] in source [" + sourceName + "] of [" + aggregationName + "].");
+        }
+        // closes the source definition and the source object
+        if (parser.nextToken() != XContentParser.Token.END_OBJECT || parser.nextToken() != XContentParser.Token.END_OBJECT) {
+            throw new SearchParseException(context, "Source [" + sourceName + "] of [" + aggregationName + "] must define a single [terms] source.");
+        }
+        sourceNames.add(sourceName);
+        configs.add(vsParser.config());
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+
+/**
+ * The values of a source of a {@code composite} aggregation, each value is encoded as a long so that the composite
+ * keys of a doc can be built and compared without allocating: the global ordinal of a term, or the sortable bits of a
+ * number. The order of the encoded values is the order of the values.
+ */
+abstract class CompositeValuesSource {
+
+    private final String name;
+
+    CompositeValuesSource(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return  the name of the source, the key of its value in the composite key
+     */
+    String name() {
+        return name;
+    }
+
+    /**
+     * Refreshes the values of the source for the given segment. The values source is expected to have been moved to the
+     * segment by the aggregation context already.
+     */
+    abstract void setNextReader(LeafReaderContext reader);
+
+    /**
+     * Positions the source on the given doc and returns its number of values.
+     */
+    abstract int setDocument(int doc);
+
+    /**
+     * @return  the encoded value at the given index of the current doc, values are sorted
+     */
+    abstract long valueAt(int index);
+
+    /**
+     * @return  the number of bits the encoded values of this source need, at most 64
+     */
+    abstract int bitsRequired();
+
+    /**
+     * @return  the value of the given encoded value, {@link BytesRef} for terms and {@link Long} or {@link Double}
+     *          for numbers
+     */
+    abstract Object toValue(long encoded);
+
+    /**
+     * Encodes the value of this source in an {@code after} key into {@code after[index]}.
+     *
+     * @return  <tt>true</tt> if the value is one of the encoded values of the source, or <tt>false</tt> if it doesn't
+     *          exist in which case {@code after[index]} is set to the greatest encoded value that is less than it
+     */
+    abstract boolean resolveAfter(Object value, long[] after, int index);
+
+    static class GlobalOrdinals extends CompositeValuesSource {
+
+        private final ValuesSource.Bytes.WithOrdinals valuesSource;
+        private final long maxOrd;
+        private RandomAccessOrds globalOrds;
+
+        GlobalOrdinals(String name, ValuesSource.Bytes.WithOrdinals valuesSource, long maxOrd) {
+            super(name);
+            this.valuesSource = valuesSource;
+            this.maxOrd = maxOrd;
+        }
+
+        @Override
+        void setNextReader(LeafReaderContext reader) {
+            globalOrds = valuesSource.globalOrdinalsValues();
+        }
+
+        @Override
+        int setDocument(int doc) {
+            globalOrds.setDocument(doc);
+            return globalOrds.cardinality();
+        }
+
+        @Override
+        long valueAt(int index) {
+            return globalOrds.ordAt(index);
+        }
+
+        @Override
+        int bitsRequired() {
+            return 64 - Long.numberOfLeadingZeros(maxOrd);
+        }
+
+        @Override
+        Object toValue(long encoded) {
+            return BytesRef.deepCopyOf(globalOrds.lookupOrd(encoded));
+        }
+
+        @Override
+        boolean resolveAfter(Object value, long[] after, int index) {
+            final BytesRef term = value instanceof BytesRef ? (BytesRef) value : new BytesRef(value.toString());
+            final long ord = globalOrds.lookupTerm(term);
+            if (ord >= 0) {
+                after[index] = ord;
+                return true;
+            }
+            // -insertionPoint - 1 was returned, the greatest ordinal below the term is insertionPoint - 1
+            after[index] = -ord - 2;
+            return false;
+        }
+    }
+
+    static class Longs extends CompositeValuesSource {
+
+        private final ValuesSource.Numeric valuesSource;
+        private SortedNumericDocValues values;
+
+        Longs(String name, ValuesSource.Numeric valuesSource) {
+            super(name);
+            this.valuesSource = valuesSource;
+        }
+
+        @Override
+        void setNextReader(LeafReaderContext reader) {
+            values = valuesSource.longValues();
+        }
+
+        @Override
+        int setDocument(int doc) {
+            values.setDocument(doc);
+            return values.count();
+        }
+
+        @Override
+        long valueAt(int index) {
+            return values.valueAt(index);
+        }
+
+        @Override
+        int bitsRequired() {
+            return 64;
+        }
+
+        @Override
+        Object toValue(long encoded) {
+            return encoded;
+        }
+
+        @Override
+        boolean resolveAfter(Object value, long[] after, int index) {
+            if (value instanceof Number) {
+                after[index] = ((Number) value).longValue();
+            } else {
+                try {
+                    after[index] = Long.parseLong(value.toString());
+                } catch (NumberFormatException e) {
+                    throw new AggregationExecutionException("Invalid value [" + value + "] for source [" + name() + "] in the after key", e);
+                }
+            }
+            return true;
+        }
+    }
+
+    static class Doubles extends CompositeValuesSource {
+
+        private final ValuesSource.Numeric valuesSource;
+        private SortedNumericDoubleValues values;
+
+        Doubles(String name, ValuesSource.Numeric valuesSource) {
+            super(name);
+            this.valuesSource = valuesSource;
+        }
+
+        @Override
+        void setNextReader(LeafReaderContext reader) {
+            values = valuesSource.doubleValues();
+        }
+
+        @Override
+        int setDocument(int doc) {
+            values.setDocument(doc);
+            return values.count();
+        }
+
+        @Override
+        long valueAt(int index) {
+            return NumericUtils.doubleToSortableLong(values.valueAt(index));
+        }
+
+        @Override
+        int bitsRequired() {
+            return 64;
+        }
+
+        @Override
+        Object toValue(long encoded) {
+            return NumericUtils.sortableLongToDouble(encoded);
+        }
+
+        @Override
+        boolean resolveAfter(Object value, long[] after, int index) {
+            final double doubleValue;
+            if (value instanceof Number) {
+                doubleValue = ((Number) value).doubleValue();
+            } else {
+                try {
+                    doubleValue = Double.parseDouble(value.toString());
+                } catch (NumberFormatException e) {
+                    throw new AggregationExecutionException("Invalid value [" + value + "] for source [" + name() + "] in the after key", e);
+                }
+            }
+            after[index] = NumericUtils.doubleToSortableLong(doubleValue);
+            return true;
+        }
+    }
+}
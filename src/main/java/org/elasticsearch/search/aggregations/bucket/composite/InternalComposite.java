@@ -0,0 +1,321 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.composite;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.text.StringText;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+import org.elasticsearch.search.aggregations.AggregationStreams;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of a {@code composite} aggregation, the buckets are sorted by their composite key. Since every shard
+ * returns the {@code size} smallest keys that follow the {@code after} key, a key in the global top {@code size} is
+ * returned by every shard that has it, so merging and truncating the shard results gives exact doc counts.
+ */
+public class InternalComposite extends InternalMultiBucketAggregation implements CompositeAggregation {
+
+    public static final Type TYPE = new Type("composite");
+
+    public static final AggregationStreams.Stream STREAM = new AggregationStreams.Stream() {
+        @Override
+        public InternalComposite readResult(StreamInput in) throws IOException {
+            InternalComposite composite = new InternalComposite();
+            composite.readFrom(in);
+            return composite;
+        }
+    };
+
+    public static void registerStreams() {
+        AggregationStreams.registerStream(STREAM, TYPE.stream());
+    }
+
+    static final XContentBuilderString AFTER_KEY = new XContentBuilderString("after_key");
+
+    private static final byte BYTES_VALUE = 0;
+    private static final byte LONG_VALUE = 1;
+    private static final byte DOUBLE_VALUE = 2;
+
+    static final Comparator<Bucket> KEY_COMPARATOR = new Comparator<Bucket>() {
+        @Override
+        public int compare(Bucket b1, Bucket b2) {
+            return compareKeys(b1.key, b2.key);
+        }
+    };
+
+    static class Bucket extends InternalMultiBucketAggregation.InternalBucket implements CompositeAggregation.Bucket {
+
+        private String[] sourceNames;
+        private Object[] key;
+        private long docCount;
+        private InternalAggregations aggregations;
+
+        Bucket(String[] sourceNames) {
+            // For Serialization only
+            this.sourceNames = sourceNames;
+        }
+
+        Bucket(String[] sourceNames, Object[] key, long docCount, InternalAggregations aggregations) {
+            this.sourceNames = sourceNames;
+            this.key = key;
+            this.docCount = docCount;
+            this.aggregations = aggregations;
+        }
+
+        @Override
+        public String getKey() {
+            return getKeyAsMap().toString();
+        }
+
+        @Override
+        public Text getKeyAsText() {
+            return new StringText(getKey());
+        }
+
+        @Override
+        public Map<String, Object> getKeyAsMap() {
+            return keyAsMap(sourceNames, key);
+        }
+
+        @Override
+        public long getDocCount() {
+            return docCount;
+        }
+
+        @Override
+        public Aggregations getAggregations() {
+            return aggregations;
+        }
+
+        Bucket reduce(List<Bucket> buckets, ReduceContext context) {
+            List<InternalAggregations> aggregationsList = new ArrayList<>(buckets.size());
+            long docCount = 0;
+            for (Bucket bucket : buckets) {
+                docCount += bucket.docCount;
+                aggregationsList.add(bucket.aggregations);
+            }
+            final InternalAggregations aggs = InternalAggregations.reduce(aggregationsList, context);
+            return new Bucket(sourceNames, key, docCount, aggs);
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            key = new Object[sourceNames.length];
+            for (int i = 0; i < key.length; i++) {
+                byte type = in.readByte();
+                switch (type) {
+                    case BYTES_VALUE:
+                        key[i] = in.readBytesRef();
+                        break;
+                    case LONG_VALUE:
+                        key[i] = in.readLong();
+                        break;
+                    case DOUBLE_VALUE:
+                        key[i] = in.readDouble();
+                        break;
+                    default:
+                        throw new IOException("Unknown composite key value type [" + type + "]");
+                }
+            }
+            docCount = in.readVLong();
+            aggregations = InternalAggregations.readAggregations(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            for (Object value : key) {
+                if (value instanceof BytesRef) {
+                    out.writeByte(BYTES_VALUE);
+                    out.writeBytesRef((BytesRef) value);
+                } else if (value instanceof Long) {
+                    out.writeByte(LONG_VALUE);
+                    out.writeLong((Long) value);
+                } else {
+                    out.writeByte(DOUBLE_VALUE);
+                    out.writeDouble((Double) value);
+                }
+            }
+            out.writeVLong(docCount);
+            aggregations.writeTo(out);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(CommonFields.KEY, getKeyAsMap());
+            builder.field(CommonFields.DOC_COUNT, docCount);
+            aggregations.toXContentInternal(builder, params);
+            builder.endObject();
+            return builder;
+        }
+    }
+
+    private int size;
+    private String[] sourceNames;
+    private List<Bucket> buckets;
+
+    InternalComposite() {
+    } // for serialization
+
+    InternalComposite(String name, int size, String[] sourceNames, List<Bucket> buckets, Map<String, Object> metaData) {
+        super(name, metaData);
+        this.size = size;
+        this.sourceNames = sourceNames;
+        this.buckets = buckets;
+    }
+
+    @Override
+    public Type type() {
+        return TYPE;
+    }
+
+    @Override
+    public List<CompositeAggregation.Bucket> getBuckets() {
+        Object o = buckets;
+        return (List<CompositeAggregation.Bucket>) o;
+    }
+
+    @Override
+    public CompositeAggregation.Bucket getBucketByKey(String key) {
+        for (Bucket bucket : buckets) {
+            if (bucket.getKey().equals(key)) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Map<String, Object> afterKey() {
+        if (buckets.isEmpty()) {
+            return null;
+        }
+        return buckets.get(buckets.size() - 1).getKeyAsMap();
+    }
+
+    @Override
+    public InternalComposite reduce(ReduceContext reduceContext) {
+        List<InternalAggregation> aggregations = reduceContext.aggregations();
+        List<Bucket> all = new ArrayList<>();
+        for (InternalAggregation aggregation : aggregations) {
+            all.addAll(((InternalComposite) aggregation).buckets);
+        }
+        Collections.sort(all, KEY_COMPARATOR);
+
+        // the buckets of a key are adjacent once sorted, and the first size keys are the final ones
+        List<Bucket> reduced = new ArrayList<>(Math.min(size, all.size()));
+        List<Bucket> sameKeyBuckets = new ArrayList<>(aggregations.size());
+        for (int i = 0; i < all.size() && reduced.size() < size; i++) {
+            Bucket bucket = all.get(i);
+            sameKeyBuckets.add(bucket);
+            if (i + 1 == all.size() || compareKeys(bucket.key, all.get(i + 1).key) != 0) {
+                reduced.add(bucket.reduce(sameKeyBuckets, reduceContext));
+                sameKeyBuckets.clear();
+            }
+        }
+        return new InternalComposite(getName(), size, sourceNames, reduced, getMetaData());
+    }
+
+    @Override
+    protected void doReadFrom(StreamInput in) throws IOException {
+        this.size = readSize(in);
+        this.sourceNames = in.readStringArray();
+        int numBuckets = in.readVInt();
+        List<Bucket> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            Bucket bucket = new Bucket(sourceNames);
+            bucket.readFrom(in);
+            buckets.add(bucket);
+        }
+        this.buckets = buckets;
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        writeSize(size, out);
+        out.writeStringArray(sourceNames);
+        out.writeVInt(buckets.size());
+        for (Bucket bucket : buckets) {
+            bucket.writeTo(out);
+        }
+    }
+
+    @Override
+    public XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException {
+        if (buckets.isEmpty() == false) {
+            builder.field(AFTER_KEY, afterKey());
+        }
+        builder.startArray(CommonFields.BUCKETS);
+        for (Bucket bucket : buckets) {
+            bucket.toXContent(builder, params);
+        }
+        builder.endArray();
+        return builder;
+    }
+
+    static Map<String, Object> keyAsMap(String[] sourceNames, Object[] key) {
+        Map<String, Object> map = new LinkedHashMap<>(sourceNames.length);
+        for (int i = 0; i < sourceNames.length; i++) {
+            Object value = key[i];
+            map.put(sourceNames[i], value instanceof BytesRef ? ((BytesRef) value).utf8ToString() : value);
+        }
+        return map;
+    }
+
+    private static int compareKeys(Object[] key1, Object[] key2) {
+        for (int i = 0; i < key1.length; i++) {
+            int cmp = compareValues(key1[i], key2[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareValues(Object v1, Object v2) {
+        if (v1 instanceof BytesRef) {
+            if (v2 instanceof BytesRef) {
+                return ((BytesRef) v1).compareTo((BytesRef) v2);
+            }
+            // the same source may be mapped as a number on other indices, numbers go first
+            return 1;
+        } else if (v2 instanceof BytesRef) {
+            return -1;
+        } else if (v1 instanceof Long && v2 instanceof Long) {
+            return Long.compare((Long) v1, (Long) v2);
+        }
+        return Double.compare(((Number) v1).doubleValue(), ((Number) v2).doubleValue());
+    }
+}
@@ -50,8 +50,9 @@ public class GeoHashGridAggregator extends BucketsAggregator {
     private SortedNumericDocValues values;
 
     public GeoHashGridAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource,
-                              int requiredSize, int shardSize, AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
-        super(name, BucketAggregationMode.PER_BUCKET, factories, INITIAL_CAPACITY, aggregationContext, parent, metaData);
+                              int requiredSize, int shardSize, AggregationContext aggregationContext, Aggregator parent,
+                              SubAggCollectionMode collectMode, Map<String, Object> metaData) {
+        super(name, BucketAggregationMode.PER_BUCKET, factories, INITIAL_CAPACITY, aggregationContext, parent, collectMode, metaData);
         this.valuesSource = valuesSource;
         this.requiredSize = requiredSize;
         this.shardSize = shardSize;
@@ -63,6 +64,12 @@ public class GeoHashGridAggregator extends BucketsAggregator {
         return true;
     }
 
+    @Override
+    protected long maxBucketsToKeep() {
+        // a shard size of 0 is turned into Integer.MAX_VALUE, in which case all cells are kept
+        return shardSize == Integer.MAX_VALUE ? -1 : shardSize;
+    }
+
     @Override
     public void setNextReader(LeafReaderContext reader) {
         values = valuesSource.longValues();
@@ -120,11 +127,19 @@ public class GeoHashGridAggregator extends BucketsAggregator {
         }
 
         final InternalGeoHashGrid.Bucket[] list = new InternalGeoHashGrid.Bucket[ordered.size()];
+        final long[] survivingBucketOrds = new long[ordered.size()];
         for (int i = ordered.size() - 1; i >= 0; --i) {
             final OrdinalBucket bucket = (OrdinalBucket) ordered.pop();
-            bucket.aggregations = bucketAggregations(bucket.bucketOrd);
+            survivingBucketOrds[i] = bucket.bucketOrd;
             list[i] = bucket;
         }
+
+        runDeferredCollections(survivingBucketOrds);
+
+        for (int i = 0; i < list.length; i++) {
+            final OrdinalBucket bucket = (OrdinalBucket) list[i];
+            bucket.aggregations = bucketAggregations(bucket.bucketOrd);
+        }
         return new InternalGeoHashGrid(name, requiredSize, Arrays.asList(list), getMetaData());
     }
 
@@ -21,6 +21,8 @@ package org.elasticsearch.search.aggregations.bucket.geogrid;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
+import org.elasticsearch.search.aggregations.Aggregator;
 
 import java.io.IOException;
 
@@ -34,6 +36,7 @@ public class GeoHashGridBuilder extends AggregationBuilder<GeoHashGridBuilder> {
     private int precision = GeoHashGridParser.DEFAULT_PRECISION;
     private int requiredSize = GeoHashGridParser.DEFAULT_MAX_NUM_CELLS;
     private int shardSize = 0;
+    private SubAggCollectionMode collectMode;
 
     /**
      * Sole constructor.
@@ -80,6 +83,14 @@ public class GeoHashGridBuilder extends AggregationBuilder<GeoHashGridBuilder> {
         return this;
     }
 
+    /**
+     * Expert: set the collection mode of the sub aggregations.
+     */
+    public GeoHashGridBuilder collectMode(SubAggCollectionMode collectMode) {
+        this.collectMode = collectMode;
+        return this;
+    }
+
     @Override
     protected XContentBuilder internalXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
@@ -95,6 +106,9 @@ public class GeoHashGridBuilder extends AggregationBuilder<GeoHashGridBuilder> {
         if (shardSize != 0) {
             builder.field("shard_size", shardSize);
         }
+        if (collectMode != null) {
+            builder.field(Aggregator.COLLECT_MODE.getPreferredName(), collectMode.parseField().getPreferredName());
+        }
 
         return builder.endObject();
     }
@@ -27,6 +27,7 @@ import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.index.fielddata.SortingNumericDocValues;
 import org.elasticsearch.index.query.GeoBoundingBoxFilterBuilder;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -62,6 +63,7 @@ public class GeoHashGridParser implements Aggregator.Parser {
         int precision = DEFAULT_PRECISION;
         int requiredSize = DEFAULT_MAX_NUM_CELLS;
         int shardSize = -1;
+        SubAggCollectionMode collectMode = SubAggCollectionMode.DEPTH_FIRST;
 
         XContentParser.Token token;
         String currentFieldName = null;
@@ -78,6 +80,10 @@ public class GeoHashGridParser implements Aggregator.Parser {
                 } else if ("shard_size".equals(currentFieldName) || "shardSize".equals(currentFieldName)) {
                     shardSize = parser.intValue();
                 }
+            } else if (token == XContentParser.Token.VALUE_STRING) {
+                if (Aggregator.COLLECT_MODE.match(currentFieldName)) {
+                    collectMode = SubAggCollectionMode.parse(parser.text());
+                }
             }
         }
 
@@ -98,7 +104,7 @@ public class GeoHashGridParser implements Aggregator.Parser {
             shardSize = requiredSize;
         }
 
-        return new GeoGridFactory(aggregationName, vsParser.config(), precision, requiredSize, shardSize);
+        return new GeoGridFactory(aggregationName, vsParser.config(), precision, requiredSize, shardSize, collectMode);
 
     }
 
@@ -108,12 +114,15 @@ public class GeoHashGridParser implements Aggregator.Parser {
         private int precision;
         private int requiredSize;
         private int shardSize;
+        private SubAggCollectionMode collectMode;
 
-        public GeoGridFactory(String name, ValuesSourceConfig<ValuesSource.GeoPoint> config, int precision, int requiredSize, int shardSize) {
+        public GeoGridFactory(String name, ValuesSourceConfig<ValuesSource.GeoPoint> config, int precision, int requiredSize, int shardSize,
+                              SubAggCollectionMode collectMode) {
             super(name, InternalGeoHashGrid.TYPE.name(), config);
             this.precision = precision;
             this.requiredSize = requiredSize;
             this.shardSize = shardSize;
+            this.collectMode = collectMode;
         }
 
         @Override
@@ -130,7 +139,7 @@ public class GeoHashGridParser implements Aggregator.Parser {
         protected Aggregator create(final ValuesSource.GeoPoint valuesSource, long expectedBucketsCount, AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             final CellValues cellIdValues = new CellValues(valuesSource, precision);
             ValuesSource.Numeric cellIdSource = new CellIdSource(cellIdValues, valuesSource.metaData());
-            return new GeoHashGridAggregator(name, factories, cellIdSource, requiredSize, shardSize, aggregationContext, parent, metaData);
+            return new GeoHashGridAggregator(name, factories, cellIdSource, requiredSize, shardSize, aggregationContext, parent, collectMode, metaData);
 
         }
 
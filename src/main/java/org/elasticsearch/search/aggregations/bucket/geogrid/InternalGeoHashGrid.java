@@ -230,7 +230,8 @@ public class InternalGeoHashGrid extends InternalMultiBucketAggregation implemen
             }
         }
 
-        final int size = (int) Math.min(requiredSize, buckets.size());
+        // a partial reduce keeps all the cells, their doc count may still grow with the shard results to come
+        final int size = (int) (reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size());
         BucketPriorityQueue ordered = new BucketPriorityQueue(size);
         for (LongObjectPagedHashMap.Cursor<List<Bucket>> cursor : buckets) {
             List<Bucket> sameCellBuckets = cursor.value;
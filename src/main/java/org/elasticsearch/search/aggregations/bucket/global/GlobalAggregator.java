@@ -71,5 +71,10 @@ public class GlobalAggregator extends SingleBucketAggregator {
             return new GlobalAggregator(name, factories, context, metaData);
         }
 
+        @Override
+        public boolean mustVisitAllDocs() {
+            return true;
+        }
+
     }
 }
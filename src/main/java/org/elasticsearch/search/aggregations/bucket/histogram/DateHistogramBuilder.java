@@ -21,6 +21,8 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
+import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.ValuesSourceAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilderException;
 import org.joda.time.DateTime;
@@ -44,6 +46,7 @@ public class DateHistogramBuilder extends ValuesSourceAggregationBuilder<DateHis
     private String preOffset;
     private String postOffset;
     private float factor = 1.0f;
+    private SubAggCollectionMode collectMode;
 
     /**
      * Sole constructor.
@@ -175,6 +178,14 @@ public class DateHistogramBuilder extends ValuesSourceAggregationBuilder<DateHis
         return this;
     }
 
+    /**
+     * Expert: set the collection mode of the sub aggregations.
+     */
+    public DateHistogramBuilder collectMode(SubAggCollectionMode collectMode) {
+        this.collectMode = collectMode;
+        return this;
+    }
+
     @Override
     protected XContentBuilder doInternalXContent(XContentBuilder builder, Params params) throws IOException {
         if (interval == null) {
@@ -233,6 +244,10 @@ public class DateHistogramBuilder extends ValuesSourceAggregationBuilder<DateHis
             builder.endObject();
         }
 
+        if (collectMode != null) {
+            builder.field(Aggregator.COLLECT_MODE.getPreferredName(), collectMode.parseField().getPreferredName());
+        }
+
         return builder;
     }
 
@@ -28,6 +28,7 @@ import org.elasticsearch.common.rounding.TimeZoneRounding;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.support.ValueType;
@@ -90,6 +91,7 @@ public class DateHistogramParser implements Aggregator.Parser {
         DateTimeZone postZone = DateTimeZone.UTC;
         long preOffset = 0;
         long postOffset = 0;
+        SubAggCollectionMode collectMode = SubAggCollectionMode.DEPTH_FIRST;
 
         XContentParser.Token token;
         String currentFieldName = null;
@@ -111,6 +113,8 @@ public class DateHistogramParser implements Aggregator.Parser {
                     postOffset = parseOffset(parser.text());
                 } else if ("interval".equals(currentFieldName)) {
                     interval = parser.text();
+                } else if (Aggregator.COLLECT_MODE.match(currentFieldName)) {
+                    collectMode = SubAggCollectionMode.parse(parser.text());
                 } else {
                     throw new SearchParseException(context, "Unknown key for a " + token + " in [" + aggregationName + "]: [" + currentFieldName + "].");
                 }
@@ -199,7 +203,7 @@ public class DateHistogramParser implements Aggregator.Parser {
                 .preOffset(preOffset).postOffset(postOffset)
                 .build();
 
-        return new HistogramAggregator.Factory(aggregationName, vsParser.config(), rounding, order, keyed, minDocCount, extendedBounds, InternalDateHistogram.FACTORY);
+        return new HistogramAggregator.Factory(aggregationName, vsParser.config(), rounding, order, keyed, minDocCount, extendedBounds, collectMode, InternalDateHistogram.FACTORY);
 
     }
 
@@ -20,6 +20,8 @@
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
+import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.ValuesSourceAggregationBuilder;
 import org.elasticsearch.search.builder.SearchSourceBuilderException;
 
@@ -37,6 +39,7 @@ public class HistogramBuilder extends ValuesSourceAggregationBuilder<HistogramBu
     private Long extendedBoundsMax;
     private Long preOffset;
     private Long postOffset;
+    private SubAggCollectionMode collectMode;
 
     /**
      * Constructs a new histogram aggregation builder.
@@ -107,6 +110,14 @@ public class HistogramBuilder extends ValuesSourceAggregationBuilder<HistogramBu
         return this;
     }
 
+    /**
+     * Expert: set the collection mode of the sub aggregations.
+     */
+    public HistogramBuilder collectMode(SubAggCollectionMode collectMode) {
+        this.collectMode = collectMode;
+        return this;
+    }
+
     @Override
     protected XContentBuilder doInternalXContent(XContentBuilder builder, Params params) throws IOException {
         if (interval == null) {
@@ -142,6 +153,9 @@ public class HistogramBuilder extends ValuesSourceAggregationBuilder<HistogramBu
             }
             builder.endObject();
         }
+        if (collectMode != null) {
+            builder.field(Aggregator.COLLECT_MODE.getPreferredName(), collectMode.parseField().getPreferredName());
+        }
         return builder;
     }
 
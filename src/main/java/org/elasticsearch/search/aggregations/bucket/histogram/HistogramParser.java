@@ -22,6 +22,7 @@ import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.rounding.Rounding;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.support.ValueType;
@@ -58,6 +59,7 @@ public class HistogramParser implements Aggregator.Parser {
         ExtendedBounds extendedBounds = null;
         long preOffset = 0;
         long postOffset = 0;
+        SubAggCollectionMode collectMode = SubAggCollectionMode.DEPTH_FIRST;
 
         XContentParser.Token token;
         String currentFieldName = null;
@@ -77,6 +79,8 @@ public class HistogramParser implements Aggregator.Parser {
                     preOffset = parser.longValue();
                 } else if ("post_offset".equals(currentFieldName) || "postOffset".equals(currentFieldName)) {
                     postOffset = parser.longValue();
+                } else if (Aggregator.COLLECT_MODE.match(currentFieldName)) {
+                    collectMode = SubAggCollectionMode.parse(parser.text());
                 } else {
                     throw new SearchParseException(context, "Unknown key for a " + token + " in aggregation [" + aggregationName + "]: [" + currentFieldName + "].");
                 }
@@ -132,7 +136,7 @@ public class HistogramParser implements Aggregator.Parser {
             extendedBounds.processAndValidate(aggregationName, context, ValueParser.RAW);
         }
 
-        return new HistogramAggregator.Factory(aggregationName, vsParser.config(), rounding, order, keyed, minDocCount, extendedBounds, InternalHistogram.FACTORY);
+        return new HistogramAggregator.Factory(aggregationName, vsParser.config(), rounding, order, keyed, minDocCount, extendedBounds, collectMode, InternalHistogram.FACTORY);
 
     }
 
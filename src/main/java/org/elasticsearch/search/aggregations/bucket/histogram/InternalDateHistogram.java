@@ -25,6 +25,7 @@ import org.elasticsearch.search.aggregations.AggregationStreams;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.bucket.BucketStreamContext;
 import org.elasticsearch.search.aggregations.bucket.BucketStreams;
+import org.elasticsearch.search.aggregations.pipeline.ParentPipelineAggregator;
 import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -114,8 +115,9 @@ public class InternalDateHistogram extends InternalHistogram<InternalDateHistogr
 
         @Override
         public InternalDateHistogram create(String name, List<InternalDateHistogram.Bucket> buckets, InternalOrder order,
-                                            long minDocCount, EmptyBucketInfo emptyBucketInfo, @Nullable ValueFormatter formatter, boolean keyed, Map<String, Object> metaData) {
-            return new InternalDateHistogram(name, buckets, order, minDocCount, emptyBucketInfo, formatter, keyed, metaData);
+                                            long minDocCount, EmptyBucketInfo emptyBucketInfo, @Nullable ValueFormatter formatter, boolean keyed,
+                                            List<ParentPipelineAggregator> pipelineAggregators, Map<String, Object> metaData) {
+            return new InternalDateHistogram(name, buckets, order, minDocCount, emptyBucketInfo, formatter, keyed, pipelineAggregators, metaData);
         }
 
         @Override
@@ -128,9 +130,9 @@ public class InternalDateHistogram extends InternalHistogram<InternalDateHistogr
 
     InternalDateHistogram() {} // for serialization
 
-    InternalDateHistogram(String name, List<InternalDateHistogram.Bucket> buckets, InternalOrder order, long minDocCount,
-                          EmptyBucketInfo emptyBucketInfo, @Nullable ValueFormatter formatter, boolean keyed, Map<String, Object> metaData) {
-        super(name, buckets, order, minDocCount, emptyBucketInfo, formatter, keyed, metaData);
+    InternalDateHistogram(String name, List<InternalDateHistogram.Bucket> buckets, InternalOrder order, long minDocCount, EmptyBucketInfo emptyBucketInfo,
+                          @Nullable ValueFormatter formatter, boolean keyed, List<ParentPipelineAggregator> pipelineAggregators, Map<String, Object> metaData) {
+        super(name, buckets, order, minDocCount, emptyBucketInfo, formatter, keyed, pipelineAggregators, metaData);
     }
 
     @Override
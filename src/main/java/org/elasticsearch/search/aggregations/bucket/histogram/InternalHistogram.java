@@ -33,11 +33,14 @@ import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.search.aggregations.*;
 import org.elasticsearch.search.aggregations.bucket.BucketStreamContext;
 import org.elasticsearch.search.aggregations.bucket.BucketStreams;
+import org.elasticsearch.search.aggregations.pipeline.ParentPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorStreams;
 import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
 import org.elasticsearch.search.aggregations.support.format.ValueFormatterStreams;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -227,8 +230,9 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
         }
 
         public InternalHistogram<B> create(String name, List<B> buckets, InternalOrder order, long minDocCount,
-                                           EmptyBucketInfo emptyBucketInfo, @Nullable ValueFormatter formatter, boolean keyed, Map<String, Object> metaData) {
-            return new InternalHistogram<>(name, buckets, order, minDocCount, emptyBucketInfo, formatter, keyed, metaData);
+                                           EmptyBucketInfo emptyBucketInfo, @Nullable ValueFormatter formatter, boolean keyed,
+                                           List<ParentPipelineAggregator> pipelineAggregators, Map<String, Object> metaData) {
+            return new InternalHistogram<>(name, buckets, order, minDocCount, emptyBucketInfo, formatter, keyed, pipelineAggregators, metaData);
         }
 
         public B createBucket(long key, long docCount, InternalAggregations aggregations, boolean keyed, @Nullable ValueFormatter formatter) {
@@ -244,12 +248,14 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
     private boolean keyed;
     private long minDocCount;
     private EmptyBucketInfo emptyBucketInfo;
+    private List<ParentPipelineAggregator> pipelineAggregators;
 
     InternalHistogram() {} // for serialization
 
-    InternalHistogram(String name, List<B> buckets, InternalOrder order, long minDocCount,
-                      EmptyBucketInfo emptyBucketInfo, @Nullable ValueFormatter formatter, boolean keyed, Map<String, Object> metaData) {
+    InternalHistogram(String name, List<B> buckets, InternalOrder order, long minDocCount, EmptyBucketInfo emptyBucketInfo,
+                      @Nullable ValueFormatter formatter, boolean keyed, List<ParentPipelineAggregator> pipelineAggregators, Map<String, Object> metaData) {
         super(name, metaData);
+        this.pipelineAggregators = pipelineAggregators;
         this.buckets = buckets;
         this.order = order;
         assert (minDocCount == 0) == (emptyBucketInfo != null);
@@ -310,12 +316,20 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
         for (LongObjectPagedHashMap.Cursor<List<B>> cursor : bucketsByKey) {
             List<B> sameTermBuckets = cursor.value;
             B bucket = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext);
-            if (bucket.getDocCount() >= minDocCount) {
+            // a partial reduce keeps all the buckets, their doc count may still grow with the shard results to come
+            if (bucket.getDocCount() >= minDocCount || reduceContext.isFinalReduce() == false) {
                 reducedBuckets.add(bucket);
             }
         }
         bucketsByKey.close();
 
+        if (reduceContext.isFinalReduce() == false) {
+            // the empty buckets and the pipeline aggregators are left to the final reduce
+            CollectionUtil.introSort(reducedBuckets, InternalOrder.KEY_ASC.comparator());
+            return getFactory().create(getName(), reducedBuckets, order, minDocCount, emptyBucketInfo, formatter, keyed,
+                    pipelineAggregators, getMetaData());
+        }
+
         // adding empty buckets in needed
         if (minDocCount == 0) {
             CollectionUtil.introSort(reducedBuckets, order.asc ? InternalOrder.KEY_ASC.comparator() : InternalOrder.KEY_DESC.comparator());
@@ -382,7 +396,31 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
             CollectionUtil.introSort(reducedBuckets, order.comparator());
         }
 
-        return getFactory().create(getName(), reducedBuckets, order, minDocCount, emptyBucketInfo, formatter, keyed, getMetaData());
+        if (!pipelineAggregators.isEmpty()) {
+            applyPipelineAggregators(reducedBuckets, reduceContext);
+        }
+
+        // the pipeline aggregators have been applied, the reduced histogram no longer needs them
+        return getFactory().create(getName(), reducedBuckets, order, minDocCount, emptyBucketInfo, formatter, keyed,
+                Collections.<ParentPipelineAggregator>emptyList(), getMetaData());
+    }
+
+    /**
+     * Adds the output of the pipeline aggregators to the buckets they were computed for. The pipeline aggregators see the
+     * buckets in ascending key order, whatever the order the histogram is returned in.
+     */
+    private void applyPipelineAggregators(List<B> reducedBuckets, ReduceContext reduceContext) {
+        List<B> sortedBuckets = new ArrayList<>(reducedBuckets);
+        CollectionUtil.introSort(sortedBuckets, InternalOrder.KEY_ASC.comparator());
+        for (ParentPipelineAggregator pipelineAggregator : pipelineAggregators) {
+            InternalAggregation[] results = pipelineAggregator.reduceBuckets(getName(), sortedBuckets, reduceContext);
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] != null) {
+                    B bucket = sortedBuckets.get(i);
+                    bucket.aggregations = bucket.aggregations.append(results[i]);
+                }
+            }
+        }
     }
 
     protected B createBucket(long key, long docCount, InternalAggregations aggregations, boolean keyed, @Nullable ValueFormatter formatter) {
@@ -411,6 +449,11 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
         }
         this.buckets = buckets;
         this.bucketsMap = null;
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            pipelineAggregators = PipelineAggregatorStreams.readPipelineAggregators(in);
+        } else {
+            pipelineAggregators = Collections.emptyList();
+        }
     }
 
     @Override
@@ -426,6 +469,9 @@ public class InternalHistogram<B extends InternalHistogram.Bucket> extends Inter
         for (B bucket : buckets) {
             bucket.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            PipelineAggregatorStreams.writePipelineAggregators(pipelineAggregators, out);
+        }
     }
 
     @Override
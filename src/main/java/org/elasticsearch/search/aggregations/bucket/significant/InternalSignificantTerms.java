@@ -177,13 +177,14 @@ public abstract class InternalSignificantTerms extends InternalMultiBucketAggreg
             }
         }
 
-        final int size = Math.min(requiredSize, buckets.size());
+        // a partial reduce keeps all the terms, their score is only meaningful once all the shard results are reduced
+        final int size = reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size();
         BucketSignificancePriorityQueue ordered = new BucketSignificancePriorityQueue(size);
         for (Map.Entry<String, List<Bucket>> entry : buckets.entrySet()) {
             List<Bucket> sameTermBuckets = entry.getValue();
             final Bucket b = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext);
             b.updateScore(significanceHeuristic);
-            if ((b.score > 0) && (b.subsetDf >= minDocCount)) {
+            if (reduceContext.isFinalReduce() == false || ((b.score > 0) && (b.subsetDf >= minDocCount))) {
                 ordered.insertWithOverflow(b);
             }
         }
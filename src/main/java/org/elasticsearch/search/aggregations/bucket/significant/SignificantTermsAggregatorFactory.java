@@ -31,6 +31,7 @@ import org.elasticsearch.common.lucene.index.FilterableTermsEnum;
 import org.elasticsearch.common.lucene.index.FreqTermsEnum;
 import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.search.aggregations.*;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.bucket.significant.heuristics.SignificanceHeuristic;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregator;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregatorFactory;
@@ -53,6 +54,10 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         return significanceHeuristic;
     }
 
+    public SubAggCollectionMode getCollectMode() {
+        return collectMode;
+    }
+
     public enum ExecutionMode {
 
         MAP(new ParseField("map")) {
@@ -138,19 +143,22 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
     private Filter filter;
     private final TermsAggregator.BucketCountThresholds bucketCountThresholds;
     private final SignificanceHeuristic significanceHeuristic;
+    private final SubAggCollectionMode collectMode;
 
     protected TermsAggregator.BucketCountThresholds getBucketCountThresholds() {
         return new TermsAggregator.BucketCountThresholds(bucketCountThresholds);
     }
 
     public SignificantTermsAggregatorFactory(String name, ValuesSourceConfig valueSourceConfig, TermsAggregator.BucketCountThresholds bucketCountThresholds, IncludeExclude includeExclude,
-                                             String executionHint, Filter filter, SignificanceHeuristic significanceHeuristic) {
+                                             String executionHint, Filter filter, SignificanceHeuristic significanceHeuristic,
+                                             SubAggCollectionMode collectMode) {
 
         super(name, SignificantStringTerms.TYPE.name(), valueSourceConfig);
         this.bucketCountThresholds = bucketCountThresholds;
         this.includeExclude = includeExclude;
         this.executionHint = executionHint;
         this.significanceHeuristic = significanceHeuristic;
+        this.collectMode = collectMode;
         if (!valueSourceConfig.unmapped()) {
             this.indexedFieldName = config.fieldContext().field();
             mapper = SearchContext.current().smartNameFieldMapper(indexedFieldName);
@@ -263,6 +271,13 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         return getBackgroundFrequency(indexedVal);
     }
 
+    @Override
+    public boolean supportsConcurrentCollection() {
+        // the background frequencies are shared by the aggregators of this factory and the superset size would be
+        // counted once per slice
+        return false;
+    }
+
     @Override
     public void close() throws ElasticsearchException {
         try {
@@ -23,6 +23,8 @@ import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.FilterBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
+import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.bucket.significant.heuristics.SignificanceHeuristic;
 import org.elasticsearch.search.aggregations.bucket.significant.heuristics.SignificanceHeuristicBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.AbstractTermsParametersParser;
@@ -42,6 +44,7 @@ public class SignificantTermsBuilder extends AggregationBuilder<SignificantTerms
 
     private String field;
     private String executionHint;
+    private SubAggCollectionMode collectMode;
     private String includePattern;
     private int includeFlags;
     private String excludePattern;
@@ -115,6 +118,14 @@ public class SignificantTermsBuilder extends AggregationBuilder<SignificantTerms
         return this;
     }
 
+    /**
+     * Expert: set the collection mode of the sub aggregations.
+     */
+    public SignificantTermsBuilder collectMode(SubAggCollectionMode collectMode) {
+        this.collectMode = collectMode;
+        return this;
+    }
+
     /**
      * Define a regular expression that will determine what terms should be aggregated. The regular expression is based
      * on the {@link java.util.regex.Pattern} class.
@@ -229,6 +240,9 @@ public class SignificantTermsBuilder extends AggregationBuilder<SignificantTerms
         if (executionHint != null) {
             builder.field(AbstractTermsParametersParser.EXECUTION_HINT_FIELD_NAME.getPreferredName(), executionHint);
         }
+        if (collectMode != null) {
+            builder.field(Aggregator.COLLECT_MODE.getPreferredName(), collectMode.parseField().getPreferredName());
+        }
         if (includePattern != null) {
             if (includeFlags == 0) {
                 builder.field("include", includePattern);
@@ -201,6 +201,7 @@ public class DoubleTerms extends InternalTerms {
         }
         this.buckets = buckets;
         this.bucketMap = null;
+        readPartialState(in);
     }
 
     @Override
@@ -219,6 +220,7 @@ public class DoubleTerms extends InternalTerms {
         for (InternalTerms.Bucket bucket : buckets) {
             bucket.writeTo(out);
         }
+        writePartialState(out);
     }
 
     @Override
@@ -22,7 +22,10 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
 import org.elasticsearch.ElasticsearchIllegalStateException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.search.aggregations.Aggregations;
@@ -32,6 +35,7 @@ import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.bucket.terms.support.BucketPriorityQueue;
 import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
 
+import java.io.IOException;
 import java.util.*;
 
 /**
@@ -115,6 +119,11 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
     protected long docCountError;
     protected boolean showTermDocCountError;
     protected long otherDocCount;
+    /**
+     * Whether this is the result of a partial reduce, its doc count errors are then already computed for the shards it
+     * was reduced from and must be carried through as-is by the next reduce.
+     */
+    protected boolean partial;
 
     protected InternalTerms() {} // for serialization
 
@@ -161,13 +170,20 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
         List<InternalAggregation> aggregations = reduceContext.aggregations();
 
         Multimap<Object, InternalTerms.Bucket> buckets = ArrayListMultimap.create();
+        // per term, the sum of the errors of the shards that returned it, these shards could not have missed any doc
+        Map<Object, Long> termDocCountErrors = new HashMap<>();
         long sumDocCountError = 0;
         long otherDocCount = 0;
+        boolean hasPartialResults = false;
         for (InternalAggregation aggregation : aggregations) {
             InternalTerms terms = (InternalTerms) aggregation;
             otherDocCount += terms.getSumOfOtherDocCounts();
             final long thisAggDocCountError;
-            if (terms.buckets.size() < this.shardSize || this.order == InternalOrder.TERM_ASC || this.order == InternalOrder.TERM_DESC) {
+            if (terms.partial) {
+                // the result of a partial reduce already carries the error of the shards it was reduced from
+                thisAggDocCountError = terms.docCountError;
+                hasPartialResults = true;
+            } else if (terms.buckets.size() < this.shardSize || this.order == InternalOrder.TERM_ASC || this.order == InternalOrder.TERM_DESC) {
                 thisAggDocCountError = 0;
             } else if (InternalOrder.isCountDesc(this.order)) {
                 thisAggDocCountError = terms.buckets.get(terms.buckets.size() - 1).docCount;
@@ -181,26 +197,32 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
                     sumDocCountError += thisAggDocCountError;
                 }
             }
-            terms.docCountError = thisAggDocCountError;
             for (Bucket bucket : terms.buckets) {
-                bucket.docCountError = thisAggDocCountError;
-                buckets.put(bucket.getKeyAsObject(), bucket);
+                Object key = bucket.getKeyAsObject();
+                buckets.put(key, bucket);
+                if (thisAggDocCountError != -1) {
+                    // a partial bucket's error is the one of the shards that missed the term, so the shards that
+                    // returned it account for the rest of the partial result's error
+                    long termDocCountError = terms.partial ? thisAggDocCountError - bucket.docCountError : thisAggDocCountError;
+                    Long previous = termDocCountErrors.get(key);
+                    termDocCountErrors.put(key, previous == null ? termDocCountError : previous + termDocCountError);
+                }
             }
         }
 
-        final int size = Math.min(requiredSize, buckets.size());
+        // a partial reduce must keep all the terms, a term that is pruned now could still make it to the top terms once
+        // the other shard results are reduced
+        final int size = reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size();
         BucketPriorityQueue ordered = new BucketPriorityQueue(size, order.comparator(null));
         for (Collection<Bucket> l : buckets.asMap().values()) {
             List<Bucket> sameTermBuckets = (List<Bucket>) l; // cast is ok according to javadocs
             final Bucket b = sameTermBuckets.get(0).reduce(sameTermBuckets, reduceContext);
-            if (b.docCountError != -1) {
-                if (sumDocCountError == -1) {
-                    b.docCountError = -1;
-                } else {
-                    b.docCountError = sumDocCountError - b.docCountError;
-                }
+            if (sumDocCountError == -1) {
+                b.docCountError = -1;
+            } else {
+                b.docCountError = sumDocCountError - termDocCountErrors.get(b.getKeyAsObject());
             }
-            if (b.docCount >= minDocCount) {
+            if (b.docCount >= minDocCount || reduceContext.isFinalReduce() == false) {
                 Terms.Bucket removed = ordered.insertWithOverflow(b);
                 if (removed != null) {
                     otherDocCount += removed.getDocCount();
@@ -215,9 +237,37 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
         if (sumDocCountError == -1) {
             docCountError = -1;
         } else {
-            docCountError = aggregations.size() == 1 ? 0 : sumDocCountError;
+            // the top terms of a single shard are exact, unless the result is to be reduced again
+            docCountError = aggregations.size() == 1 && hasPartialResults == false && reduceContext.isFinalReduce() ? 0 : sumDocCountError;
+        }
+        InternalTerms reduced = newAggregation(name, Arrays.asList(list), showTermDocCountError, docCountError, otherDocCount, getMetaData());
+        reduced.partial = reduceContext.isFinalReduce() == false;
+        return reduced;
+    }
+
+    /**
+     * Reads the partial reduce state written by {@link #writePartialState(StreamOutput)}, must be called once the
+     * buckets are read.
+     */
+    protected void readPartialState(StreamInput in) throws IOException {
+        partial = in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean();
+        if (partial && showTermDocCountError == false) {
+            // the buckets only serialize their error when it is shown, but the next reduce needs it
+            for (Bucket bucket : buckets) {
+                bucket.docCountError = in.readLong();
+            }
+        }
+    }
+
+    protected void writePartialState(StreamOutput out) throws IOException {
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeBoolean(partial);
+            if (partial && showTermDocCountError == false) {
+                for (Bucket bucket : buckets) {
+                    out.writeLong(bucket.docCountError);
+                }
+            }
         }
-        return newAggregation(name, Arrays.asList(list), showTermDocCountError, docCountError, otherDocCount, getMetaData());
     }
 
     protected abstract InternalTerms newAggregation(String name, List<Bucket> buckets, boolean showTermDocCountError, long docCountError, long otherDocCount, Map<String, Object> metaData);
@@ -197,6 +197,7 @@ public class LongTerms extends InternalTerms {
         }
         this.buckets = buckets;
         this.bucketMap = null;
+        readPartialState(in);
     }
 
     @Override
@@ -213,6 +214,7 @@ public class LongTerms extends InternalTerms {
         for (InternalTerms.Bucket bucket : buckets) {
             bucket.writeTo(out);
         }
+        writePartialState(out);
     }
 
     @Override
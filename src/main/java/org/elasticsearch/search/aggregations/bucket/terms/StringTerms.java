@@ -191,6 +191,7 @@ public class StringTerms extends InternalTerms {
         }
         this.buckets = buckets;
         this.bucketMap = null;
+        readPartialState(in);
     }
 
     @Override
@@ -206,6 +207,7 @@ public class StringTerms extends InternalTerms {
         for (InternalTerms.Bucket bucket : buckets) {
             bucket.writeTo(out);
         }
+        writePartialState(out);
     }
 
     @Override
@@ -133,13 +133,11 @@ public abstract class TermsAggregator extends BucketsAggregator {
     protected final BucketCountThresholds bucketCountThresholds;
     protected Terms.Order order;
     protected Set<Aggregator> aggsUsedForSorting = new HashSet<>();
-    protected SubAggCollectionMode subAggCollectMode;
 
     public TermsAggregator(String name, BucketAggregationMode bucketAggregationMode, AggregatorFactories factories, long estimatedBucketsCount, AggregationContext context, Aggregator parent, BucketCountThresholds bucketCountThresholds, Terms.Order order, SubAggCollectionMode subAggCollectMode, Map<String, Object> metaData) {
-        super(name, bucketAggregationMode, factories, estimatedBucketsCount, context, parent, metaData);
+        super(name, bucketAggregationMode, factories, estimatedBucketsCount, context, parent, subAggCollectMode, metaData);
         this.bucketCountThresholds = bucketCountThresholds;
         this.order = InternalOrder.validate(order, this);
-        this.subAggCollectMode = subAggCollectMode;
         // Don't defer any child agg if we are dependent on it for pruning results
         if (order instanceof Aggregation){
             AggregationPath path = ((Aggregation) order).path();
@@ -155,9 +153,16 @@ public abstract class TermsAggregator extends BucketsAggregator {
         }
     }
 
+    @Override
+    protected long maxBucketsToKeep() {
+        // a shard size of 0 is turned into Integer.MAX_VALUE, in which case all buckets are kept
+        final int shardSize = bucketCountThresholds.getShardSize();
+        return shardSize == Integer.MAX_VALUE ? -1 : shardSize;
+    }
+
     @Override
     protected boolean shouldDefer(Aggregator aggregator) {
-        return (subAggCollectMode == SubAggCollectionMode.BREADTH_FIRST) && (!aggsUsedForSorting.contains(aggregator));
+        return super.shouldDefer(aggregator) && (!aggsUsedForSorting.contains(aggregator));
     }
     
 }
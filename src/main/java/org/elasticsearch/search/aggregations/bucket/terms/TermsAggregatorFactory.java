@@ -144,6 +144,12 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
         this.showTermDocCountError = showTermDocCountError;
     }
 
+    @Override
+    public boolean mustVisitAllDocs() {
+        // terms with a min_doc_count of 0 are returned for all the terms of the shard, even the ones no document matches
+        return bucketCountThresholds.getMinDocCount() == 0 || super.mustVisitAllDocs();
+    }
+
     @Override
     protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
         final InternalAggregation aggregation = new UnmappedTerms(name, order, bucketCountThresholds.getRequiredSize(), bucketCountThresholds.getShardSize(), bucketCountThresholds.getMinDocCount(), metaData);
@@ -20,23 +20,22 @@
 package org.elasticsearch.search.aggregations.metrics.cardinality;
 
 import com.google.common.base.Preconditions;
-import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongBitSet;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.apache.lucene.util.packed.PackedInts;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
-import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.ObjectArray;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.util.Arrays;
 
 /**
@@ -50,6 +49,12 @@ import java.util.Arrays;
  * requires more space and makes hyperloglog (which is less accurate) used sooner,
  * this is also considerably faster.
  *
+ * The hash table of a bucket is its sparse representation: it starts small and
+ * grows with the number of distinct hashes, and the <code>2^p</code> registers of
+ * the bucket are only allocated once the table would take as much memory as them.
+ * Likewise, only the hashes of the table or the non-zero registers are serialized,
+ * delta-encoded.
+ *
  * Trying to understand what this class does whithout having read the paper is
  * considered adventurous.
  */
@@ -62,6 +67,11 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private static final boolean HYPERLOGLOG = true;
     private static final float MAX_LOAD_FACTOR = 0.75f;
     private static final int P2 = 25;
+    private static final int INITIAL_HASH_TABLE_CAPACITY = 16;
+
+    // the formats of the serialized registers
+    private static final byte DENSE_REGISTERS = 0;
+    private static final byte SPARSE_REGISTERS = 1;
 
     /**
      * Compute the required precision so that <code>count</code> distinct entries
@@ -155,8 +165,12 @@ public final class HyperLogLogPlusPlus implements Releasable {
 
     private final BigArrays bigArrays;
     private final OpenBitSet algorithm;
+    // the registers of the buckets that use hyperloglog, the registers of a bucket start at its register slot << p
     private ByteArray runLens;
+    private LongArray registerSlots;
+    private long numRegisterSlots;
     private final Hashset hashSet;
+    private long maxBucket;
     private final int p, m;
     private final double alphaMM;
 
@@ -167,7 +181,8 @@ public final class HyperLogLogPlusPlus implements Releasable {
         m = 1 << p;
         this.bigArrays = bigArrays;
         algorithm = new OpenBitSet();
-        runLens = bigArrays.newByteArray(initialBucketCount << p);
+        runLens = bigArrays.newByteArray(0);
+        registerSlots = bigArrays.newLongArray(initialBucketCount, false);
         hashSet = new Hashset(initialBucketCount);
         final double alpha;
         switch (p) {
@@ -189,11 +204,15 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     public long maxBucket() {
-        return runLens.size() >>> p;
+        return maxBucket;
     }
 
     private void ensureCapacity(long numBuckets) {
-        runLens = bigArrays.grow(runLens, numBuckets << p);
+        maxBucket = Math.max(maxBucket, numBuckets);
+    }
+
+    private long registersStart(long bucket) {
+        return registerSlots.get(bucket) << p;
     }
 
     public void merge(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
@@ -217,8 +236,8 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (algorithm.get(thisBucket) != HYPERLOGLOG) {
                 upgradeToHll(thisBucket);
             }
-            final long thisStart = thisBucket << p;
-            final long otherStart = otherBucket << p;
+            final long thisStart = registersStart(thisBucket);
+            final long otherStart = other.registersStart(otherBucket);
             for (int i = 0; i < m; ++i) {
                 runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
             }
@@ -259,7 +278,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     private void collectHll(long bucket, long index, int runLen) {
-        final long bucketIndex = (bucket << p) + index;
+        final long bucketIndex = registersStart(bucket) + index;
         runLens.set(bucketIndex, (byte) Math.max(runLen, runLens.get(bucketIndex)));
     }
 
@@ -280,7 +299,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private long cardinalityHll(long bucket) {
         double inverseSum = 0;
         int zeros = 0;
-        for (long i = bucket << p, end = i + m; i < end; ++i) {
+        for (long i = registersStart(bucket), end = i + m; i < end; ++i) {
             final int runLen = runLens.get(i);
             inverseSum += 1. / (1L << runLen);
             if (runLen == 0) {
@@ -306,17 +325,26 @@ public final class HyperLogLogPlusPlus implements Releasable {
         ensureCapacity(bucket + 1);
         final IntArray values = hashSet.values(bucket);
         try {
-            runLens.fill(bucket << p, (bucket << p) + m, (byte) 0);
+            allocateRegisters(bucket);
             for (long i = 0; i < values.size(); ++i) {
                 final int encoded = values.get(i);
                 collectHllEncoded(bucket, encoded);
             }
             algorithm.set(bucket);
+            hashSet.clear(bucket);
         } finally {
             Releasables.close(values);
         }
     }
 
+    private void allocateRegisters(long bucket) {
+        registerSlots = bigArrays.grow(registerSlots, bucket + 1);
+        final long slot = numRegisterSlots++;
+        registerSlots.set(bucket, slot);
+        runLens = bigArrays.grow(runLens, numRegisterSlots << p);
+        runLens.fill(slot << p, (slot + 1) << p, (byte) 0);
+    }
+
     static long linearCounting(long m, long v) {
         return Math.round(m * Math.log((double) m / v));
     }
@@ -405,53 +433,49 @@ public final class HyperLogLogPlusPlus implements Releasable {
         return THRESHOLDS[p - 4];
     }
 
+    /**
+     * Return the memory used by the hash tables and registers of all buckets.
+     */
+    public long ramBytesUsed() {
+        return runLens.ramBytesUsed() + registerSlots.ramBytesUsed() + hashSet.ramBytesUsed();
+    }
+
     @Override
     public void close() throws ElasticsearchException {
-        Releasables.close(runLens, hashSet.sizes);
+        Releasables.close(runLens, registerSlots, hashSet);
     }
 
     /**
-     * We are actually using HyperLogLog's runLens array but interpreting it as a hash set
-     * for linear counting.
+     * The hash tables of the buckets that use linear counting. The table of a bucket
+     * grows with its size up to <code>m / 4</code> ints, which is the memory its
+     * registers would take, the bucket is upgraded to hyperloglog before that.
      */
-    private class Hashset {
+    private class Hashset implements Releasable {
 
-        private final int capacity;
+        private final int maxCapacity;
         private final int threshold;
-        private final int mask;
         private IntArray sizes;
-        private final BytesRef readSpare;
-        private final ByteBuffer writeSpare;
+        private ObjectArray<IntArray> tables;
 
         public Hashset(long initialBucketCount) {
-            capacity = m / 4; // because ints take 4 bytes
-            threshold = (int) (capacity * MAX_LOAD_FACTOR);
-            mask = capacity - 1;
+            maxCapacity = m / 4; // because ints take 4 bytes
+            threshold = (int) (maxCapacity * MAX_LOAD_FACTOR);
             sizes = bigArrays.newIntArray(initialBucketCount);
-            readSpare = new BytesRef();
-            writeSpare = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
-        }
-
-        private long index (long bucket, int index) {
-            return (bucket << p) + (index << 2);
+            tables = bigArrays.newObjectArray(initialBucketCount);
         }
 
-        private int get(long bucket, int index) {
-            runLens.get(index(bucket, index), 4, readSpare);
-            return ByteUtils.readIntLE(readSpare.bytes, readSpare.offset);
-        }
-
-        private void set(long bucket, int index, int value) {
-            writeSpare.putInt(0, value);
-            runLens.set(index(bucket, index), writeSpare.array(), 0, 4);
+        private IntArray table(long bucket) {
+            return bucket < tables.size() ? tables.get(bucket) : null;
         }
 
         private int recomputedSize(long bucket) {
+            final IntArray table = table(bucket);
             int size = 0;
-            for (int i = 0; i <= mask; ++i) {
-                final int v = get(bucket, i);
-                if (v != 0) {
-                    ++size;
+            if (table != null) {
+                for (long i = 0; i < table.size(); ++i) {
+                    if (table.get(i) != 0) {
+                        ++size;
+                    }
                 }
             }
             return size;
@@ -472,17 +496,60 @@ public final class HyperLogLogPlusPlus implements Releasable {
          */
         public int add(long bucket, int k) {
             sizes = bigArrays.grow(sizes, bucket + 1);
+            tables = bigArrays.grow(tables, bucket + 1);
             assert k != 0;
+            IntArray table = tables.get(bucket);
+            if (table == null) {
+                table = bigArrays.newIntArray(Math.min(INITIAL_HASH_TABLE_CAPACITY, maxCapacity));
+                tables.set(bucket, table);
+            }
+            if (add(table, k) == false) {
+                return -1;
+            }
+            final int size = sizes.increment(bucket, 1);
+            if (size > table.size() * MAX_LOAD_FACTOR && table.size() < maxCapacity) {
+                tables.set(bucket, grow(table));
+            }
+            return size;
+        }
+
+        private boolean add(IntArray table, int k) {
+            final int mask = (int) table.size() - 1;
             for (int i = (k & mask); ; i = (i + 1) & mask) {
-                final int v = get(bucket, i);
+                final int v = table.get(i);
                 if (v == 0) {
                     // means unused, take it!
-                    set(bucket, i, k);
-                    return sizes.increment(bucket, 1);
+                    table.set(i, k);
+                    return true;
                 } else if (v == k) {
                     // k is already in the set
-                    return -1;
+                    return false;
+                }
+            }
+        }
+
+        private IntArray grow(IntArray table) {
+            final IntArray newTable = bigArrays.newIntArray(table.size() * 2);
+            try {
+                for (long i = 0; i < table.size(); ++i) {
+                    final int k = table.get(i);
+                    if (k != 0) {
+                        add(newTable, k);
+                    }
                 }
+            } finally {
+                Releasables.close(table);
+            }
+            return newTable;
+        }
+
+        /**
+         * Release the hash table of the given bucket, once its hashes moved to the registers.
+         */
+        public void clear(long bucket) {
+            if (bucket < tables.size()) {
+                Releasables.close(tables.set(bucket, null));
+                sizes.set(bucket, 0);
             }
         }
 
@@ -492,9 +559,10 @@ public final class HyperLogLogPlusPlus implements Releasable {
             if (size == 0) {
                 return values;
             }
+            final IntArray table = tables.get(bucket);
             int i = 0;
-            for (int j = 0; j < capacity; ++j) {
-                final int k = get(bucket, j);
+            for (long j = 0; j < table.size(); ++j) {
+                final int k = table.get(j);
                 if (k != 0) {
                     values.set(i++, k);
                 }
@@ -503,6 +571,24 @@ public final class HyperLogLogPlusPlus implements Releasable {
             return values;
         }
 
+        public long ramBytesUsed() {
+            long ramBytesUsed = sizes.ramBytesUsed() + tables.ramBytesUsed();
+            for (long i = 0; i < tables.size(); ++i) {
+                final IntArray table = tables.get(i);
+                if (table != null) {
+                    ramBytesUsed += table.ramBytesUsed();
+                }
+            }
+            return ramBytesUsed;
+        }
+
+        @Override
+        public void close() throws ElasticsearchException {
+            for (long i = 0; i < tables.size(); ++i) {
+                Releasables.close(tables.get(i));
+            }
+            Releasables.close(sizes, tables);
+        }
     }
 
     public void writeTo(long bucket, StreamOutput out) throws IOException {
@@ -511,18 +597,63 @@ public final class HyperLogLogPlusPlus implements Releasable {
             out.writeBoolean(LINEAR_COUNTING);
             try (IntArray hashes = hashSet.values(bucket)) {
                 out.writeVLong(hashes.size());
-                for (long i = 0; i < hashes.size(); ++i) {
-                    out.writeInt(hashes.get(i));
+                if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+                    writeDeltas(hashes, out);
+                } else {
+                    for (long i = 0; i < hashes.size(); ++i) {
+                        out.writeInt(hashes.get(i));
+                    }
                 }
             }
         } else {
             out.writeBoolean(HYPERLOGLOG);
-            for (long i = bucket << p, end = i + m; i < end; ++i) {
+            final long start = registersStart(bucket);
+            if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+                int nonZeroRegisters = 0;
+                for (long i = start, end = i + m; i < end; ++i) {
+                    if (runLens.get(i) != 0) {
+                        ++nonZeroRegisters;
+                    }
+                }
+                // a sparse register takes a byte for its run length and usually one for the delta of its index
+                if (nonZeroRegisters * 2 < m) {
+                    out.writeByte(SPARSE_REGISTERS);
+                    out.writeVInt(nonZeroRegisters);
+                    long previous = start;
+                    for (long i = start, end = i + m; i < end; ++i) {
+                        final byte runLen = runLens.get(i);
+                        if (runLen != 0) {
+                            out.writeVLong(i - previous);
+                            out.writeByte(runLen);
+                            previous = i;
+                        }
+                    }
+                    return;
+                }
+                out.writeByte(DENSE_REGISTERS);
+            }
+            for (long i = start, end = i + m; i < end; ++i) {
                 out.writeByte(runLens.get(i));
             }
         }
     }
 
+    /**
+     * Write the given hashes sorted as unsigned ints, each as the delta with the previous one.
+     */
+    private static void writeDeltas(IntArray hashes, StreamOutput out) throws IOException {
+        final long[] sorted = new long[(int) hashes.size()];
+        for (int i = 0; i < sorted.length; ++i) {
+            sorted[i] = hashes.get(i) & 0xFFFFFFFFL;
+        }
+        Arrays.sort(sorted);
+        long previous = 0;
+        for (long hash : sorted) {
+            out.writeVLong(hash - previous);
+            previous = hash;
+        }
+    }
+
     public static HyperLogLogPlusPlus readFrom(StreamInput in, BigArrays bigArrays) throws IOException {
         final int precision = in.readVInt();
         HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
@@ -530,16 +661,35 @@ public final class HyperLogLogPlusPlus implements Releasable {
         if (algorithm == LINEAR_COUNTING) {
             counts.algorithm.clear(0);
             final long size = in.readVLong();
-            for (long i = 0; i < size; ++i) {
-                final int encoded = in.readInt();
-                counts.hashSet.add(0, encoded);
+            if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+                long hash = 0;
+                for (long i = 0; i < size; ++i) {
+                    hash += in.readVLong();
+                    counts.hashSet.add(0, (int) hash);
+                }
+            } else {
+                for (long i = 0; i < size; ++i) {
+                    final int encoded = in.readInt();
+                    counts.hashSet.add(0, encoded);
+                }
             }
         } else {
+            counts.allocateRegisters(0);
             counts.algorithm.set(0);
-            for (int i = 0; i < counts.m; ++i) {
-                counts.runLens.set(i, in.readByte());
+            if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readByte() == SPARSE_REGISTERS) {
+                final int nonZeroRegisters = in.readVInt();
+                long index = 0;
+                for (int i = 0; i < nonZeroRegisters; ++i) {
+                    index += in.readVLong();
+                    counts.runLens.set(index, in.readByte());
+                }
+            } else {
+                for (int i = 0; i < counts.m; ++i) {
+                    counts.runLens.set(i, in.readByte());
+                }
             }
         }
+        counts.ensureCapacity(1);
         return counts;
     }
     
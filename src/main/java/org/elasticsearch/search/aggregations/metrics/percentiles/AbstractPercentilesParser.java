@@ -24,6 +24,7 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.search.SearchParseException;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.percentiles.hdr.HdrHistogram;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
@@ -47,6 +48,9 @@ public abstract class AbstractPercentilesParser implements Aggregator.Parser {
         double[] keys = null;
         boolean keyed = true;
         double compression = 100;
+        PercentilesMethod method = PercentilesMethod.TDIGEST;
+        int numberOfSignificantValueDigits = HdrHistogram.DEFAULT_SIGNIFICANT_DIGITS;
+        boolean methodSet = false;
     
         XContentParser.Token token;
         String currentFieldName = null;
@@ -67,6 +71,39 @@ public abstract class AbstractPercentilesParser implements Aggregator.Parser {
                 } else {
                     throw new SearchParseException(context, "Unknown key for a " + token + " in [" + aggregationName + "]: [" + currentFieldName + "].");
                 }
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                if (methodSet) {
+                    throw new SearchParseException(context, "Only one of [" + PercentilesMethod.TDIGEST.parseField().getPreferredName()
+                            + "] and [" + PercentilesMethod.HDR.parseField().getPreferredName() + "] can be set in [" + aggregationName + "].");
+                }
+                String methodName = currentFieldName;
+                if (PercentilesMethod.TDIGEST.parseField().match(methodName)) {
+                    method = PercentilesMethod.TDIGEST;
+                } else if (PercentilesMethod.HDR.parseField().match(methodName)) {
+                    method = PercentilesMethod.HDR;
+                } else {
+                    throw new SearchParseException(context, "Unknown key for a " + token + " in [" + aggregationName + "]: [" + currentFieldName + "].");
+                }
+                methodSet = true;
+                while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                    if (token == XContentParser.Token.FIELD_NAME) {
+                        currentFieldName = parser.currentName();
+                    } else if (token == XContentParser.Token.VALUE_NUMBER && method == PercentilesMethod.TDIGEST
+                            && "compression".equals(currentFieldName)) {
+                        compression = parser.doubleValue();
+                    } else if (token == XContentParser.Token.VALUE_NUMBER && method == PercentilesMethod.HDR
+                            && "number_of_significant_value_digits".equals(currentFieldName)) {
+                        numberOfSignificantValueDigits = parser.intValue();
+                        if (numberOfSignificantValueDigits < HdrHistogram.MIN_SIGNIFICANT_DIGITS || numberOfSignificantValueDigits > HdrHistogram.MAX_SIGNIFICANT_DIGITS) {
+                            throw new SearchParseException(context, "[number_of_significant_value_digits] must be between "
+                                    + HdrHistogram.MIN_SIGNIFICANT_DIGITS + " and " + HdrHistogram.MAX_SIGNIFICANT_DIGITS + " in ["
+                                    + aggregationName + "], got [" + numberOfSignificantValueDigits + "].");
+                        }
+                    } else {
+                        throw new SearchParseException(context, "Unknown key for a " + token + " in [" + aggregationName + "]: ["
+                                + methodName + "." + currentFieldName + "].");
+                    }
+                }
             } else if (token == XContentParser.Token.VALUE_BOOLEAN) {
                 if ("keyed".equals(currentFieldName)) {
                     keyed = parser.booleanValue();
@@ -83,11 +120,11 @@ public abstract class AbstractPercentilesParser implements Aggregator.Parser {
                 throw new SearchParseException(context, "Unexpected token " + token + " in [" + aggregationName + "].");
             }
         }
-        return buildFactory(context, aggregationName, vsParser.config(), keys, compression, keyed);
+        return buildFactory(context, aggregationName, vsParser.config(), keys, method, compression, numberOfSignificantValueDigits, keyed);
     }
 
     protected abstract AggregatorFactory buildFactory(SearchContext context, String aggregationName, ValuesSourceConfig<Numeric> config, double[] cdfValues,
-            double compression, boolean keyed);
+            PercentilesMethod method, double compression, int numberOfSignificantValueDigits, boolean keyed);
 
     protected abstract String keysFieldName();
 
@@ -30,6 +30,8 @@ public class PercentileRanksBuilder extends ValuesSourceMetricsAggregationBuilde
 
     private double[] values;
     private Double compression;
+    private PercentilesMethod method;
+    private Integer numberOfSignificantValueDigits;
 
     /**
      * Sole constructor.
@@ -54,6 +56,23 @@ public class PercentileRanksBuilder extends ValuesSourceMetricsAggregationBuilde
         return this;
     }
 
+    /**
+     * Set the algorithm to compute the percentiles with, defaults to {@link PercentilesMethod#TDIGEST}.
+     */
+    public PercentileRanksBuilder method(PercentilesMethod method) {
+        this.method = method;
+        return this;
+    }
+
+    /**
+     * Expert: set the number of significant digits of the values when the {@link PercentilesMethod#HDR} method is used.
+     * Higher values improve accuracy but also memory usage.
+     */
+    public PercentileRanksBuilder numberOfSignificantValueDigits(int numberOfSignificantValueDigits) {
+        this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
+        return this;
+    }
+
     @Override
     protected void internalXContent(XContentBuilder builder, Params params) throws IOException {
         super.internalXContent(builder, params);
@@ -65,5 +84,13 @@ public class PercentileRanksBuilder extends ValuesSourceMetricsAggregationBuilde
         if (compression != null) {
             builder.field("compression", compression);
         }
+
+        if (method == PercentilesMethod.HDR || numberOfSignificantValueDigits != null) {
+            builder.startObject(PercentilesMethod.HDR.parseField().getPreferredName());
+            if (numberOfSignificantValueDigits != null) {
+                builder.field("number_of_significant_value_digits", numberOfSignificantValueDigits);
+            }
+            builder.endObject();
+        }
     }
 }
@@ -0,0 +1,50 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles;
+
+import org.elasticsearch.common.ParseField;
+
+/**
+ * The algorithms the percentiles and percentile ranks aggregations can be computed with.
+ */
+public enum PercentilesMethod {
+
+    /**
+     * The t-digest algorithm, which is the most accurate at the tails and takes memory proportional to the compression.
+     */
+    TDIGEST(new ParseField("tdigest")),
+
+    /**
+     * A high dynamic range histogram, which records values with a fixed number of significant digits and only supports
+     * positive values. Its counts are allocated lazily, one page per power of two the values fall in, in a window that grows
+     * both ways to cover the recorded values, and the pages are accounted to the request circuit breaker.
+     */
+    HDR(new ParseField("hdr"));
+
+    private final ParseField parseField;
+
+    PercentilesMethod(ParseField parseField) {
+        this.parseField = parseField;
+    }
+
+    public ParseField parseField() {
+        return parseField;
+    }
+}
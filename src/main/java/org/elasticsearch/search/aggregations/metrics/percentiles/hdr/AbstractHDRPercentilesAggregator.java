@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.hdr;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.ArrayUtils;
+import org.elasticsearch.common.util.ObjectArray;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+
+import java.io.IOException;
+import java.util.Map;
+
+public abstract class AbstractHDRPercentilesAggregator extends NumericMetricsAggregator.MultiValue {
+
+    private static int indexOfKey(double[] keys, double key) {
+        return ArrayUtils.binarySearch(keys, key, 0.001);
+    }
+
+    protected final double[] keys;
+    protected final ValuesSource.Numeric valuesSource;
+    private SortedNumericDoubleValues values;
+    protected ObjectArray<HdrHistogram> states;
+    protected final int numberOfSignificantValueDigits;
+    protected final boolean keyed;
+    // the bytes of the histograms reported to the request circuit breaker so far
+    private long accountedBytes;
+
+    public AbstractHDRPercentilesAggregator(String name, long estimatedBucketsCount, ValuesSource.Numeric valuesSource, AggregationContext context,
+                                 Aggregator parent, double[] keys, int numberOfSignificantValueDigits, boolean keyed, Map<String, Object> metaData) {
+        super(name, estimatedBucketsCount, context, parent, metaData);
+        this.valuesSource = valuesSource;
+        this.keyed = keyed;
+        this.keys = keys;
+        this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
+        this.states = bigArrays.newObjectArray(estimatedBucketsCount);
+    }
+
+    @Override
+    public boolean shouldCollect() {
+        return valuesSource != null;
+    }
+
+    @Override
+    public void setNextReader(LeafReaderContext reader) {
+        values = valuesSource.doubleValues();
+    }
+
+    @Override
+    public void collect(int doc, long bucketOrd) throws IOException {
+        states = bigArrays.grow(states, bucketOrd + 1);
+
+        HdrHistogram state = states.get(bucketOrd);
+        if (state == null) {
+            state = new HdrHistogram(numberOfSignificantValueDigits);
+            states.set(bucketOrd, state);
+        }
+
+        final long ramBytesUsed = state.ramBytesUsed();
+        values.setDocument(doc);
+        final int valueCount = values.count();
+        for (int i = 0; i < valueCount; i++) {
+            state.collect(values.valueAt(i));
+        }
+        final long delta = state.ramBytesUsed() - ramBytesUsed;
+        if (delta != 0) {
+            // the breaker keeps the estimate even if it trips, so it needs to be released on close either way
+            accountedBytes += delta;
+            bigArrays.adjustBreaker(delta);
+        }
+    }
+
+    @Override
+    public boolean hasMetric(String name) {
+        return indexOfKey(keys, Double.parseDouble(name)) >= 0;
+    }
+
+    protected HdrHistogram getState(long bucketOrd) {
+        if (bucketOrd >= states.size()) {
+            return null;
+        }
+        return states.get(bucketOrd);
+    }
+
+    @Override
+    protected void doClose() {
+        Releasables.close(states);
+        bigArrays.adjustBreaker(-accountedBytes);
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.hdr;
+
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.support.*;
+import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric;
+
+import java.util.Map;
+
+/**
+ * Computes percentile ranks with a {@link HdrHistogram} per bucket.
+ */
+public class HDRPercentileRanksAggregator extends AbstractHDRPercentilesAggregator {
+
+    public HDRPercentileRanksAggregator(String name, long estimatedBucketsCount, Numeric valuesSource, AggregationContext context,
+            Aggregator parent, double[] values, int numberOfSignificantValueDigits, boolean keyed, Map<String, Object> metaData) {
+        super(name, estimatedBucketsCount, valuesSource, context, parent, values, numberOfSignificantValueDigits, keyed, metaData);
+    }
+
+    @Override
+    public InternalAggregation buildAggregation(long owningBucketOrdinal) {
+        HdrHistogram state = getState(owningBucketOrdinal);
+        if (state == null) {
+            return buildEmptyAggregation();
+        } else {
+            return new InternalHDRPercentileRanks(name, keys, state, keyed, getMetaData());
+        }
+    }
+
+    @Override
+    public double metric(String name, long bucketOrd) {
+        HdrHistogram state = getState(bucketOrd);
+        if (state == null) {
+            return Double.NaN;
+        } else {
+            return InternalHDRPercentileRanks.percentileRank(state, Double.parseDouble(name));
+        }
+    }
+
+    @Override
+    public InternalAggregation buildEmptyAggregation() {
+        return new InternalHDRPercentileRanks(name, keys, new HdrHistogram(numberOfSignificantValueDigits), keyed, getMetaData());
+    }
+
+    public static class Factory extends ValuesSourceAggregatorFactory.LeafOnly<ValuesSource.Numeric, Map<String, Object>> {
+
+        private final double[] values;
+        private final int numberOfSignificantValueDigits;
+        private final boolean keyed;
+
+        public Factory(String name, ValuesSourceConfig<ValuesSource.Numeric> valuesSourceConfig,
+                double[] values, int numberOfSignificantValueDigits, boolean keyed) {
+            super(name, InternalHDRPercentileRanks.TYPE.name(), valuesSourceConfig);
+            this.values = values;
+            this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
+            this.keyed = keyed;
+        }
+
+        @Override
+        protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
+            return new HDRPercentileRanksAggregator(name, 0, null, aggregationContext, parent, values, numberOfSignificantValueDigits, keyed, metaData);
+        }
+
+        @Override
+        protected Aggregator create(ValuesSource.Numeric valuesSource, long expectedBucketsCount, AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
+            return new HDRPercentileRanksAggregator(name, expectedBucketsCount, valuesSource, aggregationContext, parent, values, numberOfSignificantValueDigits, keyed, metaData);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.hdr;
+
+import com.google.common.base.Preconditions;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+/**
+ * High dynamic range histogram of positive values, in the spirit of http://hdrhistogram.org: each power of two is split
+ * into the same number of linear sub-buckets, so that every value is recorded with a fixed number of significant decimal
+ * digits whatever its magnitude.
+ *
+ * This implementation records doubles and only allocates the counts of the powers of two that values were recorded in,
+ * one page of counts per power of two. The histogram covers a window of consecutive powers of two that starts around the
+ * first recorded value and grows on demand to cover all the values, so any positive finite value can be recorded. Zeros
+ * and subnormal values are counted separately and don't need to fit in the window.
+ */
+public final class HdrHistogram {
+
+    public static final int MIN_SIGNIFICANT_DIGITS = 0;
+    public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+    public static final int MAX_SIGNIFICANT_DIGITS = 5;
+    private static final int MANTISSA_BITS = 52;
+    private static final long MANTISSA_MASK = (1L << MANTISSA_BITS) - 1;
+    private static final long[][] EMPTY_PAGES = new long[0][];
+
+    /**
+     * Returns the log2 of the number of sub-buckets a power of two needs to be split into to tell apart values that differ
+     * by their given number of significant digits.
+     */
+    static int subBucketBits(int significantDigits) {
+        long pow10 = 1;
+        for (int i = 0; i < significantDigits; ++i) {
+            pow10 *= 10;
+        }
+        return 64 - Long.numberOfLeadingZeros(pow10 - 1);
+    }
+
+    private final int significantDigits;
+    private final int subBucketBits;
+    // the exponent of the power of two of the first page of the window
+    private int minExponent;
+    // one page of counts per power of two of the window, null until a value of that power of two is recorded
+    private long[][] pages = EMPTY_PAGES;
+    private long zeroCount;
+    private long totalCount;
+    private double minValue = Double.POSITIVE_INFINITY;
+    private double maxValue = Double.NEGATIVE_INFINITY;
+    private int numAllocatedPages;
+
+    public HdrHistogram(int significantDigits) {
+        Preconditions.checkArgument(significantDigits >= MIN_SIGNIFICANT_DIGITS, "significant digits must be >= " + MIN_SIGNIFICANT_DIGITS);
+        Preconditions.checkArgument(significantDigits <= MAX_SIGNIFICANT_DIGITS, "significant digits must be <= " + MAX_SIGNIFICANT_DIGITS);
+        this.significantDigits = significantDigits;
+        this.subBucketBits = subBucketBits(significantDigits);
+    }
+
+    public int significantDigits() {
+        return significantDigits;
+    }
+
+    /**
+     * Returns the number of values recorded in this histogram.
+     */
+    public long count() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the number of bytes the counts of this histogram take, which only grows as values are recorded.
+     */
+    public long ramBytesUsed() {
+        final long pageBytes = RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                + ((long) RamUsageEstimator.NUM_BYTES_LONG << subBucketBits));
+        final long windowBytes = RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+                + (long) RamUsageEstimator.NUM_BYTES_OBJECT_REF * pages.length);
+        return numAllocatedPages * pageBytes + windowBytes;
+    }
+
+    public void collect(double value) {
+        if (value < 0 || Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new ElasticsearchIllegalArgumentException("[hdr] percentiles only support positive finite values, got [" + value + "]");
+        }
+        if (value < Double.MIN_NORMAL) {
+            zeroCount++;
+        } else {
+            page(Math.getExponent(value))[subBucket(value)]++;
+        }
+        updateMinMax(value, value);
+        totalCount++;
+    }
+
+    private int subBucket(double value) {
+        return (int) ((Double.doubleToRawLongBits(value) & MANTISSA_MASK) >>> (MANTISSA_BITS - subBucketBits));
+    }
+
+    private void updateMinMax(double min, double max) {
+        minValue = Math.min(minValue, min);
+        maxValue = Math.max(maxValue, max);
+    }
+
+    /**
+     * Returns the page of counts of the power of two of the given exponent, growing the window and allocating the page if
+     * needed.
+     */
+    private long[] page(int exponent) {
+        if (pages.length == 0) {
+            pages = new long[1][];
+            minExponent = exponent;
+        } else if (exponent < minExponent) {
+            pages = grow(minExponent - exponent, pages.length + minExponent - exponent);
+            minExponent = exponent;
+        } else if (exponent >= minExponent + pages.length) {
+            pages = grow(0, exponent - minExponent + 1);
+        }
+        final int index = exponent - minExponent;
+        long[] page = pages[index];
+        if (page == null) {
+            page = new long[1 << subBucketBits];
+            pages[index] = page;
+            numAllocatedPages++;
+        }
+        return page;
+    }
+
+    /**
+     * Returns a copy of the pages of the window, moved by the given offset, in an array of the given length. Only the page
+     * references are copied, the counts stay where they are.
+     */
+    private long[][] grow(int offset, int length) {
+        final long[][] grown = new long[length][];
+        System.arraycopy(pages, 0, grown, offset, pages.length);
+        return grown;
+    }
+
+    /**
+     * Returns a value that is representative of the values recorded in the given sub-bucket of the given page.
+     */
+    private double value(int page, int subBucket) {
+        // the middle of the sub-bucket
+        final double mantissa = 1 + (subBucket + 0.5) / (1L << subBucketBits);
+        final double value = Math.scalb(mantissa, minExponent + page);
+        return Math.max(minValue, Math.min(maxValue, value));
+    }
+
+    /**
+     * Returns the value below which the given fraction of the recorded values fall, or {@link Double#NaN} if the
+     * histogram is empty.
+     */
+    public double quantile(double q) {
+        if (totalCount == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) {
+            return minValue;
+        } else if (q >= 1) {
+            return maxValue;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(q * totalCount));
+        long count = zeroCount;
+        if (count >= rank) {
+            return minValue;
+        }
+        for (int i = 0; i < pages.length; ++i) {
+            final long[] page = pages[i];
+            if (page == null) {
+                continue;
+            }
+            for (int j = 0; j < page.length; ++j) {
+                count += page[j];
+                if (count >= rank) {
+                    return value(i, j);
+                }
+            }
+        }
+        return maxValue;
+    }
+
+    /**
+     * Returns the fraction of the recorded values that are less than or equivalent to the given value, or
+     * {@link Double#NaN} if the histogram is empty.
+     */
+    public double cdf(double value) {
+        if (totalCount == 0) {
+            return Double.NaN;
+        }
+        if (value < minValue) {
+            return 0;
+        } else if (value >= maxValue) {
+            return 1;
+        }
+        long count = zeroCount;
+        if (value >= Double.MIN_NORMAL) {
+            final int last = Math.getExponent(value) - minExponent;
+            for (int i = 0; i <= last && i < pages.length; ++i) {
+                final long[] page = pages[i];
+                if (page == null) {
+                    continue;
+                }
+                final int end = i == last ? subBucket(value) : page.length - 1;
+                for (int j = 0; j <= end; ++j) {
+                    count += page[j];
+                }
+            }
+        }
+        return (double) count / totalCount;
+    }
+
+    /**
+     * Adds the counts of the given histogram to this one.
+     */
+    public void merge(HdrHistogram other) {
+        Preconditions.checkArgument(significantDigits == other.significantDigits);
+        if (other.totalCount == 0) {
+            return;
+        }
+        for (int i = 0; i < other.pages.length; ++i) {
+            final long[] otherPage = other.pages[i];
+            if (otherPage != null) {
+                final long[] page = page(other.minExponent + i);
+                for (int j = 0; j < page.length; ++j) {
+                    page[j] += otherPage[j];
+                }
+            }
+        }
+        zeroCount += other.zeroCount;
+        totalCount += other.totalCount;
+        updateMinMax(other.minValue, other.maxValue);
+    }
+
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(significantDigits);
+        out.writeVLong(totalCount);
+        if (totalCount == 0) {
+            return;
+        }
+        out.writeDouble(minValue);
+        out.writeDouble(maxValue);
+        out.writeVLong(zeroCount);
+        out.writeInt(minExponent);
+        long nonEmpty = 0;
+        for (long[] page : pages) {
+            if (page != null) {
+                for (long count : page) {
+                    if (count != 0) {
+                        nonEmpty++;
+                    }
+                }
+            }
+        }
+        // only the non empty counts are written, along with their distance to the previous one in the window
+        out.writeVLong(nonEmpty);
+        long previous = -1;
+        for (int i = 0; i < pages.length; ++i) {
+            final long[] page = pages[i];
+            if (page == null) {
+                continue;
+            }
+            for (int j = 0; j < page.length; ++j) {
+                if (page[j] != 0) {
+                    final long index = ((long) i << subBucketBits) + j;
+                    out.writeVLong(index - previous);
+                    out.writeVLong(page[j]);
+                    previous = index;
+                }
+            }
+        }
+    }
+
+    public static HdrHistogram readFrom(StreamInput in) throws IOException {
+        HdrHistogram histogram = new HdrHistogram(in.readVInt());
+        histogram.totalCount = in.readVLong();
+        if (histogram.totalCount == 0) {
+            return histogram;
+        }
+        histogram.minValue = in.readDouble();
+        histogram.maxValue = in.readDouble();
+        histogram.zeroCount = in.readVLong();
+        final int minExponent = in.readInt();
+        final long nonEmpty = in.readVLong();
+        long index = -1;
+        for (long i = 0; i < nonEmpty; ++i) {
+            index += in.readVLong();
+            final int exponent = minExponent + (int) (index >>> histogram.subBucketBits);
+            histogram.page(exponent)[(int) (index & ((1L << histogram.subBucketBits) - 1))] = in.readVLong();
+        }
+        return histogram;
+    }
+}
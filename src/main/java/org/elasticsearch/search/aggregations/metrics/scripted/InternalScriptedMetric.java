@@ -57,6 +57,9 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
     private String reduceScript;
     private Map<String, Object> reduceParams;
     private Object aggregation;
+    // set on the result of a partial reduce, which holds the list of the shard results it was reduced from. Partial reduces
+    // only happen on the coordinating node so this is never serialized
+    private boolean partial;
 
     private InternalScriptedMetric() {
     }
@@ -85,9 +88,21 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
         List<Object> aggregationObjects = new ArrayList<>();
         for (InternalAggregation aggregation : reduceContext.aggregations()) {
             InternalScriptedMetric mapReduceAggregation = (InternalScriptedMetric) aggregation;
-            aggregationObjects.add(mapReduceAggregation.aggregation());
+            if (mapReduceAggregation.partial) {
+                aggregationObjects.addAll((List<?>) mapReduceAggregation.aggregation());
+            } else {
+                aggregationObjects.add(mapReduceAggregation.aggregation());
+            }
         }
         InternalScriptedMetric firstAggregation = ((InternalScriptedMetric) reduceContext.aggregations().get(0));
+        if (reduceContext.isFinalReduce() == false) {
+            // the reduce script has to see the results of all the shards at once, so it only runs on the final reduce
+            InternalScriptedMetric reduced = new InternalScriptedMetric(firstAggregation.getName(), aggregationObjects,
+                    firstAggregation.scriptLang, firstAggregation.scriptType, firstAggregation.reduceScript,
+                    firstAggregation.reduceParams, getMetaData());
+            reduced.partial = true;
+            return reduced;
+        }
         Object aggregation;
         if (firstAggregation.reduceScript != null) {
             Map<String, Object> params;
@@ -155,6 +155,12 @@ public class ScriptedMetricAggregator extends MetricsAggregator {
             return new ScriptedMetricAggregator(name, scriptLang, initScriptType, initScript, mapScriptType, mapScript, combineScriptType,
                     combineScript, reduceScriptType, reduceScript, params, reduceParams, context, parent, metaData);
         }
+
+        @Override
+        public boolean supportsConcurrentCollection() {
+            // the combine script is expected to run once per shard
+            return false;
+        }
         
         @SuppressWarnings({ "unchecked" })
         private static <T> T deepCopyParams(T original, SearchContext context) {
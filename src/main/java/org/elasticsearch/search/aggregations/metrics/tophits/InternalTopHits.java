@@ -113,7 +113,13 @@ public class InternalTopHits extends InternalMetricsAggregation implements TopHi
 
         try {
             int[] tracker = new int[shardHits.length];
-            TopDocs reducedTopDocs = TopDocs.merge(sort, from, size, shardDocs);
+            // a partial reduce can't skip the first hits yet, it keeps all the hits that may still end up in the top hits
+            final TopDocs reducedTopDocs;
+            if (reduceContext.isFinalReduce()) {
+                reducedTopDocs = TopDocs.merge(sort, from, size, shardDocs);
+            } else {
+                reducedTopDocs = TopDocs.merge(sort, 0, from + size, shardDocs);
+            }
             InternalSearchHit[] hits = new InternalSearchHit[reducedTopDocs.scoreDocs.length];
             for (int i = 0; i < reducedTopDocs.scoreDocs.length; i++) {
                 ScoreDoc scoreDoc = reducedTopDocs.scoreDocs[i];
@@ -123,7 +129,11 @@ public class InternalTopHits extends InternalMetricsAggregation implements TopHi
                 } while (shardDocs[scoreDoc.shardIndex].scoreDocs[position] != scoreDoc);
                 hits[i] = (InternalSearchHit) shardHits[scoreDoc.shardIndex].getAt(position);
             }
-            return new InternalTopHits(name, new InternalSearchHits(hits, reducedTopDocs.totalHits, reducedTopDocs.getMaxScore()));
+            InternalSearchHits searchHits = new InternalSearchHits(hits, reducedTopDocs.totalHits, reducedTopDocs.getMaxScore());
+            if (reduceContext.isFinalReduce() == false) {
+                return new InternalTopHits(name, from, size, reducedTopDocs, searchHits);
+            }
+            return new InternalTopHits(name, searchHits);
         } catch (IOException e) {
             throw ExceptionsHelper.convertToElastic(e);
         }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.metrics.InternalNumericMetricsAggregation;
+import org.elasticsearch.search.aggregations.support.AggregationPath;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Helpers to resolve the values pipeline aggregators compute their output from.
+ */
+public class BucketHelpers {
+
+    /**
+     * Defines what should happen with buckets that have no value for the <tt>buckets_path</tt>, typically because they
+     * do not contain any document:
+     * <ul>
+     *     <li>skip - the bucket is ignored, as if it was not part of the series</li>
+     *     <li>insert_zeros - the missing value is replaced with zero</li>
+     * </ul>
+     */
+    public static enum GapPolicy {
+        SKIP((byte) 0, "skip"),
+        INSERT_ZEROS((byte) 1, "insert_zeros");
+
+        private final byte id;
+        private final String name;
+
+        GapPolicy(byte id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static GapPolicy parse(SearchContext context, String text) {
+            for (GapPolicy policy : values()) {
+                if (policy.name.equals(text.toLowerCase(Locale.ROOT))) {
+                    return policy;
+                }
+            }
+            throw new SearchParseException(context, "Invalid gap policy [" + text + "], expected one of [skip, insert_zeros]");
+        }
+
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeByte(id);
+        }
+
+        public static GapPolicy readFrom(StreamInput in) throws IOException {
+            byte id = in.readByte();
+            for (GapPolicy policy : values()) {
+                if (policy.id == id) {
+                    return policy;
+                }
+            }
+            throw new ElasticsearchIllegalArgumentException("Unknown gap policy [" + id + "]");
+        }
+    }
+
+    private BucketHelpers() {
+    }
+
+    /**
+     * Resolves the value the given path points to within the given bucket.
+     *
+     * @param aggName   The name of the multi bucket aggregation the bucket belongs to
+     * @param bucket    The bucket to resolve the value in
+     * @param path      The path, relative to the bucket, to resolve
+     * @param gapPolicy What to do if the bucket does not hold a value
+     * @return The value, or {@link Double#NaN} if the bucket holds no value and gaps are skipped
+     */
+    public static double resolveBucketValue(String aggName, InternalMultiBucketAggregation.InternalBucket bucket, String path, GapPolicy gapPolicy) {
+        return resolveBucketValue(aggName, bucket, AggregationPath.parse(path).getPathElementsAsStringList(), gapPolicy);
+    }
+
+    /**
+     * Same as {@link #resolveBucketValue(String, InternalMultiBucketAggregation.InternalBucket, String, GapPolicy)} for an
+     * already parsed path.
+     */
+    public static double resolveBucketValue(String aggName, InternalMultiBucketAggregation.InternalBucket bucket, List<String> pathElements,
+                                            GapPolicy gapPolicy) {
+        String path = Strings.collectionToDelimitedString(pathElements, ">");
+        Object property;
+        try {
+            property = bucket.getProperty(aggName, pathElements);
+        } catch (ElasticsearchIllegalArgumentException e) {
+            throw new AggregationExecutionException("Invalid buckets_path [" + path + "] for aggregation [" + aggName + "]", e);
+        }
+        double value;
+        if (property instanceof Number) {
+            value = ((Number) property).doubleValue();
+        } else if (property instanceof InternalNumericMetricsAggregation.SingleValue) {
+            value = ((InternalNumericMetricsAggregation.SingleValue) property).value();
+        } else {
+            throw new AggregationExecutionException("buckets_path [" + path + "] must reference either a number value or a single value numeric metric aggregation");
+        }
+        boolean isCount = "_count".equals(pathElements.get(0));
+        if (Double.isInfinite(value) || Double.isNaN(value) || (bucket.getDocCount() == 0 && !isCount)) {
+            switch (gapPolicy) {
+                case INSERT_ZEROS:
+                    return 0;
+                case SKIP:
+                default:
+                    return Double.NaN;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.search.aggregations.AggregationInitializationException;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationPath;
+
+import java.util.List;
+
+/**
+ * A pipeline aggregator defined as a sub aggregation of a histogram, which computes a value for every bucket
+ * of its parent out of the series of values its <tt>buckets_path</tt> points to in the buckets.
+ */
+public abstract class ParentPipelineAggregator extends PipelineAggregator {
+
+    protected ParentPipelineAggregator() { // for serialization
+    }
+
+    protected ParentPipelineAggregator(String name, String[] bucketsPaths) {
+        super(name, bucketsPaths);
+    }
+
+    /**
+     * Computes the output of this pipeline aggregator for each bucket of the parent aggregation.
+     *
+     * @param aggName   The name of the parent aggregation
+     * @param buckets   The reduced buckets of the parent aggregation, sorted by ascending key
+     * @param reduceContext The reduce context
+     * @return The aggregation to add to each bucket, with {@code null} entries for the buckets that get no value
+     */
+    public abstract InternalAggregation[] reduceBuckets(String aggName, List<? extends InternalMultiBucketAggregation.InternalBucket> buckets,
+                                                        ReduceContext reduceContext);
+
+    @Override
+    public void validate(AggregatorFactory parent, AggregatorFactory[] siblings, List<PipelineAggregator> pipelineSiblings) {
+        if (!(parent instanceof HistogramAggregator.Factory)) {
+            throw new AggregationInitializationException("[" + type().name() + "] aggregation [" + name()
+                    + "] must have a histogram or date_histogram as parent");
+        }
+        for (String bucketsPath : bucketsPaths()) {
+            String first = AggregationPath.parse(bucketsPath).getPathElements().get(0).name;
+            if ("_count".equals(first) || "_key".equals(first)) {
+                continue;
+            }
+            if (!containsName(first, siblings, pipelineSiblings)) {
+                throw new AggregationInitializationException("No aggregation found for buckets_path [" + bucketsPath + "] of ["
+                        + type().name() + "] aggregation [" + name() + "]");
+            }
+        }
+    }
+
+    static boolean containsName(String name, AggregatorFactory[] siblings, List<PipelineAggregator> pipelineSiblings) {
+        for (AggregatorFactory sibling : siblings) {
+            if (sibling.name().equals(name)) {
+                return true;
+            }
+        }
+        for (PipelineAggregator pipelineSibling : pipelineSiblings) {
+            if (pipelineSibling.name().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An aggregation that computes its value out of the output of other aggregations, rather than out of documents.
+ * Pipeline aggregators are parsed on the shards along with the other aggregations, travel back to the coordinating
+ * node with the shard results and are only applied once the aggregations they refer to have been reduced.
+ */
+public abstract class PipelineAggregator implements Streamable {
+
+    /**
+     * Parses the pipeline aggregation request and creates the appropriate pipeline aggregator for it.
+     */
+    public static interface Parser {
+
+        /**
+         * @return The pipeline aggregation type this parser is associated with.
+         */
+        String type();
+
+        /**
+         * Returns the pipeline aggregator the given request describes.
+         *
+         * @param pipelineAggregatorName The name of the pipeline aggregation
+         * @param parser                 The xcontent parser, positioned on the start of the definition
+         * @param context                The search context
+         */
+        PipelineAggregator parse(String pipelineAggregatorName, XContentParser parser, SearchContext context) throws IOException;
+    }
+
+    public static final ParseField BUCKETS_PATH = new ParseField("buckets_path");
+    public static final ParseField GAP_POLICY = new ParseField("gap_policy");
+
+    private String name;
+    private String[] bucketsPaths;
+    private Map<String, Object> metaData;
+
+    protected PipelineAggregator() { // for serialization
+    }
+
+    protected PipelineAggregator(String name, String[] bucketsPaths) {
+        this.name = name;
+        this.bucketsPaths = bucketsPaths;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return The paths, relative to the level this pipeline aggregation is defined at, of the values it computes its result from.
+     */
+    public String[] bucketsPaths() {
+        return bucketsPaths;
+    }
+
+    public Map<String, Object> metaData() {
+        return metaData;
+    }
+
+    public void setMetaData(Map<String, Object> metaData) {
+        this.metaData = metaData;
+    }
+
+    /**
+     * @return The type of this pipeline aggregator, also used as the stream type.
+     */
+    public abstract InternalAggregation.Type type();
+
+    /**
+     * Validates this pipeline aggregator against the aggregations it is defined with.
+     *
+     * @param parent    The factory of the aggregation this pipeline aggregation is a sub aggregation of, {@code null} at the top level
+     * @param siblings  The factories of the sibling aggregations
+     * @param pipelineSiblings The pipeline aggregators defined before this one at the same level
+     */
+    public abstract void validate(AggregatorFactory parent, AggregatorFactory[] siblings, List<PipelineAggregator> pipelineSiblings);
+
+    @Override
+    public final void readFrom(StreamInput in) throws IOException {
+        name = in.readString();
+        bucketsPaths = in.readStringArray();
+        metaData = in.readMap();
+        doReadFrom(in);
+    }
+
+    protected abstract void doReadFrom(StreamInput in) throws IOException;
+
+    @Override
+    public final void writeTo(StreamOutput out) throws IOException {
+        out.writeString(name);
+        out.writeStringArray(bucketsPaths);
+        out.writeGenericValue(metaData);
+        doWriteTo(out);
+    }
+
+    protected abstract void doWriteTo(StreamOutput out) throws IOException;
+}
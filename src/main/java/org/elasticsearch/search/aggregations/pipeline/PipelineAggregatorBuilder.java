@@ -0,0 +1,89 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+
+import java.io.IOException;
+
+/**
+ * Base builder for pipeline aggregations.
+ */
+public abstract class PipelineAggregatorBuilder<B extends PipelineAggregatorBuilder<B>> extends AbstractAggregationBuilder {
+
+    private String[] bucketsPaths;
+    private GapPolicy gapPolicy;
+    private String format;
+
+    protected PipelineAggregatorBuilder(String name, String type) {
+        super(name, type);
+    }
+
+    /**
+     * Sets the paths of the values this pipeline aggregation is computed from.
+     */
+    @SuppressWarnings("unchecked")
+    public B bucketsPath(String... bucketsPaths) {
+        this.bucketsPaths = bucketsPaths;
+        return (B) this;
+    }
+
+    /**
+     * Sets what to do with buckets that have no value, defaults to {@link GapPolicy#SKIP}.
+     */
+    @SuppressWarnings("unchecked")
+    public B gapPolicy(GapPolicy gapPolicy) {
+        this.gapPolicy = gapPolicy;
+        return (B) this;
+    }
+
+    /**
+     * Sets the decimal pattern used to render the computed values as strings.
+     */
+    @SuppressWarnings("unchecked")
+    public B format(String format) {
+        this.format = format;
+        return (B) this;
+    }
+
+    @Override
+    public final XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(getName()).startObject(type);
+        if (bucketsPaths != null) {
+            if (bucketsPaths.length == 1) {
+                builder.field(PipelineAggregator.BUCKETS_PATH.getPreferredName(), bucketsPaths[0]);
+            } else {
+                builder.array(PipelineAggregator.BUCKETS_PATH.getPreferredName(), bucketsPaths);
+            }
+        }
+        if (gapPolicy != null) {
+            builder.field(PipelineAggregator.GAP_POLICY.getPreferredName(), gapPolicy.getName());
+        }
+        if (format != null) {
+            builder.field(PipelineAggregatorParser.FORMAT, format);
+        }
+        internalXContent(builder, params);
+        return builder.endObject().endObject();
+    }
+
+    protected abstract void internalXContent(XContentBuilder builder, Params params) throws IOException;
+}
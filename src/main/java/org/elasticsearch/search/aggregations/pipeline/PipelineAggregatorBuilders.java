@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.AvgBucketPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.BucketMetricsBuilder;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.MaxBucketPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.MinBucketPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.SumBucketPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.bucketscript.BucketScriptBuilder;
+import org.elasticsearch.search.aggregations.pipeline.cumulativesum.CumulativeSumBuilder;
+import org.elasticsearch.search.aggregations.pipeline.derivative.DerivativeBuilder;
+import org.elasticsearch.search.aggregations.pipeline.movavg.MovAvgBuilder;
+
+/**
+ * Utility class to create pipeline aggregations.
+ */
+public class PipelineAggregatorBuilders {
+
+    private PipelineAggregatorBuilders() {
+    }
+
+    public static DerivativeBuilder derivative(String name) {
+        return new DerivativeBuilder(name);
+    }
+
+    public static CumulativeSumBuilder cumulativeSum(String name) {
+        return new CumulativeSumBuilder(name);
+    }
+
+    public static MovAvgBuilder movingAvg(String name) {
+        return new MovAvgBuilder(name);
+    }
+
+    public static BucketScriptBuilder bucketScript(String name) {
+        return new BucketScriptBuilder(name);
+    }
+
+    public static BucketMetricsBuilder avgBucket(String name) {
+        return new BucketMetricsBuilder(name, AvgBucketPipelineAggregator.TYPE.name());
+    }
+
+    public static BucketMetricsBuilder maxBucket(String name) {
+        return new BucketMetricsBuilder(name, MaxBucketPipelineAggregator.TYPE.name());
+    }
+
+    public static BucketMetricsBuilder minBucket(String name) {
+        return new BucketMetricsBuilder(name, MinBucketPipelineAggregator.TYPE.name());
+    }
+
+    public static BucketMetricsBuilder sumBucket(String name) {
+        return new BucketMetricsBuilder(name, SumBucketPipelineAggregator.TYPE.name());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parser for the pipeline aggregations which are configured with a <tt>buckets_path</tt>, an optional
+ * <tt>gap_policy</tt> and an optional <tt>format</tt>, on top of their own parameters.
+ */
+public abstract class PipelineAggregatorParser implements PipelineAggregator.Parser {
+
+    public static final String FORMAT = "format";
+
+    protected final InternalAggregation.Type pipelineType;
+
+    protected PipelineAggregatorParser(InternalAggregation.Type pipelineType) {
+        this.pipelineType = pipelineType;
+    }
+
+    @Override
+    public String type() {
+        return pipelineType.name();
+    }
+
+    @Override
+    public PipelineAggregator parse(String pipelineAggregatorName, XContentParser parser, SearchContext context) throws IOException {
+        XContentParser.Token token;
+        String currentFieldName = null;
+        String[] bucketsPaths = null;
+        String format = null;
+        GapPolicy gapPolicy = GapPolicy.SKIP;
+        Map<String, Object> params = new HashMap<>();
+
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.VALUE_STRING && PipelineAggregator.BUCKETS_PATH.match(currentFieldName)) {
+                bucketsPaths = new String[] { parser.text() };
+            } else if (token == XContentParser.Token.VALUE_STRING && PipelineAggregator.GAP_POLICY.match(currentFieldName)) {
+                gapPolicy = GapPolicy.parse(context, parser.text());
+            } else if (token == XContentParser.Token.VALUE_STRING && FORMAT.equals(currentFieldName)) {
+                format = parser.text();
+            } else if (token == XContentParser.Token.START_ARRAY && PipelineAggregator.BUCKETS_PATH.match(currentFieldName)) {
+                List<String> paths = new ArrayList<>();
+                while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+                    paths.add(parser.text());
+                }
+                bucketsPaths = paths.toArray(new String[paths.size()]);
+            } else if (!token(pipelineAggregatorName, currentFieldName, token, parser, context, params)) {
+                throw new SearchParseException(context, "Unexpected token " + token + " [" + currentFieldName + "] in ["
+                        + pipelineAggregatorName + "].");
+            }
+        }
+
+        if (bucketsPaths == null) {
+            throw new SearchParseException(context, "Missing required field [" + PipelineAggregator.BUCKETS_PATH.getPreferredName()
+                    + "] for " + type() + " aggregation [" + pipelineAggregatorName + "]");
+        }
+
+        ValueFormatter formatter = format == null ? null : new ValueFormatter.Number.Pattern(format);
+        return createPipelineAggregator(pipelineAggregatorName, bucketsPaths, gapPolicy, formatter, params, context);
+    }
+
+    /**
+     * Parses a parameter that is specific to this pipeline aggregation type into the given parameters.
+     *
+     * @return {@code true} if the parameter was consumed, {@code false} if it is unknown
+     */
+    protected boolean token(String pipelineAggregatorName, String currentFieldName, XContentParser.Token token, XContentParser parser,
+                            SearchContext context, Map<String, Object> params) throws IOException {
+        return false;
+    }
+
+    /**
+     * Creates the pipeline aggregator out of the common settings and of the specific parameters collected by
+     * {@link #token(String, String, XContentParser.Token, XContentParser, SearchContext, Map)}.
+     */
+    protected abstract PipelineAggregator createPipelineAggregator(String pipelineAggregatorName, String[] bucketsPaths, GapPolicy gapPolicy,
+                                                                   ValueFormatter formatter, Map<String, Object> params, SearchContext context);
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.MapBuilder;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A registry for the streams of the pipeline aggregators, see {@link org.elasticsearch.search.aggregations.AggregationStreams}.
+ */
+public class PipelineAggregatorStreams {
+
+    private static ImmutableMap<BytesReference, Stream> streams = ImmutableMap.of();
+
+    /**
+     * A stream that knows how to read a pipeline aggregator from the input.
+     */
+    public static interface Stream {
+        PipelineAggregator readResult(StreamInput in) throws IOException;
+    }
+
+    /**
+     * Registers the given stream and associate it with the given types.
+     */
+    public static synchronized void registerStream(Stream stream, BytesReference... types) {
+        MapBuilder<BytesReference, Stream> uStreams = MapBuilder.newMapBuilder(streams);
+        for (BytesReference type : types) {
+            uStreams.put(type, stream);
+        }
+        streams = uStreams.immutableMap();
+    }
+
+    /**
+     * Returns the stream that is registered for the given type
+     */
+    public static Stream stream(BytesReference type) {
+        return streams.get(type);
+    }
+
+    /**
+     * Reads a list of pipeline aggregators written with {@link #writePipelineAggregators(List, StreamOutput)}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <P extends PipelineAggregator> List<P> readPipelineAggregators(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        List<P> pipelineAggregators = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            BytesReference type = in.readBytesReference();
+            pipelineAggregators.add((P) stream(type).readResult(in));
+        }
+        return pipelineAggregators;
+    }
+
+    public static void writePipelineAggregators(List<? extends PipelineAggregator> pipelineAggregators, StreamOutput out) throws IOException {
+        out.writeVInt(pipelineAggregators.size());
+        for (PipelineAggregator pipelineAggregator : pipelineAggregators) {
+            out.writeBytesReference(pipelineAggregator.type().stream());
+            pipelineAggregator.writeTo(out);
+        }
+    }
+}
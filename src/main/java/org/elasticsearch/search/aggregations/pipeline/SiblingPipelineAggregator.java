@@ -0,0 +1,62 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.search.aggregations.AggregationInitializationException;
+import org.elasticsearch.search.aggregations.AggregatorFactory;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.support.AggregationPath;
+
+import java.util.List;
+
+/**
+ * A pipeline aggregator which computes a new aggregation out of the buckets of a sibling multi bucket aggregation.
+ */
+public abstract class SiblingPipelineAggregator extends PipelineAggregator {
+
+    protected SiblingPipelineAggregator() { // for serialization
+    }
+
+    protected SiblingPipelineAggregator(String name, String[] bucketsPaths) {
+        super(name, bucketsPaths);
+    }
+
+    /**
+     * Computes the output of this pipeline aggregator.
+     *
+     * @param aggregations  The reduced aggregations of the level this pipeline aggregator is defined at
+     * @param reduceContext The reduce context
+     * @return The aggregation to add next to the given ones
+     */
+    public abstract InternalAggregation doReduce(InternalAggregations aggregations, ReduceContext reduceContext);
+
+    @Override
+    public void validate(AggregatorFactory parent, AggregatorFactory[] siblings, List<PipelineAggregator> pipelineSiblings) {
+        for (String bucketsPath : bucketsPaths()) {
+            List<AggregationPath.PathElement> elements = AggregationPath.parse(bucketsPath).getPathElements();
+            if (elements.size() < 2 || !ParentPipelineAggregator.containsName(elements.get(0).name, siblings, pipelineSiblings)) {
+                throw new AggregationInitializationException("buckets_path [" + bucketsPath + "] of [" + type().name() + "] aggregation ["
+                        + name() + "] must point to a metric within the buckets of a sibling multi bucket aggregation, e.g. [histo>sales]");
+            }
+        }
+    }
+}
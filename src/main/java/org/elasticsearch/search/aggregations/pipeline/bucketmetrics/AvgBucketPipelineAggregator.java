@@ -0,0 +1,84 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.bucketmetrics;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValue;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorStreams;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Computes the average of the values the <tt>buckets_path</tt> points to in the buckets of a sibling aggregation.
+ */
+public class AvgBucketPipelineAggregator extends BucketMetricsPipelineAggregator {
+
+    public final static InternalAggregation.Type TYPE = new InternalAggregation.Type("avg_bucket");
+
+    public final static PipelineAggregatorStreams.Stream STREAM = new PipelineAggregatorStreams.Stream() {
+        @Override
+        public AvgBucketPipelineAggregator readResult(StreamInput in) throws IOException {
+            AvgBucketPipelineAggregator result = new AvgBucketPipelineAggregator();
+            result.readFrom(in);
+            return result;
+        }
+    };
+
+    public static void registerStreams() {
+        PipelineAggregatorStreams.registerStream(STREAM, TYPE.stream());
+    }
+
+    private double sum;
+    private long count;
+
+    AvgBucketPipelineAggregator() { // for serialization
+    }
+
+    public AvgBucketPipelineAggregator(String name, String[] bucketsPaths, GapPolicy gapPolicy, @Nullable ValueFormatter formatter) {
+        super(name, bucketsPaths, gapPolicy, formatter);
+    }
+
+    @Override
+    public InternalAggregation.Type type() {
+        return TYPE;
+    }
+
+    @Override
+    protected void preCollection() {
+        sum = 0;
+        count = 0;
+    }
+
+    @Override
+    protected void collectBucketValue(String bucketKey, double bucketValue) {
+        sum += bucketValue;
+        count++;
+    }
+
+    @Override
+    protected InternalAggregation buildAggregation(Map<String, Object> metaData) {
+        double avgValue = count == 0 ? Double.NaN : (sum / count);
+        return new InternalSimpleValue(name(), avgValue, formatter, metaData);
+    }
+}
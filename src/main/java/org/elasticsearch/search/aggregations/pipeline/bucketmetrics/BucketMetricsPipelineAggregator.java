@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.bucketmetrics;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationPath;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatterStreams;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A sibling pipeline aggregator which computes a metric out of the values that its <tt>buckets_path</tt> points to
+ * in all the buckets of a sibling multi bucket aggregation.
+ */
+public abstract class BucketMetricsPipelineAggregator extends SiblingPipelineAggregator {
+
+    protected GapPolicy gapPolicy;
+    protected ValueFormatter formatter;
+
+    protected BucketMetricsPipelineAggregator() { // for serialization
+    }
+
+    protected BucketMetricsPipelineAggregator(String name, String[] bucketsPaths, GapPolicy gapPolicy, @Nullable ValueFormatter formatter) {
+        super(name, bucketsPaths);
+        this.gapPolicy = gapPolicy;
+        this.formatter = formatter;
+    }
+
+    @Override
+    public final InternalAggregation doReduce(InternalAggregations aggregations, ReduceContext reduceContext) {
+        preCollection();
+        List<String> bucketsPath = AggregationPath.parse(bucketsPaths()[0]).getPathElementsAsStringList();
+        InternalAggregation aggregation = aggregations.get(bucketsPath.get(0));
+        if (!(aggregation instanceof InternalMultiBucketAggregation)) {
+            throw new AggregationExecutionException("buckets_path [" + bucketsPaths()[0] + "] of [" + type().name() + "] aggregation ["
+                    + name() + "] must point to a multi bucket aggregation");
+        }
+        InternalMultiBucketAggregation multiBucketsAgg = (InternalMultiBucketAggregation) aggregation;
+        List<String> bucketPath = bucketsPath.subList(1, bucketsPath.size());
+        for (MultiBucketsAggregation.Bucket bucket : multiBucketsAgg.getBuckets()) {
+            double value = BucketHelpers.resolveBucketValue(multiBucketsAgg.getName(), (InternalMultiBucketAggregation.InternalBucket) bucket,
+                    bucketPath, gapPolicy);
+            if (!Double.isNaN(value)) {
+                collectBucketValue(bucket.getKey(), value);
+            }
+        }
+        return buildAggregation(metaData());
+    }
+
+    /**
+     * Called before the values of the buckets are collected, to reset the state of the aggregator.
+     */
+    protected abstract void preCollection();
+
+    /**
+     * Collects the value of the bucket with the given key.
+     */
+    protected abstract void collectBucketValue(String bucketKey, double bucketValue);
+
+    /**
+     * Builds the aggregation out of the collected values.
+     */
+    protected abstract InternalAggregation buildAggregation(Map<String, Object> metaData);
+
+    @Override
+    protected void doReadFrom(StreamInput in) throws IOException {
+        gapPolicy = GapPolicy.readFrom(in);
+        formatter = ValueFormatterStreams.readOptional(in);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        gapPolicy.writeTo(out);
+        ValueFormatterStreams.writeOptional(formatter, out);
+    }
+}
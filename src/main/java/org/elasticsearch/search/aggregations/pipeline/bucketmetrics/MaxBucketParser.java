@@ -0,0 +1,43 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.bucketmetrics;
+
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorParser;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.util.Map;
+
+/**
+ *
+ */
+public class MaxBucketParser extends PipelineAggregatorParser {
+
+    public MaxBucketParser() {
+        super(MaxBucketPipelineAggregator.TYPE);
+    }
+
+    @Override
+    protected PipelineAggregator createPipelineAggregator(String pipelineAggregatorName, String[] bucketsPaths, GapPolicy gapPolicy,
+                                                          ValueFormatter formatter, Map<String, Object> params, SearchContext context) {
+        return new MaxBucketPipelineAggregator(pipelineAggregatorName, bucketsPaths, gapPolicy, formatter);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.bucketmetrics;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorStreams;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the minimum of the values the <tt>buckets_path</tt> points to in the buckets of a sibling aggregation, along with
+ * the keys of the buckets holding it.
+ */
+public class MinBucketPipelineAggregator extends BucketMetricsPipelineAggregator {
+
+    public final static InternalAggregation.Type TYPE = new InternalAggregation.Type("min_bucket");
+
+    public final static PipelineAggregatorStreams.Stream STREAM = new PipelineAggregatorStreams.Stream() {
+        @Override
+        public MinBucketPipelineAggregator readResult(StreamInput in) throws IOException {
+            MinBucketPipelineAggregator result = new MinBucketPipelineAggregator();
+            result.readFrom(in);
+            return result;
+        }
+    };
+
+    public static void registerStreams() {
+        PipelineAggregatorStreams.registerStream(STREAM, TYPE.stream());
+    }
+
+    private double minValue;
+    private List<String> minBucketKeys;
+
+    MinBucketPipelineAggregator() { // for serialization
+    }
+
+    public MinBucketPipelineAggregator(String name, String[] bucketsPaths, GapPolicy gapPolicy, @Nullable ValueFormatter formatter) {
+        super(name, bucketsPaths, gapPolicy, formatter);
+    }
+
+    @Override
+    public InternalAggregation.Type type() {
+        return TYPE;
+    }
+
+    @Override
+    protected void preCollection() {
+        minValue = Double.POSITIVE_INFINITY;
+        minBucketKeys = new ArrayList<>();
+    }
+
+    @Override
+    protected void collectBucketValue(String bucketKey, double bucketValue) {
+        if (bucketValue < minValue) {
+            minBucketKeys.clear();
+            minBucketKeys.add(bucketKey);
+            minValue = bucketValue;
+        } else if (bucketValue == minValue) {
+            minBucketKeys.add(bucketKey);
+        }
+    }
+
+    @Override
+    protected InternalAggregation buildAggregation(Map<String, Object> metaData) {
+        String[] keys = minBucketKeys.toArray(new String[minBucketKeys.size()]);
+        return new InternalBucketMetricValue(name(), keys, minValue, formatter, metaData);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.bucketscript;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilder;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Builder for the {@code bucket_script} pipeline aggregation.
+ */
+public class BucketScriptBuilder extends PipelineAggregatorBuilder<BucketScriptBuilder> {
+
+    private Map<String, String> bucketsPathsMap;
+    private String script;
+    private String lang;
+    private Map<String, Object> params;
+
+    public BucketScriptBuilder(String name) {
+        super(name, BucketScriptPipelineAggregator.TYPE.name());
+    }
+
+    /**
+     * Sets the paths of the values of the script variables, keyed by variable name.
+     */
+    public BucketScriptBuilder bucketsPathsMap(Map<String, String> bucketsPathsMap) {
+        this.bucketsPathsMap = bucketsPathsMap;
+        return this;
+    }
+
+    /**
+     * Sets the inline script computing the value of each bucket.
+     */
+    public BucketScriptBuilder script(String script) {
+        this.script = script;
+        return this;
+    }
+
+    /**
+     * Sets the language of the script.
+     */
+    public BucketScriptBuilder lang(String lang) {
+        this.lang = lang;
+        return this;
+    }
+
+    /**
+     * Sets parameters that will be available to the script, on top of the buckets path variables.
+     */
+    public BucketScriptBuilder params(Map<String, Object> params) {
+        this.params = params;
+        return this;
+    }
+
+    @Override
+    protected void internalXContent(XContentBuilder builder, Params builderParams) throws IOException {
+        if (bucketsPathsMap != null) {
+            builder.startObject(PipelineAggregator.BUCKETS_PATH.getPreferredName());
+            for (Map.Entry<String, String> entry : bucketsPathsMap.entrySet()) {
+                builder.field(entry.getKey(), entry.getValue());
+            }
+            builder.endObject();
+        }
+        if (script != null) {
+            builder.field("script", script);
+        }
+        if (lang != null) {
+            builder.field("lang", lang);
+        }
+        if (params != null) {
+            builder.field(BucketScriptParser.PARAMS_FIELD.getPreferredName(), params);
+        }
+    }
+}
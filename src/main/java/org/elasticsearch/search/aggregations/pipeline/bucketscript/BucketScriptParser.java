@@ -0,0 +1,110 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.bucketscript;
+
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.script.ScriptParameterParser;
+import org.elasticsearch.script.ScriptParameterParser.ScriptParameterValue;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorParser;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ */
+public class BucketScriptParser implements PipelineAggregator.Parser {
+
+    public static final ParseField PARAMS_FIELD = new ParseField("params");
+
+    @Override
+    public String type() {
+        return BucketScriptPipelineAggregator.TYPE.name();
+    }
+
+    @Override
+    public PipelineAggregator parse(String pipelineAggregatorName, XContentParser parser, SearchContext context) throws IOException {
+        XContentParser.Token token;
+        String currentFieldName = null;
+        List<String> varNames = new ArrayList<>();
+        List<String> bucketsPaths = new ArrayList<>();
+        Map<String, Object> params = null;
+        String format = null;
+        GapPolicy gapPolicy = GapPolicy.SKIP;
+        ScriptParameterParser scriptParameterParser = new ScriptParameterParser();
+
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token == XContentParser.Token.START_OBJECT) {
+                if (PipelineAggregator.BUCKETS_PATH.match(currentFieldName)) {
+                    while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+                        if (token == XContentParser.Token.FIELD_NAME) {
+                            varNames.add(parser.currentName());
+                        } else if (token == XContentParser.Token.VALUE_STRING) {
+                            bucketsPaths.add(parser.text());
+                        } else {
+                            throw new SearchParseException(context, "Unexpected token " + token + " in ["
+                                    + PipelineAggregator.BUCKETS_PATH.getPreferredName() + "] of [" + pipelineAggregatorName + "].");
+                        }
+                    }
+                } else if (PARAMS_FIELD.match(currentFieldName)) {
+                    params = parser.map();
+                } else {
+                    throw new SearchParseException(context, "Unknown key for a " + token + " in [" + pipelineAggregatorName + "]: ["
+                            + currentFieldName + "].");
+                }
+            } else if (token == XContentParser.Token.VALUE_STRING && PipelineAggregator.GAP_POLICY.match(currentFieldName)) {
+                gapPolicy = GapPolicy.parse(context, parser.text());
+            } else if (token == XContentParser.Token.VALUE_STRING && PipelineAggregatorParser.FORMAT.equals(currentFieldName)) {
+                format = parser.text();
+            } else if (token.isValue()) {
+                if (!scriptParameterParser.token(currentFieldName, token, parser)) {
+                    throw new SearchParseException(context, "Unknown key for a " + token + " in [" + pipelineAggregatorName + "]: ["
+                            + currentFieldName + "].");
+                }
+            } else {
+                throw new SearchParseException(context, "Unexpected token " + token + " in [" + pipelineAggregatorName + "].");
+            }
+        }
+
+        if (bucketsPaths.isEmpty()) {
+            throw new SearchParseException(context, "Missing required field [" + PipelineAggregator.BUCKETS_PATH.getPreferredName()
+                    + "] for " + type() + " aggregation [" + pipelineAggregatorName + "]");
+        }
+        ScriptParameterValue scriptValue = scriptParameterParser.getDefaultScriptParameterValue();
+        if (scriptValue == null) {
+            throw new SearchParseException(context, "Missing required field [script] for " + type() + " aggregation ["
+                    + pipelineAggregatorName + "]");
+        }
+
+        ValueFormatter formatter = format == null ? null : new ValueFormatter.Number.Pattern(format);
+        return new BucketScriptPipelineAggregator(pipelineAggregatorName, varNames.toArray(new String[varNames.size()]),
+                bucketsPaths.toArray(new String[bucketsPaths.size()]), scriptValue.script(), scriptValue.scriptType(),
+                scriptParameterParser.lang(), params, gapPolicy, formatter);
+    }
+}
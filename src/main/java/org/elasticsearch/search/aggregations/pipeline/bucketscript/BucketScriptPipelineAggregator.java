@@ -0,0 +1,149 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.bucketscript;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.script.CompiledScript;
+import org.elasticsearch.script.ExecutableScript;
+import org.elasticsearch.script.ScriptService.ScriptType;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValue;
+import org.elasticsearch.search.aggregations.pipeline.ParentPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorStreams;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatterStreams;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes a value for every bucket of a histogram by running a script over the values that the <tt>buckets_path</tt>
+ * variables point to in the bucket, eg. to compute the ratio of two metrics of the same bucket.
+ */
+public class BucketScriptPipelineAggregator extends ParentPipelineAggregator {
+
+    public final static InternalAggregation.Type TYPE = new InternalAggregation.Type("bucket_script");
+
+    public final static PipelineAggregatorStreams.Stream STREAM = new PipelineAggregatorStreams.Stream() {
+        @Override
+        public BucketScriptPipelineAggregator readResult(StreamInput in) throws IOException {
+            BucketScriptPipelineAggregator result = new BucketScriptPipelineAggregator();
+            result.readFrom(in);
+            return result;
+        }
+    };
+
+    public static void registerStreams() {
+        PipelineAggregatorStreams.registerStream(STREAM, TYPE.stream());
+    }
+
+    private String[] varNames;
+    private String script;
+    private ScriptType scriptType;
+    private String scriptLang;
+    private Map<String, Object> params;
+    private GapPolicy gapPolicy;
+    private ValueFormatter formatter;
+
+    BucketScriptPipelineAggregator() { // for serialization
+    }
+
+    /**
+     * @param varNames     The names of the script variables, the value of {@code varNames[i]} is resolved from {@code bucketsPaths[i]}
+     * @param bucketsPaths The paths of the values of the variables
+     */
+    public BucketScriptPipelineAggregator(String name, String[] varNames, String[] bucketsPaths, String script, ScriptType scriptType,
+                                          @Nullable String scriptLang, @Nullable Map<String, Object> params, GapPolicy gapPolicy,
+                                          @Nullable ValueFormatter formatter) {
+        super(name, bucketsPaths);
+        this.varNames = varNames;
+        this.script = script;
+        this.scriptType = scriptType;
+        this.scriptLang = scriptLang;
+        this.params = params;
+        this.gapPolicy = gapPolicy;
+        this.formatter = formatter;
+    }
+
+    @Override
+    public InternalAggregation.Type type() {
+        return TYPE;
+    }
+
+    @Override
+    public InternalAggregation[] reduceBuckets(String aggName, List<? extends InternalMultiBucketAggregation.InternalBucket> buckets,
+                                               ReduceContext reduceContext) {
+        InternalAggregation[] values = new InternalAggregation[buckets.size()];
+        CompiledScript compiledScript = reduceContext.scriptService().compile(scriptLang, script, scriptType);
+        String[] bucketsPaths = bucketsPaths();
+        bucketLoop:
+        for (int i = 0; i < buckets.size(); i++) {
+            Map<String, Object> vars = new HashMap<>();
+            if (params != null) {
+                vars.putAll(params);
+            }
+            for (int j = 0; j < bucketsPaths.length; j++) {
+                double value = BucketHelpers.resolveBucketValue(aggName, buckets.get(i), bucketsPaths[j], gapPolicy);
+                if (Double.isNaN(value)) {
+                    continue bucketLoop;
+                }
+                vars.put(varNames[j], value);
+            }
+            ExecutableScript executableScript = reduceContext.scriptService().executable(compiledScript, vars);
+            Object result = executableScript.run();
+            if (!(result instanceof Number)) {
+                throw new AggregationExecutionException("script of [" + TYPE.name() + "] aggregation [" + name()
+                        + "] must return a number, got [" + result + "]");
+            }
+            values[i] = new InternalSimpleValue(name(), ((Number) result).doubleValue(), formatter, metaData());
+        }
+        return values;
+    }
+
+    @Override
+    protected void doReadFrom(StreamInput in) throws IOException {
+        varNames = in.readStringArray();
+        script = in.readString();
+        scriptType = ScriptType.readFrom(in);
+        scriptLang = in.readOptionalString();
+        params = in.readMap();
+        gapPolicy = GapPolicy.readFrom(in);
+        formatter = ValueFormatterStreams.readOptional(in);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeStringArray(varNames);
+        out.writeString(script);
+        ScriptType.writeTo(scriptType, out);
+        out.writeOptionalString(scriptLang);
+        out.writeGenericValue(params);
+        gapPolicy.writeTo(out);
+        ValueFormatterStreams.writeOptional(formatter, out);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.cumulativesum;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValue;
+import org.elasticsearch.search.aggregations.pipeline.ParentPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorStreams;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatterStreams;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Computes, for every bucket of a histogram, the sum of the values of this bucket and of all the buckets before it.
+ * Buckets without a value do not contribute to the sum.
+ */
+public class CumulativeSumPipelineAggregator extends ParentPipelineAggregator {
+
+    public final static InternalAggregation.Type TYPE = new InternalAggregation.Type("cumulative_sum");
+
+    public final static PipelineAggregatorStreams.Stream STREAM = new PipelineAggregatorStreams.Stream() {
+        @Override
+        public CumulativeSumPipelineAggregator readResult(StreamInput in) throws IOException {
+            CumulativeSumPipelineAggregator result = new CumulativeSumPipelineAggregator();
+            result.readFrom(in);
+            return result;
+        }
+    };
+
+    public static void registerStreams() {
+        PipelineAggregatorStreams.registerStream(STREAM, TYPE.stream());
+    }
+
+    private ValueFormatter formatter;
+
+    CumulativeSumPipelineAggregator() { // for serialization
+    }
+
+    public CumulativeSumPipelineAggregator(String name, String[] bucketsPaths, @Nullable ValueFormatter formatter) {
+        super(name, bucketsPaths);
+        this.formatter = formatter;
+    }
+
+    @Override
+    public InternalAggregation.Type type() {
+        return TYPE;
+    }
+
+    @Override
+    public InternalAggregation[] reduceBuckets(String aggName, List<? extends InternalMultiBucketAggregation.InternalBucket> buckets,
+                                               ReduceContext reduceContext) {
+        InternalAggregation[] sums = new InternalAggregation[buckets.size()];
+        double sum = 0;
+        for (int i = 0; i < buckets.size(); i++) {
+            sum += BucketHelpers.resolveBucketValue(aggName, buckets.get(i), bucketsPaths()[0], GapPolicy.INSERT_ZEROS);
+            sums[i] = new InternalSimpleValue(name(), sum, formatter, metaData());
+        }
+        return sums;
+    }
+
+    @Override
+    protected void doReadFrom(StreamInput in) throws IOException {
+        formatter = ValueFormatterStreams.readOptional(in);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        ValueFormatterStreams.writeOptional(formatter, out);
+    }
+}
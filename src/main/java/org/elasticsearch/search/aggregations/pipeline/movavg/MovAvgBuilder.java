@@ -0,0 +1,75 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.movavg;
+
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilder;
+
+import java.io.IOException;
+
+/**
+ * Builder for the {@code moving_avg} pipeline aggregation.
+ */
+public class MovAvgBuilder extends PipelineAggregatorBuilder<MovAvgBuilder> {
+
+    private Integer window;
+    private MovAvgPipelineAggregator.Model model;
+    private Double alpha;
+
+    public MovAvgBuilder(String name) {
+        super(name, MovAvgPipelineAggregator.TYPE.name());
+    }
+
+    /**
+     * Sets the number of buckets the average is computed over, defaults to {@code 5}.
+     */
+    public MovAvgBuilder window(int window) {
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * Sets how the values of the window are weighed, defaults to {@link MovAvgPipelineAggregator.Model#SIMPLE}.
+     */
+    public MovAvgBuilder model(MovAvgPipelineAggregator.Model model) {
+        this.model = model;
+        return this;
+    }
+
+    /**
+     * Sets the decay rate of the {@link MovAvgPipelineAggregator.Model#EWMA} model, defaults to {@code 0.3}.
+     */
+    public MovAvgBuilder alpha(double alpha) {
+        this.alpha = alpha;
+        return this;
+    }
+
+    @Override
+    protected void internalXContent(XContentBuilder builder, Params params) throws IOException {
+        if (window != null) {
+            builder.field(MovAvgParser.WINDOW.getPreferredName(), window);
+        }
+        if (model != null) {
+            builder.field(MovAvgParser.MODEL.getPreferredName(), model.getName());
+        }
+        if (alpha != null) {
+            builder.field(MovAvgParser.ALPHA.getPreferredName(), alpha);
+        }
+    }
+}
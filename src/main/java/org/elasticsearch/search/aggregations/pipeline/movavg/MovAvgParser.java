@@ -0,0 +1,86 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.movavg;
+
+import org.elasticsearch.common.ParseField;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorParser;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ *
+ */
+public class MovAvgParser extends PipelineAggregatorParser {
+
+    public static final ParseField WINDOW = new ParseField("window");
+    public static final ParseField MODEL = new ParseField("model");
+    public static final ParseField ALPHA = new ParseField("alpha");
+
+    public static final int DEFAULT_WINDOW = 5;
+    public static final double DEFAULT_ALPHA = 0.3;
+
+    public MovAvgParser() {
+        super(MovAvgPipelineAggregator.TYPE);
+    }
+
+    @Override
+    protected boolean token(String pipelineAggregatorName, String currentFieldName, XContentParser.Token token, XContentParser parser,
+                            SearchContext context, Map<String, Object> params) throws IOException {
+        if (token == XContentParser.Token.VALUE_NUMBER && WINDOW.match(currentFieldName)) {
+            int window = parser.intValue();
+            if (window <= 0) {
+                throw new SearchParseException(context, "[" + WINDOW.getPreferredName() + "] must be a positive integer in ["
+                        + pipelineAggregatorName + "]");
+            }
+            params.put(WINDOW.getPreferredName(), window);
+            return true;
+        } else if (token == XContentParser.Token.VALUE_NUMBER && ALPHA.match(currentFieldName)) {
+            double alpha = parser.doubleValue();
+            if (alpha < 0 || alpha > 1) {
+                throw new SearchParseException(context, "[" + ALPHA.getPreferredName() + "] must be between 0 and 1 in ["
+                        + pipelineAggregatorName + "]");
+            }
+            params.put(ALPHA.getPreferredName(), alpha);
+            return true;
+        } else if (token == XContentParser.Token.VALUE_STRING && MODEL.match(currentFieldName)) {
+            params.put(MODEL.getPreferredName(), MovAvgPipelineAggregator.Model.parse(context, parser.text()));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected PipelineAggregator createPipelineAggregator(String pipelineAggregatorName, String[] bucketsPaths, GapPolicy gapPolicy,
+                                                          ValueFormatter formatter, Map<String, Object> params, SearchContext context) {
+        Integer window = (Integer) params.get(WINDOW.getPreferredName());
+        MovAvgPipelineAggregator.Model model = (MovAvgPipelineAggregator.Model) params.get(MODEL.getPreferredName());
+        Double alpha = (Double) params.get(ALPHA.getPreferredName());
+        return new MovAvgPipelineAggregator(pipelineAggregatorName, bucketsPaths, gapPolicy, formatter,
+                window == null ? DEFAULT_WINDOW : window,
+                model == null ? MovAvgPipelineAggregator.Model.SIMPLE : model,
+                alpha == null ? DEFAULT_ALPHA : alpha);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline.movavg;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValue;
+import org.elasticsearch.search.aggregations.pipeline.ParentPipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorStreams;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatter;
+import org.elasticsearch.search.aggregations.support.format.ValueFormatterStreams;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Computes, for every bucket of a histogram that has a value, the average of the values of the last <tt>window</tt>
+ * buckets, the current one included.
+ */
+public class MovAvgPipelineAggregator extends ParentPipelineAggregator {
+
+    public final static InternalAggregation.Type TYPE = new InternalAggregation.Type("moving_avg");
+
+    public final static PipelineAggregatorStreams.Stream STREAM = new PipelineAggregatorStreams.Stream() {
+        @Override
+        public MovAvgPipelineAggregator readResult(StreamInput in) throws IOException {
+            MovAvgPipelineAggregator result = new MovAvgPipelineAggregator();
+            result.readFrom(in);
+            return result;
+        }
+    };
+
+    public static void registerStreams() {
+        PipelineAggregatorStreams.registerStream(STREAM, TYPE.stream());
+    }
+
+    /**
+     * The way the values of the window are averaged.
+     */
+    public static enum Model {
+
+        /**
+         * All the values of the window weigh the same.
+         */
+        SIMPLE((byte) 0, "simple") {
+            @Override
+            double average(ArrayDeque<Double> window, double alpha) {
+                double sum = 0;
+                for (double value : window) {
+                    sum += value;
+                }
+                return sum / window.size();
+            }
+        },
+
+        /**
+         * The weight of the values decreases linearly with their age.
+         */
+        LINEAR((byte) 1, "linear") {
+            @Override
+            double average(ArrayDeque<Double> window, double alpha) {
+                double sum = 0;
+                long totalWeight = 0;
+                long weight = 1;
+                for (double value : window) {
+                    sum += value * weight;
+                    totalWeight += weight;
+                    weight++;
+                }
+                return sum / totalWeight;
+            }
+        },
+
+        /**
+         * The weight of the values decreases exponentially with their age, at a rate controlled by <tt>alpha</tt>.
+         */
+        EWMA((byte) 2, "ewma") {
+            @Override
+            double average(ArrayDeque<Double> window, double alpha) {
+                Iterator<Double> values = window.iterator();
+                double avg = values.next();
+                while (values.hasNext()) {
+                    avg = alpha * values.next() + (1 - alpha) * avg;
+                }
+                return avg;
+            }
+        };
+
+        private final byte id;
+        private final String name;
+
+        Model(byte id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Averages the values of the window, ordered from the oldest to the most recent.
+         */
+        abstract double average(ArrayDeque<Double> window, double alpha);
+
+        public static Model parse(SearchContext context, String text) {
+            for (Model model : values()) {
+                if (model.name.equals(text.toLowerCase(Locale.ROOT))) {
+                    return model;
+                }
+            }
+            throw new SearchParseException(context, "Invalid moving average model [" + text + "], expected one of [simple, linear, ewma]");
+        }
+
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeByte(id);
+        }
+
+        public static Model readFrom(StreamInput in) throws IOException {
+            byte id = in.readByte();
+            for (Model model : values()) {
+                if (model.id == id) {
+                    return model;
+                }
+            }
+            throw new ElasticsearchIllegalArgumentException("Unknown moving average model [" + id + "]");
+        }
+    }
+
+    private GapPolicy gapPolicy;
+    private ValueFormatter formatter;
+    private int window;
+    private Model model;
+    private double alpha;
+
+    MovAvgPipelineAggregator() { // for serialization
+    }
+
+    public MovAvgPipelineAggregator(String name, String[] bucketsPaths, GapPolicy gapPolicy, @Nullable ValueFormatter formatter,
+                                    int window, Model model, double alpha) {
+        super(name, bucketsPaths);
+        this.gapPolicy = gapPolicy;
+        this.formatter = formatter;
+        this.window = window;
+        this.model = model;
+        this.alpha = alpha;
+    }
+
+    @Override
+    public InternalAggregation.Type type() {
+        return TYPE;
+    }
+
+    @Override
+    public InternalAggregation[] reduceBuckets(String aggName, List<? extends InternalMultiBucketAggregation.InternalBucket> buckets,
+                                               ReduceContext reduceContext) {
+        InternalAggregation[] averages = new InternalAggregation[buckets.size()];
+        ArrayDeque<Double> values = new ArrayDeque<>(window);
+        for (int i = 0; i < buckets.size(); i++) {
+            double value = BucketHelpers.resolveBucketValue(aggName, buckets.get(i), bucketsPaths()[0], gapPolicy);
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            if (values.size() == window) {
+                values.removeFirst();
+            }
+            values.addLast(value);
+            averages[i] = new InternalSimpleValue(name(), model.average(values, alpha), formatter, metaData());
+        }
+        return averages;
+    }
+
+    @Override
+    protected void doReadFrom(StreamInput in) throws IOException {
+        gapPolicy = GapPolicy.readFrom(in);
+        formatter = ValueFormatterStreams.readOptional(in);
+        window = in.readVInt();
+        model = Model.readFrom(in);
+        alpha = in.readDouble();
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        gapPolicy.writeTo(out);
+        ValueFormatterStreams.writeOptional(formatter, out);
+        out.writeVInt(window);
+        model.writeTo(out);
+        out.writeDouble(alpha);
+    }
+}
@@ -229,6 +229,13 @@ public class AggregationContext implements ReaderContextAware, ScorerAware {
         readerAwares.add(readerContextAware);
     }
 
+    /**
+     * @return whether an aggregation registered so far, a script or <tt>top_hits</tt> for instance, may read the scores of the collected docs
+     */
+    public boolean needsScores() {
+        return scorerAwares.isEmpty() == false;
+    }
+
     public void registerScorerAware(ScorerAware scorerAware) {
         setScorerIfNeeded(scorerAware);
         scorerAwares.add(scorerAware);
@@ -43,6 +43,7 @@ import org.elasticsearch.search.fetch.source.FetchSourceContext;
 import org.elasticsearch.search.highlight.HighlightBuilder;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.rescore.RescoreBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.sort.SortBuilder;
 import org.elasticsearch.search.sort.SortBuilders;
 import org.elasticsearch.search.sort.SortOrder;
@@ -90,6 +91,8 @@ public class SearchSourceBuilder implements ToXContent {
 
     private Boolean explain;
 
+    private Boolean profile;
+
     private Boolean version;
 
     private List<SortBuilder> sorts;
@@ -100,6 +103,9 @@ public class SearchSourceBuilder implements ToXContent {
 
     private long timeoutInMillis = -1;
     private int terminateAfter = SearchContext.DEFAULT_TERMINATE_AFTER;
+    private int maxConcurrentSlices = SearchContext.DEFAULT_MAX_CONCURRENT_SLICES;
+    private boolean trackTotalHits = true;
+    private SliceBuilder sliceBuilder;
 
     private List<String> fieldNames;
     private List<String> fieldDataFields;
@@ -284,6 +290,15 @@ public class SearchSourceBuilder implements ToXContent {
         return this;
     }
 
+    /**
+     * Should the query phase be profiled, returning per shard the time spent in the
+     * queries, collectors and aggregators it executed.
+     */
+    public SearchSourceBuilder profile(Boolean profile) {
+        this.profile = profile;
+        return this;
+    }
+
     /**
      * Should each {@link org.elasticsearch.search.SearchHit} be returned with a version
      * associated with it.
@@ -320,6 +335,38 @@ public class SearchSourceBuilder implements ToXContent {
         this.terminateAfter = terminateAfter;
         return this;
     }
+
+    /**
+     * The maximum number of slices of the segments of a shard that are searched concurrently by the query phase.
+     * Defaults to <tt>1</tt>, which searches the segments sequentially.
+     */
+    public SearchSourceBuilder maxConcurrentSlices(int maxConcurrentSlices) {
+        if (maxConcurrentSlices <= 0) {
+            throw new ElasticsearchIllegalArgumentException("maxConcurrentSlices must be > 0");
+        }
+        this.maxConcurrentSlices = maxConcurrentSlices;
+        return this;
+    }
+
+    /**
+     * Whether the total hits must count all the matching documents, defaults to <tt>true</tt>. When <tt>false</tt>, a
+     * search sorted on a prefix of the index sort may stop collecting the sorted segments early, the total hits are then
+     * a lower bound.
+     */
+    public SearchSourceBuilder trackTotalHits(boolean trackTotalHits) {
+        this.trackTotalHits = trackTotalHits;
+        return this;
+    }
+
+    /**
+     * Reads only the given slice of the documents of a scroll, so that the slices of the same scroll can be consumed
+     * in parallel, each with its own scroll.
+     */
+    public SearchSourceBuilder slice(SliceBuilder sliceBuilder) {
+        this.sliceBuilder = sliceBuilder;
+        return this;
+    }
+
     /**
      * Adds a sort against the given field name and the sort ordering.
      *
@@ -673,6 +720,18 @@ public class SearchSourceBuilder implements ToXContent {
             builder.field("terminate_after", terminateAfter);
         }
 
+        if (maxConcurrentSlices != SearchContext.DEFAULT_MAX_CONCURRENT_SLICES) {
+            builder.field("max_concurrent_slices", maxConcurrentSlices);
+        }
+
+        if (!trackTotalHits) {
+            builder.field("track_total_hits", trackTotalHits);
+        }
+
+        if (sliceBuilder != null) {
+            builder.field("slice", sliceBuilder, params);
+        }
+
         if (queryBuilder != null) {
             builder.field("query");
             queryBuilder.toXContent(builder, params);
@@ -711,6 +770,10 @@ public class SearchSourceBuilder implements ToXContent {
             builder.field("explain", explain);
         }
 
+        if (profile != null) {
+            builder.field("profile", profile);
+        }
+
         if (fetchSourceContext != null) {
             if (!fetchSourceContext.fetchSource()) {
                 builder.field("_source", false);
@@ -0,0 +1,247 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.controller;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.query.QuerySearchResultProvider;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consumes the query phase results of the shards as they arrive and reduces them in batches of
+ * {@link org.elasticsearch.action.search.SearchRequest#batchedReduceSize()} results. Once a batch is reduced only the
+ * partially merged top docs and aggregations are kept, the top docs and aggregations of the shard results it was reduced
+ * from are released, so the memory used on the coordinating node no longer grows with the number of shards.
+ * <p/>
+ * As long as fewer results than the batch size were consumed nothing is reduced here, and the final reduce is the same as
+ * the one done by {@link SearchPhaseController#sortDocs(boolean, AtomicArray)} and
+ * {@link SearchPhaseController#merge(ScoreDoc[], AtomicArray, AtomicArray)}.
+ */
+public class QueryPhaseResultConsumer {
+
+    private final SearchPhaseController controller;
+    private final int bufferSize;
+
+    // the results consumed since the last partial reduce, along with their shard index
+    private final QuerySearchResult[] bufferedResults;
+    private final int[] bufferedShards;
+    private int numBuffered;
+
+    // the partially reduced results, the hits of the top docs hold their actual shard index
+    private TopDocs reducedTopDocs;
+    private InternalAggregations reducedAggregations;
+    private int numReducePhases;
+    // a failed partial reduce fails the search once all shards responded, see #ensureReduced()
+    private Throwable reduceFailure;
+
+    QueryPhaseResultConsumer(SearchPhaseController controller, int bufferSize) {
+        if (bufferSize < 2) {
+            throw new ElasticsearchIllegalArgumentException("buffer size must be >= 2");
+        }
+        this.controller = controller;
+        this.bufferSize = bufferSize;
+        this.bufferedResults = new QuerySearchResult[bufferSize];
+        this.bufferedShards = new int[bufferSize];
+    }
+
+    /**
+     * Consumes the query result of the shard at the given index, reducing the results consumed so far if the buffer is full.
+     * The shard itself succeeded even if the partial reduce fails, so the failure is not thrown here but by the final
+     * reduce, which fails the search as a whole.
+     */
+    public synchronized void consumeResult(int shardIndex, QuerySearchResultProvider result) {
+        if (reduceFailure != null) {
+            // there is nothing left to reduce the result with
+            return;
+        }
+        // once reduced, the partial results take one slot of the buffer
+        if (numBuffered + (numReducePhases > 0 ? 1 : 0) == bufferSize) {
+            try {
+                partialReduce();
+            } catch (Throwable t) {
+                reduceFailure = t;
+                return;
+            }
+        }
+        bufferedResults[numBuffered] = result.queryResult();
+        bufferedShards[numBuffered] = shardIndex;
+        numBuffered++;
+    }
+
+    /**
+     * Returns the number of partial reduces that were executed so far.
+     */
+    public synchronized int getNumReducePhases() {
+        return numReducePhases;
+    }
+
+    /**
+     * Returns the sorted docs to fetch, see {@link SearchPhaseController#sortDocs(boolean, AtomicArray)}.
+     */
+    public synchronized ScoreDoc[] sortDocs(boolean ignoreFrom, AtomicArray<? extends QuerySearchResultProvider> resultsArr) throws IOException {
+        ensureReduced();
+        if (numReducePhases == 0) {
+            return controller.sortDocs(ignoreFrom, resultsArr);
+        }
+        QuerySearchResult firstResult = bufferedResults[0];
+        return mergeTopDocs(ignoreFrom ? 0 : firstResult.from(), firstResult.size()).scoreDocs;
+    }
+
+    /**
+     * Returns the final reduce of the aggregations of all the consumed results, or <tt>null</tt> if no partial reduce was
+     * executed, in which case the shard results still hold their aggregations.
+     */
+    synchronized InternalAggregations reduceAggregations() {
+        ensureReduced();
+        if (numReducePhases == 0 || reducedAggregations == null) {
+            return null;
+        }
+        return controller.reduceAggregations(bufferedAggregations(), true);
+    }
+
+    private void ensureReduced() {
+        if (reduceFailure != null) {
+            throw ExceptionsHelper.convertToElastic(reduceFailure);
+        }
+    }
+
+    private void partialReduce() throws IOException {
+        QuerySearchResult firstResult = bufferedResults[0];
+        TopDocs topDocs = mergeTopDocs(0, firstResult.from() + firstResult.size());
+        InternalAggregations aggregations = null;
+        if (firstResult.aggregations() != null) {
+            aggregations = controller.reduceAggregations(bufferedAggregations(), false);
+        }
+        // the shard results only keep what the rest of the search needs, their hits and aggregations are reduced now
+        for (int i = 0; i < numBuffered; i++) {
+            QuerySearchResult result = bufferedResults[i];
+            result.topDocs(emptyTopDocs(result.topDocs()));
+            result.aggregations(null);
+            bufferedResults[i] = null;
+        }
+        numBuffered = 0;
+        reducedTopDocs = topDocs;
+        reducedAggregations = aggregations;
+        numReducePhases++;
+    }
+
+    private List<InternalAggregations> bufferedAggregations() {
+        List<InternalAggregations> aggregationsList = new ArrayList<>(numBuffered + 1);
+        if (reducedAggregations != null) {
+            aggregationsList.add(reducedAggregations);
+        }
+        for (int i = 0; i < numBuffered; i++) {
+            if (bufferedResults[i].aggregations() != null) {
+                aggregationsList.add((InternalAggregations) bufferedResults[i].aggregations());
+            }
+        }
+        return aggregationsList;
+    }
+
+    /**
+     * Merges the partially reduced top docs with the buffered ones. {@link TopDocs#merge} breaks ties by the position of the
+     * top docs the hits come from, so the partially reduced hits are split back per shard and all top docs are ordered by
+     * shard index, which breaks ties the same way as merging all shard results at once. The merge sets the shard index of
+     * each hit to that position, the actual shard indices are restored once merged.
+     */
+    private TopDocs mergeTopDocs(int from, int size) throws IOException {
+        TopDocs firstTopDocs = numBuffered > 0 ? bufferedResults[0].topDocs() : reducedTopDocs;
+        final SortField[] sortFields = firstTopDocs instanceof TopFieldDocs ? ((TopFieldDocs) firstTopDocs).fields : null;
+        final Sort sort = sortFields == null ? null : new Sort(sortFields);
+
+        final TreeMap<Integer, TopDocs> topDocsPerShard = new TreeMap<>();
+        for (int i = 0; i < numBuffered; i++) {
+            topDocsPerShard.put(bufferedShards[i], bufferedResults[i].topDocs() == null ? Lucene.EMPTY_TOP_DOCS : bufferedResults[i].topDocs());
+        }
+        if (reducedTopDocs != null) {
+            // the hits of each shard kept their relative order in the partially reduced top docs
+            final Map<Integer, List<ScoreDoc>> reducedHitsPerShard = new HashMap<>();
+            for (ScoreDoc scoreDoc : reducedTopDocs.scoreDocs) {
+                List<ScoreDoc> hits = reducedHitsPerShard.get(scoreDoc.shardIndex);
+                if (hits == null) {
+                    hits = new ArrayList<>();
+                    reducedHitsPerShard.put(scoreDoc.shardIndex, hits);
+                }
+                hits.add(scoreDoc);
+            }
+            for (Map.Entry<Integer, List<ScoreDoc>> entry : reducedHitsPerShard.entrySet()) {
+                final TopDocs previous = topDocsPerShard.put(entry.getKey(), shardTopDocs(entry.getValue(), sortFields));
+                assert previous == null : "shard [" + entry.getKey() + "] was consumed twice";
+            }
+        }
+
+        final TopDocs[] shardTopDocs = new TopDocs[topDocsPerShard.size()];
+        final int[] shardIndices = new int[topDocsPerShard.size()];
+        int slot = 0;
+        for (Map.Entry<Integer, TopDocs> entry : topDocsPerShard.entrySet()) {
+            shardIndices[slot] = entry.getKey();
+            shardTopDocs[slot] = entry.getValue();
+            slot++;
+        }
+
+        TopDocs mergedTopDocs = TopDocs.merge(sort, from, size, shardTopDocs);
+
+        // the hits that were skipped by from got the position of their top docs as well
+        for (slot = 0; slot < shardTopDocs.length; slot++) {
+            for (ScoreDoc scoreDoc : shardTopDocs[slot].scoreDocs) {
+                scoreDoc.shardIndex = shardIndices[slot];
+            }
+        }
+        return mergedTopDocs;
+    }
+
+    /**
+     * Returns top docs holding the given hits of a single shard. Only their hits are used by the merge, the total hits and
+     * max score of the response are taken from the shard results.
+     */
+    private static TopDocs shardTopDocs(List<ScoreDoc> hits, SortField[] sortFields) {
+        final ScoreDoc[] scoreDocs = hits.toArray(new ScoreDoc[hits.size()]);
+        if (sortFields != null) {
+            return new TopFieldDocs(scoreDocs.length, scoreDocs, sortFields, Float.NaN);
+        }
+        return new TopDocs(scoreDocs.length, scoreDocs, scoreDocs[0].score);
+    }
+
+    /**
+     * Returns top docs without hits, but with the total hits, max score and sort fields of the given ones since the response
+     * is still built from them.
+     */
+    private static TopDocs emptyTopDocs(TopDocs topDocs) {
+        if (topDocs instanceof TopFieldDocs) {
+            return new TopFieldDocs(topDocs.totalHits, Lucene.EMPTY_SCORE_DOCS, ((TopFieldDocs) topDocs).fields, topDocs.getMaxScore());
+        }
+        return new TopDocs(topDocs.totalHits, Lucene.EMPTY_SCORE_DOCS, topDocs.getMaxScore());
+    }
+}
@@ -24,6 +24,7 @@ import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.HppcMaps;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -41,6 +42,7 @@ import org.elasticsearch.search.fetch.FetchSearchResultProvider;
 import org.elasticsearch.search.internal.InternalSearchHit;
 import org.elasticsearch.search.internal.InternalSearchHits;
 import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.query.QuerySearchResultProvider;
 import org.elasticsearch.search.suggest.Suggest;
@@ -83,6 +85,14 @@ public class SearchPhaseController extends AbstractComponent {
         return optimizeSingleShard;
     }
 
+    /**
+     * Returns a consumer that reduces the query results of the shards of the given request in batches of
+     * {@link SearchRequest#batchedReduceSize()} results as they arrive.
+     */
+    public QueryPhaseResultConsumer newQueryPhaseResultConsumer(SearchRequest request) {
+        return new QueryPhaseResultConsumer(this, request.batchedReduceSize());
+    }
+
     public AggregatedDfs aggregateDfs(AtomicArray<DfsSearchResult> results) {
         ObjectObjectOpenHashMap<Term, TermStatistics> termStatistics = HppcMaps.newNoNullKeysMap();
         ObjectObjectOpenHashMap<String, CollectionStatistics> fieldStatistics = HppcMaps.newNoNullKeysMap();
@@ -265,6 +275,15 @@ public class SearchPhaseController extends AbstractComponent {
     }
 
     public InternalSearchResponse merge(ScoreDoc[] sortedDocs, AtomicArray<? extends QuerySearchResultProvider> queryResultsArr, AtomicArray<? extends FetchSearchResultProvider> fetchResultsArr) {
+        return merge(sortedDocs, queryResultsArr, fetchResultsArr, null);
+    }
+
+    /**
+     * Merges the results of the shards, the aggregations that were partially reduced by the given consumer if any are
+     * reduced along with the aggregations the shard results still hold.
+     */
+    public InternalSearchResponse merge(ScoreDoc[] sortedDocs, AtomicArray<? extends QuerySearchResultProvider> queryResultsArr,
+                                        AtomicArray<? extends FetchSearchResultProvider> fetchResultsArr, @Nullable QueryPhaseResultConsumer consumer) {
 
         List<? extends AtomicArray.Entry<? extends QuerySearchResultProvider>> queryResults = queryResultsArr.asList();
         List<? extends AtomicArray.Entry<? extends FetchSearchResultProvider>> fetchResults = fetchResultsArr.asList();
@@ -364,21 +383,43 @@ public class SearchPhaseController extends AbstractComponent {
             suggest = hasSuggestions ? new Suggest(Suggest.Fields.SUGGEST, Suggest.reduce(groupedSuggestions)) : null;
         }
 
+        // gather the profiled timings, keyed by shard
+        Map<String, ProfileShardResult> profileResults = null;
+        for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
+            QuerySearchResult result = entry.value.queryResult();
+            if (result.profileResult() != null) {
+                if (profileResults == null) {
+                    profileResults = new TreeMap<>();
+                }
+                profileResults.put(result.shardTarget().toString(), result.profileResult());
+            }
+        }
+
         // merge addAggregation
         InternalAggregations aggregations = null;
-        if (!queryResults.isEmpty()) {
+        if (consumer != null && consumer.getNumReducePhases() > 0) {
+            aggregations = consumer.reduceAggregations();
+        } else if (!queryResults.isEmpty()) {
             if (firstResult.aggregations() != null && firstResult.aggregations().asList() != null) {
                 List<InternalAggregations> aggregationsList = new ArrayList<>(queryResults.size());
                 for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
                     aggregationsList.add((InternalAggregations) entry.value.queryResult().aggregations());
                 }
-                aggregations = InternalAggregations.reduce(aggregationsList, new ReduceContext(null, bigArrays, scriptService));
+                aggregations = reduceAggregations(aggregationsList, true);
             }
         }
 
         InternalSearchHits searchHits = new InternalSearchHits(hits.toArray(new InternalSearchHit[hits.size()]), totalHits, maxScore);
 
-        return new InternalSearchResponse(searchHits, aggregations, suggest, timedOut, terminatedEarly);
+        int numReducePhases = consumer == null ? 1 : consumer.getNumReducePhases() + 1;
+        return new InternalSearchResponse(searchHits, aggregations, suggest, timedOut, terminatedEarly, profileResults, numReducePhases);
+    }
+
+    /**
+     * Reduces the given aggregations, a partial reduce returns aggregations that can be reduced again with other ones.
+     */
+    InternalAggregations reduceAggregations(List<InternalAggregations> aggregationsList, boolean finalReduce) {
+        return InternalAggregations.reduce(aggregationsList, new ReduceContext(null, bigArrays, scriptService, finalReduce));
     }
 
 }
@@ -28,6 +28,8 @@ import org.elasticsearch.action.search.type.ParsedScrollId;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.tasks.CancellableTask;
+import org.elasticsearch.tasks.Task;
 import org.elasticsearch.transport.TransportRequest;
 
 import java.io.IOException;
@@ -81,6 +83,16 @@ public class ShardFetchRequest extends TransportRequest {
         return lastEmittedDoc;
     }
 
+    @Override
+    public Task createTask(long id, String type, String action) {
+        return new CancellableTask(id, type, action, getDescription(), getParentTaskNode(), getParentTaskId());
+    }
+
+    @Override
+    public String getDescription() {
+        return "id[" + id + "]";
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
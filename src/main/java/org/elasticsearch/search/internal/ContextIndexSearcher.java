@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.internal;
 
+import com.google.common.base.Throwables;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Explanation;
@@ -27,19 +28,30 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TimeLimitingCollector;
 import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.CollectionUtil;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
 import org.elasticsearch.common.lucene.MultiCollector;
+import org.elasticsearch.common.lucene.search.CancellableCollector;
 import org.elasticsearch.common.lucene.search.FilteredCollector;
 import org.elasticsearch.common.lucene.search.XCollector;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.CachedDfSource;
+import org.elasticsearch.search.profile.Profiler;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
+import org.elasticsearch.tasks.CancellableTask;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -51,6 +63,23 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         MAIN_QUERY
     }
 
+    /**
+     * Creates the collectors of the slices of segments searched by {@link #searchConcurrently}, and reduces them once all
+     * the slices are searched.
+     */
+    public static interface SliceCollectorManager<C extends Collector, T> {
+
+        /**
+         * Creates the collector of a slice, called on the searching thread before any slice is searched.
+         */
+        C newCollector() throws IOException;
+
+        /**
+         * Reduces the collectors of all the slices, in the order they were created.
+         */
+        T reduce(List<C> collectors) throws IOException;
+    }
+
     /** The wrapped {@link IndexSearcher}. The reason why we sometimes prefer delegating to this searcher instead of <tt>super</tt> is that
      *  this instance may have more assertions, for example if it comes from MockInternalEngine which wraps the IndexSearcher into an
      *  AssertingIndexSearcher. */
@@ -118,8 +147,14 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
     @Override
     public Weight createNormalizedWeight(Query query) throws IOException {
         try {
+            final boolean mainQuery = query == searchContext.query() || query == searchContext.parsedQuery().query();
+            final Profiler profiler = searchContext.profiler();
+            if (mainQuery && profiler != null && currentState == Stage.MAIN_QUERY) {
+                // wrap the rewritten query, so that the rewrite does not get in the way of the profiled tree
+                query = profiler.wrap(rewrite(query));
+            }
             // if its the main query, use we have dfs data, only then do it
-            if (dfSource != null && (query == searchContext.query() || query == searchContext.parsedQuery().query())) {
+            if (dfSource != null && mainQuery) {
                 return dfSource.createNormalizedWeight(query);
             }
             return in.createNormalizedWeight(query);
@@ -133,7 +168,11 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
     public void search(List<LeafReaderContext> leaves, Weight weight, Collector collector) throws IOException {
         final boolean timeoutSet = searchContext.timeoutInMillis() != -1;
         final boolean terminateAfterSet = searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER;
+        final Profiler profiler = currentState == Stage.MAIN_QUERY ? searchContext.profiler() : null;
 
+        if (profiler != null) {
+            collector = profiler.wrap(collector, "main_collector");
+        }
         if (timeoutSet) {
             // TODO: change to use our own counter that uses the scheduler in ThreadPool
             // throws TimeLimitingCollector.TimeExceededException when timeout has reached
@@ -151,7 +190,13 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
                 collector = new FilteredCollector(collector, searchContext.parsedPostFilter().filter());
             }
             if (queryCollectors != null && !queryCollectors.isEmpty()) {
-                collector = new MultiCollector(collector, queryCollectors.toArray(new Collector[queryCollectors.size()]));
+                Collector[] collectors = queryCollectors.toArray(new Collector[queryCollectors.size()]);
+                if (profiler != null) {
+                    for (int i = 0; i < collectors.length; i++) {
+                        collectors[i] = profiler.wrap(collectors[i], "query_collector");
+                    }
+                }
+                collector = new MultiCollector(collector, collectors);
             }
 
             // apply the minimum score after multi collector so we filter aggs as well
@@ -159,6 +204,10 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
                 collector = new MinimumScoreCollector(collector, searchContext.minimumScore());
             }
         }
+        if (searchContext.task() instanceof CancellableTask) {
+            // stops the collection of the query and the aggregations once the task is cancelled
+            collector = new CancellableCollector(collector, (CancellableTask) searchContext.task());
+        }
 
         // we only compute the doc id set once since within a context, we execute the same query always...
         try {
@@ -193,6 +242,146 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    /**
+     * Searches the main query over at most <tt>maxSlices</tt> slices of the segments, the first slice on the calling thread and
+     * the other ones on the given executor, or on the calling thread as well when the executor rejects them. Unlike
+     * {@link #search(List, Weight, Collector)} the main query collectors are not applied, the collectors of the slices need
+     * to take care of what they do, and neither profiling nor <tt>terminate_after</tt> are supported.
+     */
+    public <C extends Collector, T> T searchConcurrently(Query query, int maxSlices, Executor executor,
+                                                         SliceCollectorManager<C, T> manager) throws IOException {
+        assert currentState == Stage.MAIN_QUERY : "concurrent search is only supported for the main query";
+        assert searchContext.profiler() == null : "concurrent search doesn't support profiling";
+        assert searchContext.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER : "concurrent search doesn't support terminate_after";
+        try {
+            final Weight weight = createNormalizedWeight(query);
+            final List<List<LeafReaderContext>> slices = sliceLeaves(leafContexts, maxSlices);
+            final List<C> collectors = new ArrayList<>(slices.size());
+            final List<FutureTask<Void>> tasks = new ArrayList<>(slices.size());
+            for (int i = 0; i < slices.size(); i++) {
+                C collector = manager.newCollector();
+                collectors.add(collector);
+                tasks.add(new FutureTask<>(new SliceSearch(slices.get(i), weight, wrapSliceCollector(collector))));
+            }
+            for (int i = 1; i < tasks.size(); i++) {
+                try {
+                    executor.execute(tasks.get(i));
+                } catch (EsRejectedExecutionException e) {
+                    // the slices are searched sequentially under load, no need to fail the search
+                    tasks.get(i).run();
+                }
+            }
+            tasks.get(0).run();
+
+            // all the slices must be done before the collection releasables get cleared, even if one of them failed
+            Throwable failure = null;
+            boolean interrupted = false;
+            for (FutureTask<Void> task : tasks) {
+                while (true) {
+                    try {
+                        task.get();
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof TimeLimitingCollector.TimeExceededException) {
+                            searchContext.queryResult().searchTimedOut(true);
+                        } else {
+                            failure = ExceptionsHelper.useOrSuppress(failure, e.getCause());
+                        }
+                        break;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                Throwables.propagateIfPossible(failure, IOException.class);
+                throw new RuntimeException(failure);
+            }
+            return manager.reduce(collectors);
+        } finally {
+            searchContext.clearReleasables(Lifetime.COLLECTION);
+        }
+    }
+
+    private Collector wrapSliceCollector(Collector collector) {
+        if (searchContext.timeoutInMillis() != -1) {
+            collector = Lucene.wrapTimeLimitingCollector(collector, searchContext.timeEstimateCounter(), searchContext.timeoutInMillis());
+        }
+        if (searchContext.parsedPostFilter() != null) {
+            collector = new FilteredCollector(collector, searchContext.parsedPostFilter().filter());
+        }
+        if (searchContext.minimumScore() != null) {
+            collector = new MinimumScoreCollector(collector, searchContext.minimumScore());
+        }
+        if (searchContext.task() instanceof CancellableTask) {
+            collector = new CancellableCollector(collector, (CancellableTask) searchContext.task());
+        }
+        return collector;
+    }
+
+    /**
+     * Splits the given segments into at most <tt>maxSlices</tt> slices that hold about the same number of documents. Each
+     * segment, starting with the largest ones, goes to the slice that has the fewest documents so far.
+     */
+    static List<List<LeafReaderContext>> sliceLeaves(List<LeafReaderContext> leaves, int maxSlices) {
+        final int numSlices = Math.max(1, Math.min(maxSlices, leaves.size()));
+        List<LeafReaderContext> sortedLeaves = new ArrayList<>(leaves);
+        CollectionUtil.timSort(sortedLeaves, new Comparator<LeafReaderContext>() {
+            @Override
+            public int compare(LeafReaderContext o1, LeafReaderContext o2) {
+                return Integer.compare(o2.reader().maxDoc(), o1.reader().maxDoc());
+            }
+        });
+        List<List<LeafReaderContext>> slices = new ArrayList<>(numSlices);
+        long[] sliceDocs = new long[numSlices];
+        for (int i = 0; i < numSlices; i++) {
+            slices.add(new ArrayList<LeafReaderContext>());
+        }
+        for (LeafReaderContext leaf : sortedLeaves) {
+            int smallest = 0;
+            for (int i = 1; i < numSlices; i++) {
+                if (sliceDocs[i] < sliceDocs[smallest]) {
+                    smallest = i;
+                }
+            }
+            slices.get(smallest).add(leaf);
+            sliceDocs[smallest] += leaf.reader().maxDoc();
+        }
+        // each slice visits its segments in index order, like a sequential search does
+        for (List<LeafReaderContext> slice : slices) {
+            CollectionUtil.timSort(slice, new Comparator<LeafReaderContext>() {
+                @Override
+                public int compare(LeafReaderContext o1, LeafReaderContext o2) {
+                    return Integer.compare(o1.ord, o2.ord);
+                }
+            });
+        }
+        return slices;
+    }
+
+    private class SliceSearch implements Callable<Void> {
+
+        private final List<LeafReaderContext> leaves;
+        private final Weight weight;
+        private final Collector collector;
+
+        SliceSearch(List<LeafReaderContext> leaves, Weight weight, Collector collector) {
+            this.leaves = leaves;
+            this.weight = weight;
+            this.collector = collector;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            // bypass the main query collectors of this searcher
+            ContextIndexSearcher.super.search(leaves, weight, collector);
+            return null;
+        }
+    }
+
     @Override
     public Explanation explain(Query query, int doc) throws IOException {
         try {
@@ -54,6 +54,7 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.similarity.SimilarityService;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchContextException;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
 import org.elasticsearch.search.dfs.DfsSearchResult;
@@ -64,11 +65,14 @@ import org.elasticsearch.search.fetch.script.ScriptFieldsContext;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
 import org.elasticsearch.search.highlight.SearchContextHighlight;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.search.profile.Profiler;
 import org.elasticsearch.search.query.QueryPhaseExecutionException;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
 import org.elasticsearch.search.scan.ScanContext;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
+import org.elasticsearch.tasks.Task;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -119,6 +123,11 @@ public class DefaultSearchContext extends SearchContext {
     // terminate after count
     private int terminateAfter = DEFAULT_TERMINATE_AFTER;
 
+    private int maxConcurrentSlices = DEFAULT_MAX_CONCURRENT_SLICES;
+    private boolean sequentialSearchRequired;
+    private boolean trackTotalHits = true;
+    private SliceBuilder sliceBuilder;
+
 
     private List<String> groupStats;
 
@@ -126,6 +135,10 @@ public class DefaultSearchContext extends SearchContext {
 
     private boolean explain;
 
+    private Profiler profiler;
+
+    private Task task;
+
     private boolean version = false; // by default, we don't return versions
 
     private List<String> fieldNames;
@@ -241,6 +254,15 @@ public class DefaultSearchContext extends SearchContext {
                 parsedQuery(new ParsedQuery(new FilteredQuery(query(), searchFilter), parsedQuery()));
             }
         }
+        if (sliceBuilder != null) {
+            if (scroll() == null) {
+                throw new SearchContextException(this, "[slice] can only be used with [scroll] requests");
+            }
+            Filter sliceFilter = sliceBuilder.toFilter(this);
+            if (sliceFilter != null) {
+                parsedQuery(new ParsedQuery(new FilteredQuery(query(), sliceFilter), parsedQuery()));
+            }
+        }
     }
 
     public Filter searchFilter(String[] types) {
@@ -467,6 +489,48 @@ public class DefaultSearchContext extends SearchContext {
         this.terminateAfter = terminateAfter;
     }
 
+    @Override
+    public int maxConcurrentSlices() {
+        return maxConcurrentSlices;
+    }
+
+    @Override
+    public void maxConcurrentSlices(int maxConcurrentSlices) {
+        this.maxConcurrentSlices = maxConcurrentSlices;
+    }
+
+    @Override
+    public void requireSequentialSearch() {
+        this.sequentialSearchRequired = true;
+    }
+
+    @Override
+    public boolean sequentialSearchRequired() {
+        // the scripts of the query, the sort and the aggregations share the search lookup, which holds the doc values
+        // of the segment it was last moved to, so any script parsed with the request makes the search sequential
+        return sequentialSearchRequired || searchLookup != null;
+    }
+
+    @Override
+    public boolean trackTotalHits() {
+        return trackTotalHits;
+    }
+
+    @Override
+    public void trackTotalHits(boolean trackTotalHits) {
+        this.trackTotalHits = trackTotalHits;
+    }
+
+    @Override
+    public SliceBuilder sliceBuilder() {
+        return sliceBuilder;
+    }
+
+    @Override
+    public void sliceBuilder(SliceBuilder sliceBuilder) {
+        this.sliceBuilder = sliceBuilder;
+    }
+
     public SearchContext minimumScore(float minimumScore) {
         this.minimumScore = minimumScore;
         return this;
@@ -582,6 +646,26 @@ public class DefaultSearchContext extends SearchContext {
         this.explain = explain;
     }
 
+    @Override
+    public Profiler profiler() {
+        return profiler;
+    }
+
+    @Override
+    public void profiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Task task() {
+        return task;
+    }
+
+    @Override
+    public void task(Task task) {
+        this.task = task;
+    }
+
     @Nullable
     public List<String> groupStats() {
         return this.groupStats;
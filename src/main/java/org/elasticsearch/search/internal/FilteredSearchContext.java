@@ -51,10 +51,13 @@ import org.elasticsearch.search.fetch.script.ScriptFieldsContext;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
 import org.elasticsearch.search.highlight.SearchContextHighlight;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.search.profile.Profiler;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
 import org.elasticsearch.search.scan.ScanContext;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
+import org.elasticsearch.tasks.Task;
 
 import java.util.List;
 
@@ -323,6 +326,46 @@ public abstract class FilteredSearchContext extends SearchContext {
         in.terminateAfter(terminateAfter);
     }
 
+    @Override
+    public int maxConcurrentSlices() {
+        return in.maxConcurrentSlices();
+    }
+
+    @Override
+    public void maxConcurrentSlices(int maxConcurrentSlices) {
+        in.maxConcurrentSlices(maxConcurrentSlices);
+    }
+
+    @Override
+    public void requireSequentialSearch() {
+        in.requireSequentialSearch();
+    }
+
+    @Override
+    public boolean sequentialSearchRequired() {
+        return in.sequentialSearchRequired();
+    }
+
+    @Override
+    public boolean trackTotalHits() {
+        return in.trackTotalHits();
+    }
+
+    @Override
+    public void trackTotalHits(boolean trackTotalHits) {
+        in.trackTotalHits(trackTotalHits);
+    }
+
+    @Override
+    public SliceBuilder sliceBuilder() {
+        return in.sliceBuilder();
+    }
+
+    @Override
+    public void sliceBuilder(SliceBuilder sliceBuilder) {
+        in.sliceBuilder(sliceBuilder);
+    }
+
     @Override
     public SearchContext minimumScore(float minimumScore) {
         return in.minimumScore(minimumScore);
@@ -438,6 +481,26 @@ public abstract class FilteredSearchContext extends SearchContext {
         in.explain(explain);
     }
 
+    @Override
+    public Profiler profiler() {
+        return in.profiler();
+    }
+
+    @Override
+    public void profiler(Profiler profiler) {
+        in.profiler(profiler);
+    }
+
+    @Override
+    public Task task() {
+        return in.task();
+    }
+
+    @Override
+    public void task(Task task) {
+        in.task(task);
+    }
+
     @Override
     public List<String> groupStats() {
         return in.groupStats();
@@ -25,12 +25,17 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static org.elasticsearch.search.internal.InternalSearchHits.readSearchHits;
 
@@ -53,15 +58,31 @@ public class InternalSearchResponse implements Streamable, ToXContent {
 
     private Boolean terminatedEarly = null;
 
+    private Map<String, ProfileShardResult> profileResults;
+
+    private int numReducePhases = 1;
+
     private InternalSearchResponse() {
     }
 
     public InternalSearchResponse(InternalSearchHits hits, InternalAggregations aggregations, Suggest suggest, boolean timedOut, Boolean terminatedEarly) {
+        this(hits, aggregations, suggest, timedOut, terminatedEarly, null);
+    }
+
+    public InternalSearchResponse(InternalSearchHits hits, InternalAggregations aggregations, Suggest suggest, boolean timedOut, Boolean terminatedEarly,
+                                  Map<String, ProfileShardResult> profileResults) {
+        this(hits, aggregations, suggest, timedOut, terminatedEarly, profileResults, 1);
+    }
+
+    public InternalSearchResponse(InternalSearchHits hits, InternalAggregations aggregations, Suggest suggest, boolean timedOut, Boolean terminatedEarly,
+                                  Map<String, ProfileShardResult> profileResults, int numReducePhases) {
         this.hits = hits;
         this.aggregations = aggregations;
         this.suggest = suggest;
         this.timedOut = timedOut;
         this.terminatedEarly = terminatedEarly;
+        this.profileResults = profileResults;
+        this.numReducePhases = numReducePhases;
     }
 
     public boolean timedOut() {
@@ -84,6 +105,21 @@ public class InternalSearchResponse implements Streamable, ToXContent {
         return suggest;
     }
 
+    /**
+     * The profiled timings of the query phase keyed by shard, <tt>null</tt> if the request was not profiled.
+     */
+    public Map<String, ProfileShardResult> profileResults() {
+        return profileResults == null ? null : Collections.unmodifiableMap(profileResults);
+    }
+
+    /**
+     * The number of times the aggregations were reduced, more than one if the shard results were partially reduced
+     * while they were coming in.
+     */
+    public int numReducePhases() {
+        return numReducePhases;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         hits.toXContent(builder, params);
@@ -93,6 +129,18 @@ public class InternalSearchResponse implements Streamable, ToXContent {
         if (suggest != null) {
             suggest.toXContent(builder, params);
         }
+        if (profileResults != null) {
+            builder.startObject(Fields.PROFILE);
+            builder.startArray(Fields.SHARDS);
+            for (Map.Entry<String, ProfileShardResult> entry : profileResults.entrySet()) {
+                builder.startObject();
+                builder.field(Fields.ID, entry.getKey());
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endArray();
+            builder.endObject();
+        }
         return builder;
     }
 
@@ -114,6 +162,17 @@ public class InternalSearchResponse implements Streamable, ToXContent {
         timedOut = in.readBoolean();
 
         terminatedEarly = in.readOptionalBoolean();
+
+        if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+            int size = in.readVInt();
+            profileResults = new TreeMap<>();
+            for (int i = 0; i < size; i++) {
+                profileResults.put(in.readString(), ProfileShardResult.readProfileShardResult(in));
+            }
+        }
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            numReducePhases = in.readVInt();
+        }
     }
 
     @Override
@@ -134,5 +193,25 @@ public class InternalSearchResponse implements Streamable, ToXContent {
         out.writeBoolean(timedOut);
 
         out.writeOptionalBoolean(terminatedEarly);
+
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            if (profileResults == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                out.writeVInt(profileResults.size());
+                for (Map.Entry<String, ProfileShardResult> entry : profileResults.entrySet()) {
+                    out.writeString(entry.getKey());
+                    entry.getValue().writeTo(out);
+                }
+            }
+            out.writeVInt(numReducePhases);
+        }
+    }
+
+    static final class Fields {
+        static final XContentBuilderString PROFILE = new XContentBuilderString("profile");
+        static final XContentBuilderString SHARDS = new XContentBuilderString("shards");
+        static final XContentBuilderString ID = new XContentBuilderString("id");
     }
 }
@@ -57,10 +57,13 @@ import org.elasticsearch.search.fetch.script.ScriptFieldsContext;
 import org.elasticsearch.search.fetch.source.FetchSourceContext;
 import org.elasticsearch.search.highlight.SearchContextHighlight;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.search.profile.Profiler;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
 import org.elasticsearch.search.scan.ScanContext;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
+import org.elasticsearch.tasks.Task;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -73,6 +76,7 @@ public abstract class SearchContext implements Releasable {
 
     private static ThreadLocal<SearchContext> current = new ThreadLocal<>();
     public final static int DEFAULT_TERMINATE_AFTER = 0;
+    public final static int DEFAULT_MAX_CONCURRENT_SLICES = 1;
 
     public static void setCurrent(SearchContext value) {
         current.set(value);
@@ -225,6 +229,40 @@ public abstract class SearchContext implements Releasable {
 
     public abstract void terminateAfter(int terminateAfter);
 
+    /**
+     * The maximum number of slices of segments the query phase may search concurrently, <tt>1</tt> to search them sequentially.
+     */
+    public abstract int maxConcurrentSlices();
+
+    public abstract void maxConcurrentSlices(int maxConcurrentSlices);
+
+    /**
+     * Makes the query phase search the segments sequentially, because a part of the request keeps per segment state,
+     * like the doc values of a score function or the lookup of a script, that concurrent slices would share.
+     */
+    public abstract void requireSequentialSearch();
+
+    /**
+     * Whether a part of the request needs the segments to be searched sequentially, see {@link #requireSequentialSearch()}.
+     */
+    public abstract boolean sequentialSearchRequired();
+
+    /**
+     * Whether the total hits must count all the matching documents, when <tt>false</tt> the collection of the segments
+     * sorted with the index sort may terminate early and the total hits are then a lower bound.
+     */
+    public abstract boolean trackTotalHits();
+
+    public abstract void trackTotalHits(boolean trackTotalHits);
+
+    /**
+     * The slice of a scroll this search reads, <tt>null</tt> to read all the matching documents.
+     */
+    @Nullable
+    public abstract SliceBuilder sliceBuilder();
+
+    public abstract void sliceBuilder(SliceBuilder sliceBuilder);
+
     public abstract SearchContext minimumScore(float minimumScore);
 
     public abstract Float minimumScore();
@@ -280,6 +318,22 @@ public abstract class SearchContext implements Releasable {
 
     public abstract void explain(boolean explain);
 
+    /**
+     * The profiler recording the timings of the query phase, <tt>null</tt> if the request is not profiled.
+     */
+    @Nullable
+    public abstract Profiler profiler();
+
+    public abstract void profiler(Profiler profiler);
+
+    /**
+     * The task the current phase of the request is executed for, <tt>null</tt> if the request isn't executed for a task.
+     */
+    @Nullable
+    public abstract Task task();
+
+    public abstract void task(Task task);
+
     @Nullable
     public abstract List<String> groupStats();
 
@@ -319,16 +373,17 @@ public abstract class SearchContext implements Releasable {
 
     /**
      * Schedule the release of a resource. The time when {@link Releasable#release()} will be called on this object
-     * is function of the provided {@link Lifetime}.
+     * is function of the provided {@link Lifetime}. Aggregators may be created, and scheduled for release, while the
+     * slices of a concurrent search are collected, hence the synchronization.
      */
-    public void addReleasable(Releasable releasable, Lifetime lifetime) {
+    public synchronized void addReleasable(Releasable releasable, Lifetime lifetime) {
         if (clearables == null) {
             clearables = MultimapBuilder.enumKeys(Lifetime.class).arrayListValues().build();
         }
         clearables.put(lifetime, releasable);
     }
 
-    public void clearReleasables(Lifetime lifetime) {
+    public synchronized void clearReleasables(Lifetime lifetime) {
         if (clearables != null) {
             List<Collection<Releasable>> releasables = new ArrayList<>();
             for (Lifetime lc : Lifetime.values()) {
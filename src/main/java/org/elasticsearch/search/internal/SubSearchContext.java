@@ -38,6 +38,7 @@ import org.elasticsearch.search.highlight.SearchContextHighlight;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
 
 import java.util.List;
@@ -185,6 +186,21 @@ public class SubSearchContext extends FilteredSearchContext {
         throw new UnsupportedOperationException("Not supported");
     }
 
+    @Override
+    public void maxConcurrentSlices(int maxConcurrentSlices) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public void trackTotalHits(boolean trackTotalHits) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
+    @Override
+    public void sliceBuilder(SliceBuilder sliceBuilder) {
+        throw new UnsupportedOperationException("Not supported");
+    }
+
     @Override
     public SearchContext minimumScore(float minimumScore) {
         throw new UnsupportedOperationException("Not supported");
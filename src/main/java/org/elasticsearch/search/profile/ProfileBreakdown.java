@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Accumulates the time spent in, and the number of invocations of, each of the
+ * timed methods of a profiled query, collector or aggregator. Timings are inclusive,
+ * the time recorded for a method contains the time spent in whatever it delegates to.
+ * <p/>
+ * A breakdown is only ever touched by the thread executing the shard level request,
+ * so it does not need to be thread safe.
+ */
+public class ProfileBreakdown<T extends Enum<T>> {
+
+    private final T[] types;
+    private final long[] timings;
+    private final long[] counts;
+
+    public ProfileBreakdown(Class<T> type) {
+        this.types = type.getEnumConstants();
+        this.timings = new long[types.length];
+        this.counts = new long[types.length];
+    }
+
+    /**
+     * Returns the current time, to be passed to {@link #record(Enum, long)} once the timed method returns.
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records an invocation of the timed method <tt>type</tt> that started at <tt>startNanos</tt>.
+     */
+    public void record(T type, long startNanos) {
+        timings[type.ordinal()] += System.nanoTime() - startNanos;
+        counts[type.ordinal()]++;
+    }
+
+    /**
+     * The total time, in nanoseconds, spent in the timed method <tt>type</tt>.
+     */
+    public long timing(T type) {
+        return timings[type.ordinal()];
+    }
+
+    /**
+     * The number of times the timed method <tt>type</tt> has been invoked.
+     */
+    public long count(T type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * The sum of the time spent in all timed methods.
+     */
+    public long totalTime() {
+        long total = 0;
+        for (long timing : timings) {
+            total += timing;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the timings and invocation counts keyed by the name of the timed method, the latter
+     * suffixed with <tt>_count</tt>.
+     */
+    public Map<String, Long> toTimingMap() {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (T type : types) {
+            map.put(type.toString(), timings[type.ordinal()]);
+            map.put(type.toString() + "_count", counts[type.ordinal()]);
+        }
+        return map;
+    }
+}
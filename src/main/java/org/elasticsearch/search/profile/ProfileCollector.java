@@ -0,0 +1,67 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.FilterLeafCollector;
+import org.apache.lucene.search.LeafCollector;
+import org.elasticsearch.common.lucene.search.XCollector;
+
+import java.io.IOException;
+
+/**
+ * A collector wrapper that records the time spent getting leaf collectors and collecting documents.
+ */
+final class ProfileCollector implements XCollector {
+
+    private final Collector collector;
+    private final ProfileBreakdown<CollectorTimingType> breakdown;
+
+    ProfileCollector(Collector collector, ProfileBreakdown<CollectorTimingType> breakdown) {
+        this.collector = collector;
+        this.breakdown = breakdown;
+    }
+
+    @Override
+    public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+        long start = breakdown.start();
+        final LeafCollector in = collector.getLeafCollector(context);
+        breakdown.record(CollectorTimingType.GET_LEAF_COLLECTOR, start);
+        return new FilterLeafCollector(in) {
+            @Override
+            public void collect(int doc) throws IOException {
+                long start = breakdown.start();
+                try {
+                    in.collect(doc);
+                } finally {
+                    breakdown.record(CollectorTimingType.COLLECT, start);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void postCollection() throws IOException {
+        if (collector instanceof XCollector) {
+            ((XCollector) collector).postCollection();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A node of the tree of profiled queries, collectors or aggregators that is built while a
+ * shard level request executes and turned into {@link ProfileResult}s once it is done.
+ */
+class ProfileNode<T extends Enum<T>> {
+
+    private final String type;
+    private final String description;
+    private final ProfileBreakdown<T> breakdown;
+    private final List<ProfileNode<T>> children = new ArrayList<>();
+
+    ProfileNode(String type, String description, Class<T> timingType) {
+        this.type = type;
+        this.description = description;
+        this.breakdown = new ProfileBreakdown<>(timingType);
+    }
+
+    ProfileBreakdown<T> breakdown() {
+        return breakdown;
+    }
+
+    void addChild(ProfileNode<T> child) {
+        children.add(child);
+    }
+
+    ProfileResult toResult() {
+        List<ProfileResult> childResults = new ArrayList<>(children.size());
+        for (ProfileNode<T> child : children) {
+            childResults.add(child.toResult());
+        }
+        return new ProfileResult(type, description, breakdown.totalTime(), breakdown.toTimingMap(), childResults);
+    }
+}
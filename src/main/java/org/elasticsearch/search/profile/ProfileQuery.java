@@ -0,0 +1,110 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Weight;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * A query wrapper that records the time spent creating its weight, and hands out
+ * {@link ProfileWeight}s that record the time spent building and iterating its scorers.
+ */
+public final class ProfileQuery extends Query {
+
+    private Query query;
+    private final ProfileNode<QueryTimingType> node;
+
+    ProfileQuery(Query query, ProfileNode<QueryTimingType> node) {
+        this.query = query;
+        this.node = node;
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        Query rewritten = query.rewrite(reader);
+        if (rewritten == query) {
+            return this;
+        }
+        // keep on recording into the same breakdown
+        return new ProfileQuery(rewritten, node);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher) throws IOException {
+        ProfileBreakdown<QueryTimingType> breakdown = node.breakdown();
+        long start = breakdown.start();
+        Weight weight = query.createWeight(searcher);
+        breakdown.record(QueryTimingType.CREATE_WEIGHT, start);
+        return new ProfileWeight(this, weight, breakdown);
+    }
+
+    @Override
+    public void extractTerms(Set<Term> terms) {
+        query.extractTerms(terms);
+    }
+
+    @Override
+    public float getBoost() {
+        return query.getBoost();
+    }
+
+    @Override
+    public void setBoost(float boost) {
+        query.setBoost(boost);
+    }
+
+    @Override
+    public ProfileQuery clone() {
+        ProfileQuery clone = (ProfileQuery) super.clone();
+        clone.query = query.clone();
+        return clone;
+    }
+
+    @Override
+    public String toString(String field) {
+        return query.toString(field);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return query.equals(((ProfileQuery) o).query);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getClass().hashCode() + query.hashCode();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The profiled timings of a single query, collector or aggregator, along with the
+ * results of its children, if any.
+ */
+public class ProfileResult implements Streamable, ToXContent {
+
+    private String type;
+    private String description;
+    private long time;
+    private Map<String, Long> breakdown;
+    private List<ProfileResult> children;
+
+    ProfileResult() {
+    }
+
+    public ProfileResult(String type, String description, long time, Map<String, Long> breakdown, List<ProfileResult> children) {
+        this.type = type;
+        this.description = description;
+        this.time = time;
+        this.breakdown = breakdown;
+        this.children = children;
+    }
+
+    /**
+     * The type of the profiled element, usually its class name.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * A description of the profiled element, for example the string representation of a query.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * The total time, in nanoseconds, spent in the profiled element, including its children.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * The time spent in, and invocation count of, each timed method of the profiled element.
+     */
+    public Map<String, Long> getTimeBreakdown() {
+        return Collections.unmodifiableMap(breakdown);
+    }
+
+    public List<ProfileResult> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    public static ProfileResult readProfileResult(StreamInput in) throws IOException {
+        ProfileResult result = new ProfileResult();
+        result.readFrom(in);
+        return result;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        type = in.readString();
+        description = in.readString();
+        time = in.readVLong();
+        int size = in.readVInt();
+        breakdown = new LinkedHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            breakdown.put(in.readString(), in.readVLong());
+        }
+        size = in.readVInt();
+        children = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            children.add(readProfileResult(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(type);
+        out.writeString(description);
+        out.writeVLong(time);
+        out.writeVInt(breakdown.size());
+        for (Map.Entry<String, Long> entry : breakdown.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeVLong(entry.getValue());
+        }
+        out.writeVInt(children.size());
+        for (ProfileResult child : children) {
+            child.writeTo(out);
+        }
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        builder.field(Fields.TYPE, type);
+        builder.field(Fields.DESCRIPTION, description);
+        if (builder.humanReadable()) {
+            builder.field(Fields.TIME, TimeValue.timeValueNanos(time).toString());
+        }
+        builder.field(Fields.TIME_IN_NANOS, time);
+        builder.startObject(Fields.BREAKDOWN);
+        for (Map.Entry<String, Long> entry : breakdown.entrySet()) {
+            builder.field(entry.getKey(), entry.getValue());
+        }
+        builder.endObject();
+        if (!children.isEmpty()) {
+            builder.startArray(Fields.CHILDREN);
+            for (ProfileResult child : children) {
+                child.toXContent(builder, params);
+            }
+            builder.endArray();
+        }
+        return builder.endObject();
+    }
+
+    static final class Fields {
+        static final XContentBuilderString TYPE = new XContentBuilderString("type");
+        static final XContentBuilderString DESCRIPTION = new XContentBuilderString("description");
+        static final XContentBuilderString TIME = new XContentBuilderString("time");
+        static final XContentBuilderString TIME_IN_NANOS = new XContentBuilderString("time_in_nanos");
+        static final XContentBuilderString BREAKDOWN = new XContentBuilderString("breakdown");
+        static final XContentBuilderString CHILDREN = new XContentBuilderString("children");
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.apache.lucene.search.Scorer;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * A scorer wrapper that records the time spent iterating and scoring documents.
+ */
+final class ProfileScorer extends Scorer {
+
+    private final Scorer scorer;
+    private final ProfileBreakdown<QueryTimingType> breakdown;
+
+    ProfileScorer(ProfileWeight weight, Scorer scorer, ProfileBreakdown<QueryTimingType> breakdown) {
+        super(weight);
+        this.scorer = scorer;
+        this.breakdown = breakdown;
+    }
+
+    @Override
+    public int docID() {
+        return scorer.docID();
+    }
+
+    @Override
+    public int nextDoc() throws IOException {
+        long start = breakdown.start();
+        try {
+            return scorer.nextDoc();
+        } finally {
+            breakdown.record(QueryTimingType.NEXT_DOC, start);
+        }
+    }
+
+    @Override
+    public int advance(int target) throws IOException {
+        long start = breakdown.start();
+        try {
+            return scorer.advance(target);
+        } finally {
+            breakdown.record(QueryTimingType.ADVANCE, start);
+        }
+    }
+
+    @Override
+    public float score() throws IOException {
+        long start = breakdown.start();
+        try {
+            return scorer.score();
+        } finally {
+            breakdown.record(QueryTimingType.SCORE, start);
+        }
+    }
+
+    @Override
+    public int freq() throws IOException {
+        return scorer.freq();
+    }
+
+    @Override
+    public long cost() {
+        return scorer.cost();
+    }
+
+    @Override
+    public Collection<ChildScorer> getChildren() {
+        return scorer.getChildren();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.elasticsearch.search.profile.ProfileResult.readProfileResult;
+
+/**
+ * The profiled timings of the queries, collectors and aggregators executed by the query
+ * phase of a single shard.
+ */
+public class ProfileShardResult implements Streamable, ToXContent {
+
+    private List<ProfileResult> queryResults;
+    private List<ProfileResult> collectorResults;
+    private List<ProfileResult> aggregationResults;
+
+    ProfileShardResult() {
+    }
+
+    public ProfileShardResult(List<ProfileResult> queryResults, List<ProfileResult> collectorResults, List<ProfileResult> aggregationResults) {
+        this.queryResults = queryResults;
+        this.collectorResults = collectorResults;
+        this.aggregationResults = aggregationResults;
+    }
+
+    public List<ProfileResult> getQueryResults() {
+        return Collections.unmodifiableList(queryResults);
+    }
+
+    public List<ProfileResult> getCollectorResults() {
+        return Collections.unmodifiableList(collectorResults);
+    }
+
+    public List<ProfileResult> getAggregationResults() {
+        return Collections.unmodifiableList(aggregationResults);
+    }
+
+    public static ProfileShardResult readProfileShardResult(StreamInput in) throws IOException {
+        ProfileShardResult result = new ProfileShardResult();
+        result.readFrom(in);
+        return result;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        queryResults = readResults(in);
+        collectorResults = readResults(in);
+        aggregationResults = readResults(in);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        writeResults(queryResults, out);
+        writeResults(collectorResults, out);
+        writeResults(aggregationResults, out);
+    }
+
+    private static List<ProfileResult> readResults(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        List<ProfileResult> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            results.add(readProfileResult(in));
+        }
+        return results;
+    }
+
+    private static void writeResults(List<ProfileResult> results, StreamOutput out) throws IOException {
+        out.writeVInt(results.size());
+        for (ProfileResult result : results) {
+            result.writeTo(out);
+        }
+    }
+
+    /**
+     * Renders the results as fields of the current object, the shard identifier is left to the caller.
+     */
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        toXContent(Fields.QUERY, queryResults, builder, params);
+        toXContent(Fields.COLLECTOR, collectorResults, builder, params);
+        toXContent(Fields.AGGREGATIONS, aggregationResults, builder, params);
+        return builder;
+    }
+
+    private static void toXContent(XContentBuilderString name, List<ProfileResult> results, XContentBuilder builder, Params params) throws IOException {
+        builder.startArray(name);
+        for (ProfileResult result : results) {
+            result.toXContent(builder, params);
+        }
+        builder.endArray();
+    }
+
+    static final class Fields {
+        static final XContentBuilderString QUERY = new XContentBuilderString("query");
+        static final XContentBuilderString COLLECTOR = new XContentBuilderString("collector");
+        static final XContentBuilderString AGGREGATIONS = new XContentBuilderString("aggregations");
+    }
+}
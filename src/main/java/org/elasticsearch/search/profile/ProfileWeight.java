@@ -0,0 +1,77 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.Bits;
+
+import java.io.IOException;
+
+/**
+ * A weight wrapper that records the time spent building scorers. The bulk scorer is
+ * deliberately not delegated so that all documents flow through the {@link ProfileScorer}.
+ */
+final class ProfileWeight extends Weight {
+
+    private final ProfileQuery query;
+    private final Weight weight;
+    private final ProfileBreakdown<QueryTimingType> breakdown;
+
+    ProfileWeight(ProfileQuery query, Weight weight, ProfileBreakdown<QueryTimingType> breakdown) {
+        this.query = query;
+        this.weight = weight;
+        this.breakdown = breakdown;
+    }
+
+    @Override
+    public Query getQuery() {
+        return query;
+    }
+
+    @Override
+    public float getValueForNormalization() throws IOException {
+        return weight.getValueForNormalization();
+    }
+
+    @Override
+    public void normalize(float norm, float topLevelBoost) {
+        weight.normalize(norm, topLevelBoost);
+    }
+
+    @Override
+    public Scorer scorer(LeafReaderContext context, Bits acceptDocs) throws IOException {
+        long start = breakdown.start();
+        Scorer scorer = weight.scorer(context, acceptDocs);
+        breakdown.record(QueryTimingType.BUILD_SCORER, start);
+        if (scorer == null) {
+            return null;
+        }
+        return new ProfileScorer(this, scorer, breakdown);
+    }
+
+    @Override
+    public Explanation explain(LeafReaderContext context, int doc) throws IOException {
+        return weight.explain(context, doc);
+    }
+}
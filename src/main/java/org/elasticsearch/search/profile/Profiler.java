@@ -0,0 +1,138 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.search.aggregations.Aggregator;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the timings of the query phase of a single shard level search request. The main query
+ * is wrapped into {@link ProfileQuery}s, descending into the compound queries it is made of, the
+ * collectors are wrapped into timing collectors, and top level aggregators report their
+ * timings into the breakdowns handed out by {@link #aggregationBreakdown(Aggregator)}.
+ */
+public class Profiler {
+
+    private final List<ProfileNode<QueryTimingType>> queries = new ArrayList<>();
+    private final List<ProfileNode<CollectorTimingType>> collectors = new ArrayList<>();
+    private final Map<Aggregator, ProfileNode<AggregationTimingType>> aggregations = new IdentityHashMap<>();
+    private final List<ProfileNode<AggregationTimingType>> orderedAggregations = new ArrayList<>();
+
+    /**
+     * Wraps the given, already rewritten, query so that its execution is timed.
+     */
+    public Query wrap(Query query) {
+        ProfileNode<QueryTimingType> node = newQueryNode(query);
+        queries.add(node);
+        return wrap(query, node);
+    }
+
+    private Query wrap(Query query, ProfileNode<QueryTimingType> node) {
+        Query wrapped = query;
+        if (query instanceof BooleanQuery) {
+            BooleanQuery booleanQuery = (BooleanQuery) query;
+            BooleanQuery copy = new BooleanQuery(booleanQuery.isCoordDisabled());
+            copy.setBoost(booleanQuery.getBoost());
+            copy.setMinimumNumberShouldMatch(booleanQuery.getMinimumNumberShouldMatch());
+            for (BooleanClause clause : booleanQuery.clauses()) {
+                copy.add(wrapChild(clause.getQuery(), node), clause.getOccur());
+            }
+            wrapped = copy;
+        } else if (query instanceof DisjunctionMaxQuery) {
+            DisjunctionMaxQuery disMaxQuery = (DisjunctionMaxQuery) query;
+            DisjunctionMaxQuery copy = new DisjunctionMaxQuery(disMaxQuery.getTieBreakerMultiplier());
+            copy.setBoost(disMaxQuery.getBoost());
+            for (Query disjunct : disMaxQuery.getDisjuncts()) {
+                copy.add(wrapChild(disjunct, node));
+            }
+            wrapped = copy;
+        } else if (query instanceof FilteredQuery) {
+            FilteredQuery filteredQuery = (FilteredQuery) query;
+            FilteredQuery copy = new FilteredQuery(wrapChild(filteredQuery.getQuery(), node), filteredQuery.getFilter(), filteredQuery.getFilterStrategy());
+            copy.setBoost(filteredQuery.getBoost());
+            wrapped = copy;
+        }
+        return new ProfileQuery(wrapped, node);
+    }
+
+    private Query wrapChild(Query query, ProfileNode<QueryTimingType> parent) {
+        ProfileNode<QueryTimingType> node = newQueryNode(query);
+        parent.addChild(node);
+        return wrap(query, node);
+    }
+
+    private static ProfileNode<QueryTimingType> newQueryNode(Query query) {
+        return new ProfileNode<>(query.getClass().getSimpleName(), query.toString(), QueryTimingType.class);
+    }
+
+    /**
+     * Wraps the given collector so that the time spent collecting documents is recorded, the
+     * reason describes the role the collector plays in the search.
+     */
+    public Collector wrap(Collector collector, String reason) {
+        ProfileNode<CollectorTimingType> node = new ProfileNode<>(collector.getClass().getSimpleName(), reason, CollectorTimingType.class);
+        collectors.add(node);
+        return new ProfileCollector(collector, node.breakdown());
+    }
+
+    /**
+     * Returns the breakdown the given top level aggregator should record its timings into.
+     */
+    public ProfileBreakdown<AggregationTimingType> aggregationBreakdown(Aggregator aggregator) {
+        ProfileNode<AggregationTimingType> node = aggregations.get(aggregator);
+        if (node == null) {
+            node = new ProfileNode<>(aggregator.getClass().getSimpleName(), aggregator.name(), AggregationTimingType.class);
+            aggregations.put(aggregator, node);
+            orderedAggregations.add(node);
+        }
+        return node.breakdown();
+    }
+
+    /**
+     * Builds the results recorded so far and resets the profiler, so that the next
+     * execution of the query phase, e.g. the next page of a scroll, starts afresh.
+     */
+    public ProfileShardResult buildShardResult() {
+        ProfileShardResult result = new ProfileShardResult(toResults(queries), toResults(collectors), toResults(orderedAggregations));
+        queries.clear();
+        collectors.clear();
+        aggregations.clear();
+        orderedAggregations.clear();
+        return result;
+    }
+
+    private static <T extends Enum<T>> List<ProfileResult> toResults(List<ProfileNode<T>> nodes) {
+        List<ProfileResult> results = new ArrayList<>(nodes.size());
+        for (ProfileNode<T> node : nodes) {
+            results.add(node.toResult());
+        }
+        return results;
+    }
+}
@@ -20,24 +20,38 @@
 package org.elasticsearch.search.query;
 
 import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.MultiCollector;
+import org.elasticsearch.common.lucene.search.EarlyTerminatingSortedSegmentCollector;
+import org.elasticsearch.index.sort.IndexSort;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.SearchPhase;
 import org.elasticsearch.search.aggregations.AggregationPhase;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.profile.ProfileParseElement;
 import org.elasticsearch.search.rescore.RescorePhase;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
+import org.elasticsearch.search.slice.SliceParseElement;
 import org.elasticsearch.search.sort.SortParseElement;
 import org.elasticsearch.search.sort.TrackScoresParseElement;
 import org.elasticsearch.search.suggest.SuggestPhase;
+import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -48,12 +62,14 @@ public class QueryPhase implements SearchPhase {
     private final AggregationPhase aggregationPhase;
     private final SuggestPhase suggestPhase;
     private RescorePhase rescorePhase;
+    private final ThreadPool threadPool;
 
     @Inject
-    public QueryPhase(AggregationPhase aggregationPhase, SuggestPhase suggestPhase, RescorePhase rescorePhase) {
+    public QueryPhase(AggregationPhase aggregationPhase, SuggestPhase suggestPhase, RescorePhase rescorePhase, ThreadPool threadPool) {
         this.aggregationPhase = aggregationPhase;
         this.suggestPhase = suggestPhase;
         this.rescorePhase = rescorePhase;
+        this.threadPool = threadPool;
     }
 
     @Override
@@ -77,6 +93,10 @@ public class QueryPhase implements SearchPhase {
                 .put("minScore", new MinScoreParseElement())
                 .put("timeout", new TimeoutParseElement())
                 .put("terminate_after", new TerminateAfterParseElement())
+                .put("max_concurrent_slices", new MaxConcurrentSlicesParseElement())
+                .put("track_total_hits", new TrackTotalHitsParseElement())
+                .put("slice", new SliceParseElement())
+                .put("profile", new ProfileParseElement())
                 .putAll(aggregationPhase.parseElements())
                 .putAll(suggestPhase.parseElements())
                 .putAll(rescorePhase.parseElements());
@@ -106,8 +126,21 @@ public class QueryPhase implements SearchPhase {
 
             TopDocs topDocs;
             int numDocs = searchContext.from() + searchContext.size();
+            // collecting the sorted segments early terminates best sequentially
+            final Sort indexSort = earlyTerminationSort(searchContext);
+            final int maxSlices = indexSort == null ? maxConcurrentSlices(searchContext) : 1;
 
-            if (searchContext.searchType() == SearchType.COUNT || numDocs == 0) {
+            if (maxSlices > 1 && (searchContext.searchType() == SearchType.COUNT || numDocs == 0)) {
+                topDocs = searchConcurrently(searchContext, query, maxSlices, 0, null);
+            } else if (maxSlices > 1) {
+                if (searchContext.sort() == null) {
+                    rescore = !searchContext.rescore().isEmpty();
+                    for (RescoreSearchContext rescoreContext : searchContext.rescore()) {
+                        numDocs = Math.max(rescoreContext.window(), numDocs);
+                    }
+                }
+                topDocs = searchConcurrently(searchContext, query, maxSlices, numDocs, searchContext.sort());
+            } else if (searchContext.searchType() == SearchType.COUNT || numDocs == 0) {
                 TotalHitCountCollector collector = new TotalHitCountCollector();
                 searchContext.searcher().search(query, collector);
                 topDocs = new TopDocs(collector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
@@ -141,7 +174,9 @@ public class QueryPhase implements SearchPhase {
                         }
                     }
                 } else {
-                    if (searchContext.sort() != null) {
+                    if (indexSort != null) {
+                        topDocs = searchEarlyTerminating(searchContext, query, numDocs, indexSort);
+                    } else if (searchContext.sort() != null) {
                         topDocs = searchContext.searcher().search(query, null, numDocs, searchContext.sort(),
                                 searchContext.trackScores(), searchContext.trackScores());
                     } else {
@@ -164,5 +199,146 @@ public class QueryPhase implements SearchPhase {
         }
         suggestPhase.execute(searchContext);
         aggregationPhase.execute(searchContext);
+
+        if (searchContext.profiler() != null) {
+            searchContext.queryResult().profileResult(searchContext.profiler().buildShardResult());
+        }
+    }
+
+    /**
+     * Returns the number of slices of segments the main query can be searched over concurrently, <tt>1</tt> if the
+     * search needs to be sequential.
+     */
+    private int maxConcurrentSlices(SearchContext searchContext) {
+        int maxSlices = Math.min(searchContext.maxConcurrentSlices(), searchContext.searcher().getIndexReader().leaves().size());
+        if (maxSlices <= 1) {
+            return 1;
+        }
+        // scroll and scan searches resume from where they stopped, terminate_after and profiling rely on collecting
+        // the segments one after the other
+        if (searchContext.searchType() == SearchType.SCAN || searchContext.request().scroll() != null
+                || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER || searchContext.profiler() != null) {
+            return 1;
+        }
+        if (searchContext.aggregations() != null && searchContext.aggregations().factories().supportsConcurrentCollection() == false) {
+            return 1;
+        }
+        // all slices share the weight of the query and the scripts of the request, score functions and scripts keep the
+        // state of the segment they were last moved to in them
+        if (searchContext.sequentialSearchRequired()) {
+            return 1;
+        }
+        // the slices don't get more threads than the executor has
+        return Math.min(maxSlices, threadPool.info(ThreadPool.Names.SEARCH_SLICE).getMax() + 1);
+    }
+
+    /**
+     * Returns the sort of the index if the main query can stop collecting its sorted segments early, <tt>null</tt>
+     * otherwise. The request needs to opt out of tracking the total hits, since these then only count the collected
+     * documents, and the hits need to be sorted on a prefix of the index sort. All the matching documents still need to
+     * be collected by aggregations and by scroll and scan searches.
+     */
+    @Nullable
+    private Sort earlyTerminationSort(SearchContext searchContext) {
+        if (searchContext.trackTotalHits() || searchContext.sort() == null || searchContext.from() + searchContext.size() == 0
+                || searchContext.searchType() == SearchType.COUNT || searchContext.searchType() == SearchType.SCAN
+                || searchContext.request().scroll() != null || searchContext.aggregations() != null) {
+            return null;
+        }
+        Sort indexSort = IndexSort.parse(searchContext.indexShard().indexSettings(), searchContext.mapperService());
+        if (indexSort == null || !IndexSort.canEarlyTerminate(indexSort, searchContext.sort())) {
+            return null;
+        }
+        return indexSort;
+    }
+
+    /**
+     * Searches the main query sorted on a prefix of the index sort, each sorted segment is only collected until it filled
+     * the top docs. The total hits only count the collected documents once a segment was terminated early.
+     */
+    private TopDocs searchEarlyTerminating(SearchContext searchContext, Query query, int numDocs, Sort indexSort) throws IOException {
+        final ContextIndexSearcher searcher = searchContext.searcher();
+        final int limit = Math.max(1, Math.min(numDocs, searcher.getIndexReader().maxDoc()));
+        final boolean trackScores = searchContext.trackScores();
+        TopFieldCollector topDocsCollector = TopFieldCollector.create(searchContext.sort().rewrite(searcher), limit, true, trackScores, trackScores, true);
+        EarlyTerminatingSortedSegmentCollector collector = new EarlyTerminatingSortedSegmentCollector(topDocsCollector, indexSort, limit);
+        searcher.search(query, collector);
+        if (collector.terminatedEarly()) {
+            searchContext.queryResult().terminatedEarly(true);
+        }
+        return topDocsCollector.topDocs();
+    }
+
+    /**
+     * Searches the main query concurrently over slices of the segments, each slice collects its own top docs and
+     * aggregations, see {@link AggregationPhase#sliceCollector(SearchContext, int)}, and the top docs of the slices are
+     * merged here. Only the total hits are collected if <tt>numDocs</tt> is <tt>0</tt>.
+     */
+    private TopDocs searchConcurrently(final SearchContext searchContext, Query query, int maxSlices, final int numDocs,
+                                       @Nullable Sort sort) throws IOException {
+        final ContextIndexSearcher searcher = searchContext.searcher();
+        final int limit = Math.max(1, Math.min(numDocs, searcher.getIndexReader().maxDoc()));
+        final boolean trackScores = searchContext.trackScores();
+        final Sort rewrittenSort = sort == null ? null : sort.rewrite(searcher);
+        return searcher.searchConcurrently(query, maxSlices, threadPool.executor(ThreadPool.Names.SEARCH_SLICE),
+                new ContextIndexSearcher.SliceCollectorManager<SliceCollector, TopDocs>() {
+
+            private int numSlices = 0;
+
+            @Override
+            public SliceCollector newCollector() throws IOException {
+                Collector hitsCollector;
+                if (numDocs == 0) {
+                    hitsCollector = new TotalHitCountCollector();
+                } else if (rewrittenSort != null) {
+                    // the aggregations collector may require the documents in order, the out of order collectors accept both
+                    hitsCollector = TopFieldCollector.create(rewrittenSort, limit, true, trackScores, trackScores, false);
+                } else {
+                    hitsCollector = TopScoreDocCollector.create(limit, false);
+                }
+                return new SliceCollector(hitsCollector, aggregationPhase.sliceCollector(searchContext, numSlices++));
+            }
+
+            @Override
+            public TopDocs reduce(List<SliceCollector> collectors) throws IOException {
+                for (SliceCollector collector : collectors) {
+                    if (collector.aggregationsCollector != null) {
+                        collector.aggregationsCollector.postCollection();
+                    }
+                }
+                if (numDocs == 0) {
+                    int totalHits = 0;
+                    for (SliceCollector collector : collectors) {
+                        totalHits += ((TotalHitCountCollector) collector.hitsCollector).getTotalHits();
+                    }
+                    return new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, 0);
+                }
+                TopDocs[] sliceTopDocs = new TopDocs[collectors.size()];
+                for (int i = 0; i < sliceTopDocs.length; i++) {
+                    sliceTopDocs[i] = ((TopDocsCollector) collectors.get(i).hitsCollector).topDocs();
+                }
+                TopDocs topDocs = TopDocs.merge(rewrittenSort, limit, sliceTopDocs);
+                if (rewrittenSort != null && !trackScores) {
+                    // the slices that hold no hits have a NaN max score and the ones that do don't track it either
+                    topDocs.setMaxScore(Float.NaN);
+                }
+                return topDocs;
+            }
+        });
+    }
+
+    /**
+     * The collector of a slice of segments, the hits collector goes first so that the aggregations see the same scores.
+     */
+    private static class SliceCollector extends MultiCollector {
+
+        private final Collector hitsCollector;
+        private final AggregationPhase.AggregationsCollector aggregationsCollector;
+
+        SliceCollector(Collector hitsCollector, @Nullable AggregationPhase.AggregationsCollector aggregationsCollector) {
+            super(hitsCollector, aggregationsCollector == null ? new Collector[0] : new Collector[]{aggregationsCollector});
+            this.hitsCollector = hitsCollector;
+            this.aggregationsCollector = aggregationsCollector;
+        }
     }
 }
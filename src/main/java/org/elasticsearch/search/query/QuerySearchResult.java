@@ -26,6 +26,7 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.profile.ProfileShardResult;
 import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
@@ -47,6 +48,7 @@ public class QuerySearchResult extends QuerySearchResultProvider {
     private Suggest suggest;
     private boolean searchTimedOut;
     private Boolean terminatedEarly = null;
+    private ProfileShardResult profileResult;
 
     public QuerySearchResult() {
 
@@ -96,6 +98,17 @@ public class QuerySearchResult extends QuerySearchResultProvider {
         return this.terminatedEarly;
     }
 
+    /**
+     * The profiled timings of the query phase, <tt>null</tt> if the request was not profiled.
+     */
+    public ProfileShardResult profileResult() {
+        return profileResult;
+    }
+
+    public void profileResult(ProfileShardResult profileResult) {
+        this.profileResult = profileResult;
+    }
+
     public TopDocs topDocs() {
         return topDocs;
     }
@@ -165,6 +178,9 @@ public class QuerySearchResult extends QuerySearchResultProvider {
         }
         searchTimedOut = in.readBoolean();
         terminatedEarly = in.readOptionalBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+            profileResult = ProfileShardResult.readProfileShardResult(in);
+        }
     }
 
     @Override
@@ -193,5 +209,13 @@ public class QuerySearchResult extends QuerySearchResultProvider {
         }
         out.writeBoolean(searchTimedOut);
         out.writeOptionalBoolean(terminatedEarly);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            if (profileResult == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                profileResult.writeTo(out);
+            }
+        }
     }
 }
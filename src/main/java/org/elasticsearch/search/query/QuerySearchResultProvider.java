@@ -19,18 +19,64 @@
 
 package org.elasticsearch.search.query;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.transport.TransportResponse;
 
+import java.io.IOException;
+
 /**
  *
  */
 public abstract class QuerySearchResultProvider extends TransportResponse implements SearchPhaseResult {
 
+    private long serviceTimeNanos = -1;
+    private int nodeQueueSize = -1;
+
     /**
      * If both query and fetch happened on the same call.
      */
     public abstract boolean includeFetch();
 
     public abstract QuerySearchResult queryResult();
+
+    /**
+     * The time it took the node to execute the request, in nanoseconds, or <tt>-1</tt> if unknown.
+     */
+    public long serviceTimeNanos() {
+        return serviceTimeNanos;
+    }
+
+    /**
+     * The number of requests waiting in the search queue of the node when the request was executed, or <tt>-1</tt>
+     * if unknown.
+     */
+    public int nodeQueueSize() {
+        return nodeQueueSize;
+    }
+
+    public void nodeStatistics(long serviceTimeNanos, int nodeQueueSize) {
+        this.serviceTimeNanos = serviceTimeNanos;
+        this.nodeQueueSize = nodeQueueSize;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            serviceTimeNanos = in.readLong();
+            nodeQueueSize = in.readInt();
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeLong(serviceTimeNanos);
+            out.writeInt(nodeQueueSize);
+        }
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.apache.lucene.search.Filter;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.lucene.search.Queries;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.index.mapper.FieldMapper;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.search.SearchContextException;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+
+/**
+ * Splits the documents of a scroll in <tt>max</tt> disjoint slices, so that each slice can be consumed by its own scroll.
+ * <p/>
+ * When there are at least as many shards as slices, each slice reads whole shards: slice <tt>id</tt> reads the shards
+ * which id modulo <tt>max</tt> is <tt>id</tt>. Otherwise each shard is read by several slices, which split the documents
+ * of the shard based on the hash of the terms of a field, <tt>_uid</tt> by default. The bit set of a slice is cached per
+ * segment in the bitset filter cache, so the next scrolls of the slice don't have to compute it again.
+ */
+public class SliceBuilder implements ToXContent {
+
+    public static final String FIELD = "field";
+    public static final String ID = "id";
+    public static final String MAX = "max";
+
+    private final String field;
+    private final int id;
+    private final int max;
+
+    public SliceBuilder(int id, int max) {
+        this(UidFieldMapper.NAME, id, max);
+    }
+
+    /**
+     * @param field the field whose terms are hashed to split the documents of a shard, it should hold a single unique
+     *              value per document
+     * @param id    the id of the slice, from <tt>0</tt> to <tt>max - 1</tt>
+     * @param max   the number of slices
+     */
+    public SliceBuilder(String field, int id, int max) {
+        if (field == null) {
+            throw new ElasticsearchIllegalArgumentException("[slice] field must not be null");
+        }
+        if (max <= 1) {
+            throw new ElasticsearchIllegalArgumentException("[slice] max must be greater than 1");
+        }
+        if (id < 0 || id >= max) {
+            throw new ElasticsearchIllegalArgumentException("[slice] id must be greater than or equal to 0 and lower than max [" + max + "]");
+        }
+        this.field = field;
+        this.id = id;
+        this.max = max;
+    }
+
+    public String field() {
+        return field;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public int max() {
+        return max;
+    }
+
+    /**
+     * Returns the filter selecting the documents of the slice in the shard of the given context, or <tt>null</tt> if
+     * all the documents of the shard belong to the slice.
+     */
+    public Filter toFilter(SearchContext context) {
+        int shardId = context.indexShard().shardId().id();
+        int numShards = context.indexShard().indexSettings().getAsInt(IndexMetaData.SETTING_NUMBER_OF_SHARDS, -1);
+        if (numShards <= 0) {
+            throw new SearchContextException(context, "[slice] failed to resolve the number of shards of the index");
+        }
+        if (max <= numShards) {
+            // whole shards per slice
+            return shardId % max == id ? null : Queries.MATCH_NO_FILTER;
+        }
+        // the slices are spread over the shards first, then split the documents of their shard
+        int targetShard = id % numShards;
+        if (targetShard != shardId) {
+            return Queries.MATCH_NO_FILTER;
+        }
+        int numSlicesInShard = max / numShards;
+        if (max % numShards > targetShard) {
+            numSlicesInShard++;
+        }
+        if (numSlicesInShard == 1) {
+            return null;
+        }
+        FieldMapper mapper = context.smartNameFieldMapper(field);
+        if (mapper == null) {
+            throw new SearchContextException(context, "[slice] field [" + field + "] not found");
+        }
+        TermsSliceFilter filter = new TermsSliceFilter(mapper.names().indexName(), id / numShards, numSlicesInShard);
+        return context.bitsetFilterCache().getBitDocIdSetFilter(filter);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject();
+        if (!UidFieldMapper.NAME.equals(field)) {
+            builder.field(FIELD, field);
+        }
+        builder.field(ID, id);
+        builder.field(MAX, max);
+        builder.endObject();
+        return builder;
+    }
+}
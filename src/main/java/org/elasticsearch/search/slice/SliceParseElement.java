@@ -0,0 +1,74 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.search.SearchParseElement;
+import org.elasticsearch.search.SearchParseException;
+import org.elasticsearch.search.internal.SearchContext;
+
+/**
+ * Parser element for 'slice'
+ * <pre>
+ * "slice" : {
+ *     "field" : "_uid",
+ *     "id" : 0,
+ *     "max" : 10
+ * }
+ * </pre>
+ */
+public class SliceParseElement implements SearchParseElement {
+
+    @Override
+    public void parse(XContentParser parser, SearchContext context) throws Exception {
+        if (parser.currentToken() != XContentParser.Token.START_OBJECT) {
+            throw new SearchParseException(context, "[slice] must be an object");
+        }
+        String field = UidFieldMapper.NAME;
+        int id = -1;
+        int max = -1;
+        String currentFieldName = null;
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            if (token == XContentParser.Token.FIELD_NAME) {
+                currentFieldName = parser.currentName();
+            } else if (token.isValue()) {
+                if (SliceBuilder.FIELD.equals(currentFieldName)) {
+                    field = parser.text();
+                } else if (SliceBuilder.ID.equals(currentFieldName)) {
+                    id = parser.intValue();
+                } else if (SliceBuilder.MAX.equals(currentFieldName)) {
+                    max = parser.intValue();
+                } else {
+                    throw new SearchParseException(context, "[slice] unknown field [" + currentFieldName + "]");
+                }
+            } else {
+                throw new SearchParseException(context, "[slice] unexpected token [" + token + "]");
+            }
+        }
+        try {
+            context.sliceBuilder(new SliceBuilder(field, id, max));
+        } catch (ElasticsearchIllegalArgumentException e) {
+            throw new SearchParseException(context, e.getMessage());
+        }
+    }
+}
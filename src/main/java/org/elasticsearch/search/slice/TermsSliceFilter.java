@@ -0,0 +1,104 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.apache.lucene.index.DocsEnum;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
+import org.apache.lucene.search.DocIdSet;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Filter;
+import org.apache.lucene.util.BitDocIdSet;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.StringHelper;
+
+import java.io.IOException;
+
+/**
+ * A filter that matches the documents which have a term of the field that hashes to the given slice id. The hash is not
+ * seeded per JVM, so that all the copies of a shard agree on the documents of each slice.
+ * <p/>
+ * The documents are collected regardless of the accepted docs, the filter is meant to be cached as a bit set.
+ */
+public class TermsSliceFilter extends Filter {
+
+    private final String field;
+    private final int id;
+    private final int max;
+
+    public TermsSliceFilter(String field, int id, int max) {
+        this.field = field;
+        this.id = id;
+        this.max = max;
+    }
+
+    @Override
+    public DocIdSet getDocIdSet(LeafReaderContext context, Bits acceptDocs) throws IOException {
+        Terms terms = context.reader().terms(field);
+        if (terms == null) {
+            return null;
+        }
+        FixedBitSet bits = null;
+        TermsEnum termsEnum = terms.iterator(null);
+        DocsEnum docsEnum = null;
+        for (BytesRef term = termsEnum.next(); term != null; term = termsEnum.next()) {
+            int hash = StringHelper.murmurhash3_x86_32(term, 0);
+            if (Math.abs(hash % max) != id) {
+                continue;
+            }
+            if (bits == null) {
+                bits = new FixedBitSet(context.reader().maxDoc());
+            }
+            docsEnum = termsEnum.docs(null, docsEnum, DocsEnum.FLAG_NONE);
+            for (int doc = docsEnum.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = docsEnum.nextDoc()) {
+                bits.set(doc);
+            }
+        }
+        return bits == null ? null : new BitDocIdSet(bits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TermsSliceFilter that = (TermsSliceFilter) o;
+        return id == that.id && max == that.max && field.equals(that.field);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = field.hashCode();
+        result = 31 * result + id;
+        result = 31 * result + max;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "slice(" + field + ", id=" + id + ", max=" + max + ")";
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.tasks;
+
+import org.elasticsearch.common.Nullable;
+
+/**
+ * A task that can be cancelled. Cancellation is cooperative: the code executing the task checks
+ * {@link #ensureNotCancelled()} at points where it can stop, which releases the thread it runs on.
+ */
+public class CancellableTask extends Task {
+
+    private volatile String reasonCancelled;
+
+    public CancellableTask(long id, String type, String action, String description, @Nullable String parentNode, long parentId) {
+        super(id, type, action, description, parentNode, parentId);
+    }
+
+    /**
+     * Cancels the task, only the {@link TaskManager} should call this method.
+     */
+    void cancel(String reason) {
+        assert reason != null;
+        if (reasonCancelled == null) {
+            reasonCancelled = reason;
+        }
+    }
+
+    public boolean isCancelled() {
+        return reasonCancelled != null;
+    }
+
+    /**
+     * Returns the reason the task was cancelled for, or <tt>null</tt> if it wasn't cancelled.
+     */
+    @Nullable
+    public String getReasonCancelled() {
+        return reasonCancelled;
+    }
+
+    /**
+     * Throws a {@link TaskCancelledException} if the task was cancelled.
+     */
+    public void ensureNotCancelled() throws TaskCancelledException {
+        String reason = reasonCancelled;
+        if (reason != null) {
+            throw new TaskCancelledException("task cancelled [" + reason + "]");
+        }
+    }
+}
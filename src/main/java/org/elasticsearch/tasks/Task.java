@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.tasks;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
+
+/**
+ * A task is a unit of work executed on a node on behalf of a request. It is registered with the {@link TaskManager} of the
+ * node for as long as the request is executed, which makes it visible to the task management APIs.
+ */
+public class Task {
+
+    private final long id;
+
+    private final String type;
+
+    private final String action;
+
+    private final String description;
+
+    private final String parentNode;
+
+    private final long parentId;
+
+    private final long startTime;
+
+    private final long startTimeNanos;
+
+    public Task(long id, String type, String action, String description) {
+        this(id, type, action, description, null, -1L);
+    }
+
+    public Task(long id, String type, String action, String description, @Nullable String parentNode, long parentId) {
+        this.id = id;
+        this.type = type;
+        this.action = action;
+        this.description = description;
+        this.parentNode = parentNode;
+        this.parentId = parentId;
+        this.startTime = System.currentTimeMillis();
+        this.startTimeNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the id of the task, unique on the node that executes it.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the type of the task, <tt>transport</tt> when it was received over the transport and <tt>direct</tt> when it
+     * was executed by the node client.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Returns the name of the action that the task executes.
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Returns a human readable description of the request that the task executes.
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Returns the id of the node of the task that started this one, or <tt>null</tt> if the task has no parent.
+     */
+    @Nullable
+    public String getParentNode() {
+        return parentNode;
+    }
+
+    /**
+     * Returns the id of the task that started this one, or <tt>-1</tt> if the task has no parent.
+     */
+    public long getParentId() {
+        return parentId;
+    }
+
+    /**
+     * Returns the time the task started at, in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /**
+     * Returns whether the task was started by the given task of the given node.
+     */
+    public boolean isChildOf(String nodeId, long taskId) {
+        return parentId == taskId && nodeId.equals(parentNode);
+    }
+
+    /**
+     * Builds the information about this task that is returned by the task management APIs.
+     */
+    public TaskInfo taskInfo(DiscoveryNode node) {
+        return new TaskInfo(node, id, type, action, description, startTime, System.nanoTime() - startTimeNanos,
+                this instanceof CancellableTask, parentNode, parentId);
+    }
+
+    @Override
+    public String toString() {
+        return "task [" + id + "], action [" + action + "], type [" + type + "]";
+    }
+}
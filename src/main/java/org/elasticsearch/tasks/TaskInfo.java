@@ -0,0 +1,195 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.tasks;
+
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Information about a running {@link Task}, as returned by the task management APIs.
+ */
+public class TaskInfo implements Streamable, ToXContent {
+
+    private DiscoveryNode node;
+
+    private long id;
+
+    private String type;
+
+    private String action;
+
+    private String description;
+
+    private long startTime;
+
+    private long runningTimeNanos;
+
+    private boolean cancellable;
+
+    private String parentNode;
+
+    private long parentId;
+
+    TaskInfo() {
+    }
+
+    public TaskInfo(DiscoveryNode node, long id, String type, String action, String description, long startTime,
+                    long runningTimeNanos, boolean cancellable, @Nullable String parentNode, long parentId) {
+        this.node = node;
+        this.id = id;
+        this.type = type;
+        this.action = action;
+        this.description = description;
+        this.startTime = startTime;
+        this.runningTimeNanos = runningTimeNanos;
+        this.cancellable = cancellable;
+        this.parentNode = parentNode;
+        this.parentId = parentId;
+    }
+
+    public DiscoveryNode getNode() {
+        return node;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the id of the task as used by the task management APIs, <tt>node_id:task_id</tt>.
+     */
+    public String getTaskId() {
+        return node.id() + ":" + id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getRunningTimeNanos() {
+        return runningTimeNanos;
+    }
+
+    public boolean isCancellable() {
+        return cancellable;
+    }
+
+    @Nullable
+    public String getParentNode() {
+        return parentNode;
+    }
+
+    public long getParentId() {
+        return parentId;
+    }
+
+    public static TaskInfo readTaskInfo(StreamInput in) throws IOException {
+        TaskInfo taskInfo = new TaskInfo();
+        taskInfo.readFrom(in);
+        return taskInfo;
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        node = DiscoveryNode.readNode(in);
+        id = in.readLong();
+        type = in.readString();
+        action = in.readString();
+        description = in.readString();
+        startTime = in.readLong();
+        runningTimeNanos = in.readLong();
+        cancellable = in.readBoolean();
+        parentNode = in.readOptionalString();
+        parentId = in.readLong();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        node.writeTo(out);
+        out.writeLong(id);
+        out.writeString(type);
+        out.writeString(action);
+        out.writeString(description);
+        out.writeLong(startTime);
+        out.writeLong(runningTimeNanos);
+        out.writeBoolean(cancellable);
+        out.writeOptionalString(parentNode);
+        out.writeLong(parentId);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(getTaskId(), XContentBuilder.FieldCaseConversion.NONE);
+        builder.field(Fields.NODE, node.id());
+        builder.field(Fields.ID, id);
+        builder.field(Fields.TYPE, type);
+        builder.field(Fields.ACTION, action);
+        if (description.length() > 0) {
+            builder.field(Fields.DESCRIPTION, description);
+        }
+        builder.dateValueField(Fields.START_TIME_IN_MILLIS, Fields.START_TIME, startTime);
+        if (builder.humanReadable()) {
+            builder.field(Fields.RUNNING_TIME, new TimeValue(runningTimeNanos, TimeUnit.NANOSECONDS).toString());
+        }
+        builder.field(Fields.RUNNING_TIME_IN_NANOS, runningTimeNanos);
+        builder.field(Fields.CANCELLABLE, cancellable);
+        if (parentNode != null) {
+            builder.field(Fields.PARENT_TASK_ID, parentNode + ":" + parentId);
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    static final class Fields {
+        static final XContentBuilderString NODE = new XContentBuilderString("node");
+        static final XContentBuilderString ID = new XContentBuilderString("id");
+        static final XContentBuilderString TYPE = new XContentBuilderString("type");
+        static final XContentBuilderString ACTION = new XContentBuilderString("action");
+        static final XContentBuilderString DESCRIPTION = new XContentBuilderString("description");
+        static final XContentBuilderString START_TIME = new XContentBuilderString("start_time");
+        static final XContentBuilderString START_TIME_IN_MILLIS = new XContentBuilderString("start_time_in_millis");
+        static final XContentBuilderString RUNNING_TIME = new XContentBuilderString("running_time");
+        static final XContentBuilderString RUNNING_TIME_IN_NANOS = new XContentBuilderString("running_time_in_nanos");
+        static final XContentBuilderString CANCELLABLE = new XContentBuilderString("cancellable");
+        static final XContentBuilderString PARENT_TASK_ID = new XContentBuilderString("parent_task_id");
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.tasks;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
+import org.elasticsearch.transport.TransportRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the tasks executed on the node, see {@link Task}.
+ * <p/>
+ * The task a request is executed for is kept in the transient context of the request, under {@link #TASK_CONTEXT_KEY}. Since
+ * the context is copied to the requests derived from it, the requests sent to other nodes on behalf of a task are stamped
+ * with it as their parent task, and the requests executed locally can check the cancellation of the task directly.
+ */
+public class TaskManager extends AbstractComponent {
+
+    public static final String TASK_CONTEXT_KEY = "_task";
+
+    private final ConcurrentMapLong<Task> tasks = ConcurrentCollections.newConcurrentMapLongWithAggressiveConcurrency();
+
+    private final AtomicLong taskIdGenerator = new AtomicLong();
+
+    private volatile DiscoveryNode localNode;
+
+    public TaskManager(Settings settings) {
+        super(settings);
+    }
+
+    /**
+     * Registers the task executing the given request, and keeps it in the context of the request.
+     */
+    public Task register(String type, String action, TransportRequest request) {
+        Task task = request.createTask(taskIdGenerator.incrementAndGet(), type, action);
+        if (logger.isTraceEnabled()) {
+            logger.trace("register {} [{}] [{}]", task.getId(), type, action);
+        }
+        Task previous = tasks.put(task.getId(), task);
+        assert previous == null;
+        request.putInContext(TASK_CONTEXT_KEY, task);
+        return task;
+    }
+
+    /**
+     * Unregisters the task once the request it was executing for completed, it is fine to unregister a task more than once.
+     */
+    public Task unregister(Task task) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("unregister task for id: {}", task.getId());
+        }
+        return tasks.remove(task.getId());
+    }
+
+    /**
+     * Returns the tasks currently executed on the node, by task id.
+     */
+    public ImmutableMap<Long, Task> getTasks() {
+        return ImmutableMap.copyOf(tasks);
+    }
+
+    /**
+     * Returns the task currently executed on the node with the given id, or <tt>null</tt> if there is no such task.
+     */
+    @Nullable
+    public Task getTask(long id) {
+        return tasks.get(id);
+    }
+
+    /**
+     * Cancels the given task, returns <tt>false</tt> if it was already cancelled.
+     */
+    public boolean cancel(CancellableTask task, String reason) {
+        if (task.isCancelled()) {
+            return false;
+        }
+        logger.trace("cancelling {} [{}]", task, reason);
+        task.cancel(reason);
+        return true;
+    }
+
+    /**
+     * Cancels the tasks executed on this node on behalf of the given task, and returns them.
+     */
+    public List<CancellableTask> cancelChildren(String parentNode, long parentId, String reason) {
+        List<CancellableTask> cancelled = new ArrayList<>();
+        for (Task task : tasks.values()) {
+            if (task instanceof CancellableTask && task.isChildOf(parentNode, parentId)) {
+                if (cancel((CancellableTask) task, reason)) {
+                    cancelled.add((CancellableTask) task);
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Returns the task that the given request is executed for, if any.
+     */
+    @Nullable
+    public static Task task(TransportRequest request) {
+        return request.getFromContext(TASK_CONTEXT_KEY);
+    }
+
+    /**
+     * Throws a {@link TaskCancelledException} if the request is executed for a task that was cancelled.
+     */
+    public static void ensureNotCancelled(TransportRequest request) throws TaskCancelledException {
+        Task task = task(request);
+        if (task instanceof CancellableTask) {
+            ((CancellableTask) task).ensureNotCancelled();
+        }
+    }
+
+    /**
+     * Sets the node the tasks are executed on, once known.
+     */
+    public void setLocalNode(DiscoveryNode localNode) {
+        this.localNode = localNode;
+    }
+
+    @Nullable
+    public DiscoveryNode getLocalNode() {
+        return localNode;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport;
+
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskManager;
+
+import java.io.IOException;
+
+/**
+ * Registers a task for every request received by the wrapped handler, which is unregistered once the response is sent.
+ */
+class TaskTransportRequestHandler<T extends TransportRequest> implements TransportRequestHandler<T> {
+
+    static final String TASK_TYPE = "transport";
+
+    private final String action;
+    private final TransportRequestHandler<T> handler;
+    private final TaskManager taskManager;
+
+    TaskTransportRequestHandler(String action, TransportRequestHandler<T> handler, TaskManager taskManager) {
+        this.action = action;
+        this.handler = handler;
+        this.taskManager = taskManager;
+    }
+
+    TransportRequestHandler<T> handler() {
+        return handler;
+    }
+
+    @Override
+    public T newInstance() {
+        return handler.newInstance();
+    }
+
+    @Override
+    public void messageReceived(T request, TransportChannel channel) throws Exception {
+        final Task task = taskManager.register(TASK_TYPE, action, request);
+        boolean success = false;
+        try {
+            handler.messageReceived(request, new TaskTransportChannel(channel, task, taskManager));
+            success = true;
+        } finally {
+            if (success == false) {
+                // the caller sends the failure on the original channel
+                taskManager.unregister(task);
+            }
+        }
+    }
+
+    @Override
+    public String executor() {
+        return handler.executor();
+    }
+
+    @Override
+    public boolean isForceExecution() {
+        return handler.isForceExecution();
+    }
+
+    @Override
+    public String toString() {
+        return handler.toString();
+    }
+
+    static class TaskTransportChannel implements TransportChannel {
+
+        private final TransportChannel channel;
+        private final Task task;
+        private final TaskManager taskManager;
+
+        TaskTransportChannel(TransportChannel channel, Task task, TaskManager taskManager) {
+            this.channel = channel;
+            this.task = task;
+            this.taskManager = taskManager;
+        }
+
+        @Override
+        public String action() {
+            return channel.action();
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response) throws IOException {
+            taskManager.unregister(task);
+            channel.sendResponse(response);
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response, TransportResponseOptions options) throws IOException {
+            taskManager.unregister(task);
+            channel.sendResponse(response, options);
+        }
+
+        @Override
+        public void sendResponse(Throwable error) throws IOException {
+            taskManager.unregister(task);
+            channel.sendResponse(error);
+        }
+    }
+}
@@ -19,6 +19,14 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.tasks.Task;
+
+import java.io.IOException;
+
 /**
  */
 public abstract class TransportRequest extends TransportMessage<TransportRequest> {
@@ -36,6 +44,10 @@ public abstract class TransportRequest extends TransportMessage<TransportRequest
         }
     }
 
+    // the task this request was sent on behalf of, if any
+    private String parentTaskNode;
+    private long parentTaskId = -1L;
+
     protected TransportRequest() {
     }
 
@@ -43,4 +55,57 @@ public abstract class TransportRequest extends TransportMessage<TransportRequest
         super(request);
     }
 
+    /**
+     * Sets the task this request is sent on behalf of.
+     */
+    public void setParentTask(String parentTaskNode, long parentTaskId) {
+        this.parentTaskNode = parentTaskNode;
+        this.parentTaskId = parentTaskId;
+    }
+
+    @Nullable
+    public String getParentTaskNode() {
+        return parentTaskNode;
+    }
+
+    public long getParentTaskId() {
+        return parentTaskId;
+    }
+
+    /**
+     * Creates the task that executes this request, requests that can stop their execution early create a
+     * {@link org.elasticsearch.tasks.CancellableTask}.
+     */
+    public Task createTask(long id, String type, String action) {
+        return new Task(id, type, action, getDescription(), parentTaskNode, parentTaskId);
+    }
+
+    /**
+     * Returns a human readable description of the request, shown by the task management APIs.
+     */
+    public String getDescription() {
+        return "";
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            parentTaskNode = in.readOptionalString();
+            if (parentTaskNode != null) {
+                parentTaskId = in.readLong();
+            }
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalString(parentTaskNode);
+            if (parentTaskNode != null) {
+                out.writeLong(parentTaskId);
+            }
+        }
+    }
 }
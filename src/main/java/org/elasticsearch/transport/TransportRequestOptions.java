@@ -63,6 +63,8 @@ public class TransportRequestOptions {
 
     private Type type = Type.REG;
 
+    private boolean zeroCopy;
+
     public TransportRequestOptions withTimeout(long timeout) {
         return withTimeout(TimeValue.timeValueMillis(timeout));
     }
@@ -77,6 +79,15 @@ public class TransportRequestOptions {
         return this;
     }
 
+    /**
+     * Sends the large bytes references of the request (like document sources) without copying them when the request
+     * is not compressed. The request must not change them until it is sent.
+     */
+    public TransportRequestOptions withZeroCopy(boolean zeroCopy) {
+        this.zeroCopy = zeroCopy;
+        return this;
+    }
+
     public TransportRequestOptions withType(Type type) {
         this.type = type;
         return this;
@@ -93,4 +104,8 @@ public class TransportRequestOptions {
     public Type type() {
         return this.type;
     }
+
+    public boolean zeroCopy() {
+        return this.zeroCopy;
+    }
 }
@@ -34,6 +34,8 @@ import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.ConcurrentMapLong;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.common.util.concurrent.FutureUtils;
+import org.elasticsearch.tasks.Task;
+import org.elasticsearch.tasks.TaskManager;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.Collections;
@@ -54,6 +56,7 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     private final AtomicBoolean started = new AtomicBoolean(false);
     protected final Transport transport;
     protected final ThreadPool threadPool;
+    protected final TaskManager taskManager;
 
     volatile ImmutableMap<String, TransportRequestHandler> serverHandlers = ImmutableMap.of();
     final Object serverHandlersMutex = new Object();
@@ -83,6 +86,7 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
         super(settings);
         this.transport = transport;
         this.threadPool = threadPool;
+        this.taskManager = new TaskManager(settings);
     }
 
     @Override
@@ -128,6 +132,13 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
         transport.close();
     }
 
+    /**
+     * Returns the manager of the tasks executed on this node.
+     */
+    public TaskManager getTaskManager() {
+        return taskManager;
+    }
+
     public boolean addressSupported(Class<? extends TransportAddress> address) {
         return transport.addressSupported(address);
     }
@@ -196,6 +207,11 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
         }
         final long requestId = newRequestId();
         TimeoutHandler timeoutHandler = null;
+        Task parentTask = TaskManager.task(request);
+        if (parentTask != null && taskManager.getLocalNode() != null) {
+            // the request is sent on behalf of a task of this node
+            request.setParentTask(taskManager.getLocalNode().id(), parentTask.getId());
+        }
         try {
             clientHandlers.put(requestId, new RequestHolder<>(handler, node, action, timeoutHandler));
             if (started.get() == false) {
@@ -240,7 +256,9 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
         return transport.addressesFromString(address);
     }
 
+    @SuppressWarnings("unchecked")
     public void registerHandler(String action, TransportRequestHandler handler) {
+        handler = new TaskTransportRequestHandler(action, handler, taskManager);
         synchronized (serverHandlersMutex) {
             TransportRequestHandler handlerReplaced = serverHandlers.get(action);
             serverHandlers = MapBuilder.newMapBuilder(serverHandlers).put(action, handler).immutableMap();
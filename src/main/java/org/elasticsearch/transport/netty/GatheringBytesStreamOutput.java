@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport.netty;
+
+import com.carrotsearch.hppc.IntArrayList;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.netty.NettyUtils;
+import org.elasticsearch.common.util.BigArrays;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A bytes stream output that does not copy the large bytes references written to it, but keeps a reference to them
+ * and gathers them with the written bytes when building the channel buffer to send, see {@link #toChannelBuffer()}.
+ * <p/>
+ * The referenced bytes must not change until the channel buffer is written. Since they are not part of the stream,
+ * {@link #position()} and {@link #bytes()} only account for the copied bytes.
+ */
+public class GatheringBytesStreamOutput extends ReleasableBytesStreamOutput {
+
+    /**
+     * Bytes references smaller than this are copied, gathering them costs more than copying them.
+     */
+    static final int MIN_REFERENCED_LENGTH = 4 * 1024;
+
+    private final List<BytesReference> references = new ArrayList<>();
+    // the number of bytes copied before each reference
+    private final IntArrayList offsets = new IntArrayList();
+
+    public GatheringBytesStreamOutput(BigArrays bigarrays) {
+        super(bigarrays);
+    }
+
+    @Override
+    public void writeBytesReference(@Nullable BytesReference bytes) throws IOException {
+        if (bytes == null || bytes.length() < MIN_REFERENCED_LENGTH) {
+            super.writeBytesReference(bytes);
+            return;
+        }
+        writeVInt(bytes.length());
+        offsets.add(count);
+        references.add(bytes);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        references.clear();
+        offsets.clear();
+    }
+
+    /**
+     * Returns a channel buffer over the copied bytes, with the referenced bytes gathered in between.
+     */
+    public ChannelBuffer toChannelBuffer() {
+        BytesReference bytes = bytes();
+        if (references.isEmpty()) {
+            return bytes.toChannelBuffer();
+        }
+        ChannelBuffer[] buffers = new ChannelBuffer[references.size() * 2 + 1];
+        int index = 0;
+        int from = 0;
+        for (int i = 0; i < references.size(); i++) {
+            int offset = offsets.get(i);
+            buffers[index++] = bytes.slice(from, offset - from).toChannelBuffer();
+            buffers[index++] = references.get(i).toChannelBuffer();
+            from = offset;
+        }
+        buffers[index] = bytes.slice(from, bytes.length() - from).toChannelBuffer();
+        return ChannelBuffers.wrappedBuffer(NettyUtils.DEFAULT_GATHERING, buffers);
+    }
+}
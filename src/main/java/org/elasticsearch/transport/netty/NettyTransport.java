@@ -646,14 +646,15 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         byte status = 0;
         status = TransportStatus.setRequest(status);
 
-        ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
+        final boolean compressRequest = compressRequest(request, options);
+        final boolean gatherRequest = gatherRequest(request, options);
+
+        ReleasableBytesStreamOutput bStream = gatherRequest ? new GatheringBytesStreamOutput(bigArrays) : new ReleasableBytesStreamOutput(bigArrays);
         boolean addedReleaseListener = false;
         try {
             bStream.skip(NettyHeader.HEADER_SIZE);
             StreamOutput stream = bStream;
-            // only compress if asked, and, the request is not bytes, since then only
-            // the header part is compressed, and the "body" can't be extracted as compressed
-            if (options.compress() && (!(request instanceof BytesTransportRequest))) {
+            if (compressRequest) {
                 status = TransportStatus.setCompress(status);
                 stream = CompressorFactory.defaultCompressor().streamOutput(stream);
             }
@@ -685,7 +686,11 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
                 request.writeTo(stream);
                 stream.close();
                 bytes = bStream.bytes();
-                buffer = bytes.toChannelBuffer();
+                if (gatherRequest) {
+                    buffer = ((GatheringBytesStreamOutput) bStream).toChannelBuffer();
+                } else {
+                    buffer = bytes.toChannelBuffer();
+                }
             }
             NettyHeader.writeHeader(buffer, requestId, status, version);
             ChannelFuture future = targetChannel.write(buffer);
@@ -699,6 +704,17 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         }
     }
 
+    static boolean compressRequest(TransportRequest request, TransportRequestOptions options) {
+        // only compress if asked, and, the request is not bytes, since then only
+        // the header part is compressed, and the "body" can't be extracted as compressed
+        return options.compress() && (!(request instanceof BytesTransportRequest));
+    }
+
+    static boolean gatherRequest(TransportRequest request, TransportRequestOptions options) {
+        // the bytes references of the request are gathered instead of copied, unless they get compressed
+        return options.zeroCopy() && !compressRequest(request, options) && !(request instanceof BytesTransportRequest);
+    }
+
     @Override
     public boolean nodeConnected(DiscoveryNode node) {
         return connectedNodes.containsKey(node);
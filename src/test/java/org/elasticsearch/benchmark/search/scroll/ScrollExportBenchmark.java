@@ -0,0 +1,156 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.scroll;
+
+import com.google.common.base.Charsets;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.indices.IndexAlreadyExistsException;
+import org.elasticsearch.monitor.jvm.JvmStats;
+import org.elasticsearch.node.Node;
+import org.elasticsearch.node.internal.InternalNode;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Locale;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.node.NodeBuilder.nodeBuilder;
+
+/**
+ * Compares reading a whole index with scan/scroll round trips, building the response body of each of them as the
+ * REST layer does, with the streaming export over HTTP.
+ */
+public class ScrollExportBenchmark {
+
+    // Run with: -Xms1G -Xms1G
+    public static void main(String[] args) throws Exception {
+        String indexName = "test";
+        String typeName = "type";
+        String clusterName = ScrollExportBenchmark.class.getSimpleName();
+        long numDocs = SizeValue.parseSizeValue("1m").singles();
+        int requestSize = 500;
+        int iterations = 3;
+
+        Settings settings = settingsBuilder()
+                .put(SETTING_NUMBER_OF_SHARDS, 3)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .build();
+
+        Node[] nodes = new Node[3];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = nodeBuilder()
+                    .clusterName(clusterName)
+                    .settings(settingsBuilder().put(settings).put("name", "node" + i))
+                    .node();
+        }
+
+        Client client = nodes[0].client();
+
+        try {
+            client.admin().indices().prepareCreate(indexName).get();
+            for (int counter = 1; counter <= numDocs;) {
+                BulkRequestBuilder bulkRequestBuilder = client.prepareBulk();
+                for (int bulkCounter = 0; bulkCounter < 1000; bulkCounter++) {
+                    if (counter > numDocs) {
+                        break;
+                    }
+                    bulkRequestBuilder.add(
+                            client.prepareIndex(indexName, typeName, String.valueOf(counter))
+                                    .setSource("field1", counter++, "field2", "value " + counter)
+                    );
+                }
+                int indexedDocs = counter - 1;
+                if (indexedDocs % 100000 == 0) {
+                    System.out.printf(Locale.ENGLISH, "--> Indexed %d so far\n", indexedDocs);
+                }
+                bulkRequestBuilder.get();
+            }
+        } catch (IndexAlreadyExistsException e) {
+            System.out.println("--> Index already exists, ignoring indexing phase, waiting for green");
+            client.admin().cluster().prepareHealth(indexName).setWaitForGreenStatus().setTimeout("10m").execute().actionGet();
+        }
+        client.admin().indices().prepareRefresh(indexName).get();
+        System.out.printf(Locale.ENGLISH, "--> Number of docs in index: %d\n", client.prepareCount().get().getCount());
+
+        HttpServerTransport httpServerTransport = ((InternalNode) nodes[0]).injector().getInstance(HttpServerTransport.class);
+        InetSocketAddress address = ((InetSocketTransportAddress) httpServerTransport.boundAddress().publishAddress()).address();
+        URL exportUrl = new URL("http", address.getHostName(), address.getPort(), "/" + indexName + "/_search/export?size=" + requestSize);
+
+        for (int i = 0; i < iterations; i++) {
+            long start = System.currentTimeMillis();
+            long count = 0;
+            SearchResponse searchResponse = client.prepareSearch(indexName)
+                    .setSearchType(SearchType.SCAN)
+                    .setSize(requestSize)
+                    .setScroll("1m").get();
+            while (true) {
+                searchResponse = client.prepareSearchScroll(searchResponse.getScrollId()).setScroll("1m").get();
+                if (searchResponse.getHits().hits().length == 0) {
+                    break;
+                }
+                // what the REST layer builds for each round trip
+                XContentBuilder builder = XContentFactory.jsonBuilder();
+                builder.startObject();
+                searchResponse.toXContent(builder, ToXContent.EMPTY_PARAMS);
+                builder.endObject();
+                builder.bytes();
+                count += searchResponse.getHits().hits().length;
+            }
+            print("scan/scroll", count, System.currentTimeMillis() - start);
+
+            start = System.currentTimeMillis();
+            count = 0;
+            HttpURLConnection connection = (HttpURLConnection) exportUrl.openConnection();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), Charsets.UTF_8))) {
+                while (reader.readLine() != null) {
+                    count++;
+                }
+            } finally {
+                connection.disconnect();
+            }
+            print("export", count, System.currentTimeMillis() - start);
+        }
+
+        for (Node node : nodes) {
+            node.close();
+        }
+    }
+
+    private static void print(String name, long count, long took) {
+        JvmStats.Mem mem = JvmStats.jvmStats().mem();
+        System.out.printf(Locale.ENGLISH, "--> %s: %d docs in %d ms, %d docs/s\n", name, count, took, took == 0 ? 0 : count * 1000 / took);
+        System.out.printf(Locale.ENGLISH, "heap max=%s, used=%s, percentage=%d\n", mem.getHeapMax(), mem.getHeapUsed(), mem.getHeapUsedPrecent());
+    }
+}
@@ -50,6 +50,10 @@ public class SingleThreadBulkStress {
 
         int shardsCount = Integer.parseInt(System.getProperty("es.shards", "1"));
         int replicaCount = Integer.parseInt(System.getProperty("es.replica", "1"));
+        // the replicas need nodes of their own to be allocated
+        int nodesCount = Integer.parseInt(System.getProperty("es.nodes", Integer.toString(replicaCount + 1)));
+        // compare the replica cost of parsing the sources with indexing the documents parsed on the primary
+        boolean shipParsedDocuments = Boolean.parseBoolean(System.getProperty("es.ship_parsed_documents", "false"));
         boolean autoGenerateId = true;
 
         Settings settings = settingsBuilder()
@@ -58,9 +62,10 @@ public class SingleThreadBulkStress {
                 .put("index.translog.flush_threshold_ops", 5000)
                 .put(SETTING_NUMBER_OF_SHARDS, shardsCount)
                 .put(SETTING_NUMBER_OF_REPLICAS, replicaCount)
+                .put("action.bulk.ship_parsed_documents", shipParsedDocuments)
                 .build();
 
-        Node[] nodes = new Node[1];
+        Node[] nodes = new Node[nodesCount];
         for (int i = 0; i < nodes.length; i++) {
             nodes[i] = nodeBuilder().settings(settingsBuilder().put(settings).put("name", "node" + i)).node();
         }
@@ -86,7 +91,7 @@ public class SingleThreadBulkStress {
         StopWatch stopWatch = new StopWatch().start();
         long COUNT = SizeValue.parseSizeValue("2m").singles();
         int BATCH = 500;
-        System.out.println("Indexing [" + COUNT + "] ...");
+        System.out.println("Indexing [" + COUNT + "] with [" + replicaCount + "] replicas, ship parsed documents [" + shipParsedDocuments + "] ...");
         long ITERS = COUNT / BATCH;
         long i = 1;
         int counter = 0;
@@ -30,6 +30,7 @@ import org.elasticsearch.client.Client;
 import org.elasticsearch.client.support.Headers;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportService;
 import org.junit.After;
 import org.junit.Before;
 
@@ -64,7 +65,9 @@ public class NodeClientHeadersTests extends AbstractClientHeadersTests {
         NodeClusterAdminClient clusterClient = new NodeClusterAdminClient(threadPool, actions, headers);
         NodeIndicesAdminClient indicesClient = new NodeIndicesAdminClient(threadPool, actions, headers);
         NodeAdminClient adminClient = new NodeAdminClient(settings, clusterClient, indicesClient);
-        return new NodeClient(settings, threadPool, adminClient, actions, headers);
+        // the transport service is only used for its task manager, it is never started
+        TransportService transportService = new TransportService(settings, null, threadPool);
+        return new NodeClient(settings, threadPool, adminClient, actions, headers, transportService);
     }
 
     private static class Actions extends HashMap<GenericAction, TransportAction> {
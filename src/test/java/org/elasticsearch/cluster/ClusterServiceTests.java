@@ -41,6 +41,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -715,6 +716,65 @@ public class ClusterServiceTests extends ElasticsearchIntegrationTest {
         }
     }
 
+    @Test
+    public void testBatchedUpdateTasks() throws Exception {
+        Settings settings = settingsBuilder()
+                .put("discovery.type", "local")
+                .build();
+        internalCluster().startNode(settings);
+        ClusterService clusterService = internalCluster().getInstance(ClusterService.class);
+        BlockingTask block = new BlockingTask();
+        clusterService.submitStateUpdateTask("test", Priority.IMMEDIATE, block);
+
+        final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        ClusterStateTaskExecutor<Integer> executor = new ClusterStateTaskExecutor<Integer>() {
+            @Override
+            public ClusterState execute(ClusterState currentState, List<Integer> tasks) {
+                batches.add(new ArrayList<>(tasks));
+                return ClusterState.builder(currentState).build();
+            }
+
+            @Override
+            public boolean runOnlyOnMaster() {
+                return true;
+            }
+        };
+        int taskCount = randomIntBetween(5, 20);
+        final CountDownLatch latch = new CountDownLatch(taskCount);
+        final Set<ClusterState> processedStates = Collections.newSetFromMap(new IdentityHashMap<ClusterState, Boolean>());
+        for (int i = 0; i < taskCount; i++) {
+            clusterService.submitStateUpdateTask("batched " + i, Priority.NORMAL, i, executor, new ClusterStateTaskListener() {
+                @Override
+                public void onFailure(String source, Throwable t) {
+                    fail();
+                }
+
+                @Override
+                public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                    processedStates.add(newState);
+                    latch.countDown();
+                }
+            });
+        }
+
+        int batchedPendingTasks = 0;
+        for (PendingClusterTask task : clusterService.pendingTasks()) {
+            if (task.getSource().string().startsWith("batched ")) {
+                assertThat(task.getBatchSize(), equalTo(taskCount));
+                batchedPendingTasks++;
+            }
+        }
+        assertThat(batchedPendingTasks, equalTo(taskCount));
+
+        block.release();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        // all the tasks are executed against a single cluster state
+        assertThat(batches.size(), equalTo(1));
+        assertThat(batches.get(0).size(), equalTo(taskCount));
+        assertThat(processedStates.size(), equalTo(1));
+    }
+
     private static class BlockingTask extends ClusterStateUpdateTask {
         private final CountDownLatch latch = new CountDownLatch(1);
 
@@ -0,0 +1,133 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.operation;
+
+import com.google.common.collect.ImmutableList;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.ImmutableShardRouting;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.common.metrics.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.transport.DummyTransportAddress;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+
+public class ResponseCollectorServiceTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testMovingAverage() {
+        ExponentiallyWeightedMovingAverage average = new ExponentiallyWeightedMovingAverage(0.5);
+        assertThat(average.getAverage(), equalTo(0.0));
+        average.addValue(10);
+        assertThat(average.getAverage(), equalTo(10.0));
+        average.addValue(20);
+        assertThat(average.getAverage(), equalTo(15.0));
+        average.addValue(15);
+        assertThat(average.getAverage(), equalTo(15.0));
+
+        average = new ExponentiallyWeightedMovingAverage(1);
+        average.addValue(10);
+        average.addValue(20);
+        assertThat(average.getAverage(), equalTo(20.0));
+    }
+
+    @Test
+    public void testNodeStatistics() {
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.EMPTY);
+        collector.onRequestSent("node1");
+        assertThat(collector.nodeStatistics("node1"), nullValue());
+        collector.onFailure("node1");
+        assertThat(collector.nodeStatistics("node1"), nullValue());
+
+        collector.onRequestSent("node1");
+        collector.onRequestSent("node1");
+        collector.onResponse("node1", 100, 80, 2);
+        ResponseCollectorService.NodeStatistics statistics = collector.nodeStatistics("node1");
+        assertThat(statistics, notNullValue());
+        assertThat(statistics.responseTime(), equalTo(100.0));
+        assertThat(statistics.serviceTime(), equalTo(80.0));
+        assertThat(statistics.queueSize(), equalTo(2.0));
+        assertThat(statistics.outstandingRequests(), equalTo(1));
+
+        // responses of nodes that do not report statistics are not recorded
+        collector.onResponse("node1", 1000, -1, -1);
+        assertThat(statistics.responseTime(), equalTo(100.0));
+        assertThat(statistics.outstandingRequests(), equalTo(0));
+
+        collector.onResponse("node2", 100, 80, 2);
+        DiscoveryNodes nodes = DiscoveryNodes.builder().put(new DiscoveryNode("node1", DummyTransportAddress.INSTANCE, Version.CURRENT)).build();
+        collector.retainNodes(nodes);
+        assertThat(collector.nodeStatistics("node1"), notNullValue());
+        assertThat(collector.nodeStatistics("node2"), nullValue());
+    }
+
+    @Test
+    public void testRankShards() {
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.EMPTY);
+        ShardRouting shard1 = new ImmutableShardRouting("test", 0, "node1", true, ShardRoutingState.STARTED, 1);
+        ShardRouting shard2 = new ImmutableShardRouting("test", 0, "node2", false, ShardRoutingState.STARTED, 1);
+        ShardRouting shard3 = new ImmutableShardRouting("test", 0, "node3", false, ShardRoutingState.STARTED, 1);
+        List<ShardRouting> shards = ImmutableList.of(shard1, shard2, shard3);
+
+        // without statistics the order is kept
+        assertThat(collector.rankShards(shards, 3), contains(shard1, shard2, shard3));
+
+        // node1 is slow to answer
+        collector.onRequestSent("node1");
+        collector.onResponse("node1", TimeUnit.MILLISECONDS.toNanos(500), TimeUnit.MILLISECONDS.toNanos(400), 0);
+        collector.onRequestSent("node2");
+        collector.onResponse("node2", TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(8), 0);
+        // node3 did not answer any request yet, so it goes first
+        assertThat(collector.rankShards(shards, 3), contains(shard3, shard2, shard1));
+
+        collector.onRequestSent("node3");
+        collector.onResponse("node3", TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(8), 20);
+        // node3 has a long search queue
+        assertThat(collector.rankShards(shards, 3), contains(shard2, shard1, shard3));
+
+        // requests still waiting for an answer from node2 also count
+        for (int i = 0; i < 10; i++) {
+            collector.onRequestSent("node2");
+        }
+        assertThat(collector.rankShards(shards, 3), contains(shard1, shard3, shard2));
+        for (int i = 0; i < 10; i++) {
+            collector.onFailure("node2");
+        }
+
+        // nodes that are not selected get their statistics closer to the selected node, so they get requests again
+        double responseTime = collector.nodeStatistics("node1").responseTime();
+        double serviceTime = collector.nodeStatistics("node1").serviceTime();
+        collector.rankShards(shards, 3);
+        assertThat(collector.nodeStatistics("node1").responseTime(), lessThan(responseTime));
+        assertThat(collector.nodeStatistics("node1").serviceTime(), lessThan(serviceTime));
+        for (int i = 0; i < 100; i++) {
+            collector.rankShards(shards, 3);
+        }
+        assertThat(collector.rankShards(shards, 3).get(2), equalTo(shard3));
+    }
+}
@@ -22,6 +22,7 @@ package org.elasticsearch.cluster.serialization;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
@@ -33,6 +34,7 @@ import org.elasticsearch.test.ElasticsearchAllocationTestCase;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 
 /**
  *
@@ -63,6 +65,62 @@ public class ClusterSerializationTests extends ElasticsearchAllocationTestCase {
     }
 
 
+    @Test
+    public void testClusterStateDiffSerialization() throws Exception {
+        MetaData metaData = MetaData.builder()
+                .put(IndexMetaData.builder("test1").settings(settings(Version.CURRENT)).numberOfShards(2).numberOfReplicas(1))
+                .put(IndexMetaData.builder("test2").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(1))
+                .build();
+
+        RoutingTable routingTable = RoutingTable.builder()
+                .addAsNew(metaData.index("test1"))
+                .addAsNew(metaData.index("test2"))
+                .build();
+
+        DiscoveryNodes nodes = DiscoveryNodes.builder().put(newNode("node1")).put(newNode("node2")).localNodeId("node1").masterNodeId("node1").build();
+
+        ClusterState previousState = ClusterState.builder(new ClusterName("clusterName1")).nodes(nodes).metaData(metaData).routingTable(routingTable).build();
+        AllocationService strategy = createAllocationService();
+        previousState = ClusterState.builder(previousState).routingTable(strategy.reroute(previousState).routingTable()).build();
+
+        // the receiving node starts from a full copy of the previous state
+        ClusterState receivedPreviousState = ClusterState.Builder.fromBytes(ClusterState.Builder.toBytes(previousState), newNode("node2"), null);
+        assertThat(receivedPreviousState.uuid(), equalTo(previousState.uuid()));
+
+        MetaData newMetaData = MetaData.builder(previousState.metaData())
+                .remove("test2")
+                .put(IndexMetaData.builder("test3").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+                .put(IndexMetaData.builder(previousState.metaData().index("test1")).putMapping("type1", "{\"type1\":{}}"))
+                .build();
+        ClusterState newState = ClusterState.builder(previousState).incrementVersion().metaData(newMetaData)
+                .routingTable(RoutingTable.builder(previousState.routingTable()).remove("test2").addAsNew(newMetaData.index("test3")))
+                .build();
+        newState = ClusterState.builder(newState).routingTable(strategy.reroute(newState).routingTable()).build();
+        assertThat(newState.uuid(), not(equalTo(previousState.uuid())));
+
+        BytesStreamOutput outStream = new BytesStreamOutput();
+        ClusterState.Builder.writeDiffTo(previousState, newState, outStream);
+        BytesStreamInput inStream = new BytesStreamInput(outStream.bytes().toBytes(), false);
+        ClusterState diffedState = ClusterState.Builder.readDiffFrom(inStream, receivedPreviousState, newNode("node2"));
+
+        assertThat(diffedState.version(), equalTo(newState.version()));
+        assertThat(diffedState.uuid(), equalTo(newState.uuid()));
+        assertThat(diffedState.metaData().hasIndex("test2"), equalTo(false));
+        assertThat(diffedState.metaData().index("test3"), equalTo(newState.metaData().index("test3")));
+        assertThat(diffedState.metaData().index("test1").mappings().containsKey("type1"), equalTo(true));
+        assertThat(diffedState.routingTable().prettyPrint(), equalTo(newState.routingTable().prettyPrint()));
+        assertThat(diffedState.nodes().size(), equalTo(newState.nodes().size()));
+
+        // the diff must be rejected if it is applied to another state
+        inStream = new BytesStreamInput(outStream.bytes().toBytes(), false);
+        try {
+            ClusterState.Builder.readDiffFrom(inStream, diffedState, newNode("node2"));
+            fail("expected the diff to be rejected");
+        } catch (IncompatibleClusterStateVersionException e) {
+            // expected
+        }
+    }
+
     @Test
     public void testRoutingTableSerialization() throws Exception {
         MetaData metaData = MetaData.builder()
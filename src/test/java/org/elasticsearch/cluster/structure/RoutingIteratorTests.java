@@ -31,12 +31,16 @@ import org.elasticsearch.cluster.routing.*;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
 import org.elasticsearch.cluster.routing.allocation.decider.AwarenessAllocationDecider;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.operation.ResponseCollectorService;
 import org.elasticsearch.cluster.routing.operation.plain.PlainOperationRouting;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.test.ElasticsearchAllocationTestCase;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.hamcrest.Matchers.*;
@@ -324,4 +328,58 @@ public class RoutingIteratorTests extends ElasticsearchAllocationTestCase {
         assertThat(shardIterators.iterator().next().shardId().id(), equalTo(0));
         assertThat(shardIterators.iterator().next().nextOrNull().currentNodeId(), equalTo("node1"));
     }
+
+    @Test
+    public void testAdaptiveReplicaSelection() {
+        AllocationService strategy = createAllocationService(settingsBuilder()
+                .put("cluster.routing.allocation.concurrent_recoveries", 10)
+                .build());
+
+        MetaData metaData = MetaData.builder()
+                .put(IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(1))
+                .build();
+
+        RoutingTable routingTable = RoutingTable.builder()
+                .addAsNew(metaData.index("test"))
+                .build();
+
+        ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT).metaData(metaData).routingTable(routingTable).build();
+
+        clusterState = ClusterState.builder(clusterState).nodes(DiscoveryNodes.builder()
+                .put(newNode("node1"))
+                .put(newNode("node2"))
+                .localNodeId("node1")
+        ).build();
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.Builder.EMPTY_SETTINGS);
+        PlainOperationRouting operationRouting = new PlainOperationRouting(settingsBuilder().put(PlainOperationRouting.USE_ADAPTIVE_REPLICA_SELECTION, true).build(),
+                new AwarenessAllocationDecider(), new NodeSettingsService(ImmutableSettings.Builder.EMPTY_SETTINGS), collector);
+
+        // node2 is in a long GC
+        collector.onRequestSent("node1");
+        collector.onResponse("node1", TimeUnit.MILLISECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(4), 0);
+        collector.onRequestSent("node2");
+        collector.onResponse("node2", TimeUnit.SECONDS.toNanos(5), TimeUnit.MILLISECONDS.toNanos(4), 0);
+
+        for (int i = 0; i < 5; i++) {
+            GroupShardsIterator shardIterators = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, null);
+            assertThat(shardIterators.size(), equalTo(1));
+            ShardIterator shardIterator = shardIterators.iterator().next();
+            assertThat(shardIterator.size(), equalTo(2));
+            assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node1"));
+            assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node2"));
+        }
+
+        // a preference still applies
+        GroupShardsIterator shardIterators = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, "_prefer_node:node2");
+        assertThat(shardIterators.iterator().next().nextOrNull().currentNodeId(), equalTo("node2"));
+    }
 }
\ No newline at end of file
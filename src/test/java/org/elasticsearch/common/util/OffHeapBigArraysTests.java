@@ -0,0 +1,233 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cache.recycler.DirectPageCacheRecycler;
+import org.elasticsearch.cache.recycler.DirectPageCacheStats;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.*;
+
+public class OffHeapBigArraysTests extends ElasticsearchTestCase {
+
+    private DirectPageCacheRecycler recycler;
+    private OffHeapBigArrays bigArrays;
+
+    @Before
+    public void init() {
+        Settings settings = ImmutableSettings.builder().put("cache.recycler." + DirectPageCacheRecycler.LIMIT, randomBoolean() ? "0" : "10mb").build();
+        recycler = new DirectPageCacheRecycler(settings);
+        bigArrays = new OffHeapBigArrays(ImmutableSettings.EMPTY, null, new NoneCircuitBreakerService(), recycler);
+    }
+
+    @Test
+    public void testLongArrayGrowth() {
+        final int totalLen = randomIntBetween(1, 1000000);
+        final int startLen = randomIntBetween(1, randomBoolean() ? 1000 : totalLen);
+        LongArray array = bigArrays.newLongArray(startLen, randomBoolean());
+        long[] ref = new long[totalLen];
+        for (int i = 0; i < totalLen; ++i) {
+            ref[i] = randomLong();
+            array = bigArrays.grow(array, i + 1);
+            array.set(i, ref[i]);
+        }
+        for (int i = 0; i < totalLen; ++i) {
+            assertEquals(ref[i], array.get(i));
+        }
+        if (totalLen > BigArrays.LONG_PAGE_SIZE) {
+            assertThat(array, instanceOf(DirectLongArray.class));
+        }
+        array.close();
+    }
+
+    @Test
+    public void testIntArrayIncrement() {
+        final int len = randomIntBetween(BigArrays.INT_PAGE_SIZE + 1, 100000);
+        IntArray array = bigArrays.newIntArray(len);
+        assertThat(array, instanceOf(DirectIntArray.class));
+        int[] ref = new int[len];
+        for (int i = 0; i < 10000; ++i) {
+            final int index = randomInt(len - 1);
+            final int inc = randomInt();
+            ref[index] += inc;
+            assertEquals(ref[index], array.increment(index, inc));
+        }
+        for (int i = 0; i < len; ++i) {
+            assertEquals(ref[i], array.get(i));
+        }
+        array.close();
+    }
+
+    @Test
+    public void testDoubleArrayFill() {
+        final int len = randomIntBetween(BigArrays.DOUBLE_PAGE_SIZE + 1, 100000);
+        final int fromIndex = randomIntBetween(0, len - 1);
+        final int toIndex = randomIntBetween(fromIndex, len);
+        final double[] array1 = new double[len];
+        final DoubleArray array2 = bigArrays.newDoubleArray(len, randomBoolean());
+        for (int i = 0; i < len; ++i) {
+            array1[i] = randomDouble();
+            array2.set(i, array1[i]);
+        }
+        final double rand = randomDouble();
+        Arrays.fill(array1, fromIndex, toIndex, rand);
+        array2.fill(fromIndex, toIndex, rand);
+        for (int i = 0; i < len; ++i) {
+            assertEquals(array1[i], array2.get(i), 0.001d);
+        }
+        array2.close();
+    }
+
+    @Test
+    public void testByteArrayBulkGetAndSet() {
+        final byte[] array1 = new byte[randomIntBetween(BigArrays.BYTE_PAGE_SIZE + 1, 1000000)];
+        getRandom().nextBytes(array1);
+        final ByteArray array2 = bigArrays.newByteArray(array1.length, randomBoolean());
+        assertThat(array2, instanceOf(DirectByteArray.class));
+        for (int i = 0; i < array1.length; ) {
+            final int len = Math.min(array1.length - i, randomBoolean() ? randomInt(10) : randomInt(3 * BigArrays.BYTE_PAGE_SIZE));
+            array2.set(i, array1, i, len);
+            i += len;
+        }
+        final BytesRef ref = new BytesRef();
+        for (int i = 0; i < 1000; ++i) {
+            final int offset = randomInt(array1.length - 1);
+            final int len = randomInt(Math.min(randomBoolean() ? 10 : Integer.MAX_VALUE, array1.length - offset));
+            assertTrue(array2.get(offset, len, ref));
+            assertEquals(new BytesRef(array1, offset, len), ref);
+        }
+        array2.close();
+    }
+
+    @Test
+    public void testPagesAreRecycled() {
+        final long limit = 10 * BigArrays.PAGE_SIZE_IN_BYTES;
+        recycler = new DirectPageCacheRecycler(ImmutableSettings.builder().put("cache.recycler." + DirectPageCacheRecycler.LIMIT, limit).build());
+        bigArrays = new OffHeapBigArrays(ImmutableSettings.EMPTY, null, new NoneCircuitBreakerService(), recycler);
+
+        LongArray array = bigArrays.newLongArray(4 * BigArrays.LONG_PAGE_SIZE, false);
+        DirectPageCacheStats stats = recycler.stats();
+        assertThat(stats.getAllocated().bytes(), equalTo(4L * BigArrays.PAGE_SIZE_IN_BYTES));
+        assertThat(stats.getUsed().bytes(), equalTo(4L * BigArrays.PAGE_SIZE_IN_BYTES));
+        assertThat(stats.getPooled().bytes(), equalTo(0L));
+        array.set(0, 42);
+
+        // shrinking the array gives pages back to the pool
+        array = bigArrays.resize(array, BigArrays.LONG_PAGE_SIZE + 1);
+        stats = recycler.stats();
+        assertThat(stats.getAllocated().bytes(), equalTo(4L * BigArrays.PAGE_SIZE_IN_BYTES));
+        assertThat(stats.getPooled().bytes(), equalTo(2L * BigArrays.PAGE_SIZE_IN_BYTES));
+        array.close();
+        stats = recycler.stats();
+        assertThat(stats.getPooled().bytes(), equalTo(4L * BigArrays.PAGE_SIZE_IN_BYTES));
+        assertThat(stats.getUsed().bytes(), equalTo(0L));
+
+        // pooled pages are reused, and cleared if needed
+        array = bigArrays.newLongArray(2 * BigArrays.LONG_PAGE_SIZE, true);
+        stats = recycler.stats();
+        assertThat(stats.getAllocated().bytes(), equalTo(4L * BigArrays.PAGE_SIZE_IN_BYTES));
+        assertThat(stats.getPooled().bytes(), equalTo(2L * BigArrays.PAGE_SIZE_IN_BYTES));
+        for (long i = 0; i < array.size(); ++i) {
+            assertEquals(0, array.get(i));
+        }
+        array.close();
+
+        // pages that do not fit in the pool are dropped
+        array = bigArrays.newLongArray(20 * BigArrays.LONG_PAGE_SIZE, false);
+        array.close();
+        stats = recycler.stats();
+        assertThat(stats.getAllocated().bytes(), equalTo(limit));
+        assertThat(stats.getPooled().bytes(), equalTo(limit));
+
+        recycler.close();
+        assertThat(recycler.stats().getAllocated().bytes(), equalTo(0L));
+        assertThat(recycler.stats().getPooled().bytes(), equalTo(0L));
+    }
+
+    @Test
+    public void testDroppedPagesAreFreed() {
+        assumeTrue("direct buffers can't be freed explicitly on this JVM", DirectPageCacheRecycler.FREE_SUPPORTED);
+        recycler = new DirectPageCacheRecycler(ImmutableSettings.builder().put("cache.recycler." + DirectPageCacheRecycler.LIMIT, 0).build());
+        bigArrays = new OffHeapBigArrays(ImmutableSettings.EMPTY, null, new NoneCircuitBreakerService(), recycler);
+        BufferPoolMXBean directPool = null;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                directPool = pool;
+            }
+        }
+        assertNotNull(directPool);
+
+        final long numPages = 64;
+        final long before = directPool.getMemoryUsed();
+        LongArray array = bigArrays.newLongArray(numPages * BigArrays.LONG_PAGE_SIZE, false);
+        assertThat(directPool.getMemoryUsed() - before, greaterThanOrEqualTo(numPages * BigArrays.PAGE_SIZE_IN_BYTES));
+        array.close();
+        // the pool can't hold any page, they must be freed without waiting for a garbage collection
+        assertThat(recycler.stats().getAllocated().bytes(), equalTo(0L));
+        assertThat(directPool.getMemoryUsed() - before, lessThan(numPages * BigArrays.PAGE_SIZE_IN_BYTES));
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        final long maxSize = randomIntBetween(1 << 16, 1 << 22);
+        HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(
+                ImmutableSettings.builder()
+                        .put(HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING, maxSize)
+                        .build(),
+                new NodeSettingsService(ImmutableSettings.EMPTY));
+        BigArrays bigArrays = new OffHeapBigArrays(ImmutableSettings.EMPTY, null, hcbs, recycler).withCircuitBreaking();
+        assertThat(bigArrays, instanceOf(OffHeapBigArrays.class));
+
+        try {
+            bigArrays.newLongArray(maxSize);
+            fail("expected a circuit breaking exception");
+        } catch (CircuitBreakingException e) {
+            // expected
+        }
+        assertEquals(0, hcbs.getBreaker(CircuitBreaker.Name.REQUEST).getUsed());
+
+        LongArray array = bigArrays.newLongArray(BigArrays.LONG_PAGE_SIZE + 1);
+        assertEquals(array.ramBytesUsed(), hcbs.getBreaker(CircuitBreaker.Name.REQUEST).getUsed());
+        while (true) {
+            try {
+                array = bigArrays.resize(array, array.size() * 2);
+            } catch (CircuitBreakingException e) {
+                break;
+            }
+        }
+        assertEquals(array.ramBytesUsed(), hcbs.getBreaker(CircuitBreaker.Name.REQUEST).getUsed());
+        array.close();
+        assertEquals(0, hcbs.getBreaker(CircuitBreaker.Name.REQUEST).getUsed());
+    }
+}
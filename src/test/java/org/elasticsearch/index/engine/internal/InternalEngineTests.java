@@ -28,9 +28,11 @@ import org.apache.log4j.spi.LoggingEvent;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.document.Field;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexDeletionPolicy;
+import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.LiveIndexWriterConfig;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.TermQuery;
@@ -64,6 +66,7 @@ import org.elasticsearch.index.merge.policy.LogByteSizeMergePolicyProvider;
 import org.elasticsearch.index.merge.policy.MergePolicyProvider;
 import org.elasticsearch.index.merge.scheduler.ConcurrentMergeSchedulerProvider;
 import org.elasticsearch.index.merge.scheduler.MergeSchedulerProvider;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.settings.IndexDynamicSettingsModule;
 import org.elasticsearch.index.settings.IndexSettingsService;
 import org.elasticsearch.index.shard.ShardId;
@@ -232,7 +235,7 @@ public class InternalEngineTests extends ElasticsearchLuceneTestCase {
 
     protected Engine createEngine(IndexSettingsService indexSettingsService, Store store, Translog translog, MergeSchedulerProvider mergeSchedulerProvider) {
         return new InternalEngineHolder(shardId, defaultSettings, threadPool, indexSettingsService, new ShardIndexingService(shardId, EMPTY_SETTINGS, new ShardSlowLogIndexingService(shardId, EMPTY_SETTINGS, indexSettingsService)), null, store, createSnapshotDeletionPolicy(), translog, createMergePolicy(), mergeSchedulerProvider,
-                new AnalysisService(shardId.index(), indexSettingsService.getSettings()), new SimilarityService(shardId.index()), new CodecService(shardId.index()));
+                new AnalysisService(shardId.index(), indexSettingsService.getSettings()), new SimilarityService(shardId.index()), new CodecService(shardId.index()), null);
     }
 
     protected static final BytesReference B_1 = new BytesArray(new byte[]{1});
@@ -947,6 +950,39 @@ public class InternalEngineTests extends ElasticsearchLuceneTestCase {
         }
     }
 
+    @Test
+    public void testFailedIndexDoesNotHoldBackLocalCheckpoint() {
+        ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
+        Engine.Index index = new Engine.Index(null, newUid("1"), doc);
+        engine.index(index);
+        assertThat(index.seqNo(), equalTo(0l));
+        assertThat(engine.getLocalCheckpoint(), equalTo(0l));
+
+        // the version checks pass, but the index writer rejects the document
+        char[] immenseTerm = new char[IndexWriter.MAX_TERM_LENGTH + 1];
+        Arrays.fill(immenseTerm, 'a');
+        Document document = testDocument();
+        document.add(new StringField("value", new String(immenseTerm), Field.Store.NO));
+        doc = testParsedDocument("2", "2", "test", null, -1, -1, document, Lucene.STANDARD_ANALYZER, B_2, false);
+        index = new Engine.Index(null, newUid("2"), doc);
+        try {
+            engine.index(index);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // all is well
+        }
+        assertThat(index.seqNo(), equalTo(SequenceNumbers.UNASSIGNED_SEQ_NO));
+        assertThat(engine.getMaxSeqNo(), equalTo(0l));
+        assertThat(engine.getLocalCheckpoint(), equalTo(0l));
+
+        doc = testParsedDocument("3", "3", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_3, false);
+        index = new Engine.Index(null, newUid("3"), doc);
+        engine.index(index);
+        assertThat(index.seqNo(), equalTo(1l));
+        assertThat(engine.getMaxSeqNo(), equalTo(1l));
+        assertThat(engine.getLocalCheckpoint(), equalTo(1l));
+    }
+
     @Test
     public void testVersioningIndexConflictWithFlush() {
         ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
@@ -1375,7 +1411,7 @@ public class InternalEngineTests extends ElasticsearchLuceneTestCase {
                         new ShardSlowLogIndexingService(shardId, EMPTY_SETTINGS, engineSettingsService)),
                 null, store, createSnapshotDeletionPolicy(), createTranslog(), createMergePolicy(), createMergeScheduler(engineSettingsService),
                 new AnalysisService(shardId.index(), engineSettingsService.getSettings()), new SimilarityService(shardId.index()),
-                new CodecService(shardId.index()));
+                new CodecService(shardId.index()), null);
         engine.start();
         engine.enableGcDeletes(false);
 
@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.mapper;
+
+import org.apache.lucene.index.IndexableField;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.test.ElasticsearchSingleNodeTest;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class ParsedDocumentSerializerTests extends ElasticsearchSingleNodeTest {
+
+    @Test
+    public void testSerializeAndDeserialize() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+                .startObject("text").field("type", "string").field("boost", 2.0f).endObject()
+                .startObject("keyword").field("type", "string").field("index", "not_analyzed").field("store", true).endObject()
+                .startObject("count").field("type", "long").endObject()
+                .startObject("price").field("type", "double").field("store", true).endObject()
+                .endObject().endObject().endObject().string();
+        DocumentMapper docMapper = createIndex("test").mapperService().documentMapperParser().parse(mapping);
+
+        BytesReference source = XContentFactory.jsonBuilder().startObject()
+                .field("text", "some analyzed text")
+                .field("keyword", "value")
+                .field("count", 42)
+                .field("price", 9.99)
+                .endObject().bytes();
+        SourceToParse sourceToParse = SourceToParse.source(source).type("type").id("1");
+        ParsedDocument doc = docMapper.parse(sourceToParse);
+        assertThat(doc.mappingsModified(), equalTo(false));
+
+        BytesReference serialized = ParsedDocumentSerializer.serialize(doc, source);
+        assertThat(serialized, notNullValue());
+
+        ParsedDocument read = ParsedDocumentSerializer.deserialize(serialized, docMapper, sourceToParse);
+        assertThat(read, notNullValue());
+        assertThat(read.id(), equalTo("1"));
+        assertThat(read.type(), equalTo("type"));
+        assertThat(read.source(), equalTo(doc.source()));
+        assertThat(read.uid().stringValue(), equalTo(doc.uid().stringValue()));
+        assertThat(read.version(), sameInstance(read.rootDoc().getField("_version")));
+        assertThat(read.docs().size(), equalTo(doc.docs().size()));
+        for (int i = 0; i < doc.docs().size(); i++) {
+            List<IndexableField> expectedFields = doc.docs().get(i).getFields();
+            List<IndexableField> fields = read.docs().get(i).getFields();
+            assertThat(fields.size(), equalTo(expectedFields.size()));
+            for (int j = 0; j < expectedFields.size(); j++) {
+                IndexableField expected = expectedFields.get(j);
+                IndexableField field = fields.get(j);
+                assertThat(field.getClass(), equalTo((Object) expected.getClass()));
+                assertThat(field.name(), equalTo(expected.name()));
+                assertThat(field.fieldType(), equalTo(expected.fieldType()));
+                assertThat(field.boost(), equalTo(expected.boost()));
+                assertThat(field.stringValue(), equalTo(expected.stringValue()));
+                assertThat(field.binaryValue(), equalTo(expected.binaryValue()));
+                assertThat(field.numericValue(), equalTo(expected.numericValue()));
+            }
+        }
+    }
+
+    @Test
+    public void testDynamicMappingIsNotSerialized() throws Exception {
+        DocumentMapper docMapper = createIndex("test").mapperService().documentMapperParser().parse(
+                XContentFactory.jsonBuilder().startObject().startObject("type").endObject().endObject().string());
+        BytesReference source = XContentFactory.jsonBuilder().startObject().field("new_field", "value").endObject().bytes();
+        ParsedDocument doc = docMapper.parse(SourceToParse.source(source).type("type").id("1"));
+        assertThat(doc.mappingsModified(), equalTo(true));
+        // the replica must parse the source to add the new field to its mapping
+        assertThat(ParsedDocumentSerializer.serialize(doc, source), nullValue());
+    }
+
+    @Test
+    public void testUnknownAnalyzedFieldIsNotDeserialized() throws Exception {
+        String mapping = XContentFactory.jsonBuilder().startObject().startObject("type").startObject("properties")
+                .startObject("text").field("type", "string").endObject()
+                .endObject().endObject().endObject().string();
+        DocumentMapperParser parser = createIndex("test").mapperService().documentMapperParser();
+        DocumentMapper docMapper = parser.parse(mapping);
+        BytesReference source = XContentFactory.jsonBuilder().startObject().field("text", "some text").endObject().bytes();
+        SourceToParse sourceToParse = SourceToParse.source(source).type("type").id("1");
+        BytesReference serialized = ParsedDocumentSerializer.serialize(docMapper.parse(sourceToParse), source);
+        assertThat(serialized, notNullValue());
+
+        // a mapping that doesn't know about the field can't pick its analyzer
+        DocumentMapper otherMapper = parser.parse(XContentFactory.jsonBuilder().startObject().startObject("type").endObject().endObject().string());
+        assertThat(ParsedDocumentSerializer.deserialize(serialized, otherMapper, sourceToParse), nullValue());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.percolator;
+
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queries.TermFilter;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.FilteredQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.spans.SpanNearQuery;
+import org.apache.lucene.search.spans.SpanQuery;
+import org.apache.lucene.search.spans.SpanTermQuery;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.nullValue;
+
+public class QueryTermsExtractorTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testTermQuery() {
+        Set<Term> terms = QueryTermsExtractor.extractQueryTerms(new TermQuery(new Term("field", "value")));
+        assertThat(terms, containsInAnyOrder(new Term("field", "value")));
+    }
+
+    @Test
+    public void testBooleanQueryWithOptionalClauses() {
+        BooleanQuery query = new BooleanQuery();
+        query.add(new TermQuery(new Term("field", "value1")), BooleanClause.Occur.SHOULD);
+        query.add(new TermQuery(new Term("field", "value2")), BooleanClause.Occur.SHOULD);
+        query.add(new TermQuery(new Term("field", "value3")), BooleanClause.Occur.MUST_NOT);
+        Set<Term> terms = QueryTermsExtractor.extractQueryTerms(query);
+        assertThat(terms, containsInAnyOrder(new Term("field", "value1"), new Term("field", "value2")));
+
+        query.add(new PrefixQuery(new Term("field", "val")), BooleanClause.Occur.SHOULD);
+        assertThat(QueryTermsExtractor.extractQueryTerms(query), nullValue());
+    }
+
+    @Test
+    public void testBooleanQueryWithRequiredClauses() {
+        BooleanQuery optional = new BooleanQuery();
+        optional.add(new TermQuery(new Term("field", "value1")), BooleanClause.Occur.SHOULD);
+        optional.add(new TermQuery(new Term("field", "value2")), BooleanClause.Occur.SHOULD);
+
+        BooleanQuery query = new BooleanQuery();
+        query.add(optional, BooleanClause.Occur.MUST);
+        query.add(new TermQuery(new Term("field", "value3")), BooleanClause.Occur.MUST);
+        query.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        query.add(new TermQuery(new Term("field", "value4")), BooleanClause.Occur.SHOULD);
+        Set<Term> terms = QueryTermsExtractor.extractQueryTerms(query);
+        assertThat(terms, containsInAnyOrder(new Term("field", "value3")));
+    }
+
+    @Test
+    public void testPhraseQuery() {
+        PhraseQuery query = new PhraseQuery();
+        query.add(new Term("field", "a"));
+        query.add(new Term("field", "longest"));
+        query.add(new Term("field", "term"));
+        Set<Term> terms = QueryTermsExtractor.extractQueryTerms(query);
+        assertThat(terms, containsInAnyOrder(new Term("field", "longest")));
+    }
+
+    @Test
+    public void testSpanQuery() {
+        SpanQuery query = new SpanNearQuery(new SpanQuery[] {
+                new SpanTermQuery(new Term("field", "short")), new SpanTermQuery(new Term("field", "longer"))
+        }, 1, true);
+        Set<Term> terms = QueryTermsExtractor.extractQueryTerms(query);
+        assertThat(terms, containsInAnyOrder(new Term("field", "longer")));
+    }
+
+    @Test
+    public void testFilters() {
+        Set<Term> terms = QueryTermsExtractor.extractQueryTerms(new ConstantScoreQuery(new TermFilter(new Term("field", "value"))));
+        assertThat(terms, containsInAnyOrder(new Term("field", "value")));
+
+        FilteredQuery query = new FilteredQuery(new MatchAllDocsQuery(), new TermFilter(new Term("field", "value")));
+        terms = QueryTermsExtractor.extractQueryTerms(query);
+        assertThat(terms, containsInAnyOrder(new Term("field", "value")));
+    }
+
+    @Test
+    public void testUnsupportedQuery() {
+        assertThat(QueryTermsExtractor.extractQueryTerms(new MatchAllDocsQuery()), nullValue());
+        assertThat(QueryTermsExtractor.extractQueryTerms(new PrefixQuery(new Term("field", "val"))), nullValue());
+    }
+}
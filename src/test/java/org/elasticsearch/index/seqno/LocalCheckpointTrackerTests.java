@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.seqno;
+
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class LocalCheckpointTrackerTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testSimplePrimary() {
+        LocalCheckpointTracker tracker = new LocalCheckpointTracker(SequenceNumbers.NO_OPS_PERFORMED, SequenceNumbers.NO_OPS_PERFORMED);
+        long seqNo1 = tracker.generateSeqNo();
+        long seqNo2 = tracker.generateSeqNo();
+        assertThat(seqNo1, equalTo(0l));
+        assertThat(seqNo2, equalTo(1l));
+        assertThat(tracker.getMaxSeqNo(), equalTo(1l));
+        assertThat(tracker.getCheckpoint(), equalTo(SequenceNumbers.NO_OPS_PERFORMED));
+
+        tracker.markSeqNoAsCompleted(seqNo2);
+        assertThat(tracker.getCheckpoint(), equalTo(SequenceNumbers.NO_OPS_PERFORMED));
+        tracker.markSeqNoAsCompleted(seqNo1);
+        assertThat(tracker.getCheckpoint(), equalTo(1l));
+    }
+
+    @Test
+    public void testOutOfOrderCompletion() {
+        LocalCheckpointTracker tracker = new LocalCheckpointTracker(SequenceNumbers.NO_OPS_PERFORMED, SequenceNumbers.NO_OPS_PERFORMED);
+        int numOps = randomIntBetween(1, 200);
+        List<Long> seqNos = new ArrayList<>();
+        for (long i = 0; i < numOps; i++) {
+            seqNos.add(i);
+        }
+        Collections.shuffle(seqNos, getRandom());
+        long expectedCheckpoint = SequenceNumbers.NO_OPS_PERFORMED;
+        boolean[] completed = new boolean[numOps];
+        for (long seqNo : seqNos) {
+            tracker.markSeqNoAsCompleted(seqNo);
+            completed[(int) seqNo] = true;
+            while (expectedCheckpoint + 1 < numOps && completed[(int) (expectedCheckpoint + 1)]) {
+                expectedCheckpoint++;
+            }
+            assertThat(tracker.getCheckpoint(), equalTo(expectedCheckpoint));
+        }
+        assertThat(tracker.getCheckpoint(), equalTo(numOps - 1l));
+        assertThat(tracker.getMaxSeqNo(), equalTo(numOps - 1l));
+    }
+
+    @Test
+    public void testReplicaAndRecovery() {
+        LocalCheckpointTracker tracker = new LocalCheckpointTracker(4, 2);
+        // replayed operations below the checkpoint are ignored
+        tracker.markSeqNoAsCompleted(1);
+        assertThat(tracker.getCheckpoint(), equalTo(2l));
+        // operations from the primary move the max sequence number forward
+        tracker.markSeqNoAsCompleted(10);
+        assertThat(tracker.getMaxSeqNo(), equalTo(10l));
+        assertThat(tracker.getCheckpoint(), equalTo(2l));
+        assertThat(tracker.generateSeqNo(), equalTo(11l));
+
+        // a recovery source confirms the operations up to its checkpoint, the gap above it stays
+        tracker.markSeqNosAsCompletedUpTo(5);
+        assertThat(tracker.getCheckpoint(), equalTo(5l));
+        for (long seqNo = 6; seqNo < 10; seqNo++) {
+            tracker.markSeqNoAsCompleted(seqNo);
+        }
+        assertThat(tracker.getCheckpoint(), equalTo(10l));
+        tracker.markSeqNoAsCompleted(11);
+        assertThat(tracker.getCheckpoint(), equalTo(11l));
+    }
+
+    @Test
+    public void testMarkSeqNosAsCompletedUpTo() {
+        LocalCheckpointTracker tracker = new LocalCheckpointTracker(SequenceNumbers.NO_OPS_PERFORMED, SequenceNumbers.NO_OPS_PERFORMED);
+        tracker.markSeqNoAsCompleted(3);
+        tracker.markSeqNoAsCompleted(6);
+        tracker.markSeqNoAsCompleted(7);
+        assertThat(tracker.getCheckpoint(), equalTo(SequenceNumbers.NO_OPS_PERFORMED));
+
+        // completed operations right above the given sequence number move the checkpoint further
+        tracker.markSeqNosAsCompletedUpTo(5);
+        assertThat(tracker.getCheckpoint(), equalTo(7l));
+        assertThat(tracker.getMaxSeqNo(), equalTo(7l));
+
+        // lower sequence numbers don't move the checkpoint back
+        tracker.markSeqNosAsCompletedUpTo(2);
+        assertThat(tracker.getCheckpoint(), equalTo(7l));
+
+        // the max sequence number moves with the checkpoint
+        tracker.markSeqNosAsCompletedUpTo(12);
+        assertThat(tracker.getCheckpoint(), equalTo(12l));
+        assertThat(tracker.generateSeqNo(), equalTo(13l));
+    }
+}
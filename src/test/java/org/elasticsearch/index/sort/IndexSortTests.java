@@ -0,0 +1,108 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.sort;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.*;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class IndexSortTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testSortedSegmentsTerminateEarly() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", 1)
+                .put("index.number_of_replicas", 0)
+                .putArray(IndexSort.INDEX_SORT_FIELD, "timestamp")
+                .putArray(IndexSort.INDEX_SORT_ORDER, "desc"))
+                .addMapping("type", "timestamp", "type=long,doc_values=true"));
+        ensureGreen();
+        int numDocs = scaledRandomIntBetween(100, 500);
+        for (int i = 0; i < numDocs; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("timestamp", i).get();
+            if (i == numDocs / 2) {
+                // at least two segments, so that they are merged into a sorted one
+                refresh();
+            }
+        }
+        refresh();
+        assertNoFailures(client().admin().indices().prepareOptimize("test").setFlush(true).setWaitForMerge(true).setMaxNumSegments(1).get());
+        refresh();
+
+        int size = randomIntBetween(1, 10);
+        // the total hits are tracked by default, all the documents are collected
+        SearchResponse response = client().prepareSearch("test").addSort("timestamp", SortOrder.DESC).setSize(size).get();
+        assertSearchResponse(response);
+        assertThat(response.isTerminatedEarly(), nullValue());
+        assertHitCount(response, numDocs);
+        for (int i = 0; i < size; i++) {
+            assertThat(response.getHits().getAt(i).id(), equalTo(Integer.toString(numDocs - 1 - i)));
+        }
+
+        response = client().prepareSearch("test").addSort("timestamp", SortOrder.DESC).setSize(size).setTrackTotalHits(false).get();
+        assertSearchResponse(response);
+        assertThat(response.isTerminatedEarly(), equalTo(Boolean.TRUE));
+        assertThat(response.getHits().totalHits(), lessThan((long) numDocs));
+        assertThat(response.getHits().hits().length, equalTo(size));
+        for (int i = 0; i < size; i++) {
+            assertThat(response.getHits().getAt(i).id(), equalTo(Integer.toString(numDocs - 1 - i)));
+        }
+
+        // the ascending order doesn't come in the order of the sorted segment, all the documents are collected
+        response = client().prepareSearch("test").addSort("timestamp", SortOrder.ASC).setSize(size).setTrackTotalHits(false).get();
+        assertSearchResponse(response);
+        assertThat(response.isTerminatedEarly(), nullValue());
+        assertHitCount(response, numDocs);
+        for (int i = 0; i < size; i++) {
+            assertThat(response.getHits().getAt(i).id(), equalTo(Integer.toString(i)));
+        }
+    }
+
+    @Test
+    public void testSortFieldMustBeMapped() {
+        try {
+            prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                    .putArray(IndexSort.INDEX_SORT_FIELD, "timestamp")).get();
+            fail("the index sort field isn't mapped");
+        } catch (ElasticsearchIllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("no mapping found for index sort field [timestamp]"));
+        }
+    }
+
+    @Test
+    public void testSortFieldMustHaveDocValues() {
+        try {
+            prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                    .putArray(IndexSort.INDEX_SORT_FIELD, "timestamp"))
+                    .addMapping("type", "timestamp", "type=long").get();
+            fail("the index sort field doesn't have doc values");
+        } catch (ElasticsearchIllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("index sort field [timestamp] must have doc values"));
+        }
+    }
+}
@@ -51,6 +51,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import static com.google.common.collect.Lists.newArrayList;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  *
@@ -105,6 +106,49 @@ public abstract class AbstractSimpleTranslogTests extends ElasticsearchTestCase
         assertThat(translog.read(loc3).getSource().source.toBytesArray(), equalTo(new BytesArray(new byte[]{3})));
     }
 
+    @Test
+    public void testEnsureSynced() throws IOException {
+        Translog.Location loc1 = translog.add(new Translog.Create("test", "1", new byte[]{1}));
+        Translog.Location loc2 = translog.add(new Translog.Create("test", "2", new byte[]{2}));
+        assertThat(translog.syncNeeded(), equalTo(true));
+        // syncing up to the second location covers the first one as well
+        assertThat(translog.ensureSynced(loc2), equalTo(true));
+        assertThat(translog.ensureSynced(loc1), equalTo(false));
+        assertThat(translog.ensureSynced(loc2), equalTo(false));
+        assertThat(translog.syncNeeded(), equalTo(false));
+
+        Translog.Location loc3 = translog.add(new Translog.Create("test", "3", new byte[]{3}));
+        assertThat(translog.syncNeeded(), equalTo(true));
+        assertThat(translog.ensureSynced(loc1), equalTo(false));
+        assertThat(translog.ensureSynced(loc3), equalTo(true));
+        assertThat(translog.syncNeeded(), equalTo(false));
+
+        TranslogStats stats = translog.stats();
+        assertThat(stats.getSyncTotal(), equalTo(2l));
+        assertThat(stats.getSyncedOperations(), equalTo(3l));
+
+        // locations in translogs that have been closed in the meantime are synced already
+        translog.newTranslog(2);
+        assertThat(translog.ensureSynced(loc3), equalTo(false));
+        Translog.Location loc4 = translog.add(new Translog.Create("test", "4", new byte[]{4}));
+        assertThat(translog.ensureSynced(loc4), equalTo(true));
+    }
+
+    @Test
+    public void testEnsureSyncedAfterRevertTransient() throws IOException {
+        translog.newTransientTranslog(2);
+        Translog.Location loc1 = translog.add(new Translog.Create("test", "1", new byte[]{1}));
+        assertThat(loc1.translogId, equalTo(2l));
+        translog.revertTransient();
+        // the location returned for the operation points to the discarded transient translog, the operation
+        // was added to the current translog as well and needs to be synced there
+        assertThat(translog.syncNeeded(), equalTo(true));
+        assertThat(translog.ensureSynced(loc1), equalTo(true));
+        assertThat(translog.syncNeeded(), equalTo(false));
+        assertThat(translog.ensureSynced(loc1), equalTo(false));
+        assertThat(translog.read(loc1), nullValue());
+    }
+
     @Test
     public void testTransientTranslog() throws IOException {
         Translog.Snapshot snapshot = translog.snapshot();
@@ -26,15 +26,20 @@ import org.elasticsearch.action.admin.indices.recovery.RecoveryResponse;
 import org.elasticsearch.action.admin.indices.recovery.ShardRecoveryResponse;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
 import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.routing.allocation.command.MoveAllocationCommand;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.translog.TranslogService;
 import org.elasticsearch.indices.recovery.RecoveryState.Stage;
 import org.elasticsearch.indices.recovery.RecoveryState.Type;
 import org.elasticsearch.snapshots.SnapshotState;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
+import org.elasticsearch.test.InternalTestCluster;
 import org.elasticsearch.test.junit.annotations.TestLogging;
 import org.junit.Test;
 
@@ -42,10 +47,12 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 import static org.elasticsearch.test.ElasticsearchIntegrationTest.Scope;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
 import static org.hamcrest.Matchers.*;
 
 /**
@@ -207,6 +214,61 @@ public class IndexRecoveryTests extends ElasticsearchIntegrationTest {
         validateIndexRecoveryState(nodeBShardResponse.recoveryState().getIndex());
     }
 
+    @Test
+    public void replicaRecoveryFromTranslogOnlyTest() throws Exception {
+        logger.info("--> start nodes");
+        final String nodeA = internalCluster().startNode(settingsBuilder().put("gateway.type", "local"));
+        final String nodeB = internalCluster().startNode(settingsBuilder().put("gateway.type", "local"));
+
+        logger.info("--> create index with a replica");
+        assertAcked(prepareCreate(INDEX_NAME, 2, settingsBuilder()
+                .put("number_of_shards", 1)
+                .put("number_of_replicas", 1)
+                // only the flush below moves the start of the translog
+                .put(TranslogService.INDEX_TRANSLOG_DISABLE_FLUSH, true)));
+        ensureGreen();
+        int numDocs = between(MIN_DOC_COUNT, MAX_DOC_COUNT);
+        indexDocs(client(), numDocs);
+        flush();
+
+        logger.info("--> restart a node, index while it is down");
+        final int numMissedDocs = between(1, 100);
+        final AtomicReference<String> restartedNode = new AtomicReference<>();
+        internalCluster().restartRandomDataNode(new InternalTestCluster.RestartCallback() {
+            @Override
+            public Settings onNodeStopped(String nodeName) throws Exception {
+                restartedNode.set(nodeName);
+                // updates documents, the stopped copy misses these operations
+                indexDocs(internalCluster().client(nodeName.equals(nodeA) ? nodeB : nodeA), numMissedDocs);
+                return super.onNodeStopped(nodeName);
+            }
+        });
+        ensureGreen();
+
+        logger.info("--> request recoveries");
+        RecoveryResponse response = client().admin().indices().prepareRecoveries(INDEX_NAME).execute().actionGet();
+        List<ShardRecoveryResponse> shardResponses = findRecoveriesForTargetNode(restartedNode.get(), response.shardResponses().get(INDEX_NAME));
+        assertThat(shardResponses.size(), equalTo(1));
+        RecoveryState state = shardResponses.get(0).recoveryState();
+        assertThat(state.getType(), equalTo(Type.REPLICA));
+        assertThat(state.getStage(), equalTo(Stage.DONE));
+        // the commit of the restarted copy is recent enough, it only replayed the operations it missed
+        assertThat(state.getIndex().totalFileCount(), greaterThan(0));
+        assertThat(state.getIndex().numberOfRecoveredFiles(), equalTo(0));
+        assertThat(state.getIndex().recoveredTotalSize(), equalTo(0l));
+        assertThat(state.getTranslog().currentTranslogOperations(), greaterThanOrEqualTo(numMissedDocs));
+
+        refresh();
+        String nodeId = internalCluster().getInstance(ClusterService.class, restartedNode.get()).localNode().id();
+        assertHitCount(client().prepareCount(INDEX_NAME).setPreference("_only_node:" + nodeId).get(), numDocs);
+    }
+
+    private void indexDocs(Client client, int numDocs) {
+        for (int i = 0; i < numDocs; i++) {
+            client.prepareIndex(INDEX_NAME, INDEX_TYPE, Integer.toString(i)).setSource("foo-int", randomInt()).get();
+        }
+    }
+
     @Test
     @TestLogging("indices.recovery:TRACE")
     public void rerouteRecoveryTest() throws Exception {
@@ -0,0 +1,73 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.transport.LocalTransportAddress;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.StoreFileMetaData;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class ShardRecoveryHandlerTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testCanRecoverFromTranslogOnly() {
+        String historyUUID = randomAsciiOfLength(10);
+        long translogStartSeqNo = randomIntBetween(0, 1000);
+
+        // the target's checkpoint is covered by the translog
+        assertThat(ShardRecoveryHandler.canRecoverFromTranslogOnly(request(historyUUID, translogStartSeqNo), historyUUID, translogStartSeqNo), equalTo(true));
+        assertThat(ShardRecoveryHandler.canRecoverFromTranslogOnly(request(historyUUID, translogStartSeqNo + randomIntBetween(1, 100)), historyUUID, translogStartSeqNo), equalTo(true));
+
+        // the target misses operations that are not in the translog anymore
+        assertThat(ShardRecoveryHandler.canRecoverFromTranslogOnly(request(historyUUID, translogStartSeqNo - randomIntBetween(1, 100)), historyUUID, translogStartSeqNo), equalTo(false));
+        // the start of the translog is not known, for example right after a restart
+        assertThat(ShardRecoveryHandler.canRecoverFromTranslogOnly(request(historyUUID, translogStartSeqNo), historyUUID, Long.MAX_VALUE), equalTo(false));
+
+        // the target holds another history
+        assertThat(ShardRecoveryHandler.canRecoverFromTranslogOnly(request(historyUUID + "_other", translogStartSeqNo), historyUUID, translogStartSeqNo), equalTo(false));
+        // the target has no commit or one that predates sequence numbers
+        assertThat(ShardRecoveryHandler.canRecoverFromTranslogOnly(request(null, translogStartSeqNo), historyUUID, translogStartSeqNo), equalTo(false));
+        assertThat(ShardRecoveryHandler.canRecoverFromTranslogOnly(request(historyUUID, SequenceNumbers.UNASSIGNED_SEQ_NO), historyUUID, SequenceNumbers.NO_OPS_PERFORMED), equalTo(false));
+    }
+
+    private static StartRecoveryRequest request(String historyUUID, long localCheckpoint) {
+        return new StartRecoveryRequest(
+                new ShardId("test", 0),
+                new DiscoveryNode("a", new LocalTransportAddress("1"), Version.CURRENT),
+                new DiscoveryNode("b", new LocalTransportAddress("1"), Version.CURRENT),
+                false,
+                Collections.<String, StoreFileMetaData>emptyMap(),
+                RecoveryState.Type.REPLICA,
+                1l,
+                historyUUID,
+                localCheckpoint
+        );
+    }
+}
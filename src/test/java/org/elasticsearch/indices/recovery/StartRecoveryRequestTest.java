@@ -24,6 +24,7 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
 import org.elasticsearch.common.io.stream.OutputStreamStreamOutput;
 import org.elasticsearch.common.transport.LocalTransportAddress;
+import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetaData;
 import org.elasticsearch.test.ElasticsearchTestCase;
@@ -50,8 +51,9 @@ public class StartRecoveryRequestTest extends ElasticsearchTestCase {
                 true,
                 Collections.<String, StoreFileMetaData>emptyMap(),
                 RecoveryState.Type.RELOCATION,
-                1l
-
+                1l,
+                randomBoolean() ? null : randomAsciiOfLength(10),
+                randomLong()
         );
         ByteArrayOutputStream outBuffer = new ByteArrayOutputStream();
         OutputStreamStreamOutput out = new OutputStreamStreamOutput(outBuffer);
@@ -71,6 +73,13 @@ public class StartRecoveryRequestTest extends ElasticsearchTestCase {
         assertThat(outRequest.existingFiles(), equalTo(inRequest.existingFiles()));
         assertThat(outRequest.recoveryId(), equalTo(inRequest.recoveryId()));
         assertThat(outRequest.recoveryType(), equalTo(inRequest.recoveryType()));
+        if (targetNodeVersion.onOrAfter(Version.V_2_0_0)) {
+            assertThat(outRequest.historyUUID(), equalTo(inRequest.historyUUID()));
+            assertThat(outRequest.localCheckpoint(), equalTo(inRequest.localCheckpoint()));
+        } else {
+            assertThat(inRequest.historyUUID(), nullValue());
+            assertThat(inRequest.localCheckpoint(), equalTo(SequenceNumbers.UNASSIGNED_SEQ_NO));
+        }
     }
 
 
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.indices.state;
+
+import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
+import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsResponse;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.cluster.ClusterStateApplyStats;
+import org.elasticsearch.indices.cluster.IndicesClusterStateService;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.elasticsearch.test.ElasticsearchIntegrationTest.Scope;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@ClusterScope(scope = Scope.TEST, numDataNodes = 2)
+public class ConcurrentClusterStateApplyTests extends ElasticsearchIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.builder()
+                .put(super.nodeSettings(nodeOrdinal))
+                .put("indices.cluster.apply_concurrency", randomIntBetween(1, 4))
+                .build();
+    }
+
+    @Test
+    public void testApplyManyIndices() throws Exception {
+        int numIndices = randomIntBetween(5, 20);
+        final String[] indices = new String[numIndices];
+        for (int i = 0; i < numIndices; i++) {
+            indices[i] = "test" + i;
+            assertAcked(prepareCreate(indices[i])
+                    .setSettings(ImmutableSettings.builder()
+                            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, randomIntBetween(1, 3))
+                            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 1))
+                    .addMapping("type", "field", "type=string")
+                    .addAlias(new Alias("alias" + i)));
+        }
+        ensureGreen(indices);
+
+        // every index has a copy on both nodes, each of them with the mapping and the alias of its index
+        for (IndicesService indicesService : internalCluster().getDataNodeInstances(IndicesService.class)) {
+            for (int i = 0; i < numIndices; i++) {
+                IndexService indexService = indicesService.indexService(indices[i]);
+                assertThat(indexService, notNullValue());
+                assertThat(indexService.mapperService().documentMapper("type"), notNullValue());
+                assertThat(indexService.aliasesService().hasAlias("alias" + i), equalTo(true));
+            }
+        }
+
+        for (int i = 0; i < numIndices; i++) {
+            client().prepareIndex("alias" + i, "type", "1").setSource("field", "value").get();
+        }
+        refresh();
+        for (int i = 0; i < numIndices; i++) {
+            assertHitCount(client().prepareSearch("alias" + i).setSize(0).get(), 1);
+        }
+
+        Map<String, Long> appliedBefore = clusterStateApplyStats();
+
+        // update the settings of all the indices at once
+        assertAcked(client().admin().indices().prepareUpdateSettings(indices)
+                .setSettings(ImmutableSettings.builder().put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)));
+        ensureGreen(indices);
+        for (IndicesService indicesService : internalCluster().getDataNodeInstances(IndicesService.class)) {
+            for (String index : indices) {
+                IndexService indexService = indicesService.indexService(index);
+                if (indexService != null) {
+                    assertThat(indexService.settingsService().getSettings().getAsInt(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, -1), equalTo(0));
+                }
+            }
+        }
+
+        Map<String, Long> appliedAfter = clusterStateApplyStats();
+        for (Map.Entry<String, Long> entry : appliedBefore.entrySet()) {
+            assertThat(appliedAfter.get(entry.getKey()), greaterThan(entry.getValue()));
+        }
+
+        assertAcked(client().admin().indices().prepareDelete(indices));
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                for (IndicesService indicesService : internalCluster().getDataNodeInstances(IndicesService.class)) {
+                    for (String index : indices) {
+                        assertThat(indicesService.hasIndex(index), equalTo(false));
+                    }
+                }
+            }
+        });
+
+        // the stats are only returned when they are asked for
+        NodesStatsResponse response = client().admin().cluster().prepareNodesStats().clear().setBreaker(true).get();
+        for (NodeStats nodeStats : response.getNodes()) {
+            assertThat(nodeStats.getClusterStateApply(), nullValue());
+        }
+    }
+
+    /**
+     * Checks that every step of the application of a cluster state was recorded as many times on each node, and returns
+     * how many cluster states each node applied.
+     */
+    private Map<String, Long> clusterStateApplyStats() throws Exception {
+        final Map<String, Long> applied = new HashMap<>();
+        // a node may be in the middle of applying a cluster state when its stats are taken
+        assertBusy(new Runnable() {
+            @Override
+            public void run() {
+                applied.clear();
+                NodesStatsResponse response = client().admin().cluster().prepareNodesStats().clear().setClusterStateApply(true).get();
+                assertThat(response.getNodes().length, equalTo(cluster().size()));
+                for (NodeStats nodeStats : response.getNodes()) {
+                    ClusterStateApplyStats stats = nodeStats.getClusterStateApply();
+                    assertThat(stats, notNullValue());
+                    assertThat(stats.getSteps().length, equalTo(IndicesClusterStateService.ApplyStep.values().length));
+                    long count = stats.getSteps()[0].getCount();
+                    assertThat(count, greaterThan(0l));
+                    for (ClusterStateApplyStats.StepStats step : stats.getSteps()) {
+                        assertThat(step.getName(), step.getCount(), equalTo(count));
+                    }
+                    if (nodeStats.getNode().dataNode()) {
+                        // creating the indices and their shards takes time on the nodes that hold them
+                        assertThat(stats.getStats("new_indices").getTotalTime().nanos(), greaterThan(0l));
+                        assertThat(stats.getStats("new_or_updated_shards").getTotalTime().nanos(), greaterThan(0l));
+                    }
+                    applied.put(nodeStats.getNode().id(), count);
+                }
+            }
+        });
+        return applied;
+    }
+}
@@ -297,6 +297,46 @@ public class IndexStatsTests extends ElasticsearchIntegrationTest {
         assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMemorySizeInBytes(), greaterThan(0l));
     }
 
+    @Test
+    public void testQueryCacheQueryThenFetch() throws Exception {
+        assertAcked(client().admin().indices().prepareCreate("idx").setSettings(IndicesQueryCache.INDEX_CACHE_QUERY_ENABLED, true).get());
+        ensureGreen();
+
+        int numDocs = randomIntBetween(10, 50);
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; ++i) {
+            builders[i] = client().prepareIndex("idx", "type", Integer.toString(i)).setSource(jsonBuilder()
+                    .startObject()
+                    .field("common", "field")
+                    .field("num", i)
+                    .endObject());
+        }
+        indexRandom(true, builders);
+
+        SearchResponse first = client().prepareSearch("idx").setSearchType(SearchType.QUERY_THEN_FETCH).addSort("num", SortOrder.DESC).setSize(5).get();
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMemorySizeInBytes(), greaterThan(0l));
+        long missCount = client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMissCount();
+        assertThat(missCount, greaterThan(0l));
+
+        // the second request is served from the cache and fetches the same hits
+        SearchResponse second = client().prepareSearch("idx").setSearchType(SearchType.QUERY_THEN_FETCH).addSort("num", SortOrder.DESC).setSize(5).get();
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getHitCount(), greaterThan(0l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMissCount(), equalTo(missCount));
+        assertThat(second.getHits().getTotalHits(), equalTo((long) numDocs));
+        assertThat(second.getHits().hits().length, equalTo(5));
+        for (int i = 0; i < 5; i++) {
+            assertThat(second.getHits().getAt(i).id(), equalTo(first.getHits().getAt(i).id()));
+            assertThat(second.getHits().getAt(i).id(), equalTo(Integer.toString(numDocs - 1 - i)));
+        }
+
+        // scrolls and dfs requests are never cached
+        client().admin().indices().prepareClearCache().setQueryCache(true).get();
+        SearchResponse scroll = client().prepareSearch("idx").setSearchType(SearchType.QUERY_THEN_FETCH).setScroll("1m").setSize(5).get();
+        client().prepareClearScroll().addScrollId(scroll.getScrollId()).get();
+        client().prepareSearch("idx").setSearchType(SearchType.DFS_QUERY_THEN_FETCH).setSize(5).get();
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMemorySizeInBytes(), equalTo(0l));
+    }
+
 
     @Test
     public void nonThrottleStats() throws Exception {
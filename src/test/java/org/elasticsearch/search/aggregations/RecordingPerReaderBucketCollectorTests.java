@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.store.RAMDirectory;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.elasticsearch.test.TestSearchContext;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecordingPerReaderBucketCollectorTests extends ElasticsearchTestCase {
+
+    private RAMDirectory directory;
+    private DirectoryReader reader;
+
+    @Before
+    public void openReader() throws IOException {
+        directory = new RAMDirectory();
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()))) {
+            writer.addDocument(new Document());
+            writer.commit();
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @After
+    public void closeReader() throws IOException {
+        reader.close();
+        directory.close();
+    }
+
+    private static HierarchyCircuitBreakerService breakerService(String requestLimit) {
+        return new HierarchyCircuitBreakerService(
+                ImmutableSettings.builder()
+                        .put(HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING, requestLimit)
+                        .build(),
+                new NodeSettingsService(ImmutableSettings.EMPTY));
+    }
+
+    private static RecordingPerReaderBucketCollector collector(HierarchyCircuitBreakerService breakerService) {
+        final BigArrays bigArrays = new BigArrays(ImmutableSettings.EMPTY, null, breakerService).withCircuitBreaking();
+        return new RecordingPerReaderBucketCollector(new AggregationContext(new TestSearchContext() {
+            @Override
+            public BigArrays bigArrays() {
+                return bigArrays;
+            }
+        }));
+    }
+
+    public void testRecordingsAreAccountedAndReleased() throws IOException {
+        final HierarchyCircuitBreakerService breakerService = breakerService("100mb");
+        final CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.Name.REQUEST);
+        final LeafReaderContext leaf = reader.leaves().get(0);
+        final int numSegments = randomIntBetween(1, 5);
+        final List<Long> recorded = new ArrayList<>();
+        final RecordingPerReaderBucketCollector collector = collector(breakerService);
+        try {
+            for (int i = 0; i < numSegments; i++) {
+                collector.setNextReader(leaf);
+                final int numDocs = randomIntBetween(RecordingPerReaderBucketCollector.ACCOUNTING_INTERVAL, 3 * RecordingPerReaderBucketCollector.ACCOUNTING_INTERVAL);
+                int doc = 0;
+                for (int j = 0; j < numDocs; j++) {
+                    doc += randomIntBetween(1, 10);
+                    final long bucket = randomIntBetween(0, 1000);
+                    collector.collect(doc, bucket);
+                    recorded.add((long) doc);
+                    recorded.add(bucket);
+                }
+                // the segment being collected is accounted every ACCOUNTING_INTERVAL docs, before it ends
+                assertTrue(breaker.getUsed() > 0);
+                assertTrue(breaker.getUsed() <= collector.ramBytesUsed());
+            }
+            collector.postCollection();
+            assertTrue(collector.ramBytesUsed() > 0);
+            assertEquals(collector.ramBytesUsed(), breaker.getUsed());
+
+            final List<Long> replayed = new ArrayList<>();
+            collector.replayCollection(new BucketCollector() {
+                @Override
+                public void setNextReader(LeafReaderContext reader) {
+                }
+
+                @Override
+                public void collect(int docId, long bucketOrdinal) throws IOException {
+                    replayed.add((long) docId);
+                    replayed.add(bucketOrdinal);
+                }
+
+                @Override
+                public void postCollection() throws IOException {
+                }
+
+                @Override
+                public void gatherAnalysis(BucketAnalysisCollector analysisCollector, long bucketOrdinal) {
+                }
+            });
+            assertEquals(recorded, replayed);
+        } finally {
+            collector.close();
+        }
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testLargeRecordingTripsTheBreaker() throws IOException {
+        final HierarchyCircuitBreakerService breakerService = breakerService("64kb");
+        final CircuitBreaker breaker = breakerService.getBreaker(CircuitBreaker.Name.REQUEST);
+        final RecordingPerReaderBucketCollector collector = collector(breakerService);
+        try {
+            collector.setNextReader(reader.leaves().get(0));
+            int doc = 0;
+            try {
+                // a breadth first collection of a million docs in random buckets needs several megabytes
+                for (int i = 0; i < 1000000; i++) {
+                    doc += randomIntBetween(1, 100);
+                    collector.collect(doc, randomIntBetween(0, 1 << 20));
+                }
+                fail("expected the request breaker to trip");
+            } catch (CircuitBreakingException e) {
+                // expected
+            }
+            // the breaker keeps what was recorded when it tripped, until the collector is closed
+            assertEquals(collector.ramBytesUsed(), breaker.getUsed());
+            assertTrue(breaker.getUsed() > breaker.getLimit());
+        } finally {
+            collector.close();
+        }
+        assertEquals(0, breaker.getUsed());
+    }
+}
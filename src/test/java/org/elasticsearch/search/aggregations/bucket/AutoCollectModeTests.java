@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.engine.Engine.Searcher;
+import org.elasticsearch.search.aggregations.AbstractAggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.AggregatorParsers;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.test.ElasticsearchSingleNodeTest;
+import org.elasticsearch.test.TestSearchContext;
+
+import java.io.IOException;
+
+import static org.elasticsearch.search.aggregations.AggregationBuilders.avg;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.topHits;
+
+/**
+ * Checks which mode {@link SubAggCollectionMode#AUTO} resolves to once the aggregators are created on a shard.
+ */
+public class AutoCollectModeTests extends ElasticsearchSingleNodeTest {
+
+    private static final Settings SINGLE_SHARD_SETTINGS = ImmutableSettings.builder()
+            .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+            .build();
+
+    private static final int SHARD_SIZE = 5;
+
+    private IndexService indexWithTerms(int numTerms) {
+        IndexService indexService = createIndex("test", SINGLE_SHARD_SETTINGS, "type", "s", "type=string,index=not_analyzed", "l", "type=long");
+        for (int i = 0; i < numTerms; i++) {
+            client().prepareIndex("test", "type", Integer.toString(i)).setSource("s", "term_" + i, "l", i).get();
+        }
+        client().admin().indices().prepareRefresh("test").get();
+        return indexService;
+    }
+
+    /**
+     * Creates the aggregators of the given aggregation on the only shard of the index, and returns the collect mode of
+     * the top level one.
+     */
+    private SubAggCollectionMode resolvedCollectMode(IndexService indexService, AbstractAggregationBuilder aggregation) throws IOException {
+        XContentBuilder builder = JsonXContent.contentBuilder().startObject();
+        aggregation.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+        SearchContext context = createSearchContext(indexService);
+        SearchContext.setCurrent(context);
+        try (Searcher searcher = indexService.shardSafe(0).acquireSearcher("test")) {
+            ((TestSearchContext) context).setSearcher(new ContextIndexSearcher(context, searcher));
+            XContentParser parser = JsonXContent.jsonXContent.createParser(builder.bytes());
+            parser.nextToken();
+            AggregatorFactories factories = getInstanceFromNode(AggregatorParsers.class).parseAggregators(parser, context);
+            Aggregator[] aggregators = factories.createTopLevelAggregators(new AggregationContext(context));
+            try {
+                assertEquals(1, aggregators.length);
+                return ((BucketsAggregator) aggregators[0]).collectMode();
+            } finally {
+                Releasables.close(aggregators);
+            }
+        } finally {
+            SearchContext.removeCurrent();
+        }
+    }
+
+    public void testTermsAboveShardSizePicksBreadthFirst() throws IOException {
+        IndexService indexService = indexWithTerms(randomIntBetween(SHARD_SIZE + 1, 50));
+        SubAggCollectionMode collectMode = resolvedCollectMode(indexService, terms("terms").field("s")
+                .executionHint("global_ordinals").size(SHARD_SIZE).shardSize(SHARD_SIZE)
+                .collectMode(SubAggCollectionMode.AUTO)
+                .subAggregation(avg("avg").field("l")));
+        assertEquals(SubAggCollectionMode.BREADTH_FIRST, collectMode);
+    }
+
+    public void testTermsWithinShardSizePicksDepthFirst() throws IOException {
+        IndexService indexService = indexWithTerms(randomIntBetween(1, SHARD_SIZE));
+        SubAggCollectionMode collectMode = resolvedCollectMode(indexService, terms("terms").field("s")
+                .executionHint("global_ordinals").size(SHARD_SIZE).shardSize(SHARD_SIZE)
+                .collectMode(SubAggCollectionMode.AUTO)
+                .subAggregation(avg("avg").field("l")));
+        assertEquals(SubAggCollectionMode.DEPTH_FIRST, collectMode);
+    }
+
+    public void testTermsWithScoresPicksDepthFirst() throws IOException {
+        // scores are not recorded with the deferred docs, so top_hits forces depth first however many terms there are
+        IndexService indexService = indexWithTerms(randomIntBetween(SHARD_SIZE + 1, 50));
+        SubAggCollectionMode collectMode = resolvedCollectMode(indexService, terms("terms").field("s")
+                .executionHint("global_ordinals").size(SHARD_SIZE).shardSize(SHARD_SIZE)
+                .collectMode(SubAggCollectionMode.AUTO)
+                .subAggregation(topHits("hits")));
+        assertEquals(SubAggCollectionMode.DEPTH_FIRST, collectMode);
+    }
+
+    public void testHistogramPicksDepthFirst() throws IOException {
+        // histogram doesn't prune its buckets, so deferring its sub aggregations never pays off
+        IndexService indexService = indexWithTerms(randomIntBetween(SHARD_SIZE + 1, 50));
+        SubAggCollectionMode collectMode = resolvedCollectMode(indexService, histogram("histo").field("l").interval(1)
+                .collectMode(SubAggCollectionMode.AUTO)
+                .subAggregation(avg("avg").field("l")));
+        assertEquals(SubAggCollectionMode.DEPTH_FIRST, collectMode);
+
+        collectMode = resolvedCollectMode(indexService, histogram("histo").field("l").interval(1)
+                .collectMode(SubAggCollectionMode.BREADTH_FIRST)
+                .subAggregation(avg("avg").field("l")));
+        assertEquals(SubAggCollectionMode.BREADTH_FIRST, collectMode);
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.metrics.sum.Sum;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.composite;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+@ElasticsearchIntegrationTest.SuiteScopeTest
+public class CompositeTests extends ElasticsearchIntegrationTest {
+
+    static int numDocs = 200;
+
+    // the keys are built out of fixed width values, so that their order is the order of the composite keys
+    static TreeMap<String, Integer> expectedDocCounts = null;
+    static TreeMap<String, Integer> expectedProductYearDocCounts = null;
+
+    @Override
+    public void setupSuiteScopeCluster() throws Exception {
+        createIndex("idx_unmapped");
+        assertAcked(prepareCreate("idx")
+                .addMapping("type", "product", "type=string,index=not_analyzed", "color", "type=string,index=not_analyzed", "year", "type=long"));
+
+        expectedDocCounts = new TreeMap<>();
+        expectedProductYearDocCounts = new TreeMap<>();
+        List<IndexRequestBuilder> docs = new ArrayList<>();
+        Random random = getRandom();
+        for (int i = 0; i < numDocs; i++) {
+            String product = "p" + random.nextInt(8);
+            long year = 2010 + random.nextInt(5);
+            List<String> colors = new ArrayList<>();
+            for (int c = 0; c < 5; c++) {
+                if (random.nextInt(3) == 0) {
+                    colors.add("c" + c);
+                }
+            }
+            XContentBuilder source = jsonBuilder().startObject()
+                    .field("product", product)
+                    .field("color", colors)
+                    .field("year", year)
+                    .endObject();
+            docs.add(client().prepareIndex("idx", "type").setSource(source));
+            increment(expectedProductYearDocCounts, product + "|" + year);
+            for (String color : colors) {
+                increment(expectedDocCounts, product + "|" + color + "|" + year);
+            }
+        }
+        indexRandom(true, docs);
+        ensureSearchable();
+    }
+
+    private static void increment(Map<String, Integer> counts, String key) {
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    private static String key(CompositeAggregation.Bucket bucket) {
+        Map<String, Object> key = bucket.getKeyAsMap();
+        return key.get("product") + "|" + key.get("color") + "|" + key.get("year");
+    }
+
+    @Test
+    public void pageThroughAllBuckets() throws Exception {
+        final int size = randomIntBetween(1, 20);
+        List<String> keys = new ArrayList<>();
+        Map<String, Object> after = null;
+        while (true) {
+            SearchResponse response = client().prepareSearch("idx")
+                    .addAggregation(composite("composite")
+                            .terms("product", "product")
+                            .terms("color", "color")
+                            .terms("year", "year")
+                            .size(size)
+                            .after(after)
+                            .subAggregation(sum("sum").field("year")))
+                    .execute().actionGet();
+            assertSearchResponse(response);
+
+            CompositeAggregation composite = response.getAggregations().get("composite");
+            if (composite.getBuckets().isEmpty()) {
+                assertThat(composite.afterKey(), nullValue());
+                break;
+            }
+            assertThat(composite.getBuckets().size() <= size, equalTo(true));
+            for (CompositeAggregation.Bucket bucket : composite.getBuckets()) {
+                String key = key(bucket);
+                keys.add(key);
+                assertThat(key, bucket.getDocCount(), equalTo((long) expectedDocCounts.get(key)));
+                // the docs were replayed in the right bucket if all of them have the year of the bucket
+                Sum sum = bucket.getAggregations().get("sum");
+                assertThat(sum, notNullValue());
+                long year = ((Number) bucket.getKeyAsMap().get("year")).longValue();
+                assertThat(sum.getValue(), equalTo((double) (year * bucket.getDocCount())));
+            }
+            after = composite.afterKey();
+        }
+        assertThat(keys, equalTo((List<String>) new ArrayList<>(expectedDocCounts.keySet())));
+    }
+
+    @Test
+    public void afterMissingTerm() throws Exception {
+        Map<String, Object> after = new HashMap<>();
+        after.put("product", "p3a");
+        after.put("year", 0);
+        SearchResponse response = client().prepareSearch("idx")
+                .addAggregation(composite("composite")
+                        .terms("product", "product")
+                        .terms("year", "year")
+                        .size(100)
+                        .after(after))
+                .execute().actionGet();
+        assertSearchResponse(response);
+
+        // p3a is not indexed, the first bucket is the first one of the next product
+        Map<String, Integer> expected = expectedProductYearDocCounts.tailMap("p4");
+        CompositeAggregation composite = response.getAggregations().get("composite");
+        List<String> keys = new ArrayList<>();
+        for (CompositeAggregation.Bucket bucket : composite.getBuckets()) {
+            String key = bucket.getKeyAsMap().get("product") + "|" + bucket.getKeyAsMap().get("year");
+            keys.add(key);
+            assertThat(key, bucket.getDocCount(), equalTo((long) expected.get(key)));
+        }
+        assertThat(keys, equalTo((List<String>) new ArrayList<>(expected.keySet())));
+    }
+
+    @Test
+    public void unmapped() throws Exception {
+        SearchResponse response = client().prepareSearch("idx_unmapped")
+                .addAggregation(composite("composite")
+                        .terms("product", "product")
+                        .terms("year", "year"))
+                .execute().actionGet();
+        assertSearchResponse(response);
+
+        CompositeAggregation composite = response.getAggregations().get("composite");
+        assertThat(composite, notNullValue());
+        assertThat(composite.getBuckets().size(), equalTo(0));
+    }
+}
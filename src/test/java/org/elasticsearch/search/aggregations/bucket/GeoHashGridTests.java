@@ -28,6 +28,7 @@ import org.elasticsearch.common.geo.GeoHashUtils;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.GeoBoundingBoxFilterBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.bucket.filter.Filter;
 import org.elasticsearch.search.aggregations.bucket.geogrid.GeoHashGrid;
 import org.elasticsearch.search.aggregations.bucket.geogrid.GeoHashGrid.Bucket;
@@ -42,6 +43,7 @@ import java.util.Random;
 import java.util.Set;
 
 import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.FilterBuilders.matchAllFilter;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.geohashGrid;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
@@ -220,6 +222,36 @@ public class GeoHashGridTests extends ElasticsearchIntegrationTest {
         }
     }
 
+    @Test
+    public void breadthFirst() throws Exception {
+        for (int precision = 1; precision <= highestPrecisionGeohash; precision++) {
+            SearchResponse response = client().prepareSearch("idx")
+                    .addAggregation(geohashGrid("geohashgrid")
+                            .field("location")
+                            .size(5)
+                            .precision(precision)
+                            .collectMode(randomFrom(SubAggCollectionMode.BREADTH_FIRST, SubAggCollectionMode.AUTO))
+                            .subAggregation(AggregationBuilders.filter("all").filter(matchAllFilter()))
+                    )
+                    .execute().actionGet();
+
+            assertSearchResponse(response);
+
+            GeoHashGrid geoGrid = response.getAggregations().get("geohashgrid");
+            for (GeoHashGrid.Bucket cell : geoGrid.getBuckets()) {
+                String geohash = cell.getKey();
+                long bucketCount = cell.getDocCount();
+                int expectedBucketCount = expectedDocCountsForGeoHash.get(geohash);
+                assertEquals("Geohash " + geohash + " has wrong doc count ",
+                        expectedBucketCount, bucketCount);
+                // the docs of the cell must have been replayed to the deferred sub aggregation
+                Filter all = cell.getAggregations().get("all");
+                assertEquals("Geohash " + geohash + " has wrong sub aggregation doc count ",
+                        expectedBucketCount, all.getDocCount());
+            }
+        }
+    }
+
     @Test
     public void unmapped() throws Exception {
         for (int precision = 1; precision <= highestPrecisionGeohash; precision++) {
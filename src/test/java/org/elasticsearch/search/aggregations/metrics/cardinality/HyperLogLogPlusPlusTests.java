@@ -21,13 +21,20 @@ package org.elasticsearch.search.aggregations.metrics.cardinality;
 
 import com.carrotsearch.hppc.IntOpenHashSet;
 import com.carrotsearch.hppc.hash.MurmurHash3;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.ElasticsearchTestCase;
 import org.junit.Test;
 
+import java.io.IOException;
+
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class HyperLogLogPlusPlusTests extends ElasticsearchTestCase {
 
@@ -123,6 +130,52 @@ public class HyperLogLogPlusPlusTests extends ElasticsearchTestCase {
         assertEquals(1, counts.cardinality(0));
     }
 
+    @Test
+    public void serialization() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 0);
+        final int numBuckets = randomIntBetween(1, 10);
+        final int numValues = randomIntBetween(0, randomBoolean() ? 100 : 100000);
+        for (int i = 0; i < numValues; ++i) {
+            counts.collect(randomInt(numBuckets - 1), MurmurHash3.hash((long) randomInt()));
+        }
+        for (Version version : new Version[] {Version.V_1_5_0, Version.CURRENT}) {
+            for (long bucket = 0; bucket < numBuckets; ++bucket) {
+                BytesStreamOutput out = new BytesStreamOutput();
+                out.setVersion(version);
+                counts.writeTo(bucket, out);
+                BytesStreamInput in = new BytesStreamInput(out.bytes());
+                in.setVersion(version);
+                HyperLogLogPlusPlus copy = HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+                assertEquals(counts.cardinality(bucket), copy.cardinality(0));
+                // the copy must merge into other counters like the original bucket
+                HyperLogLogPlusPlus merged = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 0);
+                merged.merge(0, copy, 0);
+                assertEquals(counts.cardinality(bucket), merged.cardinality(0));
+            }
+        }
+    }
+
+    @Test
+    public void sparseBucketsMemoryUsage() {
+        final int p = HyperLogLogPlusPlus.DEFAULT_PRECISION;
+        final int numBuckets = 1000;
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 0);
+        for (int bucket = 0; bucket < numBuckets; ++bucket) {
+            for (int i = 0; i < 10; ++i) {
+                counts.collect(bucket, MurmurHash3.hash((long) randomInt()));
+            }
+        }
+        // buckets with few values don't allocate their registers
+        assertThat(counts.ramBytesUsed(), lessThan(numBuckets * HyperLogLogPlusPlus.memoryUsage(p) / 10));
+
+        final long bucket = randomInt(numBuckets - 1);
+        final long cardinality = counts.cardinality(bucket);
+        counts.upgradeToHll(bucket);
+        assertEquals(cardinality, counts.cardinality(bucket));
+        assertThat(counts.ramBytesUsed(), greaterThanOrEqualTo(HyperLogLogPlusPlus.memoryUsage(p)));
+    }
+
     @Test
     public void precisionFromThreshold() {
         assertEquals(4, HyperLogLogPlusPlus.precisionFromThreshold(0));
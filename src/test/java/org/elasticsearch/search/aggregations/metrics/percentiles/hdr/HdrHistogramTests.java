@@ -0,0 +1,172 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.metrics.percentiles.hdr;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.elasticsearch.search.aggregations.metrics.percentiles.hdr.HdrHistogram.MAX_SIGNIFICANT_DIGITS;
+import static org.elasticsearch.search.aggregations.metrics.percentiles.hdr.HdrHistogram.MIN_SIGNIFICANT_DIGITS;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+public class HdrHistogramTests extends ElasticsearchTestCase {
+
+    @Test
+    public void subBucketBits() {
+        for (int digits = MIN_SIGNIFICANT_DIGITS; digits <= MAX_SIGNIFICANT_DIGITS; ++digits) {
+            final int bits = HdrHistogram.subBucketBits(digits);
+            assertTrue((1L << bits) >= Math.pow(10, digits));
+            assertTrue(bits == 0 || (1L << (bits - 1)) < Math.pow(10, digits));
+        }
+    }
+
+    private double[] randomValues(int numValues) {
+        final double[] values = new double[numValues];
+        // spans up to 2^20 between the lowest and highest values
+        final double scale = Math.pow(10, randomIntBetween(-3, 6));
+        for (int i = 0; i < numValues; ++i) {
+            values[i] = randomInt(100) == 0 ? 0 : scale * Math.exp(randomDouble() * 20 * Math.log(2));
+        }
+        return values;
+    }
+
+    private static double quantile(double[] sortedValues, double q) {
+        final int rank = Math.max(1, (int) Math.ceil(q * sortedValues.length));
+        return sortedValues[rank - 1];
+    }
+
+    private void assertQuantiles(HdrHistogram histogram, double[] sortedValues) {
+        final double precision = Math.pow(10, -histogram.significantDigits());
+        assertThat(histogram.count(), equalTo((long) sortedValues.length));
+        assertThat(histogram.quantile(0), equalTo(sortedValues[0]));
+        assertThat(histogram.quantile(1), equalTo(sortedValues[sortedValues.length - 1]));
+        for (double q : new double[] {0.001, 0.01, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, randomDouble()}) {
+            final double expected = quantile(sortedValues, q);
+            assertThat(histogram.quantile(q), closeTo(expected, expected * precision));
+        }
+    }
+
+    @Test
+    public void accuracy() {
+        final int digits = randomIntBetween(MIN_SIGNIFICANT_DIGITS, 3);
+        final double[] values = randomValues(randomIntBetween(1, 10000));
+        HdrHistogram histogram = new HdrHistogram(digits);
+        for (double value : values) {
+            histogram.collect(value);
+        }
+        Arrays.sort(values);
+        assertQuantiles(histogram, values);
+    }
+
+    @Test
+    public void empty() {
+        HdrHistogram histogram = new HdrHistogram(3);
+        assertThat(histogram.count(), equalTo(0L));
+        assertTrue(Double.isNaN(histogram.quantile(0.5)));
+        assertTrue(Double.isNaN(histogram.cdf(1)));
+    }
+
+    @Test
+    public void cdf() {
+        HdrHistogram histogram = new HdrHistogram(2);
+        for (int i = 0; i < 100; ++i) {
+            histogram.collect(i);
+        }
+        assertThat(histogram.cdf(-1), equalTo(0d));
+        assertThat(histogram.cdf(0), equalTo(0.01));
+        assertThat(histogram.cdf(49), equalTo(0.5));
+        assertThat(histogram.cdf(99), equalTo(1d));
+        assertThat(histogram.cdf(1000), equalTo(1d));
+    }
+
+    @Test
+    public void mergeAndSerialize() throws IOException {
+        final int digits = randomIntBetween(MIN_SIGNIFICANT_DIGITS, 3);
+        final double[] values = randomValues(randomIntBetween(1, 10000));
+        final HdrHistogram[] histograms = new HdrHistogram[randomIntBetween(1, 10)];
+        for (int i = 0; i < histograms.length; ++i) {
+            histograms[i] = new HdrHistogram(digits);
+        }
+        for (double value : values) {
+            histograms[randomInt(histograms.length - 1)].collect(value);
+        }
+        HdrHistogram merged = new HdrHistogram(digits);
+        for (HdrHistogram histogram : histograms) {
+            BytesStreamOutput out = new BytesStreamOutput();
+            histogram.writeTo(out);
+            merged.merge(HdrHistogram.readFrom(new BytesStreamInput(out.bytes())));
+        }
+        Arrays.sort(values);
+        assertQuantiles(merged, values);
+    }
+
+    @Test
+    public void wideRange() throws IOException {
+        // the window grows to cover any positive finite value, in both directions
+        final double[] values = new double[] {1, Double.MAX_VALUE, Double.MIN_NORMAL, 0, Math.scalb(1d, 100), Math.scalb(1d, -100)};
+        HdrHistogram histogram = new HdrHistogram(3);
+        for (double value : values) {
+            histogram.collect(value);
+        }
+        Arrays.sort(values);
+        assertQuantiles(histogram, values);
+
+        // so does the window of a merged histogram
+        HdrHistogram merged = new HdrHistogram(3);
+        merged.collect(1);
+        BytesStreamOutput out = new BytesStreamOutput();
+        histogram.writeTo(out);
+        merged.merge(HdrHistogram.readFrom(new BytesStreamInput(out.bytes())));
+        assertThat(merged.count(), equalTo(values.length + 1L));
+        assertThat(merged.quantile(0), equalTo(0d));
+        assertThat(merged.quantile(1), equalTo(Double.MAX_VALUE));
+    }
+
+    @Test
+    public void countsAreAllocatedLazily() {
+        HdrHistogram histogram = new HdrHistogram(MAX_SIGNIFICANT_DIGITS);
+        final long empty = histogram.ramBytesUsed();
+        histogram.collect(0);
+        assertThat(histogram.ramBytesUsed(), equalTo(empty));
+        histogram.collect(1);
+        final long onePage = histogram.ramBytesUsed();
+        assertThat(onePage, greaterThan(empty));
+        // values of the same power of two share their page
+        histogram.collect(1.5);
+        assertThat(histogram.ramBytesUsed(), equalTo(onePage));
+        // a value far away only allocates its own page, not the ones in between
+        histogram.collect(Math.scalb(1d, 1000));
+        assertThat(histogram.ramBytesUsed(), lessThan(3 * onePage));
+    }
+
+    @Test(expected = ElasticsearchIllegalArgumentException.class)
+    public void negativeValue() {
+        new HdrHistogram(3).collect(-1);
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.bucketmetrics.BucketMetricValue;
+import org.elasticsearch.search.aggregations.pipeline.movavg.MovAvgPipelineAggregator;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilders.avgBucket;
+import static org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilders.cumulativeSum;
+import static org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilders.derivative;
+import static org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilders.maxBucket;
+import static org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilders.movingAvg;
+import static org.elasticsearch.search.aggregations.pipeline.PipelineAggregatorBuilders.sumBucket;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ *
+ */
+@ElasticsearchIntegrationTest.SuiteScopeTest
+public class PipelineAggregationTests extends ElasticsearchIntegrationTest {
+
+    private static final String FIELD_NAME = "l_value";
+
+    static int numDocs;
+
+    @Override
+    public void setupSuiteScopeCluster() throws Exception {
+        createIndex("idx");
+        numDocs = randomIntBetween(5, 20);
+
+        // one document per bucket of an interval 1 histogram, the sum of bucket i is i
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("idx", "type").setSource(jsonBuilder()
+                    .startObject()
+                    .field(FIELD_NAME, i)
+                    .endObject()));
+        }
+
+        // documents in buckets 0 and 2, bucket 1 is a gap
+        assertAcked(prepareCreate("empty_bucket_idx").addMapping("type", FIELD_NAME, "type=integer"));
+        for (int i = 0; i < 2; i++) {
+            builders.add(client().prepareIndex("empty_bucket_idx", "type", "" + i).setSource(jsonBuilder()
+                    .startObject()
+                    .field(FIELD_NAME, i * 2)
+                    .endObject()));
+        }
+        indexRandom(true, builders);
+        ensureSearchable();
+    }
+
+    @Test
+    public void parentPipelines() throws Exception {
+        SearchResponse response = client().prepareSearch("idx")
+                .addAggregation(histogram("histo").field(FIELD_NAME).interval(1)
+                        .subAggregation(sum("sum").field(FIELD_NAME))
+                        .subAggregation(derivative("deriv").bucketsPath("sum"))
+                        .subAggregation(cumulativeSum("cumulative_count").bucketsPath("_count"))
+                        .subAggregation(movingAvg("mov_avg").bucketsPath("sum").window(3)))
+                .execute().actionGet();
+
+        assertSearchResponse(response);
+
+        Histogram histo = response.getAggregations().get("histo");
+        assertThat(histo, notNullValue());
+        assertThat(histo.getBuckets().size(), equalTo(numDocs));
+
+        for (int i = 0; i < numDocs; ++i) {
+            Histogram.Bucket bucket = histo.getBucketByKey(i);
+            assertThat(bucket, notNullValue());
+
+            SimpleValue deriv = bucket.getAggregations().get("deriv");
+            if (i == 0) {
+                assertThat(deriv, nullValue());
+            } else {
+                assertThat(deriv, notNullValue());
+                assertThat(deriv.getValue(), equalTo(1d));
+            }
+
+            SimpleValue cumulativeCount = bucket.getAggregations().get("cumulative_count");
+            assertThat(cumulativeCount, notNullValue());
+            assertThat(cumulativeCount.getValue(), equalTo((double) i + 1));
+
+            SimpleValue movAvg = bucket.getAggregations().get("mov_avg");
+            assertThat(movAvg, notNullValue());
+            int first = Math.max(0, i - 2);
+            double expected = 0;
+            for (int j = first; j <= i; j++) {
+                expected += j;
+            }
+            expected /= i - first + 1;
+            assertThat(movAvg.getValue(), closeTo(expected, 0.000001));
+        }
+    }
+
+    @Test
+    public void movingAvgModels() throws Exception {
+        for (MovAvgPipelineAggregator.Model model : MovAvgPipelineAggregator.Model.values()) {
+            SearchResponse response = client().prepareSearch("idx")
+                    .addAggregation(histogram("histo").field(FIELD_NAME).interval(1)
+                            .subAggregation(sum("sum").field(FIELD_NAME))
+                            .subAggregation(movingAvg("mov_avg").bucketsPath("sum").window(1).model(model)))
+                    .execute().actionGet();
+
+            assertSearchResponse(response);
+
+            // a window of one bucket averages to the value of the bucket, whatever the model
+            Histogram histo = response.getAggregations().get("histo");
+            for (Histogram.Bucket bucket : histo.getBuckets()) {
+                SimpleValue movAvg = bucket.getAggregations().get("mov_avg");
+                assertThat(movAvg.getValue(), closeTo(bucket.getKeyAsNumber().doubleValue(), 0.000001));
+            }
+        }
+    }
+
+    @Test
+    public void siblingPipelines() throws Exception {
+        SearchResponse response = client().prepareSearch("idx")
+                .addAggregation(histogram("histo").field(FIELD_NAME).interval(1)
+                        .subAggregation(sum("sum").field(FIELD_NAME)))
+                .addAggregation(maxBucket("max_sum").bucketsPath("histo>sum"))
+                .addAggregation(sumBucket("sum_sum").bucketsPath("histo>sum"))
+                .addAggregation(avgBucket("avg_count").bucketsPath("histo>_count"))
+                .execute().actionGet();
+
+        assertSearchResponse(response);
+
+        BucketMetricValue maxSum = response.getAggregations().get("max_sum");
+        assertThat(maxSum, notNullValue());
+        assertThat(maxSum.getValue(), equalTo((double) numDocs - 1));
+        assertThat(maxSum.keys(), arrayContaining(String.valueOf(numDocs - 1)));
+
+        SimpleValue sumSum = response.getAggregations().get("sum_sum");
+        assertThat(sumSum, notNullValue());
+        assertThat(sumSum.getValue(), equalTo((double) numDocs * (numDocs - 1) / 2));
+
+        SimpleValue avgCount = response.getAggregations().get("avg_count");
+        assertThat(avgCount, notNullValue());
+        assertThat(avgCount.getValue(), equalTo(1d));
+    }
+
+    @Test
+    public void gapPolicy() throws Exception {
+        for (GapPolicy gapPolicy : GapPolicy.values()) {
+            SearchResponse response = client().prepareSearch("empty_bucket_idx")
+                    .addAggregation(histogram("histo").field(FIELD_NAME).interval(1).minDocCount(0)
+                            .subAggregation(sum("sum").field(FIELD_NAME))
+                            .subAggregation(derivative("deriv").bucketsPath("sum").gapPolicy(gapPolicy)))
+                    .execute().actionGet();
+
+            assertSearchResponse(response);
+
+            Histogram histo = response.getAggregations().get("histo");
+            assertThat(histo.getBuckets().size(), equalTo(3));
+
+            SimpleValue deriv = histo.getBucketByKey(1).getAggregations().get("deriv");
+            if (gapPolicy == GapPolicy.SKIP) {
+                assertThat(deriv, nullValue());
+            } else {
+                assertThat(deriv, notNullValue());
+                assertThat(deriv.getValue(), equalTo(0d));
+            }
+            deriv = histo.getBucketByKey(2).getAggregations().get("deriv");
+            assertThat(deriv, notNullValue());
+            assertThat(deriv.getValue(), equalTo(2d));
+        }
+    }
+
+    @Test
+    public void parentPipelineRequiresHistogram() throws Exception {
+        try {
+            client().prepareSearch("idx")
+                    .addAggregation(sum("sum").field(FIELD_NAME))
+                    .addAggregation(derivative("deriv").bucketsPath("sum"))
+                    .execute().actionGet();
+            fail("derivative must be defined under a histogram");
+        } catch (SearchPhaseExecutionException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void unknownBucketsPath() throws Exception {
+        try {
+            client().prepareSearch("idx")
+                    .addAggregation(histogram("histo").field(FIELD_NAME).interval(1)
+                            .subAggregation(derivative("deriv").bucketsPath("missing")))
+                    .execute().actionGet();
+            fail("buckets_path must point to a sibling aggregation");
+        } catch (SearchPhaseExecutionException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.basic;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.histogram;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.max;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Checks that reducing the shard results in batches gives the same response as reducing them all at once.
+ */
+public class SearchBatchedReduceTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testBatchedReduce() throws Exception {
+        int numShards = randomIntBetween(4, 10);
+        assertAcked(prepareCreate("test").setSettings(settingsBuilder()
+                .put(SETTING_NUMBER_OF_SHARDS, numShards)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)));
+        int numDocs = randomIntBetween(numShards * 5, 200);
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numDocs; i++) {
+            builders.add(client().prepareIndex("test", "type", Integer.toString(i)).setSource(jsonBuilder().startObject()
+                    .field("value", i)
+                    .field("term", "t" + (i % 7))
+                    .endObject()));
+        }
+        indexRandom(true, builders);
+
+        int from = randomIntBetween(0, 10);
+        int size = randomIntBetween(1, 20);
+        SearchResponse expected = search(SearchRequest.DEFAULT_BATCHED_REDUCE_SIZE, from, size);
+        SearchResponse batched = search(randomIntBetween(2, numShards - 1), from, size);
+        assertSearchResponse(expected);
+        assertSearchResponse(batched);
+        assertThat(expected.getNumReducePhases(), equalTo(1));
+        assertThat(batched.getNumReducePhases(), greaterThan(1));
+
+        assertThat(batched.getHits().getTotalHits(), equalTo(expected.getHits().getTotalHits()));
+        assertThat(batched.getHits().getHits().length, equalTo(expected.getHits().getHits().length));
+        for (int i = 0; i < expected.getHits().getHits().length; i++) {
+            assertThat(batched.getHits().getAt(i).getId(), equalTo(expected.getHits().getAt(i).getId()));
+        }
+
+        Terms expectedTerms = expected.getAggregations().get("terms");
+        Terms batchedTerms = batched.getAggregations().get("terms");
+        assertThat(batchedTerms.getBuckets().size(), equalTo(expectedTerms.getBuckets().size()));
+        assertThat(batchedTerms.getDocCountError(), equalTo(expectedTerms.getDocCountError()));
+        assertThat(batchedTerms.getSumOfOtherDocCounts(), equalTo(expectedTerms.getSumOfOtherDocCounts()));
+        for (Terms.Bucket bucket : expectedTerms.getBuckets()) {
+            Terms.Bucket batchedBucket = batchedTerms.getBucketByKey(bucket.getKey());
+            assertThat(batchedBucket.getDocCount(), equalTo(bucket.getDocCount()));
+            assertThat(batchedBucket.getDocCountError(), equalTo(bucket.getDocCountError()));
+            assertThat(((Max) batchedBucket.getAggregations().get("max")).getValue(),
+                    equalTo(((Max) bucket.getAggregations().get("max")).getValue()));
+        }
+
+        Histogram expectedHistogram = expected.getAggregations().get("histo");
+        Histogram batchedHistogram = batched.getAggregations().get("histo");
+        assertThat(batchedHistogram.getBuckets().size(), equalTo(expectedHistogram.getBuckets().size()));
+        for (int i = 0; i < expectedHistogram.getBuckets().size(); i++) {
+            Histogram.Bucket bucket = expectedHistogram.getBuckets().get(i);
+            Histogram.Bucket batchedBucket = batchedHistogram.getBuckets().get(i);
+            assertThat(batchedBucket.getKey(), equalTo(bucket.getKey()));
+            assertThat(batchedBucket.getDocCount(), equalTo(bucket.getDocCount()));
+        }
+    }
+
+    private SearchResponse search(int batchedReduceSize, int from, int size) {
+        return client().prepareSearch("test")
+                .setQuery(matchAllQuery())
+                .setBatchedReduceSize(batchedReduceSize)
+                .setFrom(from)
+                .setSize(size)
+                .addSort("value", SortOrder.DESC)
+                .addAggregation(terms("terms").field("term").size(3).shardSize(3).showTermDocCountError(true).subAggregation(max("max").field("value")))
+                .addAggregation(histogram("histo").field("value").interval(10).minDocCount(2))
+                .get();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.basic;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.aggregations.bucket.global.Global;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.index.query.FilterBuilders.rangeFilter;
+import static org.elasticsearch.index.query.QueryBuilders.filteredQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.global;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Checks that skipping the shards that can't match a request gives the same response as searching all of them.
+ */
+public class SearchPreFilterTests extends ElasticsearchIntegrationTest {
+
+    private static final int DOCS_PER_INDEX = 20;
+
+    @Test
+    public void testPreFilter() throws Exception {
+        int numIndices = randomIntBetween(3, 6);
+        List<IndexRequestBuilder> builders = new ArrayList<>();
+        for (int i = 0; i < numIndices; i++) {
+            // every index holds its own range of values
+            assertAcked(prepareCreate("test" + i).setSettings(settingsBuilder()
+                    .put(SETTING_NUMBER_OF_SHARDS, randomIntBetween(1, 3))
+                    .put(SETTING_NUMBER_OF_REPLICAS, 0)));
+            for (int j = 0; j < DOCS_PER_INDEX; j++) {
+                int value = i * DOCS_PER_INDEX + j;
+                builders.add(client().prepareIndex("test" + i, "type", Integer.toString(value)).setSource(jsonBuilder().startObject()
+                        .field("value", value)
+                        .endObject()));
+            }
+        }
+        indexRandom(true, builders);
+
+        int from = randomIntBetween(0, numIndices * DOCS_PER_INDEX - 1);
+        int to = randomIntBetween(from, numIndices * DOCS_PER_INDEX - 1);
+        assertSameResponse(rangeQuery("value").from(from).to(to), to - from + 1);
+        assertSameResponse(filteredQuery(matchAllQuery(), rangeFilter("value").gt(from).lte(to)), to - from);
+        // nothing matches, but the response still has the shape of a regular one
+        assertSameResponse(rangeQuery("value").gte(numIndices * DOCS_PER_INDEX), 0);
+
+        // a global aggregation visits all the documents of every shard
+        SearchResponse response = client().prepareSearch("test*")
+                .setQuery(rangeQuery("value").lt(0))
+                .setPreFilterShardSize(1)
+                .addAggregation(global("global"))
+                .get();
+        assertSearchResponse(response);
+        assertHitCount(response, 0);
+        Global global = response.getAggregations().get("global");
+        assertThat(global.getDocCount(), equalTo((long) numIndices * DOCS_PER_INDEX));
+    }
+
+    private void assertSameResponse(QueryBuilder query, long expectedHits) {
+        SearchResponse expected = search(query, Integer.MAX_VALUE);
+        SearchResponse preFiltered = search(query, 1);
+        assertSearchResponse(expected);
+        assertSearchResponse(preFiltered);
+        assertHitCount(expected, expectedHits);
+        assertHitCount(preFiltered, expectedHits);
+        assertThat(preFiltered.getTotalShards(), equalTo(expected.getTotalShards()));
+        assertThat(preFiltered.getSuccessfulShards(), equalTo(preFiltered.getTotalShards()));
+        assertThat(preFiltered.getHits().getHits().length, equalTo(expected.getHits().getHits().length));
+        for (int i = 0; i < expected.getHits().getHits().length; i++) {
+            assertThat(preFiltered.getHits().getAt(i).getId(), equalTo(expected.getHits().getAt(i).getId()));
+        }
+    }
+
+    private SearchResponse search(QueryBuilder query, int preFilterShardSize) {
+        return client().prepareSearch("test*")
+                .setQuery(query)
+                .setPreFilterShardSize(preFilterShardSize)
+                .setSize(DOCS_PER_INDEX)
+                .addSort("value", SortOrder.ASC)
+                .get();
+    }
+}
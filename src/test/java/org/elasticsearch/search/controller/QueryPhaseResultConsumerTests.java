@@ -0,0 +1,137 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.controller;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.search.query.QuerySearchResultProvider;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class QueryPhaseResultConsumerTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testTiesAreBrokenByShardIndex() throws IOException {
+        final int numShards = randomIntBetween(5, 20);
+        final int from = randomIntBetween(0, 5);
+        final int size = randomIntBetween(1, 20);
+        // few distinct scores, so that many hits tie
+        final float[][] scores = new float[numShards][];
+        for (int shard = 0; shard < numShards; shard++) {
+            scores[shard] = new float[randomIntBetween(0, from + size)];
+            float score = 5;
+            for (int i = 0; i < scores[shard].length; i++) {
+                if (randomInt(3) == 0) {
+                    score--;
+                }
+                scores[shard][i] = score;
+            }
+        }
+        SearchPhaseController controller = new SearchPhaseController(ImmutableSettings.EMPTY, BigArrays.NON_RECYCLING_INSTANCE, null);
+
+        AtomicArray<QuerySearchResultProvider> expectedResults = new AtomicArray<>(numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            expectedResults.set(shard, newResult(shard, scores[shard], from, size));
+        }
+        ScoreDoc[] expected = controller.sortDocs(false, expectedResults);
+
+        QueryPhaseResultConsumer consumer = new QueryPhaseResultConsumer(controller, randomIntBetween(2, 4));
+        AtomicArray<QuerySearchResultProvider> results = new AtomicArray<>(numShards);
+        List<Integer> arrivalOrder = new ArrayList<>();
+        for (int shard = 0; shard < numShards; shard++) {
+            arrivalOrder.add(shard);
+        }
+        Collections.shuffle(arrivalOrder, getRandom());
+        for (int shard : arrivalOrder) {
+            QuerySearchResult result = newResult(shard, scores[shard], from, size);
+            results.set(shard, result);
+            consumer.consumeResult(shard, result);
+        }
+        assertThat(consumer.getNumReducePhases(), greaterThan(0));
+        ScoreDoc[] actual = consumer.sortDocs(false, results);
+
+        assertThat(actual.length, equalTo(expected.length));
+        for (int i = 0; i < expected.length; i++) {
+            assertThat(actual[i].shardIndex, equalTo(expected[i].shardIndex));
+            assertThat(actual[i].doc, equalTo(expected[i].doc));
+            assertThat(actual[i].score, equalTo(expected[i].score));
+        }
+    }
+
+    @Test
+    public void testPartialReduceFailureFailsTheFinalReduce() throws IOException {
+        SearchPhaseController controller = new SearchPhaseController(ImmutableSettings.EMPTY, BigArrays.NON_RECYCLING_INSTANCE, null) {
+            @Override
+            InternalAggregations reduceAggregations(List<InternalAggregations> aggregationsList, boolean finalReduce) {
+                throw new ElasticsearchException("reduce failed");
+            }
+        };
+        final int numShards = randomIntBetween(3, 10);
+        QueryPhaseResultConsumer consumer = new QueryPhaseResultConsumer(controller, 2);
+        AtomicArray<QuerySearchResultProvider> results = new AtomicArray<>(numShards);
+        for (int shard = 0; shard < numShards; shard++) {
+            QuerySearchResult result = newResult(shard, new float[] {1}, 0, 10);
+            result.aggregations(InternalAggregations.EMPTY);
+            results.set(shard, result);
+            // the shard succeeded, the failed partial reduce must not make it count as failed
+            consumer.consumeResult(shard, result);
+        }
+        assertThat(consumer.getNumReducePhases(), equalTo(0));
+
+        try {
+            consumer.sortDocs(false, results);
+            fail("expected the partial reduce failure");
+        } catch (ElasticsearchException e) {
+            assertThat(e.getMessage(), equalTo("reduce failed"));
+        }
+        try {
+            consumer.reduceAggregations();
+            fail("expected the partial reduce failure");
+        } catch (ElasticsearchException e) {
+            assertThat(e.getMessage(), equalTo("reduce failed"));
+        }
+    }
+
+    private static QuerySearchResult newResult(int shardIndex, float[] scores, int from, int size) {
+        QuerySearchResult result = new QuerySearchResult(shardIndex, new SearchShardTarget("node", "index", shardIndex));
+        ScoreDoc[] scoreDocs = new ScoreDoc[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            scoreDocs[i] = new ScoreDoc(i, scores[i]);
+        }
+        result.topDocs(new TopDocs(scores.length, scoreDocs, scores.length == 0 ? Float.NaN : scores[0]));
+        result.from(from).size(size);
+        return result;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.profile;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.*;
+
+public class ProfileTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testNotProfiledByDefault() throws Exception {
+        createIndex("test");
+        indexRandom(true, client().prepareIndex("test", "type", "1").setSource("field", "value"));
+
+        SearchResponse response = client().prepareSearch("test").setQuery(termQuery("field", "value")).get();
+        assertSearchResponse(response);
+        assertThat(response.getProfileResults(), nullValue());
+    }
+
+    @Test
+    public void testProfileQueryCollectorsAndAggregations() throws Exception {
+        createIndex("test");
+        indexRandom(true,
+                client().prepareIndex("test", "type", "1").setSource("field", "foo"),
+                client().prepareIndex("test", "type", "2").setSource("field", "bar"),
+                client().prepareIndex("test", "type", "3").setSource("field", "baz"));
+
+        SearchResponse response = client().prepareSearch("test")
+                .setSearchType(randomFrom(SearchType.QUERY_THEN_FETCH, SearchType.DFS_QUERY_THEN_FETCH, SearchType.QUERY_AND_FETCH))
+                .setQuery(boolQuery().should(termQuery("field", "foo")).should(termQuery("field", "bar")))
+                .addAggregation(terms("values").field("field"))
+                .setProfile(true)
+                .get();
+        assertSearchResponse(response);
+        assertHitCount(response, 2);
+
+        Map<String, ProfileShardResult> profileResults = response.getProfileResults();
+        assertThat(profileResults, notNullValue());
+        assertThat(profileResults.size(), equalTo(response.getSuccessfulShards()));
+        for (ProfileShardResult shardResult : profileResults.values()) {
+            assertThat(shardResult.getQueryResults().size(), equalTo(1));
+            ProfileResult query = shardResult.getQueryResults().get(0);
+            assertThat(query.getType(), equalTo("BooleanQuery"));
+            assertThat(query.getTimeBreakdown().get("create_weight_count"), equalTo(1l));
+            assertThat(query.getChildren().size(), equalTo(2));
+            for (ProfileResult child : query.getChildren()) {
+                assertThat(child.getType(), equalTo("TermQuery"));
+                assertThat(child.getTimeBreakdown().get("create_weight_count"), equalTo(1l));
+            }
+
+            assertThat(shardResult.getCollectorResults().size(), equalTo(2));
+            assertThat(shardResult.getCollectorResults().get(0).getDescription(), equalTo("main_collector"));
+            assertThat(shardResult.getCollectorResults().get(1).getDescription(), equalTo("query_collector"));
+
+            assertThat(shardResult.getAggregationResults().size(), equalTo(1));
+            ProfileResult aggregation = shardResult.getAggregationResults().get(0);
+            assertThat(aggregation.getDescription(), equalTo("values"));
+            assertThat(aggregation.getTimeBreakdown().get("build_aggregation_count"), equalTo(1l));
+        }
+    }
+
+    @Test
+    public void testProfileCount() throws Exception {
+        createIndex("test");
+        indexRandom(true,
+                client().prepareIndex("test", "type", "1").setSource("field", "foo"),
+                client().prepareIndex("test", "type", "2").setSource("field", "bar"));
+
+        SearchResponse response = client().prepareSearch("test")
+                .setSearchType(SearchType.COUNT)
+                .setQuery(termQuery("field", "foo"))
+                .setProfile(true)
+                .get();
+        assertSearchResponse(response);
+        assertHitCount(response, 1);
+
+        Map<String, ProfileShardResult> profileResults = response.getProfileResults();
+        assertThat(profileResults, notNullValue());
+        long nextDocCount = 0;
+        for (ProfileShardResult shardResult : profileResults.values()) {
+            ProfileResult query = shardResult.getQueryResults().get(0);
+            assertThat(query.getType(), equalTo("TermQuery"));
+            nextDocCount += query.getTimeBreakdown().get("next_doc_count");
+            assertThat(shardResult.getCollectorResults().get(0).getType(), equalTo("TotalHitCountCollector"));
+            assertThat(shardResult.getAggregationResults(), empty());
+        }
+        // one call for the matching document, and one per shard that has a scorer for the exhausted iterator
+        assertThat(nextDocCount, greaterThanOrEqualTo(2l));
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.index.merge.policy.MergePolicyModule;
+import org.elasticsearch.index.query.FilterBuilders;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
+import org.elasticsearch.search.aggregations.bucket.global.Global;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.sum.Sum;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.test.index.merge.NoMergePolicyProvider;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.global;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class ConcurrentSegmentSearchTests extends ElasticsearchIntegrationTest {
+
+    private int indexSegments() throws Exception {
+        assertAcked(prepareCreate("test")
+                .setSettings(ImmutableSettings.builder()
+                        .put(SETTING_NUMBER_OF_SHARDS, 1)
+                        .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                        .put(MergePolicyModule.MERGE_POLICY_TYPE_KEY, NoMergePolicyProvider.class))
+                .addMapping("type", "value", "type=long", "tag", "type=string,index=not_analyzed", "body", "type=string"));
+        int numSegments = randomIntBetween(2, 8);
+        int numDocs = 0;
+        for (int i = 0; i < numSegments; i++) {
+            List<IndexRequestBuilder> builders = new ArrayList<>();
+            int segmentDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < segmentDocs; j++) {
+                builders.add(client().prepareIndex("test", "type", Integer.toString(numDocs)).setSource(
+                        "value", numDocs, "tag", "tag" + (numDocs % 5), "body", randomFrom("foo", "foo bar", "foo bar baz")));
+                numDocs++;
+            }
+            indexRandom(false, false, builders);
+            refresh();
+        }
+        return numDocs;
+    }
+
+    private SearchRequestBuilder prepareSearch(int maxConcurrentSlices) {
+        SearchRequestBuilder builder = client().prepareSearch("test");
+        if (maxConcurrentSlices > 1) {
+            builder.setMaxConcurrentSlices(maxConcurrentSlices);
+        }
+        return builder;
+    }
+
+    @Test
+    public void testSortedHits() throws Exception {
+        int numDocs = indexSegments();
+        int size = randomIntBetween(1, numDocs);
+        SearchResponse sequential = prepareSearch(1).setQuery(QueryBuilders.matchQuery("body", "bar"))
+                .addSort("value", SortOrder.DESC).setSize(size).get();
+        SearchResponse concurrent = prepareSearch(randomIntBetween(2, 10)).setQuery(QueryBuilders.matchQuery("body", "bar"))
+                .addSort("value", SortOrder.DESC).setSize(size).get();
+        assertSearchResponse(sequential);
+        assertSearchResponse(concurrent);
+        assertHitCount(concurrent, sequential.getHits().totalHits());
+        assertThat(concurrent.getHits().hits().length, equalTo(sequential.getHits().hits().length));
+        for (int i = 0; i < sequential.getHits().hits().length; i++) {
+            assertThat(concurrent.getHits().getAt(i).id(), equalTo(sequential.getHits().getAt(i).id()));
+        }
+    }
+
+    @Test
+    public void testScoredHits() throws Exception {
+        int numDocs = indexSegments();
+        SearchResponse sequential = prepareSearch(1).setQuery(QueryBuilders.matchQuery("body", "baz")).setSize(numDocs).get();
+        SearchResponse concurrent = prepareSearch(randomIntBetween(2, 10)).setQuery(QueryBuilders.matchQuery("body", "baz"))
+                .setSize(numDocs).get();
+        assertSearchResponse(sequential);
+        assertSearchResponse(concurrent);
+        assertHitCount(concurrent, sequential.getHits().totalHits());
+        assertThat(concurrent.getHits().maxScore(), equalTo(sequential.getHits().maxScore()));
+        for (int i = 0; i < sequential.getHits().hits().length; i++) {
+            assertThat(concurrent.getHits().getAt(i).score(), equalTo(sequential.getHits().getAt(i).score()));
+        }
+    }
+
+    @Test
+    public void testFunctionScoreAndScripts() throws Exception {
+        int numDocs = indexSegments();
+        // score functions and scripts keep the state of the segment they score, they must give the same hits as a
+        // sequential search when concurrent slices are requested
+        List<QueryBuilder> queries = new ArrayList<>();
+        queries.add(QueryBuilders.functionScoreQuery(QueryBuilders.matchQuery("body", "foo"))
+                .add(ScoreFunctionBuilders.fieldValueFactorFunction("value").factor(2)));
+        queries.add(QueryBuilders.functionScoreQuery(QueryBuilders.matchQuery("body", "foo"))
+                .add(ScoreFunctionBuilders.scriptFunction("doc['value'].value")));
+        queries.add(QueryBuilders.filteredQuery(QueryBuilders.matchQuery("body", "foo"),
+                FilterBuilders.scriptFilter("doc['value'].value % 3 == 0")));
+        for (QueryBuilder query : queries) {
+            SearchResponse sequential = prepareSearch(1).setQuery(query).setSize(numDocs).get();
+            SearchResponse concurrent = prepareSearch(randomIntBetween(2, 10)).setQuery(query).setSize(numDocs).get();
+            assertSearchResponse(sequential);
+            assertSearchResponse(concurrent);
+            assertHitCount(concurrent, sequential.getHits().totalHits());
+            assertThat(concurrent.getHits().hits().length, equalTo(sequential.getHits().hits().length));
+            for (int i = 0; i < sequential.getHits().hits().length; i++) {
+                assertThat(concurrent.getHits().getAt(i).id(), equalTo(sequential.getHits().getAt(i).id()));
+                assertThat(concurrent.getHits().getAt(i).score(), equalTo(sequential.getHits().getAt(i).score()));
+            }
+        }
+    }
+
+    @Test
+    public void testCount() throws Exception {
+        int numDocs = indexSegments();
+        SearchResponse concurrent = prepareSearch(randomIntBetween(2, 10)).setSearchType(SearchType.COUNT)
+                .setQuery(QueryBuilders.matchAllQuery()).get();
+        assertSearchResponse(concurrent);
+        assertHitCount(concurrent, numDocs);
+    }
+
+    @Test
+    public void testAggregations() throws Exception {
+        indexSegments();
+        SearchResponse sequential = prepareSearch(1).setQuery(QueryBuilders.matchQuery("body", "bar"))
+                .addAggregation(terms("tags").field("tag").subAggregation(sum("sum").field("value")))
+                .addAggregation(global("global").subAggregation(sum("sum").field("value")))
+                .get();
+        SearchResponse concurrent = prepareSearch(randomIntBetween(2, 10)).setQuery(QueryBuilders.matchQuery("body", "bar"))
+                .addAggregation(terms("tags").field("tag").subAggregation(sum("sum").field("value")))
+                .addAggregation(global("global").subAggregation(sum("sum").field("value")))
+                .get();
+        assertSearchResponse(sequential);
+        assertSearchResponse(concurrent);
+
+        Terms sequentialTags = sequential.getAggregations().get("tags");
+        Terms concurrentTags = concurrent.getAggregations().get("tags");
+        assertThat(concurrentTags.getBuckets().size(), equalTo(sequentialTags.getBuckets().size()));
+        for (Terms.Bucket bucket : sequentialTags.getBuckets()) {
+            Terms.Bucket concurrentBucket = concurrentTags.getBucketByKey(bucket.getKey());
+            assertThat(concurrentBucket, notNullValue());
+            assertThat(concurrentBucket.getDocCount(), equalTo(bucket.getDocCount()));
+            Sum sequentialSum = bucket.getAggregations().get("sum");
+            Sum concurrentSum = concurrentBucket.getAggregations().get("sum");
+            assertThat(concurrentSum.getValue(), equalTo(sequentialSum.getValue()));
+        }
+
+        Global sequentialGlobal = sequential.getAggregations().get("global");
+        Global concurrentGlobal = concurrent.getAggregations().get("global");
+        assertThat(concurrentGlobal.getDocCount(), equalTo(sequentialGlobal.getDocCount()));
+    }
+
+    @Test
+    public void testTermsDocCountError() throws Exception {
+        indexSegments();
+        // a single shard returns the exact counts of all the tags when the shard size covers them
+        SearchResponse exact = prepareSearch(1).setQuery(QueryBuilders.matchAllQuery())
+                .addAggregation(terms("tags").field("tag").size(5).shardSize(5))
+                .get();
+        // each slice only returns its top tags, so the reduced slices are as approximate as reduced shards
+        SearchResponse concurrent = prepareSearch(randomIntBetween(2, 10)).setQuery(QueryBuilders.matchAllQuery())
+                .addAggregation(terms("tags").field("tag").size(2).shardSize(2).showTermDocCountError(true))
+                .get();
+        assertSearchResponse(exact);
+        assertSearchResponse(concurrent);
+
+        Terms exactTags = exact.getAggregations().get("tags");
+        Terms concurrentTags = concurrent.getAggregations().get("tags");
+        assertThat(concurrentTags.getDocCountError(), greaterThanOrEqualTo(0l));
+        for (Terms.Bucket bucket : concurrentTags.getBuckets()) {
+            long exactDocCount = exactTags.getBucketByKey(bucket.getKey()).getDocCount();
+            assertThat(bucket.getDocCountError(), greaterThanOrEqualTo(0l));
+            assertThat(bucket.getDocCountError(), lessThanOrEqualTo(concurrentTags.getDocCountError()));
+            assertThat(bucket.getDocCount(), lessThanOrEqualTo(exactDocCount));
+            assertThat(bucket.getDocCount() + bucket.getDocCountError(), greaterThanOrEqualTo(exactDocCount));
+        }
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.scroll;
+
+import com.google.common.base.Charsets;
+import org.apache.http.impl.client.HttpClients;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionModule;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchScrollAction;
+import org.elasticsearch.action.support.ActionFilter;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.transport.InetSocketTransportAddress;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.http.HttpServerTransport;
+import org.elasticsearch.node.internal.InternalNode;
+import org.elasticsearch.plugins.AbstractPlugin;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.test.rest.client.http.HttpRequestBuilder;
+import org.elasticsearch.test.rest.client.http.HttpResponse;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
+import static org.elasticsearch.test.ElasticsearchIntegrationTest.Scope;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+@ClusterScope(scope = Scope.SUITE)
+public class SearchExportTests extends ElasticsearchIntegrationTest {
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.settingsBuilder()
+                .put(super.nodeSettings(nodeOrdinal))
+                .put(InternalNode.HTTP_ENABLED, true)
+                // a small send buffer, so that a client that doesn't read quickly makes the channel unwritable
+                .put("http.netty.tcp_send_buffer_size", "4kb")
+                .put("plugin.types", ScrollCountingPlugin.class.getName())
+                .build();
+    }
+
+    @Test
+    public void testExportAllDocuments() throws Exception {
+        createIndex("test");
+        int numDocs = scaledRandomIntBetween(100, 1000);
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            builders[i] = client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i, "even", i % 2 == 0);
+        }
+        indexRandom(true, builders);
+
+        HttpResponse response = httpClient().method("GET").path("/test/_search/export")
+                .addParam("size", Integer.toString(randomIntBetween(1, 50)))
+                .execute();
+        assertThat(response.getStatusCode(), equalTo(200));
+        assertThat(exportedIds(response, numDocs), hasSize(numDocs));
+    }
+
+    @Test
+    public void testExportMatchingDocuments() throws Exception {
+        createIndex("test");
+        int numDocs = scaledRandomIntBetween(100, 1000);
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            builders[i] = client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i, "even", i % 2 == 0);
+        }
+        indexRandom(true, builders);
+
+        String query = jsonBuilder().startObject().startObject("query").startObject("term").field("even", true).endObject().endObject().endObject().string();
+        HttpResponse response = httpClient().method("POST").path("/test/_search/export")
+                .addParam("size", Integer.toString(randomIntBetween(1, 50)))
+                .body(query)
+                .execute();
+        assertThat(response.getStatusCode(), equalTo(200));
+        Set<String> ids = exportedIds(response, (numDocs + 1) / 2);
+        assertThat(ids, hasSize((numDocs + 1) / 2));
+        for (String id : ids) {
+            assertThat(Integer.parseInt(id) % 2, equalTo(0));
+        }
+    }
+
+    @Test
+    public void testSlowClientHoldsBackTheExport() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)));
+        int numDocs = scaledRandomIntBetween(100, 200);
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            // each batch of hits is much larger than the socket buffers
+            builders[i] = client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", randomAsciiOfLength(20000));
+        }
+        indexRandom(true, builders);
+
+        HttpServerTransport httpServerTransport = internalCluster().getDataNodeInstance(HttpServerTransport.class);
+        InetSocketAddress address = ((InetSocketTransportAddress) httpServerTransport.boundAddress().publishAddress()).address();
+        ScrollCountingFilter.SCROLLS.set(0);
+        try (Socket socket = new Socket()) {
+            socket.setReceiveBufferSize(4096);
+            socket.connect(address);
+            OutputStream out = socket.getOutputStream();
+            out.write("GET /test/_search/export?size=1 HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n\r\n".getBytes(Charsets.UTF_8));
+            out.flush();
+
+            // the client doesn't read, so the export stops asking for more hits once the channel is full
+            int scrolls = 0;
+            for (int i = 0; i < 30; i++) {
+                Thread.sleep(1000);
+                int current = ScrollCountingFilter.SCROLLS.get();
+                if (current > 0 && current == scrolls) {
+                    break;
+                }
+                scrolls = current;
+            }
+            assertThat(scrolls, greaterThan(0));
+            assertThat(scrolls, lessThan(numDocs / 2));
+
+            // reading the response lets the export go on until all the hits were sent
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            assertThat(readLine(in), containsString(" 200 "));
+            while (readLine(in).isEmpty() == false) {
+                // skip the headers
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            for (int size = Integer.parseInt(readLine(in), 16); size > 0; size = Integer.parseInt(readLine(in), 16)) {
+                byte[] chunk = new byte[size];
+                in.readFully(chunk);
+                body.write(chunk);
+                readLine(in);
+            }
+            assertThat(body.toString("UTF-8").split("\n").length, equalTo(numDocs));
+            // one scroll request per batch, and one reading the empty last batch
+            assertThat(ScrollCountingFilter.SCROLLS.get(), equalTo(numDocs + 1));
+        }
+    }
+
+    @Test
+    public void testFailedShardsFailTheExport() throws Exception {
+        assertAcked(prepareCreate("test1").addMapping("type", "field", "type=long"));
+        assertAcked(prepareCreate("test2").addMapping("type", "field", "type=string"));
+        indexRandom(true, client().prepareIndex("test1", "type", "1").setSource("field", 1),
+                client().prepareIndex("test2", "type", "1").setSource("field", "foo"));
+
+        // the term can't be parsed on the shards of test1
+        String query = jsonBuilder().startObject().startObject("query").startObject("term").field("field", "foo").endObject().endObject().endObject().string();
+        HttpResponse response = httpClient().method("POST").path("/test1,test2/_search/export")
+                .body(query)
+                .execute();
+        assertThat(response.getStatusCode(), equalTo(RestStatus.BAD_REQUEST.getStatus()));
+        assertThat(response.getBody(), containsString("shards failed"));
+    }
+
+    private static String readLine(DataInputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private static Set<String> exportedIds(HttpResponse response, int expectedLines) {
+        String[] lines = response.getBody().split("\n");
+        assertThat(lines.length, equalTo(expectedLines));
+        Set<String> ids = new HashSet<>();
+        for (String line : lines) {
+            Map<String, Object> hit = XContentHelper.convertToMap(line.getBytes(Charsets.UTF_8), false).v2();
+            assertThat(hit.get("_index"), equalTo((Object) "test"));
+            assertThat(hit.get("_source"), notNullValue());
+            assertThat("hit exported twice " + line, ids.add((String) hit.get("_id")), is(true));
+        }
+        return ids;
+    }
+
+    private static HttpRequestBuilder httpClient() {
+        return new HttpRequestBuilder(HttpClients.createDefault()).httpTransport(internalCluster().getDataNodeInstance(HttpServerTransport.class));
+    }
+
+    public static class ScrollCountingPlugin extends AbstractPlugin {
+
+        @Override
+        public String name() {
+            return "test-plugin-scroll-counting";
+        }
+
+        @Override
+        public String description() {
+            return "Counts the scroll requests of the search exports";
+        }
+
+        public void onModule(ActionModule actionModule) {
+            actionModule.registerFilter(ScrollCountingFilter.class);
+        }
+    }
+
+    public static class ScrollCountingFilter extends ActionFilter.Simple {
+
+        static final AtomicInteger SCROLLS = new AtomicInteger();
+
+        @Inject
+        public ScrollCountingFilter(Settings settings) {
+            super(settings);
+        }
+
+        @Override
+        public int order() {
+            return 0;
+        }
+
+        @Override
+        protected boolean apply(String action, ActionRequest request, ActionListener listener) {
+            if (SearchScrollAction.NAME.equals(action)) {
+                SCROLLS.incrementAndGet();
+            }
+            return true;
+        }
+
+        @Override
+        protected boolean apply(String action, ActionResponse response, ActionListener listener) {
+            return true;
+        }
+    }
+}
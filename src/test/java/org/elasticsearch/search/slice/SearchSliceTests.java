@@ -0,0 +1,110 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.slice;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertNoFailures;
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class SearchSliceTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testSlicesAreDisjointAndComplete() throws Exception {
+        int numShards = randomIntBetween(1, 5);
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                .put("index.number_of_shards", numShards)
+                .put("index.number_of_replicas", randomIntBetween(0, 1))));
+        ensureGreen();
+        int numDocs = scaledRandomIntBetween(100, 500);
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            builders[i] = client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i);
+        }
+        indexRandom(true, builders);
+
+        // fewer, as many and more slices than shards
+        for (int max : new int[] {2, numShards, numShards * 2 + 1, randomIntBetween(2, 20)}) {
+            if (max < 2) {
+                continue;
+            }
+            Set<String> ids = new HashSet<>();
+            for (int id = 0; id < max; id++) {
+                for (String sliceId : readSlice(new SliceBuilder(id, max))) {
+                    assertThat("document [" + sliceId + "] read by two slices", ids.add(sliceId), is(true));
+                }
+            }
+            assertThat(ids.size(), equalTo(numDocs));
+        }
+    }
+
+    @Test
+    public void testSliceRequiresScroll() throws Exception {
+        createIndex("test");
+        indexRandom(true, client().prepareIndex("test", "type", "1").setSource("field", 1));
+        try {
+            client().prepareSearch("test").setQuery(matchAllQuery()).slice(new SliceBuilder(0, 2)).get();
+            fail("slice without scroll should fail");
+        } catch (SearchPhaseExecutionException e) {
+            assertThat(e.getMessage(), containsString("[slice] can only be used with [scroll] requests"));
+        }
+    }
+
+    private Set<String> readSlice(SliceBuilder slice) {
+        Set<String> ids = new HashSet<>();
+        SearchResponse searchResponse = client().prepareSearch("test")
+                .setSearchType(randomBoolean() ? SearchType.SCAN : SearchType.QUERY_THEN_FETCH)
+                .setQuery(matchAllQuery())
+                .setSize(randomIntBetween(1, 20))
+                .setScroll(TimeValue.timeValueMinutes(1))
+                .slice(slice)
+                .get();
+        try {
+            while (true) {
+                assertNoFailures(searchResponse);
+                for (SearchHit hit : searchResponse.getHits()) {
+                    assertThat(ids.add(hit.id()), is(true));
+                }
+                searchResponse = client().prepareSearchScroll(searchResponse.getScrollId()).setScroll(TimeValue.timeValueMinutes(1)).get();
+                if (searchResponse.getHits().hits().length == 0) {
+                    break;
+                }
+            }
+        } finally {
+            clearScroll(searchResponse.getScrollId());
+        }
+        return ids;
+    }
+}
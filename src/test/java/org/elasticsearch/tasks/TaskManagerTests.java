@@ -0,0 +1,108 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.tasks;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.elasticsearch.transport.TransportRequest;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+
+/**
+ */
+public class TaskManagerTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testRegisterAndUnregister() {
+        TaskManager taskManager = new TaskManager(ImmutableSettings.EMPTY);
+        SearchRequest request = new SearchRequest("test");
+        Task task = taskManager.register("transport", "indices:data/read/search", request);
+        assertThat(task, instanceOf(CancellableTask.class));
+        assertThat(task.getAction(), equalTo("indices:data/read/search"));
+        assertThat(TaskManager.task(request), sameInstance(task));
+        assertThat(taskManager.getTask(task.getId()), sameInstance(task));
+        assertThat(taskManager.getTasks().size(), equalTo(1));
+
+        // the task is carried over to the requests derived from the original one
+        SearchRequest derived = new SearchRequest(request, request);
+        assertThat(TaskManager.task(derived), sameInstance(task));
+
+        assertThat(taskManager.unregister(task), sameInstance(task));
+        assertThat(taskManager.getTask(task.getId()), nullValue());
+        assertThat(taskManager.getTasks().size(), equalTo(0));
+    }
+
+    @Test
+    public void testNonCancellableTask() {
+        TaskManager taskManager = new TaskManager(ImmutableSettings.EMPTY);
+        TransportRequest request = new TransportRequest.Empty();
+        Task task = taskManager.register("transport", "internal:test", request);
+        assertThat(task, not(instanceOf(CancellableTask.class)));
+        assertThat(TaskManager.task(request), sameInstance(task));
+        // requests with a task that is not cancellable never get cancelled
+        TaskManager.ensureNotCancelled(request);
+        // neither do requests without a task
+        TaskManager.ensureNotCancelled(new TransportRequest.Empty());
+    }
+
+    @Test
+    public void testCancel() {
+        TaskManager taskManager = new TaskManager(ImmutableSettings.EMPTY);
+        SearchRequest request = new SearchRequest("test");
+        CancellableTask task = (CancellableTask) taskManager.register("transport", "indices:data/read/search", request);
+        TaskManager.ensureNotCancelled(request);
+
+        assertTrue(taskManager.cancel(task, "test reason"));
+        assertTrue(task.isCancelled());
+        assertThat(task.getReasonCancelled(), equalTo("test reason"));
+        // a task is only cancelled once
+        assertFalse(taskManager.cancel(task, "other reason"));
+        assertThat(task.getReasonCancelled(), equalTo("test reason"));
+        try {
+            TaskManager.ensureNotCancelled(request);
+            fail("the task was cancelled");
+        } catch (TaskCancelledException e) {
+            assertThat(e.getMessage(), containsString("test reason"));
+        }
+    }
+
+    @Test
+    public void testCancelChildren() {
+        TaskManager taskManager = new TaskManager(ImmutableSettings.EMPTY);
+        SearchRequest child = new SearchRequest("test");
+        child.setParentTask("node1", 42);
+        CancellableTask childTask = (CancellableTask) taskManager.register("transport", "indices:data/read/search", child);
+        assertTrue(childTask.isChildOf("node1", 42));
+
+        SearchRequest other = new SearchRequest("test");
+        other.setParentTask("node1", 43);
+        CancellableTask otherTask = (CancellableTask) taskManager.register("transport", "indices:data/read/search", other);
+
+        List<CancellableTask> cancelled = taskManager.cancelChildren("node1", 42, "test reason");
+        assertThat(cancelled.size(), equalTo(1));
+        assertThat(cancelled.get(0), sameInstance(childTask));
+        assertTrue(childTask.isCancelled());
+        assertFalse(otherTask.isCancelled());
+    }
+}
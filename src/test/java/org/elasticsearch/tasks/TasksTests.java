@@ -0,0 +1,166 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.tasks;
+
+import org.elasticsearch.action.ListenableActionFuture;
+import org.elasticsearch.action.admin.cluster.node.tasks.cancel.CancelTasksResponse;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksAction;
+import org.elasticsearch.action.admin.cluster.node.tasks.list.ListTasksResponse;
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.action.search.SearchPhaseExecutionException;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
+import org.elasticsearch.plugins.AbstractPlugin;
+import org.elasticsearch.script.AbstractSearchScript;
+import org.elasticsearch.script.ExecutableScript;
+import org.elasticsearch.script.NativeScriptFactory;
+import org.elasticsearch.script.ScriptModule;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ */
+public class TasksTests extends ElasticsearchIntegrationTest {
+
+    private static final AtomicInteger SCRIPT_CALLS = new AtomicInteger();
+    private static volatile CountDownLatch scriptStarted;
+    private static volatile CountDownLatch scriptReleased;
+
+    @Override
+    protected Settings nodeSettings(int nodeOrdinal) {
+        return ImmutableSettings.settingsBuilder().put(super.nodeSettings(nodeOrdinal))
+                .put("plugin.types", BlockingScriptPlugin.class.getName()).build();
+    }
+
+    @Test
+    public void testListTasksSeesItself() {
+        ListTasksResponse response = client().admin().cluster().prepareListTasks().setActions(ListTasksAction.NAME + "*").get();
+        // the list tasks request is running on every node it was sent to
+        assertThat(response.getTasks().size(), greaterThanOrEqualTo(1));
+        for (TaskInfo taskInfo : response.getTasks()) {
+            assertThat(taskInfo.getAction().startsWith(ListTasksAction.NAME), equalTo(true));
+        }
+    }
+
+    @Test
+    public void testCancelNonMatchingTasks() {
+        CancelTasksResponse response = client().admin().cluster().prepareCancelTasks().setActions("indices:data/does_not_exist").get();
+        assertThat(response.getTasks().size(), equalTo(0));
+    }
+
+    @Test
+    public void testCancelSearch() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(ImmutableSettings.settingsBuilder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)));
+        int numDocs = scaledRandomIntBetween(3000, 5000);
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[numDocs];
+        for (int i = 0; i < numDocs; i++) {
+            builders[i] = client().prepareIndex("test", "type", Integer.toString(i)).setSource("field", i);
+        }
+        indexRandom(true, builders);
+
+        SCRIPT_CALLS.set(0);
+        scriptStarted = new CountDownLatch(1);
+        scriptReleased = new CountDownLatch(1);
+        // the script blocks the collection of the first document until the search was cancelled
+        ListenableActionFuture<SearchResponse> future = client().prepareSearch("test")
+                .setQuery(QueryBuilders.functionScoreQuery(QueryBuilders.matchAllQuery(), ScoreFunctionBuilders.scriptFunction("blocking", "native")))
+                .execute();
+        try {
+            assertTrue(scriptStarted.await(30, TimeUnit.SECONDS));
+            ListTasksResponse tasks = client().admin().cluster().prepareListTasks().setActions(SearchAction.NAME).get();
+            assertThat(tasks.getTasks().size(), greaterThanOrEqualTo(1));
+            for (TaskInfo taskInfo : tasks.getTasks()) {
+                assertTrue(taskInfo.isCancellable());
+            }
+
+            CancelTasksResponse cancelled = client().admin().cluster().prepareCancelTasks().setActions(SearchAction.NAME)
+                    .setReason("cancelled by test").get();
+            assertThat(cancelled.getTasks().size(), greaterThanOrEqualTo(tasks.getTasks().size()));
+        } finally {
+            scriptReleased.countDown();
+        }
+
+        try {
+            future.actionGet();
+            fail("the search was cancelled");
+        } catch (SearchPhaseExecutionException e) {
+            assertThat(e.getMessage(), containsString("cancelled by test"));
+        }
+        // the collection stopped shortly after the search was cancelled
+        assertThat(SCRIPT_CALLS.get(), lessThan(numDocs));
+    }
+
+    public static class BlockingScriptPlugin extends AbstractPlugin {
+
+        @Override
+        public String name() {
+            return "blocking-script";
+        }
+
+        @Override
+        public String description() {
+            return "A script that blocks until released";
+        }
+
+        public void onModule(ScriptModule scriptModule) {
+            scriptModule.registerScript("blocking", BlockingScriptFactory.class);
+        }
+    }
+
+    public static class BlockingScriptFactory implements NativeScriptFactory {
+
+        @Override
+        public ExecutableScript newScript(@Nullable Map<String, Object> params) {
+            return new AbstractSearchScript() {
+                @Override
+                public Object run() {
+                    if (SCRIPT_CALLS.incrementAndGet() == 1) {
+                        scriptStarted.countDown();
+                        try {
+                            scriptReleased.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return 1.0;
+                }
+            };
+        }
+    }
+}
@@ -55,10 +55,13 @@ import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.search.profile.Profiler;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.rescore.RescoreSearchContext;
 import org.elasticsearch.search.scan.ScanContext;
+import org.elasticsearch.search.slice.SliceBuilder;
 import org.elasticsearch.search.suggest.SuggestionSearchContext;
+import org.elasticsearch.tasks.Task;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.List;
@@ -76,6 +79,10 @@ public class TestSearchContext extends SearchContext {
     ContextIndexSearcher searcher;
     int size;
     private int terminateAfter = DEFAULT_TERMINATE_AFTER;
+    private int maxConcurrentSlices = DEFAULT_MAX_CONCURRENT_SLICES;
+    private boolean sequentialSearchRequired;
+    private boolean trackTotalHits = true;
+    private SliceBuilder sliceBuilder;
     private String[] types;
 
     public TestSearchContext(ThreadPool threadPool,PageCacheRecycler pageCacheRecycler, BigArrays bigArrays, IndexService indexService, FilterCache filterCache, IndexFieldDataService indexFieldDataService) {
@@ -344,6 +351,46 @@ public class TestSearchContext extends SearchContext {
         this.terminateAfter = terminateAfter;
     }
 
+    @Override
+    public int maxConcurrentSlices() {
+        return maxConcurrentSlices;
+    }
+
+    @Override
+    public void maxConcurrentSlices(int maxConcurrentSlices) {
+        this.maxConcurrentSlices = maxConcurrentSlices;
+    }
+
+    @Override
+    public void requireSequentialSearch() {
+        this.sequentialSearchRequired = true;
+    }
+
+    @Override
+    public boolean sequentialSearchRequired() {
+        return sequentialSearchRequired;
+    }
+
+    @Override
+    public boolean trackTotalHits() {
+        return trackTotalHits;
+    }
+
+    @Override
+    public void trackTotalHits(boolean trackTotalHits) {
+        this.trackTotalHits = trackTotalHits;
+    }
+
+    @Override
+    public SliceBuilder sliceBuilder() {
+        return sliceBuilder;
+    }
+
+    @Override
+    public void sliceBuilder(SliceBuilder sliceBuilder) {
+        this.sliceBuilder = sliceBuilder;
+    }
+
     @Override
     public SearchContext minimumScore(float minimumScore) {
         return null;
@@ -462,6 +509,24 @@ public class TestSearchContext extends SearchContext {
     public void explain(boolean explain) {
     }
 
+    @Override
+    public Profiler profiler() {
+        return null;
+    }
+
+    @Override
+    public void profiler(Profiler profiler) {
+    }
+
+    @Override
+    public Task task() {
+        return null;
+    }
+
+    @Override
+    public void task(Task task) {
+    }
+
     @Override
     public List<String> groupStats() {
         return null;
@@ -126,6 +126,11 @@ public class NoopClusterService implements ClusterService {
 
     }
 
+    @Override
+    public <T> void submitStateUpdateTask(String source, Priority priority, T task, ClusterStateTaskExecutor<T> executor, ClusterStateTaskListener listener) {
+
+    }
+
     @Override
     public List<PendingClusterTask> pendingTasks() {
         return null;
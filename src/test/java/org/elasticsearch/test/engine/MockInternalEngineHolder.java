@@ -33,12 +33,14 @@ import org.elasticsearch.index.engine.EngineException;
 import org.elasticsearch.index.engine.internal.InternalEngine;
 import org.elasticsearch.index.engine.internal.InternalEngineHolder;
 import org.elasticsearch.index.indexing.ShardIndexingService;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.merge.policy.MergePolicyProvider;
 import org.elasticsearch.index.merge.scheduler.MergeSchedulerProvider;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.settings.IndexSettingsService;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.index.sort.IndexSort;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.warmer.IndicesWarmer;
@@ -72,9 +74,9 @@ public final class MockInternalEngineHolder extends InternalEngineHolder impleme
                                     IndexSettingsService indexSettingsService, ShardIndexingService indexingService, @Nullable IndicesWarmer warmer, Store store,
                                     SnapshotDeletionPolicy deletionPolicy, Translog translog, MergePolicyProvider mergePolicyProvider,
                                     MergeSchedulerProvider mergeScheduler, AnalysisService analysisService, SimilarityService similarityService,
-                                    CodecService codecService) throws EngineException {
+                                    CodecService codecService, MapperService mapperService) throws EngineException {
         super(shardId, indexSettings, threadPool, indexSettingsService, indexingService, warmer, store, deletionPolicy, translog, mergePolicyProvider, mergeScheduler, analysisService,
-                similarityService, codecService
+                similarityService, codecService, mapperService
         );
         final long seed = indexSettings.getAsLong(ElasticsearchIntegrationTest.SETTING_INDEX_SEED, 0l);
         Random random = new Random(seed);
@@ -93,7 +95,8 @@ public final class MockInternalEngineHolder extends InternalEngineHolder impleme
         return new MockInternalEngine(mockContext, shardId, logger, codecService, threadPool, indexingService,
                 warmer, store, deletionPolicy, translog, mergePolicyProvider, mergeScheduler, analysisService, similarityService,
                 enableGcDeletes, gcDeletesInMillis,
-                indexingBufferSize, codecName, compoundOnFlush, indexConcurrency, optimizeAutoGenerateId, failEngineOnCorruption, this);
+                indexingBufferSize, codecName, compoundOnFlush, indexConcurrency, optimizeAutoGenerateId, failEngineOnCorruption,
+                IndexSort.parse(indexSettings, mapperService), this);
     }
 
     public static abstract class DirectoryReaderWrapper extends FilterDirectoryReader {
@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport.netty;
+
+import org.elasticsearch.action.bulk.BulkAction;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.elasticsearch.transport.TransportRequestOptions;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ */
+public class GatheringBytesStreamOutputTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testGatheredBytesAreReadBack() throws Exception {
+        GatheringBytesStreamOutput out = new GatheringBytesStreamOutput(BigArrays.NON_RECYCLING_INSTANCE);
+        BytesReference small = new BytesArray(randomUnicodeOfLength(randomIntBetween(0, 100)));
+        BytesReference large = randomBytes(GatheringBytesStreamOutput.MIN_REFERENCED_LENGTH + randomIntBetween(0, 100000));
+        BytesReference other = randomBytes(GatheringBytesStreamOutput.MIN_REFERENCED_LENGTH + randomIntBetween(0, 1000)).slice(10, GatheringBytesStreamOutput.MIN_REFERENCED_LENGTH);
+
+        out.writeString("header");
+        out.writeBytesReference(small);
+        out.writeBytesReference(large);
+        out.writeVInt(42);
+        out.writeBytesReference(other);
+        out.writeBytesReference(null);
+        out.close();
+
+        // the large references are not copied
+        assertThat(out.bytes().length() < large.length(), equalTo(true));
+
+        ChannelBuffer buffer = out.toChannelBuffer();
+        StreamInput in = ChannelBufferStreamInputFactory.create(buffer);
+        assertThat(in.readString(), equalTo("header"));
+        assertThat(in.readBytesReference(), equalTo(small));
+        assertThat(in.readBytesReference(), equalTo(large));
+        assertThat(in.readVInt(), equalTo(42));
+        assertThat(in.readBytesReference(), equalTo(other));
+        assertThat(in.readBytesReference().length(), equalTo(0));
+    }
+
+    @Test
+    public void testBulkRequestsAreGatheredByDefault() {
+        TransportRequestOptions options = BulkAction.INSTANCE.transportOptions(ImmutableSettings.EMPTY);
+        assertThat(NettyTransport.compressRequest(new BulkRequest(), options), equalTo(false));
+        assertThat(NettyTransport.gatherRequest(new BulkRequest(), options), equalTo(true));
+
+        // compressed requests copy their bytes into the compressed stream
+        options = BulkAction.INSTANCE.transportOptions(ImmutableSettings.settingsBuilder().put("action.bulk.compress", true).build());
+        assertThat(NettyTransport.compressRequest(new BulkRequest(), options), equalTo(true));
+        assertThat(NettyTransport.gatherRequest(new BulkRequest(), options), equalTo(false));
+
+        // other requests copy their bytes
+        assertThat(NettyTransport.gatherRequest(new BulkRequest(), TransportRequestOptions.options()), equalTo(false));
+    }
+
+    private BytesReference randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        getRandom().nextBytes(bytes);
+        return new BytesArray(bytes);
+    }
+}